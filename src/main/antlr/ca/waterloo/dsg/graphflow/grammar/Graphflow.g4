@@ -11,7 +11,10 @@ query : matchQuery
        | createQuery
        | deleteQuery
        | shortestPathQuery
-       | durabilityQuery ;
+       | durabilityQuery
+       | bulkLoadQuery
+       | reorderQuery
+       | createIndexQuery ;
 
 matchQuery : MATCH whitespace matchPattern (whitespace whereClause)? (whitespace returnClause)?;
 continuousMatchQuery : CONTINUOUSLY whitespace MATCH whitespace matchPattern
@@ -22,6 +25,11 @@ createQuery : CREATE whitespace (createEdgePattern | createVertexPattern) ;
 deleteQuery : DELETE whitespace deletePattern ;
 shortestPathQuery: SHORTEST whitespace PATH whitespace pathPattern ;
 durabilityQuery: ( LOAD whitespace FROM  | SAVE whitespace TO ) whitespace DIR whitespace stringLiteral ;
+bulkLoadQuery: LOAD whitespace CSV whitespace ( VERTICES whitespace FROM whitespace stringLiteral whitespace )?
+               EDGES whitespace FROM whitespace stringLiteral ;
+reorderQuery: REORDER whitespace GRAPH ( whitespace BY whitespace ( DEGREE | LOCALITY ) )? ;
+createIndexQuery : CREATE whitespace INDEX whitespace ON whitespace ( COLON type | edgeType ) whitespace?
+                   OPEN_ROUND_BRACKET whitespace? key whitespace? CLOSE_ROUND_BRACKET ;
 
 matchPattern: variableEdge ( whitespace? COMMA whitespace? variableEdge )* ;
 deletePattern : digitsEdgeWithOptionalType ( whitespace? COMMA whitespace? digitsEdgeWithOptionalType )* ;
@@ -101,6 +109,16 @@ keyword
     | FROM
     | TO
     | DIR
+    | CSV
+    | VERTICES
+    | EDGES
+    | REORDER
+    | GRAPH
+    | BY
+    | DEGREE
+    | LOCALITY
+    | INDEX
+    | ON
     | TRUE
     | FALSE
     | AND
@@ -151,6 +169,16 @@ SAVE: S A V E ;
 FROM: F R O M ;
 TO: T O ;
 DIR: D I R ;
+CSV: C S V ;
+VERTICES: V E R T I C E S ;
+EDGES: E D G E S ;
+REORDER: R E O R D E R ;
+GRAPH: G R A P H ;
+BY: B Y ;
+DEGREE: D E G R E E ;
+LOCALITY: L O C A L I T Y ;
+INDEX: I N D E X ;
+ON: O N ;
 
 TRUE : T R U E ;
 FALSE : F A L S E ;
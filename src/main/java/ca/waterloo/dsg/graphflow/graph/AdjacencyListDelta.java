@@ -0,0 +1,217 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import java.util.Arrays;
+
+/**
+ * Stores the temporary changes to the permanent adjacency list of a vertex in one direction,
+ * instead of a full copy of the adjacency list. The {@link Graph.GraphVersion#MERGED} adjacency
+ * list of the vertex is the permanent adjacency list minus the {@code deletions}, plus the
+ * {@code additions}, and is read through a {@link MergedAdjacencyListCursor}. Both lists are
+ * sorted first by neighbour IDs and then by edge types, and only hold the edges changed in the
+ * current batch of updates.
+ * <p>
+ * The changes are appended to the lists unsorted and are sorted in one batch the next time the
+ * lists are read, so that a batch of k changes to a vertex is sorted in O(k log k) time instead of
+ * being inserted one at a time. As the first read after a change sorts the lists, an {@link
+ * AdjacencyListDelta} should not be read by multiple threads at the same time.
+ */
+public class AdjacencyListDelta {
+
+    // The temporarily added edges that are not in the permanent adjacency list.
+    private final SortedAdjacencyList additions = new SortedAdjacencyList();
+    // The temporarily deleted edges of the permanent adjacency list, with their permanent edge
+    // types and IDs.
+    private final SortedAdjacencyList deletions = new SortedAdjacencyList();
+    // The number of neighbours at the start of {@code additions} and {@code deletions} that are
+    // sorted. The neighbours after them were appended since the lists were last sorted.
+    private int numSortedAdditions;
+    private int numSortedDeletions;
+
+    /**
+     * Temporarily adds the edge to the given {@code neighbourId}.
+     *
+     * @param neighbourId The ID of the neighbour.
+     * @param edgeType The type of the edge to the neighbour.
+     * @param edgeId The ID of the edge to the neighbour.
+     */
+    public void add(int neighbourId, short edgeType, long edgeId) {
+        additions.append(neighbourId, edgeType, edgeId);
+    }
+
+    /**
+     * Temporarily deletes the edge to the given {@code neighbourId} with the given {@code
+     * edgeTypeFilter}. If the edge was temporarily added, it is removed from the additions.
+     * Otherwise, the first matching edge of {@code permanentAdjList} that is not already deleted
+     * is marked as deleted.
+     *
+     * @param neighbourId The ID of the neighbour.
+     * @param edgeTypeFilter The type of the edge to the neighbour.
+     * @param permanentAdjList The permanent adjacency list of the vertex.
+     */
+    public void delete(int neighbourId, short edgeTypeFilter,
+        SortedAdjacencyList permanentAdjList) {
+        sortAppendedEdges();
+        if (additions.search(neighbourId, edgeTypeFilter) > -1) {
+            additions.removeNeighbour(neighbourId, edgeTypeFilter);
+            numSortedAdditions = additions.getSize();
+            return;
+        }
+        int index = getFirstPermanentIndex(neighbourId, edgeTypeFilter, permanentAdjList);
+        if (index > -1) {
+            deletions.append(neighbourId, permanentAdjList.getEdgeType(index), permanentAdjList.
+                getEdgeId(index));
+        }
+    }
+
+    /**
+     * Sorts the edges appended to {@code additions} and {@code deletions} since they were last
+     * sorted.
+     */
+    private void sortAppendedEdges() {
+        if (numSortedAdditions < additions.getSize()) {
+            additions.sortAppended(numSortedAdditions);
+            numSortedAdditions = additions.getSize();
+        }
+        if (numSortedDeletions < deletions.getSize()) {
+            deletions.sortAppended(numSortedDeletions);
+            numSortedDeletions = deletions.getSize();
+        }
+    }
+
+    /**
+     * Returns the index of the first edge of {@code permanentAdjList} to the given {@code
+     * neighbourId} that matches the given {@code edgeTypeFilter} and is not deleted.
+     *
+     * @return The index of the edge, or -1 if there is no such edge.
+     */
+    int getFirstPermanentIndex(int neighbourId, short edgeTypeFilter,
+        SortedAdjacencyList permanentAdjList) {
+        return getFirstNotDeletedIndex(permanentAdjList.search(neighbourId, edgeTypeFilter),
+            neighbourId, edgeTypeFilter, permanentAdjList);
+    }
+
+    /**
+     * Returns the index of the first edge of {@code permanentAdjList} at or after the given {@code
+     * index} to the given {@code neighbourId} that matches the given {@code edgeTypeFilter} and is
+     * not deleted.
+     *
+     * @param index The index of a matching edge, as returned by {@link
+     * SortedAdjacencyList#search(int, short, int)}. A negative value means there is no match.
+     *
+     * @return The index of the edge, or -1 if there is no such edge.
+     */
+    int getFirstNotDeletedIndex(int index, int neighbourId, short edgeTypeFilter,
+        SortedAdjacencyList permanentAdjList) {
+        if (index < 0) {
+            return -1;
+        }
+        // With a {@link TypeAndPropertyKeyStore#ANY} filter, the neighbour may occur multiple
+        // times with different edge types, some of which may be deleted.
+        for (; index < permanentAdjList.getSize() && neighbourId == permanentAdjList.
+            getNeighbourId(index); index++) {
+            short edgeType = permanentAdjList.getEdgeType(index);
+            if ((TypeAndPropertyKeyStore.ANY == edgeTypeFilter || edgeType == edgeTypeFilter) &&
+                !isDeleted(neighbourId, edgeType)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code true} if the permanent edge to the given {@code neighbourId} with exactly
+     * the given {@code edgeType} is deleted.
+     */
+    boolean isDeleted(int neighbourId, short edgeType) {
+        if (0 == deletions.getSize()) {
+            return false;
+        }
+        sortAppendedEdges();
+        // A search for {@link TypeAndPropertyKeyStore#ANY} matches the first edge to the
+        // neighbour, so the type of the match is checked to keep the comparison exact.
+        int index = deletions.search(neighbourId, edgeType);
+        return index > -1 && deletions.getEdgeType(index) == edgeType;
+    }
+
+    /**
+     * @return The temporarily added edges.
+     */
+    SortedAdjacencyList getAdditions() {
+        sortAppendedEdges();
+        return additions;
+    }
+
+    /**
+     * @return The temporarily deleted permanent edges.
+     */
+    SortedAdjacencyList getDeletions() {
+        sortAppendedEdges();
+        return deletions;
+    }
+
+    /**
+     * @return The size of the merged adjacency list minus the size of the permanent one.
+     */
+    public int getSizeDifference() {
+        return additions.getSize() - deletions.getSize();
+    }
+
+    /**
+     * @param edgeTypeFilter The type of the edges, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return The number of neighbours with the given {@code edgeTypeFilter} in the merged
+     * adjacency list minus the number in the permanent one.
+     */
+    public int getSizeDifference(short edgeTypeFilter) {
+        if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter) {
+            return getSizeDifference();
+        }
+        return countEdgesOfType(additions, edgeTypeFilter) - countEdgesOfType(deletions,
+            edgeTypeFilter);
+    }
+
+    private static int countEdgesOfType(SortedAdjacencyList adjList, short edgeType) {
+        int count = 0;
+        for (int i = 0; i < adjList.getSize(); i++) {
+            if (adjList.getEdgeType(i) == edgeType) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param permanentEdgeTypes The edge types of the permanent adjacency list in increasing
+     * order.
+     *
+     * @return The edge types of the merged adjacency list in increasing order. These are the
+     * given {@code permanentEdgeTypes} and the types of the added edges.
+     */
+    short[] getEdgeTypes(short[] permanentEdgeTypes) {
+        short[] edgeTypes = Arrays.copyOf(permanentEdgeTypes, permanentEdgeTypes.length +
+            additions.getSize());
+        int size = permanentEdgeTypes.length;
+        for (int i = 0; i < additions.getSize(); i++) {
+            edgeTypes[size++] = additions.getEdgeType(i);
+        }
+        Arrays.sort(edgeTypes);
+        int numDistinctTypes = 0;
+        for (int i = 0; i < edgeTypes.length; i++) {
+            if (0 == i || edgeTypes[i] != edgeTypes[i - 1]) {
+                edgeTypes[numDistinctTypes++] = edgeTypes[i];
+            }
+        }
+        return Arrays.copyOf(edgeTypes, numDistinctTypes);
+    }
+
+    /**
+     * Returns a string representation of {@link AdjacencyListDelta}.
+     *
+     * @return String representation.
+     */
+    @Override
+    public String toString() {
+        sortAppendedEdges();
+        return "+" + additions.toString() + " -" + deletions.toString();
+    }
+}
@@ -0,0 +1,332 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A file that stores the partitions of memory-mapped {@link CSRAdjacencyLists}, each in its own
+ * block read through {@link MappedAdjacencyColumns}.
+ * <p>
+ * The file starts with the position of its partition table, followed by the blocks and the
+ * partition tables. A partition table holds the number of vertices, the number of partitions,
+ * and the position and the number of edges of the block of each partition. A merge appends the
+ * blocks of the changed partitions and a new partition table, which shares the blocks of the other
+ * partitions with the previous one, and only then writes the position of the new table at the
+ * start of the file. The file therefore always holds the adjacency lists of the last completed
+ * write, and the blocks and tables of the older adjacency lists stay valid for the {@link
+ * CSRAdjacencyLists} that still map them. They are only reclaimed when the adjacency lists are
+ * written to a new file, see {@link #shouldBeCompacted(long)}. All values are little-endian.
+ * <p>
+ * The blocks are mapped in regions of up to {@link #MAX_REGION_SIZE_IN_BYTES} bytes, as a mapped
+ * region cannot be larger than 2GB, and the blocks appended by one merge share their regions. A
+ * block of a single partition must be smaller than 2GB.
+ */
+class AdjacencyListFile {
+
+    private static final int HEADER_SIZE_IN_BYTES = 8;
+    private static final int TABLE_ENTRY_SIZE_IN_BYTES = 12;
+    private static final long MAX_REGION_SIZE_IN_BYTES = 1L << 30;
+    // Files with more mapped regions are compacted, so that the number of memory mappings of the
+    // process stays well below the limit of the operating system.
+    private static final int MAX_NUM_MAPPED_REGIONS = 1024;
+
+    private final File file;
+    // If {@code true}, the file was created by {@link #create(File)}, so the blocks of merges can
+    // be appended to it and it is deleted by {@link #delete()}.
+    private final boolean isOwned;
+    private long sizeInBytes;
+    private int numMappedRegions;
+    // The regions mapped by {@link #append(int[][])} since the last call to {@link #commit(int,
+    // MappedAdjacencyColumns[])}, whose changes are written to the file by the commit.
+    private final List<MappedByteBuffer> uncommittedRegions = new ArrayList<>();
+    // The partition table read by {@link #open(File)}.
+    private int numVertices;
+    private long[] blockPositions;
+    private int[] blockNumEdges;
+
+    private AdjacencyListFile(File file, boolean isOwned, long sizeInBytes) {
+        this.file = file;
+        this.isOwned = isOwned;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Creates the given {@code file}, without partitions. An existing file is overwritten.
+     *
+     * @param file The file to create.
+     *
+     * @return The {@link AdjacencyListFile}, whose partitions should be written with {@link
+     * #append(int[][])} and {@link #commit(int, MappedAdjacencyColumns[])}.
+     */
+    static AdjacencyListFile create(File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(HEADER_SIZE_IN_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating " + file.getPath() + ".", e);
+        }
+        return new AdjacencyListFile(file, true /* owned */, HEADER_SIZE_IN_BYTES);
+    }
+
+    /**
+     * Reads the partition table of the given {@code file}, written by {@link #commit(int,
+     * MappedAdjacencyColumns[])}. The file is only read: nothing is appended to it and it is not
+     * deleted by {@link #delete()}.
+     *
+     * @param file The file to open.
+     *
+     * @return The {@link AdjacencyListFile}, whose partitions are mapped by {@link
+     * #mapPartitions()}.
+     */
+    static AdjacencyListFile open(File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel fileChannel = randomAccessFile.getChannel();
+            AdjacencyListFile adjListFile = new AdjacencyListFile(file, false /* not owned */,
+                fileChannel.size());
+            long tablePosition = read(fileChannel, 0 /* position */, HEADER_SIZE_IN_BYTES).
+                getLong();
+            ByteBuffer table = read(fileChannel, tablePosition, 8);
+            adjListFile.numVertices = table.getInt();
+            int numPartitions = table.getInt();
+            table = read(fileChannel, tablePosition + 8, (long) TABLE_ENTRY_SIZE_IN_BYTES *
+                numPartitions);
+            adjListFile.blockPositions = new long[numPartitions];
+            adjListFile.blockNumEdges = new int[numPartitions];
+            for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                adjListFile.blockPositions[partitionId] = table.getLong();
+                adjListFile.blockNumEdges[partitionId] = table.getInt();
+            }
+            return adjListFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening " + file.getPath() + ".", e);
+        }
+    }
+
+    /**
+     * @return The number of vertices of the partition table read by {@link #open(File)}.
+     */
+    int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * Maps the blocks of the partition table read by {@link #open(File)} into memory for reading
+     * only.
+     *
+     * @return The columns of each partition.
+     */
+    MappedAdjacencyColumns[] mapPartitions() {
+        int numPartitions = blockPositions.length;
+        int[] numBlockVertices = new int[numPartitions];
+        long[] blockSizes = new long[numPartitions];
+        for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+            numBlockVertices[partitionId] = (int) Long.min(CSRAdjacencyLists.PARTITION_SIZE,
+                numVertices - (long) partitionId * CSRAdjacencyLists.PARTITION_SIZE);
+            blockSizes[partitionId] = MappedAdjacencyColumns.getSizeInBytes(numBlockVertices[
+                partitionId], blockNumEdges[partitionId]);
+        }
+        MappedAdjacencyColumns[] partitionColumns = new MappedAdjacencyColumns[numPartitions];
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            ByteBuffer[] blocks = map(randomAccessFile.getChannel(), MapMode.READ_ONLY,
+                blockPositions, blockSizes);
+            for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                partitionColumns[partitionId] = new MappedAdjacencyColumns(blockPositions[
+                    partitionId], blocks[partitionId], numBlockVertices[partitionId],
+                    blockNumEdges[partitionId]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping " + file.getPath() + ".", e);
+        }
+        return partitionColumns;
+    }
+
+    /**
+     * Appends a block for each of the given partitions to the file, writes their offsets and maps
+     * the blocks into memory for reading and writing. The blocks are not part of the adjacency
+     * lists stored in the file until {@link #commit(int, MappedAdjacencyColumns[])} is called.
+     *
+     * @param partitionOffsets The offsets of the vertices of each partition, which start at 0 and
+     * whose last cell is the number of edges of the partition.
+     *
+     * @return The columns of each partition, which should be filled with {@link
+     * MappedAdjacencyColumns#set(int, int, short, long)} or {@link
+     * MappedAdjacencyColumns#writeColumns(int, int[], short[], long[], int, int)}.
+     *
+     * @throws IllegalArgumentException If the block of a partition would be larger than 2GB.
+     */
+    MappedAdjacencyColumns[] append(int[][] partitionOffsets) {
+        int numPartitions = partitionOffsets.length;
+        long[] positions = new long[numPartitions];
+        long[] sizes = new long[numPartitions];
+        long endPosition = sizeInBytes;
+        for (int i = 0; i < numPartitions; i++) {
+            int numBlockVertices = partitionOffsets[i].length - 1;
+            sizes[i] = MappedAdjacencyColumns.getSizeInBytes(numBlockVertices, partitionOffsets[
+                i][numBlockVertices]);
+            if (sizes[i] > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A partition with " + partitionOffsets[i][
+                    numBlockVertices] + " edges is too large to be memory-mapped.");
+            }
+            positions[i] = endPosition;
+            endPosition += sizes[i];
+        }
+        MappedAdjacencyColumns[] partitionColumns = new MappedAdjacencyColumns[numPartitions];
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(endPosition);
+            ByteBuffer[] blocks = map(randomAccessFile.getChannel(), MapMode.READ_WRITE,
+                positions, sizes);
+            for (int i = 0; i < numPartitions; i++) {
+                int numBlockVertices = partitionOffsets[i].length - 1;
+                partitionColumns[i] = new MappedAdjacencyColumns(positions[i], blocks[i],
+                    numBlockVertices, partitionOffsets[i][numBlockVertices]);
+                partitionColumns[i].writeOffsets(partitionOffsets[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing " + file.getPath() + ".", e);
+        }
+        sizeInBytes = endPosition;
+        return partitionColumns;
+    }
+
+    /**
+     * Writes the changes made to the blocks appended since the last commit to the file, then
+     * appends the partition table of the given {@code partitionColumns}, and makes it the
+     * partition table of the file.
+     *
+     * @param numVertices The number of vertices of the adjacency lists.
+     * @param partitionColumns The columns of each partition, which should be blocks of this file.
+     */
+    void commit(int numVertices, MappedAdjacencyColumns[] partitionColumns) {
+        for (MappedByteBuffer region : uncommittedRegions) {
+            region.force();
+        }
+        uncommittedRegions.clear();
+        ByteBuffer table = ByteBuffer.allocate(8 + TABLE_ENTRY_SIZE_IN_BYTES *
+            partitionColumns.length).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(numVertices);
+        table.putInt(partitionColumns.length);
+        for (MappedAdjacencyColumns columns : partitionColumns) {
+            table.putLong(columns.getPosition());
+            table.putInt(columns.getNumEdges());
+        }
+        table.flip();
+        long tablePosition = sizeInBytes;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_IN_BYTES).order(
+            ByteOrder.LITTLE_ENDIAN).putLong(0 /* index */, tablePosition);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            FileChannel fileChannel = randomAccessFile.getChannel();
+            write(fileChannel, table, tablePosition);
+            fileChannel.force(false /* no metadata */);
+            write(fileChannel, header, 0 /* position */);
+            fileChannel.force(false /* no metadata */);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing " + file.getPath() + ".", e);
+        }
+        // The next block starts at a multiple of 8 bytes.
+        sizeInBytes = (tablePosition + table.capacity() + 7) & ~7L;
+    }
+
+    /**
+     * @param liveSizeInBytes The number of bytes of the blocks of the partitions that are still
+     * used, once the next merge is committed.
+     *
+     * @return {@code true} if the blocks of the next merge should be written to a new file instead
+     * of being appended to this one, i.e., if this file was not created by {@link #create(File)},
+     * if most of it holds blocks that are no longer used, or if it has too many mapped regions.
+     */
+    boolean shouldBeCompacted(long liveSizeInBytes) {
+        return !isOwned || sizeInBytes > 2 * (HEADER_SIZE_IN_BYTES + liveSizeInBytes) ||
+            numMappedRegions >= MAX_NUM_MAPPED_REGIONS;
+    }
+
+    /**
+     * @return The file.
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Deletes the file, if it was created by {@link #create(File)}. The blocks of the file should
+     * not be read afterwards.
+     */
+    void delete() {
+        if (isOwned && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Maps the blocks at the given {@code positions} with the given {@code sizes} into memory.
+     * Blocks that are close to each other in the file are mapped in the same region.
+     *
+     * @return A view over each block.
+     */
+    private ByteBuffer[] map(FileChannel fileChannel, MapMode mapMode, long[] positions,
+        long[] sizes) throws IOException {
+        Integer[] blocksByPosition = new Integer[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            blocksByPosition[i] = i;
+        }
+        Arrays.sort(blocksByPosition, (a, b) -> Long.compare(positions[a], positions[b]));
+        ByteBuffer[] blocks = new ByteBuffer[positions.length];
+        for (int first = 0; first < positions.length; ) {
+            long regionPosition = positions[blocksByPosition[first]];
+            long regionEnd = regionPosition + sizes[blocksByPosition[first]];
+            int end = first + 1;
+            while (end < positions.length && positions[blocksByPosition[end]] + sizes[
+                blocksByPosition[end]] - regionPosition <= MAX_REGION_SIZE_IN_BYTES) {
+                regionEnd = Long.max(regionEnd, positions[blocksByPosition[end]] + sizes[
+                    blocksByPosition[end]]);
+                end++;
+            }
+            MappedByteBuffer region = fileChannel.map(mapMode, regionPosition, regionEnd -
+                regionPosition);
+            numMappedRegions++;
+            if (MapMode.READ_WRITE == mapMode) {
+                uncommittedRegions.add(region);
+            }
+            for (int i = first; i < end; i++) {
+                int block = blocksByPosition[i];
+                ByteBuffer duplicate = region.duplicate();
+                duplicate.position((int) (positions[block] - regionPosition));
+                duplicate.limit((int) (positions[block] - regionPosition + sizes[block]));
+                blocks[block] = duplicate.slice();
+            }
+            first = end;
+        }
+        return blocks;
+    }
+
+    private static ByteBuffer read(FileChannel fileChannel, long position, long size)
+        throws IOException {
+        if (position + size > fileChannel.size()) {
+            throw new IOException("The file is truncated.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("The file is truncated.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel fileChannel, ByteBuffer buffer, long position)
+        throws IOException {
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer, position + buffer.position());
+        }
+    }
+}
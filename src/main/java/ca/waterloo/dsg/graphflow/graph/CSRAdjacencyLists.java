@@ -0,0 +1,1370 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Stores the permanent adjacency lists of all the vertices of the graph in one {@link Direction}
+ * in compressed sparse row (CSR) format. The neighbour IDs, edge types and edge IDs of all vertices
+ * are stored in three contiguous columns, and the adjacency list of vertex v occupies the range
+ * [{@code getStartIndex(v)}, {@code getStartIndex(v + 1)}) of each column. Within a range, the
+ * entries are partitioned by edge type: they are sorted first by edge types and then by neighbour
+ * IDs, so the edges of each type form a contiguous segment sorted by neighbour IDs. A type offset
+ * table stores the type and start index of each segment, so that the neighbours of a vertex with a
+ * given edge type are found without reading the edges of other types. The entries of all types are
+ * returned in the order of {@link SortedAdjacencyList}, first by neighbour IDs and then by edge
+ * types, by merging the segments.
+ * Instances are immutable once built: {@link #merge(IntToObjectMap, int)} returns a new
+ * {@link CSRAdjacencyLists} instead of modifying the current one. Vertices with IDs larger than or
+ * equal to {@link #getNumVertices()} have empty adjacency lists.
+ * <p>
+ * The vertices are split into partitions of {@link #PARTITION_SIZE} consecutive IDs, each of which
+ * stores the offsets and the type offset table of its vertices and, on the heap or compressed,
+ * the columns of its edges. The columns are indexed as if the columns of the partitions were
+ * concatenated in order. The indices and offsets of the columns are ints, so a {@link
+ * CSRAdjacencyLists} holds at most {@link Integer#MAX_VALUE} edges, which {@link
+ * #merge(IntToObjectMap, int, File)} checks. Partitions are immutable too, so a merge only builds
+ * new partitions for the partitions of the changed vertices, and shares the other partitions with
+ * the merged {@link CSRAdjacencyLists}.
+ * <p>
+ * A {@link CSRAdjacencyLists} can be compressed with {@link #compress()}. In compressed form, the
+ * neighbour IDs and the edge IDs of each partition are stored in {@link DeltaEncodedColumn}s, and
+ * the edge types column is not stored, as the type offset table already holds the type of each
+ * segment. The adjacency lists are then returned as {@link CompressedSortedAdjacencyList}s, which
+ * decode the neighbours on demand and search the neighbour IDs block by block.
+ * <p>
+ * Alternatively, the offsets and the columns of each partition can be stored in a block of a
+ * memory-mapped {@link AdjacencyListFile} with {@link #mapToFile(File)}, in which case the columns
+ * are read through {@link MappedAdjacencyColumns} and do not use the Java heap. Only the type
+ * offset table and a copy of the offsets, which are proportional to the number of vertices, stay
+ * on the heap. The adjacency lists are then returned as {@link MappedSortedAdjacencyList}s. A
+ * merge appends the blocks of the changed partitions to the file, and shares the blocks of the
+ * other partitions. The same file format is used to save and load the adjacency lists with {@link
+ * #writeToFile(File)}, {@link #readFromFile(File)} and {@link #mapFile(File)}.
+ */
+public class CSRAdjacencyLists {
+
+    // The minimum number of edges per range of vertices merged or indexed by one thread. Smaller
+    // adjacency lists are merged by the calling thread alone.
+    private static final int MIN_NUM_EDGES_PER_RANGE = 1 << 16;
+    // The number of ranges of vertices per thread, so that threads which finish their ranges
+    // early can take ranges from threads with more edges to merge.
+    private static final int NUM_RANGES_PER_THREAD = 4;
+    private static final int LOG_PARTITION_SIZE = 12;
+    // The number of vertices of each partition, except the last one, which may have fewer.
+    static final int PARTITION_SIZE = 1 << LOG_PARTITION_SIZE;
+
+    private final int numVertices;
+    private final Partition[] partitions;
+    // {@code partitionStarts} has {@code partitions.length + 1} cells. The edges of partition p
+    // are at the indices [{@code partitionStarts[p]}, {@code partitionStarts[p + 1]}) of the
+    // columns. The last cell is the number of edges.
+    private final int[] partitionStarts;
+    // If {@code true}, the columns of the partitions are compressed, and their arrays are {@code
+    // null}.
+    private final boolean isCompressed;
+    // The file of the memory-mapped columns of the partitions. This is {@code null} unless this
+    // {@link CSRAdjacencyLists} is mapped, in which case the arrays of the partitions are {@code
+    // null}.
+    private final AdjacencyListFile storageFile;
+
+    /**
+     * Creates an empty {@link CSRAdjacencyLists}.
+     */
+    public CSRAdjacencyLists() {
+        this(0 /* numVertices */, new Partition[0], false /* not compressed */,
+            null /* not mapped */);
+    }
+
+    /**
+     * Creates a {@link CSRAdjacencyLists} over the given {@code offsets} and columns. The arrays
+     * are not copied, and are shared by all the partitions. The range of each vertex in the columns
+     * should already be sorted first by edge types and then by neighbour IDs.
+     */
+    CSRAdjacencyLists(int[] offsets, int[] neighbourIds, short[] edgeTypes, long[] edgeIds,
+        int numVertices) {
+        this(numVertices, split(offsets, numVertices, neighbourIds, edgeTypes, edgeIds),
+            false /* not compressed */, null /* not mapped */);
+        indexTypeSegments();
+    }
+
+    /**
+     * Creates a {@link CSRAdjacencyLists} over the given {@code partitions}, whose type offset
+     * tables should be built before the adjacency lists are read. The partitions of compressed
+     * adjacency lists should have compressed columns, and the partitions of memory-mapped
+     * adjacency lists should have columns mapped from blocks of the given {@code storageFile}.
+     */
+    private CSRAdjacencyLists(int numVertices, Partition[] partitions, boolean isCompressed,
+        AdjacencyListFile storageFile) {
+        this.numVertices = numVertices;
+        this.partitions = partitions;
+        this.partitionStarts = new int[partitions.length + 1];
+        for (int partitionId = 0; partitionId < partitions.length; partitionId++) {
+            partitionStarts[partitionId + 1] = partitionStarts[partitionId] + partitions[
+                partitionId].getNumEdges();
+        }
+        this.isCompressed = isCompressed;
+        this.storageFile = storageFile;
+    }
+
+    /**
+     * Splits the given {@code offsets} of {@code numVertices} vertices into partitions, which
+     * share the given columns.
+     */
+    private static Partition[] split(int[] offsets, int numVertices, int[] neighbourIds,
+        short[] edgeTypes, long[] edgeIds) {
+        Partition[] partitions = new Partition[getNumPartitions(numVertices)];
+        for (int partitionId = 0; partitionId < partitions.length; partitionId++) {
+            int firstVertexId = partitionId << LOG_PARTITION_SIZE;
+            partitions[partitionId] = new Partition(Arrays.copyOfRange(offsets, firstVertexId,
+                firstVertexId + getNumVertices(partitionId, numVertices) + 1), neighbourIds,
+                edgeTypes, edgeIds, null /* not compressed */, null, null /* not mapped */);
+        }
+        return partitions;
+    }
+
+    /**
+     * @return The number of partitions of {@code numVertices} vertices.
+     */
+    private static int getNumPartitions(int numVertices) {
+        return (int) (((long) numVertices + PARTITION_SIZE - 1) >>> LOG_PARTITION_SIZE);
+    }
+
+    /**
+     * @return The number of vertices of the given {@code partitionId} when there are {@code
+     * numVertices} vertices, which is 0 if the partition is after the last vertex.
+     */
+    private static int getNumVertices(int partitionId, int numVertices) {
+        long firstVertexId = (long) partitionId << LOG_PARTITION_SIZE;
+        return (int) Long.max(0, Long.min(PARTITION_SIZE, numVertices - firstVertexId));
+    }
+
+    /**
+     * Builds the type offset table of all the partitions. Partitions are indexed in parallel if
+     * they hold enough edges.
+     */
+    private void indexTypeSegments() {
+        forEachPartition(IntStream.range(0, partitions.length).toArray(), getNumEdges(),
+            partitionId -> indexTypeSegments(partitions[partitionId]));
+    }
+
+    /**
+     * Builds the type offset table of the given {@code partition} from its edge types column, in
+     * which the range of each vertex is sorted by edge types. The segments are counted and then
+     * written.
+     */
+    private void indexTypeSegments(Partition partition) {
+        int[] offsets = partition.offsets;
+        int numPartitionVertices = partition.getNumVertices();
+        int[] segmentOffsets = new int[numPartitionVertices + 1];
+        for (int i = 0; i < numPartitionVertices; i++) {
+            int numVertexSegments = 0;
+            for (int index = offsets[i]; index < offsets[i + 1]; index++) {
+                if (index == offsets[i] || partition.getEdgeType(index) != partition.getEdgeType(
+                    index - 1)) {
+                    numVertexSegments++;
+                }
+            }
+            segmentOffsets[i + 1] = segmentOffsets[i] + numVertexSegments;
+        }
+        short[] segmentTypes = new short[segmentOffsets[numPartitionVertices]];
+        int[] segmentStarts = new int[segmentOffsets[numPartitionVertices]];
+        int segment = 0;
+        for (int i = 0; i < numPartitionVertices; i++) {
+            for (int index = offsets[i]; index < offsets[i + 1]; index++) {
+                if (index == offsets[i] || partition.getEdgeType(index) != partition.getEdgeType(
+                    index - 1)) {
+                    segmentTypes[segment] = partition.getEdgeType(index);
+                    segmentStarts[segment] = index;
+                    segment++;
+                }
+            }
+        }
+        partition.segmentOffsets = segmentOffsets;
+        partition.segmentTypes = segmentTypes;
+        partition.segmentStarts = segmentStarts;
+    }
+
+    /**
+     * Splits the vertices into consecutive ranges with about the same number of edges, to be
+     * processed in parallel. There is one range per {@link #MIN_NUM_EDGES_PER_RANGE} edges, up to
+     * {@link #NUM_RANGES_PER_THREAD} ranges per available processor.
+     *
+     * @param offsets The offsets of the adjacency lists of the vertices in the columns.
+     * @param numVertices The number of vertices.
+     *
+     * @return The boundaries of the ranges. Range r holds the vertices in [{@code
+     * boundaries[r]}, {@code boundaries[r + 1]}). The first boundary is 0 and the last one is
+     * {@code numVertices}.
+     */
+    static int[] getRangeBoundaries(int[] offsets, int numVertices) {
+        int numEdges = offsets[numVertices];
+        int numRanges = Integer.max(1, Integer.min(numEdges / MIN_NUM_EDGES_PER_RANGE,
+            NUM_RANGES_PER_THREAD * Runtime.getRuntime().availableProcessors()));
+        int[] boundaries = new int[numRanges + 1];
+        for (int range = 1; range < numRanges; range++) {
+            // The first vertex whose adjacency list starts at or after the first edge of the range.
+            int firstEdge = (int) ((long) numEdges * range / numRanges);
+            int vertexId = Arrays.binarySearch(offsets, 0, numVertices, firstEdge);
+            if (vertexId < 0) {
+                vertexId = -vertexId - 1;
+            } else {
+                // Vertices with empty adjacency lists share their offsets with the next vertex.
+                while (vertexId > 0 && offsets[vertexId - 1] == firstEdge) {
+                    vertexId--;
+                }
+            }
+            boundaries[range] = Integer.max(boundaries[range - 1], vertexId);
+        }
+        boundaries[numRanges] = numVertices;
+        return boundaries;
+    }
+
+    /**
+     * Calls the given {@code rangeConsumer} with each range index in [0, {@code numRanges}), in
+     * parallel on the common fork-join pool if there is more than one range.
+     */
+    static void forEachRange(int numRanges, IntConsumer rangeConsumer) {
+        if (1 == numRanges) {
+            rangeConsumer.accept(0 /* the only range */);
+        } else {
+            IntStream.range(0, numRanges).parallel().forEach(rangeConsumer);
+        }
+    }
+
+    /**
+     * Calls the given {@code partitionConsumer} with each of the given {@code partitionIds}, in
+     * parallel on the common fork-join pool if the partitions hold at least {@link
+     * #MIN_NUM_EDGES_PER_RANGE} edges in total.
+     */
+    private static void forEachPartition(int[] partitionIds, long numEdges,
+        IntConsumer partitionConsumer) {
+        if (numEdges < MIN_NUM_EDGES_PER_RANGE) {
+            for (int partitionId : partitionIds) {
+                partitionConsumer.accept(partitionId);
+            }
+        } else {
+            IntStream.of(partitionIds).parallel().forEach(partitionConsumer);
+        }
+    }
+
+    /**
+     * @return {@code true} if the columns are compressed, {@code false} otherwise.
+     */
+    public boolean isCompressed() {
+        return isCompressed;
+    }
+
+    /**
+     * @return {@code true} if the columns are stored in a memory-mapped file, {@code false}
+     * otherwise.
+     */
+    public boolean isMapped() {
+        return null != storageFile;
+    }
+
+    /**
+     * Returns a compressed copy of this {@link CSRAdjacencyLists}, in which the columns of each
+     * partition are compressed separately. The type offset tables are shared, as they are not
+     * modified after they are built.
+     *
+     * @return The compressed {@link CSRAdjacencyLists}, or this one if it is already compressed.
+     *
+     * @throws UnsupportedOperationException If the columns are stored in a memory-mapped file.
+     */
+    public CSRAdjacencyLists compress() {
+        if (isCompressed()) {
+            return this;
+        } else if (isMapped()) {
+            throw new UnsupportedOperationException("Memory-mapped adjacency lists cannot be "
+                + "compressed.");
+        }
+        Partition[] compressedPartitions = new Partition[partitions.length];
+        forEachPartition(IntStream.range(0, partitions.length).toArray(), getNumEdges(),
+            partitionId -> {
+                Partition partition = partitions[partitionId];
+                DeltaEncodedColumn.Builder neighbourIdsBuilder = new DeltaEncodedColumn.Builder();
+                DeltaEncodedColumn.Builder edgeIdsBuilder = new DeltaEncodedColumn.Builder();
+                for (int i = partition.offsets[0]; i < partition.getEndIndex(); i++) {
+                    neighbourIdsBuilder.add(partition.neighbourIds[i]);
+                    edgeIdsBuilder.add(partition.edgeIds[i]);
+                }
+                compressedPartitions[partitionId] = partition.withCompressedColumns(
+                    neighbourIdsBuilder.build(), edgeIdsBuilder.build());
+            });
+        return new CSRAdjacencyLists(numVertices, compressedPartitions, true /* compressed */,
+            null /* not mapped */);
+    }
+
+    /**
+     * @return An uncompressed copy of this {@link CSRAdjacencyLists}, or this one if it is not
+     * compressed. Each partition of the copy has its own arrays.
+     */
+    public CSRAdjacencyLists decompress() {
+        if (!isCompressed()) {
+            return this;
+        }
+        Partition[] decompressedPartitions = new Partition[partitions.length];
+        forEachPartition(IntStream.range(0, partitions.length).toArray(), getNumEdges(),
+            partitionId -> {
+                Partition partition = partitions[partitionId];
+                int numEdges = partition.getNumEdges();
+                int[] neighbourIds = new int[numEdges];
+                short[] edgeTypes = new short[numEdges];
+                long[] edgeIds = new long[numEdges];
+                DeltaEncodedColumn.Reader neighbourIdsReader = partition.compressedNeighbourIds.
+                    new Reader();
+                DeltaEncodedColumn.Reader edgeIdsReader = partition.compressedEdgeIds.new Reader();
+                // Empty adjacency lists have no segments, so the segments cover the columns of
+                // the partition without gaps.
+                int numSegments = partition.segmentTypes.length;
+                for (int segment = 0; segment < numSegments; segment++) {
+                    int endIndex = (segment + 1 < numSegments) ? partition.segmentStarts[segment +
+                        1] : numEdges;
+                    for (int i = partition.segmentStarts[segment]; i < endIndex; i++) {
+                        neighbourIds[i] = (int) neighbourIdsReader.get(i);
+                        edgeTypes[i] = partition.segmentTypes[segment];
+                        edgeIds[i] = edgeIdsReader.get(i);
+                    }
+                }
+                decompressedPartitions[partitionId] = partition.withArrays(neighbourIds,
+                    edgeTypes, edgeIds);
+            });
+        return new CSRAdjacencyLists(numVertices, decompressedPartitions,
+            false /* not compressed */, null /* not mapped */);
+    }
+
+    /**
+     * Returns a copy of this {@link CSRAdjacencyLists} whose offsets and columns are stored in the
+     * given {@code file}, which is created or overwritten, and mapped into memory. The file is
+     * deleted by {@link #deleteStorageFile()} once the copy is no longer used.
+     *
+     * @param file The file to store the columns in.
+     *
+     * @return The memory-mapped {@link CSRAdjacencyLists}.
+     */
+    public CSRAdjacencyLists mapToFile(File file) {
+        return writePartitions(AdjacencyListFile.create(file), partitions, numVertices);
+    }
+
+    /**
+     * Writes the given {@code newPartitions} of a {@link CSRAdjacencyLists} with {@code
+     * newNumVertices} vertices to the given {@code file}, and maps them into memory. The
+     * partitions that are already mapped from blocks of the {@code file} are not written again.
+     *
+     * @return The memory-mapped {@link CSRAdjacencyLists}.
+     */
+    private CSRAdjacencyLists writePartitions(AdjacencyListFile file, Partition[] newPartitions,
+        int newNumVertices) {
+        int[] partitionIdsToWrite = IntStream.range(0, newPartitions.length).filter(partitionId ->
+            null == newPartitions[partitionId].mappedColumns || file != storageFile).toArray();
+        int[][] partitionOffsets = new int[partitionIdsToWrite.length][];
+        long numEdgesToWrite = 0;
+        for (int i = 0; i < partitionIdsToWrite.length; i++) {
+            Partition partition = newPartitions[partitionIdsToWrite[i]];
+            partitionOffsets[i] = shift(partition.offsets, -partition.offsets[0]);
+            numEdgesToWrite += partition.getNumEdges();
+        }
+        MappedAdjacencyColumns[] writtenColumns = file.append(partitionOffsets);
+        Partition[] mappedPartitions = Arrays.copyOf(newPartitions, newPartitions.length);
+        forEachPartition(IntStream.range(0, partitionIdsToWrite.length).toArray(),
+            numEdgesToWrite, i -> {
+                Partition partition = newPartitions[partitionIdsToWrite[i]];
+                writeColumns(partition, writtenColumns[i]);
+                mappedPartitions[partitionIdsToWrite[i]] = partition.withMappedColumns(
+                    writtenColumns[i]);
+            });
+        MappedAdjacencyColumns[] partitionColumns = new MappedAdjacencyColumns[
+            mappedPartitions.length];
+        for (int partitionId = 0; partitionId < mappedPartitions.length; partitionId++) {
+            partitionColumns[partitionId] = mappedPartitions[partitionId].mappedColumns;
+        }
+        file.commit(newNumVertices, partitionColumns);
+        return new CSRAdjacencyLists(newNumVertices, mappedPartitions, false /* not compressed */,
+            file);
+    }
+
+    /**
+     * Writes the columns of the given {@code partition} to the given {@code destination} columns.
+     * The compressed columns are read segment by segment, so that their values are decoded
+     * sequentially.
+     */
+    private static void writeColumns(Partition partition, MappedAdjacencyColumns destination) {
+        if (null != partition.neighbourIds) {
+            destination.writeColumns(0 /* index */, partition.neighbourIds, partition.edgeTypes,
+                partition.edgeIds, partition.offsets[0], partition.getNumEdges());
+        } else if (null != partition.mappedColumns) {
+            destination.writeColumns(partition.mappedColumns);
+        } else {
+            DeltaEncodedColumn.Reader neighbourIdsReader = partition.compressedNeighbourIds.
+                new Reader();
+            DeltaEncodedColumn.Reader edgeIdsReader = partition.compressedEdgeIds.new Reader();
+            int numSegments = partition.segmentTypes.length;
+            for (int segment = 0; segment < numSegments; segment++) {
+                int endIndex = (segment + 1 < numSegments) ? partition.segmentStarts[segment + 1] :
+                    partition.getNumEdges();
+                for (int i = partition.segmentStarts[segment]; i < endIndex; i++) {
+                    destination.set(i, (int) neighbourIdsReader.get(i), partition.segmentTypes[
+                        segment], edgeIdsReader.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A copy of this {@link CSRAdjacencyLists} whose columns are stored on the heap, or
+     * this one if it is not memory-mapped. Each partition of the copy has its own arrays.
+     */
+    public CSRAdjacencyLists loadIntoHeap() {
+        if (!isMapped()) {
+            return this;
+        }
+        Partition[] heapPartitions = new Partition[partitions.length];
+        forEachPartition(IntStream.range(0, partitions.length).toArray(), getNumEdges(),
+            partitionId -> {
+                Partition partition = partitions[partitionId];
+                int numEdges = partition.getNumEdges();
+                int[] neighbourIds = new int[numEdges];
+                short[] edgeTypes = new short[numEdges];
+                long[] edgeIds = new long[numEdges];
+                partition.mappedColumns.readColumns(neighbourIds, edgeTypes, edgeIds);
+                heapPartitions[partitionId] = partition.withArrays(neighbourIds, edgeTypes,
+                    edgeIds);
+            });
+        return new CSRAdjacencyLists(numVertices, heapPartitions, false /* not compressed */,
+            null /* not mapped */);
+    }
+
+    /**
+     * @return The given {@code indices} increased by {@code shift}, or the same array if {@code
+     * shift} is 0.
+     */
+    private static int[] shift(int[] indices, int shift) {
+        if (0 == shift) {
+            return indices;
+        }
+        int[] shiftedIndices = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            shiftedIndices[i] = indices[i] + shift;
+        }
+        return shiftedIndices;
+    }
+
+    /**
+     * Deletes the file the columns are stored in, if it was created by {@link #mapToFile(File)} or
+     * by a merge. Files mapped with {@link #mapFile(File)} are not deleted. The adjacency lists,
+     * and the other adjacency lists that share the file, should not be read afterwards.
+     *
+     * @see #isStorageFileSharedWith(CSRAdjacencyLists)
+     */
+    public void deleteStorageFile() {
+        if (isMapped()) {
+            storageFile.delete();
+        }
+    }
+
+    /**
+     * @param other Other adjacency lists.
+     *
+     * @return {@code true} if both adjacency lists are memory-mapped from the same file, e.g.,
+     * because {@code other} was merged from these adjacency lists by appending the changed
+     * partitions to their file, {@code false} otherwise.
+     */
+    public boolean isStorageFileSharedWith(CSRAdjacencyLists other) {
+        return isMapped() && storageFile == other.storageFile;
+    }
+
+    /**
+     * @return The number of bytes used on the heap by the offsets, the type offset tables and the
+     * columns. The columns shared by several partitions are counted once. The columns of
+     * memory-mapped adjacency lists are not on the heap.
+     */
+    public long getMemoryUsageInBytes() {
+        long memoryUsage = 4L * partitionStarts.length;
+        Set<int[]> countedNeighbourIds = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Partition partition : partitions) {
+            memoryUsage += 4L * partition.offsets.length + 4L * partition.segmentOffsets.length +
+                2L * partition.segmentTypes.length + 4L * partition.segmentStarts.length;
+            if (null != partition.neighbourIds && countedNeighbourIds.add(
+                partition.neighbourIds)) {
+                memoryUsage += 4L * partition.neighbourIds.length + 2L * partition.edgeTypes.
+                    length + 8L * partition.edgeIds.length;
+            } else if (null != partition.compressedNeighbourIds) {
+                memoryUsage += partition.compressedNeighbourIds.getMemoryUsageInBytes() +
+                    partition.compressedEdgeIds.getMemoryUsageInBytes();
+            }
+        }
+        return memoryUsage;
+    }
+
+    /**
+     * @return The number of vertices whose adjacency lists are stored.
+     */
+    public int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * @return The total number of edges stored.
+     */
+    public int getNumEdges() {
+        return partitionStarts[partitions.length];
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     *
+     * @return The number of neighbours of {@code vertexId}.
+     */
+    public int getSize(int vertexId) {
+        if (vertexId >= numVertices) {
+            return 0;
+        }
+        int[] offsets = partitions[vertexId >>> LOG_PARTITION_SIZE].offsets;
+        int i = vertexId & (PARTITION_SIZE - 1);
+        return offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     *
+     * @return The index of the first neighbour of {@code vertexId} in the columns.
+     */
+    public int getStartIndex(int vertexId) {
+        if (vertexId >= numVertices) {
+            return getNumEdges();
+        }
+        int partitionId = vertexId >>> LOG_PARTITION_SIZE;
+        return getIndexInColumns(partitionId, partitions[partitionId].offsets[vertexId &
+            (PARTITION_SIZE - 1)]);
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     * @param edgeTypeFilter The type of the edges, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return The number of neighbours of {@code vertexId} with the given {@code edgeTypeFilter}.
+     */
+    public int getSize(int vertexId, short edgeTypeFilter) {
+        if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter) {
+            return getSize(vertexId);
+        }
+        int segment = getSegment(vertexId, edgeTypeFilter);
+        if (segment < 0) {
+            return 0;
+        }
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        return partition.getSegmentEnd(vertexId & (PARTITION_SIZE - 1), segment) - partition.
+            segmentStarts[segment];
+    }
+
+    /**
+     * @return The index of the segment of {@code vertexId} with the given {@code edgeType} in the
+     * type offset table of its partition, or -1 if {@code vertexId} has no edges of {@code
+     * edgeType}.
+     */
+    private int getSegment(int vertexId, short edgeType) {
+        if (vertexId >= numVertices) {
+            return -1;
+        }
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        int i = vertexId & (PARTITION_SIZE - 1);
+        // A vertex has at most one segment for each edge type, so the segments are few.
+        int low = partition.segmentOffsets[i];
+        int high = partition.segmentOffsets[i + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (partition.segmentTypes[middle] < edgeType) {
+                low = middle + 1;
+            } else if (partition.segmentTypes[middle] > edgeType) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The index of the columns that holds the given {@code indexInPartition} of the
+     * columns of the given {@code partitionId}.
+     */
+    private int getIndexInColumns(int partitionId, int indexInPartition) {
+        return indexInPartition - partitions[partitionId].offsets[0] + partitionStarts[
+            partitionId];
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     * @param offset The offset of a neighbour in the range of {@code vertexId} in the columns,
+     * which is sorted first by edge types and then by neighbour IDs.
+     *
+     * @return The neighbour ID stored at the given {@code offset}.
+     */
+    public int getNeighbourId(int vertexId, int offset) {
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        return partition.getNeighbourId(partition.offsets[vertexId & (PARTITION_SIZE - 1)] +
+            offset);
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     * @param offset The offset of a neighbour in the range of {@code vertexId} in the columns.
+     *
+     * @return The edge type stored at the given {@code offset}.
+     * @see #getNeighbourId(int, int)
+     */
+    public short getEdgeType(int vertexId, int offset) {
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        return partition.getEdgeType(partition.offsets[vertexId & (PARTITION_SIZE - 1)] +
+            offset);
+    }
+
+    /**
+     * @param vertexId The ID of a vertex.
+     * @param offset The offset of a neighbour in the range of {@code vertexId} in the columns.
+     *
+     * @return The edge ID stored at the given {@code offset}.
+     * @see #getNeighbourId(int, int)
+     */
+    public long getEdgeId(int vertexId, int offset) {
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        return partition.getEdgeId(partition.offsets[vertexId & (PARTITION_SIZE - 1)] + offset);
+    }
+
+    /**
+     * Returns the adjacency list of the given {@code vertexId} as a read-only {@link
+     * SortedAdjacencyList}. If all the edges of {@code vertexId} have the same type, the list is a
+     * view that shares the columns of this {@link CSRAdjacencyLists}. Otherwise, the list is a
+     * {@link MultiTypeSortedAdjacencyList}, which merges the views over the segments of the
+     * different edge types on the fly.
+     *
+     * @param vertexId The ID of a vertex.
+     *
+     * @return The adjacency list of {@code vertexId}.
+     */
+    public SortedAdjacencyList getAdjacencyList(int vertexId) {
+        if (vertexId >= numVertices) {
+            return getEmptyView();
+        }
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        int vertex = vertexId & (PARTITION_SIZE - 1);
+        int firstSegment = partition.segmentOffsets[vertex];
+        int numSegments = partition.segmentOffsets[vertex + 1] - firstSegment;
+        if (numSegments <= 1) {
+            return (1 == numSegments) ? getSegmentView(vertexId, firstSegment) : getEmptyView();
+        }
+        SortedAdjacencyList[] segmentViews = new SortedAdjacencyList[numSegments];
+        for (int j = 0; j < numSegments; j++) {
+            segmentViews[j] = getSegmentView(vertexId, firstSegment + j);
+        }
+        return new MultiTypeSortedAdjacencyList(segmentViews, partition.offsets[vertex + 1] -
+            partition.offsets[vertex]);
+    }
+
+    /**
+     * Returns a read-only {@link SortedAdjacencyList} view over the neighbours of the given {@code
+     * vertexId} with the given {@code edgeTypeFilter}. For a specific edge type, the view is over
+     * the segment of that type in the columns, and does not copy any data.
+     *
+     * @param vertexId The ID of a vertex.
+     * @param edgeTypeFilter The type of the edges, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return The adjacency list of {@code vertexId} restricted to {@code edgeTypeFilter}.
+     */
+    public SortedAdjacencyList getAdjacencyList(int vertexId, short edgeTypeFilter) {
+        if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter) {
+            return getAdjacencyList(vertexId);
+        }
+        int segment = getSegment(vertexId, edgeTypeFilter);
+        return (segment < 0) ? getEmptyView() : getSegmentView(vertexId, segment);
+    }
+
+    /**
+     * @return A view over the given {@code segment} of the type offset table of the partition of
+     * the given {@code vertexId}.
+     */
+    private SortedAdjacencyList getSegmentView(int vertexId, int segment) {
+        int partitionId = vertexId >>> LOG_PARTITION_SIZE;
+        Partition partition = partitions[partitionId];
+        int startIndex = partition.segmentStarts[segment];
+        int size = partition.getSegmentEnd(vertexId & (PARTITION_SIZE - 1), segment) -
+            startIndex;
+        if (isMapped()) {
+            return new MappedSortedAdjacencyList(partition.mappedColumns, partition.segmentTypes[
+                segment], startIndex, size, getIndexInColumns(partitionId, startIndex));
+        } else if (isCompressed()) {
+            return new CompressedSortedAdjacencyList(partition.compressedNeighbourIds,
+                partition.compressedEdgeIds, partition.segmentTypes[segment], startIndex, size,
+                getIndexInColumns(partitionId, startIndex));
+        }
+        return new SortedAdjacencyList(partition.neighbourIds, partition.edgeTypes,
+            partition.edgeIds, startIndex, size, getIndexInColumns(partitionId, startIndex));
+    }
+
+    private SortedAdjacencyList getEmptyView() {
+        return new SortedAdjacencyList(new int[0], new short[0], new long[0], 0 /* startIndex */,
+            0 /* size */);
+    }
+
+    /**
+     * @return The boundaries of ranges of vertices with about the same number of edges, which can
+     * be processed in parallel with {@link #forEachRange(int, IntConsumer)}. See {@link
+     * #getRangeBoundaries(int[], int)}. The ranges are made of whole partitions.
+     */
+    int[] getVertexRangeBoundaries() {
+        int[] partitionBoundaries = getRangeBoundaries(partitionStarts, partitions.length);
+        int[] boundaries = new int[partitionBoundaries.length];
+        for (int range = 0; range < boundaries.length; range++) {
+            boundaries[range] = (int) Long.min((long) partitionBoundaries[range] <<
+                LOG_PARTITION_SIZE, numVertices);
+        }
+        return boundaries;
+    }
+
+    /**
+     * @return {@code true} if the adjacency list returned by {@link #getAdjacencyList(int, short)}
+     * for the given {@code vertexId} and {@code edgeTypeFilter} is a view over the columns, whose
+     * index i is the index {@code getStartIndex(vertexId) + i} of the columns, and {@code false}
+     * if the adjacency list has several edge types, whose segments are merged on the fly.
+     */
+    boolean isViewOverColumns(int vertexId, short edgeTypeFilter) {
+        if (TypeAndPropertyKeyStore.ANY != edgeTypeFilter || vertexId >= numVertices) {
+            return true;
+        }
+        int[] segmentOffsets = partitions[vertexId >>> LOG_PARTITION_SIZE].segmentOffsets;
+        int i = vertexId & (PARTITION_SIZE - 1);
+        return segmentOffsets[i + 1] - segmentOffsets[i] <= 1;
+    }
+
+    /**
+     * Writes the type of each neighbour of the given {@code vertexId} at the index of the
+     * neighbour in the columns of {@code neighbourVertexTypes}. Compressed neighbour IDs are
+     * decoded once.
+     *
+     * @param vertexId The ID of a vertex.
+     * @param vertexTypes The types of the vertices.
+     * @param neighbourVertexTypes The array to write the types in.
+     */
+    void getNeighbourVertexTypes(int vertexId, ShortArrayList vertexTypes,
+        short[] neighbourVertexTypes) {
+        if (vertexId >= numVertices) {
+            return;
+        }
+        int partitionId = vertexId >>> LOG_PARTITION_SIZE;
+        Partition partition = partitions[partitionId];
+        int i = vertexId & (PARTITION_SIZE - 1);
+        DeltaEncodedColumn.Reader reader = isCompressed() ? partition.compressedNeighbourIds.
+            new Reader() : null;
+        for (int index = partition.offsets[i]; index < partition.offsets[i + 1]; index++) {
+            int neighbourId = (null == reader) ? partition.getNeighbourId(index) : (int) reader.get(
+                index);
+            neighbourVertexTypes[getIndexInColumns(partitionId, index)] = GraphStatistics.
+                getVertexType(vertexTypes, neighbourId);
+        }
+    }
+
+    /**
+     * Copies the range of the given {@code vertexId} in the columns, which is sorted first by edge
+     * types and then by neighbour IDs, to the given arrays, starting at their given {@code
+     * destinationIndex}.
+     */
+    void copyColumns(int vertexId, int[] neighbourIds, short[] edgeTypes, long[] edgeIds,
+        int destinationIndex) {
+        for (short edgeType : getEdgeTypes(vertexId)) {
+            SortedAdjacencyList segment = getAdjacencyList(vertexId, edgeType);
+            for (int i = 0; i < segment.getSize(); i++, destinationIndex++) {
+                neighbourIds[destinationIndex] = segment.getNeighbourId(i);
+                edgeTypes[destinationIndex] = edgeType;
+                edgeIds[destinationIndex] = segment.getEdgeId(i);
+            }
+        }
+    }
+
+    /**
+     * @return The edge types of the segments of {@code vertexId} in increasing order.
+     */
+    short[] getEdgeTypes(int vertexId) {
+        if (vertexId >= numVertices) {
+            return new short[0];
+        }
+        Partition partition = partitions[vertexId >>> LOG_PARTITION_SIZE];
+        int i = vertexId & (PARTITION_SIZE - 1);
+        return Arrays.copyOfRange(partition.segmentTypes, partition.segmentOffsets[i],
+            partition.segmentOffsets[i + 1]);
+    }
+
+    /**
+     * Returns a new {@link CSRAdjacencyLists} on the heap in which each vertex v, and each
+     * occurrence of v as a neighbour, is relabelled to {@code newVertexIds[v]}. The adjacency list
+     * of v is moved to the range of its new ID, and each of its segments is sorted again by the
+     * new neighbour IDs. Ranges of new vertex IDs are relabelled in parallel.
+     *
+     * @param newVertexIds A permutation of [0, {@code newVertexIds.length}), which should be at
+     * least {@link #getNumVertices()}.
+     *
+     * @return The new {@link CSRAdjacencyLists}, with {@code newVertexIds.length} vertices.
+     */
+    CSRAdjacencyLists relabel(int[] newVertexIds) {
+        int newNumVertices = newVertexIds.length;
+        int[] oldVertexIds = new int[newNumVertices];
+        for (int vertexId = 0; vertexId < newNumVertices; vertexId++) {
+            oldVertexIds[newVertexIds[vertexId]] = vertexId;
+        }
+        int[] newOffsets = new int[newNumVertices + 1];
+        for (int newVertexId = 0; newVertexId < newNumVertices; newVertexId++) {
+            newOffsets[newVertexId + 1] = newOffsets[newVertexId] + getSize(oldVertexIds[
+                newVertexId]);
+        }
+        int[] relabelledNeighbourIds = new int[newOffsets[newNumVertices]];
+        short[] relabelledEdgeTypes = new short[newOffsets[newNumVertices]];
+        long[] relabelledEdgeIds = new long[newOffsets[newNumVertices]];
+        int[] rangeBoundaries = getRangeBoundaries(newOffsets, newNumVertices);
+        forEachRange(rangeBoundaries.length - 1, range -> {
+            for (int newVertexId = rangeBoundaries[range]; newVertexId < rangeBoundaries[range +
+                1]; newVertexId++) {
+                int index = newOffsets[newVertexId];
+                for (short edgeType : getEdgeTypes(oldVertexIds[newVertexId])) {
+                    SortedAdjacencyList segment = getAdjacencyList(oldVertexIds[newVertexId],
+                        edgeType);
+                    // Sort the positions of the neighbours in the segment by their new IDs.
+                    long[] newNeighbourIdsAndPositions = new long[segment.getSize()];
+                    for (int i = 0; i < segment.getSize(); i++) {
+                        newNeighbourIdsAndPositions[i] = ((long) newVertexIds[segment.
+                            getNeighbourId(i)] << 32) | i;
+                    }
+                    Arrays.sort(newNeighbourIdsAndPositions);
+                    for (long newNeighbourIdAndPosition : newNeighbourIdsAndPositions) {
+                        relabelledNeighbourIds[index] = (int) (newNeighbourIdAndPosition >>> 32);
+                        relabelledEdgeTypes[index] = edgeType;
+                        relabelledEdgeIds[index] = segment.getEdgeId((int)
+                            newNeighbourIdAndPosition);
+                        index++;
+                    }
+                }
+            }
+        });
+        return new CSRAdjacencyLists(newOffsets, relabelledNeighbourIds, relabelledEdgeTypes,
+            relabelledEdgeIds, newNumVertices);
+    }
+
+    /**
+     * Returns a new {@link CSRAdjacencyLists} in which the given {@code adjListDeltas} are applied
+     * to the adjacency lists of the changed vertices. Only the partitions of the changed vertices,
+     * and the partitions whose number of vertices changes, are built again, and the other
+     * partitions are shared with this {@link CSRAdjacencyLists}. In a partition that is built
+     * again, each segment of a changed adjacency list is written by merging the old segment with
+     * its delta using a {@link MergedAdjacencyListCursor}, and the adjacency lists of the
+     * remaining vertices are copied in bulk, or decoded and encoded again if the partition is
+     * compressed. The partitions are merged in parallel on the common
+     * fork-join pool, each by a single thread, so the deltas of a partition, which are sorted on
+     * their first read, are only read by the thread merging the partition.
+     *
+     * @param adjListDeltas The temporary changes to the adjacency lists of the changed vertices.
+     * @param newNumVertices The number of vertices of the new {@link CSRAdjacencyLists}. Should be
+     * larger than all the vertex IDs in {@code adjListDeltas}.
+     *
+     * @return The new {@link CSRAdjacencyLists}.
+     *
+     * @throws UnsupportedOperationException If the columns are stored in a memory-mapped file.
+     * These are merged with {@link #merge(IntToObjectMap, int, File)}.
+     * @throws IllegalArgumentException If the new {@link CSRAdjacencyLists} would have more than
+     * {@link Integer#MAX_VALUE} edges.
+     */
+    public CSRAdjacencyLists merge(IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        int newNumVertices) {
+        return merge(adjListDeltas, newNumVertices, null /* no storage file */);
+    }
+
+    /**
+     * Returns a new {@link CSRAdjacencyLists} in which the given {@code adjListDeltas} are applied,
+     * as in {@link #merge(IntToObjectMap, int)}. If a {@code newStorageFile} is given, the new
+     * {@link CSRAdjacencyLists} is memory-mapped. If this {@link CSRAdjacencyLists} is
+     * memory-mapped too, the partitions that are built again are appended to its file, and the
+     * new {@link CSRAdjacencyLists} shares the file, see {@link
+     * #isStorageFileSharedWith(CSRAdjacencyLists)}. Otherwise, or if the file should be compacted,
+     * all the partitions are written to {@code newStorageFile}, which is deleted by {@link
+     * #deleteStorageFile()} once the new adjacency lists are no longer used. See {@link
+     * AdjacencyListFile}.
+     *
+     * @param adjListDeltas The temporary changes to the adjacency lists of the changed vertices.
+     * @param newNumVertices The number of vertices of the new {@link CSRAdjacencyLists}.
+     * @param newStorageFile The file to store the new columns in if they are not appended to the
+     * file of this {@link CSRAdjacencyLists}, or {@code null} to store them on the heap. Should
+     * not be the file of this {@link CSRAdjacencyLists}.
+     *
+     * @return The new {@link CSRAdjacencyLists}.
+     *
+     * @throws UnsupportedOperationException If the columns of this {@link CSRAdjacencyLists} are
+     * compressed and a {@code newStorageFile} is given, or if they are memory-mapped and no {@code
+     * newStorageFile} is given.
+     * @throws IllegalArgumentException If the new {@link CSRAdjacencyLists} would have more than
+     * {@link Integer#MAX_VALUE} edges.
+     */
+    public CSRAdjacencyLists merge(IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        int newNumVertices, File newStorageFile) {
+        newNumVertices = Integer.max(newNumVertices, numVertices);
+        int[] changedVertexIds = adjListDeltas.getSortedKeys();
+        if (isCompressed() && null != newStorageFile) {
+            throw new UnsupportedOperationException("Compressed adjacency lists cannot be "
+                + "memory-mapped.");
+        } else if (isMapped() && null == newStorageFile) {
+            throw new UnsupportedOperationException("Memory-mapped adjacency lists should be "
+                + "merged into a file.");
+        }
+        long newNumEdges = getNumEdges();
+        for (int vertexId : changedVertexIds) {
+            newNumEdges += adjListDeltas.get(vertexId).getSizeDifference();
+        }
+        if (newNumEdges > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The adjacency lists cannot hold " + newNumEdges
+                + " edges, which is more than " + Integer.MAX_VALUE + ".");
+        }
+        int numNewPartitions = getNumPartitions(newNumVertices);
+        // The changed vertices of partition p are at the indices [{@code firstChangedVertices[p]},
+        // {@code firstChangedVertices[p + 1]}) of {@code changedVertexIds}.
+        int[] firstChangedVertices = new int[numNewPartitions + 1];
+        int changedVertex = 0;
+        for (int partitionId = 0; partitionId <= numNewPartitions; partitionId++) {
+            while (changedVertex < changedVertexIds.length && changedVertexIds[changedVertex] >>>
+                LOG_PARTITION_SIZE < partitionId) {
+                changedVertex++;
+            }
+            firstChangedVertices[partitionId] = changedVertex;
+        }
+        int finalNewNumVertices = newNumVertices;
+        int[] partitionIdsToMerge = IntStream.range(0, numNewPartitions).filter(partitionId ->
+            firstChangedVertices[partitionId] < firstChangedVertices[partitionId + 1] ||
+                getNumVertices(partitionId, numVertices) != getNumVertices(partitionId,
+                    finalNewNumVertices)).toArray();
+        long numEdgesToMerge = changedVertexIds.length;
+        for (int partitionId : partitionIdsToMerge) {
+            if (partitionId < partitions.length) {
+                numEdgesToMerge += partitions[partitionId].getNumEdges();
+            }
+        }
+        Partition[] newPartitions = Arrays.copyOf(partitions, numNewPartitions);
+        forEachPartition(partitionIdsToMerge, numEdgesToMerge, partitionId -> {
+            int firstChangedVertex = firstChangedVertices[partitionId];
+            int endChangedVertex = firstChangedVertices[partitionId + 1];
+            int numPartitionVertices = getNumVertices(partitionId, finalNewNumVertices);
+            newPartitions[partitionId] = isCompressed() ? mergeCompressedPartition(adjListDeltas,
+                changedVertexIds, firstChangedVertex, endChangedVertex, partitionId,
+                numPartitionVertices) : mergePartition(adjListDeltas, changedVertexIds,
+                firstChangedVertex, endChangedVertex, partitionId, numPartitionVertices);
+        });
+        if (null == newStorageFile) {
+            return new CSRAdjacencyLists(newNumVertices, newPartitions, isCompressed(),
+                null /* not mapped */);
+        }
+        long liveSizeInBytes = 0;
+        for (Partition partition : newPartitions) {
+            liveSizeInBytes += MappedAdjacencyColumns.getSizeInBytes(partition.getNumVertices(),
+                partition.getNumEdges());
+        }
+        boolean isAppended = isMapped() && !storageFile.shouldBeCompacted(liveSizeInBytes);
+        return writePartitions(isAppended ? storageFile : AdjacencyListFile.create(
+            newStorageFile), newPartitions, newNumVertices);
+    }
+
+    /**
+     * Builds the given {@code partitionId} with {@code numPartitionVertices} vertices, by applying
+     * the deltas of its changed vertices to its adjacency lists.
+     *
+     * @param adjListDeltas The temporary changes to the adjacency lists of the changed vertices.
+     * @param changedVertexIds The keys of {@code adjListDeltas} in increasing order.
+     * @param firstChangedVertex The index of the first changed vertex of the partition in {@code
+     * changedVertexIds}.
+     * @param endChangedVertex The index after the last changed vertex of the partition in {@code
+     * changedVertexIds}.
+     */
+    private Partition mergePartition(IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        int[] changedVertexIds, int firstChangedVertex, int endChangedVertex, int partitionId,
+        int numPartitionVertices) {
+        int firstVertexId = partitionId << LOG_PARTITION_SIZE;
+        int[] newOffsets = new int[numPartitionVertices + 1];
+        int changedVertex = firstChangedVertex;
+        for (int i = 0; i < numPartitionVertices; i++) {
+            newOffsets[i + 1] = newOffsets[i] + getSize(firstVertexId + i);
+            if (changedVertex < endChangedVertex && firstVertexId + i == changedVertexIds[
+                changedVertex]) {
+                newOffsets[i + 1] += adjListDeltas.get(firstVertexId + i).getSizeDifference();
+                changedVertex++;
+            }
+        }
+        int numEdges = newOffsets[numPartitionVertices];
+        Partition mergedPartition = new Partition(newOffsets, new int[numEdges],
+            new short[numEdges], new long[numEdges], null /* not compressed */, null,
+            null /* not mapped */);
+        // Copy the unchanged vertices between two consecutive changed vertices in one step, as
+        // their adjacency lists are contiguous in both the old and the new columns.
+        int nextVertexToCopy = firstVertexId;
+        for (changedVertex = firstChangedVertex; changedVertex < endChangedVertex;
+             changedVertex++) {
+            int changedVertexId = changedVertexIds[changedVertex];
+            copyRange(mergedPartition, firstVertexId, nextVertexToCopy, changedVertexId);
+            AdjacencyListDelta delta = adjListDeltas.get(changedVertexId);
+            // Write the segment of each edge type by merging the old segment with the changes of
+            // that type.
+            int index = newOffsets[changedVertexId - firstVertexId];
+            for (short edgeType : delta.getEdgeTypes(getEdgeTypes(changedVertexId))) {
+                MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(getAdjacencyList(
+                    changedVertexId, edgeType), delta, edgeType);
+                for (; cursor.next(); index++) {
+                    mergedPartition.neighbourIds[index] = cursor.getNeighbourId();
+                    mergedPartition.edgeTypes[index] = cursor.getEdgeType();
+                    mergedPartition.edgeIds[index] = cursor.getEdgeId();
+                }
+            }
+            nextVertexToCopy = changedVertexId + 1;
+        }
+        copyRange(mergedPartition, firstVertexId, nextVertexToCopy, firstVertexId +
+            numPartitionVertices);
+        indexTypeSegments(mergedPartition);
+        return mergedPartition;
+    }
+
+    /**
+     * Builds the given {@code partitionId} of a compressed {@link CSRAdjacencyLists} with {@code
+     * numPartitionVertices} vertices, by applying the deltas of its changed vertices to its
+     * adjacency lists. The adjacency lists of the vertices of the partition are decoded and
+     * appended to new compressed columns in order of vertex IDs, and the type offset table is
+     * built while appending, so the merge never holds the uncompressed columns in memory.
+     *
+     * @see #mergePartition(IntToObjectMap, int[], int, int, int, int)
+     */
+    private Partition mergeCompressedPartition(IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        int[] changedVertexIds, int firstChangedVertex, int endChangedVertex, int partitionId,
+        int numPartitionVertices) {
+        int[] newOffsets = new int[numPartitionVertices + 1];
+        int[] newSegmentOffsets = new int[numPartitionVertices + 1];
+        ShortArrayList newSegmentTypes = new ShortArrayList();
+        IntArrayList newSegmentStarts = new IntArrayList();
+        DeltaEncodedColumn.Builder neighbourIdsBuilder = new DeltaEncodedColumn.Builder();
+        DeltaEncodedColumn.Builder edgeIdsBuilder = new DeltaEncodedColumn.Builder();
+        int changedVertex = firstChangedVertex;
+        for (int i = 0; i < numPartitionVertices; i++) {
+            int vertexId = (partitionId << LOG_PARTITION_SIZE) + i;
+            newOffsets[i] = neighbourIdsBuilder.getSize();
+            newSegmentOffsets[i] = newSegmentTypes.getSize();
+            AdjacencyListDelta delta = null;
+            if (changedVertex < endChangedVertex && vertexId == changedVertexIds[changedVertex]) {
+                delta = adjListDeltas.get(vertexId);
+                changedVertex++;
+            }
+            short[] edgeTypes = getEdgeTypes(vertexId);
+            for (short edgeType : (null == delta) ? edgeTypes : delta.getEdgeTypes(edgeTypes)) {
+                int segmentStart = neighbourIdsBuilder.getSize();
+                MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(getAdjacencyList(
+                    vertexId, edgeType), delta, edgeType);
+                while (cursor.next()) {
+                    neighbourIdsBuilder.add(cursor.getNeighbourId());
+                    edgeIdsBuilder.add(cursor.getEdgeId());
+                }
+                // All the edges of a type may have been deleted.
+                if (neighbourIdsBuilder.getSize() > segmentStart) {
+                    newSegmentTypes.add(edgeType);
+                    newSegmentStarts.add(segmentStart);
+                }
+            }
+        }
+        newOffsets[numPartitionVertices] = neighbourIdsBuilder.getSize();
+        newSegmentOffsets[numPartitionVertices] = newSegmentTypes.getSize();
+        Partition mergedPartition = new Partition(newOffsets, null /* no neighbourIds */,
+            null /* no edgeTypes */, null /* no edgeIds */, neighbourIdsBuilder.build(),
+            edgeIdsBuilder.build(), null /* not mapped */);
+        mergedPartition.segmentOffsets = newSegmentOffsets;
+        mergedPartition.segmentTypes = newSegmentTypes.toArray();
+        mergedPartition.segmentStarts = newSegmentStarts.toArray();
+        return mergedPartition;
+    }
+
+    /**
+     * Copies the adjacency lists of the vertices in the range [{@code startVertexId}, {@code
+     * endVertexId}), which are in the same partition on the heap or memory-mapped, to the given
+     * {@code destination} partition, whose first vertex is {@code firstVertexId}.
+     */
+    private void copyRange(Partition destination, int firstVertexId, int startVertexId,
+        int endVertexId) {
+        // The vertices that are not stored have no edges to copy.
+        endVertexId = Integer.min(endVertexId, numVertices);
+        if (startVertexId >= endVertexId) {
+            return;
+        }
+        Partition source = partitions[startVertexId >>> LOG_PARTITION_SIZE];
+        int sourceStart = source.offsets[startVertexId & (PARTITION_SIZE - 1)];
+        int length = source.offsets[((endVertexId - 1) & (PARTITION_SIZE - 1)) + 1] -
+            sourceStart;
+        int destinationStart = destination.offsets[startVertexId - firstVertexId];
+        if (null != source.mappedColumns) {
+            source.mappedColumns.readColumns(sourceStart, destination.neighbourIds,
+                destination.edgeTypes, destination.edgeIds, destinationStart, length);
+            return;
+        }
+        System.arraycopy(source.neighbourIds, sourceStart, destination.neighbourIds,
+            destinationStart, length);
+        System.arraycopy(source.edgeTypes, sourceStart, destination.edgeTypes, destinationStart,
+            length);
+        System.arraycopy(source.edgeIds, sourceStart, destination.edgeIds, destinationStart,
+            length);
+    }
+
+    /**
+     * Writes the offsets and the columns to the given {@code file}, which is created or
+     * overwritten, in the format read by {@link #readFromFile(File)} and {@link #mapFile(File)}.
+     * If the columns are already mapped from {@code file}, nothing is written, as the file holds
+     * the adjacency lists last written to it.
+     *
+     * @param file The file to write to.
+     */
+    public void writeToFile(File file) {
+        if (isMapped() && storageFile.getFile().getAbsoluteFile().equals(file.getAbsoluteFile())) {
+            return;
+        }
+        writePartitions(AdjacencyListFile.create(file), partitions, numVertices);
+    }
+
+    /**
+     * Reads the adjacency lists written by {@link #writeToFile(File)} into the heap.
+     *
+     * @param file The file to read.
+     *
+     * @return The {@link CSRAdjacencyLists} read from the {@code file}.
+     */
+    public static CSRAdjacencyLists readFromFile(File file) {
+        return mapFile(file).loadIntoHeap();
+    }
+
+    /**
+     * Maps the adjacency lists written by {@link #writeToFile(File)} into memory, without reading
+     * the columns into the heap. The {@code file} is only read: it is not deleted by {@link
+     * #deleteStorageFile()}, and the merges of the adjacency lists are written to new files.
+     *
+     * @param file The file to map.
+     *
+     * @return The memory-mapped {@link CSRAdjacencyLists}.
+     */
+    public static CSRAdjacencyLists mapFile(File file) {
+        AdjacencyListFile adjListFile = AdjacencyListFile.open(file);
+        MappedAdjacencyColumns[] partitionColumns = adjListFile.mapPartitions();
+        Partition[] partitions = new Partition[partitionColumns.length];
+        for (int partitionId = 0; partitionId < partitions.length; partitionId++) {
+            partitions[partitionId] = new Partition(partitionColumns[partitionId].readOffsets(),
+                null /* no neighbourIds */, null /* no edgeTypes */, null /* no edgeIds */,
+                null /* not compressed */, null, partitionColumns[partitionId]);
+        }
+        CSRAdjacencyLists adjLists = new CSRAdjacencyLists(adjListFile.getNumVertices(),
+            partitions, false /* not compressed */, adjListFile);
+        adjLists.indexTypeSegments();
+        return adjLists;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods. Vertices that are
+     * not stored in one of the objects are considered to have empty adjacency lists.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(CSRAdjacencyLists a, CSRAdjacencyLists b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        for (int i = 0; i < Integer.max(a.numVertices, b.numVertices); i++) {
+            if (!SortedAdjacencyList.isSameAs(a.getAdjacencyList(i), b.getAdjacencyList(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Used during unit testing to check that a merge shares the partitions without changes.
+     *
+     * @return {@code true} if the adjacency list of the given {@code vertexId} is stored in the
+     * same partition in {@code a} and {@code b}.
+     */
+    @UsedOnlyByTests
+    static boolean isPartitionShared(CSRAdjacencyLists a, CSRAdjacencyLists b, int vertexId) {
+        int partitionId = vertexId >>> LOG_PARTITION_SIZE;
+        return partitionId < a.partitions.length && partitionId < b.partitions.length &&
+            a.partitions[partitionId] == b.partitions[partitionId];
+    }
+
+    /**
+     * The offsets, the type offset table and the columns on the heap, compressed or memory-mapped
+     * of the vertices of one partition. The adjacency list of the i'th vertex of the partition
+     * occupies the range [{@code offsets[i]}, {@code offsets[i + 1]}) of the columns of the
+     * partition. On the heap, these are the arrays of the partition, which may be shared with
+     * other partitions, in which case the offsets do not start at 0. Compressed and memory-mapped
+     * columns belong to one partition, and the offsets start at 0. A partition is not modified
+     * once its type offset table is built.
+     */
+    private static class Partition {
+
+        private final int[] offsets;
+        private final int[] neighbourIds;
+        private final short[] edgeTypes;
+        private final long[] edgeIds;
+        private final DeltaEncodedColumn compressedNeighbourIds;
+        private final DeltaEncodedColumn compressedEdgeIds;
+        private final MappedAdjacencyColumns mappedColumns;
+        // The type offset table. The segments of the i'th vertex are at the indices [{@code
+        // segmentOffsets[i]}, {@code segmentOffsets[i + 1]}) of {@code segmentTypes} and {@code
+        // segmentStarts}. The segment at index s has the edge type {@code segmentTypes[s]} and
+        // starts at the index {@code segmentStarts[s]} of the columns of the partition. It ends
+        // where the next segment of the vertex starts, or at the end of the range of the vertex
+        // for the last segment.
+        private int[] segmentOffsets;
+        private short[] segmentTypes;
+        private int[] segmentStarts;
+
+        private Partition(int[] offsets, int[] neighbourIds, short[] edgeTypes, long[] edgeIds,
+            DeltaEncodedColumn compressedNeighbourIds, DeltaEncodedColumn compressedEdgeIds,
+            MappedAdjacencyColumns mappedColumns) {
+            this.offsets = offsets;
+            this.neighbourIds = neighbourIds;
+            this.edgeTypes = edgeTypes;
+            this.edgeIds = edgeIds;
+            this.compressedNeighbourIds = compressedNeighbourIds;
+            this.compressedEdgeIds = compressedEdgeIds;
+            this.mappedColumns = mappedColumns;
+        }
+
+        /**
+         * @return A partition with the same offsets and type offset table as this one, over the
+         * given columns, whose indices should be those of the columns of this partition.
+         */
+        private Partition withArrays(int[] neighbourIds, short[] edgeTypes, long[] edgeIds) {
+            Partition partition = new Partition(offsets, neighbourIds, edgeTypes, edgeIds,
+                null /* not compressed */, null, null /* not mapped */);
+            partition.segmentOffsets = segmentOffsets;
+            partition.segmentTypes = segmentTypes;
+            partition.segmentStarts = segmentStarts;
+            return partition;
+        }
+
+        /**
+         * @return A partition with the same type offset table as this one, over the given
+         * compressed columns, which hold the columns of this partition starting at index 0. The
+         * offsets and the segment starts are shifted to start at 0.
+         */
+        private Partition withCompressedColumns(DeltaEncodedColumn compressedNeighbourIds,
+            DeltaEncodedColumn compressedEdgeIds) {
+            Partition partition = new Partition(shift(offsets, -offsets[0]),
+                null /* no neighbourIds */, null /* no edgeTypes */, null /* no edgeIds */,
+                compressedNeighbourIds, compressedEdgeIds, null /* not mapped */);
+            partition.segmentOffsets = segmentOffsets;
+            partition.segmentTypes = segmentTypes;
+            partition.segmentStarts = shift(segmentStarts, -offsets[0]);
+            return partition;
+        }
+
+        /**
+         * @return A partition with the same type offset table as this one, over the given
+         * memory-mapped columns, which hold the columns of this partition starting at index 0.
+         * The offsets and the segment starts are shifted to start at 0.
+         */
+        private Partition withMappedColumns(MappedAdjacencyColumns mappedColumns) {
+            Partition partition = new Partition(shift(offsets, -offsets[0]),
+                null /* no neighbourIds */, null /* no edgeTypes */, null /* no edgeIds */,
+                null /* not compressed */, null, mappedColumns);
+            partition.segmentOffsets = segmentOffsets;
+            partition.segmentTypes = segmentTypes;
+            partition.segmentStarts = shift(segmentStarts, -offsets[0]);
+            return partition;
+        }
+
+        private int getNumVertices() {
+            return offsets.length - 1;
+        }
+
+        /**
+         * @return The neighbour ID at the given {@code index} of the columns of the partition.
+         */
+        private int getNeighbourId(int index) {
+            if (null != neighbourIds) {
+                return neighbourIds[index];
+            }
+            return (null != mappedColumns) ? mappedColumns.getNeighbourId(index) : (int)
+                compressedNeighbourIds.get(index);
+        }
+
+        /**
+         * @return The edge type at the given {@code index} of the columns of the partition. The
+         * edge types of compressed columns are read from the type offset table.
+         */
+        private short getEdgeType(int index) {
+            if (null != edgeTypes) {
+                return edgeTypes[index];
+            }
+            return (null != mappedColumns) ? mappedColumns.getEdgeType(index) : segmentTypes[
+                getSegmentOfIndex(index)];
+        }
+
+        /**
+         * @return The edge ID at the given {@code index} of the columns of the partition.
+         */
+        private long getEdgeId(int index) {
+            if (null != edgeIds) {
+                return edgeIds[index];
+            }
+            return (null != mappedColumns) ? mappedColumns.getEdgeId(index) :
+                compressedEdgeIds.get(index);
+        }
+
+        private int getNumEdges() {
+            return getEndIndex() - offsets[0];
+        }
+
+        /**
+         * @return The index after the last edge of the partition in its columns.
+         */
+        private int getEndIndex() {
+            return offsets[offsets.length - 1];
+        }
+
+        private int getSegmentEnd(int i, int segment) {
+            return (segment + 1 < segmentOffsets[i + 1]) ? segmentStarts[segment + 1] :
+                offsets[i + 1];
+        }
+
+        /**
+         * @return The index of the segment that contains the given {@code index} of the columns of
+         * the partition in the type offset table.
+         */
+        private int getSegmentOfIndex(int index) {
+            // Empty adjacency lists have no segments, so the segments cover the columns without
+            // gaps.
+            int low = 0;
+            int high = segmentStarts.length - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (segmentStarts[middle] <= index) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.IOUtils;
+import org.antlr.v4.runtime.misc.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Loads vertices and edges from CSV files into the permanent graph in bulk. Instead of inserting
+ * the edges one at a time into the adjacency lists, the loader partitions the edges by their source
+ * vertices, sorts the adjacency list of each vertex in parallel, and builds the forward and
+ * backward {@link CSRAdjacencyLists}, the {@link EdgeStore} and the {@link VertexPropertyStore} in
+ * one pass.
+ * <p>
+ * The first line of each file is a header. The vertex file header is {@code id,type} and the edge
+ * file header is {@code from,to,type}, each optionally followed by property columns declared as
+ * {@code key:DATA_TYPE}, e.g., {@code from,to,type,amount:DOUBLE}. An empty value means that the
+ * property is not set. Values cannot contain commas.
+ * <p>
+ * Warning: Bulk loaded edges are added directly to the permanent graph, so they are not passed to
+ * the registered CONTINUOUS MATCH queries. Edges that already exist in the graph, or that occur
+ * more than once in the edge file, are loaded only once. Vertices that only occur in the edge file
+ * and do not exist in the graph have the type {@link TypeAndPropertyKeyStore#ANY}. The vertex IDs
+ * in the files are non-negative external vertex IDs, which are mapped to internal vertex IDs by
+ * the {@link VertexIdDictionary}.
+ */
+public class CSVBulkLoader {
+
+    private static final Logger logger = LogManager.getLogger(CSVBulkLoader.class);
+    private static final String SEPARATOR = ",";
+    private static final String KEY_DATA_TYPE_SEPARATOR = ":";
+    private static final int NUM_VERTEX_COLUMNS = 2;
+    private static final int NUM_EDGE_COLUMNS = 3;
+    // Adjacency lists smaller than this are sorted with insertion sort.
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final Graph graph = Graph.getInstance();
+    private final TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.
+        getInstance();
+    private final VertexIdDictionary vertexIdDictionary = VertexIdDictionary.getInstance();
+    private final int numThreads = Runtime.getRuntime().availableProcessors();
+    private int numVerticesLoaded;
+    private int numEdgesLoaded;
+    private double elapsedTimeInMillis;
+
+    /**
+     * Loads the vertices in {@code vertexFilePath}, if it is not {@code null}, and then the edges
+     * in {@code edgeFilePath}.
+     *
+     * @param vertexFilePath The path of the vertex CSV file, or {@code null}.
+     * @param edgeFilePath The path of the edge CSV file.
+     *
+     * @throws IOException If one of the files cannot be read.
+     * @throws IllegalArgumentException If a file is malformed or a value cannot be cast to the data
+     * type of its column.
+     */
+    public void load(String vertexFilePath, String edgeFilePath) throws IOException {
+        long beginTimeInNano = System.nanoTime();
+        graph.finalizeChanges();
+        if (null != vertexFilePath) {
+            loadVertices(readLines(vertexFilePath));
+        }
+        loadEdges(readLines(edgeFilePath));
+        // The edges are added to the adjacency lists directly, so the indexes and the zone maps
+        // are rebuilt.
+        PropertyIndexStore.getInstance().rebuild();
+        ZoneMapStore.getInstance().rebuild();
+        elapsedTimeInMillis = IOUtils.getElapsedTimeInMillis(beginTimeInNano);
+        logger.info(String.format("Bulk loaded %d vertices and %d edges in %.3f ms (%.0f " +
+            "edges/sec).", numVerticesLoaded, numEdgesLoaded, elapsedTimeInMillis,
+            getEdgesPerSecond()));
+    }
+
+    public int getNumVerticesLoaded() {
+        return numVerticesLoaded;
+    }
+
+    public int getNumEdgesLoaded() {
+        return numEdgesLoaded;
+    }
+
+    public double getElapsedTimeInMillis() {
+        return elapsedTimeInMillis;
+    }
+
+    /**
+     * @return The load throughput in edges per second.
+     */
+    public double getEdgesPerSecond() {
+        return (0 == elapsedTimeInMillis) ? 0 : numEdgesLoaded * 1000.0 / elapsedTimeInMillis;
+    }
+
+    private void loadVertices(List<String> lines) {
+        CSVPropertyColumns propertyColumns = parseHeader(lines.get(0), NUM_VERTEX_COLUMNS);
+        int[] vertexIds = new int[lines.size() - 1];
+        short[] vertexTypes = new short[lines.size() - 1];
+        List<Map<Short, Pair<DataType, String>>> vertexProperties = new ArrayList<>();
+        int numVertices = 0;
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).isEmpty()) {
+                continue;
+            }
+            String[] values = splitLine(lines.get(i), NUM_VERTEX_COLUMNS);
+            vertexIds[numVertices] = vertexIdDictionary.getInternalIdOrInsert(
+                parseVertexId(values[0], i + 1 /* line number */));
+            vertexTypes[numVertices] = typeAndPropertyKeyStore.
+                mapStringTypeToShortOrInsert(values[1].trim());
+            vertexProperties.add(propertyColumns.getProperties(values));
+            numVertices++;
+        }
+        // The vertices are added at once, so the graph publishes one snapshot for all of them.
+        graph.addVertices(Arrays.copyOf(vertexIds, numVertices), Arrays.copyOf(vertexTypes,
+            numVertices), vertexProperties);
+        numVerticesLoaded += numVertices;
+    }
+
+    private void loadEdges(List<String> lines) {
+        CSVPropertyColumns propertyColumns = parseHeader(lines.get(0), NUM_EDGE_COLUMNS);
+        int numEdges = lines.size() - 1;
+        long[] externalFromVertexIds = new long[numEdges];
+        long[] externalToVertexIds = new long[numEdges];
+        short[] edgeTypes = new short[numEdges];
+        // The properties of edge i are set at index i by the thread parsing its line.
+        List<Map<Short, Pair<DataType, String>>> edgeProperties = new ArrayList<>(
+            Collections.nCopies(numEdges, null));
+        // Parse the lines in parallel.
+        IntStream.range(0, numThreads).parallel().forEach(thread -> {
+            Map<String, Short> edgeTypeCache = new HashMap<>();
+            for (int i = thread; i < numEdges; i += numThreads) {
+                String line = lines.get(i + 1);
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] values = splitLine(line, NUM_EDGE_COLUMNS);
+                externalFromVertexIds[i] = parseVertexId(values[0], i + 2 /* line number */);
+                externalToVertexIds[i] = parseVertexId(values[1], i + 2 /* line number */);
+                edgeTypes[i] = edgeTypeCache.computeIfAbsent(values[2].trim(), type -> {
+                    synchronized (typeAndPropertyKeyStore) {
+                        return typeAndPropertyKeyStore.mapStringTypeToShortOrInsert(type);
+                    }
+                });
+                edgeProperties.set(i, propertyColumns.getProperties(values));
+            }
+        });
+        // Map the external vertex IDs to internal vertex IDs in the order of the file, so the new
+        // vertices get the same internal vertex IDs in every load. Empty lines are marked with a
+        // negative from vertex ID.
+        int[] fromVertexIds = new int[numEdges];
+        int[] toVertexIds = new int[numEdges];
+        int highestVertexId = graph.getHighestVertexId();
+        for (int i = 0; i < numEdges; i++) {
+            if (lines.get(i + 1).isEmpty()) {
+                fromVertexIds[i] = -1;
+                continue;
+            }
+            fromVertexIds[i] = vertexIdDictionary.getInternalIdOrInsert(externalFromVertexIds[i]);
+            toVertexIds[i] = vertexIdDictionary.getInternalIdOrInsert(externalToVertexIds[i]);
+            highestVertexId = Integer.max(highestVertexId, Integer.max(fromVertexIds[i],
+                toVertexIds[i]));
+        }
+        // Vertices without a type get the type ANY.
+        for (int vertexId = graph.getVertexTypes().getSize(); vertexId <= highestVertexId;
+             vertexId++) {
+            graph.getVertexTypes().set(vertexId, TypeAndPropertyKeyStore.ANY);
+        }
+        // The existing edges are copied column by column, so compressed adjacency lists are
+        // decompressed first. {@link Graph#setPermanentAdjLists} compresses the new ones again.
+        CSRAdjacencyLists forwardAdjLists = buildForwardAdjLists(graph.getPermanentAdjLists(
+            Direction.FORWARD).decompress(), highestVertexId + 1, fromVertexIds, toVertexIds,
+            edgeTypes, edgeProperties);
+        graph.setPermanentAdjLists(forwardAdjLists, buildBackwardAdjLists(forwardAdjLists),
+            highestVertexId);
+    }
+
+    /**
+     * Builds the forward adjacency lists from the existing {@code permanentAdjLists} and the new
+     * edges. The edges are first partitioned by their source vertices with a counting sort, and the
+     * adjacency list of each vertex is then sorted and deduplicated in parallel. While sorting, the
+     * new edges are identified by the temporary negative edge ID {@code -(i + 2)}, where i is the
+     * index of the edge in the given arrays. The new edges that are not duplicates are then added
+     * to the {@link EdgeStore}, which assigns their final edge IDs.
+     */
+    private CSRAdjacencyLists buildForwardAdjLists(CSRAdjacencyLists permanentAdjLists,
+        int numVertices, int[] fromVertexIds, int[] toVertexIds, short[] edgeTypes,
+        List<Map<Short, Pair<DataType, String>>> edgeProperties) {
+        int[] offsets = new int[numVertices + 1];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            offsets[vertexId + 1] = permanentAdjLists.getSize(vertexId);
+        }
+        for (int fromVertexId : fromVertexIds) {
+            if (fromVertexId >= 0) {
+                offsets[fromVertexId + 1]++;
+            }
+        }
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            offsets[vertexId + 1] += offsets[vertexId];
+        }
+        int numEdges = offsets[numVertices];
+        int[] neighbourIds = new int[numEdges];
+        short[] types = new short[numEdges];
+        long[] edgeIds = new long[numEdges];
+        int[] nextIndices = new int[numVertices];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            permanentAdjLists.copyColumns(vertexId, neighbourIds, types, edgeIds,
+                offsets[vertexId]);
+            nextIndices[vertexId] = offsets[vertexId] + permanentAdjLists.getSize(vertexId);
+        }
+        for (int i = 0; i < fromVertexIds.length; i++) {
+            if (fromVertexIds[i] >= 0) {
+                int index = nextIndices[fromVertexIds[i]]++;
+                neighbourIds[index] = toVertexIds[i];
+                types[index] = edgeTypes[i];
+                edgeIds[index] = -(i + 2L);
+            }
+        }
+        // Sort and deduplicate the adjacency list of each vertex in parallel. {@code sizes} holds
+        // the size of each adjacency list after the duplicates are removed.
+        int[] sizes = new int[numVertices];
+        IntStream.range(0, numThreads).parallel().forEach(thread -> {
+            for (int vertexId = thread; vertexId < numVertices; vertexId += numThreads) {
+                sort(neighbourIds, types, edgeIds, offsets[vertexId], offsets[vertexId + 1] - 1);
+                sizes[vertexId] = removeDuplicates(neighbourIds, types, edgeIds, offsets[vertexId],
+                    offsets[vertexId + 1]);
+            }
+        });
+        int[] compactedOffsets = new int[numVertices + 1];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            compactedOffsets[vertexId + 1] = compactedOffsets[vertexId] + sizes[vertexId];
+        }
+        if (compactedOffsets[numVertices] == numEdges) {
+            return createCSRAdjacencyLists(offsets, neighbourIds, types, edgeIds, edgeProperties);
+        }
+        int[] compactedNeighbourIds = new int[compactedOffsets[numVertices]];
+        short[] compactedTypes = new short[compactedOffsets[numVertices]];
+        long[] compactedEdgeIds = new long[compactedOffsets[numVertices]];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            System.arraycopy(neighbourIds, offsets[vertexId], compactedNeighbourIds,
+                compactedOffsets[vertexId], sizes[vertexId]);
+            System.arraycopy(types, offsets[vertexId], compactedTypes, compactedOffsets[vertexId],
+                sizes[vertexId]);
+            System.arraycopy(edgeIds, offsets[vertexId], compactedEdgeIds,
+                compactedOffsets[vertexId], sizes[vertexId]);
+        }
+        return createCSRAdjacencyLists(compactedOffsets, compactedNeighbourIds, compactedTypes,
+            compactedEdgeIds, edgeProperties);
+    }
+
+    /**
+     * Adds the new edges, which have temporary negative edge IDs, to the {@link EdgeStore} and
+     * returns a {@link CSRAdjacencyLists} over the given columns with the final edge IDs. The
+     * {@link EdgeStore} is not thread-safe, so the edges are added sequentially.
+     */
+    private CSRAdjacencyLists createCSRAdjacencyLists(int[] offsets, int[] neighbourIds,
+        short[] edgeTypes, long[] edgeIds, List<Map<Short, Pair<DataType, String>>>
+        edgeProperties) {
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        for (int i = 0; i < edgeIds.length; i++) {
+            if (edgeIds[i] < 0) {
+                edgeIds[i] = edgeStore.addEdge(edgeProperties.get(getEdgeIndex(edgeIds[i])));
+                numEdgesLoaded++;
+            }
+        }
+        return new CSRAdjacencyLists(offsets, neighbourIds, edgeTypes, edgeIds,
+            offsets.length - 1 /* numVertices */);
+    }
+
+    /**
+     * Builds the backward adjacency lists by transposing the given {@code forwardAdjLists}.
+     * Scanning the forward adjacency lists in the order of source vertex IDs appends the source
+     * vertices of each edge type to each backward adjacency list in sorted order, but the edge
+     * types are interleaved, so the backward adjacency lists are then sorted in parallel.
+     */
+    private CSRAdjacencyLists buildBackwardAdjLists(CSRAdjacencyLists forwardAdjLists) {
+        int numVertices = forwardAdjLists.getNumVertices();
+        int numEdges = forwardAdjLists.getNumEdges();
+        int[] offsets = new int[numVertices + 1];
+        for (int fromVertexId = 0; fromVertexId < numVertices; fromVertexId++) {
+            for (short edgeType : forwardAdjLists.getEdgeTypes(fromVertexId)) {
+                SortedAdjacencyList segment = forwardAdjLists.getAdjacencyList(fromVertexId,
+                    edgeType);
+                for (int i = 0; i < segment.getSize(); i++) {
+                    offsets[segment.getNeighbourId(i) + 1]++;
+                }
+            }
+        }
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            offsets[vertexId + 1] += offsets[vertexId];
+        }
+        int[] nextIndices = new int[numVertices];
+        System.arraycopy(offsets, 0, nextIndices, 0, numVertices);
+        int[] neighbourIds = new int[numEdges];
+        short[] edgeTypes = new short[numEdges];
+        long[] edgeIds = new long[numEdges];
+        for (int fromVertexId = 0; fromVertexId < numVertices; fromVertexId++) {
+            for (short edgeType : forwardAdjLists.getEdgeTypes(fromVertexId)) {
+                SortedAdjacencyList segment = forwardAdjLists.getAdjacencyList(fromVertexId,
+                    edgeType);
+                for (int i = 0; i < segment.getSize(); i++) {
+                    int index = nextIndices[segment.getNeighbourId(i)]++;
+                    neighbourIds[index] = fromVertexId;
+                    edgeTypes[index] = edgeType;
+                    edgeIds[index] = segment.getEdgeId(i);
+                }
+            }
+        }
+        IntStream.range(0, numThreads).parallel().forEach(thread -> {
+            for (int vertexId = thread; vertexId < numVertices; vertexId += numThreads) {
+                sort(neighbourIds, edgeTypes, edgeIds, offsets[vertexId], offsets[vertexId + 1] -
+                    1);
+            }
+        });
+        return new CSRAdjacencyLists(offsets, neighbourIds, edgeTypes, edgeIds, numVertices);
+    }
+
+    /**
+     * Sorts the range [{@code low}, {@code high}] of the given columns in ascending order of edge
+     * types, then neighbour IDs, and then in descending order of edge IDs, which is the order of
+     * the ranges of {@link CSRAdjacencyLists}. Among duplicate edges, an existing edge comes before
+     * the new ones and a new edge comes before the new edges that follow it in the edge file.
+     */
+    private static void sort(int[] neighbourIds, short[] edgeTypes, long[] edgeIds, int low,
+        int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            int middle = low + (high - low) / 2;
+            swap(neighbourIds, edgeTypes, edgeIds, middle, high);
+            int storeIndex = low;
+            for (int i = low; i < high; i++) {
+                if (compare(neighbourIds, edgeTypes, edgeIds, i, high) < 0) {
+                    swap(neighbourIds, edgeTypes, edgeIds, i, storeIndex++);
+                }
+            }
+            swap(neighbourIds, edgeTypes, edgeIds, storeIndex, high);
+            // Recurse into the smaller partition and loop over the larger one.
+            if (storeIndex - low < high - storeIndex) {
+                sort(neighbourIds, edgeTypes, edgeIds, low, storeIndex - 1);
+                low = storeIndex + 1;
+            } else {
+                sort(neighbourIds, edgeTypes, edgeIds, storeIndex + 1, high);
+                high = storeIndex - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(neighbourIds, edgeTypes, edgeIds, j - 1, j) > 0;
+                 j--) {
+                swap(neighbourIds, edgeTypes, edgeIds, j - 1, j);
+            }
+        }
+    }
+
+    private static int compare(int[] neighbourIds, short[] edgeTypes, long[] edgeIds, int i,
+        int j) {
+        if (edgeTypes[i] != edgeTypes[j]) {
+            return Short.compare(edgeTypes[i], edgeTypes[j]);
+        }
+        if (neighbourIds[i] != neighbourIds[j]) {
+            return Integer.compare(neighbourIds[i], neighbourIds[j]);
+        }
+        return Long.compare(edgeIds[j], edgeIds[i]);
+    }
+
+    private static void swap(int[] neighbourIds, short[] edgeTypes, long[] edgeIds, int i, int j) {
+        int tempNeighbourId = neighbourIds[i];
+        neighbourIds[i] = neighbourIds[j];
+        neighbourIds[j] = tempNeighbourId;
+        short tempEdgeType = edgeTypes[i];
+        edgeTypes[i] = edgeTypes[j];
+        edgeTypes[j] = tempEdgeType;
+        long tempEdgeId = edgeIds[i];
+        edgeIds[i] = edgeIds[j];
+        edgeIds[j] = tempEdgeId;
+    }
+
+    /**
+     * Moves the first occurrence of each (neighbour ID, edge type) pair of the sorted range
+     * [{@code startIndex}, {@code endIndex}) to the front of the range.
+     *
+     * @return The number of distinct pairs in the range.
+     */
+    private static int removeDuplicates(int[] neighbourIds, short[] edgeTypes, long[] edgeIds,
+        int startIndex, int endIndex) {
+        if (startIndex == endIndex) {
+            return 0;
+        }
+        int lastIndex = startIndex;
+        for (int i = startIndex + 1; i < endIndex; i++) {
+            if (neighbourIds[i] != neighbourIds[lastIndex] || edgeTypes[i] !=
+                edgeTypes[lastIndex]) {
+                lastIndex++;
+                neighbourIds[lastIndex] = neighbourIds[i];
+                edgeTypes[lastIndex] = edgeTypes[i];
+                edgeIds[lastIndex] = edgeIds[i];
+            }
+        }
+        return lastIndex - startIndex + 1;
+    }
+
+    private static int getEdgeIndex(long temporaryEdgeId) {
+        return (int) (-temporaryEdgeId - 2);
+    }
+
+    private CSVPropertyColumns parseHeader(String header, int numFixedColumns) {
+        String[] columns = header.split(SEPARATOR, -1);
+        if (columns.length < numFixedColumns) {
+            throw new IllegalArgumentException("The header '" + header + "' should start with " +
+                numFixedColumns + " columns.");
+        }
+        Map<String, Pair<String, String>> stringKeysAndDataTypes = new HashMap<>();
+        String[] keys = new String[columns.length - numFixedColumns];
+        DataType[] dataTypes = new DataType[columns.length - numFixedColumns];
+        for (int i = numFixedColumns; i < columns.length; i++) {
+            String[] keyAndDataType = columns[i].trim().split(KEY_DATA_TYPE_SEPARATOR);
+            if (2 != keyAndDataType.length) {
+                throw new IllegalArgumentException("The property column '" + columns[i] +
+                    "' should be declared as key:DATA_TYPE.");
+            }
+            keys[i - numFixedColumns] = keyAndDataType[0];
+            dataTypes[i - numFixedColumns] = DataType.mapStringToDataType(keyAndDataType[1]);
+            stringKeysAndDataTypes.put(keyAndDataType[0], new Pair<>(keyAndDataType[1], null));
+        }
+        // Inserts the keys that do not exist yet, and checks the data types of the existing ones.
+        Map<Short, Pair<DataType, String>> shortKeys = typeAndPropertyKeyStore.
+            mapStringPropertiesToShortAndDataTypeOrInsert(stringKeysAndDataTypes);
+        short[] shortKeysInColumnOrder = new short[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            shortKeysInColumnOrder[i] = typeAndPropertyKeyStore.mapStringPropertyKeyToShort(
+                keys[i]);
+        }
+        return new CSVPropertyColumns(numFixedColumns, shortKeysInColumnOrder, dataTypes,
+            shortKeys.isEmpty());
+    }
+
+    /**
+     * @return The vertex ID in the given {@code value} of the line {@code lineNumber} of a file,
+     * where the header is line 1.
+     *
+     * @throws IllegalArgumentException If {@code value} is not a non-negative {@code long}. A
+     * negative vertex ID would be out of the bounds of the adjacency lists being built.
+     */
+    private static long parseVertexId(String value, int lineNumber) {
+        long vertexId;
+        try {
+            vertexId = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The vertex ID '" + value.trim() + "' on line " +
+                lineNumber + " is not an integer.");
+        }
+        if (vertexId < 0) {
+            throw new IllegalArgumentException("The vertex ID " + vertexId + " on line " +
+                lineNumber + " is negative.");
+        }
+        return vertexId;
+    }
+
+    private static String[] splitLine(String line, int numFixedColumns) {
+        String[] values = line.split(SEPARATOR, -1);
+        if (values.length < numFixedColumns) {
+            throw new IllegalArgumentException("The line '" + line + "' should have at least " +
+                numFixedColumns + " values.");
+        }
+        return values;
+    }
+
+    private static List<String> readLines(String filePath) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(filePath), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("The file '" + filePath + "' has no header.");
+        }
+        return lines;
+    }
+
+    /**
+     * The property columns of the header of a vertex or an edge file. Not to be confused with
+     * {@link PropertyColumns}, the columnar property layout.
+     */
+    private static class CSVPropertyColumns {
+
+        private final int numFixedColumns;
+        private final short[] keys;
+        private final DataType[] dataTypes;
+        private final boolean isEmpty;
+
+        private CSVPropertyColumns(int numFixedColumns, short[] keys, DataType[] dataTypes,
+            boolean isEmpty) {
+            this.numFixedColumns = numFixedColumns;
+            this.keys = keys;
+            this.dataTypes = dataTypes;
+            this.isEmpty = isEmpty;
+        }
+
+        /**
+         * @return The properties in the given {@code values} of a line, or {@code null} if the
+         * file has no property columns.
+         */
+        private Map<Short, Pair<DataType, String>> getProperties(String[] values) {
+            if (isEmpty) {
+                return null;
+            }
+            Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+            for (int i = 0; i < keys.length && numFixedColumns + i < values.length; i++) {
+                String value = values[numFixedColumns + i].trim();
+                if (!value.isEmpty()) {
+                    DataType.assertValueCanBeCastToDataType(dataTypes[i], value);
+                    properties.put(keys[i], new Pair<>(dataTypes[i], value));
+                }
+            }
+            return properties;
+        }
+    }
+}
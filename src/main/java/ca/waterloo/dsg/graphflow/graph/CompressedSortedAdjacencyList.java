@@ -0,0 +1,53 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+
+/**
+ * A read-only view over the edges of one type of a vertex in a compressed {@link
+ * CSRAdjacencyLists}, whose columns hold one partition of the adjacency lists. The neighbour IDs
+ * and edge IDs are decoded from {@link DeltaEncodedColumn}s on demand, and all the edges of the
+ * view have the same type, which is not stored per edge.
+ * Searches skip the blocks of the neighbour IDs column that cannot contain the searched neighbour,
+ * so {@link #search(int, short, int)} and {@link #getIntersection(IntArrayList, short)} do not
+ * decompress the whole list.
+ */
+class CompressedSortedAdjacencyList extends SegmentSortedAdjacencyList {
+
+    private final DeltaEncodedColumn.Reader neighbourIdsReader;
+    private final DeltaEncodedColumn.Reader edgeIdsReader;
+
+    /**
+     * @param neighbourIdsColumn The neighbour IDs column.
+     * @param edgeIdsColumn The edge IDs column.
+     * @param edgeType The type of all the edges of the view.
+     * @param startIndex The index of the first neighbour of the view in the columns.
+     * @param size The number of neighbours in the view.
+     * @param columnIndex The index of the first neighbour of the view in the columns of the whole
+     * {@link CSRAdjacencyLists}.
+     */
+    CompressedSortedAdjacencyList(DeltaEncodedColumn neighbourIdsColumn,
+        DeltaEncodedColumn edgeIdsColumn, short edgeType, int startIndex, int size,
+        int columnIndex) {
+        super(edgeType, startIndex, size, columnIndex);
+        this.neighbourIdsReader = neighbourIdsColumn.new Reader();
+        this.edgeIdsReader = edgeIdsColumn.new Reader();
+    }
+
+    @Override
+    int readNeighbourId(int columnIndex) {
+        return (int) neighbourIdsReader.get(columnIndex);
+    }
+
+    @Override
+    long readEdgeId(int columnIndex) {
+        return edgeIdsReader.get(columnIndex);
+    }
+
+    /**
+     * Searches the skip pointers of the neighbour IDs column, so only one block is decoded.
+     */
+    @Override
+    int getLowerBound(long searchedValue, int fromColumnIndex, int toColumnIndex) {
+        return neighbourIdsReader.getLowerBound(searchedValue, fromColumnIndex, toColumnIndex);
+    }
+}
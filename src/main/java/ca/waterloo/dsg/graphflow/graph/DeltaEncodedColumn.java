@@ -0,0 +1,217 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+
+import java.util.Arrays;
+
+/**
+ * A read-only column of {@code long} values compressed with delta and variable-byte encoding.
+ * The values are split into blocks of {@link #BLOCK_SIZE} consecutive values. Within a block,
+ * each value is stored as the zigzag and variable-byte encoded difference to the previous value,
+ * so small differences take one or two bytes regardless of their sign. The first value of each
+ * block is stored uncompressed together with the offset of the block in the encoded bytes. These
+ * act as skip pointers: a value is decoded starting from the beginning of its block only, and
+ * {@link Reader#getLowerBound(long, int, int)} skips whole blocks of a sorted range by comparing
+ * their first values, without decoding them.
+ * <p>
+ * Columns are built by appending values to a {@link Builder}.
+ */
+class DeltaEncodedColumn {
+
+    static final int BLOCK_SIZE = 64;
+    private static final int LOG_BLOCK_SIZE = 6;
+
+    private final int size;
+    private final long[] blockFirstValues;
+    // The encoded values of block b are at the indices [{@code blockByteOffsets[b]}, {@code
+    // blockByteOffsets[b + 1]}) of {@code bytes}.
+    private final int[] blockByteOffsets;
+    private final byte[] bytes;
+
+    private DeltaEncodedColumn(int size, long[] blockFirstValues, int[] blockByteOffsets,
+        byte[] bytes) {
+        this.size = size;
+        this.blockFirstValues = blockFirstValues;
+        this.blockByteOffsets = blockByteOffsets;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return The number of values in the column.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Decodes the value at the given {@code index}. For sequential access, use a {@link Reader},
+     * which does not decode the block from its beginning for each value.
+     *
+     * @param index The index of the value.
+     *
+     * @return The value at the given {@code index}.
+     */
+    long get(int index) {
+        return new Reader().get(index);
+    }
+
+    /**
+     * @return The number of bytes used by the encoded values and the skip pointers.
+     */
+    long getMemoryUsageInBytes() {
+        return bytes.length + 8L * blockFirstValues.length + 4L * blockByteOffsets.length;
+    }
+
+    /**
+     * Decodes the values of a {@link DeltaEncodedColumn}. A {@link Reader} remembers the position
+     * of the last decoded value, so reading the values of a block in increasing order of indices
+     * decodes each value once. A {@link Reader} is not thread-safe, but any number of readers can
+     * read the same column concurrently.
+     */
+    class Reader {
+
+        // The index and the value of the last decoded value, and the position of the next encoded
+        // value in {@code bytes}.
+        private int index = -1;
+        private long value;
+        private int position;
+
+        /**
+         * @param index The index of the value.
+         *
+         * @return The value at the given {@code index}.
+         */
+        long get(int index) {
+            if (index >= size || index < 0) {
+                throw new ArrayIndexOutOfBoundsException("No value at index " + index + ".");
+            }
+            if (index < this.index || index >>> LOG_BLOCK_SIZE != this.index >>>
+                LOG_BLOCK_SIZE) {
+                int block = index >>> LOG_BLOCK_SIZE;
+                this.index = block << LOG_BLOCK_SIZE;
+                value = blockFirstValues[block];
+                position = blockByteOffsets[block];
+            }
+            while (this.index < index) {
+                long zigzagDelta = 0;
+                int shift = 0;
+                byte nextByte;
+                do {
+                    nextByte = bytes[position++];
+                    zigzagDelta |= (long) (nextByte & 0x7F) << shift;
+                    shift += 7;
+                } while (nextByte < 0);
+                value += (zigzagDelta >>> 1) ^ -(zigzagDelta & 1);
+                this.index++;
+            }
+            return value;
+        }
+
+        /**
+         * Returns the first index in the range [{@code fromIndex}, {@code toIndex}) whose value is
+         * larger than or equal to the given {@code searchedValue}. The values in the range should
+         * be sorted in increasing order. The skip pointers of the blocks that start within the
+         * range are searched with galloping search, and only the block that contains the result
+         * is decoded. The reader is left at the returned index, so reading its value does not
+         * decode it again.
+         *
+         * @return The first index whose value is larger than or equal to {@code searchedValue},
+         * or {@code toIndex} if there is no such index.
+         */
+        int getLowerBound(long searchedValue, int fromIndex, int toIndex) {
+            if (fromIndex >= toIndex) {
+                return fromIndex;
+            }
+            int firstBlock = fromIndex >>> LOG_BLOCK_SIZE;
+            int lastBlock = (toIndex - 1) >>> LOG_BLOCK_SIZE;
+            // Find the last block, starting from {@code firstBlock}, whose first value is smaller
+            // than {@code searchedValue}. The blocks after {@code firstBlock} start within the
+            // range, so their first values are sorted.
+            int bound = 1;
+            while (firstBlock + bound <= lastBlock && blockFirstValues[firstBlock + bound] <
+                searchedValue) {
+                bound <<= 1;
+            }
+            int low = firstBlock + (bound >> 1);
+            int high = Integer.min(firstBlock + bound, lastBlock + 1);
+            while (high - low > 1) {
+                int middle = (low + high) >>> 1;
+                if (blockFirstValues[middle] < searchedValue) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            // The first value of the block after {@code low} is larger than or equal to {@code
+            // searchedValue}, or the block is out of the range, so only block {@code low} is
+            // decoded.
+            int endIndex = Integer.min(toIndex, (low + 1) << LOG_BLOCK_SIZE);
+            for (int index = Integer.max(fromIndex, low << LOG_BLOCK_SIZE); index < endIndex;
+                 index++) {
+                if (get(index) >= searchedValue) {
+                    return index;
+                }
+            }
+            return endIndex;
+        }
+    }
+
+    /**
+     * Builds a {@link DeltaEncodedColumn} by appending values in order.
+     */
+    static class Builder {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private int size;
+        private long previousValue;
+        private long[] blockFirstValues = new long[INITIAL_CAPACITY];
+        private int[] blockByteOffsets = new int[INITIAL_CAPACITY];
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int numBytes;
+
+        /**
+         * Appends the given {@code value} to the end of the column.
+         */
+        void add(long value) {
+            if (0 == (size & (BLOCK_SIZE - 1))) {
+                int block = size >>> LOG_BLOCK_SIZE;
+                blockFirstValues = ArrayUtils.resizeIfNecessary(blockFirstValues, block + 1,
+                    0 /* default value to fill new cells if resizing */);
+                blockByteOffsets = ArrayUtils.resizeIfNecessary(blockByteOffsets, block + 2);
+                blockFirstValues[block] = value;
+                blockByteOffsets[block] = numBytes;
+            } else {
+                long delta = value - previousValue;
+                long zigzagDelta = (delta << 1) ^ (delta >> 63);
+                // A {@code long} takes at most 10 bytes.
+                bytes = ArrayUtils.resizeIfNecessary(bytes, numBytes + 10);
+                while ((zigzagDelta & ~0x7FL) != 0) {
+                    bytes[numBytes++] = (byte) ((zigzagDelta & 0x7F) | 0x80);
+                    zigzagDelta >>>= 7;
+                }
+                bytes[numBytes++] = (byte) zigzagDelta;
+            }
+            previousValue = value;
+            size++;
+        }
+
+        /**
+         * @return The number of values appended so far.
+         */
+        int getSize() {
+            return size;
+        }
+
+        /**
+         * @return The {@link DeltaEncodedColumn} of the appended values. The builder should not be
+         * used afterwards.
+         */
+        DeltaEncodedColumn build() {
+            int numBlocks = (size + BLOCK_SIZE - 1) >>> LOG_BLOCK_SIZE;
+            int[] offsets = Arrays.copyOf(blockByteOffsets, numBlocks + 1);
+            offsets[numBlocks] = numBytes;
+            return new DeltaEncodedColumn(size, Arrays.copyOf(blockFirstValues, numBlocks),
+                offsets, Arrays.copyOf(bytes, numBytes));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * The edges added or deleted temporarily since the last call to {@link Graph#finalizeChanges()},
+ * kept in primitive columns of from vertex IDs, to vertex IDs, edge types and edge IDs, so an edge
+ * is not an object. The edges are read in the order of a {@link Direction}: sorted by their from
+ * vertex IDs and then by their to vertex IDs in the {@link Direction#FORWARD} direction, and the
+ * other way around in the {@link Direction#BACKWARD} direction. The sorted orders are computed
+ * when they are first read after the edges change.
+ */
+class DiffEdges {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] fromVertexIds = new int[INITIAL_CAPACITY];
+    private int[] toVertexIds = new int[INITIAL_CAPACITY];
+    private short[] edgeTypes = new short[INITIAL_CAPACITY];
+    private long[] edgeIds = new long[INITIAL_CAPACITY];
+    private int size;
+    // The indices of the edges in the sorted order of each direction, or {@code null} if the
+    // edges changed since the order was last computed.
+    private int[] forwardOrder;
+    private int[] backwardOrder;
+
+    /**
+     * Appends the edge {@code fromVertexId}->{@code toVertexId}.
+     *
+     * @param fromVertexId The from vertex ID of the edge.
+     * @param toVertexId The to vertex ID of the edge.
+     * @param edgeType The type of the edge.
+     * @param edgeId The ID of the edge.
+     */
+    void add(int fromVertexId, int toVertexId, short edgeType, long edgeId) {
+        fromVertexIds = ArrayUtils.resizeIfNecessary(fromVertexIds, size + 1);
+        toVertexIds = ArrayUtils.resizeIfNecessary(toVertexIds, size + 1);
+        edgeTypes = ArrayUtils.resizeIfNecessary(edgeTypes, size + 1);
+        edgeIds = ArrayUtils.resizeIfNecessary(edgeIds, size + 1, -1 /* default value */);
+        fromVertexIds[size] = fromVertexId;
+        toVertexIds[size] = toVertexId;
+        edgeTypes[size] = edgeType;
+        edgeIds[size] = edgeId;
+        size++;
+        forwardOrder = null;
+        backwardOrder = null;
+    }
+
+    /**
+     * Removes all the edges. The columns keep their capacity for the next batch of changes.
+     */
+    void clear() {
+        size = 0;
+        forwardOrder = null;
+        backwardOrder = null;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return The ID of the edge at the given {@code index}, in insertion order.
+     */
+    long getEdgeId(int index) {
+        return edgeIds[index];
+    }
+
+    /**
+     * @return The vertex ID the edge at the given {@code index} is read from in the given {@code
+     * direction}, i.e., its from vertex ID in the {@link Direction#FORWARD} direction and its to
+     * vertex ID in the {@link Direction#BACKWARD} direction.
+     */
+    int getVertexId(int index, Direction direction) {
+        return (Direction.FORWARD == direction) ? fromVertexIds[index] : toVertexIds[index];
+    }
+
+    /**
+     * @return The other vertex ID of the edge at the given {@code index}. See {@link
+     * #getVertexId(int, Direction)}.
+     */
+    int getNeighbourId(int index, Direction direction) {
+        return (Direction.FORWARD == direction) ? toVertexIds[index] : fromVertexIds[index];
+    }
+
+    short getEdgeType(int index) {
+        return edgeTypes[index];
+    }
+
+    /**
+     * @return The indices of the edges sorted by {@link #getVertexId(int, Direction)} and then by
+     * {@link #getNeighbourId(int, Direction)}. Edges between the same vertices are in insertion
+     * order. The returned array must not be modified.
+     */
+    int[] getSortedIndices(Direction direction) {
+        if (Direction.FORWARD == direction) {
+            if (null == forwardOrder) {
+                forwardOrder = sortIndices(fromVertexIds, toVertexIds);
+            }
+            return forwardOrder;
+        }
+        if (null == backwardOrder) {
+            backwardOrder = sortIndices(toVertexIds, fromVertexIds);
+        }
+        return backwardOrder;
+    }
+
+    /**
+     * Checks if there is an edge between {@code vertexId} and {@code neighbourId} in the given
+     * {@code direction} with the given {@code edgeTypeFilter} by binary searching the sorted order
+     * of the {@code direction}.
+     *
+     * @param vertexId The vertex ID the edge is read from.
+     * @param neighbourId The other vertex ID of the edge.
+     * @param direction The direction of the edge from {@code vertexId}.
+     * @param edgeTypeFilter The type of the edge, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return {@code true} if there is such an edge, {@code false} otherwise.
+     */
+    boolean contains(int vertexId, int neighbourId, Direction direction, short edgeTypeFilter) {
+        int[] sortedIndices = getSortedIndices(direction);
+        int low = 0;
+        int high = size;
+        // Find the first edge that is not before (vertexId, neighbourId) in the sorted order.
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int index = sortedIndices[mid];
+            int midVertexId = getVertexId(index, direction);
+            if (midVertexId < vertexId || (midVertexId == vertexId && getNeighbourId(index,
+                direction) < neighbourId)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size; i++) {
+            int index = sortedIndices[i];
+            if (getVertexId(index, direction) != vertexId || getNeighbourId(index, direction) !=
+                neighbourId) {
+                return false;
+            }
+            if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || edgeTypes[index] ==
+                edgeTypeFilter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The indices of the edges sorted by {@code vertexIds} and then by {@code
+     * neighbourIds}, using the primitive sort of {@code long}s composed of a sort key in the high
+     * bits and an index in the low bits.
+     */
+    private int[] sortIndices(int[] vertexIds, int[] neighbourIds) {
+        long[] vertexIdsAndIndices = new long[size];
+        for (int i = 0; i < size; i++) {
+            vertexIdsAndIndices[i] = (((long) vertexIds[i]) << 32) | i;
+        }
+        Arrays.sort(vertexIdsAndIndices);
+        // Sort the edges of each vertex by their neighbour IDs. The sort is stable as the indices
+        // break the ties.
+        long[] neighbourIdsAndIndices = new long[size];
+        int[] sortedIndices = new int[size];
+        int start = 0;
+        while (start < size) {
+            int vertexId = (int) (vertexIdsAndIndices[start] >>> 32);
+            int end = start;
+            while (end < size && (int) (vertexIdsAndIndices[end] >>> 32) == vertexId) {
+                int index = (int) vertexIdsAndIndices[end];
+                neighbourIdsAndIndices[end] = (((long) neighbourIds[index]) << 32) | index;
+                end++;
+            }
+            Arrays.sort(neighbourIdsAndIndices, start, end);
+            for (int i = start; i < end; i++) {
+                sortedIndices[i] = (int) neighbourIdsAndIndices[i];
+            }
+            start = end;
+        }
+        return sortedIndices;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner stringJoiner = new StringJoiner(",");
+        for (int i = 0; i < size; i++) {
+            stringJoiner.add("[" + fromVertexIds[i] + ", " + toVertexIds[i] + "]");
+        }
+        return "[" + stringJoiner.toString() + "]";
+    }
+}
@@ -1,22 +1,28 @@
 package ca.waterloo.dsg.graphflow.graph;
 
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
 import ca.waterloo.dsg.graphflow.util.ShortArrayList;
 
 import java.util.Iterator;
-import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
- * Encapsulates an {@code Iterator} over the diff edges of the {@code Graph}.
+ * Encapsulates an {@code Iterator} over the diff edges of the {@code Graph}. The edges are
+ * returned in the sorted order of the {@link Direction}, as {@code {vertexId, neighbourId}} pairs
+ * like the ones returned by {@link PermanentAndMergedEdgesIterator}, so consecutive edges usually
+ * share their first vertex. The iterator reads the primitive columns of {@link DiffEdges} and only
+ * allocates the returned pairs.
  */
 public class DiffEdgesIterator implements Iterator<int[]> {
 
-    private List<int[]> diffEdges;
-    private ShortArrayList diffEdgeTypes;
+    private DiffEdges diffEdges;
+    private Direction direction;
+    private int[] sortedIndices;
     private ShortArrayList vertexTypes;
     private short fromVertexTypeFilter;
     private short toVertexTypeFilter;
     private short edgeTypeFilter;
+    // The position of the next edge in {@code sortedIndices}.
     private int next = -1;
 
     /**
@@ -24,19 +30,20 @@ public class DiffEdgesIterator implements Iterator<int[]> {
      * specified.
      *
      * @param diffEdges The set of edges that were added or deleted from the graph.
-     * @param diffEdgeTypes The types of the added or deleted edges.
+     * @param direction The {@code Direction} of the edges. In the {@link Direction#BACKWARD}
+     * direction, the edges are returned from their to vertices to their from vertices.
      * @param vertexTypes The types of the graph vertices.
-     * @param fromVertexTypeFilter The {@code short} filter on the type of the from vertex of the
-     * edge that should be matched.
-     * @param toVertexTypeFilter The {@code short} filter on the type of the to vertex of the edge
-     * that should be matched.
+     * @param fromVertexTypeFilter The {@code short} filter on the type of the first vertex of the
+     * returned edges.
+     * @param toVertexTypeFilter The {@code short} filter on the type of the second vertex of the
+     * returned edges.
      * @param edgeTypeFilter The {@code short} filter on the type of edges that should be matched.
      */
-    public DiffEdgesIterator(List<int[]> diffEdges, ShortArrayList diffEdgeTypes,
-        ShortArrayList vertexTypes, short fromVertexTypeFilter, short toVertexTypeFilter,
-        short edgeTypeFilter) {
+    DiffEdgesIterator(DiffEdges diffEdges, Direction direction, ShortArrayList vertexTypes,
+        short fromVertexTypeFilter, short toVertexTypeFilter, short edgeTypeFilter) {
         this.diffEdges = diffEdges;
-        this.diffEdgeTypes = diffEdgeTypes;
+        this.direction = direction;
+        this.sortedIndices = diffEdges.getSortedIndices(direction);
         this.vertexTypes = vertexTypes;
         this.fromVertexTypeFilter = fromVertexTypeFilter;
         this.toVertexTypeFilter = toVertexTypeFilter;
@@ -46,7 +53,7 @@ public class DiffEdgesIterator implements Iterator<int[]> {
 
     @Override
     public boolean hasNext() {
-        return next < diffEdges.size();
+        return next < diffEdges.getSize();
     }
 
     @Override
@@ -54,25 +61,27 @@ public class DiffEdgesIterator implements Iterator<int[]> {
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        int[] result = diffEdges.get(next);
+        int index = sortedIndices[next];
+        int[] result = new int[]{diffEdges.getVertexId(index, direction), diffEdges.
+            getNeighbourId(index, direction)};
         setIndexToNextEdge();
         return result;
     }
 
     private void setIndexToNextEdge() {
         next++;
-        while (next < diffEdges.size()) {
-            // Find the next edge {@code e=(u, v)} where {@code e}'s type is {@code
-            // edgeTypeFilter} and {@code e}'s properties match {@code edgePropertyEqualityFilters}.
-            // If there is no such {@code e=(u, v)}, the {@code next} index is set to the size of
-            // {@code diffEdges.size()}.
-            int[] diffEdge = diffEdges.get(next);
+        while (next < diffEdges.getSize()) {
+            // Find the next edge {@code e=(u, v)} where {@code u}, {@code v} and {@code e} have
+            // the types of the filters. If there is no such {@code e=(u, v)}, the {@code next}
+            // index is set to {@code diffEdges.getSize()}.
+            int index = sortedIndices[next];
             if ((TypeAndPropertyKeyStore.ANY == fromVertexTypeFilter ||
-                vertexTypes.get(diffEdge[0]) == fromVertexTypeFilter) &&
+                vertexTypes.get(diffEdges.getVertexId(index, direction)) == fromVertexTypeFilter) &&
                 (TypeAndPropertyKeyStore.ANY == toVertexTypeFilter ||
-                    vertexTypes.get(diffEdges.get(next)[1]) == toVertexTypeFilter) &&
+                    vertexTypes.get(diffEdges.getNeighbourId(index, direction)) ==
+                        toVertexTypeFilter) &&
                 (TypeAndPropertyKeyStore.ANY == edgeTypeFilter ||
-                    diffEdgeTypes.get(next) == edgeTypeFilter)) {
+                    diffEdges.getEdgeType(index) == edgeTypeFilter)) {
                 return;
             }
             next++;
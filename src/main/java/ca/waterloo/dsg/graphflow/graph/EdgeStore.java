@@ -17,7 +17,9 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
- * Stores the IDs and properties of the edges in the Graph.
+ * Stores the IDs and properties of the edges in the Graph. The properties of each edge are
+ * serialized to a record in a {@link PropertyRecordArena}, or kept in one column per property key
+ * if the columnar layout is enabled. See {@link #setColumnarLayout(boolean)}.
  * Warning: The properties of a deleted edge are not deleted. The ID of the deleted edge is recycled
  * and the properties are overwritten by those of the edge that gets assigned the recycled ID next.
  */
@@ -29,21 +31,32 @@ public class EdgeStore extends PropertyStore {
     private static final int MAX_BUCKETS_PER_PARTITION = 1000000;
     private static EdgeStore INSTANCE = new EdgeStore();
     @VisibleForTesting
-    byte[][][] data = new byte[INITIAL_CAPACITY][][];
+    PropertyRecordArena propertyRecords = new PropertyRecordArena();
+    // The address in {@link #propertyRecords} and the length of the record of each edge, in each
+    // partition, indexed by {@code bucket ID * MAX_EDGES_PER_BUCKET + bucket offset}.
     @VisibleForTesting
-    int[][][] dataOffsets = new int[INITIAL_CAPACITY][][];
+    long[][] recordAddresses = new long[INITIAL_CAPACITY][];
+    @VisibleForTesting
+    int[][] recordLengths = new int[INITIAL_CAPACITY][];
     private long nextIDNeverYetAssigned = 0;
     private byte nextBucketOffset = 0;
     private int nextBucketId = 0;
     private int nextPartitionId = 0;
     private long[] recycledIds = new long[INITIAL_CAPACITY];
     private int recycledIdsSize = 0;
+    // The properties of the edges if the columnar layout is enabled, {@code null} otherwise.
+    private PropertyColumns edgePropertyColumns;
 
     /**
-     * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
-     * class.
+     * Private constructor enforces usage of the singleton object {@link #INSTANCE} for this
+     * class. The store uses the columnar layout if the system property {@link
+     * #COLUMNAR_LAYOUT_PROPERTY} is {@code true}.
      */
-    private EdgeStore() {}
+    private EdgeStore() {
+        if (Boolean.getBoolean(COLUMNAR_LAYOUT_PROPERTY)) {
+            setColumnarLayout(true);
+        }
+    }
 
     /**
      * Adds a new edge and sets its properties to the given properties.
@@ -95,12 +108,19 @@ public class EdgeStore extends PropertyStore {
      * @throws NoSuchElementException if the {@code edgeId} has never been assigned before.
      */
     public Map<Short, Object> getProperties(long edgeId) {
-        verifyEdgeIdAndResetPropertyIterator(edgeId);
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.getAll(getEdgeIndex(edgeId));
+        }
         Map<Short, Object> edgeProperties = new HashMap<>();
-        Pair<Short, Object> keyValue;
-        while (propertyIterator.hasNext()) {
-            keyValue = propertyIterator.next();
-            edgeProperties.put(keyValue.a, keyValue.b);
+        byte[] page = getRecordPage(edgeId);
+        if (null != page) {
+            int partitionId = getPartitionId(edgeId);
+            int slot = getSlot(edgeId);
+            int recordStartIndex = PropertyRecordArena.getOffset(recordAddresses[partitionId][
+                slot]);
+            deserializeProperties(page, recordStartIndex, recordStartIndex + recordLengths[
+                partitionId][slot], edgeProperties);
         }
         return edgeProperties;
     }
@@ -118,34 +138,14 @@ public class EdgeStore extends PropertyStore {
      * @throws NoSuchElementException if the {@code edgeId} has never been assigned before.
      */
     public Map<String, String> getPropertiesAsStrings(long edgeId) {
-        verifyEdgeIdAndResetPropertyIterator(edgeId);
-        Map<String, String> edgeProperties = new HashMap<>();
-        Pair<Short, Object> keyValue;
-        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
-        while (propertyIterator.hasNext()) {
-            keyValue = propertyIterator.next();
-            edgeProperties.put(typeAndPropertyKeyStore.mapShortPropertyKeyToString(keyValue.a),
-                keyValue.b.toString());
-        }
-        return edgeProperties;
+        return toStrings(getProperties(edgeId));
     }
 
-    private void verifyEdgeIdAndResetPropertyIterator(long edgeId) {
+    private long verifyEdgeId(long edgeId) {
         if (edgeId >= nextIDNeverYetAssigned) {
             throw new NoSuchElementException("Edge with ID " + edgeId + " does not exist.");
         }
-        int partitionId = (int) ((edgeId & 0xFFF00000) >> 40);
-        int bucketId = (int) ((edgeId & 0x000FFFF0) >> 8);
-        byte bucketOffset = (byte) (edgeId & 0x000000F);
-
-        int dataOffsetStart = dataOffsets[partitionId][bucketId][bucketOffset];
-        int dataOffsetEnd;
-        if (bucketOffset == MAX_EDGES_PER_BUCKET - 1) {
-            dataOffsetEnd = data[partitionId][bucketId].length;
-        } else {
-            dataOffsetEnd = dataOffsets[partitionId][bucketId][bucketOffset + 1];
-        }
-        propertyIterator.reset(data[partitionId][bucketId], dataOffsetStart, dataOffsetEnd);
+        return edgeId;
     }
 
     /**
@@ -159,52 +159,160 @@ public class EdgeStore extends PropertyStore {
      * @return the given edge's property with the given key or null if no such property exists.
      */
     public Object getProperty(long edgeId, short key) {
-        verifyEdgeIdAndResetPropertyIterator(edgeId);
-        return getPropertyFromIterator(key);
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.get(getEdgeIndex(edgeId), key);
+        }
+        byte[] page = getRecordPage(edgeId);
+        if (null == page) {
+            return null;
+        }
+        int partitionId = getPartitionId(edgeId);
+        int slot = getSlot(edgeId);
+        int recordStartIndex = PropertyRecordArena.getOffset(recordAddresses[partitionId][slot]);
+        return getValue(page, recordStartIndex, recordStartIndex + recordLengths[partitionId][
+            slot], key);
+    }
+
+    /**
+     * @return {@code true} if the edge with the given ID does not have a property with the given
+     * key, {@code false} otherwise.
+     *
+     * @throws NoSuchElementException if the {@code edgeId} has never been assigned before.
+     */
+    public boolean isNull(long edgeId, short key) {
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.isNull(getEdgeIndex(edgeId), key);
+        }
+        return -1 == locateValue(edgeId, key);
+    }
+
+    /**
+     * The typed getters read the value of the property with the given key, which must have the
+     * data type of the getter, of the edge with the given ID. The value is located through the key
+     * directory of the record of the edge, or read from the column of the key in the columnar
+     * layout, and is returned without allocating objects. The value of a property the edge does
+     * not have, see {@link #isNull(long, short)}, is the default value of the type.
+     *
+     * @throws NoSuchElementException if the {@code edgeId} has never been assigned before.
+     */
+    public int getInt(long edgeId, short key) {
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.getInt(getEdgeIndex(edgeId), key);
+        }
+        int valueOffset = locateValue(edgeId, key);
+        return (-1 == valueOffset) ? 0 : DataType.deserializeInteger(getRecordPage(edgeId),
+            valueOffset);
+    }
+
+    /**
+     * @see #getInt(long, short)
+     */
+    public double getDouble(long edgeId, short key) {
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.getDouble(getEdgeIndex(edgeId), key);
+        }
+        int valueOffset = locateValue(edgeId, key);
+        return (-1 == valueOffset) ? 0 : DataType.deserializeDouble(getRecordPage(edgeId),
+            valueOffset);
+    }
+
+    /**
+     * @see #getInt(long, short)
+     */
+    public boolean getBoolean(long edgeId, short key) {
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.getBoolean(getEdgeIndex(edgeId), key);
+        }
+        int valueOffset = locateValue(edgeId, key);
+        return -1 != valueOffset && 1 == getRecordPage(edgeId)[valueOffset];
+    }
+
+    /**
+     * Points the given {@code stringBytes} to the UTF-8 bytes of the string property with the
+     * given key of the edge with the given ID. See {@link #getInt(long, short)}.
+     *
+     * @return {@code false} if the edge does not have the property, {@code true} otherwise.
+     */
+    public boolean getStringBytes(long edgeId, short key, StringBytes stringBytes) {
+        verifyEdgeId(edgeId);
+        if (null != edgePropertyColumns) {
+            return edgePropertyColumns.getStringBytes(getEdgeIndex(edgeId), key, stringBytes);
+        }
+        int valueOffset = locateValue(edgeId, key);
+        if (-1 == valueOffset) {
+            return false;
+        }
+        resetStringBytes(stringBytes, getRecordPage(edgeId), valueOffset, key);
+        return true;
+    }
+
+    /**
+     * @return The page of the record of the edge with the given ID, or {@code null} if the edge
+     * has no properties.
+     */
+    private byte[] getRecordPage(long edgeId) {
+        int partitionId = getPartitionId(edgeId);
+        int slot = getSlot(edgeId);
+        if (!isSlotAllocated(partitionId, slot) || 0 == recordLengths[partitionId][slot]) {
+            return null;
+        }
+        return propertyRecords.getPage(recordAddresses[partitionId][slot]);
+    }
+
+    /**
+     * @return The index of the value of the property with the given key in the page of the record
+     * of the edge with the given ID, or -1 if the edge does not have the property.
+     */
+    private int locateValue(long edgeId, short key) {
+        byte[] page = getRecordPage(edgeId);
+        if (null == page) {
+            return -1;
+        }
+        int partitionId = getPartitionId(edgeId);
+        int slot = getSlot(edgeId);
+        int recordStartIndex = PropertyRecordArena.getOffset(recordAddresses[partitionId][slot]);
+        return getValueOffset(page, recordStartIndex, recordStartIndex + recordLengths[
+            partitionId][slot], key);
     }
 
     /**
-     * Sets the properties of the given edge to the given properties serialized to bytes.
+     * Sets the properties of the given edge to the given properties serialized to bytes. The
+     * record of the edge is overwritten in place if the serialized properties have the same length
+     * as its current properties. Otherwise, the record is freed and a record of the new length is
+     * allocated. Edges with recycled IDs, which usually have properties of the same length as the
+     * deleted edges, reuse the records of the deleted edges.
      *
      * @param edgeId The ID of the edge.
      * @param properties The properties of the edge. See {@link #addEdge(Map)}.
      */
     private void setProperties(long edgeId, Map<Short, Pair<DataType, String>> properties) {
-        int partitionId = (int) ((edgeId & 0xFFF00000) >> 40);
-        int bucketId = (int) ((edgeId & 0x000FFFF0) >> 8);
-        byte bucketOffset = (byte) (edgeId & 0x000000F);
-        resizeIfNecessary(partitionId, bucketId);
-
-        int dataOffsetStart = dataOffsets[partitionId][bucketId][bucketOffset];
-        int dataOffsetEnd;
-        if (bucketOffset == MAX_EDGES_PER_BUCKET - 1) {
-            dataOffsetEnd = data[partitionId][bucketId].length - 1;
-        } else {
-            dataOffsetEnd = dataOffsets[partitionId][bucketId][bucketOffset + 1] - 1;
+        if (null != edgePropertyColumns) {
+            edgePropertyColumns.set(getEdgeIndex(edgeId), properties);
+            return;
         }
-
         byte[] propertiesAsBytes = serializeProperties(properties);
-        int bucketLength = data[partitionId][bucketId].length;
-        byte[] newPropertiesForTheBucket = new byte[dataOffsetStart /* length of 1st half */ +
-            bucketLength - (dataOffsetEnd + 1) /* length of 2nd half */ + propertiesAsBytes.length];
-
-        // copy the old data + new properties to the new array.
-        System.arraycopy(data[partitionId][bucketId], 0, newPropertiesForTheBucket, 0,
-            dataOffsetStart);
-        System.arraycopy(propertiesAsBytes, 0, newPropertiesForTheBucket, dataOffsetStart,
-            propertiesAsBytes.length);
-        if (newPropertiesForTheBucket.length > propertiesAsBytes.length + dataOffsetStart) {
-            System.arraycopy(data[partitionId][bucketId], dataOffsetEnd, newPropertiesForTheBucket,
-                dataOffsetStart + propertiesAsBytes.length, bucketLength - (dataOffsetEnd + 1));
-        }
-        data[partitionId][bucketId] = newPropertiesForTheBucket;
-
-        // update the offsets
-        int shiftOffset = dataOffsetStart - (dataOffsetEnd + 1) + propertiesAsBytes.length;
-        if (shiftOffset != 0) {
-            for (int i = bucketOffset + 1; i < MAX_EDGES_PER_BUCKET; ++i) {
-                dataOffsets[partitionId][bucketId][i] += shiftOffset;
+        int partitionId = getPartitionId(edgeId);
+        int slot = getSlot(edgeId);
+        resizeIfNecessary(partitionId, slot);
+        int length = recordLengths[partitionId][slot];
+        if (length != propertiesAsBytes.length) {
+            if (length > 0) {
+                propertyRecords.free(recordAddresses[partitionId][slot], length);
             }
+            length = propertiesAsBytes.length;
+            recordAddresses[partitionId][slot] = (length > 0) ? propertyRecords.allocate(length) :
+                0;
+            recordLengths[partitionId][slot] = length;
+        }
+        if (length > 0) {
+            long address = recordAddresses[partitionId][slot];
+            System.arraycopy(propertiesAsBytes, 0, propertyRecords.getPage(address),
+                PropertyRecordArena.getOffset(address), length);
         }
     }
 
@@ -225,6 +333,100 @@ public class EdgeStore extends PropertyStore {
         recycledIds[recycledIdsSize++] = edgeId;
     }
 
+    /**
+     * Enables or disables the columnar layout of the edge properties. In the columnar layout, the
+     * values of each property key are kept in a primitive array indexed by the position of the
+     * edge ID in the order in which the IDs are assigned, see {@link PropertyColumns}, instead of
+     * in serialized records. The current properties are moved to the new layout immediately.
+     *
+     * @param isEnabled {@code true} to store the properties in columns, {@code false} to store
+     * them in serialized records.
+     */
+    public void setColumnarLayout(boolean isEnabled) {
+        if (isEnabled == isColumnarLayoutEnabled()) {
+            return;
+        }
+        if (isEnabled) {
+            PropertyColumns propertyColumns = new PropertyColumns();
+            for (int edgeIndex = 0; getEdgeId(edgeIndex) < nextIDNeverYetAssigned; edgeIndex++) {
+                long edgeId = getEdgeId(edgeIndex);
+                if (isSlotAllocated(getPartitionId(edgeId), getSlot(edgeId))) {
+                    propertyColumns.set(edgeIndex, toDataTypesAndStrings(getProperties(edgeId)));
+                }
+            }
+            edgePropertyColumns = propertyColumns;
+            propertyRecords = new PropertyRecordArena();
+            recordAddresses = new long[INITIAL_CAPACITY][];
+            recordLengths = new int[INITIAL_CAPACITY][];
+        } else {
+            PropertyColumns propertyColumns = edgePropertyColumns;
+            edgePropertyColumns = null;
+            for (int edgeIndex = 0; edgeIndex < propertyColumns.getNumRecords(); edgeIndex++) {
+                setProperties(getEdgeId(edgeIndex), toDataTypesAndStrings(propertyColumns.getAll(
+                    edgeIndex)));
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the edge properties are stored in columns, {@code false} otherwise.
+     */
+    public boolean isColumnarLayoutEnabled() {
+        return null != edgePropertyColumns;
+    }
+
+    private boolean isSlotAllocated(int partitionId, int slot) {
+        return partitionId < recordLengths.length && null != recordLengths[partitionId] &&
+            slot < recordLengths[partitionId].length;
+    }
+
+    /**
+     * @return The index of the given {@code edgeId} in the arrays of its partition in {@link
+     * #recordAddresses} and {@link #recordLengths}.
+     */
+    private static int getSlot(long edgeId) {
+        return getBucketId(edgeId) * MAX_EDGES_PER_BUCKET + getBucketOffset(edgeId);
+    }
+
+    private static int getPartitionId(long edgeId) {
+        return (int) (edgeId >>> 40);
+    }
+
+    private static int getBucketId(long edgeId) {
+        return (int) ((edgeId >>> 8) & 0xFFFFFFFFL);
+    }
+
+    private static byte getBucketOffset(long edgeId) {
+        return (byte) (edgeId & 0xFF);
+    }
+
+    /**
+     * @return The position of the given {@code edgeId} in the order in which the IDs are
+     * assigned, which is the index of the edge in the columns of the columnar layout.
+     */
+    static int getEdgeIndex(long edgeId) {
+        return Math.toIntExact(((long) getPartitionId(edgeId) * MAX_BUCKETS_PER_PARTITION +
+            getBucketId(edgeId)) * MAX_EDGES_PER_BUCKET + getBucketOffset(edgeId));
+    }
+
+    /**
+     * @return The edge ID at the given position in the order in which the IDs are assigned. See
+     * {@link #getEdgeIndex(long)}.
+     */
+    static long getEdgeId(int edgeIndex) {
+        int bucketIndex = edgeIndex / MAX_EDGES_PER_BUCKET;
+        return (((long) (bucketIndex / MAX_BUCKETS_PER_PARTITION)) << 40) | (((long) (
+            bucketIndex % MAX_BUCKETS_PER_PARTITION)) << 8) | (edgeIndex % MAX_EDGES_PER_BUCKET);
+    }
+
+    /**
+     * @return The number of edge IDs assigned so far, which is the position of the next ID never
+     * yet assigned. See {@link #getEdgeIndex(long)}.
+     */
+    int getNumAssignedEdgeIds() {
+        return getEdgeIndex(nextIDNeverYetAssigned);
+    }
+
     private void incrementNextIDNeverYetAssigned() {
         if (nextBucketOffset < MAX_EDGES_PER_BUCKET - 1) {
             nextBucketOffset++;
@@ -241,27 +443,17 @@ public class EdgeStore extends PropertyStore {
             nextBucketOffset;
     }
 
-    private void resizeIfNecessary(int partitionId, int bucketId) {
-        data = ArrayUtils.resizeIfNecessary(data, partitionId + 1);
-        dataOffsets = ArrayUtils.resizeIfNecessary(dataOffsets, partitionId + 1);
-
-        if (null == data[partitionId]) {
-            data[partitionId] = new byte[0][];
-        }
-        if (null == dataOffsets[partitionId]) {
-            dataOffsets[partitionId] = new int[0][];
-        }
-
-        data[partitionId] = ArrayUtils.resizeIfNecessary(data[partitionId], bucketId + 1);
-        dataOffsets[partitionId] = ArrayUtils.resizeIfNecessary(dataOffsets[partitionId],
-            bucketId + 1);
-
-        if (null == data[partitionId][bucketId]) {
-            data[partitionId][bucketId] = new byte[0];
-        }
-        if (null == dataOffsets[partitionId][bucketId]) {
-            dataOffsets[partitionId][bucketId] = new int[MAX_EDGES_PER_BUCKET];
+    private void resizeIfNecessary(int partitionId, int slot) {
+        recordAddresses = ArrayUtils.resizeIfNecessary(recordAddresses, partitionId + 1);
+        recordLengths = ArrayUtils.resizeIfNecessary(recordLengths, partitionId + 1);
+        if (null == recordAddresses[partitionId]) {
+            recordAddresses[partitionId] = new long[INITIAL_CAPACITY];
+            recordLengths[partitionId] = new int[INITIAL_CAPACITY];
         }
+        recordAddresses[partitionId] = ArrayUtils.resizeIfNecessary(recordAddresses[partitionId],
+            slot + 1, 0 /* default value */);
+        recordLengths[partitionId] = ArrayUtils.resizeIfNecessary(recordLengths[partitionId],
+            slot + 1);
     }
 
     @UsedOnlyByTests
@@ -276,7 +468,7 @@ public class EdgeStore extends PropertyStore {
     @Override
     public void serializeAll(String outputDirectoryPath) throws IOException, InterruptedException {
         EdgeStoreParallelSerDeUtils parallelArraySerDeHelper = new EdgeStoreParallelSerDeUtils(
-            outputDirectoryPath, data, dataOffsets, nextPartitionId + 1);
+            outputDirectoryPath, propertyRecords.getPages(), propertyRecords.getNumPages());
         parallelArraySerDeHelper.startSerialization();
         MainFileSerDeHelper.serialize(this, outputDirectoryPath);
         parallelArraySerDeHelper.finishSerDe();
@@ -289,34 +481,46 @@ public class EdgeStore extends PropertyStore {
         // Deserialize main file first to initialize arrays.
         MainFileSerDeHelper.deserialize(this, inputDirectoryPath);
         EdgeStoreParallelSerDeUtils parallelArraySerDeHelper = new EdgeStoreParallelSerDeUtils(
-            inputDirectoryPath, data, dataOffsets, nextPartitionId + 1);
+            inputDirectoryPath, propertyRecords.getPages(), propertyRecords.getNumPages());
         parallelArraySerDeHelper.startDeserialization();
         parallelArraySerDeHelper.finishSerDe();
     }
 
     @Override
     public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
-        objectOutputStream.writeInt(data.length);
+        propertyRecords.serialize(objectOutputStream);
+        objectOutputStream.writeObject(recordAddresses);
+        objectOutputStream.writeObject(recordLengths);
         objectOutputStream.writeLong(nextIDNeverYetAssigned);
         objectOutputStream.writeByte(nextBucketOffset);
         objectOutputStream.writeInt(nextBucketId);
         objectOutputStream.writeInt(nextPartitionId);
         objectOutputStream.writeInt(recycledIdsSize);
         objectOutputStream.writeObject(recycledIds);
+        objectOutputStream.writeBoolean(isColumnarLayoutEnabled());
+        if (isColumnarLayoutEnabled()) {
+            edgePropertyColumns.serialize(objectOutputStream);
+        }
     }
 
     @Override
     public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException,
         ClassNotFoundException {
-        int arrayLength = objectInputStream.readInt();
-        this.data = new byte[arrayLength][][];
-        this.dataOffsets = new int[arrayLength][][];
+        this.propertyRecords = new PropertyRecordArena();
+        this.propertyRecords.deserialize(objectInputStream);
+        this.recordAddresses = (long[][]) objectInputStream.readObject();
+        this.recordLengths = (int[][]) objectInputStream.readObject();
         this.nextIDNeverYetAssigned = objectInputStream.readLong();
         this.nextBucketOffset = objectInputStream.readByte();
         this.nextBucketId = objectInputStream.readInt();
         this.nextPartitionId = objectInputStream.readInt();
         this.recycledIdsSize = objectInputStream.readInt();
         this.recycledIds = (long[]) objectInputStream.readObject();
+        this.edgePropertyColumns = null;
+        if (objectInputStream.readBoolean()) {
+            this.edgePropertyColumns = new PropertyColumns();
+            this.edgePropertyColumns.deserialize(objectInputStream);
+        }
     }
 
     @Override
@@ -367,10 +571,11 @@ public class EdgeStore extends PropertyStore {
                 return false;
             }
         }
-        if (!Arrays.deepEquals(a.data, b.data) ||
-            !Arrays.deepEquals(a.dataOffsets, b.dataOffsets)) {
-            return false;
+        if (a.isColumnarLayoutEnabled() || b.isColumnarLayoutEnabled()) {
+            return PropertyColumns.isSameAs(a.edgePropertyColumns, b.edgePropertyColumns);
         }
-        return true;
+        return PropertyRecordArena.isSameAs(a.propertyRecords, b.propertyRecords) &&
+            Arrays.deepEquals(a.recordAddresses, b.recordAddresses) &&
+            Arrays.deepEquals(a.recordLengths, b.recordLengths);
     }
 }
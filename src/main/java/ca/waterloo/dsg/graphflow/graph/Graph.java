@@ -3,28 +3,24 @@ package ca.waterloo.dsg.graphflow.graph;
 import ca.waterloo.dsg.graphflow.graph.serde.GraphParallelSerDeUtils;
 import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
 import ca.waterloo.dsg.graphflow.graph.serde.MainFileSerDeHelper;
-import ca.waterloo.dsg.graphflow.graph.serde.ParallelArraySerDeUtils;
-import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+import ca.waterloo.dsg.graphflow.graph.serde.SerDeUtils;
 import ca.waterloo.dsg.graphflow.util.DataType;
-import ca.waterloo.dsg.graphflow.util.LongArrayList;
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
 import ca.waterloo.dsg.graphflow.util.ShortArrayList;
 import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
 import org.antlr.v4.runtime.misc.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.StringJoiner;
 
 /**
  * Encapsulates the Graph representation and provides utility methods.
@@ -65,43 +61,250 @@ public class Graph implements GraphflowSerializable {
         }
     }
 
+    // The default minimum number of neighbours of the adjacency lists that are also kept as
+    // bitmaps. See {@link #setHubDegreeThreshold(int)}.
+    static final int DEFAULT_HUB_DEGREE_THRESHOLD = 1 << 14;
+    // The system properties, e.g., set in GRAPHFLOW_SERVER_OPTS when the server is started, that
+    // configure the storage of each new graph. See the corresponding setters.
+    public static final String COMPRESSION_PROPERTY = "graphflow.compressAdjacencyLists";
+    public static final String STORAGE_DIRECTORY_PROPERTY = "graphflow.adjacencyListDirectory";
+    public static final String HUB_DEGREE_THRESHOLD_PROPERTY = "graphflow.hubDegreeThreshold";
+    public static final String NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY =
+        "graphflow.neighbourVertexTypeIndex";
+    public static final String HUB_EDGE_INDEX_PROPERTY = "graphflow.hubEdgeIndex";
     private static final Logger logger = LogManager.getLogger(Graph.class);
-    private static final int DEFAULT_GRAPH_SIZE = 2;
     private static Graph INSTANCE = new Graph();
-    // Stores the highest vertex ID of the permanent graph.
-    private int highestPermanentVertexId = -1;
-    // Adjacency lists for the permanent graph, containing both the neighbour vertex IDs and edge
-    // type IDs to those neighbours.
-    private SortedAdjacencyList[] forwardAdjLists = new SortedAdjacencyList[DEFAULT_GRAPH_SIZE];
-    private SortedAdjacencyList[] backwardAdjLists = new SortedAdjacencyList[DEFAULT_GRAPH_SIZE];
+    // The current snapshot of the permanent graph, which holds the highest permanent vertex ID and
+    // the adjacency lists of the permanent graph in CSR format, containing the neighbour vertex
+    // IDs, edge types and edge IDs to those neighbours. The adjacency lists are immutable, and
+    // each change to the permanent graph publishes a new snapshot with {@link
+    // #publishSnapshot(CSRAdjacencyLists, CSRAdjacencyLists, int)}.
+    private volatile GraphSnapshot permanentSnapshot = new GraphSnapshot(new CSRAdjacencyLists(),
+        new CSRAdjacencyLists(), -1 /* highest vertex ID */, new GraphStatistics(),
+        new HubAdjacencyBitmaps(DEFAULT_HUB_DEGREE_THRESHOLD), new HubAdjacencyBitmaps(
+        DEFAULT_HUB_DEGREE_THRESHOLD), null /* no forward types */, null /* no backward types */,
+        null /* no forward edge index */, null /* no backward edge index */);
+    // If {@code true}, the permanent adjacency lists are kept compressed. See {@link
+    // CSRAdjacencyLists#compress()}.
+    private boolean isAdjacencyListCompressionEnabled;
+    // If not {@code null}, the columns of the permanent adjacency lists are stored in
+    // memory-mapped files in this directory. See {@link CSRAdjacencyLists#mapToFile(File)}.
+    // {@code numStorageFiles} is used to give each new file a distinct name.
+    private String adjacencyListStorageDirectory;
+    private int numStorageFiles;
+    // The adjacency lists with at least this many neighbours are also kept as bitmaps. See {@link
+    // HubAdjacencyBitmaps}.
+    private int hubDegreeThreshold = DEFAULT_HUB_DEGREE_THRESHOLD;
+    // If {@code true}, the permanent adjacency lists are tagged with the types of the neighbours.
+    // See {@link NeighbourVertexTypeIndex}.
+    private boolean isNeighbourVertexTypeIndexEnabled;
+    // If {@code true}, the edges of the vertices with at least {@code hubDegreeThreshold}
+    // neighbours are kept in hash tables. See {@link HubEdgeIndex}.
+    private boolean isHubEdgeIndexEnabled;
     // Stores the highest vertex ID present among all vertices in the permanent graph and the
     // temporary vertices to be added. This is used when permanently applying the temporary changes
     // to the graph to decide if the adjacency list arrays need resizing to accommodate higher
     // vertex IDs being added.
     private int highestMergedVertexId = -1;
     private ShortArrayList vertexTypes = new ShortArrayList();
-    // Edges for additions and deletions.
-    private List<int[]> diffPlusEdges = new ArrayList<>();
-    private List<int[]> diffMinusEdges = new ArrayList<>();
-    // Each edge at index i of {@link diffPlusEdges} or {@link diffMinusEdges} has a type at
-    // index i of {@link diffPlusEdgeTypes} or {@link diffMinusEdgeTypes}.
-    private ShortArrayList diffPlusEdgeTypes = new ShortArrayList();
-    private ShortArrayList diffMinusEdgeTypes = new ShortArrayList();
-    private LongArrayList diffPlusEdgeIds = new LongArrayList();
-    private LongArrayList diffMinusEdgeIds = new LongArrayList();
-    // Updated adjacency lists for the vertices affected by additions and deletions.
-    private Map<Integer, SortedAdjacencyList> mergedForwardAdjLists = new HashMap<>();
-    private Map<Integer, SortedAdjacencyList> mergedBackwardAdjLists = new HashMap<>();
+    // The permanent vertices whose type has been changed since the previous call to {@link
+    // #finalizeChanges()}, mapped to their type in the statistics of the current snapshot. The
+    // statistics are updated for the new types when the changes are made permanent.
+    private IntToObjectMap<Short> retypedVertices = new IntToObjectMap<>();
+    // Edges for additions and deletions, with their types and IDs.
+    private DiffEdges diffPlusEdges = new DiffEdges();
+    private DiffEdges diffMinusEdges = new DiffEdges();
+    // The temporary changes to the adjacency lists of the vertices affected by additions and
+    // deletions. The merged adjacency list of a vertex is read by merging its permanent adjacency
+    // list with its delta using a {@link MergedAdjacencyListCursor}. The deltas are looked up for
+    // every adjacency list read of the MERGED graph, so they are kept in primitive int-keyed maps
+    // whose lookups do not box the vertex IDs.
+    private IntToObjectMap<AdjacencyListDelta> forwardAdjListDeltas = new IntToObjectMap<>();
+    private IntToObjectMap<AdjacencyListDelta> backwardAdjListDeltas = new IntToObjectMap<>();
 
+    /**
+     * Creates an empty graph with the storage configured by the system properties, e.g., {@link
+     * #COMPRESSION_PROPERTY}, {@link #STORAGE_DIRECTORY_PROPERTY}, {@link
+     * #HUB_DEGREE_THRESHOLD_PROPERTY}, {@link #NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY} and {@link
+     * #HUB_EDGE_INDEX_PROPERTY}. Memory-mapped adjacency lists cannot be compressed, so if both
+     * {@link #STORAGE_DIRECTORY_PROPERTY} and {@link #COMPRESSION_PROPERTY} are set, an error is
+     * logged and the adjacency lists are only memory-mapped.
+     */
     private Graph() {
-        initializeSortedAdjacencyLists(0 /* starting index */, DEFAULT_GRAPH_SIZE);
+        String storageDirectory = System.getProperty(STORAGE_DIRECTORY_PROPERTY);
+        boolean isCompressionEnabled = Boolean.getBoolean(COMPRESSION_PROPERTY);
+        if (null != storageDirectory && isCompressionEnabled) {
+            logger.error("The system properties " + STORAGE_DIRECTORY_PROPERTY + " and " +
+                COMPRESSION_PROPERTY + " cannot both be set, as memory-mapped adjacency lists " +
+                "cannot be compressed. The adjacency lists are memory-mapped in " +
+                storageDirectory + " and are not compressed.");
+            isCompressionEnabled = false;
+        }
+        if (null != storageDirectory) {
+            setAdjacencyListStorageDirectory(storageDirectory);
+        }
+        if (isCompressionEnabled) {
+            setAdjacencyListCompression(true);
+        }
+        int degreeThreshold = Integer.getInteger(HUB_DEGREE_THRESHOLD_PROPERTY,
+            DEFAULT_HUB_DEGREE_THRESHOLD);
+        if (DEFAULT_HUB_DEGREE_THRESHOLD != degreeThreshold) {
+            setHubDegreeThreshold(degreeThreshold);
+        }
+        if (Boolean.getBoolean(NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY)) {
+            setNeighbourVertexTypeIndex(true);
+        }
+        if (Boolean.getBoolean(HUB_EDGE_INDEX_PROPERTY)) {
+            setHubEdgeIndex(true);
+        }
     }
 
     /**
      * @return The highest permanent vertex ID .
      */
     public int getVertexCount() {
-        return highestPermanentVertexId + 1;
+        return permanentSnapshot.getHighestVertexId() + 1;
+    }
+
+    /**
+     * @return The current snapshot of the permanent graph.
+     */
+    public GraphSnapshot getSnapshot() {
+        return permanentSnapshot;
+    }
+
+    /**
+     * @return The degree and cardinality statistics of the permanent graph.
+     */
+    public GraphStatistics getStatistics() {
+        return permanentSnapshot.getStatistics();
+    }
+
+    /**
+     * Publishes a new snapshot of the permanent graph with the given adjacency lists and highest
+     * vertex ID, and retires the current one. The statistics of the current snapshot are kept,
+     * and the vertices with IDs above its highest vertex ID are added to them.
+     *
+     * @see #publishSnapshot(CSRAdjacencyLists, CSRAdjacencyLists, int, GraphStatistics)
+     */
+    private synchronized void publishSnapshot(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int highestVertexId) {
+        GraphStatistics statistics = permanentSnapshot.getStatistics();
+        if (highestVertexId > permanentSnapshot.getHighestVertexId()) {
+            statistics = statistics.copy();
+            statistics.addVertices(vertexTypes, permanentSnapshot.getHighestVertexId() + 1,
+                highestVertexId);
+        }
+        publishSnapshot(forwardAdjLists, backwardAdjLists, highestVertexId, statistics);
+    }
+
+    /**
+     * Publishes a new snapshot of the permanent graph with the given adjacency lists, highest
+     * vertex ID and statistics, and retires the current one. The given adjacency lists should be
+     * the ones of the current snapshot, possibly in another format, with the temporary changes
+     * merged or not. The hub bitmaps, the neighbour vertex types and the hub edge index of the
+     * current snapshot are kept, except for the vertices whose adjacency lists have temporary
+     * changes.
+     *
+     * @see #publishSnapshot(CSRAdjacencyLists, CSRAdjacencyLists, int, GraphStatistics,
+     * HubAdjacencyBitmaps, HubAdjacencyBitmaps, NeighbourVertexTypeIndex,
+     * NeighbourVertexTypeIndex, HubEdgeIndex, HubEdgeIndex)
+     */
+    private synchronized void publishSnapshot(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int highestVertexId, GraphStatistics statistics) {
+        publishSnapshot(forwardAdjLists, backwardAdjLists, highestVertexId, statistics,
+            permanentSnapshot.getHubBitmaps(Direction.FORWARD).update(forwardAdjLists,
+                forwardAdjListDeltas), permanentSnapshot.getHubBitmaps(Direction.BACKWARD).update(
+                backwardAdjLists, backwardAdjListDeltas),
+            getUpdatedNeighbourVertexTypes(Direction.FORWARD, forwardAdjLists),
+            getUpdatedNeighbourVertexTypes(Direction.BACKWARD, backwardAdjLists),
+            getUpdatedHubEdgeIndex(Direction.FORWARD, forwardAdjLists),
+            getUpdatedHubEdgeIndex(Direction.BACKWARD, backwardAdjLists));
+    }
+
+    /**
+     * Publishes a new snapshot of the permanent graph with the given adjacency lists, highest
+     * vertex ID, statistics, hub bitmaps, neighbour vertex types and hub edge index, and retires
+     * the current one. The memory-mapped files of the adjacency lists of the current snapshot
+     * that are not shared with the new one are deleted.
+     */
+    private synchronized void publishSnapshot(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int highestVertexId, GraphStatistics statistics,
+        HubAdjacencyBitmaps forwardHubBitmaps, HubAdjacencyBitmaps backwardHubBitmaps,
+        NeighbourVertexTypeIndex forwardNeighbourVertexTypes,
+        NeighbourVertexTypeIndex backwardNeighbourVertexTypes, HubEdgeIndex forwardHubEdgeIndex,
+        HubEdgeIndex backwardHubEdgeIndex) {
+        GraphSnapshot oldSnapshot = permanentSnapshot;
+        permanentSnapshot = new GraphSnapshot(forwardAdjLists, backwardAdjLists, highestVertexId,
+            statistics, forwardHubBitmaps, backwardHubBitmaps, forwardNeighbourVertexTypes,
+            backwardNeighbourVertexTypes, forwardHubEdgeIndex, backwardHubEdgeIndex);
+        for (Direction direction : Direction.values()) {
+            CSRAdjacencyLists oldAdjLists = oldSnapshot.getAdjLists(direction);
+            CSRAdjacencyLists newAdjLists = permanentSnapshot.getAdjLists(direction);
+            if (oldAdjLists != newAdjLists && !oldAdjLists.isStorageFileSharedWith(newAdjLists)) {
+                oldAdjLists.deleteStorageFile();
+            }
+        }
+    }
+
+    /**
+     * Returns the neighbour vertex types of the new permanent adjacency lists in the given {@code
+     * direction}, which are the adjacency lists of the current snapshot with the temporary changes
+     * merged or not. The tags of the unchanged adjacency lists are copied from the current
+     * snapshot, unless the type of a permanent vertex changed, in which case all the adjacency
+     * lists are tagged again.
+     *
+     * @return The neighbour vertex types, or {@code null} if the index is disabled.
+     */
+    private NeighbourVertexTypeIndex getUpdatedNeighbourVertexTypes(Direction direction,
+        CSRAdjacencyLists newAdjLists) {
+        if (!isNeighbourVertexTypeIndexEnabled) {
+            return null;
+        }
+        NeighbourVertexTypeIndex neighbourVertexTypes = permanentSnapshot.getNeighbourVertexTypes(
+            direction);
+        CSRAdjacencyLists adjLists = permanentSnapshot.getAdjLists(direction);
+        if (null != neighbourVertexTypes && retypedVertices.isEmpty()) {
+            if (adjLists == newAdjLists) {
+                return neighbourVertexTypes;
+            }
+            return NeighbourVertexTypeIndex.update(neighbourVertexTypes, adjLists, newAdjLists,
+                getAdjListDeltas(direction), vertexTypes);
+        }
+        return NeighbourVertexTypeIndex.build(newAdjLists, vertexTypes);
+    }
+
+    /**
+     * Returns the hub edge index of the new permanent adjacency lists in the given {@code
+     * direction}, which are the adjacency lists of the current snapshot with the temporary changes
+     * merged or not. Only the tables of the vertices with temporary changes are built again.
+     *
+     * @return The hub edge index, or {@code null} if the index is disabled.
+     */
+    private HubEdgeIndex getUpdatedHubEdgeIndex(Direction direction,
+        CSRAdjacencyLists newAdjLists) {
+        if (!isHubEdgeIndexEnabled) {
+            return null;
+        }
+        HubEdgeIndex hubEdgeIndex = permanentSnapshot.getHubEdgeIndex(direction);
+        return (null == hubEdgeIndex) ? HubEdgeIndex.build(newAdjLists, hubDegreeThreshold) :
+            hubEdgeIndex.update(newAdjLists, getAdjListDeltas(direction));
+    }
+
+    /**
+     * @return The neighbour vertex types of the adjacency lists of the given {@code snapshot} to
+     * read the types of the neighbours of the given {@code vertexId} with the given {@code
+     * edgeTypeFilter} from, or {@code null} if their types should be read from {@code
+     * vertexTypes}. The tags are not used while the types of permanent vertices have temporary
+     * changes, or if the adjacency list is not a view over the columns.
+     */
+    private NeighbourVertexTypeIndex getNeighbourVertexTypes(GraphSnapshot snapshot,
+        Direction direction, int vertexId, short edgeTypeFilter) {
+        if (!retypedVertices.isEmpty() || !snapshot.getAdjLists(direction).isViewOverColumns(
+            vertexId, edgeTypeFilter)) {
+            return null;
+        }
+        return snapshot.getNeighbourVertexTypes(direction);
     }
 
     /***
@@ -126,11 +329,38 @@ public class Graph implements GraphflowSerializable {
      */
     public void addVertex(int vertexId, short vertexType,
         Map<Short, Pair<DataType, String>> vertexProperties) {
-        vertexTypes.set(vertexId, vertexType);
-        VertexPropertyStore.getInstance().set(vertexId, vertexProperties);
-        highestPermanentVertexId = Integer.max(highestPermanentVertexId, vertexId);
-        highestMergedVertexId = Integer.max(highestMergedVertexId, vertexId);
-        ensureCapacity(highestMergedVertexId + 1);
+        setVertexTypeAndProperties(vertexId, vertexType, vertexProperties);
+        if (vertexId > permanentSnapshot.getHighestVertexId()) {
+            publishSnapshot(permanentSnapshot.getAdjLists(Direction.FORWARD), permanentSnapshot.
+                getAdjLists(Direction.BACKWARD), vertexId);
+        }
+    }
+
+    /**
+     * Adds the given vertices like {@link #addVertex(int, short, Map)}, but grows the vertex
+     * types and the vertex properties once to the highest of the given vertex IDs and publishes
+     * at most one new {@link GraphSnapshot}, instead of one for each vertex with a new highest
+     * vertex ID. Used by {@link CSVBulkLoader}.
+     *
+     * @param vertexIds The vertex IDs.
+     * @param vertexTypes The type of each vertex in {@code vertexIds}.
+     * @param vertexProperties The properties of each vertex in {@code vertexIds}.
+     */
+    void addVertices(int[] vertexIds, short[] vertexTypes, List<Map<Short, Pair<DataType,
+        String>>> vertexProperties) {
+        int highestVertexId = permanentSnapshot.getHighestVertexId();
+        for (int vertexId : vertexIds) {
+            highestVertexId = Integer.max(highestVertexId, vertexId);
+        }
+        this.vertexTypes.ensureCapacity(highestVertexId + 1);
+        VertexPropertyStore.getInstance().ensureCapacity(highestVertexId + 1);
+        for (int i = 0; i < vertexIds.length; i++) {
+            setVertexTypeAndProperties(vertexIds[i], vertexTypes[i], vertexProperties.get(i));
+        }
+        if (highestVertexId > permanentSnapshot.getHighestVertexId()) {
+            publishSnapshot(permanentSnapshot.getAdjLists(Direction.FORWARD), permanentSnapshot.
+                getAdjLists(Direction.BACKWARD), highestVertexId);
+        }
     }
 
     /**
@@ -160,18 +390,44 @@ public class Graph implements GraphflowSerializable {
         short toVertexType, Map<Short, Pair<DataType, String>> fromVertexProperties,
         Map<Short, Pair<DataType, String>> toVertexProperties, short edgeType,
         Map<Short, Pair<DataType, String>> edgeProperties) {
-        if ((fromVertex <= highestPermanentVertexId) && (null != forwardAdjLists[fromVertex]) &&
-            (forwardAdjLists[fromVertex].contains(toVertex, edgeType))) {
+        if ((fromVertex <= permanentSnapshot.getHighestVertexId()) && (permanentSnapshot.
+            getAdjLists(Direction.FORWARD).getAdjacencyList(fromVertex, edgeType).contains(
+            toVertex, edgeType))) {
             return; // Edge is already present. Skip.
         }
-        vertexTypes.set(fromVertex, fromVertexType);
-        vertexTypes.set(toVertex, toVertexType);
-        VertexPropertyStore.getInstance().set(fromVertex, fromVertexProperties);
-        VertexPropertyStore.getInstance().set(toVertex, toVertexProperties);
+        setVertexTypeAndProperties(fromVertex, fromVertexType, fromVertexProperties);
+        setVertexTypeAndProperties(toVertex, toVertexType, toVertexProperties);
         addOrDeleteEdgeTemporarily(true /* addition */, fromVertex, toVertex, edgeType,
             edgeProperties);
-        highestMergedVertexId = Integer.max(highestMergedVertexId, Integer.max(fromVertex,
-            toVertex));
+    }
+
+    /**
+     * Sets the type and the properties of {@code vertexId}, which are immediately permanent, and
+     * updates the {@link PropertyIndex}es and the {@link ZoneMaps} of the vertex.
+     */
+    private void setVertexTypeAndProperties(int vertexId, short vertexType,
+        Map<Short, Pair<DataType, String>> vertexProperties) {
+        PropertyIndexStore.getInstance().removeVertex(vertexId);
+        setVertexType(vertexId, vertexType);
+        VertexPropertyStore.getInstance().set(vertexId, vertexProperties);
+        highestMergedVertexId = Integer.max(highestMergedVertexId, vertexId);
+        PropertyIndexStore.getInstance().addVertex(vertexId);
+        ZoneMapStore.getInstance().setVertexProperties(vertexId, vertexProperties);
+    }
+
+    /**
+     * Sets the type of {@code vertexId} and records the old type of a permanent vertex whose type
+     * changes, so the statistics are updated by {@link #finalizeChanges()}.
+     */
+    private void setVertexType(int vertexId, short vertexType) {
+        if (vertexId <= permanentSnapshot.getHighestVertexId() && !retypedVertices.containsKey(
+            vertexId)) {
+            short oldVertexType = GraphStatistics.getVertexType(vertexTypes, vertexId);
+            if (oldVertexType != vertexType) {
+                retypedVertices.put(vertexId, oldVertexType);
+            }
+        }
+        vertexTypes.set(vertexId, vertexType);
     }
 
     /**
@@ -185,12 +441,9 @@ public class Graph implements GraphflowSerializable {
      * @throws NoSuchElementException Exception thrown when the specified edge does not exist.
      */
     public void deleteEdgeTemporarily(int fromVertex, int toVertex, short edgeType) {
-        // Check whether the edge exists in either the MERGED or the PERMANENT graph.
-        if (!((fromVertex <= highestMergedVertexId) && ((toVertex <= highestMergedVertexId) &&
-            mergedForwardAdjLists.containsKey(fromVertex) && (-1 != mergedForwardAdjLists.get
-            (fromVertex).search(toVertex, edgeType)))) && !((fromVertex <= highestPermanentVertexId)
-            && (toVertex <= highestPermanentVertexId) && (null != forwardAdjLists[fromVertex]) &&
-            (forwardAdjLists[fromVertex].contains(toVertex, edgeType)))) {
+        // Check whether the edge exists in the MERGED graph.
+        if (!isEdgePresent(fromVertex, toVertex, Direction.FORWARD, GraphVersion.MERGED,
+            edgeType)) {
             // The edge does not exist.
             throw new NoSuchElementException("The edge " + fromVertex + "->" + toVertex +
                 " does not exist.");
@@ -211,99 +464,150 @@ public class Graph implements GraphflowSerializable {
      */
     private void addOrDeleteEdgeTemporarily(boolean isAddition, int fromVertex, int toVertex,
         short edgeType, Map<Short, Pair<DataType, String>> edgeProperties) {
-        List<int[]> diffEdges = isAddition ? diffPlusEdges : diffMinusEdges;
-        ShortArrayList diffEdgeTypes = isAddition ? diffPlusEdgeTypes : diffMinusEdgeTypes;
-        LongArrayList diffEdgeIds = isAddition ? diffPlusEdgeIds : diffMinusEdgeIds;
-        // Saves the edge to the diffEdges list and the types to the diffEdgeTypes list.
-        diffEdges.add(new int[]{fromVertex, toVertex});
-        diffEdgeTypes.add(edgeType);
-        long edgeId = -1;
+        long edgeId;
         if (isAddition) {
             edgeId = EdgeStore.getInstance().addEdge(edgeProperties);
-            diffEdgeIds.add(edgeId);
         } else {
-            SortedAdjacencyList fromVertexMergedAdjList = mergedForwardAdjLists.get(fromVertex);
-            if (null != fromVertexMergedAdjList) {
-                edgeId = fromVertexMergedAdjList.getEdgeId(toVertex, edgeType);
-            } else { // edgeId is in permanentEdges
-                edgeId = forwardAdjLists[fromVertex].getEdgeId(toVertex, edgeType);
-            }
-            diffEdgeIds.add(edgeId);
+            edgeId = getMergedAdjacencyListCursor(fromVertex, permanentSnapshot.getAdjLists(
+                Direction.FORWARD), forwardAdjListDeltas, edgeType).getEdgeId(toVertex, edgeType);
         }
-        // Create the updated forward adjacency list for the vertex.
-        updateMergedAdjLists(isAddition, fromVertex, toVertex, edgeType, edgeId,
-            mergedForwardAdjLists, forwardAdjLists);
-        // Create the updated backward adjacency list for the vertex.
-        updateMergedAdjLists(isAddition, toVertex, fromVertex, edgeType, edgeId,
-            mergedBackwardAdjLists, backwardAdjLists);
+        // Saves the edge, its type and its ID to the diff edges.
+        (isAddition ? diffPlusEdges : diffMinusEdges).add(fromVertex, toVertex, edgeType, edgeId);
+        // Record the change in the forward adjacency list delta of the vertex.
+        updateAdjListDeltas(isAddition, fromVertex, toVertex, edgeType, edgeId,
+            forwardAdjListDeltas, permanentSnapshot.getAdjLists(Direction.FORWARD));
+        // Record the change in the backward adjacency list delta of the vertex.
+        updateAdjListDeltas(isAddition, toVertex, fromVertex, edgeType, edgeId,
+            backwardAdjListDeltas, permanentSnapshot.getAdjLists(Direction.BACKWARD));
     }
 
     /**
      * Temporarily performs an addition or deletion of the edge {@code fromVertex}->{@code toVertex}
-     * by updating the list {@code mergedAdjLists}, using {@code permanentAdjLists} if required.
+     * by recording it in the delta of {@code fromVertex} in {@code adjListDeltas}. The permanent
+     * adjacency list of {@code fromVertex} is not copied.
      *
      * @param isAddition {@code true} for addition, {@code false} for deletion.
      * @param fromVertex The starting vertex ID for the edge.
      * @param toVertex The ending vertex ID for the edge.
      * @param edgeType The type of the edge being added or deleted.
      * @param edgeId the ID generated by the edgeStore for the edge.
-     * @param mergedAdjLists The merged adjacency lists to modify.
-     * @param permanentAdjLists The permanent adjacency list, used if {@code fromVertex} does not
-     * already exist in {@code mergedAdjLists}.
-     */
-    private void updateMergedAdjLists(boolean isAddition, int fromVertex, int toVertex,
-        short edgeType, long edgeId, Map<Integer, SortedAdjacencyList> mergedAdjLists,
-        SortedAdjacencyList[] permanentAdjLists) {
-        if (mergedAdjLists.containsKey(fromVertex)) {
-            if (isAddition) {
-                mergedAdjLists.get(fromVertex).add(toVertex, edgeType, edgeId);
-            } else {
-                mergedAdjLists.get(fromVertex).removeNeighbour(toVertex, edgeType);
-            }
+     * @param adjListDeltas The adjacency list deltas to modify.
+     * @param permanentAdjLists The permanent adjacency lists, used to find the edge to delete.
+     */
+    private void updateAdjListDeltas(boolean isAddition, int fromVertex, int toVertex,
+        short edgeType, long edgeId, IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        CSRAdjacencyLists permanentAdjLists) {
+        AdjacencyListDelta delta = adjListDeltas.get(fromVertex);
+        if (null == delta) {
+            delta = new AdjacencyListDelta();
+            adjListDeltas.put(fromVertex, delta);
+        }
+        if (isAddition) {
+            delta.add(toVertex, edgeType, edgeId);
         } else {
-            SortedAdjacencyList updatedList = new SortedAdjacencyList();
-            if (fromVertex <= highestPermanentVertexId && null != permanentAdjLists[fromVertex]) {
-                // Copy the adjacency list from the permanent graph to the merged graph.
-                updatedList.addAll(permanentAdjLists[fromVertex]);
-            }
-            if (isAddition) {
-                updatedList.add(toVertex, edgeType, edgeId);
-            } else {
-                updatedList.removeNeighbour(toVertex, edgeType);
-            }
-            mergedAdjLists.put(fromVertex, updatedList);
+            delta.delete(toVertex, edgeType, permanentAdjLists.getAdjacencyList(fromVertex,
+                edgeType));
         }
     }
 
     /**
      * Permanently applies the temporary additions and deletions that have been applied using the
      * {@link #addEdgeTemporarily} and {@link #deleteEdgeTemporarily} methods since the previous
-     * call to this method.
+     * call to this method. The new permanent graph is published as a new {@link GraphSnapshot}
+     * once it is fully built. The statistics of the new snapshot are updated incrementally from
+     * the vertices whose adjacency lists or types changed.
+     * <p>
+     * Warning: The vertex types, the property stores and the indexes are changed in place, so
+     * this method should not be called while another thread reads the graph. The {@link
+     * ca.waterloo.dsg.graphflow.query.QueryProcessor} excludes the readers with a read/write
+     * lock.
      */
     public void finalizeChanges() {
-        // Increase the size of the adjacency lists if newly added edges have a higher
-        // vertex ID as captured by {@code highestMergedVertexId}.
-        // TODO: handle very large vertex ids.
-        ensureCapacity(highestMergedVertexId + 1);
-        highestPermanentVertexId = highestMergedVertexId;
-        // Replace the adjacency lists of permanent vertices with the merged ones.
-        for (int vertex : mergedForwardAdjLists.keySet()) {
-            forwardAdjLists[vertex] = mergedForwardAdjLists.get(vertex);
-        }
-        for (int vertex : mergedBackwardAdjLists.keySet()) {
-            backwardAdjLists[vertex] = mergedBackwardAdjLists.get(vertex);
-        }
-        // delete edgeIds from the edge store.
-        for (int i = 0; i < diffMinusEdgeIds.getSize(); ++i) {
-            EdgeStore.getInstance().deleteEdge(diffMinusEdgeIds.get(i));
-        }
-        // Reset the diff and merged graph states.
+        // Build new CSR adjacency lists by applying the deltas to the adjacency lists of the
+        // changed vertices. The new lists also cover the newly added vertices with IDs up to
+        // {@code highestMergedVertexId}. Sparse and 64-bit external vertex IDs are mapped to
+        // dense internal vertex IDs by the {@link VertexIdDictionary}, so the lists only cover
+        // the vertex IDs in use.
+        // If the adjacency lists are memory-mapped, the changed partitions are appended to their
+        // files, unless the files are compacted, in which case the new adjacency lists are written
+        // to new files and the files of the old ones are deleted when the new snapshot is
+        // published.
+        CSRAdjacencyLists forwardAdjLists = permanentSnapshot.getAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = permanentSnapshot.getAdjLists(Direction.BACKWARD);
+        boolean hasDeltas = !forwardAdjListDeltas.isEmpty() || !backwardAdjListDeltas.isEmpty();
+        if (hasDeltas) {
+            forwardAdjLists = forwardAdjLists.merge(forwardAdjListDeltas, highestMergedVertexId +
+                1, getNextStorageFile(Direction.FORWARD));
+            backwardAdjLists = backwardAdjLists.merge(backwardAdjListDeltas,
+                highestMergedVertexId + 1, getNextStorageFile(Direction.BACKWARD));
+        }
+        if (hasDeltas || !retypedVertices.isEmpty() || highestMergedVertexId !=
+            permanentSnapshot.getHighestVertexId()) {
+            publishSnapshot(forwardAdjLists, backwardAdjLists, highestMergedVertexId,
+                getUpdatedStatistics(forwardAdjLists, backwardAdjLists));
+        }
+        // Update the edge indexes and the zone maps with the permanent edges, and delete edgeIds
+        // from the edge store.
+        PropertyIndexStore propertyIndexStore = PropertyIndexStore.getInstance();
+        ZoneMapStore zoneMapStore = ZoneMapStore.getInstance();
+        for (int i = 0; i < diffPlusEdges.getSize(); ++i) {
+            propertyIndexStore.addEdge(diffPlusEdges.getVertexId(i, Direction.FORWARD),
+                diffPlusEdges.getNeighbourId(i, Direction.FORWARD), diffPlusEdges.getEdgeType(i),
+                diffPlusEdges.getEdgeId(i));
+            zoneMapStore.addEdge(diffPlusEdges.getEdgeId(i));
+        }
+        for (int i = 0; i < diffMinusEdges.getSize(); ++i) {
+            propertyIndexStore.removeEdge(diffMinusEdges.getEdgeType(i), diffMinusEdges.
+                getEdgeId(i));
+            EdgeStore.getInstance().deleteEdge(diffMinusEdges.getEdgeId(i));
+        }
+        zoneMapStore.finalizeChanges();
+        // Reset the diff and merged graph states. The IDs of the deleted edges are cleared with
+        // the edges, so they are not deleted from the edge store again by the next call.
         diffPlusEdges.clear();
         diffMinusEdges.clear();
-        diffPlusEdgeTypes.clear();
-        diffMinusEdgeTypes.clear();
-        mergedForwardAdjLists.clear();
-        mergedBackwardAdjLists.clear();
+        forwardAdjListDeltas.clear();
+        backwardAdjListDeltas.clear();
+        retypedVertices.clear();
+    }
+
+    /**
+     * @return A copy of the statistics of the current snapshot updated for the new vertices, the
+     * vertices in {@link #retypedVertices} and the vertices with adjacency list deltas, whose
+     * adjacency lists are read from the current snapshot and the given new adjacency lists.
+     */
+    private GraphStatistics getUpdatedStatistics(CSRAdjacencyLists newForwardAdjLists,
+        CSRAdjacencyLists newBackwardAdjLists) {
+        GraphStatistics statistics = permanentSnapshot.getStatistics().copy();
+        statistics.addVertices(vertexTypes, permanentSnapshot.getHighestVertexId() + 1,
+            highestMergedVertexId);
+        for (Direction direction : Direction.values()) {
+            CSRAdjacencyLists oldAdjLists = permanentSnapshot.getAdjLists(direction);
+            CSRAdjacencyLists newAdjLists = (Direction.FORWARD == direction) ?
+                newForwardAdjLists : newBackwardAdjLists;
+            IntToObjectMap<AdjacencyListDelta> adjListDeltas = getAdjListDeltas(direction);
+            for (int vertexId : adjListDeltas.getSortedKeys()) {
+                Short oldVertexType = retypedVertices.get(vertexId);
+                statistics.removeDegrees(vertexId, (null == oldVertexType) ? GraphStatistics.
+                    getVertexType(vertexTypes, vertexId) : oldVertexType, direction, oldAdjLists);
+                statistics.addDegrees(vertexId, GraphStatistics.getVertexType(vertexTypes,
+                    vertexId), direction, newAdjLists);
+            }
+            // The degrees of the retyped vertices without deltas are moved to their new types.
+            for (int vertexId : retypedVertices.getSortedKeys()) {
+                if (!adjListDeltas.containsKey(vertexId)) {
+                    statistics.removeDegrees(vertexId, retypedVertices.get(vertexId), direction,
+                        oldAdjLists);
+                    statistics.addDegrees(vertexId, GraphStatistics.getVertexType(vertexTypes,
+                        vertexId), direction, oldAdjLists);
+                }
+            }
+        }
+        for (int vertexId : retypedVertices.getSortedKeys()) {
+            statistics.changeVertexType(retypedVertices.get(vertexId), GraphStatistics.
+                getVertexType(vertexTypes, vertexId));
+        }
+        return statistics;
     }
 
     /**
@@ -321,36 +625,33 @@ public class Graph implements GraphflowSerializable {
      *
      * @return An iterator to the list of edges for the given {@code graphVersion} and {@code
      * direction}.
-     *
-     * @throws UnsupportedOperationException Exception thrown when {@code graphVersion} is {@link
-     * GraphVersion#DIFF_MINUS} or {@link GraphVersion#DIFF_PLUS} and direction is {@link
-     * Direction#BACKWARD}.
      */
     public Iterator<int[]> getEdgesIterator(GraphVersion graphVersion, Direction direction,
         short fromVertexTypeFilter, short toVertexTypeFilter, short edgeTypeFilter) {
-        if ((GraphVersion.DIFF_PLUS == graphVersion || GraphVersion.DIFF_MINUS == graphVersion) &&
-            Direction.BACKWARD == direction) {
-            throw new UnsupportedOperationException("Getting edges for the DIFF_PLUS "
-                + "or DIFF_MINUS graph in the BACKWARD direction is not supported.");
-        }
-        if (GraphVersion.DIFF_PLUS == graphVersion) {
-            return new DiffEdgesIterator(diffPlusEdges, diffPlusEdgeTypes, vertexTypes,
-                fromVertexTypeFilter, toVertexTypeFilter, edgeTypeFilter);
-        } else if (GraphVersion.DIFF_MINUS == graphVersion) {
-            return new DiffEdgesIterator(diffMinusEdges, diffMinusEdgeTypes, vertexTypes,
+        return getEdgesIterator(graphVersion, direction, fromVertexTypeFilter, toVertexTypeFilter,
+            edgeTypeFilter, null /* no from vertex filter */);
+    }
+
+    /**
+     * Returns an iterator over the edges of the graph as {@link #getEdgesIterator(GraphVersion,
+     * Direction, short, short, short)} does, except that the {@link GraphVersion#PERMANENT} and
+     * {@link GraphVersion#MERGED} edges from the blocks of vertices ruled out by the given {@code
+     * fromVertexFilter} are skipped without reading their adjacency lists.
+     *
+     * @param fromVertexFilter The filter of the from vertices, or {@code null} if no vertex is
+     * skipped.
+     */
+    public Iterator<int[]> getEdgesIterator(GraphVersion graphVersion, Direction direction,
+        short fromVertexTypeFilter, short toVertexTypeFilter, short edgeTypeFilter,
+        ZoneMapFilter fromVertexFilter) {
+        if (GraphVersion.DIFF_PLUS == graphVersion || GraphVersion.DIFF_MINUS == graphVersion) {
+            return new DiffEdgesIterator(getDiffEdges(graphVersion), direction, vertexTypes,
                 fromVertexTypeFilter, toVertexTypeFilter, edgeTypeFilter);
         } else {
-            SortedAdjacencyList[] permanentAdjacencyLists;
-            Map<Integer, SortedAdjacencyList> mergedAdjLists;
-            if (Direction.FORWARD == direction) {
-                permanentAdjacencyLists = forwardAdjLists;
-                mergedAdjLists = mergedForwardAdjLists;
-            } else {
-                permanentAdjacencyLists = backwardAdjLists;
-                mergedAdjLists = mergedBackwardAdjLists;
-            }
+            GraphSnapshot snapshot = permanentSnapshot;
+            IntToObjectMap<AdjacencyListDelta> adjListDeltas = getAdjListDeltas(direction);
             int lastVertexId = (GraphVersion.MERGED == graphVersion) ? highestMergedVertexId :
-                highestPermanentVertexId;
+                snapshot.getHighestVertexId();
 
             if (0 > lastVertexId) {
                 // Handle the case when the graph is empty.
@@ -358,9 +659,10 @@ public class Graph implements GraphflowSerializable {
                     ") call received when the graph was empty.");
                 return Collections.<int[]>emptyList().iterator();
             }
-            return new PermanentAndMergedEdgesIterator(graphVersion, permanentAdjacencyLists,
-                mergedAdjLists, vertexTypes, fromVertexTypeFilter, toVertexTypeFilter,
-                edgeTypeFilter, lastVertexId);
+            return new PermanentAndMergedEdgesIterator(graphVersion, snapshot.getAdjLists(
+                direction), adjListDeltas, vertexTypes, retypedVertices.isEmpty() ? snapshot.
+                getNeighbourVertexTypes(direction) : null, fromVertexTypeFilter,
+                toVertexTypeFilter, edgeTypeFilter, lastVertexId, fromVertexFilter);
         }
     }
 
@@ -380,30 +682,26 @@ public class Graph implements GraphflowSerializable {
     public boolean isEdgePresent(int fromVertexId, int toVertexId, Direction direction,
         GraphVersion graphVersion, short typeFilter) {
         if (GraphVersion.DIFF_MINUS == graphVersion || GraphVersion.DIFF_PLUS == graphVersion) {
-            throw new UnsupportedOperationException("Checking presence of an edge in the DIFF_PLUS "
-                + "or DIFF_MINUS graph is not supported.");
+            return getDiffEdges(graphVersion).contains(fromVertexId, toVertexId, direction,
+                typeFilter);
         }
         if (fromVertexId < 0 || fromVertexId > highestMergedVertexId || toVertexId < 0 ||
             toVertexId > highestMergedVertexId) {
             return false;
         }
-        if (GraphVersion.PERMANENT == graphVersion && (fromVertexId > highestPermanentVertexId ||
-            toVertexId > highestPermanentVertexId)) {
+        GraphSnapshot snapshot = permanentSnapshot;
+        if (GraphVersion.PERMANENT == graphVersion && (fromVertexId > snapshot.
+            getHighestVertexId() || toVertexId > snapshot.getHighestVertexId())) {
             return false;
         }
-        SortedAdjacencyList[] permanentAdjacencyLists;
-        Map<Integer, SortedAdjacencyList> mergedAdjLists;
-        if (Direction.FORWARD == direction) {
-            permanentAdjacencyLists = forwardAdjLists;
-            mergedAdjLists = mergedForwardAdjLists;
-        } else {
-            permanentAdjacencyLists = backwardAdjLists;
-            mergedAdjLists = mergedBackwardAdjLists;
+        AdjacencyListDelta delta = (GraphVersion.PERMANENT == graphVersion) ? null :
+            getAdjListDeltas(direction).get(fromVertexId);
+        if (isIndexedByHubEdgeIndex(snapshot, direction, fromVertexId, delta, typeFilter)) {
+            return -1 != getEdgeIdFromHubEdgeIndex(snapshot, direction, fromVertexId, toVertexId,
+                typeFilter, delta);
         }
-        if (graphVersion == GraphVersion.MERGED && mergedAdjLists.containsKey(fromVertexId)) {
-            return mergedAdjLists.get(fromVertexId).contains(toVertexId, typeFilter);
-        }
-        return permanentAdjacencyLists[fromVertexId].contains(toVertexId, typeFilter);
+        return getAdjacencyListCursor(fromVertexId, direction, graphVersion, typeFilter).contains(
+            toVertexId, typeFilter);
     }
 
     /**
@@ -416,21 +714,61 @@ public class Graph implements GraphflowSerializable {
      * does not exist.
      */
     public long getEdgeIdFromGraph(int srcId, int destinationId, short type) {
-        long edgeId = -1;
-        if (!mergedForwardAdjLists.isEmpty()) {
-            if (null != mergedForwardAdjLists.get(srcId)) {
-                edgeId = mergedForwardAdjLists.get(srcId).getEdgeId(destinationId, type);
-            }
+        GraphSnapshot snapshot = permanentSnapshot;
+        AdjacencyListDelta delta = forwardAdjListDeltas.get(srcId);
+        if (isIndexedByHubEdgeIndex(snapshot, Direction.FORWARD, srcId, delta, type)) {
+            return getEdgeIdFromHubEdgeIndex(snapshot, Direction.FORWARD, srcId, destinationId,
+                type, delta);
         }
-        if (-1 == edgeId) {
-            edgeId = forwardAdjLists[srcId].getEdgeId(destinationId, type);
+        return getMergedAdjacencyListCursor(srcId, snapshot.getAdjLists(Direction.FORWARD),
+            forwardAdjListDeltas, type).getEdgeId(destinationId, type);
+    }
+
+    /**
+     * @return {@code true} if the edges of the given {@code vertexId} can be looked up in the hub
+     * edge index of the given {@code snapshot}, i.e., if the vertex has a hash table and, if its
+     * adjacency list has temporary changes, the searched edge type is not {@link
+     * TypeAndPropertyKeyStore#ANY}. With {@link TypeAndPropertyKeyStore#ANY}, the first edge to
+     * the neighbour in the merged adjacency list may be deleted or added temporarily, so the
+     * adjacency list is searched instead.
+     */
+    private boolean isIndexedByHubEdgeIndex(GraphSnapshot snapshot, Direction direction,
+        int vertexId, AdjacencyListDelta delta, short edgeTypeFilter) {
+        HubEdgeIndex hubEdgeIndex = snapshot.getHubEdgeIndex(direction);
+        return null != hubEdgeIndex && hubEdgeIndex.isIndexed(vertexId) && (null == delta ||
+            TypeAndPropertyKeyStore.ANY != edgeTypeFilter);
+    }
+
+    /**
+     * Looks up the edge from the given {@code vertexId} to the given {@code neighbourId} in the
+     * hub edge index of the given {@code snapshot}, and in the temporary changes to the adjacency
+     * list of the vertex, if any.
+     *
+     * @return The ID of the edge, or -1 if there is no such edge.
+     * @see #isIndexedByHubEdgeIndex(GraphSnapshot, Direction, int, AdjacencyListDelta, short)
+     */
+    private long getEdgeIdFromHubEdgeIndex(GraphSnapshot snapshot, Direction direction,
+        int vertexId, int neighbourId, short edgeTypeFilter, AdjacencyListDelta delta) {
+        if (null != delta) {
+            SortedAdjacencyList additions = delta.getAdditions();
+            int additionsIndex = additions.search(neighbourId, edgeTypeFilter);
+            if (additionsIndex > -1) {
+                return additions.getEdgeId(additionsIndex);
+            } else if (delta.isDeleted(neighbourId, edgeTypeFilter)) {
+                return -1;
+            }
         }
-        return edgeId;
+        int offset = snapshot.getHubEdgeIndex(direction).getOffset(vertexId, neighbourId,
+            edgeTypeFilter);
+        return (offset < 0) ? -1 : snapshot.getAdjLists(direction).getEdgeId(vertexId, offset);
     }
 
     /**
      * Returns the {@link SortedAdjacencyList} for the given {@code vertexId}, {@code direction}
      * and {@code graphVersion}.
+     * Warning: If the vertex has temporary changes, its {@link GraphVersion#MERGED} adjacency list
+     * is copied into a new {@link SortedAdjacencyList}. Use {@link #getAdjacencyListCursor(int,
+     * Direction, GraphVersion)} to read it without copying.
      *
      * @param vertexId The vertex ID whose adjacency list is required.
      * @param direction The {@code Direction} of the adjacency list.
@@ -441,35 +779,126 @@ public class Graph implements GraphflowSerializable {
      */
     public SortedAdjacencyList getSortedAdjacencyList(int vertexId, Direction direction,
         GraphVersion graphVersion) {
+        assertAdjacencyListCanBeRead(vertexId, graphVersion);
+        AdjacencyListDelta delta = (GraphVersion.PERMANENT == graphVersion) ? null :
+            getAdjListDeltas(direction).get(vertexId);
+        if (null == delta) {
+            // Use a view over the adjacency list of the permanent graph. The permanent adjacency
+            // lists of the vertices with IDs larger than the highest permanent vertex ID are
+            // empty.
+            return getPermanentAdjLists(direction).getAdjacencyList(vertexId);
+        }
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(getPermanentAdjLists(
+            direction).getAdjacencyList(vertexId), delta, TypeAndPropertyKeyStore.ANY);
+        int[] neighbourIds = new int[cursor.getSize()];
+        short[] edgeTypes = new short[cursor.getSize()];
+        long[] edgeIds = new long[cursor.getSize()];
+        for (int i = 0; cursor.next(); i++) {
+            neighbourIds[i] = cursor.getNeighbourId();
+            edgeTypes[i] = cursor.getEdgeType();
+            edgeIds[i] = cursor.getEdgeId();
+        }
+        return new SortedAdjacencyList(neighbourIds, edgeTypes, edgeIds, 0 /* startIndex */,
+            neighbourIds.length);
+    }
+
+    /**
+     * Returns a {@link MergedAdjacencyListCursor} over the adjacency list of the given {@code
+     * vertexId}, for the given {@code direction} and {@code graphVersion}. For the {@link
+     * GraphVersion#MERGED} graph, the cursor merges the permanent adjacency list with the
+     * temporary changes to it without copying it.
+     *
+     * @param vertexId The vertex ID whose adjacency list is required.
+     * @param direction The {@code Direction} of the adjacency list.
+     * @param graphVersion The {@code GraphVersion} to consider.
+     *
+     * @return The cursor over the adjacency list for the vertex with the given {@code vertexId},
+     * for the given {@code graphVersion} and {@code direction}.
+     */
+    public MergedAdjacencyListCursor getAdjacencyListCursor(int vertexId, Direction direction,
+        GraphVersion graphVersion) {
+        return getAdjacencyListCursor(vertexId, direction, graphVersion,
+            TypeAndPropertyKeyStore.ANY);
+    }
+
+    /**
+     * Returns a {@link MergedAdjacencyListCursor} over the neighbours of the given {@code
+     * vertexId} with the given {@code edgeTypeFilter}. For a specific edge type, only the segment
+     * of that type of the permanent adjacency list is read.
+     *
+     * @param vertexId The vertex ID whose adjacency list is required.
+     * @param direction The {@code Direction} of the adjacency list.
+     * @param graphVersion The {@code GraphVersion} to consider.
+     * @param edgeTypeFilter The type of the edges, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return The cursor over the adjacency list for the vertex with the given {@code vertexId},
+     * for the given {@code graphVersion}, {@code direction} and {@code edgeTypeFilter}.
+     */
+    public MergedAdjacencyListCursor getAdjacencyListCursor(int vertexId, Direction direction,
+        GraphVersion graphVersion, short edgeTypeFilter) {
+        assertAdjacencyListCanBeRead(vertexId, graphVersion);
+        GraphSnapshot snapshot = permanentSnapshot;
+        AdjacencyListDelta delta = (GraphVersion.PERMANENT == graphVersion) ? null :
+            getAdjListDeltas(direction).get(vertexId);
+        return new MergedAdjacencyListCursor(snapshot.getAdjLists(direction).getAdjacencyList(
+            vertexId, edgeTypeFilter), delta, edgeTypeFilter, snapshot.getHubBitmaps(direction),
+            vertexId, getNeighbourVertexTypes(snapshot, direction, vertexId, edgeTypeFilter));
+    }
+
+    private void assertAdjacencyListCanBeRead(int vertexId, GraphVersion graphVersion) {
         if (vertexId < 0 || vertexId > highestMergedVertexId) {
             throw new NoSuchElementException(vertexId + " does not exist.");
-        } else if (GraphVersion.PERMANENT == graphVersion && vertexId > highestPermanentVertexId) {
-            // The vertexId's adj list has not been added yet. vertexId > highestPermanentVertexId
-            return new SortedAdjacencyList();
         } else if (GraphVersion.DIFF_MINUS == graphVersion || GraphVersion.DIFF_PLUS ==
             graphVersion) {
             throw new UnsupportedOperationException("Getting adjacency lists from the DIFF_PLUS "
                 + "or DIFF_MINUS graph is not supported.");
         }
-        SortedAdjacencyList[] permanentAdjList;
-        Map<Integer, SortedAdjacencyList> mergedAdjLists;
-        if (Direction.FORWARD == direction) {
-            permanentAdjList = forwardAdjLists;
-            mergedAdjLists = mergedForwardAdjLists;
-        } else {
-            permanentAdjList = backwardAdjLists;
-            mergedAdjLists = mergedBackwardAdjLists;
-        }
-        if (GraphVersion.MERGED == graphVersion && mergedAdjLists.containsKey(vertexId)) {
-            // Use the adjacency list of the merged graph.
-            return mergedAdjLists.get(vertexId);
-        } else if (vertexId <= highestPermanentVertexId) {
-            // Use the adjacency list of the permanent graph.
-            return permanentAdjList[vertexId];
-        } else {
-            // The vertexId's adj list has not been added yet. vertexId > highestPermanentVertexId
-            return new SortedAdjacencyList();
+    }
+
+    private MergedAdjacencyListCursor getMergedAdjacencyListCursor(int vertexId,
+        CSRAdjacencyLists permanentAdjLists, IntToObjectMap<AdjacencyListDelta> adjListDeltas,
+        short edgeTypeFilter) {
+        return new MergedAdjacencyListCursor(permanentAdjLists.getAdjacencyList(vertexId,
+            edgeTypeFilter), adjListDeltas.get(vertexId), edgeTypeFilter);
+    }
+
+    private IntToObjectMap<AdjacencyListDelta> getAdjListDeltas(Direction direction) {
+        return (Direction.FORWARD == direction) ? forwardAdjListDeltas : backwardAdjListDeltas;
+    }
+
+    /**
+     * Returns the size of the adjacency list of the given {@code vertexId}, for the given {@code
+     * direction} and {@code graphVersion}, without creating a view over the permanent adjacency
+     * list.
+     *
+     * @see #getSortedAdjacencyList(int, Direction, GraphVersion)
+     */
+    public int getAdjacencyListSize(int vertexId, Direction direction,
+        GraphVersion graphVersion) {
+        return getAdjacencyListSize(vertexId, direction, graphVersion,
+            TypeAndPropertyKeyStore.ANY);
+    }
+
+    /**
+     * Returns the number of neighbours of the given {@code vertexId} with the given {@code
+     * edgeTypeFilter}, for the given {@code direction} and {@code graphVersion}. For a specific
+     * edge type, the size is read from the type offset table of the permanent adjacency lists.
+     *
+     * @see #getAdjacencyListSize(int, Direction, GraphVersion)
+     */
+    public int getAdjacencyListSize(int vertexId, Direction direction,
+        GraphVersion graphVersion, short edgeTypeFilter) {
+        if (GraphVersion.MERGED != graphVersion && GraphVersion.PERMANENT != graphVersion) {
+            return getSortedAdjacencyList(vertexId, direction, graphVersion).getSize();
+        }
+        int size = getPermanentAdjLists(direction).getSize(vertexId, edgeTypeFilter);
+        if (GraphVersion.MERGED == graphVersion) {
+            AdjacencyListDelta delta = getAdjListDeltas(direction).get(vertexId);
+            if (null != delta) {
+                size += delta.getSizeDifference(edgeTypeFilter);
+            }
         }
+        return size;
     }
 
     /**
@@ -478,7 +907,7 @@ public class Graph implements GraphflowSerializable {
      *
      * @param graphVersion The vertices in the diffPlus or diffMinus in the graph.
      */
-    public List<int[]> getDiffEdges(GraphVersion graphVersion) {
+    private DiffEdges getDiffEdges(GraphVersion graphVersion) {
         if (graphVersion != GraphVersion.DIFF_PLUS && graphVersion != GraphVersion.DIFF_MINUS) {
             throw new IllegalArgumentException("The graph version should be " + GraphVersion.
                 DIFF_PLUS.name() + " or " + GraphVersion.DIFF_MINUS.name() + ".");
@@ -495,32 +924,291 @@ public class Graph implements GraphflowSerializable {
     }
 
     /**
-     * Checks if the permanent capacity exceeds {@code minCapacity} and increases the capacity if it
-     * doesn't.
+     * Replaces the permanent adjacency lists of the graph with the given ones, which are built
+     * outside of the graph, e.g., by {@link CSVBulkLoader}. There should be no temporary changes
+     * that have not been finalized when this method is called.
+     *
+     * @param forwardAdjLists The new forward adjacency lists.
+     * @param backwardAdjLists The new backward adjacency lists.
+     * @param highestVertexId The highest vertex ID of the graph after the replacement.
+     */
+    void setPermanentAdjLists(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int highestVertexId) {
+        if (isAdjacencyListCompressionEnabled) {
+            forwardAdjLists = forwardAdjLists.compress();
+            backwardAdjLists = backwardAdjLists.compress();
+        }
+        if (null != adjacencyListStorageDirectory) {
+            forwardAdjLists = forwardAdjLists.mapToFile(getNextStorageFile(Direction.FORWARD));
+            backwardAdjLists = backwardAdjLists.mapToFile(getNextStorageFile(
+                Direction.BACKWARD));
+        }
+        highestVertexId = Integer.max(permanentSnapshot.getHighestVertexId(), highestVertexId);
+        publishSnapshot(forwardAdjLists, backwardAdjLists, highestVertexId, GraphStatistics.build(
+            forwardAdjLists, backwardAdjLists, vertexTypes, highestVertexId),
+            HubAdjacencyBitmaps.build(forwardAdjLists, hubDegreeThreshold),
+            HubAdjacencyBitmaps.build(backwardAdjLists, hubDegreeThreshold),
+            buildNeighbourVertexTypes(forwardAdjLists),
+            buildNeighbourVertexTypes(backwardAdjLists), buildHubEdgeIndex(forwardAdjLists),
+            buildHubEdgeIndex(backwardAdjLists));
+        highestMergedVertexId = Integer.max(highestMergedVertexId, highestVertexId);
+        retypedVertices.clear();
+    }
+
+    /**
+     * Relabels each vertex v of the graph to {@code newVertexIds[v]}: the permanent adjacency lists
+     * and the vertex types are rewritten with the new vertex IDs, and the statistics, hub bitmaps
+     * and indexes of the adjacency lists are built again. Used by {@link GraphReorderer}, which
+     * also relabels the {@link VertexPropertyStore} and the {@link VertexIdDictionary}. There
+     * should be no temporary changes that have not been finalized when this method is called.
+     *
+     * @param newVertexIds A permutation of [0, {@link #getHighestVertexId()}].
+     */
+    void relabelVertices(int[] newVertexIds) {
+        short[] oldVertexTypes = new short[newVertexIds.length];
+        for (int vertexId = 0; vertexId < newVertexIds.length; vertexId++) {
+            oldVertexTypes[vertexId] = GraphStatistics.getVertexType(vertexTypes, vertexId);
+        }
+        // The types are rewritten in place, as operators may hold a reference to {@code
+        // vertexTypes}.
+        for (int vertexId = 0; vertexId < newVertexIds.length; vertexId++) {
+            vertexTypes.set(newVertexIds[vertexId], oldVertexTypes[vertexId]);
+        }
+        setPermanentAdjLists(getPermanentAdjLists(Direction.FORWARD).relabel(newVertexIds),
+            getPermanentAdjLists(Direction.BACKWARD).relabel(newVertexIds),
+            newVertexIds.length - 1 /* highest vertex ID */);
+    }
+
+    /**
+     * Enables or disables the compression of the permanent adjacency lists. Compressed adjacency
+     * lists store the neighbour IDs and edge IDs with delta and variable-byte encoding and do not
+     * store the edge types per edge, which uses less memory at the cost of decoding the
+     * neighbours when they are read. The current permanent adjacency lists are compressed or
+     * decompressed immediately, and the adjacency lists built by {@link #finalizeChanges()} keep
+     * the same format. Compression is enabled in each new graph if the system property {@link
+     * #COMPRESSION_PROPERTY} is {@code true}.
+     *
+     * @param isEnabled {@code true} to compress the adjacency lists, {@code false} otherwise.
+     *
+     * @throws IllegalStateException If compression is enabled while the adjacency lists are
+     * stored in memory-mapped files.
+     */
+    public void setAdjacencyListCompression(boolean isEnabled) {
+        if (isEnabled && null != adjacencyListStorageDirectory) {
+            throw new IllegalStateException("Memory-mapped adjacency lists cannot be "
+                + "compressed.");
+        }
+        isAdjacencyListCompressionEnabled = isEnabled;
+        CSRAdjacencyLists forwardAdjLists = permanentSnapshot.getAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = permanentSnapshot.getAdjLists(Direction.BACKWARD);
+        publishSnapshot(isEnabled ? forwardAdjLists.compress() : forwardAdjLists.decompress(),
+            isEnabled ? backwardAdjLists.compress() : backwardAdjLists.decompress(),
+            permanentSnapshot.getHighestVertexId());
+    }
+
+    /**
+     * @return {@code true} if the permanent adjacency lists are compressed, {@code false}
+     * otherwise.
+     */
+    public boolean isAdjacencyListCompressionEnabled() {
+        return isAdjacencyListCompressionEnabled;
+    }
+
+    /**
+     * Sets the minimum number of neighbours of the hub vertices, whose adjacency lists are also
+     * kept as compressed bitmaps of their neighbour IDs. An adjacency list, or the segment of an
+     * adjacency list of one edge type, with at least this many neighbours is intersected by
+     * probing its bitmap, which is built when the adjacency list is finalized. Lower thresholds
+     * speed up the intersections with more adjacency lists at the cost of the memory of their
+     * bitmaps. The bitmaps of the current permanent adjacency lists and the hash tables of the hub
+     * edge index, if it is enabled, are built again for the new threshold. The threshold of
+     * each new graph is given by the system property {@link #HUB_DEGREE_THRESHOLD_PROPERTY}, or is
+     * {@link #DEFAULT_HUB_DEGREE_THRESHOLD} if it is not set.
+     *
+     * @param degreeThreshold The minimum number of neighbours of the adjacency lists that are
+     * kept as bitmaps.
+     *
+     * @throws IllegalArgumentException If {@code degreeThreshold} is smaller than 1.
+     */
+    public void setHubDegreeThreshold(int degreeThreshold) {
+        if (degreeThreshold < 1) {
+            throw new IllegalArgumentException("The hub degree threshold should be positive.");
+        }
+        hubDegreeThreshold = degreeThreshold;
+        publishSnapshot(permanentSnapshot.getAdjLists(Direction.FORWARD), permanentSnapshot.
+            getAdjLists(Direction.BACKWARD), permanentSnapshot.getHighestVertexId(),
+            permanentSnapshot.getStatistics(), HubAdjacencyBitmaps.build(permanentSnapshot.
+                getAdjLists(Direction.FORWARD), degreeThreshold), HubAdjacencyBitmaps.build(
+                permanentSnapshot.getAdjLists(Direction.BACKWARD), degreeThreshold),
+            permanentSnapshot.getNeighbourVertexTypes(
+                Direction.FORWARD), permanentSnapshot.getNeighbourVertexTypes(
+                Direction.BACKWARD), buildHubEdgeIndex(permanentSnapshot.getAdjLists(
+                Direction.FORWARD)), buildHubEdgeIndex(permanentSnapshot.getAdjLists(
+                Direction.BACKWARD)));
+    }
+
+    /**
+     * @return The minimum number of neighbours of the adjacency lists that are also kept as
+     * bitmaps.
+     */
+    public int getHubDegreeThreshold() {
+        return hubDegreeThreshold;
+    }
+
+    /**
+     * Enables or disables the tagging of the permanent adjacency lists with the types of the
+     * neighbour vertices. Tagged adjacency lists are filtered by the type of the neighbours, e.g.,
+     * by {@link ca.waterloo.dsg.graphflow.query.operator.Extend} and {@link
+     * ca.waterloo.dsg.graphflow.query.operator.Scan}, by reading the contiguous tags of the
+     * neighbours instead of looking up the type of each neighbour, at the cost of 2 bytes per
+     * edge. The current permanent adjacency lists are tagged, or their tags dropped, immediately,
+     * and the adjacency lists built by {@link #finalizeChanges()} are tagged incrementally. The
+     * tags are enabled in each new graph if the system property {@link
+     * #NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY} is {@code true}.
      *
-     * @param minCapacity The minimum required size of the arrays.
+     * @param isEnabled {@code true} to tag the adjacency lists, {@code false} otherwise.
+     */
+    public void setNeighbourVertexTypeIndex(boolean isEnabled) {
+        isNeighbourVertexTypeIndexEnabled = isEnabled;
+        CSRAdjacencyLists forwardAdjLists = permanentSnapshot.getAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = permanentSnapshot.getAdjLists(Direction.BACKWARD);
+        publishSnapshot(forwardAdjLists, backwardAdjLists, permanentSnapshot.getHighestVertexId(),
+            permanentSnapshot.getStatistics(), permanentSnapshot.getHubBitmaps(
+                Direction.FORWARD), permanentSnapshot.getHubBitmaps(Direction.BACKWARD),
+            buildNeighbourVertexTypes(forwardAdjLists), buildNeighbourVertexTypes(
+                backwardAdjLists), permanentSnapshot.getHubEdgeIndex(Direction.FORWARD),
+            permanentSnapshot.getHubEdgeIndex(Direction.BACKWARD));
+    }
+
+    /**
+     * @return {@code true} if the permanent adjacency lists are tagged with the types of the
+     * neighbour vertices, {@code false} otherwise.
+     */
+    public boolean isNeighbourVertexTypeIndexEnabled() {
+        return isNeighbourVertexTypeIndexEnabled;
+    }
+
+    /**
+     * @return The neighbour vertex types of the given {@code adjLists}, or {@code null} if the
+     * index is disabled.
+     */
+    private NeighbourVertexTypeIndex buildNeighbourVertexTypes(CSRAdjacencyLists adjLists) {
+        return isNeighbourVertexTypeIndexEnabled ? NeighbourVertexTypeIndex.build(adjLists,
+            vertexTypes) : null;
+    }
+
+    /**
+     * Enables or disables the hash tables of the edges of the hub vertices, which have at least
+     * {@link #getHubDegreeThreshold()} neighbours. {@link #isEdgePresent(int, int, Direction,
+     * GraphVersion, short)} and {@link #getEdgeIdFromGraph(int, int, short)} look up the edges of
+     * a hub in its table in constant time instead of searching its adjacency list, at the cost of
+     * the memory of the tables. The tables of the current permanent adjacency lists are built, or
+     * dropped, immediately, and {@link #finalizeChanges()} only builds the tables of the hubs whose
+     * adjacency lists changed. The tables are enabled in each new graph if the system property
+     * {@link #HUB_EDGE_INDEX_PROPERTY} is {@code true}.
+     *
+     * @param isEnabled {@code true} to keep the hash tables, {@code false} otherwise.
+     */
+    public void setHubEdgeIndex(boolean isEnabled) {
+        isHubEdgeIndexEnabled = isEnabled;
+        CSRAdjacencyLists forwardAdjLists = permanentSnapshot.getAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = permanentSnapshot.getAdjLists(Direction.BACKWARD);
+        publishSnapshot(forwardAdjLists, backwardAdjLists, permanentSnapshot.getHighestVertexId(),
+            permanentSnapshot.getStatistics(), permanentSnapshot.getHubBitmaps(
+                Direction.FORWARD), permanentSnapshot.getHubBitmaps(Direction.BACKWARD),
+            permanentSnapshot.getNeighbourVertexTypes(Direction.FORWARD), permanentSnapshot.
+                getNeighbourVertexTypes(Direction.BACKWARD), buildHubEdgeIndex(forwardAdjLists),
+            buildHubEdgeIndex(backwardAdjLists));
+    }
+
+    /**
+     * @return {@code true} if the edges of the hub vertices are kept in hash tables, {@code
+     * false} otherwise.
+     */
+    public boolean isHubEdgeIndexEnabled() {
+        return isHubEdgeIndexEnabled;
+    }
+
+    /**
+     * @return The hub edge index of the given {@code adjLists}, or {@code null} if the index is
+     * disabled.
      */
-    private void ensureCapacity(int minCapacity) {
-        int oldCapacity = forwardAdjLists.length;
-        forwardAdjLists = (SortedAdjacencyList[]) ArrayUtils.resizeIfNecessary(forwardAdjLists,
-            minCapacity);
-        backwardAdjLists = (SortedAdjacencyList[]) ArrayUtils.resizeIfNecessary(backwardAdjLists,
-            minCapacity);
-        initializeSortedAdjacencyLists(oldCapacity, forwardAdjLists.length);
+    private HubEdgeIndex buildHubEdgeIndex(CSRAdjacencyLists adjLists) {
+        return isHubEdgeIndexEnabled ? HubEdgeIndex.build(adjLists, hubDegreeThreshold) : null;
     }
 
     /**
-     * Initializes {@link Graph#forwardAdjLists} and {@link Graph#backwardAdjLists} with empty
-     * {@link SortedAdjacencyList} in the range given by {@code startIndex} and {@code endIndex}.
+     * Sets the directory in which the columns of the permanent adjacency lists are stored as
+     * memory-mapped files, so that they do not use the Java heap and the operating system pages
+     * them in and out of memory as they are read. Only the offsets and the type offset tables of
+     * the adjacency lists, which are proportional to the number of vertices, and the {@link
+     * AdjacencyListDelta}s of the {@link GraphVersion#MERGED} graph stay on the heap. The current
+     * permanent adjacency lists are moved to the new directory, or back into the heap if the
+     * directory is {@code null}, immediately. Each call to {@link #finalizeChanges()} appends the
+     * changed partitions of the adjacency lists to their files, which are rewritten to new files
+     * once they hold mostly unused partitions. Each new graph
+     * stores its adjacency lists in the directory given by the system property {@link
+     * #STORAGE_DIRECTORY_PROPERTY}, if it is set.
+     *
+     * @param directoryPath The path of the directory, or {@code null} to store the adjacency
+     * lists on the heap.
      *
-     * @param startIndex The start index for initializing {@link SortedAdjacencyList}, inclusive.
-     * @param endIndex The end index for initializing {@link SortedAdjacencyList}, exclusive.
+     * @throws IllegalStateException If the adjacency lists are compressed.
+     */
+    public void setAdjacencyListStorageDirectory(String directoryPath) {
+        if (null != directoryPath && isAdjacencyListCompressionEnabled) {
+            throw new IllegalStateException("Compressed adjacency lists cannot be "
+                + "memory-mapped.");
+        }
+        adjacencyListStorageDirectory = directoryPath;
+        CSRAdjacencyLists forwardAdjLists = permanentSnapshot.getAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = permanentSnapshot.getAdjLists(Direction.BACKWARD);
+        if (null == directoryPath) {
+            forwardAdjLists = forwardAdjLists.loadIntoHeap();
+            backwardAdjLists = backwardAdjLists.loadIntoHeap();
+        } else {
+            forwardAdjLists = forwardAdjLists.mapToFile(getNextStorageFile(Direction.FORWARD));
+            backwardAdjLists = backwardAdjLists.mapToFile(getNextStorageFile(
+                Direction.BACKWARD));
+        }
+        publishSnapshot(forwardAdjLists, backwardAdjLists, permanentSnapshot.
+            getHighestVertexId());
+    }
+
+    /**
+     * @return The directory in which the permanent adjacency lists are stored as memory-mapped
+     * files, or {@code null} if they are stored on the heap.
+     */
+    public String getAdjacencyListStorageDirectory() {
+        return adjacencyListStorageDirectory;
+    }
+
+    /**
+     * @return A new file in {@code adjacencyListStorageDirectory} to store the permanent adjacency
+     * lists in the given {@code direction}, or {@code null} if they are stored on the heap.
      */
-    private void initializeSortedAdjacencyLists(int startIndex, int endIndex) {
-        for (int i = startIndex; i < endIndex; ++i) {
-            forwardAdjLists[i] = new SortedAdjacencyList();
-            backwardAdjLists[i] = new SortedAdjacencyList();
+    private File getNextStorageFile(Direction direction) {
+        if (null == adjacencyListStorageDirectory) {
+            return null;
+        }
+        File directory = new File(adjacencyListStorageDirectory);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create the directory " +
+                adjacencyListStorageDirectory + ".");
         }
+        return new File(SerDeUtils.getArrayFilePath(adjacencyListStorageDirectory,
+            getMainFileNamePrefix(), direction.name().toLowerCase() + "_adjacency_lists_" +
+                numStorageFiles++));
+    }
+
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The permanent adjacency lists of the graph in the given {@code direction}, from the
+     * current snapshot.
+     */
+    CSRAdjacencyLists getPermanentAdjLists(Direction direction) {
+        return permanentSnapshot.getAdjLists(direction);
     }
 
     @UsedOnlyByTests
@@ -536,18 +1224,17 @@ public class Graph implements GraphflowSerializable {
     @Override
     public String toString() {
         String graph = "Forward Adjacency Lists:" + System.lineSeparator() +
-            convertPermanentAdjListsToString(forwardAdjLists);
+            convertPermanentAdjListsToString(getPermanentAdjLists(Direction.FORWARD));
         graph += "Backward Adjacency Lists:" + System.lineSeparator() +
-            convertPermanentAdjListsToString(backwardAdjLists);
-        graph += "Temporarily added edges: " + convertDiffEdgesToString(diffPlusEdges) + System.
+            convertPermanentAdjListsToString(getPermanentAdjLists(Direction.BACKWARD));
+        graph += "Temporarily added edges: " + diffPlusEdges + System.lineSeparator();
+        graph += "Temporarily deleted edges: " + diffMinusEdges + System.lineSeparator();
+        graph += "Forward Adjacency List Deltas: " + convertAdjListDeltasToString(
+            forwardAdjListDeltas);
+        graph += "Backward Adjacency List Deltas: " + convertAdjListDeltasToString(
+            backwardAdjListDeltas);
+        graph += "highestPermanentVertexId = " + permanentSnapshot.getHighestVertexId() + System.
             lineSeparator();
-        graph += "Temporarily deleted edges: " + convertDiffEdgesToString(diffMinusEdges) +
-            System.lineSeparator();
-        graph += "Merged Forward Adjacency Lists: " + convertMergedAdjListsToString(
-            mergedForwardAdjLists);
-        graph += "Merged Backward Adjacency Lists: " + convertMergedAdjListsToString(
-            mergedBackwardAdjLists);
-        graph += "highestPermanentVertexId = " + highestPermanentVertexId + System.lineSeparator();
         graph += "highestMergedVertexId = " + highestMergedVertexId + System.lineSeparator();
         return graph;
     }
@@ -559,58 +1246,43 @@ public class Graph implements GraphflowSerializable {
      *
      * @return The{@code String} representation of {@code permanentAdjLists}.
      */
-    private String convertPermanentAdjListsToString(SortedAdjacencyList[] permanentAdjLists) {
+    private String convertPermanentAdjListsToString(CSRAdjacencyLists permanentAdjLists) {
         StringBuilder adjString = new StringBuilder();
-        for (int index = 0; index <= highestPermanentVertexId; index++) {
-            SortedAdjacencyList adjList = permanentAdjLists[index];
+        for (int index = 0; index < getVertexCount(); index++) {
             adjString.append(index).append(": ");
-            adjString.append((null == adjList) ? "[]" : adjList.toString());
+            adjString.append(permanentAdjLists.getAdjacencyList(index).toString());
             adjString.append(System.lineSeparator());
         }
         return adjString.toString();
     }
 
     /**
-     * Converts the merged adjacency lists {@code mergedAdjLists} to a {@code String}.
+     * Converts the adjacency list deltas {@code adjListDeltas} to a {@code String}.
      *
-     * @param mergedAdjLists The merged adjacency list to convert to a {@code String}.
+     * @param adjListDeltas The adjacency list deltas to convert to a {@code String}.
      *
-     * @return The {@code String} representation of {@code permanentAdjLists}.
+     * @return The {@code String} representation of {@code adjListDeltas}.
      */
-    private String convertMergedAdjListsToString(Map<Integer, SortedAdjacencyList> mergedAdjLists) {
+    private String convertAdjListDeltasToString(IntToObjectMap<AdjacencyListDelta> adjListDeltas) {
         StringBuilder adjString = new StringBuilder();
-        for (int index : mergedAdjLists.keySet()) {
-            SortedAdjacencyList adjList = mergedAdjLists.get(index);
+        for (int index : adjListDeltas.getSortedKeys()) {
+            AdjacencyListDelta delta = adjListDeltas.get(index);
             adjString.append(index).append(": ");
-            adjString.append((null == adjList) ? "[]" : adjList.toString());
+            adjString.append((null == delta) ? "[]" : delta.toString());
             adjString.append(System.lineSeparator());
         }
         return adjString.toString();
     }
 
-    /**
-     * Converts the list of diff edges {@code diffEdges} to a {@code String}.
-     *
-     * @param diffEdges The list of diff edges to convert to a {@code String}.
-     *
-     * @return The {@code String} representation of {@code diffEdges}.
-     */
-    private String convertDiffEdgesToString(List<int[]> diffEdges) {
-        StringJoiner stringJoiner = new StringJoiner(",");
-        for (int[] edge : diffEdges) {
-            stringJoiner.add(Arrays.toString(edge));
-        }
-        return "[" + stringJoiner.toString() + "]";
-    }
-
     @Override
     public void serializeAll(String outputDirectoryPath) throws IOException, InterruptedException {
         finalizeChanges();
-        ParallelArraySerDeUtils parallelArraySerDeHelper = new GraphParallelSerDeUtils(
-            outputDirectoryPath, forwardAdjLists, backwardAdjLists, highestPermanentVertexId + 1);
-        parallelArraySerDeHelper.startSerialization();
+        GraphParallelSerDeUtils graphParallelSerDeHelper = new GraphParallelSerDeUtils(
+            outputDirectoryPath);
+        graphParallelSerDeHelper.startSerialization(permanentSnapshot.getAdjLists(
+            Direction.FORWARD), permanentSnapshot.getAdjLists(Direction.BACKWARD));
         MainFileSerDeHelper.serialize(this, outputDirectoryPath);
-        parallelArraySerDeHelper.finishSerDe();
+        graphParallelSerDeHelper.finishSerDe();
     }
 
     @Override
@@ -618,31 +1290,55 @@ public class Graph implements GraphflowSerializable {
         ClassNotFoundException,
         InterruptedException {
         MainFileSerDeHelper.deserialize(this, inputDirectoryPath);
-        ParallelArraySerDeUtils parallelArraySerDeHelper = new GraphParallelSerDeUtils(
-            inputDirectoryPath, forwardAdjLists, backwardAdjLists, highestPermanentVertexId + 1);
-        parallelArraySerDeHelper.startDeserialization();
-        parallelArraySerDeHelper.finishSerDe();
+        // If the adjacency lists were memory-mapped, the saved files are mapped directly instead
+        // of being read. They are not modified, and the adjacency lists built by {@link
+        // #finalizeChanges()} are written to new files in the storage directory.
+        GraphParallelSerDeUtils graphParallelSerDeHelper = new GraphParallelSerDeUtils(
+            inputDirectoryPath);
+        graphParallelSerDeHelper.startDeserialization(null != adjacencyListStorageDirectory);
+        graphParallelSerDeHelper.finishSerDe();
+        // The statistics are not saved, but are rebuilt from the deserialized graph.
+        CSRAdjacencyLists forwardAdjLists = graphParallelSerDeHelper.getAdjLists(
+            Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = graphParallelSerDeHelper.getAdjLists(
+            Direction.BACKWARD);
+        publishSnapshot(forwardAdjLists, backwardAdjLists, permanentSnapshot.getHighestVertexId(),
+            GraphStatistics.build(forwardAdjLists, backwardAdjLists, vertexTypes,
+                permanentSnapshot.getHighestVertexId()), HubAdjacencyBitmaps.build(
+                forwardAdjLists, hubDegreeThreshold), HubAdjacencyBitmaps.build(
+                backwardAdjLists, hubDegreeThreshold),
+            buildNeighbourVertexTypes(forwardAdjLists), buildNeighbourVertexTypes(
+                backwardAdjLists), buildHubEdgeIndex(forwardAdjLists), buildHubEdgeIndex(
+                backwardAdjLists));
+        // The adjacency lists are deserialized uncompressed.
+        setAdjacencyListCompression(isAdjacencyListCompressionEnabled);
     }
 
     @Override
     public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
-        objectOutputStream.writeInt(highestPermanentVertexId);
-        objectOutputStream.writeInt(forwardAdjLists.length);
-        objectOutputStream.writeInt(backwardAdjLists.length);
+        objectOutputStream.writeInt(permanentSnapshot.getHighestVertexId());
         vertexTypes.serialize(objectOutputStream);
+        objectOutputStream.writeBoolean(isAdjacencyListCompressionEnabled);
+        objectOutputStream.writeObject(adjacencyListStorageDirectory);
+        objectOutputStream.writeInt(hubDegreeThreshold);
+        objectOutputStream.writeBoolean(isNeighbourVertexTypeIndexEnabled);
+        objectOutputStream.writeBoolean(isHubEdgeIndexEnabled);
     }
 
     @Override
     public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException,
         ClassNotFoundException {
-        highestPermanentVertexId = objectInputStream.readInt();
-        highestMergedVertexId = highestPermanentVertexId;
-        int forwardAdjListsLength = objectInputStream.readInt();
-        int backwardAdjListsLength = objectInputStream.readInt();
-        forwardAdjLists = new SortedAdjacencyList[forwardAdjListsLength];
-        backwardAdjLists = new SortedAdjacencyList[backwardAdjListsLength];
-        initializeSortedAdjacencyLists(0, highestPermanentVertexId + 1);
+        // The adjacency lists are published with the highest vertex ID once they are read by
+        // {@link #deserializeAll(String)}.
+        highestMergedVertexId = objectInputStream.readInt();
+        publishSnapshot(permanentSnapshot.getAdjLists(Direction.FORWARD), permanentSnapshot.
+            getAdjLists(Direction.BACKWARD), highestMergedVertexId);
         vertexTypes.deserialize(objectInputStream);
+        isAdjacencyListCompressionEnabled = objectInputStream.readBoolean();
+        adjacencyListStorageDirectory = (String) objectInputStream.readObject();
+        hubDegreeThreshold = objectInputStream.readInt();
+        isNeighbourVertexTypeIndexEnabled = objectInputStream.readBoolean();
+        isHubEdgeIndexEnabled = objectInputStream.readBoolean();
     }
 
     @Override
@@ -681,19 +1377,14 @@ public class Graph implements GraphflowSerializable {
         if (null == a || null == b) {
             return false;
         }
-        if (a.highestPermanentVertexId != b.highestPermanentVertexId ||
+        if (a.permanentSnapshot.getHighestVertexId() != b.permanentSnapshot.getHighestVertexId() ||
             a.highestMergedVertexId != b.highestMergedVertexId ||
             !ShortArrayList.isSameAs(a.vertexTypes, b.vertexTypes)) {
             return false;
         }
-        for (int i = 0; i < a.highestPermanentVertexId; i++) {
-            if (!SortedAdjacencyList.isSameAs(a.forwardAdjLists[i], b.forwardAdjLists[i])) {
-                return false;
-            }
-            if (!SortedAdjacencyList.isSameAs(a.backwardAdjLists[i], b.backwardAdjLists[i])) {
-                return false;
-            }
-        }
-        return true;
+        return CSRAdjacencyLists.isSameAs(a.permanentSnapshot.getAdjLists(Direction.FORWARD),
+            b.permanentSnapshot.getAdjLists(Direction.FORWARD)) && CSRAdjacencyLists.isSameAs(
+            a.permanentSnapshot.getAdjLists(Direction.BACKWARD), b.permanentSnapshot.getAdjLists(
+            Direction.BACKWARD));
     }
 }
@@ -8,26 +8,32 @@ import java.io.IOException;
 
 /**
  * Used to reset, serialize, or deserialize {@link Graph}, {@link EdgeStore},
- * {@link VertexPropertyStore}, and {@link TypeAndPropertyKeyStore}.
+ * {@link VertexPropertyStore}, {@link TypeAndPropertyKeyStore}, {@link VertexIdDictionary},
+ * {@link PropertyIndexStore}, and {@link ZoneMapStore}.
  */
 public class GraphDBState {
 
     private static final Logger logger = LogManager.getLogger(GraphDBState.class);
 
     /**
-     * Resets {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore}, and
-     * {@link TypeAndPropertyKeyStore}.
+     * Resets {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore},
+     * {@link TypeAndPropertyKeyStore}, {@link VertexIdDictionary}, {@link PropertyIndexStore}, and
+     * {@link ZoneMapStore}.
      */
     public static void reset() {
         Graph.reset();
         EdgeStore.reset();
         VertexPropertyStore.reset();
         TypeAndPropertyKeyStore.reset();
+        VertexIdDictionary.reset();
+        PropertyIndexStore.reset();
+        ZoneMapStore.reset();
     }
 
     /**
-     * Serializes {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore}, and
-     * {@link TypeAndPropertyKeyStore} and writes it to files inside the given directory.
+     * Serializes {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore},
+     * {@link TypeAndPropertyKeyStore}, {@link VertexIdDictionary}, {@link PropertyIndexStore}, and
+     * {@link ZoneMapStore} and writes it to files inside the given directory.
      *
      * @param outputDirectoryPath The directory path to write the serialized data to.
      */
@@ -37,6 +43,9 @@ public class GraphDBState {
             EdgeStore.getInstance().serializeAll(outputDirectoryPath);
             TypeAndPropertyKeyStore.getInstance().serializeAll(outputDirectoryPath);
             VertexPropertyStore.getInstance().serializeAll(outputDirectoryPath);
+            VertexIdDictionary.getInstance().serializeAll(outputDirectoryPath);
+            PropertyIndexStore.getInstance().serializeAll(outputDirectoryPath);
+            ZoneMapStore.getInstance().serializeAll(outputDirectoryPath);
         } catch (IOException | InterruptedException e) {
             logger.error("Error in serialization:", e);
             throw new SerializationDeserializationException("Error in serialization.");
@@ -44,9 +53,11 @@ public class GraphDBState {
     }
 
     /**
-     * Deserializes {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore}, and
-     * {@link TypeAndPropertyKeyStore} from the files containing serialized data in the given
-     * directory.
+     * Deserializes {@link Graph}, {@link EdgeStore}, {@link VertexPropertyStore},
+     * {@link TypeAndPropertyKeyStore}, {@link VertexIdDictionary}, {@link PropertyIndexStore}, and
+     * {@link ZoneMapStore} from the files containing serialized data in the given directory. The
+     * indexes of the {@link PropertyIndexStore} are rebuilt from the others, so it is deserialized
+     * after them.
      *
      * @param inputDirectoryPath The input directory path to read serialized data from.
      */
@@ -57,6 +68,9 @@ public class GraphDBState {
             EdgeStore.getInstance().deserializeAll(inputDirectoryPath);
             TypeAndPropertyKeyStore.getInstance().deserializeAll(inputDirectoryPath);
             VertexPropertyStore.getInstance().deserializeAll(inputDirectoryPath);
+            VertexIdDictionary.getInstance().deserializeAll(inputDirectoryPath);
+            PropertyIndexStore.getInstance().deserializeAll(inputDirectoryPath);
+            ZoneMapStore.getInstance().deserializeAll(inputDirectoryPath);
         } catch (IOException | ClassNotFoundException | InterruptedException e) {
             GraphDBState.reset();
             logger.error("Error in deserialization:", e);
@@ -0,0 +1,197 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Relabels the vertices of the graph so that vertices that are read together have close internal
+ * vertex IDs. Vertex IDs are otherwise assigned in the order in which the vertices are added, so
+ * the adjacency lists, vertex types and vertex properties read by an {@code Extend} or a shortest
+ * path traversal are scattered across memory. After reordering, the adjacency lists of the
+ * neighbours of a vertex, and their entries in the arrays indexed by vertex IDs, are more likely
+ * to share cache lines and pages.
+ * <p>
+ * The {@link Graph}, including its permanent adjacency lists, the {@link VertexPropertyStore} and
+ * the {@link VertexIdDictionary} are rewritten with the new vertex IDs. The dictionary is the
+ * translation table between the vertex IDs used by the clients, which do not change, and the new
+ * internal vertex IDs. If it was disabled, it is enabled with the old internal vertex IDs as the
+ * external vertex IDs.
+ * <p>
+ * Warning: The temporary changes to the graph are finalized first. The stores are rewritten in
+ * place, so queries should not run while the graph is reordered.
+ */
+public class GraphReorderer {
+
+    /**
+     * The orders in which the vertices can be relabelled.
+     */
+    public enum VertexOrdering {
+        // In decreasing order of degree, summed over both directions, so that the adjacency lists
+        // of the high-degree vertices, which most adjacency lists point to, are close together.
+        DEGREE,
+        // In Reverse Cuthill-McKee order, i.e., in reverse breadth-first search order, where the
+        // neighbours of each vertex are visited in increasing order of degree and each connected
+        // component is started from a vertex with the smallest degree. The neighbours of a vertex
+        // then have close IDs.
+        LOCALITY
+    }
+
+    private static final Logger logger = LogManager.getLogger(GraphReorderer.class);
+
+    private final Graph graph = Graph.getInstance();
+    private int numVerticesReordered;
+    private double elapsedTimeInMillis;
+
+    /**
+     * Relabels the vertices of the graph in the given {@code vertexOrdering}.
+     *
+     * @param vertexOrdering The order of the new vertex IDs.
+     */
+    public void reorder(VertexOrdering vertexOrdering) {
+        long beginTimeInNano = System.nanoTime();
+        graph.finalizeChanges();
+        CSRAdjacencyLists forwardAdjLists = graph.getPermanentAdjLists(Direction.FORWARD);
+        CSRAdjacencyLists backwardAdjLists = graph.getPermanentAdjLists(Direction.BACKWARD);
+        int numVertices = graph.getHighestVertexId() + 1;
+        int[] newVertexIds = getNewVertexIds((VertexOrdering.DEGREE == vertexOrdering) ?
+            getDegreeOrder(forwardAdjLists, backwardAdjLists, numVertices) :
+            getReverseCuthillMcKeeOrder(forwardAdjLists, backwardAdjLists, numVertices));
+        graph.relabelVertices(newVertexIds);
+        VertexPropertyStore.getInstance().relabelVertices(newVertexIds);
+        VertexIdDictionary.getInstance().relabelInternalIds(newVertexIds);
+        PropertyIndexStore.getInstance().rebuild();
+        ZoneMapStore.getInstance().rebuild();
+        numVerticesReordered = numVertices;
+        elapsedTimeInMillis = IOUtils.getElapsedTimeInMillis(beginTimeInNano);
+        logger.info(String.format("Reordered %d vertices by %s in %.3f ms.", numVertices,
+            vertexOrdering, elapsedTimeInMillis));
+    }
+
+    /**
+     * @return The number of vertices relabelled by the last call to {@link
+     * #reorder(VertexOrdering)}.
+     */
+    public int getNumVerticesReordered() {
+        return numVerticesReordered;
+    }
+
+    /**
+     * @return The time taken by the last call to {@link #reorder(VertexOrdering)}.
+     */
+    public double getElapsedTimeInMillis() {
+        return elapsedTimeInMillis;
+    }
+
+    /**
+     * @param order The old vertex IDs in their new order.
+     *
+     * @return The new vertex ID of each old vertex ID.
+     */
+    private static int[] getNewVertexIds(int[] order) {
+        int[] newVertexIds = new int[order.length];
+        for (int newVertexId = 0; newVertexId < order.length; newVertexId++) {
+            newVertexIds[order[newVertexId]] = newVertexId;
+        }
+        return newVertexIds;
+    }
+
+    /**
+     * @return The vertex IDs in decreasing order of degree. Vertices with the same degree keep
+     * their relative order.
+     */
+    static int[] getDegreeOrder(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int numVertices) {
+        // Each vertex is sorted by its negated degree and then by its ID.
+        long[] negatedDegreesAndVertexIds = new long[numVertices];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            negatedDegreesAndVertexIds[vertexId] = ((long) -getDegree(forwardAdjLists,
+                backwardAdjLists, vertexId) << 32) | vertexId;
+        }
+        Arrays.sort(negatedDegreesAndVertexIds);
+        int[] order = new int[numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            order[i] = (int) negatedDegreesAndVertexIds[i];
+        }
+        return order;
+    }
+
+    /**
+     * @return The vertex IDs in Reverse Cuthill-McKee order, in which the edges are considered
+     * undirected. See {@link VertexOrdering#LOCALITY}.
+     */
+    static int[] getReverseCuthillMcKeeOrder(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int numVertices) {
+        int[] degrees = new int[numVertices];
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            degrees[vertexId] = getDegree(forwardAdjLists, backwardAdjLists, vertexId);
+        }
+        // The vertices in increasing order of degree, from which each breadth-first search starts
+        // at the first vertex that is not yet visited.
+        int[] startVertices = getDegreeOrder(forwardAdjLists, backwardAdjLists, numVertices);
+        boolean[] isVisited = new boolean[numVertices];
+        // {@code order} is also the queue of the breadth-first searches.
+        int[] order = new int[numVertices];
+        int numOrdered = 0;
+        for (int i = numVertices - 1; i >= 0; i--) {
+            if (isVisited[startVertices[i]]) {
+                continue;
+            }
+            isVisited[startVertices[i]] = true;
+            order[numOrdered++] = startVertices[i];
+            for (int head = numOrdered - 1; head < numOrdered; head++) {
+                int firstNeighbour = numOrdered;
+                numOrdered = addUnvisitedNeighbours(forwardAdjLists, order[head], isVisited, order,
+                    numOrdered);
+                numOrdered = addUnvisitedNeighbours(backwardAdjLists, order[head], isVisited,
+                    order, numOrdered);
+                // Sort the new neighbours by their degrees and then by their IDs.
+                long[] degreesAndNeighbours = new long[numOrdered - firstNeighbour];
+                for (int j = 0; j < degreesAndNeighbours.length; j++) {
+                    int neighbourId = order[firstNeighbour + j];
+                    degreesAndNeighbours[j] = ((long) degrees[neighbourId] << 32) | neighbourId;
+                }
+                Arrays.sort(degreesAndNeighbours);
+                for (int j = 0; j < degreesAndNeighbours.length; j++) {
+                    order[firstNeighbour + j] = (int) degreesAndNeighbours[j];
+                }
+            }
+        }
+        for (int i = 0; i < numVertices / 2; i++) {
+            int vertexId = order[i];
+            order[i] = order[numVertices - 1 - i];
+            order[numVertices - 1 - i] = vertexId;
+        }
+        return order;
+    }
+
+    /**
+     * Appends the neighbours of {@code vertexId} in {@code adjLists} that are not visited to
+     * {@code order}, starting at {@code numOrdered}, and marks them as visited. The segments of
+     * each edge type are read through their views, which decode compressed columns sequentially.
+     *
+     * @return The number of vertices in {@code order} after the neighbours are appended.
+     */
+    private static int addUnvisitedNeighbours(CSRAdjacencyLists adjLists, int vertexId,
+        boolean[] isVisited, int[] order, int numOrdered) {
+        for (short edgeType : adjLists.getEdgeTypes(vertexId)) {
+            SortedAdjacencyList segment = adjLists.getAdjacencyList(vertexId, edgeType);
+            for (int i = 0; i < segment.getSize(); i++) {
+                int neighbourId = segment.getNeighbourId(i);
+                if (!isVisited[neighbourId]) {
+                    isVisited[neighbourId] = true;
+                    order[numOrdered++] = neighbourId;
+                }
+            }
+        }
+        return numOrdered;
+    }
+
+    private static int getDegree(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, int vertexId) {
+        return forwardAdjLists.getSize(vertexId) + backwardAdjLists.getSize(vertexId);
+    }
+}
@@ -0,0 +1,120 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+
+/**
+ * An immutable version of the adjacency lists of the permanent graph. {@link Graph} publishes a
+ * new {@link GraphSnapshot} each time the permanent graph changes, e.g., in {@link
+ * Graph#finalizeChanges()}, by replacing its current snapshot with a single volatile write. A
+ * snapshot holds the permanent {@link CSRAdjacencyLists}, which are never modified once built,
+ * the highest permanent vertex ID, the {@link GraphStatistics} of the permanent graph, the
+ * {@link HubAdjacencyBitmaps} of its hub vertices and optionally the {@link
+ * NeighbourVertexTypeIndex} of its adjacency lists and the {@link HubEdgeIndex} of its hub
+ * vertices, so the adjacency lists and the indexes built from them always change together.
+ * <p>
+ * The vertex types, the properties and the property indexes are not part of a snapshot, so
+ * readers are excluded from changes to the graph by the read/write lock of the {@link
+ * ca.waterloo.dsg.graphflow.query.QueryProcessor}. Once a snapshot is replaced, {@link Graph}
+ * deletes the memory-mapped files of its adjacency lists that are not shared with the new one.
+ */
+public class GraphSnapshot {
+
+    private final CSRAdjacencyLists forwardAdjLists;
+    private final CSRAdjacencyLists backwardAdjLists;
+    private final int highestVertexId;
+    private final GraphStatistics statistics;
+    private final HubAdjacencyBitmaps forwardHubBitmaps;
+    private final HubAdjacencyBitmaps backwardHubBitmaps;
+    private final NeighbourVertexTypeIndex forwardNeighbourVertexTypes;
+    private final NeighbourVertexTypeIndex backwardNeighbourVertexTypes;
+    private final HubEdgeIndex forwardHubEdgeIndex;
+    private final HubEdgeIndex backwardHubEdgeIndex;
+
+    /**
+     * @param forwardAdjLists The permanent forward adjacency lists.
+     * @param backwardAdjLists The permanent backward adjacency lists.
+     * @param highestVertexId The highest permanent vertex ID, or -1 if the graph is empty.
+     * @param statistics The statistics of the permanent graph.
+     * @param forwardHubBitmaps The bitmaps of the hub vertices of the forward adjacency lists.
+     * @param backwardHubBitmaps The bitmaps of the hub vertices of the backward adjacency lists.
+     * @param forwardNeighbourVertexTypes The neighbour vertex types of the forward adjacency
+     * lists, or {@code null} if they are not tagged.
+     * @param backwardNeighbourVertexTypes The neighbour vertex types of the backward adjacency
+     * lists, or {@code null} if they are not tagged.
+     * @param forwardHubEdgeIndex The hash tables of the edges of the hub vertices of the forward
+     * adjacency lists, or {@code null} if they are not kept.
+     * @param backwardHubEdgeIndex The hash tables of the edges of the hub vertices of the
+     * backward adjacency lists, or {@code null} if they are not kept.
+     */
+    GraphSnapshot(CSRAdjacencyLists forwardAdjLists, CSRAdjacencyLists backwardAdjLists,
+        int highestVertexId, GraphStatistics statistics,
+        HubAdjacencyBitmaps forwardHubBitmaps, HubAdjacencyBitmaps backwardHubBitmaps,
+        NeighbourVertexTypeIndex forwardNeighbourVertexTypes,
+        NeighbourVertexTypeIndex backwardNeighbourVertexTypes, HubEdgeIndex forwardHubEdgeIndex,
+        HubEdgeIndex backwardHubEdgeIndex) {
+        this.forwardAdjLists = forwardAdjLists;
+        this.backwardAdjLists = backwardAdjLists;
+        this.highestVertexId = highestVertexId;
+        this.statistics = statistics;
+        this.forwardHubBitmaps = forwardHubBitmaps;
+        this.backwardHubBitmaps = backwardHubBitmaps;
+        this.forwardNeighbourVertexTypes = forwardNeighbourVertexTypes;
+        this.backwardNeighbourVertexTypes = backwardNeighbourVertexTypes;
+        this.forwardHubEdgeIndex = forwardHubEdgeIndex;
+        this.backwardHubEdgeIndex = backwardHubEdgeIndex;
+    }
+
+    /**
+     * @return The highest permanent vertex ID, or -1 if the graph is empty.
+     */
+    public int getHighestVertexId() {
+        return highestVertexId;
+    }
+
+    /**
+     * @return The degree and cardinality statistics of the permanent graph.
+     */
+    public GraphStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The permanent adjacency lists in the given {@code direction}.
+     */
+    CSRAdjacencyLists getAdjLists(Direction direction) {
+        return (Direction.FORWARD == direction) ? forwardAdjLists : backwardAdjLists;
+    }
+
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The bitmaps of the hub vertices of the adjacency lists in the given {@code
+     * direction}.
+     */
+    HubAdjacencyBitmaps getHubBitmaps(Direction direction) {
+        return (Direction.FORWARD == direction) ? forwardHubBitmaps : backwardHubBitmaps;
+    }
+
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The neighbour vertex types of the adjacency lists in the given {@code direction},
+     * or {@code null} if they are not tagged.
+     */
+    NeighbourVertexTypeIndex getNeighbourVertexTypes(Direction direction) {
+        return (Direction.FORWARD == direction) ? forwardNeighbourVertexTypes :
+            backwardNeighbourVertexTypes;
+    }
+
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The hash tables of the edges of the hub vertices of the adjacency lists in the
+     * given {@code direction}, or {@code null} if they are not kept.
+     */
+    HubEdgeIndex getHubEdgeIndex(Direction direction) {
+        return (Direction.FORWARD == direction) ? forwardHubEdgeIndex : backwardHubEdgeIndex;
+    }
+}
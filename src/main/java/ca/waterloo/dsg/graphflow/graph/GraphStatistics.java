@@ -0,0 +1,332 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Degree and cardinality statistics of the permanent graph, used by the query planners to
+ * estimate the number of edges read by an intersection rule. For each vertex type, edge type and
+ * direction, the statistics hold the number of edges, the number of vertices with at least one
+ * such edge and a histogram of their degrees. The same statistics are also kept over the edges
+ * of all types, so a query for the edges of any type does not count a vertex once per edge type.
+ * Each {@link GraphSnapshot} holds the statistics of its permanent graph.
+ * <p>
+ * The statistics are built once for bulk loaded and deserialized graphs with {@link
+ * #build(CSRAdjacencyLists, CSRAdjacencyLists, ShortArrayList, int)} and are then maintained
+ * incrementally by {@link Graph} from the changed vertices of each snapshot it publishes. The
+ * statistics of a published snapshot are never modified. {@link Graph} modifies a {@link
+ * #copy()} of them with the package-private methods.
+ */
+public class GraphStatistics {
+
+    /**
+     * The number of buckets of the degree histograms. The vertices with degree d, for
+     * {@code 2^i <= d < 2^(i+1)}, are counted in bucket i.
+     */
+    public static final int NUM_DEGREE_BUCKETS = 32;
+
+    // The number of vertices of each type.
+    private final Map<Short, Long> numVerticesPerType;
+    // The degree statistics of each vertex type, edge type and direction, keyed by {@link
+    // #getKey(short, short, Direction)}.
+    private final Map<Long, DegreeStatistics> edgeTypeDegreeStatistics;
+    // The degree statistics of each vertex type and direction over the edges of all types, keyed
+    // by {@link #getKey(short, short, Direction)} with the edge type {@link
+    // TypeAndPropertyKeyStore#ANY}.
+    private final Map<Long, DegreeStatistics> allEdgeTypesDegreeStatistics;
+
+    /**
+     * Creates the statistics of an empty graph.
+     */
+    GraphStatistics() {
+        this(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    private GraphStatistics(Map<Short, Long> numVerticesPerType,
+        Map<Long, DegreeStatistics> edgeTypeDegreeStatistics,
+        Map<Long, DegreeStatistics> allEdgeTypesDegreeStatistics) {
+        this.numVerticesPerType = numVerticesPerType;
+        this.edgeTypeDegreeStatistics = edgeTypeDegreeStatistics;
+        this.allEdgeTypesDegreeStatistics = allEdgeTypesDegreeStatistics;
+    }
+
+    /**
+     * Builds the statistics of a permanent graph by reading the degrees of all its vertices.
+     *
+     * @param forwardAdjLists The permanent forward adjacency lists.
+     * @param backwardAdjLists The permanent backward adjacency lists.
+     * @param vertexTypes The types of the vertices.
+     * @param highestVertexId The highest permanent vertex ID, or -1 if the graph is empty.
+     *
+     * @return The statistics of the graph.
+     */
+    static GraphStatistics build(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists, ShortArrayList vertexTypes, int highestVertexId) {
+        GraphStatistics statistics = new GraphStatistics();
+        statistics.addVertices(vertexTypes, 0 /* first vertex ID */, highestVertexId);
+        for (int vertexId = 0; vertexId <= highestVertexId; vertexId++) {
+            short vertexType = getVertexType(vertexTypes, vertexId);
+            statistics.addDegrees(vertexId, vertexType, Direction.FORWARD, forwardAdjLists);
+            statistics.addDegrees(vertexId, vertexType, Direction.BACKWARD, backwardAdjLists);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return A copy of the statistics that can be modified without changing these statistics.
+     */
+    GraphStatistics copy() {
+        Map<Long, DegreeStatistics> edgeTypeDegreeStatisticsCopy = new HashMap<>();
+        edgeTypeDegreeStatistics.forEach((key, degreeStatistics) ->
+            edgeTypeDegreeStatisticsCopy.put(key, degreeStatistics.copy()));
+        Map<Long, DegreeStatistics> allEdgeTypesDegreeStatisticsCopy = new HashMap<>();
+        allEdgeTypesDegreeStatistics.forEach((key, degreeStatistics) ->
+            allEdgeTypesDegreeStatisticsCopy.put(key, degreeStatistics.copy()));
+        return new GraphStatistics(new HashMap<>(numVerticesPerType),
+            edgeTypeDegreeStatisticsCopy, allEdgeTypesDegreeStatisticsCopy);
+    }
+
+    /**
+     * Counts the vertices with IDs from {@code firstVertexId} to {@code lastVertexId}, inclusive,
+     * by their type.
+     */
+    void addVertices(ShortArrayList vertexTypes, int firstVertexId, int lastVertexId) {
+        for (int vertexId = firstVertexId; vertexId <= lastVertexId; vertexId++) {
+            numVerticesPerType.merge(getVertexType(vertexTypes, vertexId), 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Moves a vertex from the count of the vertices of type {@code oldVertexType} to that of the
+     * vertices of type {@code newVertexType}. The degrees of the vertex are moved separately with
+     * {@link #removeDegrees(int, short, Direction, CSRAdjacencyLists)} and {@link
+     * #addDegrees(int, short, Direction, CSRAdjacencyLists)}.
+     */
+    void changeVertexType(short oldVertexType, short newVertexType) {
+        numVerticesPerType.merge(oldVertexType, -1L, Long::sum);
+        numVerticesPerType.merge(newVertexType, 1L, Long::sum);
+    }
+
+    /**
+     * Counts the edges of {@code vertexId} in the given {@code adjLists} in the degree
+     * statistics of the vertex type {@code vertexType}.
+     */
+    void addDegrees(int vertexId, short vertexType, Direction direction,
+        CSRAdjacencyLists adjLists) {
+        updateDegrees(vertexId, vertexType, direction, adjLists, 1 /* add */);
+    }
+
+    /**
+     * Removes the edges of {@code vertexId} in the given {@code adjLists} from the degree
+     * statistics of the vertex type {@code vertexType}. The edges should have been counted with
+     * {@link #addDegrees(int, short, Direction, CSRAdjacencyLists)}.
+     */
+    void removeDegrees(int vertexId, short vertexType, Direction direction,
+        CSRAdjacencyLists adjLists) {
+        updateDegrees(vertexId, vertexType, direction, adjLists, -1 /* remove */);
+    }
+
+    private void updateDegrees(int vertexId, short vertexType, Direction direction,
+        CSRAdjacencyLists adjLists, int sign) {
+        if (vertexId >= adjLists.getNumVertices() || 0 == adjLists.getSize(vertexId)) {
+            return;
+        }
+        for (short edgeType : adjLists.getEdgeTypes(vertexId)) {
+            // The edges without a type are only matched by rules that match the edges of all
+            // types, which read the statistics over all edge types.
+            if (TypeAndPropertyKeyStore.ANY == edgeType) {
+                continue;
+            }
+            getOrCreate(edgeTypeDegreeStatistics, vertexType, edgeType, direction).update(
+                adjLists.getSize(vertexId, edgeType), sign);
+        }
+        getOrCreate(allEdgeTypesDegreeStatistics, vertexType, TypeAndPropertyKeyStore.ANY,
+            direction).update(adjLists.getSize(vertexId), sign);
+    }
+
+    /**
+     * @param vertexType The vertex type, or {@link TypeAndPropertyKeyStore#ANY} for all vertices.
+     *
+     * @return The number of vertices of the given {@code vertexType}.
+     */
+    public long getNumVertices(short vertexType) {
+        if (TypeAndPropertyKeyStore.ANY == vertexType) {
+            long numVertices = 0;
+            for (long numVerticesOfType : numVerticesPerType.values()) {
+                numVertices += numVerticesOfType;
+            }
+            return numVertices;
+        }
+        return numVerticesPerType.getOrDefault(vertexType, 0L);
+    }
+
+    /**
+     * @param vertexType The type of the vertices whose edges are counted, or {@link
+     * TypeAndPropertyKeyStore#ANY} for all vertices.
+     * @param edgeType The edge type, or {@link TypeAndPropertyKeyStore#ANY} for all edges.
+     * @param direction The direction of the edges from the vertices.
+     *
+     * @return The number of edges of the given {@code edgeType} from the vertices of the given
+     * {@code vertexType} in the given {@code direction}.
+     */
+    public long getNumEdges(short vertexType, short edgeType, Direction direction) {
+        return getDegreeStatistics(vertexType, edgeType, direction).numEdges;
+    }
+
+    /**
+     * @param vertexType The vertex type, or {@link TypeAndPropertyKeyStore#ANY} for all vertices.
+     * @param edgeType The edge type, or {@link TypeAndPropertyKeyStore#ANY} for all edges.
+     * @param direction The direction of the edges from the vertices.
+     *
+     * @return The number of vertices of the given {@code vertexType} that have at least one edge
+     * of the given {@code edgeType} in the given {@code direction}.
+     */
+    public long getNumVerticesWithEdges(short vertexType, short edgeType, Direction direction) {
+        long numVertices = 0;
+        for (long numVerticesInBucket : getDegreeStatistics(vertexType, edgeType, direction).
+            degreeHistogram) {
+            numVertices += numVerticesInBucket;
+        }
+        return numVertices;
+    }
+
+    /**
+     * @param vertexType The vertex type, or {@link TypeAndPropertyKeyStore#ANY} for all vertices.
+     * @param edgeType The edge type, or {@link TypeAndPropertyKeyStore#ANY} for all edges.
+     * @param direction The direction of the edges from the vertices.
+     *
+     * @return The average number of edges of the given {@code edgeType} in the given {@code
+     * direction} per vertex of the given {@code vertexType}, including the vertices without such
+     * edges, or 0 if there are no vertices of the given type.
+     */
+    public double getAverageFanOut(short vertexType, short edgeType, Direction direction) {
+        long numVertices = getNumVertices(vertexType);
+        return (0 == numVertices) ? 0 : ((double) getNumEdges(vertexType, edgeType, direction)) /
+            numVertices;
+    }
+
+    /**
+     * @param vertexType The vertex type, or {@link TypeAndPropertyKeyStore#ANY} for all vertices.
+     * @param edgeType The edge type, or {@link TypeAndPropertyKeyStore#ANY} for all edges.
+     * @param direction The direction of the edges from the vertices.
+     *
+     * @return A new array of length {@link #NUM_DEGREE_BUCKETS} whose element i is the number of
+     * vertices of the given {@code vertexType} with d edges of the given {@code edgeType} in the
+     * given {@code direction}, for {@code 2^i <= d < 2^(i+1)}.
+     */
+    public long[] getDegreeHistogram(short vertexType, short edgeType, Direction direction) {
+        return getDegreeStatistics(vertexType, edgeType, direction).degreeHistogram.clone();
+    }
+
+    /**
+     * @param vertexType The vertex type, or {@link TypeAndPropertyKeyStore#ANY} for all vertices.
+     * @param edgeType The edge type, or {@link TypeAndPropertyKeyStore#ANY} for all edges.
+     * @param direction The direction of the edges from the vertices.
+     *
+     * @return A one line human readable summary of the statistics of the given types and {@code
+     * direction}, with the non-empty buckets of the degree histogram.
+     */
+    public String getHumanReadableStatistics(short vertexType, short edgeType,
+        Direction direction) {
+        DegreeStatistics degreeStatistics = getDegreeStatistics(vertexType, edgeType, direction);
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("(").append(getHumanReadableType(vertexType)).append(") ").append(
+            Direction.FORWARD == direction ? "-[" : "<-[").append(getHumanReadableType(edgeType)).
+            append(Direction.FORWARD == direction ? "]->" : "]-").append(" vertices: ").append(
+            getNumVertices(vertexType)).append(", edges: ").append(degreeStatistics.numEdges).
+            append(", average fan-out: ").append(String.format("%.2f", getAverageFanOut(
+            vertexType, edgeType, direction))).append(", degrees: {");
+        String separator = "";
+        for (int bucket = 0; bucket < NUM_DEGREE_BUCKETS; bucket++) {
+            if (0 != degreeStatistics.degreeHistogram[bucket]) {
+                stringBuilder.append(separator).append(1L << bucket).append("-").append(
+                    (1L << (bucket + 1)) - 1).append(": ").append(degreeStatistics.
+                    degreeHistogram[bucket]);
+                separator = ", ";
+            }
+        }
+        return stringBuilder.append("}").toString();
+    }
+
+    private static String getHumanReadableType(short type) {
+        return (TypeAndPropertyKeyStore.ANY == type) ? "" : ":" + TypeAndPropertyKeyStore.
+            getInstance().mapShortToStringType(type);
+    }
+
+    /**
+     * @return The degree statistics of the given types and {@code direction}, summed over all
+     * vertex types if {@code vertexType} is {@link TypeAndPropertyKeyStore#ANY}.
+     */
+    private DegreeStatistics getDegreeStatistics(short vertexType, short edgeType,
+        Direction direction) {
+        Map<Long, DegreeStatistics> degreeStatistics = (TypeAndPropertyKeyStore.ANY == edgeType)
+            ? allEdgeTypesDegreeStatistics : edgeTypeDegreeStatistics;
+        if (TypeAndPropertyKeyStore.ANY != vertexType) {
+            DegreeStatistics statistics = degreeStatistics.get(getKey(vertexType, edgeType,
+                direction));
+            return (null == statistics) ? new DegreeStatistics() : statistics;
+        }
+        DegreeStatistics sum = new DegreeStatistics();
+        for (Map.Entry<Long, DegreeStatistics> entry : degreeStatistics.entrySet()) {
+            if (getKey(getVertexType(entry.getKey()), edgeType, direction) == entry.getKey()) {
+                sum.add(entry.getValue());
+            }
+        }
+        return sum;
+    }
+
+    private static DegreeStatistics getOrCreate(Map<Long, DegreeStatistics> degreeStatistics,
+        short vertexType, short edgeType, Direction direction) {
+        return degreeStatistics.computeIfAbsent(getKey(vertexType, edgeType, direction),
+            key -> new DegreeStatistics());
+    }
+
+    private static long getKey(short vertexType, short edgeType, Direction direction) {
+        return ((long) (vertexType & 0xFFFF) << 17) | ((edgeType & 0xFFFF) << 1) | (direction.
+            getBooleanValue() ? 1 : 0);
+    }
+
+    private static short getVertexType(long key) {
+        return (short) (key >>> 17);
+    }
+
+    /**
+     * @return The type of {@code vertexId} in {@code vertexTypes}, or {@link
+     * TypeAndPropertyKeyStore#ANY} if the type of {@code vertexId} is not set.
+     */
+    static short getVertexType(ShortArrayList vertexTypes, int vertexId) {
+        return (vertexId < vertexTypes.getSize()) ? vertexTypes.get(vertexId) :
+            TypeAndPropertyKeyStore.ANY;
+    }
+
+    /**
+     * The number of edges of a vertex type, edge type and direction and the histogram of the
+     * degrees of the vertices with at least one such edge.
+     */
+    private static class DegreeStatistics {
+
+        private long numEdges;
+        private long[] degreeHistogram = new long[NUM_DEGREE_BUCKETS];
+
+        private void update(int degree, int sign) {
+            numEdges += sign * degree;
+            degreeHistogram[31 - Integer.numberOfLeadingZeros(degree)] += sign;
+        }
+
+        private void add(DegreeStatistics other) {
+            numEdges += other.numEdges;
+            for (int bucket = 0; bucket < NUM_DEGREE_BUCKETS; bucket++) {
+                degreeHistogram[bucket] += other.degreeHistogram[bucket];
+            }
+        }
+
+        private DegreeStatistics copy() {
+            DegreeStatistics copy = new DegreeStatistics();
+            copy.add(this);
+            return copy;
+        }
+    }
+}
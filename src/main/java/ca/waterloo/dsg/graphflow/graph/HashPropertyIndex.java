@@ -0,0 +1,149 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link PropertyIndex} that maps each value of the indexed property to the vertices or the
+ * edges that have it in a hash map, so it only looks up single values.
+ */
+class HashPropertyIndex extends PropertyIndex {
+
+    private Map<Object, Entries> entriesByValue = new HashMap<>();
+
+    HashPropertyIndex(boolean isVertexIndex, short type, short key) {
+        super(isVertexIndex, type, key);
+    }
+
+    @Override
+    public boolean isRangeIndex() {
+        return false;
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (Entries entries : entriesByValue.values()) {
+            size += entries.size;
+        }
+        return size;
+    }
+
+    @Override
+    public int[] getVertexIds(PropertyRange range) {
+        Entries entries = entriesByValue.get(getValue(range));
+        return (null == entries) ? new int[0] : Arrays.copyOf(entries.fromVertexIds,
+            entries.size);
+    }
+
+    @Override
+    public int[][] getEdges(PropertyRange range) {
+        Entries entries = entriesByValue.get(getValue(range));
+        if (null == entries) {
+            return new int[0][];
+        }
+        int[][] edges = new int[entries.size][];
+        for (int i = 0; i < entries.size; i++) {
+            edges[i] = new int[]{entries.fromVertexIds[i], entries.toVertexIds[i]};
+        }
+        return edges;
+    }
+
+    @Override
+    void addVertex(Object value, int vertexId) {
+        getOrCreateEntries(value).add(vertexId, 0 /* no to vertex */, vertexId);
+    }
+
+    @Override
+    void removeVertex(Object value, int vertexId) {
+        remove(value, vertexId);
+    }
+
+    @Override
+    void addEdge(Object value, int fromVertexId, int toVertexId, long edgeId) {
+        getOrCreateEntries(value).add(fromVertexId, toVertexId, edgeId);
+    }
+
+    @Override
+    void removeEdge(Object value, long edgeId) {
+        remove(value, edgeId);
+    }
+
+    @Override
+    void clear() {
+        entriesByValue.clear();
+    }
+
+    private static Object getValue(PropertyRange range) {
+        if (!range.isPoint()) {
+            throw new UnsupportedOperationException("Ranges of values cannot be looked up in a " +
+                "hash index.");
+        }
+        return range.getLowerBound();
+    }
+
+    private Entries getOrCreateEntries(Object value) {
+        Entries entries = entriesByValue.get(value);
+        if (null == entries) {
+            entries = new Entries(isVertexIndex());
+            entriesByValue.put(value, entries);
+        }
+        return entries;
+    }
+
+    private void remove(Object value, long id) {
+        Entries entries = entriesByValue.get(value);
+        if (null != entries && entries.remove(id) && 0 == entries.size) {
+            entriesByValue.remove(value);
+        }
+    }
+
+    /**
+     * The vertices or edges with one value of the indexed property, in insertion order until one
+     * is removed, which moves the last one to its position. Vertices are identified by their IDs
+     * and edges by their edge IDs.
+     */
+    private static class Entries {
+
+        private static final int INITIAL_CAPACITY = 2;
+
+        private int[] fromVertexIds = new int[INITIAL_CAPACITY];
+        private int[] toVertexIds;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private Entries(boolean isVertexIndex) {
+            toVertexIds = isVertexIndex ? null : new int[INITIAL_CAPACITY];
+        }
+
+        private void add(int fromVertexId, int toVertexId, long id) {
+            fromVertexIds = ArrayUtils.resizeIfNecessary(fromVertexIds, size + 1);
+            ids = ArrayUtils.resizeIfNecessary(ids, size + 1, 0);
+            fromVertexIds[size] = fromVertexId;
+            ids[size] = id;
+            if (null != toVertexIds) {
+                toVertexIds = ArrayUtils.resizeIfNecessary(toVertexIds, size + 1);
+                toVertexIds[size] = toVertexId;
+            }
+            size++;
+        }
+
+        private boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    fromVertexIds[i] = fromVertexIds[size];
+                    ids[i] = ids[size];
+                    if (null != toVertexIds) {
+                        toVertexIds[i] = toVertexIds[size];
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
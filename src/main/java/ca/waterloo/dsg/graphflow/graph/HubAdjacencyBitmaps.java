@@ -0,0 +1,125 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+import ca.waterloo.dsg.graphflow.util.RoaringBitmap;
+
+/**
+ * The {@link RoaringBitmap}s of the neighbour IDs of the hub vertices of the permanent adjacency
+ * lists of a {@link GraphSnapshot} in one direction. A hub is a vertex whose adjacency list, or
+ * the segment of its adjacency list of one edge type, has at least {@code degreeThreshold}
+ * neighbours. Intersecting a list with the adjacency list of a hub probes its bitmap instead of
+ * searching its neighbours. See {@link MergedAdjacencyListCursor#getIntersection(
+ * ca.waterloo.dsg.graphflow.util.IntArrayList, short)}.
+ * <p>
+ * The bitmaps are built when a snapshot is published, as the tables of {@link HubEdgeIndex} are:
+ * {@link #update(CSRAdjacencyLists, IntToObjectMap)} only builds the bitmaps of the vertices with
+ * temporary changes, and shares the others with the previous snapshot. The bitmaps are immutable
+ * once built, so they are read by several threads without synchronization, and looking one up
+ * does not box its key.
+ */
+class HubAdjacencyBitmaps {
+
+    private final int degreeThreshold;
+    // The bitmaps of each hub vertex, keyed by the edge type of the adjacency list, or by {@link
+    // TypeAndPropertyKeyStore#ANY} for the whole adjacency list.
+    private final IntToObjectMap<IntToObjectMap<RoaringBitmap>> bitmaps = new IntToObjectMap<>();
+
+    /**
+     * Creates the empty bitmaps of adjacency lists without hub vertices.
+     *
+     * @param degreeThreshold The minimum number of neighbours of the adjacency lists that have a
+     * bitmap.
+     */
+    HubAdjacencyBitmaps(int degreeThreshold) {
+        this.degreeThreshold = degreeThreshold;
+    }
+
+    /**
+     * Builds the bitmaps of the hub vertices of the given {@code adjLists}.
+     *
+     * @param adjLists The permanent adjacency lists.
+     * @param degreeThreshold The minimum number of neighbours of the adjacency lists that have a
+     * bitmap.
+     *
+     * @return The bitmaps.
+     */
+    static HubAdjacencyBitmaps build(CSRAdjacencyLists adjLists, int degreeThreshold) {
+        HubAdjacencyBitmaps hubBitmaps = new HubAdjacencyBitmaps(degreeThreshold);
+        for (int vertexId = 0; vertexId < adjLists.getNumVertices(); vertexId++) {
+            hubBitmaps.buildBitmaps(adjLists, vertexId);
+        }
+        return hubBitmaps;
+    }
+
+    /**
+     * Returns the bitmaps of {@code newAdjLists}, which are the adjacency lists of these bitmaps
+     * with the given {@code adjListDeltas} applied or not, possibly in another format. The bitmaps
+     * of the vertices without deltas are shared with these bitmaps.
+     *
+     * @param newAdjLists The new permanent adjacency lists.
+     * @param adjListDeltas The temporary changes to the adjacency lists.
+     *
+     * @return The bitmaps of {@code newAdjLists}.
+     */
+    HubAdjacencyBitmaps update(CSRAdjacencyLists newAdjLists,
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas) {
+        HubAdjacencyBitmaps newHubBitmaps = new HubAdjacencyBitmaps(degreeThreshold);
+        for (int vertexId : bitmaps.getSortedKeys()) {
+            if (!adjListDeltas.containsKey(vertexId)) {
+                newHubBitmaps.bitmaps.put(vertexId, bitmaps.get(vertexId));
+            }
+        }
+        for (int vertexId : adjListDeltas.getSortedKeys()) {
+            newHubBitmaps.buildBitmaps(newAdjLists, vertexId);
+        }
+        return newHubBitmaps;
+    }
+
+    /**
+     * @param vertexId The ID of the vertex.
+     * @param edgeTypeFilter The type of the edges of the adjacency list, or {@link
+     * TypeAndPropertyKeyStore#ANY} for the whole adjacency list.
+     *
+     * @return The bitmap of the neighbour IDs of the permanent adjacency list of the given {@code
+     * vertexId} restricted to the edges of type {@code edgeTypeFilter}, or {@code null} if it has
+     * fewer neighbours than the degree threshold.
+     */
+    RoaringBitmap getBitmap(int vertexId, short edgeTypeFilter) {
+        IntToObjectMap<RoaringBitmap> vertexBitmaps = bitmaps.get(vertexId);
+        return (null == vertexBitmaps) ? null : vertexBitmaps.get(edgeTypeFilter);
+    }
+
+    /**
+     * @return The number of vertices that have at least one bitmap.
+     */
+    int getNumHubVertices() {
+        return bitmaps.size();
+    }
+
+    private void buildBitmaps(CSRAdjacencyLists adjLists, int vertexId) {
+        if (adjLists.getSize(vertexId) < degreeThreshold) {
+            return;
+        }
+        IntToObjectMap<RoaringBitmap> vertexBitmaps = new IntToObjectMap<>();
+        short[] edgeTypes = adjLists.getEdgeTypes(vertexId);
+        for (short edgeType : edgeTypes) {
+            SortedAdjacencyList segment = adjLists.getAdjacencyList(vertexId, edgeType);
+            if (segment.getSize() >= degreeThreshold) {
+                vertexBitmaps.put(edgeType, buildBitmap(segment));
+            }
+        }
+        // The whole adjacency list of a vertex with a single edge type is the segment of that
+        // type, so they share a bitmap.
+        vertexBitmaps.put(TypeAndPropertyKeyStore.ANY, (1 == edgeTypes.length) ?
+            vertexBitmaps.get(edgeTypes[0]) : buildBitmap(adjLists.getAdjacencyList(vertexId)));
+        bitmaps.put(vertexId, vertexBitmaps);
+    }
+
+    private static RoaringBitmap buildBitmap(SortedAdjacencyList adjList) {
+        RoaringBitmap.Builder builder = new RoaringBitmap.Builder();
+        for (int i = 0; i < adjList.getSize(); i++) {
+            builder.add(adjList.getNeighbourId(i));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,177 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+
+import java.util.Arrays;
+
+/**
+ * Hash tables of the edges of the hub vertices of the permanent adjacency lists of a {@link
+ * GraphSnapshot} in one direction, keyed by the neighbour ID and the edge type of each edge. A hub
+ * is a vertex with at least {@code degreeThreshold} neighbours. {@link Graph#isEdgePresent(int,
+ * int, Graph.Direction, Graph.GraphVersion, short)} and {@link Graph#getEdgeIdFromGraph(int, int,
+ * short)} look up the edges of a hub in its table in constant time instead of searching its
+ * adjacency list.
+ * <p>
+ * A table maps each edge to its index in the columns of the {@link CSRAdjacencyLists}, relative to
+ * the start index of the adjacency list of the vertex, which does not change when other adjacency
+ * lists change. The tables are built when a snapshot is published: {@link
+ * #update(CSRAdjacencyLists, IntToObjectMap)} only builds the tables of the vertices with temporary
+ * changes, and shares the others with the previous snapshot. The tables are immutable once built.
+ */
+class HubEdgeIndex {
+
+    private final int degreeThreshold;
+    private final IntToObjectMap<EdgeTable> tables = new IntToObjectMap<>();
+
+    private HubEdgeIndex(int degreeThreshold) {
+        this.degreeThreshold = degreeThreshold;
+    }
+
+    /**
+     * Builds the tables of the hub vertices of the given {@code adjLists}.
+     *
+     * @param adjLists The permanent adjacency lists.
+     * @param degreeThreshold The minimum number of neighbours of the vertices that have a table.
+     *
+     * @return The index.
+     */
+    static HubEdgeIndex build(CSRAdjacencyLists adjLists, int degreeThreshold) {
+        HubEdgeIndex index = new HubEdgeIndex(degreeThreshold);
+        for (int vertexId = 0; vertexId < adjLists.getNumVertices(); vertexId++) {
+            index.buildTable(adjLists, vertexId);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of {@code newAdjLists}, which are the adjacency lists of this index with
+     * the given {@code adjListDeltas} applied or not, possibly in another format. The tables of the
+     * vertices without deltas are shared with this index.
+     *
+     * @param newAdjLists The new permanent adjacency lists.
+     * @param adjListDeltas The temporary changes to the adjacency lists.
+     *
+     * @return The index of {@code newAdjLists}.
+     */
+    HubEdgeIndex update(CSRAdjacencyLists newAdjLists,
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas) {
+        HubEdgeIndex newIndex = new HubEdgeIndex(degreeThreshold);
+        for (int vertexId : tables.getSortedKeys()) {
+            if (!adjListDeltas.containsKey(vertexId)) {
+                newIndex.tables.put(vertexId, tables.get(vertexId));
+            }
+        }
+        for (int vertexId : adjListDeltas.getSortedKeys()) {
+            newIndex.buildTable(newAdjLists, vertexId);
+        }
+        return newIndex;
+    }
+
+    /**
+     * @return {@code true} if the given {@code vertexId} has a table, {@code false} otherwise.
+     */
+    boolean isIndexed(int vertexId) {
+        return tables.containsKey(vertexId);
+    }
+
+    /**
+     * @return The number of vertices that have a table.
+     */
+    int getNumIndexedVertices() {
+        return tables.size();
+    }
+
+    /**
+     * Looks up the edge from the given indexed {@code vertexId} to the given {@code neighbourId}
+     * with the given {@code edgeTypeFilter}. With {@link TypeAndPropertyKeyStore#ANY}, the edge
+     * with the smallest type is returned, as {@link SortedAdjacencyList#search(int, short)} does.
+     *
+     * @param vertexId The ID of a vertex for which {@link #isIndexed(int)} is {@code true}.
+     * @param neighbourId The ID of the neighbour.
+     * @param edgeTypeFilter The type of the edge, or {@link TypeAndPropertyKeyStore#ANY}.
+     *
+     * @return The offset of the edge in the range of {@code vertexId} in the columns of the
+     * permanent adjacency lists of this index, as read by {@link CSRAdjacencyLists#getEdgeId(int,
+     * int)}, or -1 if there is no such edge.
+     */
+    int getOffset(int vertexId, int neighbourId, short edgeTypeFilter) {
+        return tables.get(vertexId).get(getKey(neighbourId, edgeTypeFilter));
+    }
+
+    private void buildTable(CSRAdjacencyLists adjLists, int vertexId) {
+        int size = adjLists.getSize(vertexId);
+        if (size < degreeThreshold) {
+            return;
+        }
+        // The columns of a vertex are partitioned into consecutive segments in increasing order of
+        // edge types, so the first edge to a neighbour is the one with the smallest type, which is
+        // the one found with {@link TypeAndPropertyKeyStore#ANY}. The segments are read through
+        // their views, which decode compressed columns sequentially.
+        EdgeTable table = new EdgeTable(2 * size);
+        int offset = 0;
+        for (short edgeType : adjLists.getEdgeTypes(vertexId)) {
+            SortedAdjacencyList segment = adjLists.getAdjacencyList(vertexId, edgeType);
+            for (int i = 0; i < segment.getSize(); i++, offset++) {
+                table.putIfAbsent(getKey(segment.getNeighbourId(i), edgeType), offset);
+                table.putIfAbsent(getKey(segment.getNeighbourId(i), TypeAndPropertyKeyStore.ANY),
+                    offset);
+            }
+        }
+        tables.put(vertexId, table);
+    }
+
+    private static long getKey(int neighbourId, short edgeType) {
+        return (((long) neighbourId) << 16) | (edgeType & 0xFFFF);
+    }
+
+    /**
+     * An open-addressing hash table with linear probing from {@code long} keys to non-negative
+     * {@code int} values, with a fixed capacity.
+     */
+    private static class EdgeTable {
+
+        private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+        // Neighbour IDs are non-negative, so no key is -1.
+        private static final long EMPTY_KEY = -1L;
+
+        private final long[] keys;
+        private final int[] values;
+        private final int logCapacity;
+
+        /**
+         * @param maxNumKeys The maximum number of keys of the table.
+         */
+        private EdgeTable(int maxNumKeys) {
+            // Keep the load factor of the hash table at most 0.5.
+            logCapacity = 32 - Integer.numberOfLeadingZeros(2 * maxNumKeys - 1);
+            keys = new long[1 << logCapacity];
+            values = new int[1 << logCapacity];
+            Arrays.fill(keys, EMPTY_KEY);
+        }
+
+        private void putIfAbsent(long key, int value) {
+            int slot = findSlot(key);
+            if (EMPTY_KEY == keys[slot]) {
+                keys[slot] = key;
+                values[slot] = value;
+            }
+        }
+
+        /**
+         * @return The value of the given {@code key}, or -1 if the {@code key} is not in the table.
+         */
+        private int get(long key) {
+            int slot = findSlot(key);
+            return (EMPTY_KEY == keys[slot]) ? -1 : values[slot];
+        }
+
+        private int findSlot(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) ((key * HASH_MULTIPLIER) >>> (64 - logCapacity));
+            while (EMPTY_KEY != keys[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
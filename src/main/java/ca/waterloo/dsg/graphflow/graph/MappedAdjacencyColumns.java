@@ -0,0 +1,201 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The offsets and the neighbour IDs, edge types and edge IDs columns of one partition of a {@link
+ * CSRAdjacencyLists}, stored in a block of an {@link AdjacencyListFile} that is mapped into
+ * memory. The columns are read and written through {@link IntBuffer}, {@link ShortBuffer} and
+ * {@link LongBuffer} views of the mapped block, so they are not stored on the Java heap, and the
+ * operating system decides which of their pages are resident in memory.
+ * <p>
+ * A block holds the offsets of the vertices of the partition, which start at 0, followed by the
+ * neighbour IDs, edge types and edge IDs columns, each starting at a multiple of 8 bytes from the
+ * start of the block. All values are little-endian. A block is smaller than 2GB, so its columns
+ * are indexed with ints.
+ */
+class MappedAdjacencyColumns {
+
+    // The position of the block in the file.
+    private final long position;
+    private final int numVertices;
+    private final int numEdges;
+    private final IntBuffer offsets;
+    private final IntBuffer neighbourIds;
+    private final ShortBuffer edgeTypes;
+    private final LongBuffer edgeIds;
+
+    /**
+     * @param position The position of the block in the file.
+     * @param block The mapped block, of {@link #getSizeInBytes(int, int)} bytes.
+     * @param numVertices The number of vertices of the partition.
+     * @param numEdges The number of edges of the partition.
+     */
+    MappedAdjacencyColumns(long position, ByteBuffer block, int numVertices, int numEdges) {
+        this.position = position;
+        this.numVertices = numVertices;
+        this.numEdges = numEdges;
+        int neighbourIdsPosition = alignTo8Bytes(4 * (numVertices + 1));
+        int edgeTypesPosition = alignTo8Bytes(neighbourIdsPosition + 4 * numEdges);
+        int edgeIdsPosition = alignTo8Bytes(edgeTypesPosition + 2 * numEdges);
+        offsets = slice(block, 0 /* position */, 4 * (numVertices + 1)).asIntBuffer();
+        neighbourIds = slice(block, neighbourIdsPosition, 4 * numEdges).asIntBuffer();
+        edgeTypes = slice(block, edgeTypesPosition, 2 * numEdges).asShortBuffer();
+        edgeIds = slice(block, edgeIdsPosition, 8 * numEdges).asLongBuffer();
+    }
+
+    /**
+     * @return The number of bytes of the block of a partition with the given {@code numVertices}
+     * and {@code numEdges}, which is a multiple of 8.
+     */
+    static long getSizeInBytes(int numVertices, int numEdges) {
+        long neighbourIdsPosition = alignTo8Bytes(4L * (numVertices + 1));
+        long edgeTypesPosition = alignTo8Bytes(neighbourIdsPosition + 4L * numEdges);
+        long edgeIdsPosition = alignTo8Bytes(edgeTypesPosition + 2L * numEdges);
+        return edgeIdsPosition + 8L * numEdges;
+    }
+
+    /**
+     * @return The offsets stored in the block, copied into a new array of {@code numVertices + 1}
+     * cells.
+     */
+    int[] readOffsets() {
+        int[] offsetsArray = new int[numVertices + 1];
+        offsets.duplicate().get(offsetsArray);
+        return offsetsArray;
+    }
+
+    /**
+     * Writes the given {@code offsetsArray}, of {@code numVertices + 1} cells starting at 0, to the
+     * block.
+     */
+    void writeOffsets(int[] offsetsArray) {
+        offsets.duplicate().put(offsetsArray, 0, numVertices + 1);
+    }
+
+    /**
+     * Copies the columns into the given arrays, which should have at least {@link #getNumEdges()}
+     * cells.
+     */
+    void readColumns(int[] neighbourIdsArray, short[] edgeTypesArray, long[] edgeIdsArray) {
+        readColumns(0 /* index */, neighbourIdsArray, edgeTypesArray, edgeIdsArray,
+            0 /* arrayIndex */, numEdges);
+    }
+
+    /**
+     * Copies the range [{@code index}, {@code index + length}) of the columns into the given
+     * arrays, starting at their given {@code arrayIndex}.
+     */
+    void readColumns(int index, int[] neighbourIdsArray, short[] edgeTypesArray,
+        long[] edgeIdsArray, int arrayIndex, int length) {
+        ((IntBuffer) neighbourIds.duplicate().position(index)).get(neighbourIdsArray, arrayIndex,
+            length);
+        ((ShortBuffer) edgeTypes.duplicate().position(index)).get(edgeTypesArray, arrayIndex,
+            length);
+        ((LongBuffer) edgeIds.duplicate().position(index)).get(edgeIdsArray, arrayIndex, length);
+    }
+
+    /**
+     * Copies the range [{@code arrayIndex}, {@code arrayIndex + length}) of the given arrays into
+     * the columns, starting at the given {@code index} of the columns.
+     */
+    void writeColumns(int index, int[] neighbourIdsArray, short[] edgeTypesArray,
+        long[] edgeIdsArray, int arrayIndex, int length) {
+        ((IntBuffer) neighbourIds.duplicate().position(index)).put(neighbourIdsArray, arrayIndex,
+            length);
+        ((ShortBuffer) edgeTypes.duplicate().position(index)).put(edgeTypesArray, arrayIndex,
+            length);
+        ((LongBuffer) edgeIds.duplicate().position(index)).put(edgeIdsArray, arrayIndex, length);
+    }
+
+    /**
+     * Copies the columns of the given {@code source}, which should have the same number of edges,
+     * into these columns.
+     */
+    void writeColumns(MappedAdjacencyColumns source) {
+        neighbourIds.duplicate().put(source.neighbourIds.duplicate());
+        edgeTypes.duplicate().put(source.edgeTypes.duplicate());
+        edgeIds.duplicate().put(source.edgeIds.duplicate());
+    }
+
+    /**
+     * @return The position of the block in the file.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return The number of vertices whose offsets are stored.
+     */
+    int getNumVertices() {
+        return numVertices;
+    }
+
+    /**
+     * @return The number of edges stored in the columns.
+     */
+    int getNumEdges() {
+        return numEdges;
+    }
+
+    /**
+     * @param index An index in the columns.
+     *
+     * @return The neighbour ID stored at the given {@code index}.
+     */
+    int getNeighbourId(int index) {
+        return neighbourIds.get(index);
+    }
+
+    /**
+     * @param index An index in the columns.
+     *
+     * @return The edge type stored at the given {@code index}.
+     */
+    short getEdgeType(int index) {
+        return edgeTypes.get(index);
+    }
+
+    /**
+     * @param index An index in the columns.
+     *
+     * @return The edge ID stored at the given {@code index}.
+     */
+    long getEdgeId(int index) {
+        return edgeIds.get(index);
+    }
+
+    /**
+     * Writes an edge at the given {@code index} of the columns. The block should have been mapped
+     * by {@link AdjacencyListFile#append(int[][])}.
+     */
+    void set(int index, int neighbourId, short edgeType, long edgeId) {
+        neighbourIds.put(index, neighbourId);
+        edgeTypes.put(index, edgeType);
+        edgeIds.put(index, edgeId);
+    }
+
+    private static int alignTo8Bytes(int position) {
+        return (position + 7) & ~7;
+    }
+
+    private static long alignTo8Bytes(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * @return A little-endian view over the range [{@code position}, {@code position + size}) of
+     * the given {@code block}.
+     */
+    private static ByteBuffer slice(ByteBuffer block, int position, int size) {
+        ByteBuffer duplicate = block.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + size);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
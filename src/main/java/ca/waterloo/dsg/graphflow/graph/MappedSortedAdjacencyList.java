@@ -0,0 +1,62 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+/**
+ * A read-only view over the edges of one type of a vertex in a {@link CSRAdjacencyLists} whose
+ * columns are stored in a memory-mapped file. The neighbour IDs and edge IDs are read directly from
+ * the {@link MappedAdjacencyColumns}, so creating a view does not copy any data and only the pages
+ * of the file that are read become resident in memory.
+ */
+class MappedSortedAdjacencyList extends SegmentSortedAdjacencyList {
+
+    private final MappedAdjacencyColumns columns;
+
+    /**
+     * @param columns The mapped columns of the partition of the vertex.
+     * @param edgeType The type of all the edges of the view.
+     * @param startIndex The index of the first neighbour of the view in the columns.
+     * @param size The number of neighbours in the view.
+     * @param columnIndex The index of the first neighbour of the view in the columns of the whole
+     * {@link CSRAdjacencyLists}.
+     */
+    MappedSortedAdjacencyList(MappedAdjacencyColumns columns, short edgeType, int startIndex,
+        int size, int columnIndex) {
+        super(edgeType, startIndex, size, columnIndex);
+        this.columns = columns;
+    }
+
+    @Override
+    int readNeighbourId(int columnIndex) {
+        return columns.getNeighbourId(columnIndex);
+    }
+
+    @Override
+    long readEdgeId(int columnIndex) {
+        return columns.getEdgeId(columnIndex);
+    }
+
+    /**
+     * Uses galloping search from {@code fromColumnIndex}, so that successive searches for
+     * increasing values, e.g. in intersections, read few pages of the file.
+     */
+    @Override
+    int getLowerBound(long searchedValue, int fromColumnIndex, int toColumnIndex) {
+        int bound = 1;
+        int low = fromColumnIndex - 1;
+        while (fromColumnIndex + bound - 1 < toColumnIndex && columns.getNeighbourId(
+            fromColumnIndex + bound - 1) < searchedValue) {
+            low = fromColumnIndex + bound - 1;
+            bound <<= 1;
+        }
+        // The lower bound is in the range ({@code low}, {@code high}].
+        int high = Integer.min(fromColumnIndex + bound - 1, toColumnIndex);
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (columns.getNeighbourId(middle) < searchedValue) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,363 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.RoaringBitmap;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+
+/**
+ * A cursor over the {@link Graph.GraphVersion#MERGED} adjacency list of a vertex, which merges
+ * the permanent adjacency list of the vertex with its {@link AdjacencyListDelta} on the fly,
+ * without copying the permanent adjacency list. The neighbours are returned in the order of
+ * {@link SortedAdjacencyList}, first by neighbour IDs and then by edge types. If there is no
+ * delta, the cursor is over the permanent adjacency list only. A cursor can be restricted to the
+ * edges of one type, in which case the permanent adjacency list should be the segment of that type
+ * returned by {@link CSRAdjacencyLists#getAdjacencyList(int, short)}.
+ * <p>
+ * Usage: call {@link #next()} until it returns {@code false} and read the current neighbour with
+ * {@link #getNeighbourId()}, {@link #getEdgeType()} and {@link #getEdgeId()}.
+ */
+public class MergedAdjacencyListCursor {
+
+    private final SortedAdjacencyList permanentAdjList;
+    private final AdjacencyListDelta delta;
+    private final SortedAdjacencyList additions;
+    private final SortedAdjacencyList deletions;
+    private final short edgeTypeFilter;
+    // The bitmaps of the hub vertices of the snapshot the permanent adjacency list is from, and the
+    // ID of the vertex, or {@code null} and -1 if the cursor does not use bitmaps.
+    private final HubAdjacencyBitmaps hubBitmaps;
+    private final int vertexId;
+    // The neighbour vertex types of the columns that the permanent adjacency list is a view over,
+    // or {@code null} if the types of the neighbours are looked up in the vertex types.
+    private final NeighbourVertexTypeIndex neighbourVertexTypes;
+    // The indices of the next neighbour to consider in each of the three lists.
+    private int permanentIndex;
+    private int additionsIndex;
+    private int deletionsIndex;
+    private int neighbourId;
+    private short edgeType;
+    private long edgeId;
+    private boolean isPermanentNeighbour;
+
+    /**
+     * @param permanentAdjList The permanent adjacency list of the vertex.
+     * @param delta The temporary changes to the adjacency list, or {@code null} if there are none.
+     */
+    public MergedAdjacencyListCursor(SortedAdjacencyList permanentAdjList,
+        AdjacencyListDelta delta) {
+        this(permanentAdjList, delta, TypeAndPropertyKeyStore.ANY);
+    }
+
+    /**
+     * @param permanentAdjList The permanent adjacency list of the vertex. If {@code
+     * edgeTypeFilter} is not {@link TypeAndPropertyKeyStore#ANY}, should only contain edges of
+     * type {@code edgeTypeFilter}.
+     * @param delta The temporary changes to the adjacency list, or {@code null} if there are none.
+     * @param edgeTypeFilter The type of the edges the cursor is restricted to, or {@link
+     * TypeAndPropertyKeyStore#ANY}.
+     */
+    public MergedAdjacencyListCursor(SortedAdjacencyList permanentAdjList,
+        AdjacencyListDelta delta, short edgeTypeFilter) {
+        this(permanentAdjList, delta, edgeTypeFilter, null /* no hub bitmaps */, -1 /* vertexId */,
+            null /* no neighbourVertexTypes */);
+    }
+
+    /**
+     * @param permanentAdjList The permanent adjacency list of the vertex. If {@code
+     * edgeTypeFilter} is not {@link TypeAndPropertyKeyStore#ANY}, should only contain edges of
+     * type {@code edgeTypeFilter}.
+     * @param delta The temporary changes to the adjacency list, or {@code null} if there are none.
+     * @param edgeTypeFilter The type of the edges the cursor is restricted to, or {@link
+     * TypeAndPropertyKeyStore#ANY}.
+     * @param hubBitmaps The bitmaps of the hub vertices of the snapshot that {@code
+     * permanentAdjList} is from, which are used by {@link #getIntersection(IntArrayList, short)}
+     * if the vertex is a hub, or {@code null}.
+     * @param vertexId The ID of the vertex.
+     * @param neighbourVertexTypes The neighbour vertex types of the columns that {@code
+     * permanentAdjList} is a view over, or {@code null} if {@code permanentAdjList} is not a view
+     * over the columns or they are not tagged.
+     */
+    MergedAdjacencyListCursor(SortedAdjacencyList permanentAdjList, AdjacencyListDelta delta,
+        short edgeTypeFilter, HubAdjacencyBitmaps hubBitmaps, int vertexId,
+        NeighbourVertexTypeIndex neighbourVertexTypes) {
+        this.permanentAdjList = permanentAdjList;
+        this.delta = delta;
+        this.additions = (null == delta) ? null : delta.getAdditions();
+        this.deletions = (null == delta) ? null : delta.getDeletions();
+        this.edgeTypeFilter = edgeTypeFilter;
+        this.hubBitmaps = hubBitmaps;
+        this.vertexId = vertexId;
+        this.neighbourVertexTypes = neighbourVertexTypes;
+    }
+
+    /**
+     * @return The number of neighbours in the merged adjacency list.
+     */
+    public int getSize() {
+        return permanentAdjList.getSize() + ((null == delta) ? 0 : delta.getSizeDifference(
+            edgeTypeFilter));
+    }
+
+    /**
+     * Moves the cursor back to before the first neighbour.
+     */
+    public void reset() {
+        permanentIndex = 0;
+        additionsIndex = 0;
+        deletionsIndex = 0;
+    }
+
+    /**
+     * Moves the cursor to the next neighbour of the merged adjacency list.
+     *
+     * @return {@code false} if there are no more neighbours, {@code true} otherwise.
+     */
+    public boolean next() {
+        if (null != delta) {
+            skipDeletedPermanentNeighbours();
+            skipAdditionsOfOtherTypes();
+        }
+        boolean hasPermanent = permanentIndex < permanentAdjList.getSize();
+        boolean hasAddition = null != delta && additionsIndex < additions.getSize();
+        if (hasPermanent && (!hasAddition || compare(permanentAdjList, permanentIndex, additions,
+            additionsIndex) <= 0)) {
+            neighbourId = permanentAdjList.getNeighbourId(permanentIndex);
+            edgeType = permanentAdjList.getEdgeType(permanentIndex);
+            edgeId = permanentAdjList.getEdgeId(permanentIndex);
+            permanentIndex++;
+            isPermanentNeighbour = true;
+            return true;
+        } else if (hasAddition) {
+            neighbourId = additions.getNeighbourId(additionsIndex);
+            edgeType = additions.getEdgeType(additionsIndex);
+            edgeId = additions.getEdgeId(additionsIndex);
+            additionsIndex++;
+            isPermanentNeighbour = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skips the permanent neighbours that are deleted. The deletions are sorted in the same order
+     * as the permanent adjacency list, so both lists are scanned once in total.
+     */
+    private void skipDeletedPermanentNeighbours() {
+        while (permanentIndex < permanentAdjList.getSize() && deletionsIndex < deletions.
+            getSize()) {
+            int comparison = compare(deletions, deletionsIndex, permanentAdjList, permanentIndex);
+            if (comparison < 0) {
+                deletionsIndex++;
+            } else if (0 == comparison) {
+                deletionsIndex++;
+                permanentIndex++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips the added neighbours whose edge types do not match the {@code edgeTypeFilter} of the
+     * cursor.
+     */
+    private void skipAdditionsOfOtherTypes() {
+        if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter) {
+            return;
+        }
+        while (additionsIndex < additions.getSize() && additions.getEdgeType(additionsIndex) !=
+            edgeTypeFilter) {
+            additionsIndex++;
+        }
+    }
+
+    /**
+     * @return The ID of the current neighbour.
+     */
+    public int getNeighbourId() {
+        return neighbourId;
+    }
+
+    /**
+     * @return The type of the edge to the current neighbour.
+     */
+    public short getEdgeType() {
+        return edgeType;
+    }
+
+    /**
+     * @return The ID of the edge to the current neighbour.
+     */
+    public long getEdgeId() {
+        return edgeId;
+    }
+
+    /**
+     * @param vertexTypes The types of the vertices.
+     *
+     * @return The type of the current neighbour vertex. The types of the permanent neighbours are
+     * read from the neighbour vertex types of the columns if they are tagged.
+     */
+    short getNeighbourVertexType(ShortArrayList vertexTypes) {
+        if (isPermanentNeighbour && null != neighbourVertexTypes) {
+            return permanentAdjList.getNeighbourVertexType(permanentIndex - 1,
+                neighbourVertexTypes);
+        }
+        return vertexTypes.get(neighbourId);
+    }
+
+    /**
+     * Returns the ID of the edge with the given neighbour ID and edgeType.
+     *
+     * @param neighbourId The neighbour ID of the edge.
+     * @param edgeTypeFilter The type of the edge.
+     *
+     * @return The edge ID, or -1 if the edge is not in the merged adjacency list.
+     */
+    public long getEdgeId(int neighbourId, short edgeTypeFilter) {
+        if (null == delta) {
+            return permanentAdjList.getEdgeId(neighbourId, edgeTypeFilter);
+        }
+        int additionsIndex = additions.search(neighbourId, edgeTypeFilter);
+        int permanentIndex = delta.getFirstPermanentIndex(neighbourId, edgeTypeFilter,
+            permanentAdjList);
+        // With a {@link TypeAndPropertyKeyStore#ANY} filter, both lists may have a match. Return
+        // the one that comes first in the merged adjacency list.
+        if (permanentIndex > -1 && (additionsIndex < 0 || compare(permanentAdjList,
+            permanentIndex, additions, additionsIndex) <= 0)) {
+            return permanentAdjList.getEdgeId(permanentIndex);
+        }
+        return (additionsIndex > -1) ? additions.getEdgeId(additionsIndex) : -1;
+    }
+
+    /**
+     * @return {@code true} if the merged adjacency list has an edge to the given {@code
+     * neighbourId} with the given {@code edgeTypeFilter}.
+     */
+    public boolean contains(int neighbourId, short edgeTypeFilter) {
+        return -1 != getEdgeId(neighbourId, edgeTypeFilter);
+    }
+
+    /**
+     * Returns the subset of the neighbour IDs whose type matches the given {@code edgeTypeFilter}.
+     * If the permanent neighbours are tagged with their vertex types, these are read from the
+     * tags instead of {@code vertexTypes}.
+     *
+     * @see SortedAdjacencyList#getFilteredNeighbourIds(short, short, ShortArrayList)
+     */
+    public IntArrayList getFilteredNeighbourIds(short toVertexTypeFilter, short edgeTypeFilter,
+        ShortArrayList vertexTypes) {
+        if (null == delta) {
+            if (null != neighbourVertexTypes && TypeAndPropertyKeyStore.ANY !=
+                toVertexTypeFilter) {
+                return permanentAdjList.getFilteredNeighbourIdsByTags(toVertexTypeFilter,
+                    getPermanentEdgeTypeFilter(edgeTypeFilter), neighbourVertexTypes);
+            }
+            return permanentAdjList.getFilteredNeighbourIds(toVertexTypeFilter,
+                getPermanentEdgeTypeFilter(edgeTypeFilter), vertexTypes);
+        }
+        IntArrayList filteredList = new IntArrayList(getSize());
+        reset();
+        while (next()) {
+            if ((TypeAndPropertyKeyStore.ANY == toVertexTypeFilter ||
+                getNeighbourVertexType(vertexTypes) == toVertexTypeFilter) &&
+                (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || edgeType == edgeTypeFilter)) {
+                filteredList.add(neighbourId);
+            }
+        }
+        return filteredList;
+    }
+
+    /**
+     * Intersects the merged adjacency list with the given {@code sortedListToIntersect}. If the
+     * vertex is a hub, the neighbours are looked up in the bitmap of its permanent adjacency list
+     * from {@link HubAdjacencyBitmaps}. Otherwise, the permanent adjacency list is intersected
+     * with a merge or a galloping search depending on the relative sizes of the lists, see {@link
+     * SortedAdjacencyList#getIntersection(IntArrayList, short)}. If there is a delta, the
+     * additions and the permanent adjacency list are both searched with galloping search,
+     * starting from the position of the previous match, and the bitmap is used to skip the
+     * search of the permanent neighbours that are not in it.
+     *
+     * @see SortedAdjacencyList#getIntersection(IntArrayList, short)
+     */
+    public IntArrayList getIntersection(IntArrayList sortedListToIntersect, short edgeTypeFilter) {
+        RoaringBitmap permanentNeighbours = getPermanentNeighbourBitmap(edgeTypeFilter);
+        if (null == delta) {
+            if (null == permanentNeighbours) {
+                return permanentAdjList.getIntersection(sortedListToIntersect,
+                    getPermanentEdgeTypeFilter(edgeTypeFilter));
+            }
+            IntArrayList intersection = new IntArrayList();
+            for (int i = 0; i < sortedListToIntersect.getSize(); i++) {
+                if (permanentNeighbours.contains(sortedListToIntersect.get(i))) {
+                    intersection.add(sortedListToIntersect.get(i));
+                }
+            }
+            return intersection;
+        }
+        IntArrayList intersection = new IntArrayList();
+        int permanentStartIndex = 0;
+        int additionsStartIndex = 0;
+        for (int i = 0; i < sortedListToIntersect.getSize(); i++) {
+            int currentElement = sortedListToIntersect.get(i);
+            int resultIndex = additions.search(currentElement, edgeTypeFilter,
+                additionsStartIndex);
+            boolean isFound = resultIndex > -1;
+            additionsStartIndex = getNextStartIndex(resultIndex);
+            if (!isFound && (null == permanentNeighbours || permanentNeighbours.contains(
+                currentElement))) {
+                resultIndex = permanentAdjList.search(currentElement, edgeTypeFilter,
+                    permanentStartIndex);
+                isFound = delta.getFirstNotDeletedIndex(resultIndex, currentElement,
+                    edgeTypeFilter, permanentAdjList) > -1;
+                permanentStartIndex = getNextStartIndex(resultIndex);
+            }
+            if (isFound) {
+                intersection.add(currentElement);
+            }
+        }
+        return intersection;
+    }
+
+    /**
+     * @return The bitmap of the neighbour IDs of the permanent adjacency list if the vertex is a
+     * hub and the list is restricted to the given {@code edgeTypeFilter}, {@code null} otherwise.
+     */
+    private RoaringBitmap getPermanentNeighbourBitmap(short edgeTypeFilter) {
+        if (null == hubBitmaps || edgeTypeFilter != this.edgeTypeFilter) {
+            return null;
+        }
+        return hubBitmaps.getBitmap(vertexId, edgeTypeFilter);
+    }
+
+    /**
+     * @return The edge type filter to apply to the permanent adjacency list. If the cursor is
+     * restricted to {@code edgeTypeFilter}, all the permanent edges already have that type and no
+     * filtering is needed.
+     */
+    private short getPermanentEdgeTypeFilter(short edgeTypeFilter) {
+        return (edgeTypeFilter == this.edgeTypeFilter) ? TypeAndPropertyKeyStore.ANY :
+            edgeTypeFilter;
+    }
+
+    /**
+     * @return The index to start the next search from, given the result of the previous one.
+     */
+    private static int getNextStartIndex(int resultIndex) {
+        if (Integer.MIN_VALUE == resultIndex) {
+            return 0;
+        }
+        return (resultIndex > -1) ? resultIndex : -resultIndex;
+    }
+
+    /**
+     * Compares the neighbour at index {@code i} of list {@code a} with the neighbour at index
+     * {@code j} of list {@code b}, first by neighbour IDs and then by edge types.
+     */
+    private static int compare(SortedAdjacencyList a, int i, SortedAdjacencyList b, int j) {
+        if (a.getNeighbourId(i) != b.getNeighbourId(j)) {
+            return Integer.compare(a.getNeighbourId(i), b.getNeighbourId(j));
+        }
+        return Short.compare(a.getEdgeType(i), b.getEdgeType(j));
+    }
+}
@@ -0,0 +1,204 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.StringJoiner;
+
+/**
+ * A read-only view over the adjacency list of a vertex with edges of several types in a {@link
+ * CSRAdjacencyLists}. The columns of the vertex hold one segment per edge type, and the view
+ * merges the views over the segments on the fly into the order of {@link SortedAdjacencyList},
+ * first by neighbour IDs and then by edge types, without copying them.
+ * <p>
+ * The view keeps a cursor in each segment, so reading the neighbours in increasing order of
+ * indices, as intersections and scans do, moves each cursor forward once. Reading an index before
+ * the last one read restarts the cursors from the start of the segments. Searches do not read the
+ * neighbours one by one: the index of a neighbour is the sum of its ranks in the segments, which
+ * are searched separately. A view is not thread-safe, and should be read by the thread that got
+ * it from {@link CSRAdjacencyLists#getAdjacencyList(int)}.
+ */
+class MultiTypeSortedAdjacencyList extends SortedAdjacencyList {
+
+    // The views over the segments of the vertex, in increasing order of edge types.
+    private final SortedAdjacencyList[] segments;
+    // The index of the next neighbour of each segment that is not before the cursor, and the ID
+    // of that neighbour if the index is smaller than the size of the segment.
+    private final int[] nextIndices;
+    private final int[] nextNeighbourIds;
+    // The index of the view at which the cursor is, which is the sum of {@code nextIndices}.
+    private int index;
+
+    /**
+     * @param segments The views over the non-empty segments of the vertex, in increasing order of
+     * edge types.
+     * @param size The number of neighbours of the vertex.
+     */
+    MultiTypeSortedAdjacencyList(SortedAdjacencyList[] segments, int size) {
+        super(null /* neighbourIds */, null /* edgeTypes */, null /* edgeIds */,
+            0 /* startIndex */, size);
+        this.segments = segments;
+        this.nextIndices = new int[segments.length];
+        this.nextNeighbourIds = new int[segments.length];
+        for (int j = 0; j < segments.length; j++) {
+            nextNeighbourIds[j] = segments[j].getNeighbourId(0);
+        }
+    }
+
+    @Override
+    public int getNeighbourId(int index) {
+        int segment = moveTo(index);
+        return nextNeighbourIds[segment];
+    }
+
+    @Override
+    public short getEdgeType(int index) {
+        int segment = moveTo(index);
+        return segments[segment].getEdgeType(nextIndices[segment]);
+    }
+
+    @Override
+    public long getEdgeId(int index) {
+        int segment = moveTo(index);
+        return segments[segment].getEdgeId(nextIndices[segment]);
+    }
+
+    @Override
+    public long getEdgeId(int neighbourId, short edgeType) {
+        // The segment of the smallest type that has the neighbour holds the edge found with {@link
+        // TypeAndPropertyKeyStore#ANY}, as in {@link SortedAdjacencyList#search(int, short)}.
+        for (SortedAdjacencyList segment : segments) {
+            if (TypeAndPropertyKeyStore.ANY == edgeType || segment.getEdgeType(0) == edgeType) {
+                long edgeId = segment.getEdgeId(neighbourId, segment.getEdgeType(0));
+                if (edgeId >= 0) {
+                    return edgeId;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public IntArrayList getFilteredNeighbourIds(short toVertexTypeFilter, short edgeTypeFilter,
+        ShortArrayList vertexTypes) {
+        IntArrayList filteredList = new IntArrayList(getSize());
+        for (int i = 0; i < getSize(); i++) {
+            int neighbourId = getNeighbourId(i);
+            if ((TypeAndPropertyKeyStore.ANY == toVertexTypeFilter || vertexTypes.get(
+                neighbourId) == toVertexTypeFilter) && (TypeAndPropertyKeyStore.ANY ==
+                edgeTypeFilter || getEdgeType(i) == edgeTypeFilter)) {
+                filteredList.add(neighbourId);
+            }
+        }
+        return filteredList;
+    }
+
+    /**
+     * Searches for the given ({@code neighbourId},{@code edgeTypeFilter}) pair by searching it in
+     * each segment, and moves the cursor to the first neighbour that is not smaller than the pair.
+     * The return value is the same as that of {@link SortedAdjacencyList#search(int, short, int)}.
+     */
+    @Override
+    public int search(int neighbourId, short edgeTypeFilter, int startIndex) {
+        index = 0;
+        for (int j = 0; j < segments.length; j++) {
+            // The neighbours (u, t) of a segment of a type t smaller than {@code edgeTypeFilter}
+            // are smaller than the pair if u is smaller than or equal to {@code neighbourId}, and
+            // those of the other segments if u is smaller than {@code neighbourId}.
+            SortedAdjacencyList segment = segments[j];
+            short edgeType = segment.getEdgeType(0);
+            int segmentIndex = segment.search(neighbourId, edgeType);
+            if (segmentIndex < 0) {
+                segmentIndex = (Integer.MIN_VALUE == segmentIndex) ? ((segment.getNeighbourId(0) <
+                    neighbourId) ? 1 : 0) : 1 - segmentIndex;
+            } else if (edgeType < edgeTypeFilter) {
+                segmentIndex++;
+            }
+            setNextIndex(j, segmentIndex);
+            index += segmentIndex;
+        }
+        int resultIndex = Integer.max(index, startIndex);
+        if (resultIndex < getSize() && getNeighbourId(resultIndex) == neighbourId && (
+            TypeAndPropertyKeyStore.ANY == edgeTypeFilter || getEdgeType(resultIndex) ==
+                edgeTypeFilter)) {
+            return resultIndex;
+        }
+        // Return the negative value of the index before the largest pair which is smaller than
+        // ({@code neighbourId}, {@code edgeTypeFilter}), or {@code Integer.MIN_VALUE} if the index
+        // is 0.
+        return (resultIndex - 1 > 0) ? -(resultIndex - 1) : Integer.MIN_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ");
+        for (int i = 0; i < getSize(); i++) {
+            sj.add("{" + getNeighbourId(i) + ": " + getEdgeType(i) + "}");
+        }
+        return "[" + sj.toString() + "]";
+    }
+
+    @Override
+    public void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeInt(getSize());
+        // The view is deserialized into a list that owns arrays of exactly its size.
+        objectOutputStream.writeInt(getSize());
+        objectOutputStream.writeInt(getSize());
+        objectOutputStream.writeInt(getSize());
+        for (int i = 0; i < getSize(); i++) {
+            objectOutputStream.writeInt(getNeighbourId(i));
+            objectOutputStream.writeShort(getEdgeType(i));
+            objectOutputStream.writeLong(getEdgeId(i));
+        }
+    }
+
+    /**
+     * Moves the cursor to the given {@code index} of the view.
+     *
+     * @return The segment whose next neighbour is the neighbour at {@code index}.
+     *
+     * @throws ArrayIndexOutOfBoundsException If {@code index} is not smaller than the size of the
+     * view.
+     */
+    private int moveTo(int index) {
+        if (index >= getSize()) {
+            throw new ArrayIndexOutOfBoundsException("No edge at index " + index + ".");
+        }
+        if (index < this.index) {
+            for (int j = 0; j < segments.length; j++) {
+                setNextIndex(j, 0 /* nextIndex */);
+            }
+            this.index = 0;
+        }
+        int segment = getNextSegment();
+        for (; this.index < index; this.index++) {
+            setNextIndex(segment, nextIndices[segment] + 1);
+            segment = getNextSegment();
+        }
+        return segment;
+    }
+
+    /**
+     * @return The segment whose next neighbour is the neighbour at the cursor. Segments are in
+     * increasing order of types, so this is the first segment with the smallest next neighbour ID.
+     */
+    private int getNextSegment() {
+        int nextSegment = -1;
+        for (int j = 0; j < segments.length; j++) {
+            if (nextIndices[j] < segments[j].getSize() && (-1 == nextSegment ||
+                nextNeighbourIds[j] < nextNeighbourIds[nextSegment])) {
+                nextSegment = j;
+            }
+        }
+        return nextSegment;
+    }
+
+    private void setNextIndex(int segment, int nextIndex) {
+        nextIndices[segment] = nextIndex;
+        if (nextIndex < segments[segment].getSize()) {
+            nextNeighbourIds[segment] = segments[segment].getNeighbourId(nextIndex);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+
+/**
+ * Tags the entries of the columns of the permanent {@link CSRAdjacencyLists} of one direction
+ * with the types of their neighbour vertices, in a column aligned with the neighbour IDs column.
+ * Filtering an adjacency list by the type of its neighbours then reads a contiguous range of this
+ * column instead of looking up the type of each neighbour in the vertex types of {@link Graph},
+ * which is a random access per neighbour. The index is built when a {@link GraphSnapshot} is
+ * published and is immutable: a permanent vertex whose type changes requires a new index.
+ */
+class NeighbourVertexTypeIndex {
+
+    private final short[] neighbourVertexTypes;
+
+    private NeighbourVertexTypeIndex(short[] neighbourVertexTypes) {
+        this.neighbourVertexTypes = neighbourVertexTypes;
+    }
+
+    /**
+     * Builds the index of the given {@code adjLists}. Ranges of vertices are tagged in parallel.
+     *
+     * @param adjLists The permanent adjacency lists.
+     * @param vertexTypes The types of the vertices.
+     *
+     * @return The index.
+     */
+    static NeighbourVertexTypeIndex build(CSRAdjacencyLists adjLists, ShortArrayList vertexTypes) {
+        return update(null /* no old index */, null /* no old adjLists */, adjLists,
+            null /* all vertices changed */, vertexTypes);
+    }
+
+    /**
+     * Builds the index of {@code newAdjLists}, which are the {@code oldAdjLists} with the given
+     * {@code adjListDeltas} applied. The tags of the vertices without deltas are copied from the
+     * {@code oldIndex}, so the types of the vertices of {@code oldAdjLists} should not have
+     * changed.
+     *
+     * @param oldIndex The index of {@code oldAdjLists}, or {@code null} to tag all the vertices.
+     * @param oldAdjLists The old permanent adjacency lists.
+     * @param newAdjLists The new permanent adjacency lists.
+     * @param adjListDeltas The changes applied to {@code oldAdjLists}, or {@code null} to tag all
+     * the vertices.
+     * @param vertexTypes The types of the vertices.
+     *
+     * @return The index of {@code newAdjLists}.
+     */
+    static NeighbourVertexTypeIndex update(NeighbourVertexTypeIndex oldIndex,
+        CSRAdjacencyLists oldAdjLists, CSRAdjacencyLists newAdjLists,
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas, ShortArrayList vertexTypes) {
+        short[] newNeighbourVertexTypes = new short[newAdjLists.getNumEdges()];
+        int[] rangeBoundaries = newAdjLists.getVertexRangeBoundaries();
+        CSRAdjacencyLists.forEachRange(rangeBoundaries.length - 1, range -> {
+            int vertexId = rangeBoundaries[range];
+            while (vertexId < rangeBoundaries[range + 1]) {
+                if (null == oldIndex || adjListDeltas.containsKey(vertexId) || vertexId >=
+                    oldAdjLists.getNumVertices()) {
+                    newAdjLists.getNeighbourVertexTypes(vertexId, vertexTypes,
+                        newNeighbourVertexTypes);
+                    vertexId++;
+                    continue;
+                }
+                // The unchanged adjacency lists of consecutive vertices are also consecutive in
+                // the old columns, so their tags are copied at once.
+                int firstVertexId = vertexId;
+                while (vertexId < rangeBoundaries[range + 1] && !adjListDeltas.containsKey(
+                    vertexId) && vertexId < oldAdjLists.getNumVertices()) {
+                    vertexId++;
+                }
+                int oldStartIndex = oldAdjLists.getStartIndex(firstVertexId);
+                System.arraycopy(oldIndex.neighbourVertexTypes, oldStartIndex,
+                    newNeighbourVertexTypes, newAdjLists.getStartIndex(firstVertexId),
+                    oldAdjLists.getStartIndex(vertexId) - oldStartIndex);
+            }
+        });
+        return new NeighbourVertexTypeIndex(newNeighbourVertexTypes);
+    }
+
+    /**
+     * @param index An index of the columns of the adjacency lists.
+     *
+     * @return The type of the neighbour vertex at the given {@code index}.
+     */
+    short get(int index) {
+        return neighbourVertexTypes[index];
+    }
+}
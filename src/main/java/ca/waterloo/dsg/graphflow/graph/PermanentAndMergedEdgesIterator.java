@@ -2,10 +2,10 @@ package ca.waterloo.dsg.graphflow.graph;
 
 import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
 import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
 import ca.waterloo.dsg.graphflow.util.ShortArrayList;
 
 import java.util.Iterator;
-import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -14,19 +14,26 @@ import java.util.NoSuchElementException;
 public class PermanentAndMergedEdgesIterator implements Iterator<int[]> {
 
     private GraphVersion graphVersion;
-    private SortedAdjacencyList[] permanentAdjacencyLists;
-    private Map<Integer, SortedAdjacencyList> mergedAdjLists;
+    private CSRAdjacencyLists permanentAdjacencyLists;
+    private IntToObjectMap<AdjacencyListDelta> adjListDeltas;
     private ShortArrayList vertexTypes;
+    // The neighbour vertex types of the columns of {@code permanentAdjacencyLists}, or {@code
+    // null} if they are not tagged.
+    private NeighbourVertexTypeIndex neighbourVertexTypes;
     private int lastVertexId;
     // Stores the next source vertex ID. 0 <= {@code nextFromVertexId} <= {@code lastVertexId}.
     private int nextFromVertexId = 0;
-    // Stores the next destination vertex ID, represented by an index to the adjacency list of
-    // {@code nextFromVertexId}. 0 <= {@code nextFromVertexIdAdjListIndex} < length of adjacency
-    // list of {@code nextFromVertexId}.
-    private int nextFromVertexAdjListIndex = -1;
+    // The cursor over the adjacency list of {@code nextFromVertexId}, positioned at the next
+    // destination vertex. The cursor is restricted to {@code edgeTypeFilter}, so only the segment
+    // of that edge type of the permanent adjacency list is read. {@code null} before the
+    // adjacency list of {@code nextFromVertexId} is read.
+    private MergedAdjacencyListCursor adjListCursor;
     private short fromVertexTypeFilter;
     private short toVertexTypeFilter;
     private short edgeTypeFilter;
+    // Skips the blocks of from vertices without a vertex in the ranges of the filter, or {@code
+    // null} if no block is skipped.
+    private ZoneMapFilter fromVertexFilter;
 
     /**
      * Constructor for {@link PermanentAndMergedEdgesIterator} with all possible vertex and edge
@@ -35,79 +42,76 @@ public class PermanentAndMergedEdgesIterator implements Iterator<int[]> {
      * @param graphVersion The version of the graph to be used for retrieving edges.
      * @param permanentAdjacencyLists The adjacency lists for the permanent version of the graph in
      * the {@link Direction#FORWARD} or {@link Direction#BACKWARD} directions.
-     * @param mergedAdjLists The adjacency lists for the merged version of the graph in the {@link
-     * Direction#FORWARD} or {@link Direction#BACKWARD} directions.
+     * @param adjListDeltas The temporary changes to the adjacency lists in the {@link
+     * Direction#FORWARD} or {@link Direction#BACKWARD} directions, used for the merged version of
+     * the graph.
      * @param vertexTypes The types of the graph vertices.
+     * @param neighbourVertexTypes The neighbour vertex types of the columns of {@code
+     * permanentAdjacencyLists}, or {@code null} if they are not tagged.
      * @param fromVertexTypeFilter The type of the from vertex which the iterated edges should
      * have.
      * @param toVertexTypeFilter The type of the to vertex which the iterated edges should have.
      * @param edgeTypeFilter The type which the iterated edges should have.
      * @param lastVertexId The vertex with the highest ID for the given graph version.
+     * @param fromVertexFilter Skips the blocks of from vertices the filter rules out, or {@code
+     * null} if no block is skipped.
      */
     public PermanentAndMergedEdgesIterator(GraphVersion graphVersion,
-        SortedAdjacencyList[] permanentAdjacencyLists,
-        Map<Integer, SortedAdjacencyList> mergedAdjLists, ShortArrayList vertexTypes,
-        short fromVertexTypeFilter, short toVertexTypeFilter, short edgeTypeFilter,
-        int lastVertexId) {
+        CSRAdjacencyLists permanentAdjacencyLists,
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas, ShortArrayList vertexTypes,
+        NeighbourVertexTypeIndex neighbourVertexTypes, short fromVertexTypeFilter,
+        short toVertexTypeFilter, short edgeTypeFilter, int lastVertexId,
+        ZoneMapFilter fromVertexFilter) {
         this.graphVersion = graphVersion;
         this.permanentAdjacencyLists = permanentAdjacencyLists;
-        this.mergedAdjLists = mergedAdjLists;
+        this.adjListDeltas = adjListDeltas;
         this.vertexTypes = vertexTypes;
+        this.neighbourVertexTypes = neighbourVertexTypes;
         this.fromVertexTypeFilter = fromVertexTypeFilter;
         this.toVertexTypeFilter = toVertexTypeFilter;
         this.edgeTypeFilter = edgeTypeFilter;
         this.lastVertexId = lastVertexId;
+        this.fromVertexFilter = fromVertexFilter;
         setIndicesToNextEdge();
     }
 
     /**
-     * Updates {@code nextFromVertexId} and {@code nextFromVertexIdAdjListIndex} to point to the
-     * next edge of the graph.
+     * Updates {@code nextFromVertexId} and {@code adjListCursor} to point to the next edge of the
+     * graph.
      */
     private void setIndicesToNextEdge() {
-        int toVertexId;
         while (nextFromVertexId <= lastVertexId) {
-            nextFromVertexAdjListIndex++;
-            if (GraphVersion.MERGED == graphVersion && mergedAdjLists.
-                containsKey(nextFromVertexId)) {
-                // {@code nextFromVertexId} matches the given {@link #fromVertexType} and is
-                // present in the merged graph.
-                while (nextFromVertexAdjListIndex < mergedAdjLists.get(nextFromVertexId).
-                    getSize()) {
-                    toVertexId = mergedAdjLists.get(nextFromVertexId).getNeighbourId(
-                        nextFromVertexAdjListIndex);
-                    SortedAdjacencyList fromVertexMergedAdjList = mergedAdjLists.get(
-                        nextFromVertexId);
-                    if ((TypeAndPropertyKeyStore.ANY == fromVertexTypeFilter ||
-                        vertexTypes.get(nextFromVertexId) == fromVertexTypeFilter) &&
-                        (TypeAndPropertyKeyStore.ANY == toVertexTypeFilter ||
-                            vertexTypes.get(toVertexId) == toVertexTypeFilter) &&
-                        (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || fromVertexMergedAdjList.
-                            getEdgeType(nextFromVertexAdjListIndex) == edgeTypeFilter)) {
-                        return;
-                    }
-                    nextFromVertexAdjListIndex++;
-                }
-            } else if (null != permanentAdjacencyLists[nextFromVertexId]) {
-                while (nextFromVertexAdjListIndex < permanentAdjacencyLists[nextFromVertexId].
-                    getSize()) {
-                    toVertexId = permanentAdjacencyLists[nextFromVertexId].getNeighbourId(
-                        nextFromVertexAdjListIndex);
-                    SortedAdjacencyList fromVertexPermanentAdjList = permanentAdjacencyLists[
-                        nextFromVertexId];
-                    if ((TypeAndPropertyKeyStore.ANY == fromVertexTypeFilter ||
-                        vertexTypes.get(nextFromVertexId) == fromVertexTypeFilter) &&
-                        (TypeAndPropertyKeyStore.ANY == toVertexTypeFilter ||
-                            vertexTypes.get(toVertexId) == toVertexTypeFilter) &&
-                        (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || fromVertexPermanentAdjList
-                            .getEdgeType(nextFromVertexAdjListIndex) == edgeTypeFilter)) {
+            if (null == adjListCursor && null != fromVertexFilter && !fromVertexFilter.mayMatch(
+                nextFromVertexId)) {
+                // No vertex of the block of {@code nextFromVertexId} is in the ranges.
+                nextFromVertexId = (ZoneMaps.getBlockId(nextFromVertexId) + 1) *
+                    ZoneMaps.BLOCK_SIZE;
+                continue;
+            }
+            if (null == adjListCursor) {
+                // Vertices without temporary changes, or any vertex in the permanent graph, are
+                // read from the permanent adjacency lists only.
+                AdjacencyListDelta delta = (GraphVersion.MERGED == graphVersion) ?
+                    adjListDeltas.get(nextFromVertexId) : null;
+                adjListCursor = new MergedAdjacencyListCursor(permanentAdjacencyLists.
+                    getAdjacencyList(nextFromVertexId, edgeTypeFilter), delta, edgeTypeFilter,
+                    null /* no hub bitmaps */, nextFromVertexId, permanentAdjacencyLists.
+                    isViewOverColumns(nextFromVertexId, edgeTypeFilter) ? neighbourVertexTypes :
+                    null);
+            }
+            if (TypeAndPropertyKeyStore.ANY == fromVertexTypeFilter || vertexTypes.get(
+                nextFromVertexId) == fromVertexTypeFilter) {
+                while (adjListCursor.next()) {
+                    if ((TypeAndPropertyKeyStore.ANY == toVertexTypeFilter || adjListCursor.
+                        getNeighbourVertexType(vertexTypes) == toVertexTypeFilter) &&
+                        (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || adjListCursor.
+                            getEdgeType() == edgeTypeFilter)) {
                         return;
                     }
-                    nextFromVertexAdjListIndex++;
                 }
             }
             nextFromVertexId++;
-            nextFromVertexAdjListIndex = -1;
+            adjListCursor = null;
         }
     }
 
@@ -125,17 +129,7 @@ public class PermanentAndMergedEdgesIterator implements Iterator<int[]> {
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        int[] result;
-        if (GraphVersion.MERGED == graphVersion && mergedAdjLists.containsKey(nextFromVertexId)) {
-            // {@code nextFromVertexId} is present in the merged graph.
-            result = new int[]{nextFromVertexId, mergedAdjLists.get(nextFromVertexId).
-                getNeighbourId(nextFromVertexAdjListIndex)};
-        } else {
-            // Send the permanent version of {@code nextFromVertexId} even for a merged graph
-            // request, because the merged version of {@code nextFromVertexId} is not present.
-            result = new int[]{nextFromVertexId, permanentAdjacencyLists[nextFromVertexId].
-                getNeighbourId(nextFromVertexAdjListIndex)};
-        }
+        int[] result = new int[]{nextFromVertexId, adjListCursor.getNeighbourId()};
         setIndicesToNextEdge();
         return result;
     }
@@ -0,0 +1,525 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The properties of the records of a property store, i.e., the vertices of the {@link
+ * VertexPropertyStore} or the edges of the {@link EdgeStore}, in one column per property key. A
+ * column holds the values of its key in a primitive array indexed by the index of the record: an
+ * {@code int[]} for {@link DataType#INTEGER}, a {@code double[]} for {@link DataType#DOUBLE}, a
+ * bitset for {@link DataType#BOOLEAN}, and offsets and lengths into a heap of UTF-8 bytes for
+ * {@link DataType#STRING} properties. Each column also has a bitset of the records that have a
+ * value for its key, so a record without the property is a cleared bit.
+ * <p>
+ * Reading a property is an array access in the column of its key, without walking and decoding
+ * the serialized properties of the record, and the typed getters such as {@link #getInt(int,
+ * short)} return the values without boxing them.
+ */
+class PropertyColumns {
+
+    // The column of each property key, or {@code null} if no record has a property with the key.
+    private Column[] columns = new Column[0];
+    // One more than the highest index of a record whose properties have been set.
+    private int numRecords;
+
+    /**
+     * Overwrites the properties of the record at the given {@code index} with the given {@code
+     * properties}. The record has no other properties afterwards.
+     *
+     * @param index The index of the record.
+     * @param properties The properties of the record as <key, <DataType, value>> pairs, or {@code
+     * null} if the record has no properties.
+     *
+     * @throws IllegalArgumentException if a value cannot be parsed as its data type.
+     */
+    void set(int index, Map<Short, Pair<DataType, String>> properties) {
+        clear(index);
+        if (null == properties) {
+            return;
+        }
+        for (Map.Entry<Short, Pair<DataType, String>> property : properties.entrySet()) {
+            DataType dataType = property.getValue().a;
+            String value = property.getValue().b;
+            if (null == value) {
+                throw new IllegalArgumentException("String value passed is null.");
+            }
+            try {
+                getOrCreateColumn(property.getKey(), dataType).set(index, value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The string value " + value + " can not be " +
+                    "parsed as " + dataType.name() + ".");
+            }
+        }
+    }
+
+    /**
+     * Removes all the properties of the record at the given {@code index}.
+     */
+    void clear(int index) {
+        numRecords = Integer.max(numRecords, index + 1);
+        for (Column column : columns) {
+            if (null != column) {
+                column.clear(index);
+            }
+        }
+    }
+
+    /**
+     * @return One more than the highest index of a record whose properties have been set.
+     */
+    int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * @return {@code true} if the record at the given {@code index} does not have a property with
+     * the given {@code key}, {@code false} otherwise.
+     */
+    boolean isNull(int index, short key) {
+        return key < 0 || key >= columns.length || null == columns[key] || columns[key].isNull(
+            index);
+    }
+
+    /**
+     * @return The value of the property with the given {@code key} of the record at the given
+     * {@code index}, or {@code null} if the record does not have the property.
+     */
+    Object get(int index, short key) {
+        return isNull(index, key) ? null : columns[key].get(index);
+    }
+
+    /**
+     * @return The properties of the record at the given {@code index} as <key, value> pairs.
+     */
+    Map<Short, Object> getAll(int index) {
+        Map<Short, Object> properties = new HashMap<>();
+        for (short key = 0; key < columns.length; key++) {
+            if (!isNull(index, key)) {
+                properties.put(key, columns[key].get(index));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * The typed getters read the value of a property of the record at the given {@code index}
+     * whose key has the data type of the getter, without boxing it. The value of a property the
+     * record does not have, see {@link #isNull(int, short)}, is the default value of the type.
+     *
+     * @throws ClassCastException if the data type of the {@code key} is not the one of the getter.
+     */
+    int getInt(int index, short key) {
+        return isNull(index, key) ? 0 : ((IntColumn) columns[key]).values[index];
+    }
+
+    /**
+     * @see #getInt(int, short)
+     */
+    double getDouble(int index, short key) {
+        return isNull(index, key) ? 0 : ((DoubleColumn) columns[key]).values[index];
+    }
+
+    /**
+     * @see #getInt(int, short)
+     */
+    boolean getBoolean(int index, short key) {
+        return !isNull(index, key) && isSet(((BooleanColumn) columns[key]).values, index);
+    }
+
+    /**
+     * @see #getInt(int, short)
+     */
+    String getString(int index, short key) {
+        return isNull(index, key) ? null : ((StringColumn) columns[key]).get(index);
+    }
+
+    /**
+     * Points the given {@code stringBytes} to the UTF-8 bytes of the string property with the
+     * given {@code key} of the record at the given {@code index}, without copying them.
+     *
+     * @return {@code false} if the record does not have the property, {@code true} otherwise.
+     */
+    boolean getStringBytes(int index, short key, StringBytes stringBytes) {
+        if (isNull(index, key)) {
+            return false;
+        }
+        StringColumn column = (StringColumn) columns[key];
+        stringBytes.reset(column.heap, column.offsets[index], column.lengths[index]);
+        return true;
+    }
+
+    /**
+     * Moves the properties of each record at index i to {@code newIndices[i]}. The records at
+     * indices that are not smaller than {@code newIndices.length} are not moved.
+     *
+     * @param newIndices A permutation of [0, {@code newIndices.length}).
+     */
+    void relabel(int[] newIndices) {
+        for (int key = 0; key < columns.length; key++) {
+            if (null == columns[key]) {
+                continue;
+            }
+            Column relabelledColumn = newColumn(columns[key].getDataType());
+            for (int index = 0; index < numRecords; index++) {
+                if (!columns[key].isNull(index)) {
+                    relabelledColumn.setValue((index < newIndices.length) ? newIndices[index] :
+                        index, columns[key].get(index));
+                }
+            }
+            columns[key] = relabelledColumn;
+        }
+        numRecords = Integer.max(numRecords, newIndices.length);
+    }
+
+    /**
+     * Serializes the columns to the given {@link ObjectOutputStream}.
+     *
+     * @param objectOutputStream The {@link ObjectOutputStream} to write serialized data to.
+     */
+    void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeInt(numRecords);
+        objectOutputStream.writeInt(columns.length);
+        for (Column column : columns) {
+            objectOutputStream.writeObject((null == column) ? null : column.getDataType());
+            if (null != column) {
+                objectOutputStream.writeObject(column.isPresent);
+                column.serialize(objectOutputStream);
+            }
+        }
+    }
+
+    /**
+     * Deserializes the columns from the given {@link ObjectInputStream}.
+     *
+     * @param objectInputStream The {@link ObjectInputStream} to read serialized data from.
+     */
+    void deserialize(ObjectInputStream objectInputStream) throws IOException,
+        ClassNotFoundException {
+        numRecords = objectInputStream.readInt();
+        columns = new Column[objectInputStream.readInt()];
+        for (int key = 0; key < columns.length; key++) {
+            DataType dataType = (DataType) objectInputStream.readObject();
+            if (null != dataType) {
+                columns[key] = newColumn(dataType);
+                columns[key].isPresent = (long[]) objectInputStream.readObject();
+                columns[key].deserialize(objectInputStream);
+            }
+        }
+    }
+
+    private Column getOrCreateColumn(short key, DataType dataType) {
+        if (key >= columns.length) {
+            columns = Arrays.copyOf(columns, key + 1);
+        }
+        if (null == columns[key]) {
+            columns[key] = newColumn(dataType);
+        }
+        return columns[key];
+    }
+
+    private static Column newColumn(DataType dataType) {
+        switch (dataType) {
+            case INTEGER:
+                return new IntColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            case BOOLEAN:
+                return new BooleanColumn();
+            case STRING:
+                return new StringColumn();
+            default:
+                throw new IllegalArgumentException("The data type " + dataType + " is null or " +
+                    "not supported.");
+        }
+    }
+
+    private static boolean isSet(long[] bitset, int index) {
+        int word = index >>> 6;
+        return word < bitset.length && 0 != (bitset[word] & (1L << index));
+    }
+
+    private static long[] set(long[] bitset, int index, boolean value) {
+        if (value) {
+            bitset = ArrayUtils.resizeIfNecessary(bitset, (index >>> 6) + 1, 0 /* default */);
+            bitset[index >>> 6] |= 1L << index;
+        } else if ((index >>> 6) < bitset.length) {
+            bitset[index >>> 6] &= ~(1L << index);
+        }
+        return bitset;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    static boolean isSameAs(PropertyColumns a, PropertyColumns b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b || a.numRecords != b.numRecords) {
+            return false;
+        }
+        for (int index = 0; index < a.numRecords; index++) {
+            if (!Objects.equals(a.getAll(index), b.getAll(index))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The values of one property key. The values of the records without the property are
+     * undefined.
+     */
+    private abstract static class Column {
+
+        // The bitset of the indices of the records that have the property.
+        long[] isPresent = new long[0];
+
+        boolean isNull(int index) {
+            return !isSet(isPresent, index);
+        }
+
+        void clear(int index) {
+            isPresent = PropertyColumns.set(isPresent, index, false);
+        }
+
+        void set(int index, String value) {
+            setValue(index, DataType.parseDataType(getDataType(), value));
+        }
+
+        void setValue(int index, Object value) {
+            isPresent = PropertyColumns.set(isPresent, index, true);
+        }
+
+        abstract DataType getDataType();
+
+        abstract Object get(int index);
+
+        abstract void serialize(ObjectOutputStream objectOutputStream) throws IOException;
+
+        abstract void deserialize(ObjectInputStream objectInputStream) throws IOException,
+            ClassNotFoundException;
+    }
+
+    private static class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        @Override
+        void set(int index, String value) {
+            setValue(index, Integer.parseInt(value));
+        }
+
+        @Override
+        void setValue(int index, Object value) {
+            values = ArrayUtils.resizeIfNecessary(values, index + 1);
+            values[index] = (int) value;
+            super.setValue(index, value);
+        }
+
+        @Override
+        DataType getDataType() {
+            return DataType.INTEGER;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+            objectOutputStream.writeObject(values);
+        }
+
+        @Override
+        void deserialize(ObjectInputStream objectInputStream) throws IOException,
+            ClassNotFoundException {
+            values = (int[]) objectInputStream.readObject();
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+
+        @Override
+        void set(int index, String value) {
+            setValue(index, Double.parseDouble(value));
+        }
+
+        @Override
+        void setValue(int index, Object value) {
+            values = ArrayUtils.resizeIfNecessary(values, index + 1, 0 /* default value */);
+            values[index] = (double) value;
+            super.setValue(index, value);
+        }
+
+        @Override
+        DataType getDataType() {
+            return DataType.DOUBLE;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+            objectOutputStream.writeObject(values);
+        }
+
+        @Override
+        void deserialize(ObjectInputStream objectInputStream) throws IOException,
+            ClassNotFoundException {
+            values = (double[]) objectInputStream.readObject();
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        private long[] values = new long[0];
+
+        @Override
+        void set(int index, String value) {
+            setValue(index, Boolean.parseBoolean(value));
+        }
+
+        @Override
+        void setValue(int index, Object value) {
+            values = PropertyColumns.set(values, index, (boolean) value);
+            super.setValue(index, value);
+        }
+
+        @Override
+        DataType getDataType() {
+            return DataType.BOOLEAN;
+        }
+
+        @Override
+        Object get(int index) {
+            return isSet(values, index);
+        }
+
+        @Override
+        void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+            objectOutputStream.writeObject(values);
+        }
+
+        @Override
+        void deserialize(ObjectInputStream objectInputStream) throws IOException,
+            ClassNotFoundException {
+            values = (long[]) objectInputStream.readObject();
+        }
+    }
+
+    /**
+     * The UTF-8 bytes of the values are appended to a heap. An overwritten value leaves its bytes
+     * in the heap until the heap is compacted, once most of its bytes are overwritten values.
+     */
+    private static class StringColumn extends Column {
+
+        private static final int MIN_HEAP_SIZE_TO_COMPACT = 1 << 16;
+
+        private byte[] heap = new byte[0];
+        private int heapSize;
+        private int numOverwrittenBytes;
+        private int[] offsets = new int[0];
+        private int[] lengths = new int[0];
+
+        @Override
+        void clear(int index) {
+            if (!isNull(index)) {
+                numOverwrittenBytes += lengths[index];
+            }
+            super.clear(index);
+        }
+
+        @Override
+        void set(int index, String value) {
+            setValue(index, value);
+        }
+
+        @Override
+        void setValue(int index, Object value) {
+            clear(index);
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            heap = ArrayUtils.resizeIfNecessary(heap, heapSize + bytes.length);
+            System.arraycopy(bytes, 0, heap, heapSize, bytes.length);
+            offsets = ArrayUtils.resizeIfNecessary(offsets, index + 1);
+            lengths = ArrayUtils.resizeIfNecessary(lengths, index + 1);
+            offsets[index] = heapSize;
+            lengths[index] = bytes.length;
+            heapSize += bytes.length;
+            super.setValue(index, value);
+            if (heapSize >= MIN_HEAP_SIZE_TO_COMPACT && 2 * numOverwrittenBytes > heapSize) {
+                compact();
+            }
+        }
+
+        @Override
+        DataType getDataType() {
+            return DataType.STRING;
+        }
+
+        @Override
+        String get(int index) {
+            return new String(heap, offsets[index], lengths[index], StandardCharsets.UTF_8);
+        }
+
+        private void compact() {
+            byte[] compactedHeap = new byte[heapSize - numOverwrittenBytes];
+            int compactedHeapSize = 0;
+            for (int index = 0; index < offsets.length; index++) {
+                if (!isNull(index)) {
+                    System.arraycopy(heap, offsets[index], compactedHeap, compactedHeapSize,
+                        lengths[index]);
+                    offsets[index] = compactedHeapSize;
+                    compactedHeapSize += lengths[index];
+                }
+            }
+            heap = compactedHeap;
+            heapSize = compactedHeapSize;
+            numOverwrittenBytes = 0;
+        }
+
+        @Override
+        void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+            if (numOverwrittenBytes > 0) {
+                compact();
+            }
+            objectOutputStream.writeObject(Arrays.copyOf(heap, heapSize));
+            objectOutputStream.writeObject(offsets);
+            objectOutputStream.writeObject(lengths);
+        }
+
+        @Override
+        void deserialize(ObjectInputStream objectInputStream) throws IOException,
+            ClassNotFoundException {
+            heap = (byte[]) objectInputStream.readObject();
+            heapSize = heap.length;
+            offsets = (int[]) objectInputStream.readObject();
+            lengths = (int[]) objectInputStream.readObject();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+/**
+ * An index on the property with a given key of the vertices or the edges of a given type,
+ * created with {@code CREATE INDEX ON :Type(key)} for vertices and {@code CREATE INDEX ON
+ * [:Type](key)} for edges. The index maps the values of the property to the IDs of the vertices
+ * that have them, or to the from and to vertex IDs of the edges that have them, so a {@code MATCH}
+ * query with a predicate on the property only scans the matching vertices or edges. Indexes on
+ * {@code INTEGER} and {@code DOUBLE} properties are {@link SortedPropertyIndex}es, which look up
+ * ranges of values, and the other indexes are {@link HashPropertyIndex}es, which look up single
+ * values. The indexes are maintained by {@link PropertyIndexStore}.
+ */
+public abstract class PropertyIndex {
+
+    private boolean isVertexIndex;
+    private short type;
+    private short key;
+
+    /**
+     * @param isVertexIndex {@code true} to index the properties of vertices, {@code false} to
+     * index the properties of edges.
+     * @param type The type of the indexed vertices or edges.
+     * @param key The key of the indexed property.
+     */
+    PropertyIndex(boolean isVertexIndex, short type, short key) {
+        this.isVertexIndex = isVertexIndex;
+        this.type = type;
+        this.key = key;
+    }
+
+    public boolean isVertexIndex() {
+        return isVertexIndex;
+    }
+
+    public short getType() {
+        return type;
+    }
+
+    public short getKey() {
+        return key;
+    }
+
+    /**
+     * @return {@code true} if the index looks up ranges of values, {@code false} if it only looks
+     * up single values.
+     */
+    public abstract boolean isRangeIndex();
+
+    /**
+     * @return The number of vertices or edges in the index.
+     */
+    public abstract int getSize();
+
+    /**
+     * @return The IDs of the vertices whose indexed property is in the given {@code range}. Only
+     * valid for vertex indexes.
+     *
+     * @throws UnsupportedOperationException If the range is not a point and the index is not a
+     * range index.
+     */
+    public abstract int[] getVertexIds(PropertyRange range);
+
+    /**
+     * @return The {@code {fromVertexId, toVertexId}} pairs of the edges whose indexed property is
+     * in the given {@code range}. Only valid for edge indexes.
+     *
+     * @throws UnsupportedOperationException If the range is not a point and the index is not a
+     * range index.
+     */
+    public abstract int[][] getEdges(PropertyRange range);
+
+    /**
+     * @return The IDs of the vertices whose indexed property has the given {@code value}. Only
+     * valid for vertex indexes.
+     */
+    public int[] getVertexIds(Object value) {
+        return getVertexIds(PropertyRange.equalTo(value));
+    }
+
+    /**
+     * @return The {@code {fromVertexId, toVertexId}} pairs of the edges whose indexed property has
+     * the given {@code value}. Only valid for edge indexes.
+     */
+    public int[][] getEdges(Object value) {
+        return getEdges(PropertyRange.equalTo(value));
+    }
+
+    abstract void addVertex(Object value, int vertexId);
+
+    abstract void removeVertex(Object value, int vertexId);
+
+    abstract void addEdge(Object value, int fromVertexId, int toVertexId, long edgeId);
+
+    abstract void removeEdge(Object value, long edgeId);
+
+    /**
+     * Removes all the entries of the index before it is rebuilt, see {@link #finishBuild()}.
+     */
+    abstract void clear();
+
+    /**
+     * Called once all the entries have been added to a new or cleared index.
+     */
+    void finishBuild() { }
+}
@@ -0,0 +1,315 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
+import ca.waterloo.dsg.graphflow.graph.serde.MainFileSerDeHelper;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stores the {@link PropertyIndex}es of the graph and keeps them up to date: the vertex indexes
+ * are updated when the type or the properties of a vertex are set, which is immediately permanent,
+ * and the edge indexes are updated with the permanent graph when the changes are finalized. The
+ * indexes are rebuilt from the graph when the graph is bulk loaded, relabeled or deserialized, so
+ * only the definitions of the indexes are serialized.
+ */
+public class PropertyIndexStore implements GraphflowSerializable {
+
+    private static final String SERDE_FILE_NAME_PREFIX = "property_index_store";
+    private static PropertyIndexStore INSTANCE = new PropertyIndexStore();
+
+    private List<PropertyIndex> vertexIndexes = new ArrayList<>();
+    private List<PropertyIndex> edgeIndexes = new ArrayList<>();
+
+    /**
+     * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
+     * class.
+     */
+    private PropertyIndexStore() { }
+
+    /**
+     * Creates an index on the property with the given {@code key} of the vertices or the edges of
+     * the given {@code type}, and builds it from the current graph.
+     *
+     * @param isVertexIndex {@code true} to index the properties of vertices, {@code false} to
+     * index the properties of edges.
+     * @param type The type of the indexed vertices or edges.
+     * @param key The key of the indexed property.
+     *
+     * @return The new index.
+     *
+     * @throws IllegalArgumentException If the index already exists.
+     */
+    public PropertyIndex createIndex(boolean isVertexIndex, short type, short key) {
+        if (null != getIndex(isVertexIndex, type, key)) {
+            throw new IllegalArgumentException("The index already exists.");
+        }
+        PropertyIndex index = newIndex(isVertexIndex, type, key);
+        if (isVertexIndex) {
+            vertexIndexes.add(index);
+            buildVertexIndex(index);
+        } else {
+            edgeIndexes.add(index);
+            buildEdgeIndex(index);
+        }
+        index.finishBuild();
+        return index;
+    }
+
+    /**
+     * @return A new {@link SortedPropertyIndex} if the property with the given {@code key} is an
+     * {@code INTEGER} or a {@code DOUBLE}, or a new {@link HashPropertyIndex} otherwise.
+     */
+    private static PropertyIndex newIndex(boolean isVertexIndex, short type, short key) {
+        DataType dataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(key);
+        return (DataType.INTEGER == dataType || DataType.DOUBLE == dataType) ?
+            new SortedPropertyIndex(isVertexIndex, type, key) : new HashPropertyIndex(
+            isVertexIndex, type, key);
+    }
+
+    /**
+     * @return The index on the property with the given {@code key} of the vertices or the edges of
+     * the given {@code type}, or {@code null} if there is no such index.
+     */
+    public PropertyIndex getIndex(boolean isVertexIndex, short type, short key) {
+        for (PropertyIndex index : isVertexIndex ? vertexIndexes : edgeIndexes) {
+            if (index.getType() == type && index.getKey() == key) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the vertex with the given ID from the vertex indexes. Called before the type or the
+     * properties of the vertex are set, followed by {@link #addVertex(int)}.
+     */
+    void removeVertex(int vertexId) {
+        if (vertexIndexes.isEmpty() || vertexId > Graph.getInstance().getHighestVertexId()) {
+            return;
+        }
+        short vertexType = GraphStatistics.getVertexType(Graph.getInstance().getVertexTypes(),
+            vertexId);
+        for (PropertyIndex index : vertexIndexes) {
+            if (index.getType() == vertexType) {
+                Object value = getVertexProperty(vertexId, index.getKey());
+                if (null != value) {
+                    index.removeVertex(value, vertexId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the vertex with the given ID to the vertex indexes of its type and properties.
+     */
+    void addVertex(int vertexId) {
+        if (vertexIndexes.isEmpty()) {
+            return;
+        }
+        short vertexType = GraphStatistics.getVertexType(Graph.getInstance().getVertexTypes(),
+            vertexId);
+        for (PropertyIndex index : vertexIndexes) {
+            if (index.getType() == vertexType) {
+                addVertex(index, vertexId);
+            }
+        }
+    }
+
+    /**
+     * Adds the permanent edge with the given vertices, type and ID to the edge indexes.
+     */
+    void addEdge(int fromVertexId, int toVertexId, short edgeType, long edgeId) {
+        for (PropertyIndex index : edgeIndexes) {
+            if (index.getType() == edgeType) {
+                Object value = EdgeStore.getInstance().getProperty(edgeId, index.getKey());
+                if (null != value) {
+                    index.addEdge(value, fromVertexId, toVertexId, edgeId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the edge with the given type and ID from the edge indexes. Called before the edge is
+     * deleted from the {@link EdgeStore}.
+     */
+    void removeEdge(short edgeType, long edgeId) {
+        for (PropertyIndex index : edgeIndexes) {
+            if (index.getType() == edgeType) {
+                Object value = EdgeStore.getInstance().getProperty(edgeId, index.getKey());
+                if (null != value) {
+                    index.removeEdge(value, edgeId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds all the indexes from the graph. Called when the graph is changed without going
+     * through the methods of {@link Graph} that maintain the indexes.
+     */
+    void rebuild() {
+        for (PropertyIndex index : vertexIndexes) {
+            index.clear();
+            buildVertexIndex(index);
+            index.finishBuild();
+        }
+        for (PropertyIndex index : edgeIndexes) {
+            index.clear();
+            buildEdgeIndex(index);
+            index.finishBuild();
+        }
+    }
+
+    private void buildVertexIndex(PropertyIndex index) {
+        Graph graph = Graph.getInstance();
+        for (int vertexId = 0; vertexId <= graph.getHighestVertexId(); vertexId++) {
+            if (GraphStatistics.getVertexType(graph.getVertexTypes(), vertexId) ==
+                index.getType()) {
+                addVertex(index, vertexId);
+            }
+        }
+    }
+
+    private void buildEdgeIndex(PropertyIndex index) {
+        Graph graph = Graph.getInstance();
+        Iterator<int[]> iterator = graph.getEdgesIterator(GraphVersion.PERMANENT,
+            Direction.FORWARD, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY,
+            index.getType());
+        while (iterator.hasNext()) {
+            int[] edge = iterator.next();
+            long edgeId = graph.getEdgeIdFromGraph(edge[0], edge[1], index.getType());
+            Object value = (-1 == edgeId) ? null : EdgeStore.getInstance().getProperty(edgeId,
+                index.getKey());
+            if (null != value) {
+                index.addEdge(value, edge[0], edge[1], edgeId);
+            }
+        }
+    }
+
+    private void addVertex(PropertyIndex index, int vertexId) {
+        Object value = getVertexProperty(vertexId, index.getKey());
+        if (null != value) {
+            index.addVertex(value, vertexId);
+        }
+    }
+
+    private static Object getVertexProperty(int vertexId, short key) {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        return vertexPropertyStore.containsVertex(vertexId) ? vertexPropertyStore.getProperty(
+            vertexId, key) : null;
+    }
+
+    @Override
+    public void serializeAll(String outputDirectoryPath) throws IOException {
+        MainFileSerDeHelper.serialize(this, outputDirectoryPath);
+    }
+
+    @Override
+    public void deserializeAll(String inputDirectoryPath) throws IOException,
+        ClassNotFoundException {
+        MainFileSerDeHelper.deserialize(this, inputDirectoryPath);
+    }
+
+    /**
+     * Serializes the definitions of the indexes. Their entries are rebuilt on deserialization.
+     */
+    @Override
+    public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
+        serializeDefinitions(objectOutputStream, vertexIndexes);
+        serializeDefinitions(objectOutputStream, edgeIndexes);
+    }
+
+    /**
+     * Deserializes the definitions of the indexes and rebuilds them, so the graph and the property
+     * stores should be deserialized first.
+     */
+    @Override
+    public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException {
+        vertexIndexes = deserializeDefinitions(objectInputStream, true /* vertex indexes */);
+        edgeIndexes = deserializeDefinitions(objectInputStream, false /* edge indexes */);
+        rebuild();
+    }
+
+    private static void serializeDefinitions(ObjectOutputStream objectOutputStream,
+        List<PropertyIndex> indexes) throws IOException {
+        objectOutputStream.writeInt(indexes.size());
+        for (PropertyIndex index : indexes) {
+            objectOutputStream.writeShort(index.getType());
+            objectOutputStream.writeShort(index.getKey());
+        }
+    }
+
+    private static List<PropertyIndex> deserializeDefinitions(ObjectInputStream objectInputStream,
+        boolean isVertexIndex) throws IOException {
+        int numIndexes = objectInputStream.readInt();
+        List<PropertyIndex> indexes = new ArrayList<>(numIndexes);
+        for (int i = 0; i < numIndexes; i++) {
+            short type = objectInputStream.readShort();
+            indexes.add(newIndex(isVertexIndex, type, objectInputStream.readShort()));
+        }
+        return indexes;
+    }
+
+    @Override
+    public String getMainFileNamePrefix() {
+        return SERDE_FILE_NAME_PREFIX;
+    }
+
+    /**
+     * Resets the {@link PropertyIndexStore} state by creating a new {@code INSTANCE}.
+     */
+    static void reset() {
+        INSTANCE = new PropertyIndexStore();
+    }
+
+    /**
+     * Returns the singleton instance {@link #INSTANCE} of {@link PropertyIndexStore}.
+     */
+    public static PropertyIndexStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s index definitions are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(PropertyIndexStore a, PropertyIndexStore b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        return areSameDefinitions(a.vertexIndexes, b.vertexIndexes) && areSameDefinitions(
+            a.edgeIndexes, b.edgeIndexes);
+    }
+
+    private static boolean areSameDefinitions(List<PropertyIndex> a, List<PropertyIndex> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).getType() != b.get(i).getType() || a.get(i).getKey() != b.get(i).
+                getKey()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+/**
+ * A range of values of a property looked up in a {@link PropertyIndex}. A {@code null} bound
+ * leaves the range unbounded on its side. A range whose bounds are the same inclusive value is the
+ * point looked up by equality predicates.
+ */
+public class PropertyRange {
+
+    private Object lowerBound;
+    private boolean isLowerBoundInclusive;
+    private Object upperBound;
+    private boolean isUpperBoundInclusive;
+
+    /**
+     * @param lowerBound The lower bound of the range, or {@code null} if there is none.
+     * @param isLowerBoundInclusive {@code true} if the range contains {@code lowerBound}.
+     * @param upperBound The upper bound of the range, or {@code null} if there is none.
+     * @param isUpperBoundInclusive {@code true} if the range contains {@code upperBound}.
+     */
+    public PropertyRange(Object lowerBound, boolean isLowerBoundInclusive, Object upperBound,
+        boolean isUpperBoundInclusive) {
+        this.lowerBound = lowerBound;
+        this.isLowerBoundInclusive = isLowerBoundInclusive;
+        this.upperBound = upperBound;
+        this.isUpperBoundInclusive = isUpperBoundInclusive;
+    }
+
+    /**
+     * @return The range containing only the given {@code value}.
+     */
+    public static PropertyRange equalTo(Object value) {
+        return new PropertyRange(value, true /* inclusive */, value, true /* inclusive */);
+    }
+
+    public Object getLowerBound() {
+        return lowerBound;
+    }
+
+    public boolean isLowerBoundInclusive() {
+        return isLowerBoundInclusive;
+    }
+
+    public Object getUpperBound() {
+        return upperBound;
+    }
+
+    public boolean isUpperBoundInclusive() {
+        return isUpperBoundInclusive;
+    }
+
+    /**
+     * @return {@code true} if the range contains only one value, {@code false} otherwise.
+     */
+    public boolean isPoint() {
+        return null != lowerBound && lowerBound.equals(upperBound) && isLowerBoundInclusive &&
+            isUpperBoundInclusive;
+    }
+
+    @Override
+    public String toString() {
+        if (isPoint()) {
+            return "= " + lowerBound;
+        }
+        return "in " + (isLowerBoundInclusive ? "[" : "(") + ((null == lowerBound) ? "-inf" :
+            lowerBound) + ", " + ((null == upperBound) ? "+inf" : upperBound) +
+            (isUpperBoundInclusive ? "]" : ")");
+    }
+}
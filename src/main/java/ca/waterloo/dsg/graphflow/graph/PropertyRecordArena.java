@@ -0,0 +1,232 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+import ca.waterloo.dsg.graphflow.util.LongArrayList;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+import ca.waterloo.dsg.graphflow.util.VisibleForTesting;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An append-only arena of serialized property records. Records are appended to the current page
+ * of {@link #PAGE_SIZE} bytes, and a new page is started when a record does not fit in it, so
+ * writing a record copies only its own bytes. A record longer than a page gets a page of its own.
+ * <p>
+ * A record is located by its address, which is the ID of its page in the 4 most significant bytes
+ * and its offset in the page in the 4 least significant bytes. The owner of a record keeps its
+ * address and length. A record that is no longer used is freed to the free list of its size
+ * class, and the next allocation of a record of the same size class reuses it before appending to
+ * a page. Records of up to {@link #MAX_EXACT_SIZE_CLASS_LENGTH} bytes, such as the records of
+ * edges with the same property keys, have one size class per length. Longer records are rounded up
+ * to one of {@code 1 << LOG_NUM_SIZE_CLASSES_PER_DOUBLING} size classes between consecutive powers
+ * of two, which wastes less than an eighth of their length. As there are few size classes, a freed
+ * record is reused by records of other lengths, and the pages of records whose lengths change
+ * often stay bounded by the largest number of bytes the records of each size class held at once.
+ */
+class PropertyRecordArena {
+
+    @VisibleForTesting
+    static final int PAGE_SIZE = 1 << 16;
+    private static final int INITIAL_CAPACITY = 2;
+    @VisibleForTesting
+    static final int MAX_EXACT_SIZE_CLASS_LENGTH = 128;
+    private static final int LOG_NUM_SIZE_CLASSES_PER_DOUBLING = 3;
+    // The length of the longest record, so that its size class fits in an int.
+    private static final int MAX_RECORD_LENGTH = 1 << 30;
+
+    private byte[][] pages = new byte[INITIAL_CAPACITY][];
+    private int numPages;
+    // The page records are appended to, or -1 if no page has been started.
+    private int currentPageId = -1;
+    private int currentPageOffset;
+    // The addresses of the freed records of each size class.
+    private Map<Integer, LongArrayList> freeRecordAddresses = new HashMap<>();
+
+    /**
+     * Allocates a record of the given {@code length}, reusing a freed record of the same size
+     * class if there is one.
+     *
+     * @param length The length of the record in bytes.
+     *
+     * @return The address of the record.
+     *
+     * @throws IllegalArgumentException If {@code length} is larger than 1GB.
+     */
+    long allocate(int length) {
+        if (length > MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("A property record cannot be longer than " +
+                MAX_RECORD_LENGTH + " bytes.");
+        }
+        int sizeClass = getSizeClass(length);
+        LongArrayList freeAddresses = freeRecordAddresses.get(sizeClass);
+        if (null != freeAddresses && freeAddresses.getSize() > 0) {
+            return freeAddresses.removeLast();
+        }
+        if (sizeClass > PAGE_SIZE) {
+            return getAddress(addPage(sizeClass), 0);
+        }
+        if (-1 == currentPageId || currentPageOffset + sizeClass > PAGE_SIZE) {
+            currentPageId = addPage(PAGE_SIZE);
+            currentPageOffset = 0;
+        }
+        long address = getAddress(currentPageId, currentPageOffset);
+        currentPageOffset += sizeClass;
+        return address;
+    }
+
+    /**
+     * Frees the record at the given {@code address} for reuse by a record of the same size class.
+     *
+     * @param address The address of the record.
+     * @param length The length of the record in bytes, as given to {@link #allocate(int)}.
+     */
+    void free(long address, int length) {
+        addFreeRecord(address, getSizeClass(length));
+    }
+
+    /**
+     * @return The number of bytes taken by a record of the given {@code length}, which is the
+     * smallest size class that is at least {@code length}.
+     */
+    @VisibleForTesting
+    static int getSizeClass(int length) {
+        if (length <= MAX_EXACT_SIZE_CLASS_LENGTH) {
+            return length;
+        }
+        int granularity = Integer.highestOneBit(length - 1) >>> LOG_NUM_SIZE_CLASSES_PER_DOUBLING;
+        return (length + granularity - 1) & -granularity;
+    }
+
+    private void addFreeRecord(long address, int sizeClass) {
+        LongArrayList freeAddresses = freeRecordAddresses.get(sizeClass);
+        if (null == freeAddresses) {
+            freeAddresses = new LongArrayList();
+            freeRecordAddresses.put(sizeClass, freeAddresses);
+        }
+        freeAddresses.add(address);
+    }
+
+    /**
+     * @return The page of the record at the given {@code address}.
+     */
+    byte[] getPage(long address) {
+        return pages[(int) (address >>> 32)];
+    }
+
+    /**
+     * @return The offset of the record at the given {@code address} in its page.
+     */
+    static int getOffset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * @return The number of pages allocated.
+     */
+    int getNumPages() {
+        return numPages;
+    }
+
+    /**
+     * @return The pages of the arena. Only the first {@link #getNumPages()} pages are allocated.
+     */
+    byte[][] getPages() {
+        return pages;
+    }
+
+    private int addPage(int pageSize) {
+        pages = ArrayUtils.resizeIfNecessary(pages, numPages + 1);
+        pages[numPages] = new byte[pageSize];
+        return numPages++;
+    }
+
+    private static long getAddress(int pageId, int offset) {
+        return (((long) pageId) << 32) | offset;
+    }
+
+    /**
+     * Serializes the metadata of the arena to the given {@link ObjectOutputStream}. The pages are
+     * serialized separately, see {@link #getPages()}.
+     *
+     * @param objectOutputStream The {@link ObjectOutputStream} to write serialized data to.
+     */
+    void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeInt(numPages);
+        objectOutputStream.writeInt(currentPageId);
+        objectOutputStream.writeInt(currentPageOffset);
+        objectOutputStream.writeInt(freeRecordAddresses.size());
+        for (Map.Entry<Integer, LongArrayList> freeAddresses : freeRecordAddresses.entrySet()) {
+            objectOutputStream.writeInt(freeAddresses.getKey());
+            objectOutputStream.writeInt(freeAddresses.getValue().getSize());
+            for (int i = 0; i < freeAddresses.getValue().getSize(); i++) {
+                objectOutputStream.writeLong(freeAddresses.getValue().get(i));
+            }
+        }
+    }
+
+    /**
+     * Deserializes the metadata of the arena from the given {@link ObjectInputStream}, and
+     * allocates the array of pages the pages are deserialized into.
+     *
+     * @param objectInputStream The {@link ObjectInputStream} to read serialized data from.
+     */
+    void deserialize(ObjectInputStream objectInputStream) throws IOException {
+        numPages = objectInputStream.readInt();
+        pages = new byte[Integer.max(numPages, INITIAL_CAPACITY)][];
+        currentPageId = objectInputStream.readInt();
+        currentPageOffset = objectInputStream.readInt();
+        freeRecordAddresses = new HashMap<>();
+        int numSizeClasses = objectInputStream.readInt();
+        for (int i = 0; i < numSizeClasses; i++) {
+            int sizeClass = objectInputStream.readInt();
+            int numFreeAddresses = objectInputStream.readInt();
+            freeRecordAddresses.put(sizeClass, new LongArrayList());
+            for (int j = 0; j < numFreeAddresses; j++) {
+                addFreeRecord(objectInputStream.readLong(), sizeClass);
+            }
+        }
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    static boolean isSameAs(PropertyRecordArena a, PropertyRecordArena b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b || a.numPages != b.numPages || a.currentPageId !=
+            b.currentPageId || a.currentPageOffset != b.currentPageOffset || !a.
+            freeRecordAddresses.keySet().equals(b.freeRecordAddresses.keySet())) {
+            return false;
+        }
+        for (int pageId = 0; pageId < a.numPages; pageId++) {
+            if (!Arrays.equals(a.pages[pageId], b.pages[pageId])) {
+                return false;
+            }
+        }
+        for (Map.Entry<Integer, LongArrayList> freeAddresses : a.freeRecordAddresses.entrySet()) {
+            LongArrayList otherFreeAddresses = b.freeRecordAddresses.get(freeAddresses.getKey());
+            if (freeAddresses.getValue().getSize() != otherFreeAddresses.getSize()) {
+                return false;
+            }
+            for (int i = 0; i < otherFreeAddresses.getSize(); i++) {
+                if (freeAddresses.getValue().get(i) != otherFreeAddresses.get(i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
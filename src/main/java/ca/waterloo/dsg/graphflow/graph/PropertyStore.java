@@ -4,109 +4,278 @@ import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
 import ca.waterloo.dsg.graphflow.util.DataType;
 import org.antlr.v4.runtime.misc.Pair;
 
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.NoSuchElementException;
 
 /**
  * Abstract property store class for the {@link EdgeStore} and {@link VertexPropertyStore} classes.
+ * <p>
+ * The properties of a vertex or an edge are serialized to a record that starts with a key
+ * directory followed by the serialized key-value pairs. The directory is the smallest key of the
+ * record, the number of slots of the directory, and one slot per key from the smallest to the
+ * largest key of the record with the offset of the key-value pair of the key from the first
+ * key-value pair, or {@link #NO_KEY_VALUE} if the record does not have the key. The value of a
+ * key is then located in constant time, see {@link #getValueOffset(byte[], int, int, short)},
+ * without deserializing the key-value pairs before it. Records whose keys are too far apart or
+ * whose key-value pairs are too long for 2-byte offsets have a directory of 0 slots, and their
+ * key-value pairs are scanned.
+ * <p>
+ * A {@link DataType#STRING} value is serialized as its length and its UTF-8 bytes, or, if it is
+ * in the dictionary of its key in the {@link TypeAndPropertyKeyStore}, as -(code + 1) in place of
+ * its length and no bytes. A dictionary-encoded value is read as the {@code String} of the
+ * dictionary, without decoding its bytes.
+ * <p>
+ * The stores keep no state between reads: the records are decoded by static methods whose
+ * cursors are local variables, so any number of threads can read the properties concurrently.
+ * The records are changed in place, so the stores do not exclude the writes from the reads
+ * themselves: the {@code QueryProcessor} does, by running the MATCH queries under the read lock
+ * and the queries that change the graph under the write lock of its read/write lock.
  */
 abstract class PropertyStore implements GraphflowSerializable {
 
-    protected PropertyIterator propertyIterator = new PropertyIterator();
+    // The system property, e.g., set in GRAPHFLOW_SERVER_OPTS when the server is started, that
+    // enables the columnar layout in each new store. See {@link
+    // VertexPropertyStore#setColumnarLayout(boolean)} and {@link
+    // EdgeStore#setColumnarLayout(boolean)}.
+    static final String COLUMNAR_LAYOUT_PROPERTY = "graphflow.columnarProperties";
+    private static final int MAX_DIRECTORY_SLOTS = 64;
+    private static final int NO_KEY_VALUE = 0xFFFF;
+    private static final int DIRECTORY_HEADER_LENGTH = 4;
 
     protected byte[] serializeProperties(Map<Short, Pair<DataType, String>> properties) {
         byte[] propertiesAsBytes = new byte[0];
         if (null != properties && !properties.isEmpty()) {
             int index = 0;
             int propertiesLength = 0;
+            short minKey = Short.MAX_VALUE;
+            short maxKey = Short.MIN_VALUE;
+            short[] keys = new short[properties.size()];
             byte[][] keyValueByteArrays = new byte[properties.size()][];
             for (Short key : properties.keySet()) {
-                keyValueByteArrays[index] = DataType.serialize(properties.get(key).a, key,
+                keys[index] = key;
+                keyValueByteArrays[index] = serializeKeyValue(key, properties.get(key).a,
                     properties.get(key).b);
                 propertiesLength += keyValueByteArrays[index].length;
+                minKey = (short) Integer.min(minKey, key);
+                maxKey = (short) Integer.max(maxKey, key);
                 index++;
             }
+            int numSlots = maxKey - minKey + 1;
+            if (numSlots > MAX_DIRECTORY_SLOTS || propertiesLength >= NO_KEY_VALUE) {
+                numSlots = 0;
+            }
+            int directoryLength = DIRECTORY_HEADER_LENGTH + 2 * numSlots;
 
-            propertiesAsBytes = new byte[propertiesLength];
+            propertiesAsBytes = new byte[directoryLength + propertiesLength];
+            writeShort(propertiesAsBytes, 0, minKey);
+            writeShort(propertiesAsBytes, 2, numSlots);
+            for (int slot = 0; slot < numSlots; slot++) {
+                writeShort(propertiesAsBytes, DIRECTORY_HEADER_LENGTH + 2 * slot, NO_KEY_VALUE);
+            }
             propertiesLength = 0;
-            for (byte[] keyValueAsBytes : keyValueByteArrays) {
-                System.arraycopy(keyValueAsBytes, 0, propertiesAsBytes, propertiesLength,
-                    keyValueAsBytes.length);
-                propertiesLength += keyValueAsBytes.length;
+            for (int i = 0; i < keyValueByteArrays.length; i++) {
+                if (numSlots > 0) {
+                    writeShort(propertiesAsBytes, DIRECTORY_HEADER_LENGTH + 2 * (keys[i] -
+                        minKey), propertiesLength);
+                }
+                System.arraycopy(keyValueByteArrays[i], 0, propertiesAsBytes, directoryLength +
+                    propertiesLength, keyValueByteArrays[i].length);
+                propertiesLength += keyValueByteArrays[i].length;
             }
         }
         return propertiesAsBytes;
     }
 
-    protected Object getPropertyFromIterator(short key) {
-        Pair<Short, Object> keyValue;
-        while (propertyIterator.hasNext()) {
-            keyValue = propertyIterator.next();
-            if (key == keyValue.a) {
-                return keyValue.b;
+    private static byte[] serializeKeyValue(short key, DataType dataType, String value) {
+        if (DataType.STRING == dataType && null != value) {
+            int code = TypeAndPropertyKeyStore.getInstance().getStringCodeOrInsert(key, value);
+            if (-1 != code) {
+                byte[] keyValueBytes = new byte[6]; // 2 for the short key + 4 for the code.
+                writeShort(keyValueBytes, 0, key);
+                writeInt(keyValueBytes, 2, -(code + 1));
+                return keyValueBytes;
             }
         }
-        return null;
+        return DataType.serialize(dataType, key, value);
+    }
+
+    /**
+     * Locates the value of the given {@code key} in the record serialized in {@code data} from
+     * {@code startIndex} to {@code endIndex}. The record is not deserialized and no objects are
+     * allocated.
+     *
+     * @param data The byte array containing the record.
+     * @param startIndex The start index of the record in {@code data}.
+     * @param endIndex The end index of the record in {@code data}.
+     * @param key The key of a property.
+     *
+     * @return The index in {@code data} of the serialized value of the property with the given
+     * {@code key}, or -1 if the record does not have the property.
+     */
+    protected static int getValueOffset(byte[] data, int startIndex, int endIndex, short key) {
+        if (startIndex >= endIndex) {
+            return -1;
+        }
+        short minKey = readShort(data, startIndex);
+        int numSlots = readUnsignedShort(data, startIndex + 2);
+        int keyValuesStartIndex = startIndex + DIRECTORY_HEADER_LENGTH + 2 * numSlots;
+        if (numSlots > 0) {
+            int slot = key - minKey;
+            if (slot < 0 || slot >= numSlots) {
+                return -1;
+            }
+            int keyValueOffset = readUnsignedShort(data, startIndex + DIRECTORY_HEADER_LENGTH +
+                2 * slot);
+            return (NO_KEY_VALUE == keyValueOffset) ? -1 : keyValuesStartIndex + keyValueOffset +
+                2 /* short key */;
+        }
+        int index = keyValuesStartIndex;
+        while (index < endIndex) {
+            short keyOfValue = readShort(data, index);
+            if (key == keyOfValue) {
+                return index + 2;
+            }
+            DataType dataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(
+                keyOfValue);
+            index += 2 + ((DataType.STRING == dataType) ? getStringValueLength(data, index + 2) :
+                DataType.getLength(dataType));
+        }
+        return -1;
+    }
+
+    /**
+     * @return The index in {@code data} of the first key-value pair of the record serialized from
+     * {@code startIndex}.
+     */
+    protected static int getKeyValuesStartIndex(byte[] data, int startIndex) {
+        return startIndex + DIRECTORY_HEADER_LENGTH + 2 * readUnsignedShort(data, startIndex + 2);
     }
 
     /**
-     * An iterator to iterate over a set of properties that are serialized as a byte array.
-     * Classes that use this iterator should create an instance of this iterator and then call the
-     * {@link #reset(byte[], int, int)} method to use it again without constructing.
+     * @return The value of the property of the given {@code key} in the record serialized in
+     * {@code data} from {@code startIndex} to {@code endIndex}, or {@code null} if the record does
+     * not have the property.
      */
-    protected static class PropertyIterator implements Iterator<Pair<Short, Object>> {
-
-        private byte[] data;
-        private int endIndex;
-        private int currentIndex;
-
-        protected PropertyIterator() {}
-
-        /**
-         * Resets the iterator.
-         *
-         * @param data byte array containing the properties.
-         * @param startIndex start index of properties in {@link #data}.
-         * @param endIndex end index of properties in {@link #data}.
-         */
-        protected void reset(byte[] data, int startIndex, int endIndex) {
-            this.data = data;
-            this.currentIndex = startIndex;
-            this.endIndex = endIndex;
+    protected static Object getValue(byte[] data, int startIndex, int endIndex, short key) {
+        int valueOffset = getValueOffset(data, startIndex, endIndex, key);
+        if (-1 == valueOffset) {
+            return null;
         }
+        DataType dataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(key);
+        if (DataType.STRING == dataType) {
+            return getString(data, valueOffset, key);
+        }
+        return DataType.deserialize(dataType, data, valueOffset, DataType.getLength(dataType));
+    }
 
-        @Override
-        public boolean hasNext() {
-            return currentIndex < endIndex;
+    /**
+     * @return The string value of the given {@code key} serialized at {@code valueOffset} in
+     * {@code data}, which is the {@code String} of the dictionary of the key if the value is
+     * dictionary-encoded.
+     */
+    private static String getString(byte[] data, int valueOffset, short key) {
+        int length = DataType.deserializeInteger(data, valueOffset);
+        if (length < 0) {
+            return TypeAndPropertyKeyStore.getInstance().getString(key, -length - 1);
         }
+        return (String) DataType.deserialize(DataType.STRING, data, valueOffset + 4, length);
+    }
 
-        @Override
-        public Pair<Short, Object> next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException("PropertyIterator has no more elements.");
-            }
-            short key = (short) ((short) (data[currentIndex] << 8) | data[currentIndex + 1]);
-            DataType dataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(key);
+    /**
+     * @return The number of bytes of the string value serialized at {@code valueOffset} in
+     * {@code data}, including its length or code.
+     */
+    private static int getStringValueLength(byte[] data, int valueOffset) {
+        return 4 + Integer.max(0, DataType.deserializeInteger(data, valueOffset));
+    }
 
-            int length;
-            int valueOffset;
+    /**
+     * Deserializes the key-value pairs of the record serialized in {@code data} from {@code
+     * startIndex} to {@code endIndex} into the given {@code properties}.
+     */
+    protected static void deserializeProperties(byte[] data, int startIndex, int endIndex,
+        Map<Short, Object> properties) {
+        if (startIndex >= endIndex) {
+            return;
+        }
+        int index = getKeyValuesStartIndex(data, startIndex);
+        while (index < endIndex) {
+            short key = readShort(data, index);
+            DataType dataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(key);
+            // 2 bytes for the short key.
             if (DataType.STRING == dataType) {
-                length = DataType.deserializeInteger(data, currentIndex + 2);
-                // 2 bytes for short key + 4 for an int storing the length of
-                // the String.
-                valueOffset = 6;
+                properties.put(key, getString(data, index + 2, key));
+                index += 2 + getStringValueLength(data, index + 2);
             } else {
-                length = DataType.getLength(dataType);
-                // 2 bytes for short key. We do not store the lengths of data
-                // types other than
-                // Strings since they are fixed.
-                valueOffset = 2;
+                // The lengths of the data types other than strings are fixed.
+                properties.put(key, DataType.deserialize(dataType, data, index + 2,
+                    DataType.getLength(dataType)));
+                index += 2 + DataType.getLength(dataType);
             }
+        }
+    }
 
-            Object value = DataType.deserialize(dataType, data, currentIndex + valueOffset, length);
-            currentIndex += (valueOffset + length);
-            return new Pair<>(key, value);
+    /**
+     * @return The given <key, value> properties as <key string, value string> pairs.
+     */
+    protected static Map<String, String> toStrings(Map<Short, Object> properties) {
+        Map<String, String> strings = new HashMap<>();
+        for (Map.Entry<Short, Object> property : properties.entrySet()) {
+            strings.put(TypeAndPropertyKeyStore.getInstance().mapShortPropertyKeyToString(
+                property.getKey()), property.getValue().toString());
+        }
+        return strings;
+    }
+
+    /**
+     * Points the given {@code stringBytes} to the UTF-8 bytes of the string value of the given
+     * {@code key} serialized at {@code valueOffset} in {@code data}, which are the bytes of the
+     * dictionary of the key if the value is dictionary-encoded. See {@link
+     * #getValueOffset(byte[], int, int, short)}.
+     */
+    protected static void resetStringBytes(StringBytes stringBytes, byte[] data, int valueOffset,
+        short key) {
+        int length = DataType.deserializeInteger(data, valueOffset);
+        if (length < 0) {
+            int code = -length - 1;
+            byte[] bytes = TypeAndPropertyKeyStore.getInstance().getStringBytes(key, code);
+            stringBytes.reset(bytes, 0, bytes.length, code);
+        } else {
+            stringBytes.reset(data, valueOffset + 4, length);
+        }
+    }
+
+    private static short readShort(byte[] data, int index) {
+        return (short) readUnsignedShort(data, index);
+    }
+
+    private static int readUnsignedShort(byte[] data, int index) {
+        return ((data[index] & 0xFF) << 8) | (data[index + 1] & 0xFF);
+    }
+
+    private static void writeShort(byte[] data, int index, int value) {
+        data[index] = (byte) ((value >> 8) & 0xFF);
+        data[index + 1] = (byte) (value & 0xFF);
+    }
+
+    private static void writeInt(byte[] data, int index, int value) {
+        writeShort(data, index, value >> 16);
+        writeShort(data, index + 2, value);
+    }
+
+    /**
+     * @return The given <key, value> properties as <key, <DataType, value>> pairs, where the
+     * data type of each key is the one in the {@link TypeAndPropertyKeyStore}. Used to move the
+     * properties read from one layout of a store to the other.
+     */
+    protected static Map<Short, Pair<DataType, String>> toDataTypesAndStrings(
+        Map<Short, Object> properties) {
+        Map<Short, Pair<DataType, String>> dataTypesAndStrings = new HashMap<>();
+        for (Map.Entry<Short, Object> property : properties.entrySet()) {
+            dataTypesAndStrings.put(property.getKey(), new Pair<>(TypeAndPropertyKeyStore.
+                getInstance().getPropertyDataType(property.getKey()), String.valueOf(property.
+                getValue())));
         }
+        return dataTypesAndStrings;
     }
 }
@@ -0,0 +1,153 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.StringJoiner;
+
+/**
+ * A read-only view over the segment of one edge type of a vertex in a {@link CSRAdjacencyLists}
+ * whose columns are not stored in heap arrays. All the edges of the view have the same type, which
+ * is not read per edge. Subclasses read the neighbour IDs and edge IDs from their columns and
+ * search the neighbour IDs without reading the whole segment.
+ */
+abstract class SegmentSortedAdjacencyList extends SortedAdjacencyList {
+
+    private final short edgeType;
+    // The index of the first neighbour of this list in the columns.
+    private final int startIndex;
+
+    /**
+     * @param edgeType The type of all the edges of the view.
+     * @param startIndex The index of the first neighbour of the view in the columns.
+     * @param size The number of neighbours in the view.
+     */
+    SegmentSortedAdjacencyList(short edgeType, int startIndex, int size) {
+        this(edgeType, startIndex, size, startIndex /* columnIndex */);
+    }
+
+    /**
+     * @param edgeType The type of all the edges of the view.
+     * @param startIndex The index of the first neighbour of the view in the columns.
+     * @param size The number of neighbours in the view.
+     * @param columnIndex The index of the first neighbour of the view in the columns of the whole
+     * {@link CSRAdjacencyLists}, if the columns of the view hold only one of its partitions.
+     */
+    SegmentSortedAdjacencyList(short edgeType, int startIndex, int size, int columnIndex) {
+        super(null /* neighbourIds */, null /* edgeTypes */, null /* edgeIds */, startIndex, size,
+            columnIndex);
+        this.edgeType = edgeType;
+        this.startIndex = startIndex;
+    }
+
+    /**
+     * @return The neighbour ID at the given {@code columnIndex} of the columns.
+     */
+    abstract int readNeighbourId(int columnIndex);
+
+    /**
+     * @return The edge ID at the given {@code columnIndex} of the columns.
+     */
+    abstract long readEdgeId(int columnIndex);
+
+    /**
+     * @return The first index of the columns in the range [{@code fromColumnIndex}, {@code
+     * toColumnIndex}) whose neighbour ID is larger than or equal to {@code searchedValue}, or
+     * {@code toColumnIndex} if there is no such index.
+     */
+    abstract int getLowerBound(long searchedValue, int fromColumnIndex, int toColumnIndex);
+
+    @Override
+    public int getNeighbourId(int index) {
+        assertIndexIsInRange(index);
+        return readNeighbourId(startIndex + index);
+    }
+
+    @Override
+    public short getEdgeType(int index) {
+        assertIndexIsInRange(index);
+        return edgeType;
+    }
+
+    @Override
+    public long getEdgeId(int index) {
+        assertIndexIsInRange(index);
+        return readEdgeId(startIndex + index);
+    }
+
+    @Override
+    public long getEdgeId(int neighbourId, short edgeType) {
+        int index = search(neighbourId, edgeType);
+        return (index >= 0) ? getEdgeId(index) : -1;
+    }
+
+    @Override
+    public IntArrayList getFilteredNeighbourIds(short toVertexTypeFilter, short edgeTypeFilter,
+        ShortArrayList vertexTypes) {
+        IntArrayList filteredList = new IntArrayList(getSize());
+        if (TypeAndPropertyKeyStore.ANY != edgeTypeFilter && edgeType != edgeTypeFilter) {
+            return filteredList;
+        }
+        for (int i = 0; i < getSize(); i++) {
+            int neighbourId = getNeighbourId(i);
+            if (TypeAndPropertyKeyStore.ANY == toVertexTypeFilter || vertexTypes.get(
+                neighbourId) == toVertexTypeFilter) {
+                filteredList.add(neighbourId);
+            }
+        }
+        return filteredList;
+    }
+
+    /**
+     * Searches for the given ({@code neighbourId},{@code edgeTypeFilter}) pair using {@link
+     * #getLowerBound(long, int, int)}. The return value is the same as that of {@link
+     * SortedAdjacencyList#search(int, short, int)}.
+     */
+    @Override
+    public int search(int neighbourId, short edgeTypeFilter, int startIndex) {
+        // All the edges have the same type, so (u, {@code edgeType}) is smaller than ({@code
+        // neighbourId}, {@code edgeTypeFilter}) if and only if u is smaller than the bound below.
+        long bound = (edgeType < edgeTypeFilter) ? neighbourId + 1L : neighbourId;
+        int index = (startIndex >= getSize()) ? startIndex : getLowerBound(bound,
+            this.startIndex + startIndex, this.startIndex + getSize()) - this.startIndex;
+        if (index < getSize() && getNeighbourId(index) == neighbourId &&
+            (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || edgeTypeFilter == edgeType)) {
+            return index;
+        }
+        // Return the negative value of the index before the largest pair which is smaller than
+        // ({@code neighbourId}, {@code edgeTypeFilter}), or {@code Integer.MIN_VALUE} if the index
+        // is 0.
+        return (index - 1 > 0) ? -(index - 1) : Integer.MIN_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ");
+        for (int i = 0; i < getSize(); i++) {
+            sj.add("{" + getNeighbourId(i) + ": " + edgeType + "}");
+        }
+        return "[" + sj.toString() + "]";
+    }
+
+    @Override
+    public void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeInt(getSize());
+        // The view is deserialized into a list that owns arrays of exactly its size.
+        objectOutputStream.writeInt(getSize());
+        objectOutputStream.writeInt(getSize());
+        objectOutputStream.writeInt(getSize());
+        for (int i = 0; i < getSize(); i++) {
+            objectOutputStream.writeInt(getNeighbourId(i));
+            objectOutputStream.writeShort(edgeType);
+            objectOutputStream.writeLong(getEdgeId(i));
+        }
+    }
+
+    private void assertIndexIsInRange(int index) {
+        if (index >= getSize()) {
+            throw new ArrayIndexOutOfBoundsException("No edge at index " + index + ".");
+        }
+    }
+}
@@ -16,10 +16,20 @@ import java.util.StringJoiner;
  * Represents the adjacency list of a vertex. Stores the IDs of the vertex's neighbours, the
  * types, and the IDs of edges that the vertex has to these neighbours in sorted arrays. Arrays
  * are sorted first by neighbour IDs and then by edge {@code short} type values.
+ * A {@link SortedAdjacencyList} either owns its arrays, or is a read-only view over the range of
+ * a vertex in the columns of a {@link CSRAdjacencyLists}. Views cannot be modified.
  */
 public class SortedAdjacencyList {
 
     private static final int INITIAL_CAPACITY = 2;
+    // The maximum number of appended neighbours that {@link #sortAppended(int)} sorts with an
+    // insertion sort instead of a merge sort.
+    private static final int INSERTION_SORT_THRESHOLD = 8;
+    // {@link #getIntersection(IntArrayList, short)} searches the list with galloping search if it
+    // has more than this many times the neighbours of the list to intersect, and merges the two
+    // lists otherwise.
+    @VisibleForTesting
+    static final int GALLOPING_SEARCH_SIZE_RATIO = 4;
     @VisibleForTesting
     int[] neighbourIds;
     @VisibleForTesting
@@ -27,6 +37,15 @@ public class SortedAdjacencyList {
     @VisibleForTesting
     long[] edgeIds;
     private int size;
+    // The index of the first neighbour of this list in the arrays above. This is 0 unless the list
+    // is a view over the columns of a {@link CSRAdjacencyLists}.
+    private int startIndex;
+    // The index of the first neighbour of this list in the columns of the {@link
+    // CSRAdjacencyLists} this list is a view over, which is the index of its neighbour vertex type
+    // in a {@link NeighbourVertexTypeIndex}. This is {@code startIndex} unless the arrays above
+    // hold only one partition of the columns.
+    private int columnIndex;
+    private boolean isReadOnly;
 
     /**
      * Default constructor for {@link SortedAdjacencyList}. Initializes the arrays holding neighbour
@@ -48,6 +67,39 @@ public class SortedAdjacencyList {
         edgeIds = new long[initialCapacity];
     }
 
+    /**
+     * Creates a read-only view over the range [{@code startIndex}, {@code startIndex + size}) of
+     * the given arrays. The arrays are shared and not copied.
+     *
+     * @param neighbourIds The neighbour IDs column.
+     * @param edgeTypes The edge types column.
+     * @param edgeIds The edge IDs column.
+     * @param startIndex The index of the first neighbour of the view in the columns.
+     * @param size The number of neighbours in the view.
+     */
+    SortedAdjacencyList(int[] neighbourIds, short[] edgeTypes, long[] edgeIds, int startIndex,
+        int size) {
+        this(neighbourIds, edgeTypes, edgeIds, startIndex, size, startIndex /* columnIndex */);
+    }
+
+    /**
+     * Creates a read-only view over the range [{@code startIndex}, {@code startIndex + size}) of
+     * the given arrays, which hold the neighbours at the indices [{@code columnIndex}, {@code
+     * columnIndex + size}) of the columns of a {@link CSRAdjacencyLists}.
+     *
+     * @see #SortedAdjacencyList(int[], short[], long[], int, int)
+     */
+    SortedAdjacencyList(int[] neighbourIds, short[] edgeTypes, long[] edgeIds, int startIndex,
+        int size, int columnIndex) {
+        this.neighbourIds = neighbourIds;
+        this.edgeTypes = edgeTypes;
+        this.edgeIds = edgeIds;
+        this.startIndex = startIndex;
+        this.size = size;
+        this.columnIndex = columnIndex;
+        this.isReadOnly = true;
+    }
+
     /**
      * Adds a new neighbour with the given ID, type, and edgeId.
      *
@@ -56,6 +108,7 @@ public class SortedAdjacencyList {
      * @param edgeId The ID of the edge to the neighbour.
      */
     public void add(int neighbourId, short edgeType, long edgeId) {
+        assertNotReadOnly();
         ensureCapacity(size + 1);
         neighbourIds[size] = neighbourId;
         edgeTypes[size] = edgeType;
@@ -70,6 +123,7 @@ public class SortedAdjacencyList {
      * @param otherList The {@link SortedAdjacencyList} to merge.
      */
     public void addAll(SortedAdjacencyList otherList) {
+        assertNotReadOnly();
         ensureCapacity(size + otherList.getSize());
         for (int i = 0; i < otherList.getSize(); i++) {
             neighbourIds[size + i] = otherList.getNeighbourId(i);
@@ -80,6 +134,108 @@ public class SortedAdjacencyList {
         sort();
     }
 
+    /**
+     * Appends a new neighbour with the given ID, type, and edgeId without sorting. The appended
+     * neighbours are sorted into the list by {@link #sortAppended(int)}, which should be called
+     * before the list is read.
+     *
+     * @param neighbourId The ID of the neighbour.
+     * @param edgeType The type of the edge to the neighbour.
+     * @param edgeId The ID of the edge to the neighbour.
+     */
+    void append(int neighbourId, short edgeType, long edgeId) {
+        assertNotReadOnly();
+        ensureCapacity(size + 1);
+        neighbourIds[size] = neighbourId;
+        edgeTypes[size] = edgeType;
+        edgeIds[size] = edgeId;
+        size++;
+    }
+
+    /**
+     * Sorts the neighbours appended with {@link #append(int, short, long)} into the list. The
+     * first {@code numSortedNeighbours} neighbours should already be sorted. The appended
+     * neighbours are sorted with a merge sort and then merged with the sorted ones in one linear
+     * pass, so appending k neighbours and sorting them once takes O(k log k + size) time instead
+     * of the O(k * size) time of k calls to {@link #add(int, short, long)}. Neighbours with the
+     * same ID and type keep the order in which they were appended.
+     *
+     * @param numSortedNeighbours The number of neighbours at the start of the list that are
+     * already sorted.
+     */
+    void sortAppended(int numSortedNeighbours) {
+        assertNotReadOnly();
+        int numAppendedNeighbours = size - numSortedNeighbours;
+        if (numAppendedNeighbours <= 0) {
+            return;
+        }
+        if (numAppendedNeighbours <= INSERTION_SORT_THRESHOLD) {
+            sort(Integer.max(1, numSortedNeighbours));
+            return;
+        }
+        int[] otherNeighbourIds = new int[neighbourIds.length];
+        short[] otherEdgeTypes = new short[edgeTypes.length];
+        long[] otherEdgeIds = new long[edgeIds.length];
+        // The sorted neighbours are copied so that both sets of arrays hold them while the runs of
+        // the appended neighbours are merged back and forth between the two.
+        System.arraycopy(neighbourIds, 0, otherNeighbourIds, 0, numSortedNeighbours);
+        System.arraycopy(edgeTypes, 0, otherEdgeTypes, 0, numSortedNeighbours);
+        System.arraycopy(edgeIds, 0, otherEdgeIds, 0, numSortedNeighbours);
+        int[] sourceNeighbourIds = neighbourIds;
+        short[] sourceEdgeTypes = edgeTypes;
+        long[] sourceEdgeIds = edgeIds;
+        for (int runLength = 1; runLength < numAppendedNeighbours; runLength <<= 1) {
+            for (int start = numSortedNeighbours; start < size; start += 2 * runLength) {
+                int middle = Integer.min(start + runLength, size);
+                int end = Integer.min(start + 2 * runLength, size);
+                mergeRuns(sourceNeighbourIds, sourceEdgeTypes, sourceEdgeIds, start, middle, end,
+                    otherNeighbourIds, otherEdgeTypes, otherEdgeIds);
+            }
+            int[] tempNeighbourIds = sourceNeighbourIds;
+            short[] tempEdgeTypes = sourceEdgeTypes;
+            long[] tempEdgeIds = sourceEdgeIds;
+            sourceNeighbourIds = otherNeighbourIds;
+            sourceEdgeTypes = otherEdgeTypes;
+            sourceEdgeIds = otherEdgeIds;
+            otherNeighbourIds = tempNeighbourIds;
+            otherEdgeTypes = tempEdgeTypes;
+            otherEdgeIds = tempEdgeIds;
+        }
+        // Merge the sorted neighbours with the sorted appended neighbours.
+        mergeRuns(sourceNeighbourIds, sourceEdgeTypes, sourceEdgeIds, 0, numSortedNeighbours,
+            size, otherNeighbourIds, otherEdgeTypes, otherEdgeIds);
+        neighbourIds = otherNeighbourIds;
+        edgeTypes = otherEdgeTypes;
+        edgeIds = otherEdgeIds;
+    }
+
+    /**
+     * Merges the sorted runs [{@code start}, {@code middle}) and [{@code middle}, {@code end}) of
+     * the source arrays into the range [{@code start}, {@code end}) of the destination arrays.
+     * On ties, the neighbours of the first run are written first.
+     */
+    private static void mergeRuns(int[] sourceNeighbourIds, short[] sourceEdgeTypes,
+        long[] sourceEdgeIds, int start, int middle, int end, int[] destinationNeighbourIds,
+        short[] destinationEdgeTypes, long[] destinationEdgeIds) {
+        int i = start;
+        int j = middle;
+        for (int k = start; k < end; k++) {
+            if (j >= end || (i < middle && (sourceNeighbourIds[i] < sourceNeighbourIds[j] ||
+                (sourceNeighbourIds[i] == sourceNeighbourIds[j] && sourceEdgeTypes[i] <=
+                    sourceEdgeTypes[j])))) {
+                destinationNeighbourIds[k] = sourceNeighbourIds[i];
+                destinationEdgeTypes[k] = sourceEdgeTypes[i];
+                destinationEdgeIds[k] = sourceEdgeIds[i];
+                i++;
+            } else {
+                destinationNeighbourIds[k] = sourceNeighbourIds[j];
+                destinationEdgeTypes[k] = sourceEdgeTypes[j];
+                destinationEdgeIds[k] = sourceEdgeIds[j];
+                j++;
+            }
+        }
+    }
+
     /**
      * Returns the neighbour ID at the given {@code index}.
      *
@@ -95,7 +251,7 @@ public class SortedAdjacencyList {
             throw new ArrayIndexOutOfBoundsException("No edge at index " + index + ". Therefore " +
                 "cannot return the neighbour ID.");
         }
-        return neighbourIds[index];
+        return neighbourIds[startIndex + index];
     }
 
     /**
@@ -113,7 +269,7 @@ public class SortedAdjacencyList {
             throw new ArrayIndexOutOfBoundsException("No edge at index " + index + ". Therefore " +
                 "cannot return the edge type.");
         }
-        return edgeTypes[index];
+        return edgeTypes[startIndex + index];
     }
 
     /**
@@ -131,7 +287,7 @@ public class SortedAdjacencyList {
             throw new ArrayIndexOutOfBoundsException("No edge at index " + index + ". Therefore " +
                 "cannot return the edge ID.");
         }
-        return edgeIds[index];
+        return edgeIds[startIndex + index];
     }
 
     /**
@@ -144,7 +300,7 @@ public class SortedAdjacencyList {
      */
     public long getEdgeId(int neighbourId, short edgeType) {
         int index = search(neighbourId, edgeType);
-        return (index >= 0) ? edgeIds[index] : -1;
+        return (index >= 0) ? edgeIds[startIndex + index] : -1;
     }
 
     /**
@@ -161,9 +317,9 @@ public class SortedAdjacencyList {
         IntArrayList filteredList = new IntArrayList(size);
         if (TypeAndPropertyKeyStore.ANY == edgeTypeFilter &&
             TypeAndPropertyKeyStore.ANY == toVertexTypeFilter) {
-            filteredList.addAll(Arrays.copyOf(neighbourIds, size));
+            filteredList.addAll(Arrays.copyOfRange(neighbourIds, startIndex, startIndex + size));
         } else {
-            for (int i = 0; i < size; i++) {
+            for (int i = startIndex; i < startIndex + size; i++) {
                 if ((TypeAndPropertyKeyStore.ANY == toVertexTypeFilter ||
                     vertexTypes.get(neighbourIds[i]) == toVertexTypeFilter) &&
                     (TypeAndPropertyKeyStore.ANY == edgeTypeFilter ||
@@ -175,6 +331,37 @@ public class SortedAdjacencyList {
         return filteredList;
     }
 
+    /**
+     * Returns the subset of the neighbour IDs whose type matches the given {@code edgeTypeFilter}
+     * and whose vertex type, read from the given {@code neighbourVertexTypes} instead of the
+     * vertex types of the graph, matches the given {@code toVertexTypeFilter}. The list should be
+     * a view over the columns of the {@link CSRAdjacencyLists} tagged by {@code
+     * neighbourVertexTypes}.
+     *
+     * @see #getFilteredNeighbourIds(short, short, ShortArrayList)
+     */
+    IntArrayList getFilteredNeighbourIdsByTags(short toVertexTypeFilter, short edgeTypeFilter,
+        NeighbourVertexTypeIndex neighbourVertexTypes) {
+        IntArrayList filteredList = new IntArrayList(size);
+        for (int i = 0; i < size; i++) {
+            if ((TypeAndPropertyKeyStore.ANY == toVertexTypeFilter || neighbourVertexTypes.get(
+                columnIndex + i) == toVertexTypeFilter) && (TypeAndPropertyKeyStore.ANY ==
+                edgeTypeFilter || getEdgeType(i) == edgeTypeFilter)) {
+                filteredList.add(getNeighbourId(i));
+            }
+        }
+        return filteredList;
+    }
+
+    /**
+     * @return The type of the neighbour vertex at the given {@code index}, read from the given
+     * {@code neighbourVertexTypes}. The list should be a view over the columns of the {@link
+     * CSRAdjacencyLists} tagged by {@code neighbourVertexTypes}.
+     */
+    short getNeighbourVertexType(int index, NeighbourVertexTypeIndex neighbourVertexTypes) {
+        return neighbourVertexTypes.get(columnIndex + index);
+    }
+
     /**
      * Removes the neighbour with the given {@code neighbourId} and {@code edgeTypeFilter}. The
      * properties of the edge are not deleted. The ID of the edge is recycled and the properties
@@ -184,6 +371,7 @@ public class SortedAdjacencyList {
      * @param edgeTypeFilter The type of the edge to the neighbour to remove.
      */
     public void removeNeighbour(int neighbourId, short edgeTypeFilter) {
+        assertNotReadOnly();
         int index = search(neighbourId, edgeTypeFilter);
         if (index > -1) {
             int numElementsToShiftLeft = size - index - 1;
@@ -206,6 +394,10 @@ public class SortedAdjacencyList {
      * Warning: We assume that the edges in {@code sortedListToIntersect} already satisfy the
      * {@code edgeTypeFilter} and {@code edgePropertyEqualityFilters}. Also, we assume that it is
      * sorted in monotonically increasing order of neighbourIds first and then types.
+     * If the adjacency list is much larger than {@code sortedListToIntersect}, each element of
+     * {@code sortedListToIntersect} is searched with galloping search, starting from the position
+     * of the previous one, which skips most of the adjacency list. Otherwise, both lists are
+     * scanned once with a merge.
      *
      * @param sortedListToIntersect The {@link IntArrayList} to intersect.
      * @param edgeTypeFilter The edge type for filtering the intersections.
@@ -213,6 +405,9 @@ public class SortedAdjacencyList {
      * @return The set of intersected vertices as an {@link IntArrayList}.
      */
     public IntArrayList getIntersection(IntArrayList sortedListToIntersect, short edgeTypeFilter) {
+        if (size <= ((long) GALLOPING_SEARCH_SIZE_RATIO) * sortedListToIntersect.getSize()) {
+            return getIntersectionByMerge(sortedListToIntersect, edgeTypeFilter);
+        }
         IntArrayList intersection = new IntArrayList();
         int index = 0;
         for (int i = 0; i < sortedListToIntersect.getSize(); i++) {
@@ -232,6 +427,34 @@ public class SortedAdjacencyList {
         return intersection;
     }
 
+    /**
+     * Intersects the adjacency list with the given {@code sortedListToIntersect} by scanning both
+     * lists once.
+     *
+     * @see #getIntersection(IntArrayList, short)
+     */
+    @VisibleForTesting
+    IntArrayList getIntersectionByMerge(IntArrayList sortedListToIntersect,
+        short edgeTypeFilter) {
+        IntArrayList intersection = new IntArrayList();
+        int index = 0;
+        for (int i = 0; i < sortedListToIntersect.getSize() && index < size; i++) {
+            int currentElement = sortedListToIntersect.get(i);
+            // Skip the neighbours that are smaller than ({@code currentElement}, {@code
+            // edgeTypeFilter}). The index is not moved past a match, so that a repeated element
+            // of {@code sortedListToIntersect} matches again.
+            while (index < size && (getNeighbourId(index) < currentElement || (getNeighbourId(
+                index) == currentElement && getEdgeType(index) < edgeTypeFilter))) {
+                index++;
+            }
+            if (index < size && getNeighbourId(index) == currentElement && (TypeAndPropertyKeyStore.
+                ANY == edgeTypeFilter || getEdgeType(index) == edgeTypeFilter)) {
+                intersection.add(currentElement);
+            }
+        }
+        return intersection;
+    }
+
     /**
      * Returns the size of the collections in {@code neighbourIds} and {@code edgeTypes}.
      *
@@ -249,7 +472,7 @@ public class SortedAdjacencyList {
     @Override
     public String toString() {
         StringJoiner sj = new StringJoiner(", ");
-        for (int i = 0; i < size; i++) {
+        for (int i = startIndex; i < startIndex + size; i++) {
             sj.add("{" + neighbourIds[i] + ": " + edgeTypes[i] + "}");
         }
         return "[" + sj.toString() + "]";
@@ -277,13 +500,16 @@ public class SortedAdjacencyList {
      * @return Index of the neighbour if a match is found or a negative value as described above.
      */
     public int search(int neighbourId, short edgeTypeFilter, int startIndex) {
+        // All array accesses are offset by {@code base}, so that the returned index is relative to
+        // the start of this list for both owned lists and views.
+        int base = this.startIndex;
         int i = startIndex;
         int stepSize = 1;
         // We iteratively double {@code stepSize} to move forward in the list until ({@code
         // neighbourId}, {@code typeId}) exceeds (u, v) at index {@code i}, where u is the
         // neighbour ID and v is the type ID.
-        while (i < size && (neighbourIds[i] < neighbourId || (neighbourId == neighbourIds[i] &&
-            edgeTypes[i] < edgeTypeFilter))) {
+        while (i < size && (neighbourIds[base + i] < neighbourId || (neighbourId ==
+            neighbourIds[base + i] && edgeTypes[base + i] < edgeTypeFilter))) {
             stepSize <<= 1;
             i += stepSize;
         }
@@ -294,15 +520,16 @@ public class SortedAdjacencyList {
         i -= stepSize;
         stepSize >>= 1;
         while (stepSize > 0) {
-            if ((i + stepSize) < size && (neighbourIds[i + stepSize] < neighbourId ||
-                (neighbourIds[i + stepSize] == neighbourId && edgeTypes[i + stepSize] <
-                    edgeTypeFilter))) {
+            if ((i + stepSize) < size && (neighbourIds[base + i + stepSize] < neighbourId ||
+                (neighbourIds[base + i + stepSize] == neighbourId && edgeTypes[base + i +
+                    stepSize] < edgeTypeFilter))) {
                 i += stepSize;
             }
             stepSize >>= 1;
         }
-        if (((i + 1) < size) && neighbourIds[i + 1] == neighbourId && (TypeAndPropertyKeyStore.ANY
-            == edgeTypeFilter || edgeTypeFilter == edgeTypes[i + 1])) {
+        if (((i + 1) < size) && neighbourIds[base + i + 1] == neighbourId &&
+            (TypeAndPropertyKeyStore.ANY == edgeTypeFilter || edgeTypeFilter ==
+                edgeTypes[base + i + 1])) {
             return i + 1;
         }
         // If ({@code neighbourId},{@code edgeTypeFilter}) does not exist, return the negative value
@@ -323,7 +550,15 @@ public class SortedAdjacencyList {
      * The {@code edgeTypes} and {@code edgeIds} are also sorted to match the neighbor ID ordering.
      */
     private void sort() {
-        for (int i = 1; i < size; i++) {
+        sort(1 /* first unsorted index */);
+    }
+
+    /**
+     * Sorts the neighbours with an insertion sort, assuming that the neighbours before the given
+     * {@code firstUnsortedIndex} are already sorted.
+     */
+    private void sort(int firstUnsortedIndex) {
+        for (int i = firstUnsortedIndex; i < size; i++) {
             int tempNeighbourId = neighbourIds[i];
             short tempNeighbourType = edgeTypes[i];
             long tempNeighbourEdgeId = edgeIds[i];
@@ -341,6 +576,13 @@ public class SortedAdjacencyList {
         }
     }
 
+    private void assertNotReadOnly() {
+        if (isReadOnly) {
+            throw new UnsupportedOperationException("A view over the permanent adjacency lists " +
+                "cannot be modified.");
+        }
+    }
+
     private void ensureCapacity(int minCapacity) {
         neighbourIds = ArrayUtils.resizeIfNecessary(neighbourIds, minCapacity);
         edgeTypes = ArrayUtils.resizeIfNecessary(edgeTypes, minCapacity);
@@ -353,10 +595,11 @@ public class SortedAdjacencyList {
      */
     public void serialize(ObjectOutputStream objectOutputStream) throws IOException {
         objectOutputStream.writeInt(size);
-        objectOutputStream.writeInt(neighbourIds.length);
-        objectOutputStream.writeInt(edgeTypes.length);
-        objectOutputStream.writeInt(edgeIds.length);
-        for (int i = 0; i < size; i++) {
+        // A view is deserialized into a list that owns arrays of exactly its size.
+        objectOutputStream.writeInt(isReadOnly ? size : neighbourIds.length);
+        objectOutputStream.writeInt(isReadOnly ? size : edgeTypes.length);
+        objectOutputStream.writeInt(isReadOnly ? size : edgeIds.length);
+        for (int i = startIndex; i < startIndex + size; i++) {
             objectOutputStream.writeInt(neighbourIds[i]);
             objectOutputStream.writeShort(edgeTypes[i]);
             objectOutputStream.writeLong(edgeIds[i]);
@@ -368,6 +611,7 @@ public class SortedAdjacencyList {
      */
     public void deserialize(ObjectInputStream objectInputStream) throws IOException,
         ClassNotFoundException {
+        assertNotReadOnly();
         size = objectInputStream.readInt();
         neighbourIds = new int[objectInputStream.readInt()];
         edgeTypes = new short[objectInputStream.readInt()];
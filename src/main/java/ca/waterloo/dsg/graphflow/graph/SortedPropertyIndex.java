@@ -0,0 +1,357 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+
+import java.util.BitSet;
+
+/**
+ * A {@link PropertyIndex} on an {@code INTEGER} or {@code DOUBLE} property, which looks up ranges
+ * of values. The entries are kept in primitive arrays sorted by value, and then by vertex or edge
+ * ID, in which the bounds of a range and the entries to remove are binary searched. New entries
+ * are appended to an unsorted buffer, which the lookups scan, and the buffer is merged into the
+ * sorted arrays once it holds more than {@link #getMaxBufferSize()} entries. Removed entries of the
+ * sorted arrays are marked until the next merge, so updates do not shift the sorted arrays.
+ */
+class SortedPropertyIndex extends PropertyIndex {
+
+    private static final int MIN_MAX_BUFFER_SIZE = 256;
+
+    private Entries sortedEntries;
+    private Entries bufferEntries;
+    // The positions of the removed sorted entries, whose IDs are kept so that the entries stay
+    // sorted by value and ID.
+    private BitSet removedPositions;
+    private int numRemovedEntries;
+    // The buffer is merged once by {@link #finishBuild()} while the index is built.
+    private boolean isBuilding;
+
+    SortedPropertyIndex(boolean isVertexIndex, short type, short key) {
+        super(isVertexIndex, type, key);
+        clear();
+    }
+
+    @Override
+    public boolean isRangeIndex() {
+        return true;
+    }
+
+    @Override
+    public int getSize() {
+        return sortedEntries.size - numRemovedEntries + bufferEntries.size;
+    }
+
+    @Override
+    public int[] getVertexIds(PropertyRange range) {
+        IntArrayList sortedPositions = new IntArrayList();
+        IntArrayList bufferPositions = new IntArrayList();
+        getPositions(range, sortedPositions, bufferPositions);
+        int[] vertexIds = new int[sortedPositions.getSize() + bufferPositions.getSize()];
+        for (int i = 0; i < sortedPositions.getSize(); i++) {
+            vertexIds[i] = sortedEntries.fromVertexIds[sortedPositions.get(i)];
+        }
+        for (int i = 0; i < bufferPositions.getSize(); i++) {
+            vertexIds[sortedPositions.getSize() + i] = bufferEntries.fromVertexIds[
+                bufferPositions.get(i)];
+        }
+        return vertexIds;
+    }
+
+    @Override
+    public int[][] getEdges(PropertyRange range) {
+        IntArrayList sortedPositions = new IntArrayList();
+        IntArrayList bufferPositions = new IntArrayList();
+        getPositions(range, sortedPositions, bufferPositions);
+        int[][] edges = new int[sortedPositions.getSize() + bufferPositions.getSize()][];
+        for (int i = 0; i < sortedPositions.getSize(); i++) {
+            int position = sortedPositions.get(i);
+            edges[i] = new int[]{sortedEntries.fromVertexIds[position], sortedEntries.
+                toVertexIds[position]};
+        }
+        for (int i = 0; i < bufferPositions.getSize(); i++) {
+            int position = bufferPositions.get(i);
+            edges[sortedPositions.getSize() + i] = new int[]{bufferEntries.fromVertexIds[
+                position], bufferEntries.toVertexIds[position]};
+        }
+        return edges;
+    }
+
+    @Override
+    void addVertex(Object value, int vertexId) {
+        add(value, vertexId, 0 /* no to vertex */, vertexId);
+    }
+
+    @Override
+    void removeVertex(Object value, int vertexId) {
+        remove(value, vertexId);
+    }
+
+    @Override
+    void addEdge(Object value, int fromVertexId, int toVertexId, long edgeId) {
+        add(value, fromVertexId, toVertexId, edgeId);
+    }
+
+    @Override
+    void removeEdge(Object value, long edgeId) {
+        remove(value, edgeId);
+    }
+
+    @Override
+    void clear() {
+        sortedEntries = new Entries(isVertexIndex());
+        bufferEntries = new Entries(isVertexIndex());
+        removedPositions = new BitSet();
+        numRemovedEntries = 0;
+        isBuilding = true;
+    }
+
+    @Override
+    void finishBuild() {
+        merge();
+        isBuilding = false;
+    }
+
+    /**
+     * @return The number of buffered or removed entries above which the buffer is merged into the
+     * sorted entries. It grows with the square root of the number of sorted entries, so the cost
+     * of merging and the cost of scanning the buffer per lookup are balanced.
+     */
+    private int getMaxBufferSize() {
+        return Integer.max(MIN_MAX_BUFFER_SIZE, 4 * (int) Math.sqrt(sortedEntries.size));
+    }
+
+    private void add(Object value, int fromVertexId, int toVertexId, long id) {
+        bufferEntries.add(toDouble(value), fromVertexId, toVertexId, id);
+        if (!isBuilding && bufferEntries.size > getMaxBufferSize()) {
+            merge();
+        }
+    }
+
+    private void remove(Object value, long id) {
+        if (bufferEntries.remove(id)) {
+            return;
+        }
+        double doubleValue = toDouble(value);
+        int position = getPosition(doubleValue, id);
+        if (position < sortedEntries.size && sortedEntries.values[position] == doubleValue &&
+            sortedEntries.ids[position] == id && !removedPositions.get(position)) {
+            removedPositions.set(position);
+            numRemovedEntries++;
+            if (!isBuilding && numRemovedEntries > getMaxBufferSize()) {
+                merge();
+            }
+        }
+    }
+
+    /**
+     * Adds the positions of the sorted entries and of the buffered entries whose values are in
+     * the given {@code range} to {@code sortedPositions} and {@code bufferPositions}.
+     */
+    private void getPositions(PropertyRange range, IntArrayList sortedPositions,
+        IntArrayList bufferPositions) {
+        double lowerBound = (null == range.getLowerBound()) ? Double.NEGATIVE_INFINITY :
+            toDouble(range.getLowerBound());
+        double upperBound = (null == range.getUpperBound()) ? Double.POSITIVE_INFINITY :
+            toDouble(range.getUpperBound());
+        for (int i = getFirstPosition(lowerBound, range.isLowerBoundInclusive()); i <
+            sortedEntries.size && isBelowUpperBound(sortedEntries.values[i], upperBound,
+            range.isUpperBoundInclusive()); i++) {
+            if (!removedPositions.get(i)) {
+                sortedPositions.add(i);
+            }
+        }
+        for (int i = 0; i < bufferEntries.size; i++) {
+            double value = bufferEntries.values[i];
+            if ((value > lowerBound || (range.isLowerBoundInclusive() && value == lowerBound)) &&
+                isBelowUpperBound(value, upperBound, range.isUpperBoundInclusive())) {
+                bufferPositions.add(i);
+            }
+        }
+    }
+
+    /**
+     * @return The first position of the sorted entries whose value is larger than, or equal to if
+     * {@code isInclusive}, the given {@code value}.
+     */
+    private int getFirstPosition(double value, boolean isInclusive) {
+        int low = 0;
+        int high = sortedEntries.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            double middleValue = sortedEntries.values[middle];
+            if (middleValue < value || (!isInclusive && middleValue == value)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The first position of the sorted entries whose (value, ID) pair is larger than or
+     * equal to ({@code value}, {@code id}).
+     */
+    private int getPosition(double value, long id) {
+        int low = 0;
+        int high = sortedEntries.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedEntries.isBefore(middle, value, id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isBelowUpperBound(double value, double upperBound,
+        boolean isInclusive) {
+        return value < upperBound || (isInclusive && value == upperBound);
+    }
+
+    /**
+     * Sorts the buffered entries and merges them with the sorted entries that are not removed, by
+     * value and then by ID.
+     */
+    private void merge() {
+        bufferEntries.sort(0, bufferEntries.size - 1);
+        Entries mergedEntries = new Entries(isVertexIndex());
+        int sortedPosition = 0;
+        int bufferPosition = 0;
+        while (sortedPosition < sortedEntries.size || bufferPosition < bufferEntries.size) {
+            if (sortedPosition < sortedEntries.size && removedPositions.get(sortedPosition)) {
+                sortedPosition++;
+            } else if (bufferPosition >= bufferEntries.size || (sortedPosition <
+                sortedEntries.size && sortedEntries.isBefore(sortedPosition, bufferEntries.values[
+                bufferPosition], bufferEntries.ids[bufferPosition]))) {
+                mergedEntries.add(sortedEntries, sortedPosition++);
+            } else {
+                mergedEntries.add(bufferEntries, bufferPosition++);
+            }
+        }
+        sortedEntries = mergedEntries;
+        bufferEntries = new Entries(isVertexIndex());
+        removedPositions = new BitSet();
+        numRemovedEntries = 0;
+    }
+
+    private static double toDouble(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * The values of the indexed property of vertices or edges, and the vertices or edges, in
+     * parallel primitive arrays. Vertices are identified by their IDs and edges by their edge IDs.
+     */
+    private static class Entries {
+
+        private static final int INITIAL_CAPACITY = 2;
+
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int[] fromVertexIds = new int[INITIAL_CAPACITY];
+        private int[] toVertexIds;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private Entries(boolean isVertexIndex) {
+            toVertexIds = isVertexIndex ? null : new int[INITIAL_CAPACITY];
+        }
+
+        private void add(double value, int fromVertexId, int toVertexId, long id) {
+            values = ArrayUtils.resizeIfNecessary(values, size + 1, 0);
+            fromVertexIds = ArrayUtils.resizeIfNecessary(fromVertexIds, size + 1);
+            ids = ArrayUtils.resizeIfNecessary(ids, size + 1, 0);
+            values[size] = value;
+            fromVertexIds[size] = fromVertexId;
+            ids[size] = id;
+            if (null != toVertexIds) {
+                toVertexIds = ArrayUtils.resizeIfNecessary(toVertexIds, size + 1);
+                toVertexIds[size] = toVertexId;
+            }
+            size++;
+        }
+
+        private void add(Entries entries, int position) {
+            add(entries.values[position], entries.fromVertexIds[position], (null ==
+                entries.toVertexIds) ? 0 : entries.toVertexIds[position], entries.ids[position]);
+        }
+
+        /**
+         * Removes the entry with the given {@code id} by moving the last entry to its position.
+         *
+         * @return {@code true} if the entry was found, {@code false} otherwise.
+         */
+        private boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    swap(i, --size);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return {@code true} if the entry at the given {@code position} is before ({@code
+         * value}, {@code id}) in the order of values and then IDs, {@code false} otherwise.
+         */
+        private boolean isBefore(int position, double value, long id) {
+            return values[position] < value || (values[position] == value && ids[position] < id);
+        }
+
+        /**
+         * Sorts the entries from {@code start} to {@code end}, both inclusive, by value and then
+         * by ID with a quicksort that recurses into the smaller partition.
+         */
+        private void sort(int start, int end) {
+            while (start < end) {
+                int middle = (start + end) >>> 1;
+                double pivotValue = values[middle];
+                long pivotId = ids[middle];
+                int low = start;
+                int high = end;
+                while (low <= high) {
+                    while (isBefore(low, pivotValue, pivotId)) {
+                        low++;
+                    }
+                    while (isAfter(high, pivotValue, pivotId)) {
+                        high--;
+                    }
+                    if (low <= high) {
+                        swap(low++, high--);
+                    }
+                }
+                if (high - start < end - low) {
+                    sort(start, high);
+                    start = low;
+                } else {
+                    sort(low, end);
+                    end = high;
+                }
+            }
+        }
+
+        private boolean isAfter(int position, double value, long id) {
+            return values[position] > value || (values[position] == value && ids[position] > id);
+        }
+
+        private void swap(int i, int j) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+            int fromVertexId = fromVertexIds[i];
+            fromVertexIds[i] = fromVertexIds[j];
+            fromVertexIds[j] = fromVertexId;
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            if (null != toVertexIds) {
+                int toVertexId = toVertexIds[i];
+                toVertexIds[i] = toVertexIds[j];
+                toVertexIds[j] = toVertexId;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A view of the UTF-8 bytes of a string property in the array of a property store, filled by
+ * {@link VertexPropertyStore#getStringBytes(int, short, StringBytes)} and {@link
+ * EdgeStore#getStringBytes(long, short, StringBytes)}. A caller keeps one instance and reuses it
+ * for every read, so reading a string property does not allocate. The view is only valid until
+ * the properties of the store change. The bytes of a dictionary-encoded value are the ones of
+ * the dictionary of its key in the {@link TypeAndPropertyKeyStore}, and the view also has the
+ * code of the value, which can be compared instead of the bytes.
+ */
+public class StringBytes {
+
+    private byte[] data;
+    private int offset;
+    private int length;
+    private int code;
+
+    void reset(byte[] data, int offset, int length) {
+        reset(data, offset, length, -1 /* not dictionary-encoded */);
+    }
+
+    void reset(byte[] data, int offset, int length, int code) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.code = code;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return The code of the viewed value in the dictionary of its key, or -1 if the value is
+     * not dictionary-encoded. See {@link TypeAndPropertyKeyStore#getStringCode(short, String)}.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param bytes The UTF-8 bytes of a string.
+     *
+     * @return {@code true} if the viewed bytes are the same as the given {@code bytes}, {@code
+     * false} otherwise.
+     */
+    public boolean isEqualTo(byte[] bytes) {
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != data[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+}
@@ -5,7 +5,9 @@ import ca.waterloo.dsg.graphflow.exceptions.NoSuchPropertyKeyException;
 import ca.waterloo.dsg.graphflow.exceptions.NoSuchTypeException;
 import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
 import ca.waterloo.dsg.graphflow.graph.serde.MainFileSerDeHelper;
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
 import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.StringDictionary;
 import ca.waterloo.dsg.graphflow.util.StringToShortKeyStore;
 import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
 import ca.waterloo.dsg.graphflow.util.VisibleForTesting;
@@ -20,7 +22,9 @@ import java.util.Objects;
 
 /**
  * Stores a mapping from {@code String} types and property keys to {@code short} types and
- * property keys.
+ * property keys, and the {@link StringDictionary} of each {@link DataType#STRING} property key,
+ * which the {@link VertexPropertyStore} and the {@link EdgeStore} share to store the values of
+ * the key as {@code int} codes.
  */
 public class TypeAndPropertyKeyStore implements GraphflowSerializable {
 
@@ -35,6 +39,9 @@ public class TypeAndPropertyKeyStore implements GraphflowSerializable {
     StringToShortKeyStore propertyKeyStore = new StringToShortKeyStore();
     @VisibleForTesting
     Map<Short, DataType> propertyDataTypeStore = new HashMap<>();
+    // The dictionaries of the {@code STRING} property keys by key, {@code null} for the keys
+    // without values yet.
+    private StringDictionary[] stringDictionaries = new StringDictionary[2];
 
     /**
      * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
@@ -163,6 +170,58 @@ public class TypeAndPropertyKeyStore implements GraphflowSerializable {
         return propertyDataTypeStore.get(shortKey);
     }
 
+    /**
+     * @param key The {@code short} key of a {@link DataType#STRING} property.
+     * @param value A value of the property.
+     *
+     * @return The code of the given {@code value} in the dictionary of the given {@code key},
+     * which is inserted if it is not in the dictionary yet, or -1 if the value is not encoded. See
+     * {@link StringDictionary#getCodeOrInsert(String)}.
+     */
+    public int getStringCodeOrInsert(short key, String value) {
+        stringDictionaries = (StringDictionary[]) ArrayUtils.resizeIfNecessary(
+            stringDictionaries, key + 1);
+        if (null == stringDictionaries[key]) {
+            stringDictionaries[key] = new StringDictionary();
+        }
+        return stringDictionaries[key].getCodeOrInsert(value);
+    }
+
+    /**
+     * @return The code of the given {@code value} in the dictionary of the given {@code key}, or
+     * -1 if it is not in the dictionary.
+     */
+    public int getStringCode(short key, String value) {
+        return (key < 0 || key >= stringDictionaries.length || null == stringDictionaries[key]) ?
+            -1 : stringDictionaries[key].getCode(value);
+    }
+
+    /**
+     * @return The number of values in the dictionary of the given {@code key}, whose codes are
+     * [0, number of values). A code is never reassigned, so the values with the codes smaller
+     * than the returned number are the same until the store is reset.
+     */
+    public int getNumStringCodes(short key) {
+        return (key < 0 || key >= stringDictionaries.length || null == stringDictionaries[key]) ?
+            0 : stringDictionaries[key].getSize();
+    }
+
+    /**
+     * @return The value of the given {@code code} in the dictionary of the given {@code key}. The
+     * same {@code String} is returned on every call.
+     */
+    public String getString(short key, int code) {
+        return stringDictionaries[key].getString(code);
+    }
+
+    /**
+     * @return The UTF-8 bytes of the value of the given {@code code} in the dictionary of the
+     * given {@code key}. The bytes must not be modified.
+     */
+    public byte[] getStringBytes(short key, int code) {
+        return stringDictionaries[key].getBytes(code);
+    }
+
     /**
      * Given some properties as Map<String (key), Pair<String (dataType), String (value)>>,
      * returns the same properties as Map<Short, Pair<DataType, String>>. If a property key K
@@ -273,6 +332,13 @@ public class TypeAndPropertyKeyStore implements GraphflowSerializable {
         typeKeyStore.serialize(objectOutputStream);
         propertyKeyStore.serialize(objectOutputStream);
         objectOutputStream.writeObject(propertyDataTypeStore);
+        objectOutputStream.writeInt(stringDictionaries.length);
+        for (StringDictionary stringDictionary : stringDictionaries) {
+            objectOutputStream.writeBoolean(null != stringDictionary);
+            if (null != stringDictionary) {
+                stringDictionary.serialize(objectOutputStream);
+            }
+        }
     }
 
     @Override
@@ -282,6 +348,13 @@ public class TypeAndPropertyKeyStore implements GraphflowSerializable {
         typeKeyStore.deserialize(objectInputStream);
         propertyKeyStore.deserialize(objectInputStream);
         propertyDataTypeStore = (HashMap<Short, DataType>) objectInputStream.readObject();
+        stringDictionaries = new StringDictionary[objectInputStream.readInt()];
+        for (int key = 0; key < stringDictionaries.length; key++) {
+            if (objectInputStream.readBoolean()) {
+                stringDictionaries[key] = new StringDictionary();
+                stringDictionaries[key].deserialize(objectInputStream);
+            }
+        }
     }
 
     @Override
@@ -325,6 +398,17 @@ public class TypeAndPropertyKeyStore implements GraphflowSerializable {
             !Objects.equals(a.propertyDataTypeStore, b.propertyDataTypeStore)) {
             return false;
         }
+        for (int key = 0; key < Integer.max(a.stringDictionaries.length,
+            b.stringDictionaries.length); key++) {
+            if (!StringDictionary.isSameAs(getStringDictionary(a, key), getStringDictionary(b,
+                key))) {
+                return false;
+            }
+        }
         return true;
     }
+
+    private static StringDictionary getStringDictionary(TypeAndPropertyKeyStore store, int key) {
+        return (key < store.stringDictionaries.length) ? store.stringDictionaries[key] : null;
+    }
 }
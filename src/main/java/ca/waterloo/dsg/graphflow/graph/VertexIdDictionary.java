@@ -0,0 +1,237 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.exceptions.NoSuchVertexIDException;
+import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
+import ca.waterloo.dsg.graphflow.graph.serde.MainFileSerDeHelper;
+import ca.waterloo.dsg.graphflow.util.LongToIntKeyStore;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Maps the external vertex IDs given in queries and input files to the internal vertex IDs used
+ * by {@link Graph}, and back when vertex IDs are output.
+ * <p>
+ * The arrays of {@link Graph}, {@link VertexPropertyStore} and the adjacency lists are indexed by
+ * the internal vertex IDs, so their memory is linear in the highest vertex ID. When the dictionary
+ * is enabled, each new external vertex ID, which can be any {@code long}, gets the next
+ * consecutive internal vertex ID starting from 0, so sparse and 64-bit external vertex IDs use
+ * memory linear in the number of vertices. When the dictionary is disabled, which is the default,
+ * the internal vertex IDs are the same as the external vertex IDs, which should then be in the
+ * range [0, {@link Integer#MAX_VALUE}]. The server enables the dictionary when it is started with
+ * the system property {@link #ENABLED_PROPERTY} set to {@code true}, e.g., with {@code
+ * GRAPHFLOW_SERVER_OPTS="-Dgraphflow.vertexIdDictionary=true"}.
+ */
+public class VertexIdDictionary implements GraphflowSerializable {
+
+    public static final String ENABLED_PROPERTY = "graphflow.vertexIdDictionary";
+    private static final String SERDE_FILE_NAME_PREFIX = "vertex_id_dictionary";
+    private static VertexIdDictionary INSTANCE = new VertexIdDictionary();
+
+    // Read again by each new instance, so the dictionary stays enabled after a reset.
+    private boolean isEnabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private LongToIntKeyStore externalIdStore = new LongToIntKeyStore();
+
+    /**
+     * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
+     * class.
+     */
+    private VertexIdDictionary() { }
+
+    /**
+     * Enables or disables the mapping of external vertex IDs to dense internal vertex IDs.
+     *
+     * @param isEnabled {@code true} to map the external vertex IDs, {@code false} to use them as
+     * the internal vertex IDs.
+     *
+     * @throws UnsupportedOperationException If the graph already has vertices, whose IDs would be
+     * interpreted differently.
+     */
+    public void setEnabled(boolean isEnabled) {
+        if (isEnabled != this.isEnabled && Graph.getInstance().getHighestVertexId() >= 0) {
+            throw new UnsupportedOperationException("The vertex ID dictionary cannot be "
+                + "enabled or disabled when the graph has vertices.");
+        }
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * @return {@code true} if the external vertex IDs are mapped to dense internal vertex IDs,
+     * {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Returns the internal vertex ID of the given external vertex ID, and assigns the next
+     * internal vertex ID to it if it has not been seen before. Used when vertices and edges are
+     * added.
+     *
+     * @param externalId The external vertex ID.
+     *
+     * @return The internal vertex ID.
+     *
+     * @throws IllegalArgumentException If the dictionary is disabled and {@code externalId} is not
+     * in the range [0, {@link Integer#MAX_VALUE}].
+     */
+    public int getInternalIdOrInsert(long externalId) {
+        if (isEnabled) {
+            return externalIdStore.getKeyAsIntOrInsert(externalId);
+        }
+        if (externalId < 0 || externalId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The vertex ID " + externalId + " is out of range"
+                + ". Enable the vertex ID dictionary to use vertex IDs outside [0, "
+                + Integer.MAX_VALUE + "].");
+        }
+        return (int) externalId;
+    }
+
+    /**
+     * @param externalId The external vertex ID.
+     *
+     * @return The internal vertex ID of the given external vertex ID.
+     *
+     * @throws NoSuchVertexIDException If the dictionary is enabled and {@code externalId} has not
+     * been seen before, or if the dictionary is disabled and {@code externalId} is not in the
+     * range [0, {@link Integer#MAX_VALUE}].
+     */
+    public int getInternalId(long externalId) {
+        int internalId;
+        if (isEnabled) {
+            internalId = externalIdStore.mapLongKeyToInt(externalId);
+        } else {
+            internalId = (externalId < 0 || externalId > Integer.MAX_VALUE) ? -1 :
+                (int) externalId;
+        }
+        if (internalId < 0) {
+            throw new NoSuchVertexIDException("The vertex ID " + externalId + " does not exist.");
+        }
+        return internalId;
+    }
+
+    /**
+     * @param internalId The internal vertex ID.
+     *
+     * @return The external vertex ID of the given internal vertex ID.
+     *
+     * @throws NoSuchVertexIDException If the dictionary is enabled and {@code internalId} has not
+     * been assigned to an external vertex ID.
+     */
+    public long getExternalId(int internalId) {
+        if (!isEnabled) {
+            return internalId;
+        }
+        if (internalId < 0 || internalId >= externalIdStore.getSize()) {
+            throw new NoSuchVertexIDException("The internal vertex ID " + internalId + " does " +
+                "not exist.");
+        }
+        return externalIdStore.mapIntKeyToLong(internalId);
+    }
+
+    /**
+     * @param internalIds The internal vertex IDs.
+     *
+     * @return A new array with the external vertex IDs of the given internal vertex IDs.
+     */
+    public long[] getExternalIds(int[] internalIds) {
+        long[] externalIds = new long[internalIds.length];
+        for (int i = 0; i < internalIds.length; i++) {
+            externalIds[i] = getExternalId(internalIds[i]);
+        }
+        return externalIds;
+    }
+
+    /**
+     * Relabels each internal vertex ID v to {@code newVertexIds[v]}, keeping its external vertex
+     * ID, so that clients keep using the same vertex IDs. If the dictionary is disabled, it is
+     * enabled with the old internal vertex IDs as the external vertex IDs. Internal vertex IDs
+     * larger than the ones of {@code newVertexIds} are kept. See {@link
+     * Graph#relabelVertices(int[])}.
+     *
+     * @param newVertexIds A permutation of [0, {@code newVertexIds.length}).
+     */
+    void relabelInternalIds(int[] newVertexIds) {
+        int numInternalIds = isEnabled ? Integer.max(externalIdStore.getSize(),
+            newVertexIds.length) : newVertexIds.length;
+        long[] externalIds = new long[numInternalIds];
+        for (int internalId = 0; internalId < numInternalIds; internalId++) {
+            long externalId = (!isEnabled || internalId >= externalIdStore.getSize()) ?
+                internalId : externalIdStore.mapIntKeyToLong(internalId);
+            externalIds[(internalId < newVertexIds.length) ? newVertexIds[internalId] :
+                internalId] = externalId;
+        }
+        // Each new external vertex ID gets the next consecutive internal vertex ID, so the
+        // external vertex IDs are inserted in the order of their new internal vertex IDs.
+        externalIdStore = new LongToIntKeyStore();
+        for (long externalId : externalIds) {
+            externalIdStore.getKeyAsIntOrInsert(externalId);
+        }
+        isEnabled = true;
+    }
+
+    @Override
+    public void serializeAll(String outputDirectoryPath) throws IOException {
+        MainFileSerDeHelper.serialize(this, outputDirectoryPath);
+    }
+
+    @Override
+    public void deserializeAll(String inputDirectoryPath) throws IOException,
+        ClassNotFoundException {
+        MainFileSerDeHelper.deserialize(this, inputDirectoryPath);
+    }
+
+    @Override
+    public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeBoolean(isEnabled);
+        externalIdStore.serialize(objectOutputStream);
+    }
+
+    @Override
+    public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException {
+        isEnabled = objectInputStream.readBoolean();
+        externalIdStore.deserialize(objectInputStream);
+    }
+
+    @Override
+    public String getMainFileNamePrefix() {
+        return SERDE_FILE_NAME_PREFIX;
+    }
+
+    /**
+     * Resets the {@link VertexIdDictionary} state by creating a new {@code INSTANCE}.
+     */
+    static void reset() {
+        INSTANCE = new VertexIdDictionary();
+    }
+
+    /**
+     * Returns the singleton instance {@link #INSTANCE} of {@link VertexIdDictionary}.
+     */
+    public static VertexIdDictionary getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(VertexIdDictionary a, VertexIdDictionary b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        return a.isEnabled == b.isEnabled && LongToIntKeyStore.isSameAs(a.externalIdStore,
+            b.externalIdStore);
+    }
+}
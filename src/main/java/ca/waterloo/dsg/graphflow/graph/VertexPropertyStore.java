@@ -16,7 +16,8 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
- * Stores the properties of each vertex in the graph in serialized bytes.
+ * Stores the properties of each vertex in the graph in serialized bytes, or in one column per
+ * property key if the columnar layout is enabled. See {@link #setColumnarLayout(boolean)}.
  */
 public class VertexPropertyStore extends PropertyStore {
 
@@ -25,13 +26,19 @@ public class VertexPropertyStore extends PropertyStore {
     private static VertexPropertyStore INSTANCE = new VertexPropertyStore();
     @VisibleForTesting
     byte[][] vertexProperties;
+    // The properties of the vertices if the columnar layout is enabled, {@code null} otherwise.
+    private PropertyColumns vertexPropertyColumns;
 
     /**
-     * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
-     * class.
+     * Private constructor enforces usage of the singleton object {@link #INSTANCE} for this
+     * class. The store uses the columnar layout if the system property {@link
+     * #COLUMNAR_LAYOUT_PROPERTY} is {@code true}.
      */
     private VertexPropertyStore() {
         vertexProperties = new byte[INITIAL_CAPACITY][];
+        if (Boolean.getBoolean(COLUMNAR_LAYOUT_PROPERTY)) {
+            setColumnarLayout(true);
+        }
     }
 
     /**
@@ -43,6 +50,12 @@ public class VertexPropertyStore extends PropertyStore {
      * those of the list at the given {@code vertexId}.
      */
     public void set(int vertexId, Map<Short, Pair<DataType, String>> properties) {
+        if (null != vertexPropertyColumns) {
+            if (null != properties) {
+                vertexPropertyColumns.set(vertexId, properties);
+            }
+            return;
+        }
         vertexProperties = ArrayUtils.resizeIfNecessary(vertexProperties, vertexId + 1);
         if (null == properties) {
             return;
@@ -50,6 +63,19 @@ public class VertexPropertyStore extends PropertyStore {
         vertexProperties[vertexId] = serializeProperties(properties);
     }
 
+    /**
+     * Resizes the records of the vertex properties, if necessary, so that the properties of the
+     * vertices with IDs up to {@code numVertices} - 1 can be set without resizing them again. The
+     * columns of the columnar layout are resized as their values are set.
+     *
+     * @param numVertices The number of vertices.
+     */
+    void ensureCapacity(int numVertices) {
+        if (null == vertexPropertyColumns && numVertices > vertexProperties.length) {
+            vertexProperties = Arrays.copyOf(vertexProperties, numVertices);
+        }
+    }
+
     /**
      * Returns the {@code Short} key, and {@code Object} value pair properties of the vertex with
      * the given ID.
@@ -67,16 +93,13 @@ public class VertexPropertyStore extends PropertyStore {
         if (vertexId > Graph.getInstance().getHighestVertexId()) {
             throw new NoSuchElementException("Vertex with ID " + vertexId + " does not exist.");
         }
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.getAll(vertexId);
+        }
         Map<Short, Object> properties = new HashMap<>();
         byte[] data = vertexProperties[vertexId];
-        if (null == data) {
-            return properties;
-        }
-        propertyIterator.reset(data, 0, data.length);
-        Pair<Short, Object> keyValue;
-        while (propertyIterator.hasNext()) {
-            keyValue = propertyIterator.next();
-            properties.put(keyValue.a, keyValue.b);
+        if (null != data) {
+            deserializeProperties(data, 0, data.length, properties);
         }
         return properties;
     }
@@ -95,22 +118,7 @@ public class VertexPropertyStore extends PropertyStore {
      * highest vertex ID previously created.
      */
     public Map<String, String> getPropertiesAsStrings(int vertexId) {
-        if (vertexId > Graph.getInstance().getHighestVertexId()) {
-            throw new NoSuchElementException("Vertex with ID " + vertexId + " does not exist.");
-        }
-        Map<String, String> properties = new HashMap<>();
-        byte[] data = vertexProperties[vertexId];
-        if (null == data) {
-            return properties;
-        }
-        propertyIterator.reset(data, 0, data.length);
-        Pair<Short, Object> keyValue;
-        while (propertyIterator.hasNext()) {
-            keyValue = propertyIterator.next();
-            properties.put(TypeAndPropertyKeyStore.getInstance().mapShortPropertyKeyToString(
-                keyValue.a), keyValue.b.toString());
-        }
-        return properties;
+        return toStrings(getProperties(vertexId));
     }
 
     /**
@@ -130,15 +138,181 @@ public class VertexPropertyStore extends PropertyStore {
      * highest vertex ID previously created.
      */
     public Object getProperty(int vertexId, short key) {
-        if (vertexId >= vertexProperties.length) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.get(vertexId, key);
+        }
+        byte[] data = vertexProperties[vertexId];
+        return (null == data) ? null : getValue(data, 0, data.length, key);
+    }
+
+    /**
+     * @return {@code true} if the vertex with the given ID does not have a property with the given
+     * key, {@code false} otherwise.
+     *
+     * @throws NoSuchElementException if the vertex with ID {@code vertexId} is larger than the
+     * highest vertex ID previously created.
+     */
+    public boolean isNull(int vertexId, short key) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.isNull(vertexId, key);
+        }
+        return -1 == locateValue(vertexId, key);
+    }
+
+    /**
+     * The typed getters read the value of the property with the given key, which must have the
+     * data type of the getter, of the vertex with the given ID. The value is located through the
+     * key directory of the serialized properties of the vertex, or read from the column of the key
+     * in the columnar layout, and is returned without allocating objects. The value of a property
+     * the vertex does not have, see {@link #isNull(int, short)}, is the default value of the type.
+     *
+     * @throws NoSuchElementException if the vertex with ID {@code vertexId} is larger than the
+     * highest vertex ID previously created.
+     */
+    public int getInt(int vertexId, short key) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.getInt(vertexId, key);
+        }
+        int valueOffset = locateValue(vertexId, key);
+        return (-1 == valueOffset) ? 0 : DataType.deserializeInteger(vertexProperties[vertexId],
+            valueOffset);
+    }
+
+    /**
+     * @see #getInt(int, short)
+     */
+    public double getDouble(int vertexId, short key) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.getDouble(vertexId, key);
+        }
+        int valueOffset = locateValue(vertexId, key);
+        return (-1 == valueOffset) ? 0 : DataType.deserializeDouble(vertexProperties[vertexId],
+            valueOffset);
+    }
+
+    /**
+     * @see #getInt(int, short)
+     */
+    public boolean getBoolean(int vertexId, short key) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.getBoolean(vertexId, key);
+        }
+        int valueOffset = locateValue(vertexId, key);
+        return -1 != valueOffset && 1 == vertexProperties[vertexId][valueOffset];
+    }
+
+    /**
+     * Points the given {@code stringBytes} to the UTF-8 bytes of the string property with the
+     * given key of the vertex with the given ID. See {@link #getInt(int, short)}.
+     *
+     * @return {@code false} if the vertex does not have the property, {@code true} otherwise.
+     */
+    public boolean getStringBytes(int vertexId, short key, StringBytes stringBytes) {
+        verifyVertexIdForRead(vertexId);
+        if (null != vertexPropertyColumns) {
+            return vertexPropertyColumns.getStringBytes(vertexId, key, stringBytes);
+        }
+        int valueOffset = locateValue(vertexId, key);
+        if (-1 == valueOffset) {
+            return false;
+        }
+        resetStringBytes(stringBytes, vertexProperties[vertexId], valueOffset, key);
+        return true;
+    }
+
+    private void verifyVertexIdForRead(int vertexId) {
+        if (!containsVertex(vertexId)) {
             throw new NoSuchElementException("Vertex with ID " + vertexId + " does not exist.");
         }
+    }
+
+    /**
+     * @return {@code true} if the properties of the vertex with the given ID can be read, {@code
+     * false} if the vertex ID is larger than the highest vertex ID previously created.
+     */
+    boolean containsVertex(int vertexId) {
+        return (null != vertexPropertyColumns) ? vertexId <= Graph.getInstance().
+            getHighestVertexId() || vertexId < vertexPropertyColumns.getNumRecords() :
+            vertexId < vertexProperties.length;
+    }
+
+    /**
+     * @return The index of the value of the property with the given key in the serialized
+     * properties of the vertex with the given ID, or -1 if the vertex does not have the property.
+     */
+    private int locateValue(int vertexId, short key) {
         byte[] data = vertexProperties[vertexId];
-        if (null != data) {
-            propertyIterator.reset(data, 0, data.length);
-            return getPropertyFromIterator(key);
+        return (null == data) ? -1 : getValueOffset(data, 0, data.length, key);
+    }
+
+    /**
+     * Moves the properties of each vertex v to {@code newVertexIds[v]}. See {@link
+     * Graph#relabelVertices(int[])}.
+     *
+     * @param newVertexIds A permutation of [0, {@code newVertexIds.length}).
+     */
+    void relabelVertices(int[] newVertexIds) {
+        if (null != vertexPropertyColumns) {
+            vertexPropertyColumns.relabel(newVertexIds);
+            return;
+        }
+        byte[][] relabelledVertexProperties = new byte[Integer.max(vertexProperties.length,
+            newVertexIds.length)][];
+        for (int vertexId = 0; vertexId < relabelledVertexProperties.length; vertexId++) {
+            if (vertexId < vertexProperties.length) {
+                relabelledVertexProperties[(vertexId < newVertexIds.length) ? newVertexIds[
+                    vertexId] : vertexId] = vertexProperties[vertexId];
+            }
+        }
+        vertexProperties = relabelledVertexProperties;
+    }
+
+    /**
+     * Enables or disables the columnar layout of the vertex properties. In the columnar layout,
+     * the values of each property key are kept in a primitive array indexed by vertex ID, see
+     * {@link PropertyColumns}, so reading one property of a vertex does not decode its other
+     * properties. The current properties are moved to the new layout immediately.
+     *
+     * @param isEnabled {@code true} to store the properties in columns, {@code false} to store
+     * the properties of each vertex in serialized bytes.
+     */
+    public void setColumnarLayout(boolean isEnabled) {
+        if (isEnabled == isColumnarLayoutEnabled()) {
+            return;
+        }
+        if (isEnabled) {
+            PropertyColumns propertyColumns = new PropertyColumns();
+            for (int vertexId = 0; vertexId < vertexProperties.length; vertexId++) {
+                if (null != vertexProperties[vertexId]) {
+                    propertyColumns.set(vertexId, toDataTypesAndStrings(getProperties(
+                        vertexId)));
+                }
+            }
+            vertexPropertyColumns = propertyColumns;
+            vertexProperties = new byte[INITIAL_CAPACITY][];
+        } else {
+            PropertyColumns propertyColumns = vertexPropertyColumns;
+            vertexPropertyColumns = null;
+            for (int vertexId = 0; vertexId < propertyColumns.getNumRecords(); vertexId++) {
+                Map<Short, Object> properties = propertyColumns.getAll(vertexId);
+                if (!properties.isEmpty()) {
+                    set(vertexId, toDataTypesAndStrings(properties));
+                }
+            }
         }
-        return null;
+    }
+
+    /**
+     * @return {@code true} if the vertex properties are stored in columns, {@code false}
+     * otherwise.
+     */
+    public boolean isColumnarLayoutEnabled() {
+        return null != vertexPropertyColumns;
     }
 
     @Override
@@ -154,13 +328,24 @@ public class VertexPropertyStore extends PropertyStore {
 
     @Override
     public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
-        objectOutputStream.writeObject(vertexProperties);
+        objectOutputStream.writeBoolean(isColumnarLayoutEnabled());
+        if (isColumnarLayoutEnabled()) {
+            vertexPropertyColumns.serialize(objectOutputStream);
+        } else {
+            objectOutputStream.writeObject(vertexProperties);
+        }
     }
 
     @Override
     public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException,
         ClassNotFoundException {
-        vertexProperties = (byte[][]) objectInputStream.readObject();
+        if (objectInputStream.readBoolean()) {
+            vertexPropertyColumns = new PropertyColumns();
+            vertexPropertyColumns.deserialize(objectInputStream);
+        } else {
+            vertexPropertyColumns = null;
+            vertexProperties = (byte[][]) objectInputStream.readObject();
+        }
     }
 
     @Override
@@ -199,6 +384,12 @@ public class VertexPropertyStore extends PropertyStore {
         if (null == a || null == b) {
             return false;
         }
+        if (a.isColumnarLayoutEnabled() != b.isColumnarLayoutEnabled()) {
+            return false;
+        }
+        if (a.isColumnarLayoutEnabled()) {
+            return PropertyColumns.isSameAs(a.vertexPropertyColumns, b.vertexPropertyColumns);
+        }
         return Arrays.deepEquals(a.vertexProperties, b.vertexProperties);
     }
 }
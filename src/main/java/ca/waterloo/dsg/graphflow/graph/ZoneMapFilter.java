@@ -0,0 +1,88 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ranges of the {@code INTEGER} and {@code DOUBLE} properties a vertex or an edge variable of
+ * a query is required to be in, checked against the {@link ZoneMaps} of the vertices or the edges
+ * of the {@link ZoneMapStore} to skip the blocks of IDs in which no vertex or edge is in all the
+ * ranges.
+ */
+public class ZoneMapFilter {
+
+    private boolean isVertexFilter;
+    private List<Short> keys = new ArrayList<>();
+    private List<PropertyRange> ranges = new ArrayList<>();
+
+    /**
+     * @param isVertexFilter {@code true} to check the ranges against the summaries of the
+     * vertices, {@code false} to check them against the summaries of the edges.
+     */
+    public ZoneMapFilter(boolean isVertexFilter) {
+        this.isVertexFilter = isVertexFilter;
+    }
+
+    /**
+     * Requires the property with the given {@code key} to be in the given {@code range}.
+     */
+    public void addRange(short key, PropertyRange range) {
+        keys.add(key);
+        ranges.add(range);
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if the vertex with the given ID may be in all the ranges, {@code false}
+     * if no vertex of its block is. Only valid for vertex filters.
+     */
+    public boolean mayMatch(int vertexId) {
+        return mayMatchBlock(getZoneMaps(), ZoneMaps.getBlockId(vertexId));
+    }
+
+    /**
+     * @return {@code true} if a block may have a vertex or an edge in all the ranges, {@code
+     * false} if the summaries show that none does.
+     */
+    public boolean mayMatchAnyBlock() {
+        ZoneMaps zoneMaps = getZoneMaps();
+        if (0 == zoneMaps.getNumIds()) {
+            return true;
+        }
+        for (int blockId = 0; blockId <= ZoneMaps.getBlockId(zoneMaps.getNumIds() - 1);
+             blockId++) {
+            if (mayMatchBlock(zoneMaps, blockId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mayMatchBlock(ZoneMaps zoneMaps, int blockId) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (!zoneMaps.mayContain(blockId, keys.get(i), ranges.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ZoneMaps getZoneMaps() {
+        return isVertexFilter ? ZoneMapStore.getInstance().getVertexZoneMaps() : ZoneMapStore.
+            getInstance().getEdgeZoneMaps();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < keys.size(); i++) {
+            stringBuilder.append((0 == i) ? "" : ", ").append(TypeAndPropertyKeyStore.
+                getInstance().mapShortPropertyKeyToString(keys.get(i))).append(" ").append(
+                ranges.get(i));
+        }
+        return stringBuilder.toString();
+    }
+}
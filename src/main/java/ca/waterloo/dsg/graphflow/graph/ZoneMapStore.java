@@ -0,0 +1,216 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.serde.GraphflowSerializable;
+import ca.waterloo.dsg.graphflow.graph.serde.MainFileSerDeHelper;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Stores the {@link ZoneMaps} of the vertex properties, by block of vertex IDs, and of the edge
+ * properties, by block of {@link EdgeStore} buckets, and keeps them up to date: the vertex
+ * summaries are widened when the properties of a vertex are set, which is immediately permanent,
+ * and the edge summaries are widened with the permanent edges when the changes are finalized.
+ * The dirty blocks, whose values were overwritten, are recomputed when the changes are finalized.
+ * The properties of deleted edges stay in the {@link EdgeStore} until their IDs are recycled, so
+ * they stay in the summaries until then, which only loosens them.
+ */
+public class ZoneMapStore implements GraphflowSerializable {
+
+    private static final String SERDE_FILE_NAME_PREFIX = "zone_map_store";
+    private static ZoneMapStore INSTANCE = new ZoneMapStore();
+
+    private ZoneMaps vertexZoneMaps = new ZoneMaps();
+    private ZoneMaps edgeZoneMaps = new ZoneMaps();
+
+    /**
+     * Empty private constructor enforces usage of the singleton object {@link #INSTANCE} for this
+     * class.
+     */
+    private ZoneMapStore() { }
+
+    public ZoneMaps getVertexZoneMaps() {
+        return vertexZoneMaps;
+    }
+
+    public ZoneMaps getEdgeZoneMaps() {
+        return edgeZoneMaps;
+    }
+
+    /**
+     * Summarizes the given properties set to the vertex with the given ID. The block of a vertex
+     * that was already summarized is marked dirty, as its previous properties are overwritten.
+     *
+     * @param properties The properties of the vertex, or {@code null} if they are not changed.
+     */
+    void setVertexProperties(int vertexId, Map<Short, Pair<DataType, String>> properties) {
+        if (vertexId < vertexZoneMaps.getNumIds()) {
+            if (null == properties) {
+                return;
+            }
+            vertexZoneMaps.markDirty(vertexId);
+        }
+        vertexZoneMaps.addId(vertexId);
+        if (null == properties) {
+            return;
+        }
+        for (Map.Entry<Short, Pair<DataType, String>> property : properties.entrySet()) {
+            DataType dataType = property.getValue().a;
+            if (DataType.INTEGER == dataType || DataType.DOUBLE == dataType) {
+                vertexZoneMaps.addValue(vertexId, property.getKey(), Double.parseDouble(
+                    property.getValue().b));
+            }
+        }
+    }
+
+    /**
+     * Summarizes the properties of the permanent edge with the given ID. The block of an edge
+     * with a recycled ID is marked dirty, as the properties of the deleted edge are overwritten.
+     */
+    void addEdge(long edgeId) {
+        int edgeIndex = EdgeStore.getEdgeIndex(edgeId);
+        if (edgeIndex < edgeZoneMaps.getNumIds()) {
+            edgeZoneMaps.markDirty(edgeIndex);
+        }
+        addValues(edgeZoneMaps, edgeIndex, EdgeStore.getInstance().getProperties(edgeId));
+    }
+
+    /**
+     * Recomputes the dirty blocks of the summaries from the property stores. Called when the
+     * changes to the graph are finalized.
+     */
+    void finalizeChanges() {
+        BitSet dirtyBlockIds = vertexZoneMaps.getDirtyBlockIds();
+        for (int blockId = dirtyBlockIds.nextSetBit(0); blockId >= 0; blockId = dirtyBlockIds.
+            nextSetBit(blockId + 1)) {
+            vertexZoneMaps.clearBlock(blockId);
+            int lastVertexId = Integer.min((blockId + 1) * ZoneMaps.BLOCK_SIZE,
+                vertexZoneMaps.getNumIds()) - 1;
+            for (int vertexId = blockId * ZoneMaps.BLOCK_SIZE; vertexId <= lastVertexId;
+                 vertexId++) {
+                addVertexValues(vertexId);
+            }
+        }
+        dirtyBlockIds = edgeZoneMaps.getDirtyBlockIds();
+        for (int blockId = dirtyBlockIds.nextSetBit(0); blockId >= 0; blockId = dirtyBlockIds.
+            nextSetBit(blockId + 1)) {
+            edgeZoneMaps.clearBlock(blockId);
+            int lastEdgeIndex = Integer.min((blockId + 1) * ZoneMaps.BLOCK_SIZE,
+                edgeZoneMaps.getNumIds()) - 1;
+            for (int edgeIndex = blockId * ZoneMaps.BLOCK_SIZE; edgeIndex <= lastEdgeIndex;
+                 edgeIndex++) {
+                addValues(edgeZoneMaps, edgeIndex, EdgeStore.getInstance().getProperties(
+                    EdgeStore.getEdgeId(edgeIndex)));
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the summaries from the property stores. Called when the graph is changed without
+     * going through the methods of {@link Graph} that maintain the summaries.
+     */
+    void rebuild() {
+        vertexZoneMaps = new ZoneMaps();
+        for (int vertexId = 0; vertexId <= Graph.getInstance().getHighestVertexId(); vertexId++) {
+            addVertexValues(vertexId);
+        }
+        edgeZoneMaps = new ZoneMaps();
+        for (int edgeIndex = 0; edgeIndex < EdgeStore.getInstance().getNumAssignedEdgeIds();
+             edgeIndex++) {
+            addValues(edgeZoneMaps, edgeIndex, EdgeStore.getInstance().getProperties(
+                EdgeStore.getEdgeId(edgeIndex)));
+        }
+    }
+
+    private void addVertexValues(int vertexId) {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        if (vertexId <= Graph.getInstance().getHighestVertexId() && vertexPropertyStore.
+            containsVertex(vertexId)) {
+            addValues(vertexZoneMaps, vertexId, vertexPropertyStore.getProperties(vertexId));
+        } else {
+            vertexZoneMaps.addId(vertexId);
+        }
+    }
+
+    private static void addValues(ZoneMaps zoneMaps, int id, Map<Short, Object> properties) {
+        zoneMaps.addId(id);
+        for (Map.Entry<Short, Object> property : properties.entrySet()) {
+            if (property.getValue() instanceof Integer || property.getValue() instanceof Double) {
+                zoneMaps.addValue(id, property.getKey(), ((Number) property.getValue()).
+                    doubleValue());
+            }
+        }
+    }
+
+    @Override
+    public void serializeAll(String outputDirectoryPath) throws IOException {
+        MainFileSerDeHelper.serialize(this, outputDirectoryPath);
+    }
+
+    @Override
+    public void deserializeAll(String inputDirectoryPath) throws IOException,
+        ClassNotFoundException {
+        MainFileSerDeHelper.deserialize(this, inputDirectoryPath);
+    }
+
+    @Override
+    public void serializeMainFile(ObjectOutputStream objectOutputStream) throws IOException {
+        vertexZoneMaps.serialize(objectOutputStream);
+        edgeZoneMaps.serialize(objectOutputStream);
+    }
+
+    @Override
+    public void deserializeMainFile(ObjectInputStream objectInputStream) throws IOException,
+        ClassNotFoundException {
+        vertexZoneMaps = new ZoneMaps();
+        vertexZoneMaps.deserialize(objectInputStream);
+        edgeZoneMaps = new ZoneMaps();
+        edgeZoneMaps.deserialize(objectInputStream);
+    }
+
+    @Override
+    public String getMainFileNamePrefix() {
+        return SERDE_FILE_NAME_PREFIX;
+    }
+
+    /**
+     * Resets the {@link ZoneMapStore} state by creating a new {@code INSTANCE}.
+     */
+    static void reset() {
+        INSTANCE = new ZoneMapStore();
+    }
+
+    /**
+     * Returns the singleton instance {@link #INSTANCE} of {@link ZoneMapStore}.
+     */
+    public static ZoneMapStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s summaries are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(ZoneMapStore a, ZoneMapStore b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        return ZoneMaps.isSameAs(a.vertexZoneMaps, b.vertexZoneMaps) && ZoneMaps.isSameAs(
+            a.edgeZoneMaps, b.edgeZoneMaps);
+    }
+}
@@ -0,0 +1,221 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.ArrayUtils;
+import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Summaries of the {@code INTEGER} and {@code DOUBLE} properties of the vertices or the edges in
+ * each block of {@link #BLOCK_SIZE} consecutive IDs: the minimum and the maximum value of each
+ * property key in the block, and the number of IDs of the block without the property. The IDs
+ * are vertex IDs, or the positions of the edge IDs in the order in which the {@link EdgeStore}
+ * assigns them, so a block of edges is a run of {@link EdgeStore} buckets. The summaries always
+ * bound the values in the block: a value written to the block widens its minimum and maximum
+ * immediately, and a block whose values are overwritten is marked dirty until {@link
+ * ZoneMapStore} recomputes it, which makes its bounds tight and its null counts exact again.
+ */
+public class ZoneMaps {
+
+    public static final int BLOCK_SIZE = 1024;
+    private static final int INITIAL_CAPACITY = 2;
+
+    // The summaries of each property key by block ID. The arrays of keys without any {@code
+    // INTEGER} or {@code DOUBLE} values are {@code null}.
+    private double[][] minValues = new double[INITIAL_CAPACITY][];
+    private double[][] maxValues = new double[INITIAL_CAPACITY][];
+    private int[][] numValues = new int[INITIAL_CAPACITY][];
+    // The summarized IDs are [0, {@code numIds}).
+    private int numIds;
+    private BitSet dirtyBlockIds = new BitSet();
+
+    /**
+     * @return The ID of the block of the given {@code id}.
+     */
+    public static int getBlockId(int id) {
+        return id / BLOCK_SIZE;
+    }
+
+    public int getNumIds() {
+        return numIds;
+    }
+
+    /**
+     * @return {@code true} if a vertex or an edge of the block with the given ID may have a value
+     * of the property with the given {@code key} in the given {@code range}, {@code false} if the
+     * summaries of the block show that none does. The blocks of keys and IDs that are not
+     * summarized may have any value.
+     */
+    public boolean mayContain(int blockId, short key, PropertyRange range) {
+        if (key < 0 || key >= minValues.length || null == minValues[key] || blockId >
+            getBlockId(numIds - 1)) {
+            // The keys without summaries, which may have values of other types, and the blocks
+            // of IDs that are not summarized are not pruned.
+            return true;
+        }
+        if (blockId >= minValues[key].length) {
+            // No vertex or edge of the block has the property.
+            return false;
+        }
+        double minValue = minValues[key][blockId];
+        double maxValue = maxValues[key][blockId];
+        if (minValue > maxValue) {
+            // No vertex or edge of the block has the property.
+            return false;
+        }
+        if (null != range.getLowerBound()) {
+            double lowerBound = ((Number) range.getLowerBound()).doubleValue();
+            if (maxValue < lowerBound || (maxValue == lowerBound && !range.
+                isLowerBoundInclusive())) {
+                return false;
+            }
+        }
+        if (null != range.getUpperBound()) {
+            double upperBound = ((Number) range.getUpperBound()).doubleValue();
+            if (minValue > upperBound || (minValue == upperBound && !range.
+                isUpperBoundInclusive())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The minimum value of the property with the given {@code key} in the block with the
+     * given ID, or {@link Double#POSITIVE_INFINITY} if no vertex or edge of the block has it.
+     */
+    public double getMinValue(int blockId, short key) {
+        return isSummarized(blockId, key) ? minValues[key][blockId] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return The maximum value of the property with the given {@code key} in the block with the
+     * given ID, or {@link Double#NEGATIVE_INFINITY} if no vertex or edge of the block has it.
+     */
+    public double getMaxValue(int blockId, short key) {
+        return isSummarized(blockId, key) ? maxValues[key][blockId] : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * @return The number of the summarized IDs of the block with the given ID without the
+     * property with the given {@code key}. Only exact if the block is not dirty.
+     */
+    public int getNullCount(int blockId, short key) {
+        int numIdsInBlock = Integer.max(0, Integer.min(BLOCK_SIZE, numIds - blockId *
+            BLOCK_SIZE));
+        return numIdsInBlock - (isSummarized(blockId, key) ? numValues[key][blockId] : 0);
+    }
+
+    public boolean isDirty(int blockId) {
+        return dirtyBlockIds.get(blockId);
+    }
+
+    private boolean isSummarized(int blockId, short key) {
+        return key >= 0 && key < minValues.length && null != minValues[key] && blockId <
+            minValues[key].length;
+    }
+
+    /**
+     * Summarizes the value of the property with the given {@code key} of the vertex or the edge
+     * with the given {@code id}, which is new in the block unless the block is marked dirty.
+     */
+    void addValue(int id, short key, double value) {
+        int blockId = getBlockId(id);
+        if (key >= minValues.length) {
+            minValues = ArrayUtils.resizeIfNecessary(minValues, key + 1);
+            maxValues = ArrayUtils.resizeIfNecessary(maxValues, key + 1);
+            numValues = ArrayUtils.resizeIfNecessary(numValues, key + 1);
+        }
+        if (null == minValues[key]) {
+            minValues[key] = new double[0];
+            maxValues[key] = new double[0];
+            numValues[key] = new int[0];
+        }
+        minValues[key] = ArrayUtils.resizeIfNecessary(minValues[key], blockId + 1,
+            Double.POSITIVE_INFINITY);
+        maxValues[key] = ArrayUtils.resizeIfNecessary(maxValues[key], blockId + 1,
+            Double.NEGATIVE_INFINITY);
+        numValues[key] = ArrayUtils.resizeIfNecessary(numValues[key], blockId + 1);
+        minValues[key][blockId] = Double.min(minValues[key][blockId], value);
+        maxValues[key][blockId] = Double.max(maxValues[key][blockId], value);
+        numValues[key][blockId]++;
+        addId(id);
+    }
+
+    /**
+     * Extends the summarized IDs to the given {@code id}, whose vertex or edge does not have a
+     * value for the keys not given to {@link #addValue(int, short, double)}.
+     */
+    void addId(int id) {
+        numIds = Integer.max(numIds, id + 1);
+    }
+
+    void markDirty(int id) {
+        dirtyBlockIds.set(getBlockId(id));
+    }
+
+    /**
+     * @return The IDs of the dirty blocks.
+     */
+    BitSet getDirtyBlockIds() {
+        return dirtyBlockIds;
+    }
+
+    /**
+     * Removes the summaries of the block with the given ID before it is recomputed with {@link
+     * #addValue(int, short, double)}, and marks it clean.
+     */
+    void clearBlock(int blockId) {
+        for (int key = 0; key < minValues.length; key++) {
+            if (null != minValues[key] && blockId < minValues[key].length) {
+                minValues[key][blockId] = Double.POSITIVE_INFINITY;
+                maxValues[key][blockId] = Double.NEGATIVE_INFINITY;
+                numValues[key][blockId] = 0;
+            }
+        }
+        dirtyBlockIds.clear(blockId);
+    }
+
+    void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeObject(minValues);
+        objectOutputStream.writeObject(maxValues);
+        objectOutputStream.writeObject(numValues);
+        objectOutputStream.writeInt(numIds);
+        objectOutputStream.writeObject(dirtyBlockIds);
+    }
+
+    void deserialize(ObjectInputStream objectInputStream) throws IOException,
+        ClassNotFoundException {
+        minValues = (double[][]) objectInputStream.readObject();
+        maxValues = (double[][]) objectInputStream.readObject();
+        numValues = (int[][]) objectInputStream.readObject();
+        numIds = objectInputStream.readInt();
+        dirtyBlockIds = (BitSet) objectInputStream.readObject();
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s summaries are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(ZoneMaps a, ZoneMaps b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        return a.numIds == b.numIds && a.dirtyBlockIds.equals(b.dirtyBlockIds) && Arrays.
+            deepEquals(a.minValues, b.minValues) && Arrays.deepEquals(a.maxValues,
+            b.maxValues) && Arrays.deepEquals(a.numValues, b.numValues);
+    }
+}
@@ -7,26 +7,23 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 /**
- * Helper class to serialize and deserialize the {@code data} and {@code dataOffset} arrays of
+ * Helper class to serialize and deserialize the pages of the serialized edge properties of
  * {@link EdgeStore} in parallel.
  */
 public class EdgeStoreParallelSerDeUtils extends ParallelArraySerDeUtils {
 
-    private static final String ARRAY_NAME = "data_and_dataoffsets";
-    private byte[][][] data;
-    private int[][][] dataOffsets;
+    private static final String ARRAY_NAME = "property_pages";
+    private byte[][] pages;
     private int size;
 
     /**
      * @param directoryPath Path to the directory where serialized data is stored.
-     * @param data The {@code data} array object of {@link EdgeStore}.
-     * @param dataOffsets The {@code dataOffsets} array object of {@link EdgeStore}.
+     * @param pages The array of the pages of the edge properties of {@link EdgeStore}.
+     * @param size The number of pages in use.
      */
-    public EdgeStoreParallelSerDeUtils(String directoryPath, byte[][][] data,
-        int[][][] dataOffsets, int size) {
+    public EdgeStoreParallelSerDeUtils(String directoryPath, byte[][] pages, int size) {
         super(directoryPath);
-        this.data = data;
-        this.dataOffsets = dataOffsets;
+        this.pages = pages;
         this.size = size;
     }
 
@@ -48,14 +45,12 @@ public class EdgeStoreParallelSerDeUtils extends ParallelArraySerDeUtils {
     @Override
     protected void serializeArrayCell(ObjectOutputStream objectOutputStream, int index)
         throws IOException {
-        objectOutputStream.writeObject(data[index]);
-        objectOutputStream.writeObject(dataOffsets[index]);
+        objectOutputStream.writeObject(pages[index]);
     }
 
     @Override
     protected void deserializeArrayCell(ObjectInputStream objectInputStream, int index)
         throws IOException, ClassNotFoundException {
-        data[index] = (byte[][]) objectInputStream.readObject();
-        dataOffsets[index] = (int[][]) objectInputStream.readObject();
+        pages[index] = (byte[]) objectInputStream.readObject();
     }
 }
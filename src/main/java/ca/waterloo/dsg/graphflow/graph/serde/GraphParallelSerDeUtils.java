@@ -1,62 +1,128 @@
 package ca.waterloo.dsg.graphflow.graph.serde;
 
+import ca.waterloo.dsg.graphflow.graph.CSRAdjacencyLists;
 import ca.waterloo.dsg.graphflow.graph.Graph;
-import ca.waterloo.dsg.graphflow.graph.SortedAdjacencyList;
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.util.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Helper class to serialize and deserialize the adjacency list arrays of {@link Graph} in parallel.
+ * Helper class to serialize and deserialize the {@link CSRAdjacencyLists} of {@link Graph} in
+ * parallel. The adjacency lists of each {@link Direction} are stored in one file in the format of
+ * {@link CSRAdjacencyLists#writeToFile(File)}, which holds a block with the offsets and the
+ * neighbour IDs, edge types and edge IDs columns of each partition of the vertices, and a table of
+ * the blocks, and is written and read through memory-mapped buffers. The files can therefore
+ * either be read into the heap, or be mapped into memory and used directly as the permanent
+ * adjacency lists, without reading them.
  */
-public class GraphParallelSerDeUtils extends ParallelArraySerDeUtils {
+public class GraphParallelSerDeUtils {
 
-    private static final String ARRAY_NAME = "adjacency_lists";
-    private SortedAdjacencyList[] forwardAdjLists;
-    private SortedAdjacencyList[] backwardAdjLists;
-    private int size;
+    private static final Logger logger = LogManager.getLogger(GraphParallelSerDeUtils.class);
+
+    private static final String ARRAY_NAME_SUFFIX = "_adjacency_lists";
+    private final String directoryPath;
+    private final CSRAdjacencyLists[] adjLists = new CSRAdjacencyLists[Direction.values().length];
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile Throwable error;
+    private long beginTimeInNano;
+    private boolean isSerialization;
 
     /**
      * @param directoryPath The path of the directory where serialized data is stored.
+     */
+    public GraphParallelSerDeUtils(String directoryPath) {
+        this.directoryPath = directoryPath;
+    }
+
+    /**
+     * Starts writing the given adjacency lists to their files, one thread per {@link Direction}.
+     * Note: The method returns after starting the threads. A call to {@link #finishSerDe()} should
+     * be made to ensure that all threads have finished their execution.
+     *
      * @param forwardAdjLists The {@code forwardAdjLists} object of {@link Graph}.
      * @param backwardAdjLists The {@code backwardAdjLists} object of {@link Graph}.
-     * @param size The size of the adjacency lists.
      */
-    public GraphParallelSerDeUtils(String directoryPath, SortedAdjacencyList[] forwardAdjLists,
-        SortedAdjacencyList[] backwardAdjLists, int size) {
-        super(directoryPath);
-        this.forwardAdjLists = forwardAdjLists;
-        this.backwardAdjLists = backwardAdjLists;
-        this.size = size;
+    public void startSerialization(CSRAdjacencyLists forwardAdjLists,
+        CSRAdjacencyLists backwardAdjLists) {
+        beginTimeInNano = System.nanoTime();
+        isSerialization = true;
+        logger.info(String.format("Serializing adjacency lists of %s.", getClassName()));
+        adjLists[Direction.FORWARD.ordinal()] = forwardAdjLists;
+        adjLists[Direction.BACKWARD.ordinal()] = backwardAdjLists;
+        for (Direction direction : Direction.values()) {
+            startThread(() -> adjLists[direction.ordinal()].writeToFile(getFile(direction)));
+        }
     }
 
-    @Override
-    protected String getArrayName() {
-        return ARRAY_NAME;
+    /**
+     * Starts reading the adjacency lists from their files, one thread per {@link Direction}.
+     * Note: The method returns after starting the threads. A call to {@link #finishSerDe()} should
+     * be made to ensure that all threads have finished their execution, before reading the
+     * adjacency lists with {@link #getAdjLists(Direction)}.
+     *
+     * @param isMapped If {@code true}, the files are mapped into memory with {@link
+     * CSRAdjacencyLists#mapFile(File)} instead of being read into the heap.
+     */
+    public void startDeserialization(boolean isMapped) {
+        beginTimeInNano = System.nanoTime();
+        isSerialization = false;
+        logger.info(String.format("Deserializing adjacency lists of %s.", getClassName()));
+        for (Direction direction : Direction.values()) {
+            startThread(() -> adjLists[direction.ordinal()] = isMapped ? CSRAdjacencyLists.mapFile(
+                getFile(direction)) : CSRAdjacencyLists.readFromFile(getFile(direction)));
+        }
     }
 
-    @Override
-    protected int getArraySize() {
-        return size;
+    /**
+     * Waits for all threads to finish their execution and calculates the execution time.
+     *
+     * @throws IOException If one of the files could not be written or read.
+     */
+    public void finishSerDe() throws IOException, InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        threads.clear();
+        if (null != error) {
+            throw new IOException("Error in " + (isSerialization ? "serialization" :
+                "deserialization") + " of the adjacency lists.", error);
+        }
+        logger.info(String.format("%s of the adjacency lists of '%s' completed in %.3f ms.",
+            isSerialization ? "Serialization" : "Deserialization", getClassName(),
+            IOUtils.getElapsedTimeInMillis(beginTimeInNano)));
     }
 
-    @Override
-    protected String getClassName() {
-        return Graph.getInstance().getMainFileNamePrefix();
+    /**
+     * @param direction The {@link Direction} of the adjacency lists.
+     *
+     * @return The adjacency lists in the given {@code direction}, after they are deserialized.
+     */
+    public CSRAdjacencyLists getAdjLists(Direction direction) {
+        return adjLists[direction.ordinal()];
     }
 
-    @Override
-    protected void serializeArrayCell(ObjectOutputStream objectOutputStream, int index)
-        throws IOException {
-        forwardAdjLists[index].serialize(objectOutputStream);
-        backwardAdjLists[index].serialize(objectOutputStream);
+    private void startThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setUncaughtExceptionHandler((t, e) -> {
+            logger.error("Error caught in thread", e);
+            error = e;
+        });
+        threads.add(thread);
+        thread.start();
     }
 
-    @Override
-    protected void deserializeArrayCell(ObjectInputStream objectInputStream, int index)
-        throws IOException, ClassNotFoundException {
-        forwardAdjLists[index].deserialize(objectInputStream);
-        backwardAdjLists[index].deserialize(objectInputStream);
+    private File getFile(Direction direction) {
+        return new File(SerDeUtils.getArrayFilePath(directoryPath, getClassName(), direction.
+            name().toLowerCase() + ARRAY_NAME_SUFFIX));
+    }
+
+    private String getClassName() {
+        return Graph.getInstance().getMainFileNamePrefix();
     }
 }
@@ -12,6 +12,7 @@ public class SerDeUtils {
     private static final String MAIN_FILE_TEMPLATE = "%s_main";
     private static final String BLOCK_FILE_TEMPLATE = "%s_%s_block_%s";
     private static final String METADATA_FILE_TEMPLATE = "%s_%s_metadata";
+    private static final String ARRAY_FILE_TEMPLATE = "%s_%s";
 
     /**
      * Constructs the full path to the main file of the given {@code className}.
@@ -42,6 +43,22 @@ public class SerDeUtils {
             String.format(METADATA_FILE_TEMPLATE, className, arrayName));
     }
 
+    /**
+     * Constructs the full path to the file of the given {@code arrayName} and {@code className},
+     * used for arrays that are stored in a single file instead of in blocks.
+     *
+     * @param directoryPath The path of the directory where serialized data is stored.
+     * @param className The name of the class whose objects are being serialized.
+     * @param arrayName The name of the array being serialized.
+     *
+     * @return The full path to the array file.
+     */
+    public static String getArrayFilePath(String directoryPath, String className,
+        String arrayName) {
+        return directoryPath + File.separator + String.format(FILE_NAME_TEMPLATE,
+            String.format(ARRAY_FILE_TEMPLATE, className, arrayName));
+    }
+
     /**
      * Constructs the full path to the block file of the given {@code blockIndex},
      * {@code arrayName} and {@code className}.
@@ -9,7 +9,12 @@ import ca.waterloo.dsg.graphflow.exceptions.NoSuchPropertyKeyException;
 import ca.waterloo.dsg.graphflow.exceptions.NoSuchTypeException;
 import ca.waterloo.dsg.graphflow.exceptions.NoSuchVertexIDException;
 import ca.waterloo.dsg.graphflow.exceptions.SerializationDeserializationException;
+import ca.waterloo.dsg.graphflow.graph.CSVBulkLoader;
 import ca.waterloo.dsg.graphflow.graph.GraphDBState;
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndex;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndexStore;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
 import ca.waterloo.dsg.graphflow.query.executors.ContinuousMatchQueryExecutor;
 import ca.waterloo.dsg.graphflow.query.operator.InMemoryOutputSink;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
@@ -26,6 +31,7 @@ import ca.waterloo.dsg.graphflow.query.plans.OneTimeMatchQueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.QueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.ShortestPathPlan;
 import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery;
+import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery.QueryOperation;
 import ca.waterloo.dsg.graphflow.server.ServerQueryString;
 import ca.waterloo.dsg.graphflow.server.ServerQueryString.ReturnType;
 import ca.waterloo.dsg.graphflow.util.IOUtils;
@@ -34,6 +40,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Class to accept incoming queries from the gRPC server, process them and return the results.
@@ -41,6 +50,11 @@ import java.io.IOException;
 public class QueryProcessor {
 
     private static final Logger logger = LogManager.getLogger(QueryProcessor.class);
+    // MATCH and EXPLAIN queries share the read lock and run in parallel with each other. All other
+    // queries take the write lock, as they change the graph or the state of the executors. The
+    // vertex types, the property stores, the indexes, the zone maps and the string dictionaries
+    // are changed in place, so a MATCH query must not run during a change.
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
      * Executes a string query by converting it into a {@link StructuredQuery}, creating the
@@ -61,6 +75,32 @@ public class QueryProcessor {
         } catch (ParseCancellationException e) {
             return "ERROR parsing: " + e.getMessage();
         }
+        QueryOperation queryOperation = structuredQuery.getQueryOperation();
+        Lock queryLock = (QueryOperation.MATCH == queryOperation || QueryOperation.EXPLAIN ==
+            queryOperation) ? lock.readLock() : lock.writeLock();
+        queryLock.lock();
+        try {
+            output = process(structuredQuery, returnType);
+        } finally {
+            queryLock.unlock();
+        }
+        if (null == output) {
+            return "ERROR: the operation '" + queryOperation + "' is not defined.";
+        }
+
+        if (ReturnType.TEXT == returnType) {
+            output += String.format("\nQuery executed in %.3f ms.", IOUtils.getElapsedTimeInMillis(
+                beginTime));
+        }
+        return output;
+    }
+
+    /**
+     * @return The result of the given {@code structuredQuery}, or {@code null} if its operation is
+     * not defined.
+     */
+    private String process(StructuredQuery structuredQuery, ReturnType returnType) {
+        String output;
         switch (structuredQuery.getQueryOperation()) {
             case CREATE:
                 output = handleCreateQuery(structuredQuery);
@@ -83,6 +123,15 @@ public class QueryProcessor {
             case SAVE_GRAPH:
                 output = handleSaveGraphQuery(structuredQuery);
                 break;
+            case BULK_LOAD:
+                output = handleBulkLoadQuery(structuredQuery);
+                break;
+            case REORDER_GRAPH:
+                output = handleReorderGraphQuery(structuredQuery);
+                break;
+            case CREATE_INDEX:
+                output = handleCreateIndexQuery(structuredQuery);
+                break;
             case EXPLAIN:
                 output = handleExplainMatchQuery(structuredQuery, returnType);
                 break;
@@ -90,13 +139,7 @@ public class QueryProcessor {
                 output = handleExplainContinuousMatchQuery(structuredQuery, returnType);
                 break;
             default:
-                return "ERROR: the operation '" + structuredQuery.getQueryOperation() +
-                    "' is not defined.";
-        }
-
-        if (ReturnType.TEXT == returnType) {
-            output += String.format("\nQuery executed in %.3f ms.", IOUtils.getElapsedTimeInMillis(
-                beginTime));
+                return null;
         }
         return output;
     }
@@ -122,6 +165,57 @@ public class QueryProcessor {
         }
     }
 
+    private String handleBulkLoadQuery(StructuredQuery structuredQuery) {
+        CSVBulkLoader csvBulkLoader = new CSVBulkLoader();
+        try {
+            csvBulkLoader.load(structuredQuery.getVertexFilePath(), structuredQuery.getFilePath());
+        } catch (IOException e) {
+            logger.error("Error reading the CSV files.", e);
+            return "Error reading the CSV files. Please check the Graphflow server logs for " +
+                "details.";
+        } catch (IllegalArgumentException e) {
+            logger.debug(e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+        return String.format("Loaded %d vertices and %d edges in %.3f ms (%.0f edges/sec).",
+            csvBulkLoader.getNumVerticesLoaded(), csvBulkLoader.getNumEdgesLoaded(),
+            csvBulkLoader.getElapsedTimeInMillis(), csvBulkLoader.getEdgesPerSecond());
+    }
+
+    private String handleReorderGraphQuery(StructuredQuery structuredQuery) {
+        GraphReorderer graphReorderer = new GraphReorderer();
+        graphReorderer.reorder(structuredQuery.getVertexOrdering());
+        return String.format("Reordered %d vertices by %s in %.3f ms.", graphReorderer.
+            getNumVerticesReordered(), structuredQuery.getVertexOrdering(), graphReorderer.
+            getElapsedTimeInMillis());
+    }
+
+    private String handleCreateIndexQuery(StructuredQuery structuredQuery) {
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        Short type = typeAndPropertyKeyStore.mapStringTypeToShort(structuredQuery.
+            getIndexedType());
+        if (null == type) {
+            return "ERROR: The type " + structuredQuery.getIndexedType() + " does not exist.";
+        }
+        Short key = typeAndPropertyKeyStore.mapStringPropertyKeyToShort(structuredQuery.
+            getIndexedPropertyKey());
+        if (null == key) {
+            return "ERROR: The property key " + structuredQuery.getIndexedPropertyKey() +
+                " does not exist.";
+        }
+        try {
+            PropertyIndex index = PropertyIndexStore.getInstance().createIndex(structuredQuery.
+                isVertexIndex(), type, key);
+            String indexedType = ":" + structuredQuery.getIndexedType();
+            return String.format("Created the index on %s(%s) with %d entries.", structuredQuery.
+                isVertexIndex() ? indexedType : "[" + indexedType + "]", structuredQuery.
+                getIndexedPropertyKey(), index.getSize());
+        } catch (IllegalArgumentException e) {
+            logger.debug(e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
     private String handleCreateQuery(StructuredQuery structuredQuery) {
         OutputSink inMemoryOutputSink = new InMemoryOutputSink();
         try {
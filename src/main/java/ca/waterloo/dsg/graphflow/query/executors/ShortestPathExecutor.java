@@ -5,6 +5,7 @@ import ca.waterloo.dsg.graphflow.graph.Graph;
 import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
 import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
 import ca.waterloo.dsg.graphflow.graph.SortedAdjacencyList;
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
 import ca.waterloo.dsg.graphflow.util.IntQueue;
 import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
@@ -12,7 +13,6 @@ import ca.waterloo.dsg.graphflow.util.VisibleForTesting;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -280,16 +280,30 @@ public class ShortestPathExecutor {
      */
     private void assertVertexIDExists(int vertexId) throws NoSuchVertexIDException {
         if (vertexId >= Graph.getInstance().getVertexCount()) {
-            throw new NoSuchVertexIDException("The specified vertexID " + vertexId + " does not " +
-                "exist.");
+            throw new NoSuchVertexIDException("The specified vertexID " + VertexIdDictionary.
+                getInstance().getExternalId(vertexId) + " does not exist.");
         }
     }
 
+    /**
+     * @param results The edges on the shortest paths, as a map from each vertex to its neighbours
+     * on the shortest paths, using internal vertex IDs.
+     *
+     * @return The edges on the shortest paths as a {@code String}, using the external vertex IDs
+     * given by {@link VertexIdDictionary}.
+     */
     @VisibleForTesting
     static String getStringOutput(Map<Integer, Set<Integer>> results) {
+        VertexIdDictionary vertexIdDictionary = VertexIdDictionary.getInstance();
         StringJoiner stringJoiner = new StringJoiner(", ");
         for (Map.Entry<Integer, Set<Integer>> entry : results.entrySet()) {
-            stringJoiner.add(entry.getKey() + ": " + Arrays.toString(entry.getValue().toArray()));
+            StringJoiner neighboursStringJoiner = new StringJoiner(", ", "[", "]");
+            for (int neighbourId : entry.getValue()) {
+                neighboursStringJoiner.add(Long.toString(vertexIdDictionary.getExternalId(
+                    neighbourId)));
+            }
+            stringJoiner.add(vertexIdDictionary.getExternalId(entry.getKey()) + ": " +
+                neighboursStringJoiner.toString());
         }
         return stringJoiner.toString();
     }
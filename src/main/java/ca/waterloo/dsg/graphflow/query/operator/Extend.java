@@ -42,11 +42,12 @@ public class Extend extends StageOperator {
                 minCountRule = intersectionRules.get(0);
             }
             // We need the initial set of extensions to be filtered because the call to
-            // {@link SortedAdjacencyList#getIntersection} below will assume the input extensions
-            // are already filtered.
-            IntArrayList extensions = graph.getSortedAdjacencyList(prefix[minCountRule.
-                getPrefixIndex()], minCountRule.getDirection(), minCountRule.getGraphVersion()).
-                getFilteredNeighbourIds(toVertexTypeFilter, minCountRule.getEdgeTypeFilter(), graph.
+            // {@link MergedAdjacencyListCursor#getIntersection} below will assume the input extensions
+            // are already filtered. The cursors are restricted to the edge type of the rule, so
+            // only the neighbours with that edge type are read.
+            IntArrayList extensions = graph.getAdjacencyListCursor(prefix[minCountRule.
+                getPrefixIndex()], minCountRule.getDirection(), minCountRule.getGraphVersion(),
+                minCountRule.getEdgeTypeFilter()).getFilteredNeighbourIds(toVertexTypeFilter, minCountRule.getEdgeTypeFilter(), graph.
                     getVertexTypes());
             if (null == extensions || extensions.getSize() == 0) {
                 // No extensions found for the current {@code prefix}.
@@ -58,13 +59,17 @@ public class Extend extends StageOperator {
                     continue;
                 }
                 // Intersect current extensions with the possible extensions obtained from
-                // {@code rule}. Refer to comments for {@link SortedAdjacencyList#getIntersection}
+                // {@code rule}. Refer to comments for {@link MergedAdjacencyListCursor#getIntersection}
                 // to get the details of the getIntersection method.
-                extensions = graph.getSortedAdjacencyList(prefix[rule.getPrefixIndex()],
-                    rule.getDirection(), rule.getGraphVersion()).getIntersection(extensions,
-                    rule.getEdgeTypeFilter());
+                extensions = graph.getAdjacencyListCursor(prefix[rule.getPrefixIndex()],
+                    rule.getDirection(), rule.getGraphVersion(), rule.getEdgeTypeFilter()).
+                    getIntersection(extensions, rule.getEdgeTypeFilter());
             }
             for (int j = 0; j < extensions.getSize(); j++) {
+                if (null != toVertexFilter && !toVertexFilter.mayMatch(extensions.get(j))) {
+                    // The zone maps of the block of the extension rule it out.
+                    continue;
+                }
                 int[] newPrefix = new int[prefix.length + 1];
                 System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
                 newPrefix[newPrefix.length - 1] = extensions.get(j);
@@ -95,8 +100,8 @@ public class Extend extends StageOperator {
         EdgeIntersectionRule minEdgeIntersectionRule = null;
         int minCount = Integer.MAX_VALUE;
         for (EdgeIntersectionRule rule : intersectionRules) {
-            int extensionCount = graph.getSortedAdjacencyList(prefix[rule.getPrefixIndex()], rule.
-                getDirection(), rule.getGraphVersion()).getSize();
+            int extensionCount = graph.getAdjacencyListSize(prefix[rule.getPrefixIndex()], rule.
+                getDirection(), rule.getGraphVersion(), rule.getEdgeTypeFilter());
             if (extensionCount < minCount) {
                 minCount = extensionCount;
                 minEdgeIntersectionRule = rule;
@@ -1,5 +1,6 @@
 package ca.waterloo.dsg.graphflow.query.operator;
 
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
 import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
 import ca.waterloo.dsg.graphflow.util.JsonUtils;
@@ -43,8 +44,8 @@ public class FileOutputSink extends OutputSink {
      */
     @Override
     public void append(MatchQueryOutput matchQueryOutput) {
-        writer.println(Arrays.toString(matchQueryOutput.vertexIds) + " " + matchQueryOutput.
-            matchQueryResultType.name());
+        writer.println(Arrays.toString(VertexIdDictionary.getInstance().getExternalIds(
+            matchQueryOutput.vertexIds)) + " " + matchQueryOutput.matchQueryResultType.name());
         writer.flush();
     }
 
@@ -15,26 +15,26 @@ import java.util.function.Predicate;
  * Operator for filtering the output from a MATCH query based on a set of comparison predicates.
  * The comparisons are specified in the WHERE clause of the MATCH query and their conjunction is
  * used for filtering. The comparisons from the query are used to construct a {@link Predicate}
- * which tests each {@link MatchQueryOutput}.
+ * which tests each {@link MatchQueryOutput}. Outputs that do not have one of the compared
+ * properties are filtered out.
  */
 public class Filter extends PropertyReadingOperator {
 
     private static final Logger logger = LogManager.getLogger(Filter.class);
-    private static final String FILTER_DELIMITER = "%%";
-    private final Predicate<String[]> filterPredicate;
+    private final Predicate<MatchQueryOutput> filterPredicate;
     private final List<QueryPropertyPredicate> queryPropertyPredicates;
 
     /**
      * Default constructor.
      *
      * @param nextOperator Next operator to append outputs to.
-     * @param filterPredicate A composite {@link Predicate<String[]>} representing all the filter
-     * predicates for a MATCH query ANDed together.
+     * @param filterPredicate A composite {@link Predicate<MatchQueryOutput>} representing all the
+     * filter predicates for a MATCH query ANDed together.
      * @param edgeOrVertexPropertyDescriptors A {@link EdgeOrVertexPropertyDescriptor} list
      * specifying parameters for retrieving the list of properties used by the {@link Predicate}s.
      * @param queryPropertyPredicates The predicates used for filtering the MATCH output.
      */
-    public Filter(AbstractOperator nextOperator, Predicate<String[]> filterPredicate,
+    public Filter(AbstractOperator nextOperator, Predicate<MatchQueryOutput> filterPredicate,
         List<EdgeOrVertexPropertyDescriptor> edgeOrVertexPropertyDescriptors,
         List<QueryPropertyPredicate> queryPropertyPredicates) {
         super(nextOperator, edgeOrVertexPropertyDescriptors);
@@ -45,14 +45,12 @@ public class Filter extends PropertyReadingOperator {
 
     @Override
     public void append(MatchQueryOutput matchQueryOutput) {
-        clearAndFillStringBuilder(matchQueryOutput, FILTER_DELIMITER);
-        String[] properties = stringBuilder.toString().split(FILTER_DELIMITER);
-        for (String property : properties) {
-            if (property.equals("null")) {
+        for (int i = 0; i < propertyDescriptors.size(); i++) {
+            if (isNull(matchQueryOutput, propertyDescriptors.get(i))) {
                 return;
             }
         }
-        if (filterPredicate.test(properties)) {
+        if (filterPredicate.test(matchQueryOutput)) {
             nextOperator.append(matchQueryOutput);
         }
     }
@@ -4,6 +4,7 @@ import ca.waterloo.dsg.graphflow.query.operator.aggregator.AbstractAggregator;
 import ca.waterloo.dsg.graphflow.query.operator.aggregator.CountStar;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
 import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
+import ca.waterloo.dsg.graphflow.util.DataType;
 import ca.waterloo.dsg.graphflow.util.JsonUtils;
 import ca.waterloo.dsg.graphflow.util.StringToIntKeyMap;
 import com.google.gson.JsonArray;
@@ -23,6 +24,9 @@ public class GroupByAndAggregate extends PropertyReadingOperator {
 
     private List<EdgeOrVertexPropertyDescriptor> valuesToGroupBy;
     private List<Pair<EdgeOrVertexPropertyDescriptor, AbstractAggregator>> valueAggregatorPairs;
+    // The data types of the aggregated properties, null for IDs. Numerical properties are read
+    // and aggregated without boxing them.
+    private DataType[] aggregatedDataTypes;
     private StringToIntKeyMap groupByKeys;
 
     /**
@@ -39,6 +43,10 @@ public class GroupByAndAggregate extends PropertyReadingOperator {
         super(nextOperator, valuesToGroupBy);
         this.valuesToGroupBy = valuesToGroupBy;
         this.valueAggregatorPairs = valueAggregatorPairs;
+        this.aggregatedDataTypes = new DataType[valueAggregatorPairs.size()];
+        for (int i = 0; i < valueAggregatorPairs.size(); i++) {
+            aggregatedDataTypes[i] = getPropertyDataType(valueAggregatorPairs.get(i).a);
+        }
         this.groupByKeys = new StringToIntKeyMap();
     }
 
@@ -47,14 +55,21 @@ public class GroupByAndAggregate extends PropertyReadingOperator {
         clearAndFillStringBuilder(matchQueryOutput, GROUP_BY_KEY_DELIMETER);
         String groupByKey = stringBuilder.toString();
         int index = groupByKeys.getKeyAsIntOrInsert(groupByKey);
-        for (Pair<EdgeOrVertexPropertyDescriptor, AbstractAggregator> valueAggregatorPair :
-            valueAggregatorPairs) {
-            if (valueAggregatorPair.b instanceof CountStar) {
-                valueAggregatorPair.b.aggregate(index, 1 /* we aggregate count(*) by 1 */);
-                continue;
+        for (int i = 0; i < valueAggregatorPairs.size(); i++) {
+            EdgeOrVertexPropertyDescriptor descriptor = valueAggregatorPairs.get(i).a;
+            AbstractAggregator aggregator = valueAggregatorPairs.get(i).b;
+            if (aggregator instanceof CountStar) {
+                aggregator.aggregate(index, 1L /* we aggregate count(*) by 1 */);
+            } else if (DataType.INTEGER == aggregatedDataTypes[i] && !isNull(matchQueryOutput,
+                descriptor)) {
+                aggregator.aggregate(index, (long) getIntProperty(matchQueryOutput, descriptor));
+            } else if (DataType.DOUBLE == aggregatedDataTypes[i] && !isNull(matchQueryOutput,
+                descriptor)) {
+                aggregator.aggregate(index, getDoubleProperty(matchQueryOutput, descriptor));
+            } else {
+                // IDs, and null values and values of other types, which the aggregator rejects.
+                aggregator.aggregate(index, getPropertyOrId(matchQueryOutput, descriptor));
             }
-            Object propertyOrId = getPropertyOrId(matchQueryOutput, valueAggregatorPair.a);
-            valueAggregatorPair.b.aggregate(index, propertyOrId);
         }
     }
 
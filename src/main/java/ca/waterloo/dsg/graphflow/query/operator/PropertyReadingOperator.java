@@ -1,8 +1,14 @@
 package ca.waterloo.dsg.graphflow.query.operator;
 
+import ca.waterloo.dsg.graphflow.exceptions.NoSuchPropertyKeyException;
 import ca.waterloo.dsg.graphflow.graph.EdgeStore;
+import ca.waterloo.dsg.graphflow.graph.StringBytes;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.graph.VertexPropertyStore;
+import ca.waterloo.dsg.graphflow.query.operator.EdgeOrVertexPropertyDescriptor.DescriptorType;
 import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
+import ca.waterloo.dsg.graphflow.util.DataType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -11,7 +17,8 @@ import java.util.List;
 /**
  * Base class for operators that need to possibly read properties of vertices and edges. Contains
  * methods that take in an {@link EdgeOrVertexPropertyDescriptor} and a {@link MatchQueryOutput}
- * and reads either the ID or a property of an edge or a vertex.
+ * and reads either the ID or a property of an edge or a vertex. Properties of a known data type
+ * are read with the typed getters of the stores, which do not allocate objects.
  */
 public abstract class PropertyReadingOperator extends AbstractOperator {
 
@@ -20,6 +27,8 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
     private static int MAX_STRING_BUILDER_LENGTH = 10000;
     protected StringBuilder stringBuilder = new StringBuilder();
     protected List<EdgeOrVertexPropertyDescriptor> propertyDescriptors;
+    // The data types of the properties of {@link #propertyDescriptors}, null for IDs.
+    private DataType[] propertyDataTypes;
 
     /**
      * Default constructor.
@@ -32,6 +41,10 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
         List<EdgeOrVertexPropertyDescriptor> propertyDescriptors) {
         super(nextOperator);
         this.propertyDescriptors = propertyDescriptors;
+        this.propertyDataTypes = new DataType[propertyDescriptors.size()];
+        for (int i = 0; i < propertyDescriptors.size(); i++) {
+            propertyDataTypes[i] = getPropertyDataType(propertyDescriptors.get(i));
+        }
     }
 
     /**
@@ -50,13 +63,37 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
             stringBuilder = new StringBuilder();
         }
         stringBuilder.delete(0, stringBuilder.length());
-        boolean isFirstDescriptor = true;
-        for (EdgeOrVertexPropertyDescriptor propertyDescriptor : propertyDescriptors) {
-            if (isFirstDescriptor) {
-                isFirstDescriptor = false;
-            } else {
+        for (int i = 0; i < propertyDescriptors.size(); i++) {
+            if (i > 0) {
                 stringBuilder.append(delimiter);
             }
+            appendPropertyOrId(matchQueryOutput, propertyDescriptors.get(i),
+                propertyDataTypes[i]);
+        }
+    }
+
+    /**
+     * Appends the value read from the given {@link MatchQueryOutput} according to the given
+     * {@link EdgeOrVertexPropertyDescriptor} to the {@link StringBuilder} field of this class, as
+     * {@link #getPropertyOrId(MatchQueryOutput, EdgeOrVertexPropertyDescriptor)} would return it.
+     * IDs and numerical and boolean properties are appended without boxing them.
+     */
+    private void appendPropertyOrId(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor, DataType dataType) {
+        if (DescriptorType.EDGE_ID == propertyDescriptor.descriptorType) {
+            stringBuilder.append(matchQueryOutput.edgeIds[propertyDescriptor.index]);
+        } else if (DescriptorType.VERTEX_ID == propertyDescriptor.descriptorType) {
+            stringBuilder.append(VertexIdDictionary.getInstance().getExternalId(
+                matchQueryOutput.vertexIds[propertyDescriptor.index]));
+        } else if (DataType.INTEGER == dataType && !isNull(matchQueryOutput,
+            propertyDescriptor)) {
+            stringBuilder.append(getIntProperty(matchQueryOutput, propertyDescriptor));
+        } else if (DataType.DOUBLE == dataType && !isNull(matchQueryOutput, propertyDescriptor)) {
+            stringBuilder.append(getDoubleProperty(matchQueryOutput, propertyDescriptor));
+        } else if (DataType.BOOLEAN == dataType && !isNull(matchQueryOutput,
+            propertyDescriptor)) {
+            stringBuilder.append(getBooleanProperty(matchQueryOutput, propertyDescriptor));
+        } else {
             stringBuilder.append(getPropertyOrId(matchQueryOutput, propertyDescriptor));
         }
     }
@@ -64,7 +101,8 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
     /**
      * Reads a value from the given {@link MatchQueryOutput} according to the given
      * {@link EdgeOrVertexPropertyDescriptor}. Either returns a property of an edge or a vertex
-     * or the ID of an edge or a vertex.
+     * or the ID of an edge or a vertex. Vertex IDs are returned as the external vertex IDs given
+     * by {@link VertexIdDictionary}.
      *
      * @param matchQueryOutput {@link MatchQueryOutput} to read values from.
      * @param propertyDescriptor descriptor of which values to read from the given {@link
@@ -73,7 +111,7 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
      * @return the value from {@link MatchQueryOutput} specified by the given {@link
      * EdgeOrVertexPropertyDescriptor}.
      */
-    protected Object getPropertyOrId(MatchQueryOutput matchQueryOutput,
+    public static Object getPropertyOrId(MatchQueryOutput matchQueryOutput,
         EdgeOrVertexPropertyDescriptor propertyDescriptor) {
         int index = propertyDescriptor.index;
         short key = propertyDescriptor.key;
@@ -83,7 +121,8 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
             case EDGE_PROPERTY:
                 return EdgeStore.getInstance().getProperty(matchQueryOutput.edgeIds[index], key);
             case VERTEX_ID:
-                return matchQueryOutput.vertexIds[index];
+                return VertexIdDictionary.getInstance().getExternalId(matchQueryOutput.vertexIds[
+                    index]);
             case VERTEX_PROPERTY:
                 return VertexPropertyStore.getInstance().getProperty(
                     matchQueryOutput.vertexIds[index], key);
@@ -94,4 +133,110 @@ public abstract class PropertyReadingOperator extends AbstractOperator {
                 return -1;
         }
     }
+
+    /**
+     * @param propertyDescriptor descriptor of an edge or vertex property or ID.
+     *
+     * @return the data type of the property of the given {@link EdgeOrVertexPropertyDescriptor},
+     * or {@code null} if the descriptor is not of a property or the data type of the property is
+     * not known yet.
+     */
+    public static DataType getPropertyDataType(EdgeOrVertexPropertyDescriptor propertyDescriptor) {
+        if (DescriptorType.EDGE_PROPERTY != propertyDescriptor.descriptorType &&
+            DescriptorType.VERTEX_PROPERTY != propertyDescriptor.descriptorType) {
+            return null;
+        }
+        try {
+            return TypeAndPropertyKeyStore.getInstance().getPropertyDataType(
+                propertyDescriptor.key);
+        } catch (NoSuchPropertyKeyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param matchQueryOutput {@link MatchQueryOutput} to read values from.
+     * @param propertyDescriptor descriptor of an edge or vertex property or ID.
+     *
+     * @return {@code true} if the edge or vertex of the given {@link MatchQueryOutput} does not
+     * have the property of the given {@link EdgeOrVertexPropertyDescriptor}. IDs are never null.
+     */
+    public static boolean isNull(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor) {
+        switch (propertyDescriptor.descriptorType) {
+            case EDGE_PROPERTY:
+                return EdgeStore.getInstance().isNull(matchQueryOutput.edgeIds[
+                    propertyDescriptor.index], propertyDescriptor.key);
+            case VERTEX_PROPERTY:
+                return VertexPropertyStore.getInstance().isNull(matchQueryOutput.vertexIds[
+                    propertyDescriptor.index], propertyDescriptor.key);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The typed readers read the edge or vertex property of the given {@link
+     * EdgeOrVertexPropertyDescriptor}, which must describe a property of the data type of the
+     * reader, from the given {@link MatchQueryOutput} without allocating objects. See {@link
+     * VertexPropertyStore#getInt(int, short)} and {@link EdgeStore#getInt(long, short)}.
+     *
+     * @param matchQueryOutput {@link MatchQueryOutput} to read values from.
+     * @param propertyDescriptor descriptor of an edge or vertex property.
+     *
+     * @return the value of the property.
+     */
+    public static int getIntProperty(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor) {
+        if (DescriptorType.EDGE_PROPERTY == propertyDescriptor.descriptorType) {
+            return EdgeStore.getInstance().getInt(matchQueryOutput.edgeIds[propertyDescriptor.
+                index], propertyDescriptor.key);
+        }
+        return VertexPropertyStore.getInstance().getInt(matchQueryOutput.vertexIds[
+            propertyDescriptor.index], propertyDescriptor.key);
+    }
+
+    /**
+     * @see #getIntProperty(MatchQueryOutput, EdgeOrVertexPropertyDescriptor)
+     */
+    public static double getDoubleProperty(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor) {
+        if (DescriptorType.EDGE_PROPERTY == propertyDescriptor.descriptorType) {
+            return EdgeStore.getInstance().getDouble(matchQueryOutput.edgeIds[propertyDescriptor.
+                index], propertyDescriptor.key);
+        }
+        return VertexPropertyStore.getInstance().getDouble(matchQueryOutput.vertexIds[
+            propertyDescriptor.index], propertyDescriptor.key);
+    }
+
+    /**
+     * @see #getIntProperty(MatchQueryOutput, EdgeOrVertexPropertyDescriptor)
+     */
+    public static boolean getBooleanProperty(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor) {
+        if (DescriptorType.EDGE_PROPERTY == propertyDescriptor.descriptorType) {
+            return EdgeStore.getInstance().getBoolean(matchQueryOutput.edgeIds[propertyDescriptor.
+                index], propertyDescriptor.key);
+        }
+        return VertexPropertyStore.getInstance().getBoolean(matchQueryOutput.vertexIds[
+            propertyDescriptor.index], propertyDescriptor.key);
+    }
+
+    /**
+     * Points the given {@link StringBytes} to the string property of the given {@link
+     * EdgeOrVertexPropertyDescriptor}. See {@link #getIntProperty(MatchQueryOutput,
+     * EdgeOrVertexPropertyDescriptor)}.
+     *
+     * @return {@code false} if the edge or vertex does not have the property, {@code true}
+     * otherwise.
+     */
+    public static boolean getStringBytesProperty(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor propertyDescriptor, StringBytes stringBytes) {
+        if (DescriptorType.EDGE_PROPERTY == propertyDescriptor.descriptorType) {
+            return EdgeStore.getInstance().getStringBytes(matchQueryOutput.edgeIds[
+                propertyDescriptor.index], propertyDescriptor.key, stringBytes);
+        }
+        return VertexPropertyStore.getInstance().getStringBytes(matchQueryOutput.vertexIds[
+            propertyDescriptor.index], propertyDescriptor.key, stringBytes);
+    }
 }
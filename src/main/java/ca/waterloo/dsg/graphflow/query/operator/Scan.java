@@ -1,22 +1,37 @@
 package ca.waterloo.dsg.graphflow.query.operator;
 
 import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndex;
+import ca.waterloo.dsg.graphflow.graph.PropertyRange;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.ZoneMapFilter;
 import ca.waterloo.dsg.graphflow.query.operator.genericjoin.EdgeIntersectionRule;
 import ca.waterloo.dsg.graphflow.query.operator.genericjoin.StageOperator;
 import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput.MatchQueryResultType;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.ShortArrayList;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * The scan operator gets all edges based on the {@link QueryRelation}'s from vertex, to vertex,
- * and edge type filters, and appends each set of prefixes to the next operator in batches.
+ * and edge type filters, and appends each set of prefixes to the next operator in batches. If the
+ * scan is seeded by a {@link PropertyIndex}, only the edges from the vertices, or the edges, whose
+ * indexed property is in the seed range are scanned. The blocks of vertex IDs ruled out by the
+ * {@link ZoneMapFilter}s of the from and to vertices are skipped, and no edge is scanned if the
+ * zone maps of the edges rule out a relation of the query.
  */
 public class Scan extends StageOperator {
 
     private short fromVertexTypeFilter;
+    private PropertyIndex seedIndex;
+    private PropertyRange seedRange;
+    private ZoneMapFilter fromVertexFilter;
+    private List<ZoneMapFilter> edgeFilters = new ArrayList<>();
 
     /**
      * @param intersectionRules the {@link EdgeIntersectionRule}s the edges scanned need to follow.
@@ -33,18 +48,68 @@ public class Scan extends StageOperator {
         this.fromVertexTypeFilter = fromVertexTypeFilter;
     }
 
+    /**
+     * Seeds the scan with the given {@code index}: only the edges from the vertices whose indexed
+     * property is in the given {@code range}, for a vertex index of the type of the first
+     * variable, or the edges whose indexed property is in the given {@code range}, for an edge
+     * index of the type of the relation between the first two variables, are scanned.
+     *
+     * @param index The index of the vertices or the edges.
+     * @param range The range of values of the indexed property. It should be a point if the index
+     * is not a range index.
+     */
+    public void setIndexSeed(PropertyIndex index, PropertyRange range) {
+        this.seedIndex = index;
+        this.seedRange = range;
+    }
+
+    /**
+     * @param fromVertexFilter Skips the from vertices in the blocks of vertex IDs whose zone maps
+     * show that no vertex has the properties required by the query, or {@code null} if no vertex
+     * is skipped.
+     */
+    public void setFromVertexFilter(ZoneMapFilter fromVertexFilter) {
+        this.fromVertexFilter = fromVertexFilter;
+    }
+
+    /**
+     * Adds a filter of the edges of a relation of the query. No edge is scanned if the zone maps
+     * of the permanent edges show that no edge has the properties required by the filter.
+     */
+    public void addEdgeFilter(ZoneMapFilter edgeFilter) {
+        edgeFilters.add(edgeFilter);
+    }
+
     /**
      * Scans a set of edges according to the {@link EdgeIntersectionRule}s of the operator
      * and appends them to the next operator in batches of size {@link StageOperator#BATCH_SIZE}.
      */
     public void execute() {
         EdgeIntersectionRule firstGJIntersectionRule = intersectionRules.get(0);
+        if (GraphVersion.PERMANENT == firstGJIntersectionRule.getGraphVersion()) {
+            for (ZoneMapFilter edgeFilter : edgeFilters) {
+                if (!edgeFilter.mayMatchAnyBlock()) {
+                    // No permanent edge has the properties required by a relation of the query.
+                    return;
+                }
+            }
+        }
         // Get the initial set of edges filtered by the {@code GraphVersion}, the {@code
         // Direction}, the edge type filter and the property equality filters using the {@code
-        // firstGJIntersectionRule} of the first stage.
-        Iterator<int[]> iterator = graph.getEdgesIterator(firstGJIntersectionRule.getGraphVersion(),
-            firstGJIntersectionRule.getDirection(), fromVertexTypeFilter, toVertexTypeFilter,
-            firstGJIntersectionRule.getEdgeTypeFilter());
+        // firstGJIntersectionRule} of the first stage. The edges from the vertices of a vertex
+        // index are read from the adjacency lists of the first rule, so they satisfy it.
+        Iterator<int[]> iterator;
+        int firstRuleToCheck = 1;
+        if (null == seedIndex) {
+            iterator = graph.getEdgesIterator(firstGJIntersectionRule.getGraphVersion(),
+                firstGJIntersectionRule.getDirection(), fromVertexTypeFilter, toVertexTypeFilter,
+                firstGJIntersectionRule.getEdgeTypeFilter(), fromVertexFilter);
+        } else if (seedIndex.isVertexIndex()) {
+            iterator = getEdgesFromIndexedVertices(firstGJIntersectionRule);
+        } else {
+            iterator = getIndexedEdges();
+            firstRuleToCheck = 0;
+        }
         if (!iterator.hasNext()) {
             // Obtained empty set of edges, nothing to execute.
             return;
@@ -54,8 +119,13 @@ public class Scan extends StageOperator {
         int index = 0;
         while (iterator.hasNext()) {
             int[] prefix = iterator.next();
+            if ((null != fromVertexFilter && !fromVertexFilter.mayMatch(prefix[0])) || (null !=
+                toVertexFilter && !toVertexFilter.mayMatch(prefix[1]))) {
+                // The zone maps of the block of the from or the to vertex rule the edge out.
+                continue;
+            }
             boolean isPrefixPresentForAllRules = true;
-            for (int i = 1; i < intersectionRules.size(); i++) {
+            for (int i = firstRuleToCheck; i < intersectionRules.size(); i++) {
                 // For each additional {@code EdgeIntersectionRule} present in the first
                 // stage, check if the edge ({@code prefix[0]}, {@code prefix[1]}) satisfies the
                 // {@code GraphVersion}, the {@code Direction}, and has the types and properties of
@@ -89,6 +159,42 @@ public class Scan extends StageOperator {
         nextOperator.finalizeOperator();
     }
 
+    private Iterator<int[]> getEdgesFromIndexedVertices(EdgeIntersectionRule rule) {
+        return new IndexedVertexEdgesIterator(rule, seedIndex.getVertexIds(seedRange));
+    }
+
+    private Iterator<int[]> getIndexedEdges() {
+        return new IndexedEdgesIterator(seedIndex.getEdges(seedRange));
+    }
+
+    /**
+     * @return The index the scan is seeded by, or {@code null} if the scan is not seeded.
+     */
+    public PropertyIndex getSeedIndex() {
+        return seedIndex;
+    }
+
+    /**
+     * @return The range of values of the indexed property of the seed of the scan.
+     */
+    public PropertyRange getSeedRange() {
+        return seedRange;
+    }
+
+    /**
+     * @return The filter of the from vertices, or {@code null} if no vertex is skipped.
+     */
+    public ZoneMapFilter getFromVertexFilter() {
+        return fromVertexFilter;
+    }
+
+    /**
+     * @return The filters of the edges of the relations of the query.
+     */
+    public List<ZoneMapFilter> getEdgeFilters() {
+        return edgeFilters;
+    }
+
     /**
      * @return the {@link MatchQueryResultType} of the output prefixes of this query.
      */
@@ -109,4 +215,106 @@ public class Scan extends StageOperator {
     public short getFromVertexTypeFilter() {
         return fromVertexTypeFilter;
     }
+
+    /**
+     * An {@code Iterator} over the edges from the vertices of a vertex index that satisfy an
+     * {@link EdgeIntersectionRule}, as {@code {vertexId, neighbourId}} pairs. The neighbours of
+     * each vertex are read when the edges of the previous vertex have been returned, so the edges
+     * are streamed into the batches of prefixes instead of being collected first.
+     */
+    private class IndexedVertexEdgesIterator implements Iterator<int[]> {
+
+        private final EdgeIntersectionRule rule;
+        private final int[] vertexIds;
+        private final ShortArrayList vertexTypes = graph.getVertexTypes();
+        // The position of the current vertex in {@code vertexIds}, and the position of the next
+        // edge in the filtered neighbours of the current vertex.
+        private int currentVertex = -1;
+        private IntArrayList neighbourIds;
+        private int nextNeighbour;
+
+        private IndexedVertexEdgesIterator(EdgeIntersectionRule rule, int[] vertexIds) {
+            this.rule = rule;
+            this.vertexIds = vertexIds;
+            setToNextVertexWithEdges();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return currentVertex < vertexIds.length;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int[] edge = new int[]{vertexIds[currentVertex], neighbourIds.get(nextNeighbour++)};
+            if (nextNeighbour == neighbourIds.getSize()) {
+                setToNextVertexWithEdges();
+            }
+            return edge;
+        }
+
+        private void setToNextVertexWithEdges() {
+            nextNeighbour = 0;
+            while (++currentVertex < vertexIds.length) {
+                int vertexId = vertexIds[currentVertex];
+                if (TypeAndPropertyKeyStore.ANY != fromVertexTypeFilter && vertexTypes.get(
+                    vertexId) != fromVertexTypeFilter) {
+                    continue;
+                }
+                neighbourIds = graph.getAdjacencyListCursor(vertexId, rule.getDirection(),
+                    rule.getGraphVersion(), rule.getEdgeTypeFilter()).getFilteredNeighbourIds(
+                    toVertexTypeFilter, rule.getEdgeTypeFilter(), vertexTypes);
+                if (null != neighbourIds && neighbourIds.getSize() > 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * An {@code Iterator} over the given edges of an edge index whose from and to vertices have
+     * the types of the filters of the scan. The {@code {fromVertexId, toVertexId}} pairs of the
+     * index are returned as they are, so the edges are streamed into the batches of prefixes
+     * without being copied.
+     */
+    private class IndexedEdgesIterator implements Iterator<int[]> {
+
+        private final int[][] edges;
+        private final ShortArrayList vertexTypes = graph.getVertexTypes();
+        // The position of the next edge in {@code edges}.
+        private int next = -1;
+
+        private IndexedEdgesIterator(int[][] edges) {
+            this.edges = edges;
+            setIndexToNextEdge();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < edges.length;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int[] edge = edges[next];
+            setIndexToNextEdge();
+            return edge;
+        }
+
+        private void setIndexToNextEdge() {
+            while (++next < edges.length) {
+                if ((TypeAndPropertyKeyStore.ANY == fromVertexTypeFilter || vertexTypes.get(
+                    edges[next][0]) == fromVertexTypeFilter) && (TypeAndPropertyKeyStore.ANY ==
+                    toVertexTypeFilter || vertexTypes.get(edges[next][1]) == toVertexTypeFilter)) {
+                    return;
+                }
+            }
+        }
+    }
 }
@@ -2,8 +2,10 @@ package ca.waterloo.dsg.graphflow.query.operator;
 
 import ca.waterloo.dsg.graphflow.graph.EdgeStore;
 import ca.waterloo.dsg.graphflow.graph.Graph;
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
 import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.graph.VertexPropertyStore;
 import ca.waterloo.dsg.graphflow.query.operator.EdgeIdResolver.SourceDestinationIndexAndType;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
@@ -73,9 +75,10 @@ public class UDFSink extends OutputSink {
     private List<Vertex> getVertices(MatchQueryOutput matchQueryOutput) {
         List<Vertex> vertices = new ArrayList<>();
         for (int vertexId : matchQueryOutput.vertexIds) {
-            vertices.add(SubgraphFactory.getVertex(vertexId, TypeAndPropertyKeyStore.getInstance().
-                    mapShortToStringType(Graph.getInstance().getVertexTypes().get(vertexId)),
-                VertexPropertyStore.getInstance().getPropertiesAsStrings(vertexId)));
+            vertices.add(SubgraphFactory.getVertex(VertexIdDictionary.getInstance().getExternalId(
+                vertexId), TypeAndPropertyKeyStore.getInstance().mapShortToStringType(Graph.
+                    getInstance().getVertexTypes().get(vertexId)), VertexPropertyStore.
+                getInstance().getPropertiesAsStrings(vertexId)));
         }
         return vertices;
     }
@@ -95,8 +98,9 @@ public class UDFSink extends OutputSink {
                 matchQueryOutput.edgeIds[i]);
             EdgeUpdate edgeUpdate = getEdgeUpdate(fromVertexId, toVertexId, matchQueryOutput.
                 matchQueryResultType);
-            edges.add(SubgraphFactory.getEdge(fromVertexId, toVertexId, type, properties,
-                edgeUpdate));
+            edges.add(SubgraphFactory.getEdge(VertexIdDictionary.getInstance().getExternalId(
+                fromVertexId), VertexIdDictionary.getInstance().getExternalId(toVertexId), type,
+                properties, edgeUpdate));
         }
         return edges;
     }
@@ -111,21 +115,15 @@ public class UDFSink extends OutputSink {
 
     private EdgeUpdate getEdgeUpdate(int fromVertexId, int toVertexId,
         MatchQueryResultType matchQueryResultType) {
-        List<int[]> diffEdges;
+        // The diff edges are sorted, so the edge is binary searched.
         if (MatchQueryResultType.EMERGED == matchQueryResultType) {
-            diffEdges = Graph.getInstance().getDiffEdges(GraphVersion.DIFF_PLUS);
+            return Graph.getInstance().isEdgePresent(fromVertexId, toVertexId, Direction.FORWARD,
+                GraphVersion.DIFF_PLUS, TypeAndPropertyKeyStore.ANY) ? EdgeUpdate.INSERTION :
+                EdgeUpdate.NONE;
         } else {
-            diffEdges = Graph.getInstance().getDiffEdges(GraphVersion.DIFF_MINUS);
+            return Graph.getInstance().isEdgePresent(fromVertexId, toVertexId, Direction.FORWARD,
+                GraphVersion.DIFF_MINUS, TypeAndPropertyKeyStore.ANY) ? EdgeUpdate.DELETION :
+                EdgeUpdate.NONE;
         }
-        for (int[] edge : diffEdges) {
-            if (edge[0] == fromVertexId && edge[1] == toVertexId) {
-                if (MatchQueryResultType.EMERGED == matchQueryResultType) {
-                    return EdgeUpdate.INSERTION;
-                } else {
-                    return EdgeUpdate.DELETION;
-                }
-            }
-        }
-        return EdgeUpdate.NONE;
     }
 }
@@ -19,7 +19,7 @@ public abstract class AbstractAggregator {
     /**
      * Aggregates the given {@link Object} value into the running aggregate value of the given
      * index. This method reads the class of the given {@link Object} value and calls
-     * the {@link #aggregateDouble(int, double)} or {@link #aggregateInt(int, int)} method which
+     * the {@link #aggregateDouble(int, double)} or {@link #aggregateLong(int, long)} method which
      * should be implemented by classes extending this class.
      *
      * @param index of the running aggregate.
@@ -31,9 +31,9 @@ public abstract class AbstractAggregator {
                 " object: null");
         }
         if (value instanceof Double) {
-            aggregateDouble(index, (double) value);
-        } else if (value instanceof Integer) {
-            aggregateInt(index, (int) value);
+            aggregate(index, (double) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            aggregate(index, ((Number) value).longValue());
         } else {
             throw new UnsupportedOperationException("Aggregating instances of " +
                 value.getClass().getSimpleName() + " is not supported by " +
@@ -42,14 +42,36 @@ public abstract class AbstractAggregator {
     }
 
     /**
-     * Aggregates the given integer value into the running aggregate value of the given
+     * Aggregates the given integer or long value into the running aggregate value of the given
+     * index without boxing it. See {@link #aggregate(int, Object)}.
+     *
+     * @param index of the running aggregate.
+     * @param value value to aggregate into the running aggregate for index.
+     */
+    public void aggregate(int index, long value) {
+        aggregateLong(index, value);
+    }
+
+    /**
+     * Aggregates the given double value into the running aggregate value of the given index
+     * without boxing it. See {@link #aggregate(int, Object)}.
+     *
+     * @param index of the running aggregate.
+     * @param value value to aggregate into the running aggregate for index.
+     */
+    public void aggregate(int index, double value) {
+        aggregateDouble(index, value);
+    }
+
+    /**
+     * Aggregates the given integer or long value into the running aggregate value of the given
      * index.
      *
      * @param index of the running aggregate.
-     * @param intValue integer value to aggregate into the running aggregate for index.
+     * @param longValue long value to aggregate into the running aggregate for index.
      */
-    protected void aggregateInt(int index, int intValue) {
-        throw new UnsupportedOperationException("Aggregating int values is not supported by " +
+    protected void aggregateLong(int index, long longValue) {
+        throw new UnsupportedOperationException("Aggregating long values is not supported by " +
             this.getClass().getSimpleName() + ".");
     }
 
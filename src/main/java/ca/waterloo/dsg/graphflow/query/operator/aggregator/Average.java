@@ -18,11 +18,11 @@ public class Average extends AbstractLongDoubleAggregator {
     }
 
     @Override
-    protected void aggregateInt(int index, int intValue) {
+    protected void aggregateLong(int index, long longValue) {
         adjustSizeAndIncrementCount(index);
         this.longValues = ArrayUtils.resizeIfNecessary(this.longValues, index + 1,
             0 /* value to fill new cells if resizing */);
-        this.longValues[index] += intValue;
+        this.longValues[index] += longValue;
     }
 
     @Override
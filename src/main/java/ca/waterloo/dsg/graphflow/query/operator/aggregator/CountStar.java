@@ -8,7 +8,7 @@ import ca.waterloo.dsg.graphflow.util.ArrayUtils;
 public class CountStar extends AbstractAggregator {
 
     @Override
-    protected void aggregateInt(int index, int intValue) {
+    protected void aggregateLong(int index, long longValue) {
         this.longValues = ArrayUtils.resizeIfNecessary(longValues, index + 1,
             0 /* value to fill new cells if resizing */);
         longValues[index]++;
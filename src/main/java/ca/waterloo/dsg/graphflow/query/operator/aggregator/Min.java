@@ -8,10 +8,10 @@ import ca.waterloo.dsg.graphflow.util.ArrayUtils;
 public class Min extends AbstractLongDoubleAggregator {
 
     @Override
-    protected void aggregateInt(int index, int intValue) {
+    protected void aggregateLong(int index, long longValue) {
         this.longValues = ArrayUtils.resizeIfNecessary(longValues, index + 1,
             Long.MAX_VALUE /* value to fill new cells if resizing */);
-        this.longValues[index] = Long.min(this.longValues[index], intValue);
+        this.longValues[index] = Long.min(this.longValues[index], longValue);
     }
 
     @Override
@@ -8,10 +8,10 @@ import ca.waterloo.dsg.graphflow.util.ArrayUtils;
 public class Sum extends AbstractLongDoubleAggregator {
 
     @Override
-    protected void aggregateInt(int index, int intValue) {
+    protected void aggregateLong(int index, long longValue) {
         this.longValues = ArrayUtils.resizeIfNecessary(longValues, index + 1,
             0 /* value to fill new cells if resizing */);
-        this.longValues[index] += intValue;
+        this.longValues[index] += longValue;
     }
 
     @Override
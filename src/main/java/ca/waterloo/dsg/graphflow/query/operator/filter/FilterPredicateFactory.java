@@ -1,51 +1,57 @@
 package ca.waterloo.dsg.graphflow.query.operator.filter;
 
+import ca.waterloo.dsg.graphflow.graph.StringBytes;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
 import ca.waterloo.dsg.graphflow.query.operator.EdgeOrVertexPropertyDescriptor;
 import ca.waterloo.dsg.graphflow.query.operator.Filter;
+import ca.waterloo.dsg.graphflow.query.operator.PropertyReadingOperator;
 import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryPropertyPredicate;
 import ca.waterloo.dsg.graphflow.util.DataType;
 import ca.waterloo.dsg.graphflow.util.RuntimeTypeBasedComparator;
 import ca.waterloo.dsg.graphflow.util.RuntimeTypeBasedComparator.ComparisonOperator;
 
+import java.nio.charset.StandardCharsets;
 import java.util.function.Predicate;
 
 /**
  * Contains static methods for creating {@link Predicate} objects that are used by {@link Filter}.
+ * The predicates read the properties of the tested {@link MatchQueryOutput} with the typed readers
+ * of {@link PropertyReadingOperator} when the operands have the data type of the comparison, and
+ * only box, format and parse the operands when they have to be cast to another data type.
  */
 public class FilterPredicateFactory {
 
     /**
      * Returns a {@link Predicate} which performs the comparison specified in the given
      * {@code queryPropertyPredicate}. Uses the {@link QueryPropertyPredicate#comparisonOperator}
-     * to determine the operands and the operator of the returned {@link Predicate}.
+     * to determine the operands and the operator of the returned {@link Predicate}. The returned
+     * {@link Predicate} expects the properties of the operands to be non-null, which {@link
+     * Filter} checks before testing it.
      *
      * @param queryPropertyPredicate the {@link QueryPropertyPredicate} which contains operand,
      * operator and type information for creating the {@link Predicate} that is returned.
-     * @param leftOperandIndexInPropertyResults the index of the left operand property in the
-     * property result set created by the {@link Filter} operator. {@link Filter} uses its {@link
-     * EdgeOrVertexPropertyDescriptor} list to create the property result set from the {@link
-     * MatchQueryOutput}.
-     * @param rightOperandIndexInPropertyResults the index of the right operand property in the
-     * property result set created by the {@link Filter} operator. {@link Filter} uses its {@link
-     * EdgeOrVertexPropertyDescriptor} list to create the property result set from the {@link
-     * MatchQueryOutput}.
+     * @param leftOperandDescriptor the {@link EdgeOrVertexPropertyDescriptor} of the left operand
+     * property in the {@link MatchQueryOutput}s tested by the returned {@link Predicate}.
+     * @param rightOperandDescriptor the {@link EdgeOrVertexPropertyDescriptor} of the right
+     * operand property in the {@link MatchQueryOutput}s tested by the returned {@link Predicate},
+     * or {@code null} if the right operand is a literal.
      *
-     * @return a {@link Predicate<String[]>} instance that will perform the comparison specified in
-     * the {@code queryPropertyPredicate}.
+     * @return a {@link Predicate<MatchQueryOutput>} instance that will perform the comparison
+     * specified in the {@code queryPropertyPredicate}.
      */
-    public static Predicate<String[]> getFilterPredicate(
-        QueryPropertyPredicate queryPropertyPredicate, int leftOperandIndexInPropertyResults,
-        int rightOperandIndexInPropertyResults) {
+    public static Predicate<MatchQueryOutput> getFilterPredicate(
+        QueryPropertyPredicate queryPropertyPredicate,
+        EdgeOrVertexPropertyDescriptor leftOperandDescriptor,
+        EdgeOrVertexPropertyDescriptor rightOperandDescriptor) {
         DataType dataType = getDataTypeToCastOperandsTo(queryPropertyPredicate);
         ComparisonOperator operator = queryPropertyPredicate.getComparisonOperator();
         switch (queryPropertyPredicate.getPredicateType()) {
             case TWO_PROPERTY_KEY_OPERANDS:
-                return getTwoKeyValueOperandPredicate(leftOperandIndexInPropertyResults,
-                    rightOperandIndexInPropertyResults, dataType, operator);
+                return getTwoKeyValueOperandPredicate(leftOperandDescriptor,
+                    rightOperandDescriptor, dataType, operator);
             case PROPERTY_KEY_AND_LITERAL_OPERANDS:
-                return getKeyValueAndLiteralOperandPredicate(leftOperandIndexInPropertyResults,
+                return getKeyValueAndLiteralOperandPredicate(leftOperandDescriptor,
                     queryPropertyPredicate.getLiteral(), dataType, operator);
             default:
                 // Should never execute. Every predicate type introduced should be supported.
@@ -54,23 +60,99 @@ public class FilterPredicateFactory {
         }
     }
 
-    private static Predicate<String[]> getTwoKeyValueOperandPredicate(
-        int variable1IndexInPropertyResults, int variable2IndexInPropertyResults, DataType dataType,
-        ComparisonOperator operator) {
-        return predicate -> RuntimeTypeBasedComparator.resolveTypesAndCompare(DataType.
-            parseDataType(dataType, predicate[variable1IndexInPropertyResults]), DataType.
-            parseDataType(dataType, predicate[variable2IndexInPropertyResults]), operator);
+    private static Predicate<MatchQueryOutput> getTwoKeyValueOperandPredicate(
+        EdgeOrVertexPropertyDescriptor descriptor1, EdgeOrVertexPropertyDescriptor descriptor2,
+        DataType dataType, ComparisonOperator operator) {
+        DataType dataType1 = PropertyReadingOperator.getPropertyDataType(descriptor1);
+        DataType dataType2 = PropertyReadingOperator.getPropertyDataType(descriptor2);
+        if (DataType.INTEGER == dataType && DataType.INTEGER == dataType1 &&
+            DataType.INTEGER == dataType2) {
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Integer.compare(
+                PropertyReadingOperator.getIntProperty(output, descriptor1),
+                PropertyReadingOperator.getIntProperty(output, descriptor2)), operator);
+        } else if (DataType.DOUBLE == dataType && isNumerical(dataType1) &&
+            isNumerical(dataType2)) {
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Double.compare(
+                getAsDouble(output, descriptor1, dataType1), getAsDouble(output, descriptor2,
+                    dataType2)), operator);
+        } else if (DataType.BOOLEAN == dataType && DataType.BOOLEAN == dataType1 &&
+            DataType.BOOLEAN == dataType2) {
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Boolean.compare(
+                PropertyReadingOperator.getBooleanProperty(output, descriptor1),
+                PropertyReadingOperator.getBooleanProperty(output, descriptor2)), operator);
+        }
+        return output -> RuntimeTypeBasedComparator.resolveTypesAndCompare(castPropertyOrId(
+            output, descriptor1, dataType), castPropertyOrId(output, descriptor2, dataType),
+            operator);
     }
 
-    private static Predicate<String[]> getKeyValueAndLiteralOperandPredicate(
-        int variableIndexInPropertyResults, String literal, DataType dataType,
+    private static Predicate<MatchQueryOutput> getKeyValueAndLiteralOperandPredicate(
+        EdgeOrVertexPropertyDescriptor descriptor, String literal, DataType dataType,
         ComparisonOperator operator) {
-        return predicate -> RuntimeTypeBasedComparator.resolveTypesAndCompare(DataType.
-            parseDataType(dataType, predicate[variableIndexInPropertyResults]), DataType.
-            parseDataType(dataType, literal), operator);
+        DataType propertyDataType = PropertyReadingOperator.getPropertyDataType(descriptor);
+        Object literalValue = DataType.parseDataType(dataType, literal);
+        if (DataType.INTEGER == dataType && DataType.INTEGER == propertyDataType) {
+            int intLiteral = (Integer) literalValue;
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Integer.compare(
+                PropertyReadingOperator.getIntProperty(output, descriptor), intLiteral), operator);
+        } else if (DataType.DOUBLE == dataType && isNumerical(propertyDataType)) {
+            double doubleLiteral = (Double) literalValue;
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Double.compare(getAsDouble(
+                output, descriptor, propertyDataType), doubleLiteral), operator);
+        } else if (DataType.BOOLEAN == dataType && DataType.BOOLEAN == propertyDataType) {
+            boolean booleanLiteral = (Boolean) literalValue;
+            return output -> RuntimeTypeBasedComparator.isSatisfied(Boolean.compare(
+                PropertyReadingOperator.getBooleanProperty(output, descriptor), booleanLiteral),
+                operator);
+        } else if (DataType.STRING == dataType && DataType.STRING == propertyDataType &&
+            (ComparisonOperator.EQUALS == operator || ComparisonOperator.NOT_EQUALS == operator)) {
+            // Strings are only tested for equality on their UTF-8 bytes, since their order is
+            // the one of their UTF-16 chars. The dictionary-encoded values whose codes were
+            // assigned before the predicate is created are tested on their codes, since the
+            // literal has one of these codes if and only if it is in the dictionary.
+            byte[] literalBytes = literal.getBytes(StandardCharsets.UTF_8);
+            int literalCode = TypeAndPropertyKeyStore.getInstance().getStringCode(
+                descriptor.key, literal);
+            int numCodes = TypeAndPropertyKeyStore.getInstance().getNumStringCodes(
+                descriptor.key);
+            StringBytes stringBytes = new StringBytes();
+            return output -> {
+                PropertyReadingOperator.getStringBytesProperty(output, descriptor, stringBytes);
+                int code = stringBytes.getCode();
+                boolean isEqual = (-1 != code && code < numCodes) ? code == literalCode :
+                    stringBytes.isEqualTo(literalBytes);
+                return isEqual == (ComparisonOperator.EQUALS == operator);
+            };
+        }
+        return output -> RuntimeTypeBasedComparator.resolveTypesAndCompare(castPropertyOrId(
+            output, descriptor, dataType), literalValue, operator);
+    }
+
+    private static boolean isNumerical(DataType dataType) {
+        return DataType.INTEGER == dataType || DataType.DOUBLE == dataType;
+    }
+
+    private static double getAsDouble(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor descriptor, DataType dataType) {
+        return (DataType.INTEGER == dataType) ? PropertyReadingOperator.getIntProperty(
+            matchQueryOutput, descriptor) : PropertyReadingOperator.getDoubleProperty(
+            matchQueryOutput, descriptor);
     }
 
-    private static DataType getDataTypeToCastOperandsTo(QueryPropertyPredicate predicate) {
+    /**
+     * @return the property or ID of the given {@link EdgeOrVertexPropertyDescriptor} cast to the
+     * given {@link DataType} through its {@link String} representation.
+     */
+    private static Object castPropertyOrId(MatchQueryOutput matchQueryOutput,
+        EdgeOrVertexPropertyDescriptor descriptor, DataType dataType) {
+        return DataType.parseDataType(dataType, String.valueOf(PropertyReadingOperator.
+            getPropertyOrId(matchQueryOutput, descriptor)));
+    }
+
+    /**
+     * @return The {@link DataType} both operands of the given {@code predicate} are compared as.
+     */
+    public static DataType getDataTypeToCastOperandsTo(QueryPropertyPredicate predicate) {
         DataType leftOperandDataType = TypeAndPropertyKeyStore.getInstance().getPropertyDataType(
             predicate.getLeftOperand().b);
         if (leftOperandDataType == DataType.BOOLEAN || leftOperandDataType == DataType.STRING ||
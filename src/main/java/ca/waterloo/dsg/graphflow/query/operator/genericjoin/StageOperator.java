@@ -1,6 +1,7 @@
 package ca.waterloo.dsg.graphflow.query.operator.genericjoin;
 
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.ZoneMapFilter;
 import ca.waterloo.dsg.graphflow.query.operator.AbstractOperator;
 import ca.waterloo.dsg.graphflow.query.operator.Extend;
 import ca.waterloo.dsg.graphflow.query.operator.Scan;
@@ -20,6 +21,7 @@ public abstract class StageOperator extends AbstractOperator {
 
     protected List<EdgeIntersectionRule> intersectionRules;
     protected short toVertexTypeFilter;
+    protected ZoneMapFilter toVertexFilter;
     protected MatchQueryOutput matchQueryOutput = new MatchQueryOutput();
     private long intermediateResults = 0;
 
@@ -86,6 +88,22 @@ public abstract class StageOperator extends AbstractOperator {
         return toVertexTypeFilter;
     }
 
+    /**
+     * @param toVertexFilter Skips the to vertices in the blocks of vertex IDs whose zone maps show
+     * that no vertex has the properties required by the query, or {@code null} if no vertex is
+     * skipped.
+     */
+    public void setToVertexFilter(ZoneMapFilter toVertexFilter) {
+        this.toVertexFilter = toVertexFilter;
+    }
+
+    /**
+     * @return The filter of the to vertices, or {@code null} if no vertex is skipped.
+     */
+    public ZoneMapFilter getToVertexFilter() {
+        return toVertexFilter;
+    }
+
     /**
      * Appends a new set of prefixes obtained as output from the previous operator.
      *
@@ -17,8 +17,8 @@ public class Edge extends VertexOrEdge {
         DELETION,
         NONE
     }
-    private int fromVertexId;
-    private int toVertexId;
+    private long fromVertexId;
+    private long toVertexId;
     private EdgeUpdate edgeUpdate;
 
     /**
@@ -29,7 +29,7 @@ public class Edge extends VertexOrEdge {
      * @param edgeUpdate The operation done on the edge triggering the continuous query. A value of
      * {@code None} indicates the edges was in the permanent graph and is not inserted or deleted.
      */
-    Edge(int fromVertexId, int toVertexId, String type, Map<String, String> properties,
+    Edge(long fromVertexId, long toVertexId, String type, Map<String, String> properties,
         EdgeUpdate edgeUpdate) {
         super(type, properties);
         this.fromVertexId = fromVertexId;
@@ -37,11 +37,11 @@ public class Edge extends VertexOrEdge {
         this.edgeUpdate = edgeUpdate;
     }
 
-    public int getFromVertexId() {
+    public long getFromVertexId() {
         return fromVertexId;
     }
 
-    public int getToVertexId() {
+    public long getToVertexId() {
         return toVertexId;
     }
 
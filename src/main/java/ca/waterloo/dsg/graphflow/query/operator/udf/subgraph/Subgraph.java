@@ -54,8 +54,8 @@ public class Subgraph {
     }
 
     public Edge getEdge(String fromVertex, String toVertex) {
-        int fromVertexId = getVertexId(fromVertex);
-        int toVertexId = getVertexId(toVertex);
+        long fromVertexId = getVertexId(fromVertex);
+        long toVertexId = getVertexId(toVertex);
         for (Edge edge : edges) {
             if (fromVertexId == edge.getFromVertexId() && toVertexId == edge.getToVertexId()) {
                 return edge;
@@ -64,7 +64,7 @@ public class Subgraph {
         return null;
     }
 
-    private int getVertexId(String vertexVariable) {
+    private long getVertexId(String vertexVariable) {
         return vertices.get(vertexIndices.get(vertexVariable)).getId();
     }
 }
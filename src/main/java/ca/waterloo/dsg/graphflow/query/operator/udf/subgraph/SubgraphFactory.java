@@ -17,11 +17,11 @@ public class SubgraphFactory {
         return new Subgraph(vertices, edges, subgraphType, vertexIndices);
     }
 
-    public static Vertex getVertex(int id, String type, Map<String, String> properties) {
+    public static Vertex getVertex(long id, String type, Map<String, String> properties) {
         return new Vertex(id, type, properties);
     }
 
-    public static Edge getEdge(int fromVertexId, int toVertexId, String type, Map<String, String>
+    public static Edge getEdge(long fromVertexId, long toVertexId, String type, Map<String, String>
         properties, EdgeUpdate edgeUpdate) {
         return new Edge(fromVertexId, toVertexId, type, properties, edgeUpdate);
     }
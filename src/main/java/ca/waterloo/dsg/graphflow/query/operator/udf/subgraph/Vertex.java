@@ -8,19 +8,19 @@ import java.util.Map;
  */
 public class Vertex extends VertexOrEdge {
 
-    private int id;
+    private long id;
 
     /**
      * @param id The vertex Id.
      * @param type The {@code String} vertex type.
      * @param properties The properties as a {@code Map<String, String>}.
      **/
-    Vertex(int id, String type, Map<String, String> properties) {
+    Vertex(long id, String type, Map<String, String> properties) {
         super(type, properties);
         this.id = id;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 }
@@ -2,6 +2,7 @@ package ca.waterloo.dsg.graphflow.query.parser;
 
 import ca.waterloo.dsg.graphflow.exceptions.MalformedWhereClauseException;
 import ca.waterloo.dsg.graphflow.grammar.GraphflowBaseVisitor;
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer.VertexOrdering;
 import ca.waterloo.dsg.graphflow.grammar.GraphflowParser.*;
 import ca.waterloo.dsg.graphflow.query.structuredquery.AbstractStructuredQuery;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryAggregation;
@@ -97,6 +98,38 @@ public class GraphflowVisitor extends GraphflowBaseVisitor<AbstractStructuredQue
         return structuredQuery;
     }
 
+    @Override
+    public AbstractStructuredQuery visitBulkLoadQuery(BulkLoadQueryContext ctx) {
+        StructuredQuery structuredQuery = new StructuredQuery();
+        structuredQuery.setQueryOperation(QueryOperation.BULK_LOAD);
+        if (null != ctx.VERTICES()) {
+            structuredQuery.setVertexFilePath(getUnquotedString(ctx.stringLiteral(0).getText()));
+        }
+        structuredQuery.setFilePath(getUnquotedString(ctx.stringLiteral(ctx.stringLiteral().
+            size() - 1).getText()));
+        return structuredQuery;
+    }
+
+    @Override
+    public AbstractStructuredQuery visitReorderQuery(ReorderQueryContext ctx) {
+        StructuredQuery structuredQuery = new StructuredQuery();
+        structuredQuery.setQueryOperation(QueryOperation.REORDER_GRAPH);
+        structuredQuery.setVertexOrdering((null != ctx.LOCALITY()) ? VertexOrdering.LOCALITY :
+            VertexOrdering.DEGREE);
+        return structuredQuery;
+    }
+
+    @Override
+    public AbstractStructuredQuery visitCreateIndexQuery(CreateIndexQueryContext ctx) {
+        StructuredQuery structuredQuery = new StructuredQuery();
+        structuredQuery.setQueryOperation(QueryOperation.CREATE_INDEX);
+        structuredQuery.setVertexIndex(null == ctx.edgeType());
+        structuredQuery.setIndexedType((null == ctx.edgeType()) ? ctx.type().getText() : ctx.
+            edgeType().type().getText());
+        structuredQuery.setIndexedPropertyKey(ctx.key().getText());
+        return structuredQuery;
+    }
+
     @Override
     public AbstractStructuredQuery visitMatchPattern(MatchPatternContext ctx) {
         StructuredQuery structuredQuery = new StructuredQuery();
@@ -18,6 +18,7 @@ import ca.waterloo.dsg.graphflow.query.plans.ContinuousMatchQueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.OneTimeMatchQueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.QueryPlan;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
+import ca.waterloo.dsg.graphflow.query.structuredquery.QueryVariable;
 import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery;
 import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery.QueryOperation;
 import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
@@ -87,11 +88,18 @@ public class ContinuousMatchQueryPlanner extends OneTimeMatchQueryPlanner {
         Set<QueryRelation> permanentRelations = new HashSet<>(structuredQuery.getQueryRelations());
         for (QueryRelation diffRelation : structuredQuery.getQueryRelations()) {
             // The first two variables considered in each round will be the variables from the
-            // delta relation.
+            // delta relation, starting from the one the diff edges are scanned from.
             permanentRelations.remove(diffRelation);
             List<String> orderedVariables = new ArrayList<>();
-            orderedVariables.add(diffRelation.getFromQueryVariable().getVariableName());
-            orderedVariables.add(diffRelation.getToQueryVariable().getVariableName());
+            String fromVariable = diffRelation.getFromQueryVariable().getVariableName();
+            String toVariable = diffRelation.getToQueryVariable().getVariableName();
+            if (Direction.FORWARD == getScanDirection(diffRelation)) {
+                orderedVariables.add(fromVariable);
+                orderedVariables.add(toVariable);
+            } else {
+                orderedVariables.add(toVariable);
+                orderedVariables.add(fromVariable);
+            }
             super.orderRemainingVariables(orderedVariables);
 
             // Create the query plan using the ordering determined above.
@@ -109,6 +117,25 @@ public class ContinuousMatchQueryPlanner extends OneTimeMatchQueryPlanner {
         return continuousMatchQueryPlan;
     }
 
+    /**
+     * Picks the endpoint of the {@code diffRelation} the diff edges are scanned from. The diff
+     * edges are scanned sorted by the vertex they are scanned from, so consecutive prefixes share
+     * that vertex, and the adjacency lists the next stages read from it are reused from the cache.
+     * The scan therefore starts from the endpoint with more relations to the other variables.
+     *
+     * @param diffRelation The relation which uses the diff graph.
+     *
+     * @return {@link Direction#FORWARD} to scan the diff edges from the from variable of the
+     * {@code diffRelation}, or {@link Direction#BACKWARD} to scan them from its to variable.
+     */
+    private Direction getScanDirection(QueryRelation diffRelation) {
+        // The relations between the two endpoints are counted for both, so comparing the degrees
+        // compares the numbers of relations to the other variables.
+        return (queryGraph.getNumberOfAdjacentRelations(diffRelation.getToQueryVariable().
+            getVariableName()) > queryGraph.getNumberOfAdjacentRelations(diffRelation.
+            getFromQueryVariable().getVariableName())) ? Direction.BACKWARD : Direction.FORWARD;
+    }
+
     /**
      * Adds to the delta query plans the next set of operators. The op1->op2 below indicates that
      * operator op1 appends results to operator op2.
@@ -155,16 +182,25 @@ public class ContinuousMatchQueryPlanner extends OneTimeMatchQueryPlanner {
         // Store variable ordering in {@link OneTimeMatchQueryPlan}
         plan.setOrderedVariables(orderedVariables);
         List<EdgeIntersectionRule> stage;
-        // Add the first stage. The first stage always starts with extending the diffRelation's
-        // {@code fromVariable} to {@code toVariable} with the type on the relation.
+        // Add the first stage. The first stage always starts with extending the first variable,
+        // which is one of the endpoints of the diffRelation, to the other endpoint with the type
+        // on the relation. The diff edges are scanned {@code BACKWARD} if the first variable is
+        // the {@code toVariable} of the diffRelation.
+        QueryVariable firstQueryVariable = diffRelation.getFromQueryVariable();
+        QueryVariable secondQueryVariable = diffRelation.getToQueryVariable();
+        Direction scanDirection = Direction.FORWARD;
+        if (!firstQueryVariable.getVariableName().equals(orderedVariables.get(0))) {
+            firstQueryVariable = diffRelation.getToQueryVariable();
+            secondQueryVariable = diffRelation.getFromQueryVariable();
+            scanDirection = Direction.BACKWARD;
+        }
         stage = new ArrayList<>();
-        stage.add(new EdgeIntersectionRule(0, Direction.FORWARD, graphVersion,
+        stage.add(new EdgeIntersectionRule(0, scanDirection, graphVersion,
             TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(diffRelation.
                 getRelationType())));
         Map<String, Integer> variableIndicesMap = getVariableIndicesMap(orderedVariables);
 
-        // Add the other relations that are present between the diffRelation's
-        // {@code fromVariable} to {@code toVariable}.
+        // Add the other relations that are present between the first and the second variables.
         String fromVariable = orderedVariables.get(0);
         String toVariable = orderedVariables.get(1);
         for (QueryRelation queryRelation : queryGraph.getAdjacentRelations(fromVariable,
@@ -182,9 +218,8 @@ public class ContinuousMatchQueryPlanner extends OneTimeMatchQueryPlanner {
         }
         StageOperator previousStageOperator;
         StageOperator currentStageOperator = new Scan(stage, TypeAndPropertyKeyStore.getInstance().
-            mapStringTypeToShort(diffRelation.getFromQueryVariable().getVariableType()),
-            TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(diffRelation.
-                getToQueryVariable().getVariableType()));
+            mapStringTypeToShort(firstQueryVariable.getVariableType()), TypeAndPropertyKeyStore.
+            getInstance().mapStringTypeToShort(secondQueryVariable.getVariableType()));
         plan.setFirstOperator(currentStageOperator);
 
         // Add the rest of the stages.
@@ -0,0 +1,285 @@
+package ca.waterloo.dsg.graphflow.query.planner;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.GraphStatistics;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.query.operator.genericjoin.EdgeIntersectionRule;
+import ca.waterloo.dsg.graphflow.query.structuredquery.QueryGraph;
+import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the cost of the Generic Join plans of a {@link QueryGraph} from the {@link
+ * GraphStatistics} of the permanent graph, and searches for the variable ordering with the lowest
+ * estimated cost.
+ * <p>
+ * A plan matches the variables in order, and stage i extends each prefix of the first i
+ * variables to the (i+1)th variable by intersecting the adjacency lists given by the {@link
+ * EdgeIntersectionRule}s between the covered variables and the new one. The cost of a stage is
+ * the number of adjacency list entries it reads, which is the number of input prefixes times the
+ * sum of the average fan-outs of its rules, plus the number of output prefixes. The number of
+ * output prefixes is the number of input prefixes times the number of vertices of the type of the
+ * new variable times the selectivity of each rule, i.e., the probability that a vertex of that type
+ * is in the adjacency list of the rule, assuming the rules are independent. The first stage, which
+ * is a {@link ca.waterloo.dsg.graphflow.query.operator.Scan}, is costed in the same way with one
+ * input prefix for each vertex of the type of the first variable.
+ * <p>
+ * All the orderings of queries with at most {@link #MAX_NUM_VARIABLES_FOR_EXHAUSTIVE_SEARCH}
+ * variables are enumerated, pruning the partial orderings that are already more expensive than
+ * the cheapest ordering found. The orderings of larger queries are built greedily.
+ */
+class GenericJoinCostModel {
+
+    static final int MAX_NUM_VARIABLES_FOR_EXHAUSTIVE_SEARCH = 8;
+
+    private final QueryGraph queryGraph;
+    private final GraphStatistics statistics;
+
+    /**
+     * @param queryGraph The {@link QueryGraph} of the query.
+     * @param statistics The statistics of the graph the query is evaluated on.
+     */
+    GenericJoinCostModel(QueryGraph queryGraph, GraphStatistics statistics) {
+        this.queryGraph = queryGraph;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param orderedVariables An ordering of all the variables of the query, in which each
+     * variable after the first one has a relation to one of the variables before it.
+     *
+     * @return The estimated cost of each stage of the plan with the given ordering. Element i is
+     * the cost of the stage that matches the (i+1)th variable.
+     */
+    double[] getStageCosts(List<String> orderedVariables) {
+        double[] stageCosts = new double[orderedVariables.size() - 1];
+        double numPrefixes = getNumVertices(orderedVariables.get(0));
+        for (int i = 1; i < orderedVariables.size(); i++) {
+            double[] stageEstimate = estimateStage(orderedVariables.subList(0, i),
+                orderedVariables.get(i), numPrefixes);
+            stageCosts[i - 1] = stageEstimate[0];
+            numPrefixes = stageEstimate[1];
+        }
+        return stageCosts;
+    }
+
+    /**
+     * @param orderedVariables An ordering of all the variables of the query.
+     *
+     * @return The estimated number of prefixes output by each stage of the plan with the given
+     * ordering. Element i is the number of prefixes of the first i+2 variables.
+     */
+    double[] getStageNumPrefixes(List<String> orderedVariables) {
+        double[] stageNumPrefixes = new double[orderedVariables.size() - 1];
+        double numPrefixes = getNumVertices(orderedVariables.get(0));
+        for (int i = 1; i < orderedVariables.size(); i++) {
+            numPrefixes = estimateStage(orderedVariables.subList(0, i), orderedVariables.get(i),
+                numPrefixes)[1];
+            stageNumPrefixes[i - 1] = numPrefixes;
+        }
+        return stageNumPrefixes;
+    }
+
+    /**
+     * @param orderedVariables An ordering of all the variables of the query.
+     *
+     * @return The estimated cost of the plan with the given ordering.
+     */
+    double getCost(List<String> orderedVariables) {
+        double cost = 0;
+        for (double stageCost : getStageCosts(orderedVariables)) {
+            cost += stageCost;
+        }
+        return cost;
+    }
+
+    /**
+     * Searches for the ordering of the variables with the lowest estimated cost. The given
+     * ordering is kept unless an ordering with a strictly lower cost is found, so plans do not
+     * change when the graph has no statistics to tell them apart, e.g., when it is empty.
+     *
+     * @param defaultOrderedVariables An ordering of all the variables of the query.
+     *
+     * @return The cheapest ordering found.
+     */
+    List<String> getCheapestOrdering(List<String> defaultOrderedVariables) {
+        Search search = new Search(defaultOrderedVariables, getCost(defaultOrderedVariables));
+        List<String> variables = new ArrayList<>(queryGraph.getAllVariableNames());
+        variables.sort(String::compareTo);
+        if (variables.size() <= MAX_NUM_VARIABLES_FOR_EXHAUSTIVE_SEARCH) {
+            for (String firstVariable : variables) {
+                List<String> orderedVariables = new ArrayList<>();
+                orderedVariables.add(firstVariable);
+                enumerateOrderings(orderedVariables, getNumVertices(firstVariable),
+                    0 /* cost */, search);
+            }
+        } else {
+            for (String firstVariable : variables) {
+                orderGreedily(firstVariable, search);
+            }
+        }
+        return search.cheapestOrderedVariables;
+    }
+
+    /**
+     * Extends the given partial ordering with each variable that has a relation to the covered
+     * variables, recursively, and records the complete orderings cheaper than the cheapest one in
+     * {@code search}.
+     */
+    private void enumerateOrderings(List<String> orderedVariables, double numPrefixes,
+        double cost, Search search) {
+        if (cost >= search.cheapestCost) {
+            return;
+        }
+        if (orderedVariables.size() == queryGraph.getTotalNumberOfVariables()) {
+            search.cheapestCost = cost;
+            search.cheapestOrderedVariables = new ArrayList<>(orderedVariables);
+            return;
+        }
+        for (String nextVariable : getCandidateVariables(orderedVariables)) {
+            double[] stageEstimate = estimateStage(orderedVariables, nextVariable, numPrefixes);
+            orderedVariables.add(nextVariable);
+            enumerateOrderings(orderedVariables, stageEstimate[1], cost + stageEstimate[0],
+                search);
+            orderedVariables.remove(orderedVariables.size() - 1);
+        }
+    }
+
+    /**
+     * Builds an ordering that starts from {@code firstVariable} by repeatedly adding the variable
+     * whose stage has the lowest estimated cost, and records it in {@code search} if it is
+     * cheaper than the cheapest one.
+     */
+    private void orderGreedily(String firstVariable, Search search) {
+        List<String> orderedVariables = new ArrayList<>();
+        orderedVariables.add(firstVariable);
+        double numPrefixes = getNumVertices(firstVariable);
+        double cost = 0;
+        while (orderedVariables.size() < queryGraph.getTotalNumberOfVariables()) {
+            String cheapestVariable = null;
+            double[] cheapestStageEstimate = null;
+            for (String nextVariable : getCandidateVariables(orderedVariables)) {
+                double[] stageEstimate = estimateStage(orderedVariables, nextVariable,
+                    numPrefixes);
+                if (null == cheapestStageEstimate || stageEstimate[0] < cheapestStageEstimate[0]) {
+                    cheapestVariable = nextVariable;
+                    cheapestStageEstimate = stageEstimate;
+                }
+            }
+            if (null == cheapestVariable) {
+                // The query graph is not connected.
+                return;
+            }
+            orderedVariables.add(cheapestVariable);
+            numPrefixes = cheapestStageEstimate[1];
+            cost += cheapestStageEstimate[0];
+        }
+        if (cost < search.cheapestCost) {
+            search.cheapestCost = cost;
+            search.cheapestOrderedVariables = orderedVariables;
+        }
+    }
+
+    /**
+     * @return The variables that are not in {@code orderedVariables} and have a relation to one of
+     * them, in lexicographical order.
+     */
+    private List<String> getCandidateVariables(List<String> orderedVariables) {
+        Set<String> candidateVariables = new HashSet<>();
+        for (String coveredVariable : orderedVariables) {
+            candidateVariables.addAll(queryGraph.getAllNeighborVariables(coveredVariable));
+        }
+        candidateVariables.removeAll(orderedVariables);
+        List<String> sortedCandidateVariables = new ArrayList<>(candidateVariables);
+        sortedCandidateVariables.sort(String::compareTo);
+        return sortedCandidateVariables;
+    }
+
+    /**
+     * Estimates the stage that extends the prefixes of the {@code coveredVariables} to {@code
+     * nextVariable}.
+     *
+     * @return An array with the estimated cost of the stage and the estimated number of prefixes
+     * it outputs.
+     */
+    private double[] estimateStage(List<String> coveredVariables, String nextVariable,
+        double numPrefixes) {
+        short nextVariableType = getVariableType(nextVariable);
+        double numNextVertices = statistics.getNumVertices(nextVariableType);
+        double numAdjacencyListEntries = 0;
+        double numOutputPrefixes = numPrefixes * numNextVertices;
+        for (String coveredVariable : coveredVariables) {
+            if (!queryGraph.containsRelation(coveredVariable, nextVariable)) {
+                continue;
+            }
+            for (QueryRelation queryRelation : queryGraph.getAdjacentRelations(coveredVariable,
+                nextVariable)) {
+                Direction direction = queryRelation.getFromQueryVariable().getVariableName().
+                    equals(coveredVariable) ? Direction.FORWARD : Direction.BACKWARD;
+                short edgeType = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(
+                    queryRelation.getRelationType());
+                double fanOut = statistics.getAverageFanOut(getVariableType(coveredVariable),
+                    edgeType, direction);
+                numAdjacencyListEntries += fanOut;
+                double selectivity = (0 == numNextVertices) ? 0 : fanOut * getTargetTypeFraction(
+                    nextVariableType, edgeType, direction) / numNextVertices;
+                numOutputPrefixes *= Double.min(1, selectivity);
+            }
+        }
+        return new double[]{numPrefixes * numAdjacencyListEntries + numOutputPrefixes,
+            numOutputPrefixes};
+    }
+
+    /**
+     * @return The fraction of the edges of the given {@code edgeType} in the given {@code
+     * direction} that end at a vertex of the given {@code vertexType}.
+     */
+    private double getTargetTypeFraction(short vertexType, short edgeType, Direction direction) {
+        if (TypeAndPropertyKeyStore.ANY == vertexType) {
+            return 1;
+        }
+        Direction reverseDirection = (Direction.FORWARD == direction) ? Direction.BACKWARD :
+            Direction.FORWARD;
+        long numEdges = statistics.getNumEdges(TypeAndPropertyKeyStore.ANY, edgeType,
+            reverseDirection);
+        return (0 == numEdges) ? 0 : ((double) statistics.getNumEdges(vertexType, edgeType,
+            reverseDirection)) / numEdges;
+    }
+
+    private double getNumVertices(String variable) {
+        return statistics.getNumVertices(getVariableType(variable));
+    }
+
+    /**
+     * @return The type of the given {@code variable}, which is the same in all its relations.
+     */
+    short getVariableType(String variable) {
+        for (String neighbourVariable : queryGraph.getAllNeighborVariables(variable)) {
+            QueryRelation queryRelation = queryGraph.getAdjacentRelations(variable,
+                neighbourVariable).get(0);
+            return TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(queryRelation.
+                getFromQueryVariable().getVariableName().equals(variable) ? queryRelation.
+                getFromQueryVariable().getVariableType() : queryRelation.getToQueryVariable().
+                getVariableType());
+        }
+        return TypeAndPropertyKeyStore.ANY;
+    }
+
+    /**
+     * The cheapest ordering found so far by a search and its estimated cost.
+     */
+    private static class Search {
+
+        private List<String> cheapestOrderedVariables;
+        private double cheapestCost;
+
+        private Search(List<String> cheapestOrderedVariables, double cheapestCost) {
+            this.cheapestOrderedVariables = cheapestOrderedVariables;
+            this.cheapestCost = cheapestCost;
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package ca.waterloo.dsg.graphflow.query.planner;
 
+import ca.waterloo.dsg.graphflow.graph.Graph;
 import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndex;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndexStore;
+import ca.waterloo.dsg.graphflow.graph.PropertyRange;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.ZoneMapFilter;
+import ca.waterloo.dsg.graphflow.graph.ZoneMaps;
 import ca.waterloo.dsg.graphflow.query.operator.AbstractOperator;
 import ca.waterloo.dsg.graphflow.query.operator.EdgeIdResolver;
 import ca.waterloo.dsg.graphflow.query.operator.EdgeIdResolver.SourceDestinationIndexAndType;
@@ -24,14 +30,18 @@ import ca.waterloo.dsg.graphflow.query.operator.filter.FilterPredicateFactory;
 import ca.waterloo.dsg.graphflow.query.operator.genericjoin.EdgeIntersectionRule;
 import ca.waterloo.dsg.graphflow.query.operator.genericjoin.StageOperator;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
+import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
 import ca.waterloo.dsg.graphflow.query.plans.OneTimeMatchQueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.QueryPlan;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryAggregation;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryGraph;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryPropertyPredicate;
+import ca.waterloo.dsg.graphflow.query.structuredquery.QueryPropertyPredicate.PredicateType;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
 import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery;
 import ca.waterloo.dsg.graphflow.query.validators.MatchQueryValidator;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.RuntimeTypeBasedComparator.ComparisonOperator;
 import org.antlr.v4.runtime.misc.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -123,7 +133,10 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
     }
 
     /**
-     * Creates a one time {@code MATCH} query plan for the given {@code structuredQuery}.
+     * Creates a one time {@code MATCH} query plan for the given {@code structuredQuery}. The
+     * variables are ordered by the lowest estimated cost of the plan given the statistics of the
+     * permanent graph, starting from the ordering chosen by the degrees of the query variables.
+     * See {@link GenericJoinCostModel}.
      *
      * @return A {@link QueryPlan} encapsulating an {@link OneTimeMatchQueryPlan}.
      */
@@ -153,13 +166,27 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
         orderedVariables.add(variableWithHighestDegree);
         // Order the rest of the variables.
         orderRemainingVariables(orderedVariables);
+        // Start from the variables of an indexed equality predicate of the WHERE clause, if there
+        // is one, so the scan is seeded by the index. Otherwise, pick the cheapest ordering given
+        // the statistics of the permanent graph. The vertices matched by queries without a RETURN
+        // clause are output in the default ordering, which does not depend on the graph.
+        List<String> outputVariables = orderedVariables;
+        GenericJoinCostModel costModel = new GenericJoinCostModel(queryGraph, Graph.
+            getInstance().getStatistics());
+        IndexSeed indexSeed = getIndexSeed(costModel);
+        if (null != indexSeed) {
+            orderedVariables = new ArrayList<>(indexSeed.variables);
+            orderRemainingVariables(orderedVariables);
+        } else {
+            orderedVariables = costModel.getCheapestOrdering(orderedVariables);
+        }
         // Store variable ordering in {@link OneTimeMatchQueryPlan}
         plan.setOrderedVariables(orderedVariables);
+        plan.setStageEstimates(costModel.getStageCosts(orderedVariables), costModel.
+            getStageNumPrefixes(orderedVariables));
         // Finally, create the plan.
         StageOperator previousStageOperator;
         StageOperator currentStageOperator = null;
-        String fromVertexTypeFilter = null;
-        String toVertexTypeFilter = null;
         // Start from the second variable to create the first stage.
         for (int i = 1; i < orderedVariables.size(); i++) {
             String variableForCurrentStage = orderedVariables.get(i);
@@ -174,35 +201,209 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
                         Direction direction = queryRelation.getFromQueryVariable().
                             getVariableName().equals(variableFromPreviousStage) ?
                             Direction.FORWARD : Direction.BACKWARD;
-                        fromVertexTypeFilter = queryRelation.getFromQueryVariable().
-                            getVariableType();
-                        toVertexTypeFilter = queryRelation.getToQueryVariable().getVariableType();
                         stage.add(new EdgeIntersectionRule(j, direction, TypeAndPropertyKeyStore.
                             getInstance().mapStringTypeToShort(queryRelation.getRelationType())));
                     }
                 }
             }
+            // The scanned edges start from the first variable, and each stage extends the
+            // prefixes to the variable of the stage, whichever the directions of the relations.
             if (1 == i) {
-                currentStageOperator = new Scan(stage, TypeAndPropertyKeyStore.getInstance().
-                    mapStringTypeToShort(fromVertexTypeFilter), TypeAndPropertyKeyStore.
-                    getInstance().mapStringTypeToShort(toVertexTypeFilter));
+                currentStageOperator = new Scan(stage, costModel.getVariableType(orderedVariables.
+                    get(0)), costModel.getVariableType(variableForCurrentStage));
+                if (null != indexSeed) {
+                    ((Scan) currentStageOperator).setIndexSeed(indexSeed.index, indexSeed.range);
+                }
+                ((Scan) currentStageOperator).setFromVertexFilter(getZoneMapFilter(
+                    orderedVariables.get(0), true /* vertex variable */));
+                for (String relationName : queryGraph.getAllRelationNames()) {
+                    ZoneMapFilter edgeFilter = getZoneMapFilter(relationName,
+                        false /* edge variable */);
+                    if (null != edgeFilter) {
+                        ((Scan) currentStageOperator).addEdgeFilter(edgeFilter);
+                    }
+                }
                 plan.setFirstOperator(currentStageOperator);
             } else {
                 previousStageOperator = currentStageOperator;
-                currentStageOperator = new Extend(stage, TypeAndPropertyKeyStore.getInstance().
-                    mapStringTypeToShort(toVertexTypeFilter));
+                currentStageOperator = new Extend(stage, costModel.getVariableType(
+                    variableForCurrentStage));
                 previousStageOperator.nextOperator = currentStageOperator;
             }
+            currentStageOperator.setToVertexFilter(getZoneMapFilter(variableForCurrentStage,
+                true /* vertex variable */));
         }
         currentStageOperator.setMatchQueryOutput(plan.getFirstOperator().getMatchQueryResultType(),
             getVariableIndicesMap(orderedVariables));
-        currentStageOperator.nextOperator = getNextOperator(orderedVariables);
+        currentStageOperator.nextOperator = getNextOperator(orderedVariables, outputVariables);
 
         logger.info("**********Printing OneTimeMatchQueryPlan**********");
         logger.info("Plan: \n" + plan.getHumanReadablePlan());
         return plan;
     }
 
+    /**
+     * Finds the predicates of the WHERE clause between a property of a vertex or an edge variable
+     * and a literal that can be looked up in a {@link PropertyIndex} on the property of the type
+     * of the variable: equality predicates whose literal is compared as the data type of the
+     * property, and, in range indexes, comparisons with numeric literals, where the comparisons on
+     * the same property are intersected into one range. A lookup of a single value is preferred to
+     * a lookup of a range. The {@link Filter}s of the predicates are still added to the plan.
+     *
+     * @return The seed of the scan, or {@code null} if there is no such predicate.
+     */
+    private IndexSeed getIndexSeed(GenericJoinCostModel costModel) {
+        IndexSeed rangeSeed = null;
+        for (QueryPropertyPredicate predicate : structuredQuery.getQueryPropertyPredicates()) {
+            if (!isIndexablePredicate(predicate)) {
+                continue;
+            }
+            String variable = predicate.getLeftOperand().a;
+            Short key = typeAndPropertyKeyStore.mapStringPropertyKeyToShort(predicate.
+                getLeftOperand().b);
+            PropertyIndex index = (null == key) ? null : getIndex(variable, key, costModel);
+            if (null == index) {
+                continue;
+            }
+            if (!index.isRangeIndex()) {
+                DataType dataType = FilterPredicateFactory.getDataTypeToCastOperandsTo(predicate);
+                if (ComparisonOperator.EQUALS == predicate.getComparisonOperator() && dataType ==
+                    typeAndPropertyKeyStore.getPropertyDataType(key)) {
+                    return new IndexSeed(index, PropertyRange.equalTo(DataType.parseDataType(
+                        dataType, predicate.getLiteral())), getSeedVariables(variable));
+                }
+                continue;
+            }
+            PropertyRange range = getRange(predicate.getLeftOperand());
+            if (null == range) {
+                continue;
+            }
+            if (range.isPoint()) {
+                return new IndexSeed(index, range, getSeedVariables(variable));
+            } else if (null == rangeSeed) {
+                rangeSeed = new IndexSeed(index, range, getSeedVariables(variable));
+            }
+        }
+        return rangeSeed;
+    }
+
+    /**
+     * Finds the ranges of the {@code INTEGER} and {@code DOUBLE} properties of the given vertex
+     * or edge {@code variable} required by the comparisons of the WHERE clause with numeric
+     * literals, see {@link #getRange(Pair)}, so the {@link Scan} and the {@link Extend}s skip the
+     * blocks of vertices and the relations ruled out by the {@link ZoneMaps}. The {@link
+     * Filter}s of the predicates are still added to the plan.
+     *
+     * @return The filter of the variable, or {@code null} if no property of the variable is
+     * compared with a numeric literal.
+     */
+    private ZoneMapFilter getZoneMapFilter(String variable, boolean isVertexVariable) {
+        ZoneMapFilter zoneMapFilter = new ZoneMapFilter(isVertexVariable);
+        Set<Short> filteredKeys = new HashSet<>();
+        for (QueryPropertyPredicate predicate : structuredQuery.getQueryPropertyPredicates()) {
+            if (!isIndexablePredicate(predicate) || !variable.equals(predicate.getLeftOperand().
+                a)) {
+                continue;
+            }
+            Short key = typeAndPropertyKeyStore.mapStringPropertyKeyToShort(predicate.
+                getLeftOperand().b);
+            if (null == key || filteredKeys.contains(key)) {
+                continue;
+            }
+            DataType dataType = typeAndPropertyKeyStore.getPropertyDataType(key);
+            PropertyRange range = getRange(predicate.getLeftOperand());
+            if ((DataType.INTEGER == dataType || DataType.DOUBLE == dataType) && null != range) {
+                zoneMapFilter.addRange(key, range);
+                filteredKeys.add(key);
+            }
+        }
+        return zoneMapFilter.isEmpty() ? null : zoneMapFilter;
+    }
+
+    private static boolean isIndexablePredicate(QueryPropertyPredicate predicate) {
+        return PredicateType.PROPERTY_KEY_AND_LITERAL_OPERANDS == predicate.getPredicateType() &&
+            ComparisonOperator.NOT_EQUALS != predicate.getComparisonOperator();
+    }
+
+    /**
+     * @return The index on the property with the given {@code key} of the type of the given vertex
+     * or edge {@code variable}, or {@code null} if the variable has no type or there is no index.
+     */
+    private PropertyIndex getIndex(String variable, short key, GenericJoinCostModel costModel) {
+        if (queryGraph.getAllVariableNames().contains(variable)) {
+            short vertexType = costModel.getVariableType(variable);
+            return (TypeAndPropertyKeyStore.ANY == vertexType) ? null : PropertyIndexStore.
+                getInstance().getIndex(true /* vertex index */, vertexType, key);
+        } else if (queryGraph.getAllRelationNames().contains(variable)) {
+            QueryRelation queryRelation = queryGraph.getRelationFromRelationName(variable);
+            Short edgeType = typeAndPropertyKeyStore.mapStringTypeToShort(queryRelation.
+                getRelationType());
+            // The scan of a self-loop relation starts from a single variable, so it is not seeded.
+            return (null == edgeType || TypeAndPropertyKeyStore.ANY == edgeType || queryRelation.
+                getFromQueryVariable().getVariableName().equals(queryRelation.
+                getToQueryVariable().getVariableName())) ? null : PropertyIndexStore.
+                getInstance().getIndex(false /* edge index */, edgeType, key);
+        }
+        return null;
+    }
+
+    /**
+     * @return The variables the plan starts from when it is seeded by an index on the given vertex
+     * or edge {@code variable}: the vertex variable, or the from and to variables of the edge.
+     */
+    private List<String> getSeedVariables(String variable) {
+        List<String> seedVariables = new ArrayList<>();
+        if (queryGraph.getAllVariableNames().contains(variable)) {
+            seedVariables.add(variable);
+        } else {
+            QueryRelation queryRelation = queryGraph.getRelationFromRelationName(variable);
+            seedVariables.add(queryRelation.getFromQueryVariable().getVariableName());
+            seedVariables.add(queryRelation.getToQueryVariable().getVariableName());
+        }
+        return seedVariables;
+    }
+
+    /**
+     * @return The intersection of the ranges of the indexable predicates of the WHERE clause on the
+     * given {@code variableAndKey}, or {@code null} if one of their literals is not numeric.
+     */
+    private PropertyRange getRange(Pair<String, String> variableAndKey) {
+        double lowerBound = Double.NEGATIVE_INFINITY;
+        boolean isLowerBoundInclusive = true;
+        double upperBound = Double.POSITIVE_INFINITY;
+        boolean isUpperBoundInclusive = true;
+        for (QueryPropertyPredicate predicate : structuredQuery.getQueryPropertyPredicates()) {
+            if (!isIndexablePredicate(predicate) || !variableAndKey.equals(predicate.
+                getLeftOperand())) {
+                continue;
+            }
+            double value;
+            try {
+                value = Double.parseDouble(predicate.getLiteral());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            ComparisonOperator operator = predicate.getComparisonOperator();
+            boolean isInclusive = ComparisonOperator.LESS_THAN != operator &&
+                ComparisonOperator.GREATER_THAN != operator;
+            if (ComparisonOperator.LESS_THAN != operator && ComparisonOperator.
+                LESS_THAN_OR_EQUAL != operator && (value > lowerBound || value == lowerBound &&
+                !isInclusive)) {
+                lowerBound = value;
+                isLowerBoundInclusive = isInclusive;
+            }
+            if (ComparisonOperator.GREATER_THAN != operator && ComparisonOperator.
+                GREATER_THAN_OR_EQUAL != operator && (value < upperBound || value == upperBound &&
+                !isInclusive)) {
+                upperBound = value;
+                isUpperBoundInclusive = isInclusive;
+            }
+        }
+        return new PropertyRange((Double.NEGATIVE_INFINITY == lowerBound) ? null : lowerBound,
+            isLowerBoundInclusive, (Double.POSITIVE_INFINITY == upperBound) ? null : upperBound,
+            isUpperBoundInclusive);
+    }
+
     Map<String, Integer> getVariableIndicesMap(List<String> orderedVariables) {
         Map<String, Integer> variableIndicesMap = new HashMap<>();
         for (int i = 0; i < orderedVariables.size(); ++i) {
@@ -228,6 +429,19 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
      */
     AbstractOperator getNextOperator(
         List<String> orderedVertexVariablesBeforeProjection) {
+        return getNextOperator(orderedVertexVariablesBeforeProjection,
+            orderedVertexVariablesBeforeProjection);
+    }
+
+    /**
+     * @param orderedVertexVariablesBeforeProjection The variables in the order they are matched.
+     * @param outputVertexVariables The variables in the order their vertex IDs are output if there
+     * is no RETURN clause.
+     *
+     * @see #getNextOperator(List)
+     */
+    AbstractOperator getNextOperator(List<String> orderedVertexVariablesBeforeProjection,
+        List<String> outputVertexVariables) {
         AbstractOperator nextOperator;
         List<String> orderedEdgeVariablesAfterProjection = new ArrayList<>();
         Map<String, Integer> orderedVariableIndexMapBeforeProjection =
@@ -238,10 +452,10 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
         if (structuredQuery.getReturnVariables().isEmpty() &&
             structuredQuery.getReturnVariablePropertyPairs().isEmpty() &&
             structuredQuery.getQueryAggregations().isEmpty()) {
-            nextOperator = getIdentityPropertyResolver(orderedVertexVariablesBeforeProjection);
+            nextOperator = getIdentityPropertyResolver(orderedVariableIndexMapBeforeProjection,
+                outputVertexVariables);
             if (outputSink instanceof InMemoryOutputSink) {
-                ((InMemoryOutputSink) outputSink).setHeader(orderedVertexVariablesBeforeProjection.
-                    toString());
+                ((InMemoryOutputSink) outputSink).setHeader(outputVertexVariables.toString());
             }
         } else {
             // Otherwise we first project onto the set of attributes mentioned in the RETURN
@@ -313,7 +527,7 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
         // variable in {@code edgeOrVertexPropertyDescriptors} list. A map is used to prevent
         // duplicate descriptors in the list.
         Map<String, Integer> descriptorIndexMap = new HashMap<>();
-        Predicate<String[]> predicate = null;
+        Predicate<MatchQueryOutput> predicate = null;
         for (QueryPropertyPredicate queryPropertyPredicate : structuredQuery.
             getQueryPropertyPredicates()) {
             Pair<String, String> variable1 = queryPropertyPredicate.getLeftOperand();
@@ -333,18 +547,20 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
                     vertexVariableOrderIndexMapBeforeProjection, edgeVariableOrderIndexMap,
                     variable2.a, typeAndPropertyKeyStore.mapStringPropertyKeyToShort(variable2.b)));
             }
-            int variable2Index = (variable2 != null) ? descriptorIndexMap.get(variable2.a + '.' +
-                variable2.b) : -1;
+            EdgeOrVertexPropertyDescriptor descriptor1 = edgeOrVertexPropertyDescriptors.get(
+                descriptorIndexMap.get(variable1.a + '.' + variable1.b));
+            EdgeOrVertexPropertyDescriptor descriptor2 = (variable2 != null) ?
+                edgeOrVertexPropertyDescriptors.get(descriptorIndexMap.get(variable2.a + '.' +
+                    variable2.b)) : null;
             if (null == predicate) {
                 // Assign the first predicate to {@code Predicate}.
                 predicate = FilterPredicateFactory.getFilterPredicate(queryPropertyPredicate,
-                    descriptorIndexMap.get(variable1.a + '.' + variable1.b), variable2Index);
+                    descriptor1, descriptor2);
             } else {
                 // Create a composite {@link Predicate} with subsequent predicates by calling
                 // {@code and} on the existing {@code predicate}.
                 predicate = predicate.and(FilterPredicateFactory.getFilterPredicate(
-                    queryPropertyPredicate, descriptorIndexMap.get(variable1.a + '.' + variable1.b),
-                    variable2Index));
+                    queryPropertyPredicate, descriptor1, descriptor2));
             }
         }
         return new Filter(nextOperator, predicate, new ArrayList<>(edgeOrVertexPropertyDescriptors),
@@ -550,13 +766,14 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
     }
 
     private PropertyResolver getIdentityPropertyResolver(
-        List<String> orderedVertexVariablesBeforeProjection) {
+        Map<String, Integer> orderedVariableIndexMapBeforeProjection,
+        List<String> outputVertexVariables) {
         List<EdgeOrVertexPropertyDescriptor> edgeOrVertexPropertyIndices = new ArrayList<>();
-        for (int i = 0; i < orderedVertexVariablesBeforeProjection.size(); ++i) {
-            // Since the vertex Ids in the prefixes will be ordered we just pass in i as the index
-            // below.
+        for (String variable : outputVertexVariables) {
+            // The vertex ID of each variable is read from its index in the prefixes.
             edgeOrVertexPropertyIndices.add(new EdgeOrVertexPropertyDescriptor(
-                DescriptorType.VERTEX_ID, i, (short) -1 /* No type. just return the vertex ID. */));
+                DescriptorType.VERTEX_ID, orderedVariableIndexMapBeforeProjection.get(variable),
+                (short) -1 /* No type. just return the vertex ID. */));
         }
         logger.info("Appending PropertyResolver->OutputSink.");
         return new PropertyResolver(outputSink, edgeOrVertexPropertyIndices);
@@ -569,4 +786,22 @@ public class OneTimeMatchQueryPlanner extends AbstractQueryPlanner {
         }
         return variableOrderIndexMapBeforeProjection;
     }
+
+    /**
+     * An index seeding the {@link Scan} of a plan, the range of values of the indexed property
+     * looked up, and the variables the plan starts from: the indexed vertex variable, or the from
+     * and to variables of the indexed edge variable.
+     */
+    private static class IndexSeed {
+
+        private PropertyIndex index;
+        private PropertyRange range;
+        private List<String> variables;
+
+        private IndexSeed(PropertyIndex index, PropertyRange range, List<String> variables) {
+            this.index = index;
+            this.range = range;
+            this.variables = variables;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package ca.waterloo.dsg.graphflow.query.planner;
 
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.query.plans.QueryPlan;
 import ca.waterloo.dsg.graphflow.query.plans.ShortestPathPlan;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
@@ -19,7 +20,9 @@ public class ShortestPathPlanner extends AbstractQueryPlanner {
     public QueryPlan plan() {
         QueryRelation shortestPathEdge = structuredQuery.getQueryRelations().get(0);
         return new ShortestPathPlan(
-            Integer.parseInt(shortestPathEdge.getFromQueryVariable().getVariableName()),
-            Integer.parseInt(shortestPathEdge.getToQueryVariable().getVariableName()));
+            VertexIdDictionary.getInstance().getInternalId(Long.parseLong(
+                shortestPathEdge.getFromQueryVariable().getVariableName())),
+            VertexIdDictionary.getInstance().getInternalId(Long.parseLong(
+                shortestPathEdge.getToQueryVariable().getVariableName())));
     }
 }
@@ -3,6 +3,7 @@ package ca.waterloo.dsg.graphflow.query.plans;
 import ca.waterloo.dsg.graphflow.exceptions.IncorrectDataTypeException;
 import ca.waterloo.dsg.graphflow.graph.Graph;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.query.executors.ContinuousMatchQueryExecutor;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
@@ -50,7 +51,8 @@ public class CreateQueryPlan implements QueryPlan {
                 typeAndPropertyKeyStore.assertExistingKeyDataTypesMatchPreviousDeclarations(
                     stringvertexProperties);
 
-                int vertexId = Integer.parseInt(queryVariable.getVariableName());
+                int vertexId = VertexIdDictionary.getInstance().getInternalIdOrInsert(
+                    Long.parseLong(queryVariable.getVariableName()));
                 short vertexType = typeAndPropertyKeyStore.mapStringTypeToShortOrInsert(
                     queryVariable.getVariableType());
                 Map<Short, Pair<DataType, String>> vertexProperties = typeAndPropertyKeyStore.
@@ -60,7 +62,7 @@ public class CreateQueryPlan implements QueryPlan {
             }
             // TODO(amine): bug, count the actual number of vertices created to append to sink.
             outputSink.append(structuredQuery.getQueryVariables().size() + " vertices created.");
-        } catch (UnsupportedOperationException e) {
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
             outputSink.append("ERROR: " + e.getMessage());
         }
     }
@@ -90,10 +92,10 @@ public class CreateQueryPlan implements QueryPlan {
                 typeAndPropertyKeyStore.assertExistingKeyDataTypesMatchPreviousDeclarations(
                     stringEdgeProperties);
 
-                int fromVertex = Integer.parseInt(queryRelation.getFromQueryVariable().
-                    getVariableName());
-                int toVertex = Integer.parseInt(queryRelation.getToQueryVariable().
-                    getVariableName());
+                int fromVertex = VertexIdDictionary.getInstance().getInternalIdOrInsert(
+                    Long.parseLong(queryRelation.getFromQueryVariable().getVariableName()));
+                int toVertex = VertexIdDictionary.getInstance().getInternalIdOrInsert(
+                    Long.parseLong(queryRelation.getToQueryVariable().getVariableName()));
 
                 short fromVertexType = typeAndPropertyKeyStore.mapStringTypeToShortOrInsert(
                     queryRelation.getFromQueryVariable().getVariableType());
@@ -117,7 +119,7 @@ public class CreateQueryPlan implements QueryPlan {
             Graph.getInstance().finalizeChanges();
             // TODO(amine): bug, count the actual number of edges created to append to sink.
             outputSink.append(structuredQuery.getQueryRelations().size() + " edges created.");
-        } catch (UnsupportedOperationException e) {
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
             outputSink.append("ERROR: " + e.getMessage());
         }
     }
@@ -1,8 +1,10 @@
 package ca.waterloo.dsg.graphflow.query.plans;
 
 import ca.waterloo.dsg.graphflow.exceptions.NoSuchTypeException;
+import ca.waterloo.dsg.graphflow.exceptions.NoSuchVertexIDException;
 import ca.waterloo.dsg.graphflow.graph.Graph;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.VertexIdDictionary;
 import ca.waterloo.dsg.graphflow.query.executors.ContinuousMatchQueryExecutor;
 import ca.waterloo.dsg.graphflow.query.operator.sinks.OutputSink;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
@@ -30,11 +32,13 @@ public class DeleteQueryPlan implements QueryPlan {
                 TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortAndAssertTypeExists(
                     queryRelation.getRelationType());
                 Graph.getInstance().deleteEdgeTemporarily(
-                    Integer.parseInt(queryRelation.getFromQueryVariable().getVariableName()),
-                    Integer.parseInt(queryRelation.getToQueryVariable().getVariableName()),
+                    VertexIdDictionary.getInstance().getInternalId(Long.parseLong(
+                        queryRelation.getFromQueryVariable().getVariableName())),
+                    VertexIdDictionary.getInstance().getInternalId(Long.parseLong(
+                        queryRelation.getToQueryVariable().getVariableName())),
                     TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(
                         queryRelation.getRelationType()));
-            } catch (NoSuchTypeException e) {
+            } catch (NoSuchTypeException | NoSuchVertexIDException e) {
                 outputSink.append("ERROR: " + e.getMessage());
             }
         }
@@ -1,6 +1,10 @@
 package ca.waterloo.dsg.graphflow.query.plans;
 
+import ca.waterloo.dsg.graphflow.graph.Graph;
+import ca.waterloo.dsg.graphflow.graph.GraphStatistics;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndex;
 import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.graph.ZoneMapFilter;
 import ca.waterloo.dsg.graphflow.query.operator.AbstractOperator;
 import ca.waterloo.dsg.graphflow.query.operator.Scan;
 import ca.waterloo.dsg.graphflow.query.operator.genericjoin.EdgeIntersectionRule;
@@ -20,6 +24,10 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
 
     private List<String> orderedVariables;
     private Scan firstOperator;
+    // The estimated cost and number of output prefixes of each stage, or {@code null} if the plan
+    // was not costed.
+    private double[] estimatedStageCosts;
+    private double[] estimatedStageNumPrefixes;
 
     public Scan getFirstOperator() {
         return firstOperator;
@@ -50,6 +58,19 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
         this.orderedVariables = orderedVariables;
     }
 
+    /**
+     * Sets the estimated cost and number of output prefixes of each stage, which are printed with
+     * the plan.
+     *
+     * @param estimatedStageCosts The estimated cost of each stage.
+     * @param estimatedStageNumPrefixes The estimated number of prefixes output by each stage.
+     */
+    public void setStageEstimates(double[] estimatedStageCosts,
+        double[] estimatedStageNumPrefixes) {
+        this.estimatedStageCosts = estimatedStageCosts;
+        this.estimatedStageNumPrefixes = estimatedStageNumPrefixes;
+    }
+
     /**
      * Executes the {@link OneTimeMatchQueryPlan}.
      */
@@ -59,6 +80,8 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
 
     /**
      * @return a String human readable representation of an operator and all of its next operators.
+     * The edges matched by each {@link EdgeIntersectionRule} are followed by their statistics in
+     * the permanent graph. See {@link GraphStatistics}.
      */
     public String getHumanReadablePlan() {
         StringBuilder stringBuilder = new StringBuilder();
@@ -75,13 +98,36 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
 
     private String getHumanReadableGenericJoinOperators() {
         StringBuilder stringBuilder = new StringBuilder("OneTimeMatchQueryPlan: \n");
+        GraphStatistics statistics = Graph.getInstance().getStatistics();
         StageOperator currentOperator = firstOperator;
         int stageCount = 0;
         while (currentOperator != null) {
             List<EdgeIntersectionRule> stage = currentOperator.getIntersectionRules();
-            stringBuilder.append("\tStage ").append(stageCount).append("\n");
+            stringBuilder.append("\tStage ").append(stageCount);
+            if (null != estimatedStageCosts) {
+                stringBuilder.append(String.format(" (estimated cost: %.1f, estimated prefixes: " +
+                    "%.1f)", estimatedStageCosts[stageCount], estimatedStageNumPrefixes[
+                    stageCount]));
+            }
+            stringBuilder.append("\n");
+            if (currentOperator instanceof Scan && null != ((Scan) currentOperator).
+                getSeedIndex()) {
+                stringBuilder.append("\t\tSeeded by ").append(getHumanReadableIndexSeed(
+                    (Scan) currentOperator)).append("\n");
+            }
+            if (currentOperator instanceof Scan) {
+                appendZoneMapFilter(stringBuilder, "from vertices", ((Scan) currentOperator).
+                    getFromVertexFilter());
+                for (ZoneMapFilter edgeFilter : ((Scan) currentOperator).getEdgeFilters()) {
+                    appendZoneMapFilter(stringBuilder, "edges", edgeFilter);
+                }
+            }
+            appendZoneMapFilter(stringBuilder, "to vertices", currentOperator.getToVertexFilter());
             for (EdgeIntersectionRule intersectionRule : stage) {
                 stringBuilder.append("\t\t").append(intersectionRule.toString()).append("\n");
+                stringBuilder.append("\t\t\tStatistics: ").append(statistics.
+                    getHumanReadableStatistics(TypeAndPropertyKeyStore.ANY, intersectionRule.
+                        getEdgeTypeFilter(), intersectionRule.getDirection())).append("\n");
             }
             if (currentOperator.nextOperator instanceof StageOperator) {
                 currentOperator = (StageOperator) currentOperator.nextOperator;
@@ -93,6 +139,23 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
         return stringBuilder.toString();
     }
 
+    private static void appendZoneMapFilter(StringBuilder stringBuilder, String filteredObjects,
+        ZoneMapFilter zoneMapFilter) {
+        if (null != zoneMapFilter) {
+            stringBuilder.append("\t\tPruned by the zone maps of the ").append(filteredObjects).
+                append(": ").append(zoneMapFilter).append("\n");
+        }
+    }
+
+    private static String getHumanReadableIndexSeed(Scan scan) {
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        PropertyIndex index = scan.getSeedIndex();
+        String type = ":" + typeAndPropertyKeyStore.mapShortToStringType(index.getType());
+        return String.format("the index on %s(%s) %s", index.isVertexIndex() ? type : "[" +
+            type + "]", typeAndPropertyKeyStore.mapShortPropertyKeyToString(index.getKey()),
+            scan.getSeedRange());
+    }
+
     /**
      * @return a {@code JsonArray} query plan
      */
@@ -125,6 +188,7 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
         planJson.add(JsonUtils.VAR_ORDERING, variableOrdering);
 
         // Construct "stages" and add it to {@code planJson}
+        GraphStatistics statistics = Graph.getInstance().getStatistics();
         JsonArray stagesJson = new JsonArray();
         StageOperator currentOperator = this.firstOperator;
         while (null != currentOperator) {
@@ -153,6 +217,16 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
                     ruleJson.addProperty(JsonUtils.TO_VERTEX_TYPE, TypeAndPropertyKeyStore.
                         getInstance().mapShortToStringType(toVertexTypeFilter));
                 }
+                JsonObject statisticsJson = new JsonObject();
+                statisticsJson.addProperty(JsonUtils.NUM_EDGES, statistics.getNumEdges(
+                    TypeAndPropertyKeyStore.ANY, edgeTypeFilter, rule.getDirection()));
+                statisticsJson.addProperty(JsonUtils.NUM_VERTICES_WITH_EDGES, statistics.
+                    getNumVerticesWithEdges(TypeAndPropertyKeyStore.ANY, edgeTypeFilter, rule.
+                        getDirection()));
+                statisticsJson.addProperty(JsonUtils.AVERAGE_FAN_OUT, statistics.
+                    getAverageFanOut(TypeAndPropertyKeyStore.ANY, edgeTypeFilter, rule.
+                        getDirection()));
+                ruleJson.add(JsonUtils.STATISTICS, statisticsJson);
                 stageJson.add(ruleJson);
             }
             stagesJson.add(stageJson);
@@ -163,6 +237,16 @@ public class OneTimeMatchQueryPlan implements QueryPlan {
             }
         }
         planJson.add(JsonUtils.STAGES, stagesJson);
+        if (null != estimatedStageCosts) {
+            JsonArray estimatedStageCostsJson = new JsonArray();
+            JsonArray estimatedStageNumPrefixesJson = new JsonArray();
+            for (int i = 0; i < estimatedStageCosts.length; i++) {
+                estimatedStageCostsJson.add(estimatedStageCosts[i]);
+                estimatedStageNumPrefixesJson.add(estimatedStageNumPrefixes[i]);
+            }
+            planJson.add(JsonUtils.ESTIMATED_STAGE_COSTS, estimatedStageCostsJson);
+            planJson.add(JsonUtils.ESTIMATED_STAGE_NUM_PREFIXES, estimatedStageNumPrefixesJson);
+        }
 
         return planJson;
     }
@@ -1,5 +1,6 @@
 package ca.waterloo.dsg.graphflow.query.structuredquery;
 
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer.VertexOrdering;
 import ca.waterloo.dsg.graphflow.util.UsedOnlyByTests;
 import org.antlr.v4.runtime.misc.Pair;
 
@@ -21,6 +22,9 @@ public class StructuredQuery implements AbstractStructuredQuery {
         CONTINUOUS_MATCH,
         LOAD_GRAPH,
         SAVE_GRAPH,
+        BULK_LOAD,
+        REORDER_GRAPH,
+        CREATE_INDEX,
         EXPLAIN,
         CONTINUOUS_EXPLAIN
     }
@@ -34,6 +38,11 @@ public class StructuredQuery implements AbstractStructuredQuery {
     private String continuousMatchAction;
     private String continuousMatchOutputLocation;
     private String filePath;
+    private String vertexFilePath;
+    private VertexOrdering vertexOrdering;
+    private boolean isVertexIndex;
+    private String indexedType;
+    private String indexedPropertyKey;
     private List<QueryPropertyPredicate> queryPropertyPredicates = new ArrayList<>();
 
     /**
@@ -147,6 +156,46 @@ public class StructuredQuery implements AbstractStructuredQuery {
         this.filePath = filePath;
     }
 
+    public String getVertexFilePath() {
+        return vertexFilePath;
+    }
+
+    public void setVertexFilePath(String vertexFilePath) {
+        this.vertexFilePath = vertexFilePath;
+    }
+
+    public VertexOrdering getVertexOrdering() {
+        return vertexOrdering;
+    }
+
+    public void setVertexOrdering(VertexOrdering vertexOrdering) {
+        this.vertexOrdering = vertexOrdering;
+    }
+
+    public boolean isVertexIndex() {
+        return isVertexIndex;
+    }
+
+    public void setVertexIndex(boolean isVertexIndex) {
+        this.isVertexIndex = isVertexIndex;
+    }
+
+    public String getIndexedType() {
+        return indexedType;
+    }
+
+    public void setIndexedType(String indexedType) {
+        this.indexedType = indexedType;
+    }
+
+    public String getIndexedPropertyKey() {
+        return indexedPropertyKey;
+    }
+
+    public void setIndexedPropertyKey(String indexedPropertyKey) {
+        this.indexedPropertyKey = indexedPropertyKey;
+    }
+
     /**
      * Used during unit testing to check the equality of objects. This is used instead of
      * overriding the standard {@code equals()} and {@code hashCode()} methods.
@@ -167,7 +216,12 @@ public class StructuredQuery implements AbstractStructuredQuery {
         }
         if (!(a.queryOperation == b.queryOperation &&
             Objects.equals(a.continuousMatchAction, b.continuousMatchAction) &&
-            Objects.equals(a.filePath, b.filePath))) {
+            Objects.equals(a.filePath, b.filePath) &&
+            Objects.equals(a.vertexFilePath, b.vertexFilePath) &&
+            a.vertexOrdering == b.vertexOrdering &&
+            a.isVertexIndex == b.isVertexIndex &&
+            Objects.equals(a.indexedType, b.indexedType) &&
+            Objects.equals(a.indexedPropertyKey, b.indexedPropertyKey))) {
             return false;
         }
         if (a.queryVariables.size() != b.queryVariables.size()) {
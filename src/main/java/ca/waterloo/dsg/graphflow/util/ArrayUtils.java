@@ -36,6 +36,14 @@ public class ArrayUtils {
             array.length, minCapacity)) : array;
     }
 
+    /**
+     * @see #resizeIfNecessary(Object[], int)
+     */
+    public static long[][] resizeIfNecessary(long[][] array, int minCapacity) {
+        return (minCapacity > array.length) ? Arrays.copyOf(array, ArrayUtils.getNewCapacity(
+            array.length, minCapacity)) : array;
+    }
+
     /**
      * @param defaultValue default value to fill the new cells in the array when resizing.
      *
@@ -53,6 +61,14 @@ public class ArrayUtils {
         return newArray;
     }
 
+    /**
+     * @see #resizeIfNecessary(Object[], int)
+     */
+    public static double[][] resizeIfNecessary(double[][] array, int minCapacity) {
+        return (minCapacity > array.length) ? Arrays.copyOf(array, ArrayUtils.getNewCapacity(
+            array.length, minCapacity)) : array;
+    }
+
     /**
      * @param defaultValue default value to fill the new cells in the array when resizing.
      *
@@ -102,6 +118,14 @@ public class ArrayUtils {
             array.length, minCapacity)) : array;
     }
 
+    /**
+     * @see #resizeIfNecessary(Object[], int)
+     */
+    public static byte[] resizeIfNecessary(byte[] array, int minCapacity) {
+        return (minCapacity > array.length) ? Arrays.copyOf(array, ArrayUtils.getNewCapacity(
+            array.length, minCapacity)) : array;
+    }
+
     private static int getNewCapacity(int oldCapacity, int minCapacity) {
         int newCapacity = (int) (oldCapacity * RESIZE_MULTIPLIER) + 1;
         // Check if {@code newCapacity} > {@code minCapacity} before returning.
@@ -227,6 +227,24 @@ public enum DataType {
         return value;
     }
 
+    /**
+     * Deserializes the {@code byte[]} passed into a double relying on the start index and the
+     * size of a double in bytes (8).
+     *
+     * @param data The byte array containing the Double to deserialize.
+     * @param startIndex Index to start deserializing at from the {@code byte[]} data.
+     *
+     * @return The deserialized bytes as a double.
+     */
+    public static double deserializeDouble(byte[] data, int startIndex) {
+        long value = 0;
+        for (int i = 0; i < Double.BYTES; i++) {
+            value <<= Byte.SIZE;
+            value |= (data[startIndex + i] & 0xFF);
+        }
+        return Double.longBitsToDouble(value);
+    }
+
     public static Object parseDataType(DataType dataType, String value) {
         assertValueCanBeCastToDataType(dataType, value);
         if (INTEGER == dataType) {
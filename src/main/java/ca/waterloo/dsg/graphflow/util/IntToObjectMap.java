@@ -0,0 +1,146 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@code int} keys to objects. The map is an open-addressing hash table with linear
+ * probing over an {@code int[]} of keys and an {@code Object[]} of values, so {@link #get(int)},
+ * {@link #containsKey(int)} and {@link #put(int, Object)} of an existing key do not box the key
+ * or allocate any objects. {@code null} values are not allowed.
+ *
+ * @param <V> The type of the values.
+ */
+public class IntToObjectMap<V> {
+
+    private static final int INITIAL_LOG_CAPACITY = 4;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private int[] keys;
+    private Object[] values;
+    private int logCapacity;
+    private int size;
+
+    /**
+     * Creates an empty {@link IntToObjectMap}.
+     */
+    public IntToObjectMap() {
+        init(INITIAL_LOG_CAPACITY);
+    }
+
+    /**
+     * @param key The key.
+     *
+     * @return The value of the given {@code key}, or {@code null} if the {@code key} is not in the
+     * map.
+     */
+    @SuppressWarnings("unchecked") // The values are only set by {@link #put(int, Object)}.
+    public V get(int key) {
+        return (V) values[findSlot(key)];
+    }
+
+    /**
+     * @param key The key.
+     *
+     * @return {@code true} if the given {@code key} is in the map, {@code false} otherwise.
+     */
+    public boolean containsKey(int key) {
+        return null != values[findSlot(key)];
+    }
+
+    /**
+     * Sets the value of the given {@code key}.
+     *
+     * @param key The key.
+     * @param value The value, which cannot be {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code value} passed is {@code null}.
+     */
+    public void put(int key, V value) {
+        if (null == value) {
+            throw new IllegalArgumentException("The value parameter passed is null.");
+        }
+        int slot = findSlot(key);
+        if (null == values[slot]) {
+            // Keep the load factor of the hash table at most 0.5.
+            if (2 * (size + 1) > keys.length) {
+                rehash();
+                slot = findSlot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @return The number of keys in the map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@code true} if the map has no keys, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    /**
+     * Removes all the keys from the map. The capacity of the map is kept, so a map that is filled
+     * and cleared repeatedly does not reallocate its arrays.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * @return A new array with the keys of the map, sorted in increasing order.
+     */
+    public int[] getSortedKeys() {
+        int[] sortedKeys = new int[size];
+        int numKeys = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (null != values[slot]) {
+                sortedKeys[numKeys++] = keys[slot];
+            }
+        }
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    private void init(int newLogCapacity) {
+        logCapacity = newLogCapacity;
+        keys = new int[1 << logCapacity];
+        values = new Object[1 << logCapacity];
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        init(logCapacity + 1);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (null != oldValues[slot]) {
+                int newSlot = findSlot(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    /**
+     * @return The slot of the hash table that holds the given {@code key}, or the empty slot where
+     * it should be inserted if it is not in the map. The empty slots have a {@code null} value.
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = (key * HASH_MULTIPLIER) >>> (32 - logCapacity);
+        while (null != values[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
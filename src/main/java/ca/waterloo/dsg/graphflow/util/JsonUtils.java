@@ -27,4 +27,11 @@ public class JsonUtils {
     public static String DIRECTION = "direction";
     public static String EDGE_TYPE = "edgeType";
     public static String STAGES = "stages";
+
+    public static String STATISTICS = "statistics";
+    public static String NUM_EDGES = "numEdges";
+    public static String NUM_VERTICES_WITH_EDGES = "numVerticesWithEdges";
+    public static String AVERAGE_FAN_OUT = "averageFanOut";
+    public static String ESTIMATED_STAGE_COSTS = "estimatedStageCosts";
+    public static String ESTIMATED_STAGE_NUM_PREFIXES = "estimatedStageNumPrefixes";
 }
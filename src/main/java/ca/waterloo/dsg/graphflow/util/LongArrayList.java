@@ -38,6 +38,15 @@ public class LongArrayList {
         return data[index];
     }
 
+    /**
+     * Removes the last long of the list.
+     *
+     * @return The removed long.
+     */
+    public long removeLast() {
+        return data[--size];
+    }
+
     public int getSize() {
         return size;
     }
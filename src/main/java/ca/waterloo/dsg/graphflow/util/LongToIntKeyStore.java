@@ -0,0 +1,173 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Stores a mapping of {@code long} keys to {@code int} keys and vice versa. Each new {@code long}
+ * key inserted gets a consecutively increasing int key starting from 0.
+ * <p>
+ * The {@code long} keys are stored once, in the {@code intToLongMap} array indexed by their int
+ * keys. The {@code long} to {@code int} direction is an open-addressing hash table with linear
+ * probing whose slots store int keys, so the store does not box its keys and its memory is
+ * linear in the number of keys, regardless of how large or sparse the {@code long} keys are.
+ */
+public class LongToIntKeyStore {
+
+    private static final int EMPTY_SLOT = -1;
+    private static final int INITIAL_LOG_CAPACITY = 4;
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long[] intToLongMap = new long[1 << INITIAL_LOG_CAPACITY];
+    private int[] slots;
+    private int logCapacity;
+    private int nextKeyAsInt = 0;
+
+    /**
+     * Creates an empty {@link LongToIntKeyStore}.
+     */
+    public LongToIntKeyStore() {
+        initSlots(INITIAL_LOG_CAPACITY + 1);
+    }
+
+    /**
+     * @param longKey The {@code long} key.
+     *
+     * @return The {@code int} mapping of the given {@code long} key.
+     */
+    public int getKeyAsIntOrInsert(long longKey) {
+        int slot = findSlot(longKey);
+        if (EMPTY_SLOT != slots[slot]) {
+            return slots[slot];
+        }
+        intToLongMap = ArrayUtils.resizeIfNecessary(intToLongMap, nextKeyAsInt + 1, 0);
+        intToLongMap[nextKeyAsInt] = longKey;
+        slots[slot] = nextKeyAsInt;
+        // Keep the load factor of the hash table at most 0.5.
+        if (2 * (nextKeyAsInt + 1) > slots.length) {
+            initSlots(logCapacity + 1);
+            insertAllKeys(nextKeyAsInt + 1);
+        }
+        return nextKeyAsInt++;
+    }
+
+    /**
+     * @param longKey The {@code long} key.
+     *
+     * @return The {@code int} mapping of the given {@code long} key or -1 if the {@code longKey}
+     * is not in the store.
+     */
+    public int mapLongKeyToInt(long longKey) {
+        return slots[findSlot(longKey)];
+    }
+
+    /**
+     * @param intKey The {@code int} key.
+     *
+     * @return The {@code long} mapping of the given {@code int} key.
+     *
+     * @throws NoSuchElementException if {@code intKey} passed is not present in the key store.
+     */
+    public long mapIntKeyToLong(int intKey) {
+        if (intKey < 0 || intKey >= nextKeyAsInt) {
+            throw new NoSuchElementException("The int " + intKey + " is not present in the key " +
+                "store.");
+        }
+        return intToLongMap[intKey];
+    }
+
+    /**
+     * @return The number of keys in the store.
+     */
+    public int getSize() {
+        return nextKeyAsInt;
+    }
+
+    /**
+     * Serializes data to the given {@link ObjectOutputStream}. Only the {@code long} keys are
+     * written, and the hash table is rebuilt from them by {@link #deserialize(ObjectInputStream)}.
+     *
+     * @param objectOutputStream The {@link ObjectOutputStream} to write serialized data to.
+     */
+    public void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        objectOutputStream.writeInt(nextKeyAsInt);
+        for (int i = 0; i < nextKeyAsInt; i++) {
+            objectOutputStream.writeLong(intToLongMap[i]);
+        }
+    }
+
+    /**
+     * Deserializes data from the given {@link ObjectInputStream}.
+     *
+     * @param objectInputStream The {@link ObjectInputStream} to read serialized data from.
+     */
+    public void deserialize(ObjectInputStream objectInputStream) throws IOException {
+        nextKeyAsInt = objectInputStream.readInt();
+        intToLongMap = new long[Integer.max(nextKeyAsInt, 1 << INITIAL_LOG_CAPACITY)];
+        for (int i = 0; i < nextKeyAsInt; i++) {
+            intToLongMap[i] = objectInputStream.readLong();
+        }
+        int newLogCapacity = INITIAL_LOG_CAPACITY + 1;
+        while (2 * nextKeyAsInt > (1 << newLogCapacity)) {
+            newLogCapacity++;
+        }
+        initSlots(newLogCapacity);
+        insertAllKeys(nextKeyAsInt);
+    }
+
+    private void initSlots(int newLogCapacity) {
+        logCapacity = newLogCapacity;
+        slots = new int[1 << logCapacity];
+        Arrays.fill(slots, EMPTY_SLOT);
+    }
+
+    private void insertAllKeys(int numKeys) {
+        for (int intKey = 0; intKey < numKeys; intKey++) {
+            slots[findSlot(intToLongMap[intKey])] = intKey;
+        }
+    }
+
+    /**
+     * @return The slot of the hash table that holds the given {@code longKey}, or the empty slot
+     * where it should be inserted if it is not in the store.
+     */
+    private int findSlot(long longKey) {
+        int mask = slots.length - 1;
+        int slot = (int) ((longKey * HASH_MULTIPLIER) >>> (64 - logCapacity));
+        while (EMPTY_SLOT != slots[slot] && intToLongMap[slots[slot]] != longKey) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(LongToIntKeyStore a, LongToIntKeyStore b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        if (a.nextKeyAsInt != b.nextKeyAsInt) {
+            return false;
+        }
+        for (int i = 0; i < a.nextKeyAsInt; i++) {
+            if (a.intToLongMap[i] != b.intToLongMap[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import java.util.Arrays;
+
+/**
+ * An immutable compressed bitmap of {@code int} values in the style of Roaring bitmaps. The values
+ * are partitioned into chunks by their high 16 bits, and the low 16 bits of the values of each
+ * chunk are stored in a container, which is a sorted {@code char[]} if the chunk has at most
+ * {@link #MAX_ARRAY_CONTAINER_SIZE} values and a bitmap of 2^16 bits otherwise. Sparse chunks use
+ * 2 bytes per value and dense chunks at most 8KB, and {@link #contains(int)} is a binary search
+ * over the chunks followed by a probe of one container, so a lookup is cheap regardless of the
+ * number of values.
+ * <p>
+ * Values are compared as unsigned integers. Bitmaps are built with a {@link Builder}.
+ */
+public class RoaringBitmap {
+
+    static final int MAX_ARRAY_CONTAINER_SIZE = 4096;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // The high 16 bits of the values of each chunk, in increasing order.
+    private final char[] keys;
+    // The container of chunk i is either {@code arrayContainers[i]} or {@code bitmapContainers[i]},
+    // and the other one is {@code null}.
+    private final char[][] arrayContainers;
+    private final long[][] bitmapContainers;
+    private final int cardinality;
+
+    private RoaringBitmap(char[] keys, char[][] arrayContainers, long[][] bitmapContainers,
+        int cardinality) {
+        this.keys = keys;
+        this.arrayContainers = arrayContainers;
+        this.bitmapContainers = bitmapContainers;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * @param value The value to look up.
+     *
+     * @return {@code true} if the bitmap contains the given {@code value}, {@code false}
+     * otherwise.
+     */
+    public boolean contains(int value) {
+        int chunk = Arrays.binarySearch(keys, (char) (value >>> 16));
+        if (chunk < 0) {
+            return false;
+        }
+        char lowBits = (char) value;
+        if (null != bitmapContainers[chunk]) {
+            return 0 != (bitmapContainers[chunk][lowBits >>> 6] & (1L << lowBits));
+        }
+        return Arrays.binarySearch(arrayContainers[chunk], lowBits) > -1;
+    }
+
+    /**
+     * @return The number of distinct values in the bitmap.
+     */
+    public int getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return The approximate number of bytes used by the containers of the bitmap.
+     */
+    public long getMemoryUsageInBytes() {
+        long numBytes = keys.length * Character.BYTES;
+        for (int i = 0; i < keys.length; i++) {
+            numBytes += (null != bitmapContainers[i]) ? bitmapContainers[i].length * Long.BYTES :
+                arrayContainers[i].length * Character.BYTES;
+        }
+        return numBytes;
+    }
+
+    /**
+     * @return The number of chunks stored as bitmap containers.
+     */
+    @VisibleForTesting
+    int getNumBitmapContainers() {
+        int numBitmapContainers = 0;
+        for (long[] bitmapContainer : bitmapContainers) {
+            if (null != bitmapContainer) {
+                numBitmapContainers++;
+            }
+        }
+        return numBitmapContainers;
+    }
+
+    /**
+     * Builds a {@link RoaringBitmap} from values given in increasing unsigned order. Duplicate
+     * values are stored once.
+     */
+    public static class Builder {
+
+        private char[] keys = new char[1];
+        private char[][] arrayContainers = new char[1][];
+        private long[][] bitmapContainers = new long[1][];
+        private int numChunks;
+        private int cardinality;
+        // The low 16 bits of the values of the current chunk, which is not yet stored in a
+        // container.
+        private char[] chunkValues = new char[16];
+        private int chunkSize;
+        private int chunkKey = -1;
+
+        /**
+         * Adds a value to the bitmap.
+         *
+         * @param value The value, which should be larger than or equal to the previous one in
+         * unsigned order.
+         *
+         * @throws IllegalArgumentException If {@code value} is smaller than the previous value.
+         */
+        public void add(int value) {
+            int key = value >>> 16;
+            if (key != chunkKey) {
+                if (key < chunkKey) {
+                    throw new IllegalArgumentException("Values should be added in increasing "
+                        + "order.");
+                }
+                storeChunk();
+                chunkKey = key;
+            }
+            char lowBits = (char) value;
+            if (chunkSize > 0) {
+                if (lowBits < chunkValues[chunkSize - 1]) {
+                    throw new IllegalArgumentException("Values should be added in increasing "
+                        + "order.");
+                } else if (lowBits == chunkValues[chunkSize - 1]) {
+                    return;
+                }
+            }
+            if (chunkSize == chunkValues.length) {
+                chunkValues = Arrays.copyOf(chunkValues, Integer.min(CHUNK_SIZE, chunkSize * 2));
+            }
+            chunkValues[chunkSize++] = lowBits;
+        }
+
+        /**
+         * @return The {@link RoaringBitmap} of the values added so far.
+         */
+        public RoaringBitmap build() {
+            storeChunk();
+            chunkKey = -1;
+            return new RoaringBitmap(Arrays.copyOf(keys, numChunks), Arrays.copyOf(
+                arrayContainers, numChunks), Arrays.copyOf(bitmapContainers, numChunks),
+                cardinality);
+        }
+
+        /**
+         * Stores the values of the current chunk in the smaller of the two kinds of containers.
+         */
+        private void storeChunk() {
+            if (0 == chunkSize) {
+                return;
+            }
+            if (numChunks == keys.length) {
+                keys = Arrays.copyOf(keys, numChunks * 2);
+                arrayContainers = Arrays.copyOf(arrayContainers, numChunks * 2);
+                bitmapContainers = Arrays.copyOf(bitmapContainers, numChunks * 2);
+            }
+            keys[numChunks] = (char) chunkKey;
+            if (chunkSize > MAX_ARRAY_CONTAINER_SIZE) {
+                long[] bitmapContainer = new long[CHUNK_SIZE / Long.SIZE];
+                for (int i = 0; i < chunkSize; i++) {
+                    bitmapContainer[chunkValues[i] >>> 6] |= 1L << chunkValues[i];
+                }
+                bitmapContainers[numChunks] = bitmapContainer;
+            } else {
+                arrayContainers[numChunks] = Arrays.copyOf(chunkValues, chunkSize);
+            }
+            numChunks++;
+            cardinality += chunkSize;
+            chunkSize = 0;
+        }
+    }
+}
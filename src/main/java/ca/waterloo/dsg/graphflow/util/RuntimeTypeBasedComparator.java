@@ -75,7 +75,22 @@ public class RuntimeTypeBasedComparator {
 
     private static <T extends Comparable<T>> boolean compare(T operand1, T operand2,
         ComparisonOperator comparisonOperator) {
-        int result = operand1.compareTo(operand2);
+        return isSatisfied(operand1.compareTo(operand2), comparisonOperator);
+    }
+
+    /**
+     * Used to compare primitive operands without boxing them, e.g., with {@link
+     * Integer#compare(int, int)}.
+     *
+     * @param result the result of comparing two operands, which is negative, zero or positive if
+     * the first operand is less than, equal to or greater than the second operand.
+     * @param comparisonOperator an {@link ComparisonOperator} that represents the comparison
+     * operator performed on the operands.
+     *
+     * @return {@code true} if the comparison with the given {@code result} satisfies the {@code
+     * comparisonOperator}.
+     */
+    public static boolean isSatisfied(int result, ComparisonOperator comparisonOperator) {
         switch (comparisonOperator) {
             case EQUALS:
                 return result == 0;
@@ -50,6 +50,18 @@ public class ShortArrayList {
         }
     }
 
+    /**
+     * Resizes the underlying array, if necessary, so that the indices up to {@code capacity} - 1
+     * can be set without resizing it again.
+     *
+     * @param capacity The minimum capacity of the underlying array.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            data = Arrays.copyOf(data, capacity);
+        }
+    }
+
     /**
      * Returns the value at the specified index.
      *
@@ -71,8 +83,7 @@ public class ShortArrayList {
         return size;
     }
 
-    @VisibleForTesting
-    short[] toArray() {
+    public short[] toArray() {
         return Arrays.copyOf(data, size);
     }
 
@@ -0,0 +1,133 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores a mapping of the {@code String} values of a property key to {@code int} codes and vice
+ * versa, with the UTF-8 bytes of each value. Each new value inserted gets a consecutively
+ * increasing code starting from 0, until the dictionary has {@link #MAX_SIZE} values. The
+ * dictionary then stops growing, so the keys with many distinct values, e.g. names, only encode
+ * their first {@link #MAX_SIZE} values and the keys with few distinct values, e.g. countries or
+ * statuses, encode all of them. Values longer than {@link #MAX_VALUE_LENGTH} chars, which rarely
+ * repeat, are never inserted.
+ */
+public class StringDictionary extends StringToIntKeyMap {
+
+    public static final int MAX_SIZE = 1 << 12;
+    public static final int MAX_VALUE_LENGTH = 64;
+    private static final int DEFAULT_CAPACITY = 2;
+    private String[] codeToStringMap = new String[DEFAULT_CAPACITY];
+    private byte[][] codeToBytesMap = new byte[DEFAULT_CAPACITY][];
+
+    /**
+     * @see StringToIntKeyMap#adjustOtherDataStructures(String, int).
+     */
+    protected void adjustOtherDataStructures(String newStringKey, int newIntKey) {
+        codeToStringMap = (String[]) ArrayUtils.resizeIfNecessary(codeToStringMap,
+            nextKeyAsInt + 1);
+        codeToBytesMap = ArrayUtils.resizeIfNecessary(codeToBytesMap, nextKeyAsInt + 1);
+        codeToStringMap[nextKeyAsInt] = newStringKey;
+        codeToBytesMap[nextKeyAsInt] = newStringKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param value A {@code String} value.
+     *
+     * @return The code of the given {@code value}, which is inserted if it is not in the
+     * dictionary yet, or -1 if it is not in the dictionary and the dictionary is full or the
+     * value is too long.
+     *
+     * @throws IllegalArgumentException if {@code value} passed is {@code null}.
+     */
+    public int getCodeOrInsert(String value) {
+        if (nextKeyAsInt >= MAX_SIZE || (null != value && value.length() > MAX_VALUE_LENGTH)) {
+            return getCode(value);
+        }
+        return getKeyAsIntOrInsert(value);
+    }
+
+    /**
+     * @param value A {@code String} value.
+     *
+     * @return The code of the given {@code value}, or -1 if it is not in the dictionary.
+     *
+     * @throws IllegalArgumentException if {@code value} passed is {@code null}.
+     */
+    public int getCode(String value) {
+        Integer code = mapStringKeyToInt(value);
+        return (null == code) ? -1 : code;
+    }
+
+    /**
+     * @return The value of the given {@code code}, which must be in the dictionary.
+     */
+    public String getString(int code) {
+        return codeToStringMap[code];
+    }
+
+    /**
+     * @return The UTF-8 bytes of the value of the given {@code code}, which must be in the
+     * dictionary. The bytes must not be modified.
+     */
+    public byte[] getBytes(int code) {
+        return codeToBytesMap[code];
+    }
+
+    /**
+     * @return The number of values in the dictionary, whose codes are [0, size).
+     */
+    public int getSize() {
+        return nextKeyAsInt;
+    }
+
+    /**
+     * Serializes data to the given {@link ObjectOutputStream}.
+     *
+     * @param objectOutputStream The {@link ObjectOutputStream} to write serialized data to.
+     */
+    public void serialize(ObjectOutputStream objectOutputStream) throws IOException {
+        super.serialize(objectOutputStream);
+        objectOutputStream.writeObject(Arrays.copyOf(codeToStringMap, nextKeyAsInt));
+    }
+
+    /**
+     * Deserializes data from the given {@link ObjectInputStream}. The bytes of the values are
+     * recomputed from the values.
+     *
+     * @param objectInputStream The {@link ObjectInputStream} to read serialized data from.
+     */
+    public void deserialize(ObjectInputStream objectInputStream) throws IOException,
+        ClassNotFoundException {
+        super.deserialize(objectInputStream);
+        codeToStringMap = (String[]) objectInputStream.readObject();
+        codeToBytesMap = new byte[codeToStringMap.length][];
+        for (int code = 0; code < codeToStringMap.length; code++) {
+            codeToBytesMap[code] = codeToStringMap[code].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Used during unit testing to check the equality of objects. This is used instead of
+     * overriding the standard {@code equals()} and {@code hashCode()} methods.
+     *
+     * @param a One of the objects.
+     * @param b The other object.
+     *
+     * @return {@code true} if {@code a}'s values are the same as {@code b}'s.
+     */
+    @UsedOnlyByTests
+    public static boolean isSameAs(StringDictionary a, StringDictionary b) {
+        if (a == b) {
+            return true;
+        }
+        if (null == a || null == b) {
+            return false;
+        }
+        return Arrays.equals(Arrays.copyOf(a.codeToStringMap, a.nextKeyAsInt), Arrays.copyOf(
+            b.codeToStringMap, b.nextKeyAsInt)) && StringToIntKeyMap.isSameAs(a, b);
+    }
+}
@@ -0,0 +1,469 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Tests {@link CSRAdjacencyLists}.
+ */
+public class CSRAdjacencyListsTest {
+
+    // Special JUnit defined temporary folder used to test I/O operations on files. Requires
+    // {@code public} visibility.
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SortedAdjacencyList getPopulatedAdjacencyList(int[] neighbourIds,
+        short[] neighbourTypes, long[] neighbourEdgeIds) {
+        SortedAdjacencyList adjacencyList = new SortedAdjacencyList();
+        for (int i = 0; i < neighbourIds.length; i++) {
+            adjacencyList.add(neighbourIds[i], neighbourTypes[i], neighbourEdgeIds[i]);
+        }
+        return adjacencyList;
+    }
+
+    private AdjacencyListDelta getPopulatedAdjacencyListDelta(int[] neighbourIds,
+        short[] neighbourTypes, long[] neighbourEdgeIds) {
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        for (int i = 0; i < neighbourIds.length; i++) {
+            delta.add(neighbourIds[i], neighbourTypes[i], neighbourEdgeIds[i]);
+        }
+        return delta;
+    }
+
+    private CSRAdjacencyLists getPopulatedCSRAdjacencyLists() {
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        adjListDeltas.put(0, getPopulatedAdjacencyListDelta(new int[]{3, 1, 2}, new short[]{0, 1,
+            0}, new long[]{0, 1, 2}));
+        adjListDeltas.put(2, getPopulatedAdjacencyListDelta(new int[]{0, 0}, new short[]{4, 2},
+            new long[]{3, 4}));
+        adjListDeltas.put(3, getPopulatedAdjacencyListDelta(new int[]{1}, new short[]{1},
+            new long[]{5}));
+        return new CSRAdjacencyLists().merge(adjListDeltas, 4 /* numVertices */);
+    }
+
+    @Test
+    public void testMergeIntoEmpty() {
+        CSRAdjacencyLists csrAdjLists = getPopulatedCSRAdjacencyLists();
+        Assert.assertEquals(4, csrAdjLists.getNumVertices());
+        Assert.assertEquals(6, csrAdjLists.getNumEdges());
+        Assert.assertArrayEquals(new int[]{3, 0, 2, 1}, new int[]{csrAdjLists.getSize(0),
+            csrAdjLists.getSize(1), csrAdjLists.getSize(2), csrAdjLists.getSize(3)});
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{1, 2,
+            3}, new short[]{1, 0, 0}, new long[]{1, 2, 0}), csrAdjLists.getAdjacencyList(0)));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{0, 0},
+            new short[]{2, 4}, new long[]{4, 3}), csrAdjLists.getAdjacencyList(2)));
+        // Vertices that are not stored have empty adjacency lists.
+        Assert.assertEquals(0, csrAdjLists.getSize(10));
+        Assert.assertEquals(0, csrAdjLists.getAdjacencyList(10).getSize());
+    }
+
+    @Test
+    public void testMergeKeepsUnchangedVerticesAndOriginal() {
+        CSRAdjacencyLists csrAdjLists = getPopulatedCSRAdjacencyLists();
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        AdjacencyListDelta delta = getPopulatedAdjacencyListDelta(new int[]{5}, new short[]{0},
+            new long[]{6});
+        delta.delete(0, (short) 4, csrAdjLists.getAdjacencyList(2));
+        adjListDeltas.put(2, delta);
+        adjListDeltas.put(5, getPopulatedAdjacencyListDelta(new int[]{2}, new short[]{0},
+            new long[]{6}));
+        CSRAdjacencyLists mergedAdjLists = csrAdjLists.merge(adjListDeltas, 6);
+        Assert.assertEquals(6, mergedAdjLists.getNumVertices());
+        Assert.assertEquals(7, mergedAdjLists.getNumEdges());
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(csrAdjLists.getAdjacencyList(0),
+            mergedAdjLists.getAdjacencyList(0)));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(csrAdjLists.getAdjacencyList(3),
+            mergedAdjLists.getAdjacencyList(3)));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{0, 5},
+            new short[]{2, 0}, new long[]{4, 6}), mergedAdjLists.getAdjacencyList(2)));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{2},
+            new short[]{0}, new long[]{6}), mergedAdjLists.getAdjacencyList(5)));
+        Assert.assertEquals(0, mergedAdjLists.getSize(4));
+        // The original lists are not modified by the merge.
+        Assert.assertEquals(2, csrAdjLists.getSize(2));
+        Assert.assertEquals(6, csrAdjLists.getNumEdges());
+    }
+
+    @Test
+    public void testParallelMergeOfLargeDeltas() {
+        // Enough edges for the merge to be split into multiple ranges merged in parallel.
+        int numVertices = 20_000;
+        int numEdgesPerVertex = 15;
+        Random random = new Random(0 /* seed */);
+        SortedAdjacencyList[] expectedAdjLists = new SortedAdjacencyList[numVertices + 1];
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        long edgeId = 0;
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            expectedAdjLists[vertexId] = new SortedAdjacencyList();
+            AdjacencyListDelta delta = new AdjacencyListDelta();
+            for (int i = 0; i < numEdgesPerVertex; i++) {
+                int neighbourId = random.nextInt(numVertices);
+                short edgeType = (short) random.nextInt(3);
+                expectedAdjLists[vertexId].add(neighbourId, edgeType, edgeId);
+                delta.add(neighbourId, edgeType, edgeId++);
+            }
+            adjListDeltas.put(vertexId, delta);
+        }
+        CSRAdjacencyLists csrAdjLists = new CSRAdjacencyLists().merge(adjListDeltas, numVertices);
+        assertSameAdjacencyLists(expectedAdjLists, csrAdjLists, numVertices);
+
+        // Change every third vertex, and add a new vertex.
+        adjListDeltas = new IntToObjectMap<>();
+        for (int vertexId = 0; vertexId < numVertices; vertexId += 3) {
+            AdjacencyListDelta delta = new AdjacencyListDelta();
+            SortedAdjacencyList permanentAdjList = csrAdjLists.getAdjacencyList(vertexId);
+            int neighbourId = permanentAdjList.getNeighbourId(0);
+            short edgeType = permanentAdjList.getEdgeType(0);
+            delta.delete(neighbourId, edgeType, csrAdjLists.getAdjacencyList(vertexId, edgeType));
+            expectedAdjLists[vertexId].removeNeighbour(neighbourId, edgeType);
+            delta.add(numVertices, (short) 4, edgeId);
+            expectedAdjLists[vertexId].add(numVertices, (short) 4, edgeId++);
+            adjListDeltas.put(vertexId, delta);
+        }
+        expectedAdjLists[numVertices] = getPopulatedAdjacencyList(new int[]{0}, new short[]{1},
+            new long[]{edgeId});
+        adjListDeltas.put(numVertices, getPopulatedAdjacencyListDelta(new int[]{0},
+            new short[]{1}, new long[]{edgeId}));
+        CSRAdjacencyLists mergedAdjLists = csrAdjLists.merge(adjListDeltas, numVertices + 1);
+        assertSameAdjacencyLists(expectedAdjLists, mergedAdjLists, numVertices + 1);
+    }
+
+    @Test
+    public void testMergeSharesPartitionsWithoutChanges() throws IOException {
+        // Vertex v has the edge v->v+1 of type v % 2, over three partitions.
+        int numVertices = 3 * CSRAdjacencyLists.PARTITION_SIZE;
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            adjListDeltas.put(vertexId, getPopulatedAdjacencyListDelta(new int[]{vertexId + 1},
+                new short[]{(short) (vertexId % 2)}, new long[]{vertexId}));
+        }
+        CSRAdjacencyLists csrAdjLists = new CSRAdjacencyLists().merge(adjListDeltas, numVertices);
+        int changedVertexId = CSRAdjacencyLists.PARTITION_SIZE + 5;
+        adjListDeltas = new IntToObjectMap<>();
+        adjListDeltas.put(changedVertexId, getPopulatedAdjacencyListDelta(new int[]{0},
+            new short[]{1}, new long[]{numVertices}));
+        CSRAdjacencyLists mergedAdjLists = csrAdjLists.merge(adjListDeltas, numVertices);
+        Assert.assertTrue(CSRAdjacencyLists.isPartitionShared(csrAdjLists, mergedAdjLists, 0));
+        Assert.assertFalse(CSRAdjacencyLists.isPartitionShared(csrAdjLists, mergedAdjLists,
+            changedVertexId));
+        Assert.assertTrue(CSRAdjacencyLists.isPartitionShared(csrAdjLists, mergedAdjLists,
+            numVertices - 1));
+        Assert.assertEquals(numVertices + 1, mergedAdjLists.getNumEdges());
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{0,
+            changedVertexId + 1}, new short[]{1, 1}, new long[]{numVertices, changedVertexId}),
+            mergedAdjLists.getAdjacencyList(changedVertexId)));
+        // The indices of the columns are shifted by the new edge after the changed vertex.
+        int lastVertexId = numVertices - 1;
+        Assert.assertEquals(lastVertexId + 1, mergedAdjLists.getStartIndex(lastVertexId));
+        Assert.assertEquals(lastVertexId + 1, mergedAdjLists.getNeighbourId(lastVertexId,
+            0 /* offset */));
+        Assert.assertEquals(lastVertexId, mergedAdjLists.getEdgeId(lastVertexId, 0 /* offset */));
+        Assert.assertEquals(1, mergedAdjLists.getEdgeType(lastVertexId, 0 /* offset */));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(mergedAdjLists, mergedAdjLists.compress()));
+        CSRAdjacencyLists mappedAdjLists = mergedAdjLists.mapToFile(temporaryFolder.newFile());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(mergedAdjLists, mappedAdjLists));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(mergedAdjLists, mappedAdjLists.
+            loadIntoHeap()));
+        mappedAdjLists.deleteStorageFile();
+    }
+
+    @Test
+    public void testCompressedMergeSharesPartitionsWithoutChanges() {
+        // Vertex v has the edge v->v+1 of type v % 2, over three partitions.
+        int numVertices = 3 * CSRAdjacencyLists.PARTITION_SIZE;
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            adjListDeltas.put(vertexId, getPopulatedAdjacencyListDelta(new int[]{vertexId + 1},
+                new short[]{(short) (vertexId % 2)}, new long[]{vertexId}));
+        }
+        CSRAdjacencyLists csrAdjLists = new CSRAdjacencyLists().merge(adjListDeltas,
+            numVertices);
+        CSRAdjacencyLists compressedAdjLists = csrAdjLists.compress();
+        int changedVertexId = CSRAdjacencyLists.PARTITION_SIZE + 5;
+        adjListDeltas = new IntToObjectMap<>();
+        adjListDeltas.put(changedVertexId, getPopulatedAdjacencyListDelta(new int[]{0},
+            new short[]{1}, new long[]{numVertices}));
+        CSRAdjacencyLists mergedAdjLists = compressedAdjLists.merge(adjListDeltas, numVertices);
+        Assert.assertTrue(mergedAdjLists.isCompressed());
+        Assert.assertTrue(CSRAdjacencyLists.isPartitionShared(compressedAdjLists, mergedAdjLists,
+            0));
+        Assert.assertFalse(CSRAdjacencyLists.isPartitionShared(compressedAdjLists,
+            mergedAdjLists, changedVertexId));
+        Assert.assertTrue(CSRAdjacencyLists.isPartitionShared(compressedAdjLists, mergedAdjLists,
+            numVertices - 1));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists.merge(adjListDeltas,
+            numVertices), mergedAdjLists));
+    }
+
+    private void assertSameAdjacencyLists(SortedAdjacencyList[] expectedAdjLists,
+        CSRAdjacencyLists csrAdjLists, int numVertices) {
+        Assert.assertEquals(numVertices, csrAdjLists.getNumVertices());
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            Assert.assertTrue(SortedAdjacencyList.isSameAs(expectedAdjLists[vertexId],
+                csrAdjLists.getAdjacencyList(vertexId)));
+            for (short edgeType = 0; edgeType < 5; edgeType++) {
+                Assert.assertEquals(expectedAdjLists[vertexId].getFilteredNeighbourIds(
+                    TypeAndPropertyKeyStore.ANY, edgeType, null /* no vertexTypes */).getSize(),
+                    csrAdjLists.getSize(vertexId, edgeType));
+            }
+        }
+    }
+
+    @Test
+    public void testViewSearch() {
+        SortedAdjacencyList view = getPopulatedCSRAdjacencyLists().getAdjacencyList(0);
+        Assert.assertEquals(1, view.search(2, (short) 0));
+        Assert.assertEquals(2, view.getEdgeId(2, (short) 0));
+        Assert.assertTrue(view.contains(3, (short) 0));
+        Assert.assertFalse(view.contains(3, (short) 1));
+        Assert.assertFalse(view.contains(0, (short) 0));
+        Assert.assertArrayEquals(new int[]{1, 2, 3}, view.getFilteredNeighbourIds(
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, null).toArray());
+    }
+
+    @Test
+    public void testMultiTypeViewMatchesCopy() {
+        // Vertex 7 has edges of 2 types to the neighbours 0, 2, 3, 4, 6, ... with the type 1 for
+        // the multiples of 3, and edges of both types to the multiples of 4.
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        long edgeId = 0;
+        for (int neighbourId = 0; neighbourId < 200; neighbourId++) {
+            if (0 == neighbourId % 2 || 0 == neighbourId % 3) {
+                delta.add(neighbourId, (short) ((0 == neighbourId % 3) ? 1 : 0), edgeId++);
+            }
+            if (0 == neighbourId % 4 && 0 != neighbourId % 3) {
+                delta.add(neighbourId, (short) 1, edgeId++);
+            }
+        }
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        adjListDeltas.put(7, delta);
+        SortedAdjacencyList view = new CSRAdjacencyLists().merge(adjListDeltas, 8).
+            getAdjacencyList(7);
+        Assert.assertTrue(view instanceof MultiTypeSortedAdjacencyList);
+        SortedAdjacencyList copy = new SortedAdjacencyList();
+        copy.addAll(view);
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(copy, view));
+        // Reading backwards restarts the cursors of the view.
+        for (int i = view.getSize() - 1; i >= 0; i -= 5) {
+            Assert.assertEquals(copy.getNeighbourId(i), view.getNeighbourId(i));
+            Assert.assertEquals(copy.getEdgeType(i), view.getEdgeType(i));
+            Assert.assertEquals(copy.getEdgeId(i), view.getEdgeId(i));
+        }
+        for (int neighbourId = -1; neighbourId <= 201; neighbourId++) {
+            for (short typeFilter = -1; typeFilter < 3; typeFilter++) {
+                Assert.assertEquals(copy.getEdgeId(neighbourId, typeFilter), view.getEdgeId(
+                    neighbourId, typeFilter));
+                for (int startIndex = 0; startIndex <= view.getSize(); startIndex += 11) {
+                    Assert.assertEquals(copy.search(neighbourId, typeFilter, startIndex),
+                        view.search(neighbourId, typeFilter, startIndex));
+                }
+            }
+        }
+        Assert.assertArrayEquals(copy.getFilteredNeighbourIds(TypeAndPropertyKeyStore.ANY,
+            (short) 1, null).toArray(), view.getFilteredNeighbourIds(TypeAndPropertyKeyStore.ANY,
+            (short) 1, null).toArray());
+        Assert.assertEquals(copy.toString(), view.toString());
+    }
+
+    @Test
+    public void testTypeSegments() {
+        CSRAdjacencyLists csrAdjLists = getPopulatedCSRAdjacencyLists();
+        // The range of vertex 0 is partitioned by edge types, and each segment is sorted by
+        // neighbour IDs.
+        Assert.assertArrayEquals(new int[]{2, 3, 1}, new int[]{csrAdjLists.getNeighbourId(0, 0),
+            csrAdjLists.getNeighbourId(0, 1), csrAdjLists.getNeighbourId(0, 2)});
+        Assert.assertArrayEquals(new short[]{0, 1}, csrAdjLists.getEdgeTypes(0));
+        Assert.assertEquals(2, csrAdjLists.getSize(0, (short) 0));
+        Assert.assertEquals(1, csrAdjLists.getSize(0, (short) 1));
+        Assert.assertEquals(0, csrAdjLists.getSize(0, (short) 2));
+        Assert.assertEquals(3, csrAdjLists.getSize(0, TypeAndPropertyKeyStore.ANY));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{2, 3},
+            new short[]{0, 0}, new long[]{2, 0}), csrAdjLists.getAdjacencyList(0, (short) 0)));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{0},
+            new short[]{4}, new long[]{3}), csrAdjLists.getAdjacencyList(2, (short) 4)));
+        Assert.assertEquals(0, csrAdjLists.getAdjacencyList(1, (short) 0).getSize());
+        Assert.assertEquals(0, csrAdjLists.getAdjacencyList(10, (short) 0).getSize());
+
+        // Deleting the only edge of a type removes its segment.
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        AdjacencyListDelta delta = getPopulatedAdjacencyListDelta(new int[]{0}, new short[]{3},
+            new long[]{6});
+        delta.delete(1, (short) 1, csrAdjLists.getAdjacencyList(0, (short) 1));
+        adjListDeltas.put(0, delta);
+        CSRAdjacencyLists mergedAdjLists = csrAdjLists.merge(adjListDeltas, 4);
+        Assert.assertArrayEquals(new short[]{0, 3}, mergedAdjLists.getEdgeTypes(0));
+        Assert.assertTrue(SortedAdjacencyList.isSameAs(getPopulatedAdjacencyList(new int[]{0, 2,
+            3}, new short[]{3, 0, 0}, new long[]{6, 2, 0}), mergedAdjLists.getAdjacencyList(0)));
+    }
+
+    @Test
+    public void testCompressedAdjacencyLists() {
+        // Each vertex has edges of up to 3 types to neighbours in increasing steps, so the edge
+        // types are interleaved and the segments span several blocks.
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        int numVertices = 20;
+        long edgeId = 0;
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            AdjacencyListDelta delta = new AdjacencyListDelta();
+            for (int i = 0; i < 10 * vertexId; i++) {
+                delta.add(vertexId + 5 * i, (short) (i % (1 + vertexId % 3)), edgeId++);
+            }
+            adjListDeltas.put(vertexId, delta);
+        }
+        CSRAdjacencyLists csrAdjLists = new CSRAdjacencyLists().merge(adjListDeltas, numVertices);
+        CSRAdjacencyLists compressedAdjLists = csrAdjLists.compress();
+        Assert.assertTrue(compressedAdjLists.isCompressed());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, compressedAdjLists));
+        Assert.assertTrue(compressedAdjLists.getMemoryUsageInBytes() < csrAdjLists.
+            getMemoryUsageInBytes());
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            for (short edgeType = -1; edgeType < 3; edgeType++) {
+                SortedAdjacencyList adjList = csrAdjLists.getAdjacencyList(vertexId, edgeType);
+                SortedAdjacencyList compressedAdjList = compressedAdjLists.getAdjacencyList(
+                    vertexId, edgeType);
+                Assert.assertTrue(SortedAdjacencyList.isSameAs(adjList, compressedAdjList));
+                // Searches return the same results for hits, misses and all start indices.
+                for (int neighbourId = 0; neighbourId < 5 * 10 * vertexId; neighbourId += 3) {
+                    for (short typeFilter = -1; typeFilter < 3; typeFilter++) {
+                        for (int startIndex = 0; startIndex <= adjList.getSize(); startIndex +=
+                            7) {
+                            Assert.assertEquals(adjList.search(neighbourId, typeFilter,
+                                startIndex), compressedAdjList.search(neighbourId, typeFilter,
+                                startIndex));
+                        }
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(csrAdjLists.getEdgeType(5, 25), compressedAdjLists.getEdgeType(5, 25));
+
+        // Merging into compressed adjacency lists keeps them compressed.
+        IntToObjectMap<AdjacencyListDelta> newAdjListDeltas = new IntToObjectMap<>();
+        AdjacencyListDelta delta = getPopulatedAdjacencyListDelta(new int[]{1, 3}, new short[]{3,
+            0}, new long[]{edgeId, edgeId + 1});
+        delta.delete(19, (short) 1, csrAdjLists.getAdjacencyList(14, (short) 1));
+        newAdjListDeltas.put(14, delta);
+        newAdjListDeltas.put(numVertices, getPopulatedAdjacencyListDelta(new int[]{0},
+            new short[]{0}, new long[]{edgeId + 2}));
+        CSRAdjacencyLists mergedCompressedAdjLists = compressedAdjLists.merge(newAdjListDeltas,
+            numVertices + 1);
+        Assert.assertTrue(mergedCompressedAdjLists.isCompressed());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists.merge(newAdjListDeltas,
+            numVertices + 1), mergedCompressedAdjLists));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(mergedCompressedAdjLists,
+            mergedCompressedAdjLists.decompress()));
+    }
+
+    @Test
+    public void testMappedAdjacencyLists() throws IOException {
+        CSRAdjacencyLists csrAdjLists = getPopulatedCSRAdjacencyLists();
+        File file = temporaryFolder.newFile();
+        CSRAdjacencyLists mappedAdjLists = csrAdjLists.mapToFile(file);
+        Assert.assertTrue(mappedAdjLists.isMapped());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, mappedAdjLists));
+        Assert.assertEquals(csrAdjLists.getEdgeType(2, 1), mappedAdjLists.getEdgeType(2, 1));
+        Assert.assertEquals(1, mappedAdjLists.getAdjacencyList(0, (short) 0).search(3,
+            (short) 0));
+        Assert.assertEquals(4, mappedAdjLists.getAdjacencyList(2, (short) 2).getEdgeId(0,
+            (short) 2));
+        Assert.assertTrue(mappedAdjLists.getMemoryUsageInBytes() < csrAdjLists.
+            getMemoryUsageInBytes());
+        // The file can be read back into the heap or mapped again.
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, CSRAdjacencyLists.
+            readFromFile(file)));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, CSRAdjacencyLists.mapFile(
+            file)));
+        Assert.assertFalse(mappedAdjLists.loadIntoHeap().isMapped());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, mappedAdjLists.
+            loadIntoHeap()));
+
+        // Merging into the file gives the same adjacency lists as merging on the heap, and the
+        // adjacency lists mapped before the merge are not changed.
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        AdjacencyListDelta delta = getPopulatedAdjacencyListDelta(new int[]{0}, new short[]{3},
+            new long[]{6});
+        delta.delete(1, (short) 1, mappedAdjLists.getAdjacencyList(0, (short) 1));
+        adjListDeltas.put(0, delta);
+        adjListDeltas.put(5, getPopulatedAdjacencyListDelta(new int[]{2}, new short[]{0},
+            new long[]{7}));
+        File newFile = new File(temporaryFolder.getRoot(), "merged");
+        CSRAdjacencyLists mergedAdjLists = mappedAdjLists.merge(adjListDeltas, 6, newFile);
+        Assert.assertTrue(mergedAdjLists.isMapped());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists.merge(adjListDeltas, 6),
+            mergedAdjLists));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists, mappedAdjLists));
+        // The changed partition is appended to the file, which then holds the merged lists.
+        Assert.assertFalse(newFile.exists());
+        Assert.assertTrue(mappedAdjLists.isStorageFileSharedWith(mergedAdjLists));
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(mergedAdjLists, CSRAdjacencyLists.mapFile(
+            file)));
+
+        // Only the files created by the adjacency lists are deleted.
+        CSRAdjacencyLists.mapFile(file).deleteStorageFile();
+        Assert.assertTrue(file.exists());
+        mergedAdjLists.deleteStorageFile();
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void testMergeIntoMappedFileAppendsChangedPartitions() throws IOException {
+        // Vertex v has the edge v->v+1 of type v % 2, over three partitions.
+        int numVertices = 3 * CSRAdjacencyLists.PARTITION_SIZE;
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            adjListDeltas.put(vertexId, getPopulatedAdjacencyListDelta(new int[]{vertexId + 1},
+                new short[]{(short) (vertexId % 2)}, new long[]{vertexId}));
+        }
+        CSRAdjacencyLists csrAdjLists = new CSRAdjacencyLists().merge(adjListDeltas,
+            numVertices);
+        File file = temporaryFolder.newFile();
+        CSRAdjacencyLists mappedAdjLists = csrAdjLists.mapToFile(file);
+        long fileSize = file.length();
+        int changedVertexId = CSRAdjacencyLists.PARTITION_SIZE + 5;
+        adjListDeltas = new IntToObjectMap<>();
+        adjListDeltas.put(changedVertexId, getPopulatedAdjacencyListDelta(new int[]{0},
+            new short[]{1}, new long[]{numVertices}));
+        File newFile = new File(temporaryFolder.getRoot(), "merged");
+        CSRAdjacencyLists mergedAdjLists = mappedAdjLists.merge(adjListDeltas, numVertices,
+            newFile);
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists.merge(adjListDeltas,
+            numVertices), mergedAdjLists));
+        Assert.assertTrue(CSRAdjacencyLists.isPartitionShared(mappedAdjLists, mergedAdjLists, 0));
+        Assert.assertFalse(CSRAdjacencyLists.isPartitionShared(mappedAdjLists, mergedAdjLists,
+            changedVertexId));
+        // Only one of the three partitions is appended.
+        Assert.assertFalse(newFile.exists());
+        Assert.assertTrue(file.length() - fileSize < fileSize / 2);
+
+        // A file that is only mapped is not appended to: the merge is written to the new file.
+        CSRAdjacencyLists savedAdjLists = CSRAdjacencyLists.mapFile(file);
+        CSRAdjacencyLists compactedAdjLists = savedAdjLists.merge(adjListDeltas, numVertices,
+            newFile);
+        Assert.assertFalse(savedAdjLists.isStorageFileSharedWith(compactedAdjLists));
+        Assert.assertTrue(newFile.exists());
+        Assert.assertTrue(newFile.length() < file.length());
+        Assert.assertTrue(CSRAdjacencyLists.isSameAs(csrAdjLists.merge(adjListDeltas,
+            numVertices).merge(adjListDeltas, numVertices), compactedAdjLists));
+        compactedAdjLists.deleteStorageFile();
+        mergedAdjLists.deleteStorageFile();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMappedAdjacencyListsCannotBeMergedIntoHeap() throws IOException {
+        getPopulatedCSRAdjacencyLists().mapToFile(temporaryFolder.newFile()).merge(
+            new IntToObjectMap<>(), 4);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewIsReadOnly() {
+        getPopulatedCSRAdjacencyLists().getAdjacencyList(0).add(4, (short) 0, 7);
+    }
+}
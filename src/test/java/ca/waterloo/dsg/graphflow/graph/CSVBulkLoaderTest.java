@@ -0,0 +1,229 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests {@link CSVBulkLoader}.
+ */
+public class CSVBulkLoaderTest {
+
+    // Special JUnit defined temporary folder used to test I/O operations on files. Requires
+    // {@code public} visibility.
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+    }
+
+    @Test
+    public void testLoadVerticesAndEdges() throws IOException {
+        String vertexFilePath = writeFile("id,type,name:STRING,age:INTEGER",
+            "0,Person,Olivier,30", "1,Person,Mohannad,", "2,City,Waterloo,");
+        String edgeFilePath = writeFile("from,to,type,since:INTEGER", "0,1,FOLLOWS,2015",
+            "1,0,FOLLOWS,", "0,2,LIVES_IN,2010", "1,2,LIVES_IN,2012", "0,1,LIKES,");
+        CSVBulkLoader csvBulkLoader = new CSVBulkLoader();
+        csvBulkLoader.load(vertexFilePath, edgeFilePath);
+
+        Assert.assertEquals(3, csvBulkLoader.getNumVerticesLoaded());
+        Assert.assertEquals(5, csvBulkLoader.getNumEdgesLoaded());
+        Assert.assertEquals(3, graph.getVertexCount());
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        short follows = typeAndPropertyKeyStore.mapStringTypeToShort("FOLLOWS");
+        short livesIn = typeAndPropertyKeyStore.mapStringTypeToShort("LIVES_IN");
+        short likes = typeAndPropertyKeyStore.mapStringTypeToShort("LIKES");
+        Assert.assertEquals((short) typeAndPropertyKeyStore.mapStringTypeToShort("City"),
+            graph.getVertexTypes().get(2));
+
+        assertNeighbours(0, Direction.FORWARD, new int[]{1, 1, 2});
+        assertNeighbours(1, Direction.FORWARD, new int[]{0, 2});
+        assertNeighbours(2, Direction.FORWARD, new int[]{});
+        assertNeighbours(0, Direction.BACKWARD, new int[]{1});
+        assertNeighbours(1, Direction.BACKWARD, new int[]{0, 0});
+        assertNeighbours(2, Direction.BACKWARD, new int[]{0, 1});
+        Assert.assertTrue(graph.isEdgePresent(0, 1, Direction.FORWARD,
+            GraphVersion.PERMANENT, likes));
+        Assert.assertTrue(graph.isEdgePresent(1, 2, Direction.FORWARD,
+            GraphVersion.PERMANENT, livesIn));
+        Assert.assertTrue(graph.isEdgePresent(2, 1, Direction.BACKWARD,
+            GraphVersion.PERMANENT, livesIn));
+        Assert.assertFalse(graph.isEdgePresent(2, 0, Direction.FORWARD,
+            GraphVersion.PERMANENT, livesIn));
+
+        short since = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("since");
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        Assert.assertEquals(2015, edgeStore.getProperty(graph.getEdgeIdFromGraph(0, 1, follows),
+            since));
+        Assert.assertEquals(2012, edgeStore.getProperty(graph.getEdgeIdFromGraph(1, 2, livesIn),
+            since));
+        Assert.assertNull(edgeStore.getProperty(graph.getEdgeIdFromGraph(1, 0, follows), since));
+        // The forward and backward adjacency lists share the same edge IDs.
+        Assert.assertEquals(graph.getEdgeIdFromGraph(0, 2, livesIn), graph.getSortedAdjacencyList(
+            2, Direction.BACKWARD, GraphVersion.PERMANENT).getEdgeId(0, livesIn));
+
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        short name = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("name");
+        short age = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("age");
+        Assert.assertEquals("Mohannad", vertexPropertyStore.getProperty(1, name));
+        Assert.assertEquals(30, vertexPropertyStore.getProperty(0, age));
+        Assert.assertNull(vertexPropertyStore.getProperty(1, age));
+    }
+
+    @Test
+    public void testLoadSkipsDuplicateEdges() throws IOException {
+        String edgeFilePath = writeFile("from,to,type,weight:INTEGER", "3,1,E,1", "3,1,E,2",
+            "3,1,F,3", "", "3,0,E,4");
+        CSVBulkLoader csvBulkLoader = new CSVBulkLoader();
+        csvBulkLoader.load(null /* no vertex file */, edgeFilePath);
+
+        Assert.assertEquals(0, csvBulkLoader.getNumVerticesLoaded());
+        Assert.assertEquals(3, csvBulkLoader.getNumEdgesLoaded());
+        Assert.assertEquals(4, graph.getVertexCount());
+        assertNeighbours(3, Direction.FORWARD, new int[]{0, 1, 1});
+        // The first occurrence of a duplicate edge is kept.
+        short e = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("E");
+        short weight = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("weight");
+        Assert.assertEquals(1, EdgeStore.getInstance().getProperty(graph.getEdgeIdFromGraph(3, 1,
+            e), weight));
+        // Vertices that only occur in the edge file have the type ANY.
+        Assert.assertEquals(TypeAndPropertyKeyStore.ANY, graph.getVertexTypes().get(2));
+    }
+
+    @Test
+    public void testLoadMergesWithExistingGraph() throws IOException {
+        short e = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert("E");
+        graph.addEdgeTemporarily(0, 1, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY,
+            null, null, e, null);
+        graph.addEdgeTemporarily(1, 2, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY,
+            null, null, e, null);
+        graph.finalizeChanges();
+        long existingEdgeId = graph.getEdgeIdFromGraph(0, 1, e);
+
+        String edgeFilePath = writeFile("from,to,type", "0,1,E", "0,2,E", "4,0,E");
+        CSVBulkLoader csvBulkLoader = new CSVBulkLoader();
+        csvBulkLoader.load(null /* no vertex file */, edgeFilePath);
+
+        Assert.assertEquals(2, csvBulkLoader.getNumEdgesLoaded());
+        Assert.assertEquals(5, graph.getVertexCount());
+        assertNeighbours(0, Direction.FORWARD, new int[]{1, 2});
+        assertNeighbours(1, Direction.FORWARD, new int[]{2});
+        assertNeighbours(0, Direction.BACKWARD, new int[]{4});
+        assertNeighbours(2, Direction.BACKWARD, new int[]{0, 1});
+        Assert.assertEquals(existingEdgeId, graph.getEdgeIdFromGraph(0, 1, e));
+
+        // Later updates are merged into the bulk loaded adjacency lists.
+        graph.addEdgeTemporarily(4, 3, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY,
+            null, null, e, null);
+        graph.finalizeChanges();
+        assertNeighbours(4, Direction.FORWARD, new int[]{0, 3});
+        assertNeighbours(0, Direction.FORWARD, new int[]{1, 2});
+    }
+
+    @Test
+    public void testLoadManyEdges() throws IOException {
+        int numVertices = 100;
+        String[] lines = new String[numVertices * numVertices / 2];
+        int numLines = 0;
+        // Each vertex v has the edges v->(v + 7i) mod numVertices, written in descending order
+        // of neighbour IDs so that the adjacency lists have to be sorted.
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            for (int i = numVertices / 2 / 7; i >= 0; i--) {
+                lines[numLines++] = vertexId + "," + ((vertexId + 7 * i) % numVertices) + ",E";
+            }
+        }
+        String edgeFilePath = writeFile("from,to,type", Arrays.copyOf(lines, numLines));
+        CSVBulkLoader csvBulkLoader = new CSVBulkLoader();
+        csvBulkLoader.load(null /* no vertex file */, edgeFilePath);
+
+        Assert.assertEquals(numLines, csvBulkLoader.getNumEdgesLoaded());
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            for (Direction direction : Direction.values()) {
+                SortedAdjacencyList adjList = graph.getSortedAdjacencyList(vertexId, direction,
+                    GraphVersion.PERMANENT);
+                Assert.assertEquals(numVertices / 2 / 7 + 1, adjList.getSize());
+                for (int i = 1; i < adjList.getSize(); i++) {
+                    Assert.assertTrue(adjList.getNeighbourId(i - 1) < adjList.getNeighbourId(i));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadValueOfIncorrectDataType() throws IOException {
+        String edgeFilePath = writeFile("from,to,type,weight:INTEGER", "0,1,E,heavy");
+        new CSVBulkLoader().load(null /* no vertex file */, edgeFilePath);
+    }
+
+    @Test
+    public void testLoadAddsAllVerticesToTheStatistics() throws IOException {
+        String[] vertexLines = new String[100];
+        for (int vertexId = 0; vertexId < vertexLines.length; vertexId++) {
+            vertexLines[vertexId] = vertexId + ",Person";
+        }
+        new CSVBulkLoader().load(writeFile("id,type", vertexLines), writeFile("from,to,type",
+            "0,1,E"));
+        Assert.assertEquals(vertexLines.length, graph.getVertexCount());
+        Assert.assertEquals(vertexLines.length, graph.getStatistics().getNumVertices(
+            TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("Person")));
+    }
+
+    @Test
+    public void testLoadNegativeVertexIds() throws IOException {
+        // The dictionary maps any long, so the negative IDs are not rejected by it.
+        VertexIdDictionary.getInstance().setEnabled(true);
+        assertLoadFails(writeFile("id,type", "0,Person", "-1,Person"), writeFile("from,to,type"),
+            "line 3");
+        assertLoadFails(null /* no vertex file */, writeFile("from,to,type", "0,1,E", "1,-2,E"),
+            "line 3");
+        assertLoadFails(null /* no vertex file */, writeFile("from,to,type", "-3,1,E"), "line 2");
+        assertLoadFails(null /* no vertex file */, writeFile("from,to,type", "0,1,E", "x,1,E"),
+            "line 3");
+        Assert.assertEquals(0, graph.getPermanentAdjLists(Direction.FORWARD).getNumEdges());
+    }
+
+    private static void assertLoadFails(String vertexFilePath, String edgeFilePath,
+        String expectedMessagePart) throws IOException {
+        try {
+            new CSVBulkLoader().load(vertexFilePath, edgeFilePath);
+            Assert.fail("The load should fail.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(expectedMessagePart));
+        }
+    }
+
+    private void assertNeighbours(int vertexId, Direction direction, int[] expectedNeighbourIds) {
+        SortedAdjacencyList adjList = graph.getSortedAdjacencyList(vertexId, direction,
+            GraphVersion.PERMANENT);
+        int[] neighbourIds = new int[adjList.getSize()];
+        for (int i = 0; i < neighbourIds.length; i++) {
+            neighbourIds[i] = adjList.getNeighbourId(i);
+        }
+        Assert.assertArrayEquals(expectedNeighbourIds, neighbourIds);
+    }
+
+    private String writeFile(String header, String... lines) throws IOException {
+        File file = temporaryFolder.newFile();
+        List<String> allLines = new ArrayList<>();
+        allLines.add(header);
+        allLines.addAll(Arrays.asList(lines));
+        Files.write(file.toPath(), allLines, StandardCharsets.UTF_8);
+        return file.getAbsolutePath();
+    }
+}
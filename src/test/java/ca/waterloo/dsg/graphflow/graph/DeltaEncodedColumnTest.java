@@ -0,0 +1,68 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link DeltaEncodedColumn}.
+ */
+public class DeltaEncodedColumnTest {
+
+    @Test
+    public void testGet() {
+        long[] values = new long[5 * DeltaEncodedColumn.BLOCK_SIZE + 3];
+        Random random = new Random(0);
+        for (int i = 0; i < values.length; i++) {
+            // Mix small and large, increasing and decreasing differences.
+            values[i] = (i % 7 == 0) ? random.nextLong() : random.nextInt(1000) - 500;
+        }
+        DeltaEncodedColumn column = buildColumn(values);
+        Assert.assertEquals(values.length, column.getSize());
+        DeltaEncodedColumn.Reader reader = column.new Reader();
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(values[i], reader.get(i));
+        }
+        // Random access, including going backwards and across blocks.
+        for (int i = values.length - 1; i >= 0; i -= 13) {
+            Assert.assertEquals(values[i], column.get(i));
+            Assert.assertEquals(values[i], reader.get(i));
+        }
+    }
+
+    @Test
+    public void testGetLowerBound() {
+        // Two sorted ranges, as the neighbour IDs of two vertices: [0, 300) and [300, 350).
+        long[] values = new long[350];
+        for (int i = 0; i < 300; i++) {
+            values[i] = 3 * i;
+        }
+        for (int i = 300; i < 350; i++) {
+            values[i] = i - 300;
+        }
+        DeltaEncodedColumn column = buildColumn(values);
+        Assert.assertEquals(0, column.new Reader().getLowerBound(0, 0, 300));
+        Assert.assertEquals(34, column.new Reader().getLowerBound(100, 0, 300));
+        Assert.assertEquals(34, column.new Reader().getLowerBound(102, 0, 300));
+        Assert.assertEquals(200, column.new Reader().getLowerBound(600, 150, 300));
+        Assert.assertEquals(250, column.new Reader().getLowerBound(100, 250, 300));
+        Assert.assertEquals(300, column.new Reader().getLowerBound(1000, 0, 300));
+        Assert.assertEquals(310, column.new Reader().getLowerBound(10, 300, 350));
+        Assert.assertEquals(350, column.new Reader().getLowerBound(50, 300, 350));
+        Assert.assertEquals(320, column.new Reader().getLowerBound(0, 320, 320));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        buildColumn(new long[]{1, 2, 3}).get(3);
+    }
+
+    private DeltaEncodedColumn buildColumn(long[] values) {
+        DeltaEncodedColumn.Builder builder = new DeltaEncodedColumn.Builder();
+        for (long value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+}
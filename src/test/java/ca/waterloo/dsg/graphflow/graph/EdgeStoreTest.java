@@ -38,8 +38,21 @@ public class EdgeStoreTest {
         for (short i = 0; i < 3; ++i) {
             propertiesOfEdgeToAdd.put(keys[i], new Pair<>(DataType.STRING, values[i]));
         }
-        propertiesLengthInBytes = 3 * 6 /* 2 bytes for short key + 4 bytes for int length */ +
-            values[0].length() + values[1].length() + values[2].length();
+        propertiesLengthInBytes = 4 /* smallest key + number of slots */ + 3 * 2 /* slots */ +
+            3 * 6 /* 2 bytes for short key + 4 bytes for dictionary code */;
+    }
+
+    @Test
+    public void testColumnarLayoutEnabledBySystemProperty() {
+        System.setProperty(PropertyStore.COLUMNAR_LAYOUT_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Assert.assertTrue(EdgeStore.getInstance().isColumnarLayoutEnabled());
+        } finally {
+            System.clearProperty(PropertyStore.COLUMNAR_LAYOUT_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(EdgeStore.getInstance().isColumnarLayoutEnabled());
     }
 
     @Test
@@ -63,7 +76,7 @@ public class EdgeStoreTest {
     @Test
     public void testAddEdgeAndVerifyProperties() {
         populateTypeStoreAndPropertiesMap();
-        // Adds an edge with ID 0. Ensures length of the bucket and dataOffset are set correctly.
+        // Adds an edge with ID 0. Ensures the address and length of its record are set correctly.
         EdgeStore.getInstance().addEdge(propertiesOfEdgeToAdd);
 
         Map<Short, Object> propertiesStored = EdgeStore.getInstance().getProperties(0);
@@ -71,8 +84,8 @@ public class EdgeStoreTest {
         for (int i = 0; i < propertiesOfEdgeToAdd.size(); ++i) {
             Assert.assertEquals(values[i], propertiesStored.get(keys[i]));
         }
-        Assert.assertEquals(propertiesLengthInBytes, EdgeStore.getInstance().data[0][0].length);
-        Assert.assertEquals(propertiesLengthInBytes, EdgeStore.getInstance().dataOffsets[0][0][1]);
+        Assert.assertEquals(propertiesLengthInBytes, EdgeStore.getInstance().recordLengths[0][0]);
+        Assert.assertEquals(0, EdgeStore.getInstance().recordAddresses[0][0]);
     }
 
     @Test
@@ -96,15 +109,16 @@ public class EdgeStoreTest {
         propertiesStored = edgeStore.getProperties(7 /* edge ID */);
         Assert.assertEquals(0, propertiesStored.size());
 
-        Assert.assertEquals(5 * propertiesLengthInBytes, edgeStore.data[0][0].length);
-        Assert.assertEquals(0, edgeStore.dataOffsets[0][0][0]);
-        Assert.assertEquals(0, edgeStore.dataOffsets[0][0][1]);
-        Assert.assertEquals(propertiesLengthInBytes, edgeStore.dataOffsets[0][0][2]);
-        Assert.assertEquals(propertiesLengthInBytes, edgeStore.dataOffsets[0][0][3]);
-        Assert.assertEquals(2 * propertiesLengthInBytes, edgeStore.dataOffsets[0][0][4]);
-        Assert.assertEquals(3 * propertiesLengthInBytes, edgeStore.dataOffsets[0][0][5]);
-        Assert.assertEquals(4 * propertiesLengthInBytes, edgeStore.dataOffsets[0][0][6]);
-        Assert.assertEquals(5 * propertiesLengthInBytes, edgeStore.dataOffsets[0][0][7]);
+        // The records of the edges with properties are appended to the first page.
+        int[] expectedLengths = {0, propertiesLengthInBytes, 0, propertiesLengthInBytes,
+            propertiesLengthInBytes, propertiesLengthInBytes, propertiesLengthInBytes, 0};
+        long[] expectedAddresses = {0, 0, 0, propertiesLengthInBytes, 2 * propertiesLengthInBytes,
+            3 * propertiesLengthInBytes, 4 * propertiesLengthInBytes, 0};
+        for (int i = 0; i < EdgeStore.MAX_EDGES_PER_BUCKET; ++i) {
+            Assert.assertEquals(expectedLengths[i], edgeStore.recordLengths[0][i]);
+            Assert.assertEquals(expectedAddresses[i], edgeStore.recordAddresses[0][i]);
+        }
+        Assert.assertEquals(1, edgeStore.propertyRecords.getNumPages());
     }
 
     @Test
@@ -134,6 +148,33 @@ public class EdgeStoreTest {
         Assert.assertEquals(Double.parseDouble(values[6]), propertiesStored.get(keys[6]));
     }
 
+    @Test
+    public void testTypedGetters() {
+        populateTypeStoreAndPropertiesMap();
+        propertiesOfEdgeToAdd.put(keys[3], new Pair<>(DataType.INTEGER, values[3]));
+        propertiesOfEdgeToAdd.put(keys[5], new Pair<>(DataType.BOOLEAN, values[5]));
+        propertiesOfEdgeToAdd.put(keys[6], new Pair<>(DataType.DOUBLE, values[6]));
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        long edgeId = edgeStore.addEdge(propertiesOfEdgeToAdd);
+        long edgeIdWithoutProperties = edgeStore.addEdge(null);
+
+        StringBytes stringBytes = new StringBytes();
+        for (boolean isColumnarLayoutEnabled : new boolean[]{false, true}) {
+            edgeStore.setColumnarLayout(isColumnarLayoutEnabled);
+            Assert.assertTrue(edgeStore.getStringBytes(edgeId, keys[2], stringBytes));
+            Assert.assertEquals(values[2], stringBytes.toString());
+            Assert.assertEquals(139999, edgeStore.getInt(edgeId, keys[3]));
+            Assert.assertTrue(edgeStore.getBoolean(edgeId, keys[5]));
+            Assert.assertEquals(14.0, edgeStore.getDouble(edgeId, keys[6]), 0.0);
+            Assert.assertFalse(edgeStore.isNull(edgeId, keys[0]));
+            Assert.assertTrue(edgeStore.isNull(edgeId, keys[4]));
+            Assert.assertTrue(edgeStore.isNull(edgeIdWithoutProperties, keys[0]));
+            Assert.assertFalse(edgeStore.getStringBytes(edgeIdWithoutProperties, keys[0],
+                stringBytes));
+            Assert.assertEquals(0, edgeStore.getInt(edgeId, keys[4]));
+        }
+    }
+
     @Test
     public void testAddEdgeWithLargeEdgeIds() {
         populateTypeStoreAndPropertiesMap();
@@ -142,14 +183,13 @@ public class EdgeStoreTest {
         edgeStore.setNextIDNeverYetAssigned(0 /* partition ID */, 10 /* bucket ID */,
             (byte) 5 /* offset ID */);
         edgeStore.addEdge(propertiesOfEdgeToAdd);
-        Assert.assertEquals(propertiesLengthInBytes, edgeStore.data[0][10].length);
-        for (int i = 0; i < EdgeStore.MAX_EDGES_PER_BUCKET; ++i) {
-            if (i <= 5) {
-                Assert.assertEquals(0, edgeStore.dataOffsets[0][10][i]);
-            } else {
-                Assert.assertEquals(propertiesLengthInBytes, edgeStore.dataOffsets[0][10][6]);
-            }
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertEquals(0, edgeStore.recordLengths[0][10 * EdgeStore.
+                MAX_EDGES_PER_BUCKET + i]);
         }
+        Assert.assertEquals(propertiesLengthInBytes, edgeStore.recordLengths[0][10 * EdgeStore.
+            MAX_EDGES_PER_BUCKET + 5]);
+        Assert.assertTrue(edgeStore.getProperties(10 * 256 + 4).isEmpty());
 
         Map<Short, Object> propertiesStored = EdgeStore.getInstance().getProperties(10 * 256 + 5);
         for (int i = 0; i < propertiesOfEdgeToAdd.size(); ++i) {
@@ -158,19 +198,109 @@ public class EdgeStoreTest {
 
         edgeStore.setNextIDNeverYetAssigned(1 /* partition ID */, 24 /* bucket ID */,
             (byte) 2 /* offset ID */);
-        EdgeStore.getInstance().addEdge(propertiesOfEdgeToAdd); // added edge has offset ID 3.
-        Assert.assertEquals(propertiesLengthInBytes, edgeStore.data[1][24].length);
-        for (int i = 0; i < EdgeStore.MAX_EDGES_PER_BUCKET; ++i) {
-            if (i <= 2) {
-                Assert.assertEquals(0, edgeStore.dataOffsets[1][24][i]);
-            } else {
-                Assert.assertEquals(propertiesLengthInBytes, edgeStore.dataOffsets[1][24][i]);
-            }
-        }
+        EdgeStore.getInstance().addEdge(propertiesOfEdgeToAdd); // added edge has offset ID 2.
+        Assert.assertEquals(propertiesLengthInBytes, edgeStore.recordLengths[1][24 * EdgeStore.
+            MAX_EDGES_PER_BUCKET + 2]);
+        // The record is appended after the record of the edge in partition 0.
+        Assert.assertEquals(propertiesLengthInBytes, edgeStore.recordAddresses[1][24 * EdgeStore.
+            MAX_EDGES_PER_BUCKET + 2]);
         propertiesStored = EdgeStore.getInstance().getProperties((long) Math.pow(2, 40) +
             24 * 256 + 2);
         for (int i = 0; i < propertiesOfEdgeToAdd.size(); ++i) {
             Assert.assertEquals(values[i], propertiesStored.get(keys[i]));
         }
     }
+
+    @Test
+    public void testColumnarLayout() {
+        populateTypeStoreAndPropertiesMap();
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        edgeStore.addEdge(propertiesOfEdgeToAdd);
+        edgeStore.addEdge(null);
+        edgeStore.setColumnarLayout(true);
+        Assert.assertTrue(edgeStore.isColumnarLayoutEnabled());
+        Assert.assertEquals(values[1], edgeStore.getProperty(0, keys[1]));
+        Assert.assertTrue(edgeStore.getProperties(1).isEmpty());
+
+        // Edges in later buckets and partitions are stored in the same columns.
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(keys[4], new Pair<>(DataType.INTEGER, values[4]));
+        properties.put(keys[6], new Pair<>(DataType.DOUBLE, values[6]));
+        edgeStore.setNextIDNeverYetAssigned(0 /* partition ID */, 5000 /* bucket ID */,
+            (byte) 7 /* offset ID */);
+        long edgeIdInLaterBucket = edgeStore.addEdge(properties);
+        edgeStore.setNextIDNeverYetAssigned(1 /* partition ID */, 24 /* bucket ID */,
+            (byte) 2 /* offset ID */);
+        long edgeIdInLaterPartition = edgeStore.addEdge(propertiesOfEdgeToAdd);
+        Assert.assertEquals(77, edgeStore.getProperty(edgeIdInLaterBucket, keys[4]));
+        Assert.assertEquals(values[2], edgeStore.getProperties(edgeIdInLaterPartition).get(
+            keys[2]));
+
+        edgeStore.setColumnarLayout(false);
+        Assert.assertFalse(edgeStore.isColumnarLayoutEnabled());
+        Assert.assertEquals(values[0], edgeStore.getProperty(0, keys[0]));
+        Assert.assertTrue(edgeStore.getProperties(1).isEmpty());
+        Assert.assertEquals(14.0, edgeStore.getProperty(edgeIdInLaterBucket, keys[6]));
+        Assert.assertEquals(3, edgeStore.getProperties(edgeIdInLaterPartition).size());
+    }
+
+    @Test
+    public void testRecycledIdsReuseRecords() {
+        populateTypeStoreAndPropertiesMap();
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        for (int i = 0; i < 3; ++i) {
+            edgeStore.addEdge(propertiesOfEdgeToAdd);
+        }
+        // A recycled ID with properties of the same length overwrites its record in place.
+        edgeStore.deleteEdge(1);
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(keys[0], new Pair<>(DataType.STRING, "Fruit"));
+        properties.put(keys[1], new Pair<>(DataType.STRING, "Ninja"));
+        properties.put(keys[2], new Pair<>(DataType.STRING, "FruitNinja"));
+        Assert.assertEquals(1, edgeStore.addEdge(properties));
+        Assert.assertEquals(propertiesLengthInBytes, edgeStore.recordAddresses[0][1]);
+        Assert.assertEquals("FruitNinja", edgeStore.getProperty(1, keys[2]));
+
+        // A recycled ID with shorter properties frees its record for the next record of the same
+        // length.
+        edgeStore.deleteEdge(0);
+        properties.remove(keys[2]);
+        Assert.assertEquals(0, edgeStore.addEdge(properties));
+        Assert.assertEquals(3 * propertiesLengthInBytes, edgeStore.recordAddresses[0][0]);
+        Assert.assertEquals(2, edgeStore.getProperties(0).size());
+        Assert.assertEquals(3, edgeStore.addEdge(propertiesOfEdgeToAdd));
+        Assert.assertEquals(0, edgeStore.recordAddresses[0][3]);
+        Assert.assertEquals(values[0], edgeStore.getProperty(3, keys[0]));
+        Assert.assertEquals(values[1], edgeStore.getProperty(2, keys[1]));
+    }
+
+    @Test
+    public void testRecordsSpanningPages() {
+        populateTypeStoreAndPropertiesMap();
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < PropertyRecordArena.PAGE_SIZE; ++i) {
+            longValue.append('a');
+        }
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(keys[0], new Pair<>(DataType.STRING, longValue.toString()));
+        // The records of the edges with the short properties do not fit in two pages.
+        int numEdges = 2 * (PropertyRecordArena.PAGE_SIZE / propertiesLengthInBytes) + 2;
+        for (int i = 0; i < numEdges; ++i) {
+            edgeStore.addEdge((i == numEdges / 2) ? properties : propertiesOfEdgeToAdd);
+        }
+        Assert.assertEquals(longValue.toString(), edgeStore.getProperty(getEdgeId(numEdges / 2),
+            keys[0]));
+        for (int i = 0; i < numEdges; ++i) {
+            if (i != numEdges / 2) {
+                Assert.assertEquals(values[2], edgeStore.getProperty(getEdgeId(i), keys[2]));
+            }
+        }
+        // Three pages of short records, and a page for the long record.
+        Assert.assertEquals(4, edgeStore.propertyRecords.getNumPages());
+    }
+
+    private static long getEdgeId(int i) {
+        return ((i / EdgeStore.MAX_EDGES_PER_BUCKET) << 8) | (i % EdgeStore.MAX_EDGES_PER_BUCKET);
+    }
 }
@@ -0,0 +1,146 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer.VertexOrdering;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link GraphReorderer}.
+ */
+public class GraphReordererTest {
+
+    private static final int NUM_VERTICES = 60;
+    private static final int NUM_VERTEX_TYPES = 3;
+    private static final int NUM_EDGE_TYPES = 2;
+    private Graph graph;
+    private VertexIdDictionary vertexIdDictionary;
+    private short idKey;
+    // Each edge is the vertex IDs before reordering, its edge type and its edge ID.
+    private List<long[]> edges;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+        vertexIdDictionary = VertexIdDictionary.getInstance();
+        edges = new ArrayList<>();
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            graph.addVertex(vertexId, getVertexType(vertexId), getProperties(vertexId));
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 400; i++) {
+            // Low vertex IDs have more edges, so that the vertices have different degrees, and
+            // some vertices have no incoming edges.
+            int fromVertex = random.nextInt(1 + random.nextInt(NUM_VERTICES));
+            int toVertex = random.nextInt(NUM_VERTICES - 10);
+            short edgeType = (short) random.nextInt(NUM_EDGE_TYPES);
+            if (!graph.isEdgePresent(fromVertex, toVertex, Direction.FORWARD, GraphVersion.MERGED,
+                edgeType)) {
+                graph.addEdgeTemporarily(fromVertex, toVertex, getVertexType(fromVertex),
+                    getVertexType(toVertex), null /* no fromVertex properties */,
+                    null /* no toVertex properties */, edgeType, null /* no edge properties */);
+                edges.add(new long[]{fromVertex, toVertex, edgeType, -1});
+            }
+        }
+        graph.finalizeChanges();
+        for (long[] edge : edges) {
+            edge[3] = graph.getEdgeIdFromGraph((int) edge[0], (int) edge[1], (short) edge[2]);
+        }
+        idKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("id");
+    }
+
+    @Test
+    public void testReorderByDegree() {
+        GraphReorderer graphReorderer = new GraphReorderer();
+        graphReorderer.reorder(VertexOrdering.DEGREE);
+        Assert.assertEquals(graph.getHighestVertexId() + 1, graphReorderer.
+            getNumVerticesReordered());
+        assertGraphIsUnchangedAfterTranslation();
+        for (int vertexId = 1; vertexId <= graph.getHighestVertexId(); vertexId++) {
+            Assert.assertTrue(getDegree(vertexId - 1) >= getDegree(vertexId));
+        }
+    }
+
+    @Test
+    public void testReorderByLocality() {
+        new GraphReorderer().reorder(VertexOrdering.LOCALITY);
+        assertGraphIsUnchangedAfterTranslation();
+        // Reordering again relabels the vertex IDs the dictionary already translates to.
+        new GraphReorderer().reorder(VertexOrdering.DEGREE);
+        assertGraphIsUnchangedAfterTranslation();
+    }
+
+    @Test
+    public void testTemporaryChangesAreFinalizedFirst() {
+        graph.addEdgeTemporarily(NUM_VERTICES - 1, 0, getVertexType(NUM_VERTICES - 1),
+            getVertexType(0), null /* no fromVertex properties */,
+            null /* no toVertex properties */, (short) 0, null /* no edge properties */);
+        new GraphReorderer().reorder(VertexOrdering.DEGREE);
+        Assert.assertTrue(graph.isEdgePresent(vertexIdDictionary.getInternalId(NUM_VERTICES - 1),
+            vertexIdDictionary.getInternalId(0), Direction.FORWARD, GraphVersion.PERMANENT,
+            (short) 0));
+    }
+
+    private void assertGraphIsUnchangedAfterTranslation() {
+        Assert.assertTrue(vertexIdDictionary.isEnabled());
+        Assert.assertEquals(NUM_VERTICES, graph.getVertexCount());
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            int internalId = vertexIdDictionary.getInternalId(vertexId);
+            Assert.assertEquals(vertexId, vertexIdDictionary.getExternalId(internalId));
+            Assert.assertEquals(getVertexType(vertexId), graph.getVertexTypes().get(internalId));
+            Assert.assertEquals(vertexId, VertexPropertyStore.getInstance().getProperty(
+                internalId, idKey));
+        }
+        int numEdges = 0;
+        for (long[] edge : edges) {
+            int fromVertex = vertexIdDictionary.getInternalId(edge[0]);
+            int toVertex = vertexIdDictionary.getInternalId(edge[1]);
+            short edgeType = (short) edge[2];
+            Assert.assertEquals(edge[3], graph.getEdgeIdFromGraph(fromVertex, toVertex,
+                edgeType));
+            Assert.assertTrue(graph.isEdgePresent(toVertex, fromVertex, Direction.BACKWARD,
+                GraphVersion.PERMANENT, edgeType));
+            numEdges++;
+        }
+        for (Direction direction : Direction.values()) {
+            CSRAdjacencyLists adjLists = graph.getPermanentAdjLists(direction);
+            Assert.assertEquals(numEdges, adjLists.getNumEdges());
+            for (int vertexId = 0; vertexId <= graph.getHighestVertexId(); vertexId++) {
+                for (short edgeType : adjLists.getEdgeTypes(vertexId)) {
+                    SortedAdjacencyList segment = adjLists.getAdjacencyList(vertexId, edgeType);
+                    for (int i = 1; i < segment.getSize(); i++) {
+                        Assert.assertTrue(segment.getNeighbourId(i - 1) < segment.getNeighbourId(
+                            i));
+                    }
+                }
+            }
+        }
+    }
+
+    private int getDegree(int vertexId) {
+        return graph.getPermanentAdjLists(Direction.FORWARD).getSize(vertexId) + graph.
+            getPermanentAdjLists(Direction.BACKWARD).getSize(vertexId);
+    }
+
+    private static short getVertexType(int vertexId) {
+        return (short) (vertexId % NUM_VERTEX_TYPES);
+    }
+
+    private static Map<Short, Pair<DataType, String>> getProperties(int vertexId) {
+        Map<String, Pair<String, String>> properties = new HashMap<>();
+        properties.put("id", new Pair<>("integer", Integer.toString(vertexId)));
+        return TypeAndPropertyKeyStore.getInstance().mapStringPropertiesToShortAndDataTypeOrInsert(
+            properties);
+    }
+}
@@ -0,0 +1,143 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link GraphStatistics}.
+ */
+public class GraphStatisticsTest {
+
+    private static final short ANY = TypeAndPropertyKeyStore.ANY;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+    }
+
+    @Test
+    public void testStatisticsAreUpdatedByFinalizeChanges() {
+        // Vertex 0 of type 1 has 3 edges of type 5 and 1 edge of type 6 to vertices of type 2.
+        addEdge(0, 1, (short) 1, (short) 2, (short) 5);
+        addEdge(0, 2, (short) 1, (short) 2, (short) 5);
+        addEdge(0, 3, (short) 1, (short) 2, (short) 5);
+        addEdge(0, 3, (short) 1, (short) 2, (short) 6);
+        addEdge(4, 1, (short) 1, (short) 2, (short) 5);
+        // Changes are not counted until they are made permanent.
+        Assert.assertEquals(0, graph.getStatistics().getNumEdges(ANY, ANY, Direction.FORWARD));
+        graph.finalizeChanges();
+
+        GraphStatistics statistics = graph.getStatistics();
+        Assert.assertEquals(5, statistics.getNumVertices(ANY));
+        Assert.assertEquals(2, statistics.getNumVertices((short) 1));
+        Assert.assertEquals(3, statistics.getNumVertices((short) 2));
+        Assert.assertEquals(4, statistics.getNumEdges((short) 1, (short) 5, Direction.FORWARD));
+        Assert.assertEquals(5, statistics.getNumEdges((short) 1, ANY, Direction.FORWARD));
+        Assert.assertEquals(0, statistics.getNumEdges((short) 2, ANY, Direction.FORWARD));
+        Assert.assertEquals(4, statistics.getNumEdges(ANY, (short) 5, Direction.BACKWARD));
+        Assert.assertEquals(2, statistics.getNumVerticesWithEdges((short) 1, (short) 5,
+            Direction.FORWARD));
+        Assert.assertEquals(2.0, statistics.getAverageFanOut((short) 1, (short) 5,
+            Direction.FORWARD), 0.0);
+        Assert.assertEquals(5.0 / 3, statistics.getAverageFanOut((short) 2, ANY,
+            Direction.BACKWARD), 1e-9);
+        // Vertex 0 has a degree of 3 in bucket [2, 3] and vertex 4 a degree of 1 in bucket [1, 1].
+        long[] expectedHistogram = new long[GraphStatistics.NUM_DEGREE_BUCKETS];
+        expectedHistogram[0] = 1;
+        expectedHistogram[1] = 1;
+        Assert.assertArrayEquals(expectedHistogram, statistics.getDegreeHistogram((short) 1,
+            (short) 5, Direction.FORWARD));
+        // Over all edge types, vertex 0 has a degree of 4 in bucket [4, 7].
+        expectedHistogram[1] = 0;
+        expectedHistogram[2] = 1;
+        Assert.assertArrayEquals(expectedHistogram, statistics.getDegreeHistogram((short) 1, ANY,
+            Direction.FORWARD));
+
+        graph.deleteEdgeTemporarily(0, 1, (short) 5);
+        graph.deleteEdgeTemporarily(0, 3, (short) 6);
+        graph.finalizeChanges();
+        // The statistics of the previous snapshot are not modified.
+        Assert.assertEquals(5, statistics.getNumEdges((short) 1, ANY, Direction.FORWARD));
+        statistics = graph.getStatistics();
+        Assert.assertEquals(3, statistics.getNumEdges((short) 1, ANY, Direction.FORWARD));
+        Assert.assertEquals(0, statistics.getNumEdges((short) 1, (short) 6, Direction.FORWARD));
+        Assert.assertEquals(0, statistics.getNumVerticesWithEdges(ANY, (short) 6,
+            Direction.BACKWARD));
+        Assert.assertEquals(3, statistics.getNumVerticesWithEdges((short) 2, ANY,
+            Direction.BACKWARD));
+    }
+
+    @Test
+    public void testStatisticsAreUpdatedForChangedVertexTypes() {
+        addEdge(0, 1, (short) 1, (short) 2, (short) 5);
+        addEdge(1, 2, (short) 2, (short) 2, (short) 5);
+        graph.finalizeChanges();
+        graph.addVertex(1, (short) 3, null /* no properties */);
+        graph.addVertex(3, (short) 3, null /* no properties */);
+        graph.finalizeChanges();
+
+        GraphStatistics statistics = graph.getStatistics();
+        Assert.assertEquals(1, statistics.getNumVertices((short) 2));
+        Assert.assertEquals(2, statistics.getNumVertices((short) 3));
+        Assert.assertEquals(0, statistics.getNumEdges((short) 2, ANY, Direction.FORWARD));
+        Assert.assertEquals(1, statistics.getNumEdges((short) 3, (short) 5, Direction.FORWARD));
+        Assert.assertEquals(1, statistics.getNumEdges((short) 3, (short) 5, Direction.BACKWARD));
+        assertSameStatistics(GraphStatistics.build(graph.getSnapshot().getAdjLists(
+            Direction.FORWARD), graph.getSnapshot().getAdjLists(Direction.BACKWARD),
+            graph.getVertexTypes(), graph.getSnapshot().getHighestVertexId()), statistics);
+    }
+
+    @Test
+    public void testIncrementalStatisticsMatchRebuiltStatistics() {
+        Random random = new Random(0);
+        int numVertices = 200;
+        for (int batch = 0; batch < 10; batch++) {
+            for (int i = 0; i < 300; i++) {
+                int fromVertex = random.nextInt(numVertices);
+                int toVertex = random.nextInt(numVertices);
+                short edgeType = (short) random.nextInt(3);
+                if (graph.isEdgePresent(fromVertex, toVertex, Direction.FORWARD,
+                    Graph.GraphVersion.MERGED, edgeType)) {
+                    graph.deleteEdgeTemporarily(fromVertex, toVertex, edgeType);
+                } else {
+                    // Each vertex keeps the type given by its ID.
+                    addEdge(fromVertex, toVertex, (short) (fromVertex % 4), (short) (toVertex %
+                        4), edgeType);
+                }
+            }
+            graph.finalizeChanges();
+            GraphSnapshot snapshot = graph.getSnapshot();
+            assertSameStatistics(GraphStatistics.build(snapshot.getAdjLists(Direction.FORWARD),
+                snapshot.getAdjLists(Direction.BACKWARD), graph.getVertexTypes(), snapshot.
+                    getHighestVertexId()), snapshot.getStatistics());
+        }
+    }
+
+    private void addEdge(int fromVertex, int toVertex, short fromVertexType, short toVertexType,
+        short edgeType) {
+        graph.addEdgeTemporarily(fromVertex, toVertex, fromVertexType, toVertexType,
+            null /* no fromVertex properties */, null /* no toVertex properties */, edgeType,
+            null /* no edge properties */);
+    }
+
+    private void assertSameStatistics(GraphStatistics expected, GraphStatistics actual) {
+        for (short vertexType = -1; vertexType < 4; vertexType++) {
+            Assert.assertEquals(expected.getNumVertices(vertexType), actual.getNumVertices(
+                vertexType));
+            for (short edgeType = -1; edgeType < 3; edgeType++) {
+                for (Direction direction : Direction.values()) {
+                    Assert.assertEquals(expected.getNumEdges(vertexType, edgeType, direction),
+                        actual.getNumEdges(vertexType, edgeType, direction));
+                    Assert.assertArrayEquals(expected.getDegreeHistogram(vertexType, edgeType,
+                        direction), actual.getDegreeHistogram(vertexType, edgeType, direction));
+                }
+            }
+        }
+    }
+}
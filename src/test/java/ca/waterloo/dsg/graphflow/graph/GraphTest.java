@@ -5,18 +5,28 @@ import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
 import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Tests {@link Graph}.
  */
 public class GraphTest {
 
+    // Special JUnit defined temporary folder used to test I/O operations on files. Requires
+    // {@code public} visibility.
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setUp() {
         GraphDBState.reset();
@@ -292,6 +302,162 @@ public class GraphTest {
             {6, 4}, {6, 5}});
     }
 
+    @Test
+    public void testGetEdgesIteratorForCompressedGraph() throws Exception {
+        Graph.getInstance().setAdjacencyListCompression(true);
+        Graph graph = getGraphWithTemporaryChanges();
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.MERGED, Direction.FORWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{0, 6}, {2, 5}, {4, 6}, {5, 6}, {11, 9}});
+        graph.finalizeChanges();
+        Assert.assertTrue(graph.getPermanentAdjLists(Direction.FORWARD).isCompressed());
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.PERMANENT, Direction.BACKWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, (short) 1), new int[][]{{6,
+            0}, {6, 4}, {6, 5}});
+        Assert.assertTrue(graph.isEdgePresent(11, 9, Direction.FORWARD, GraphVersion.PERMANENT,
+            (short) 2));
+        Assert.assertFalse(graph.isEdgePresent(0, 1, Direction.FORWARD, GraphVersion.PERMANENT,
+            (short) 1));
+
+        graph.setAdjacencyListCompression(false);
+        Assert.assertFalse(graph.getPermanentAdjLists(Direction.FORWARD).isCompressed());
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.PERMANENT, Direction.FORWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{0, 6}, {2, 5}, {4, 6}, {5, 6}, {11, 9}});
+    }
+
+    @Test
+    public void testCompressionEnabledBySystemProperty() throws Exception {
+        System.setProperty(Graph.COMPRESSION_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Graph graph = getGraphWithTemporaryChanges();
+            graph.finalizeChanges();
+            Assert.assertTrue(graph.isAdjacencyListCompressionEnabled());
+            Assert.assertTrue(graph.getPermanentAdjLists(Direction.FORWARD).isCompressed());
+        } finally {
+            System.clearProperty(Graph.COMPRESSION_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(Graph.getInstance().isAdjacencyListCompressionEnabled());
+    }
+
+    @Test
+    public void testMappedStorageEnabledBySystemProperty() throws Exception {
+        File storageDirectory = temporaryFolder.newFolder();
+        System.setProperty(Graph.STORAGE_DIRECTORY_PROPERTY, storageDirectory.getAbsolutePath());
+        try {
+            GraphDBState.reset();
+            Graph graph = getGraphWithTemporaryChanges();
+            graph.finalizeChanges();
+            Assert.assertEquals(storageDirectory.getAbsolutePath(), graph.
+                getAdjacencyListStorageDirectory());
+            Assert.assertTrue(graph.getPermanentAdjLists(Direction.FORWARD).isMapped());
+        } finally {
+            System.clearProperty(Graph.STORAGE_DIRECTORY_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertNull(Graph.getInstance().getAdjacencyListStorageDirectory());
+    }
+
+    @Test
+    public void testMappedStorageIsKeptIfCompressionIsAlsoSetBySystemProperty() throws Exception {
+        File storageDirectory = temporaryFolder.newFolder();
+        System.setProperty(Graph.STORAGE_DIRECTORY_PROPERTY, storageDirectory.getAbsolutePath());
+        System.setProperty(Graph.COMPRESSION_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Graph graph = getGraphWithTemporaryChanges();
+            graph.finalizeChanges();
+            Assert.assertFalse(graph.isAdjacencyListCompressionEnabled());
+            Assert.assertTrue(graph.getPermanentAdjLists(Direction.FORWARD).isMapped());
+        } finally {
+            System.clearProperty(Graph.STORAGE_DIRECTORY_PROPERTY);
+            System.clearProperty(Graph.COMPRESSION_PROPERTY);
+            GraphDBState.reset();
+        }
+    }
+
+    @Test
+    public void testHubDegreeThresholdSetBySystemProperty() {
+        System.setProperty(Graph.HUB_DEGREE_THRESHOLD_PROPERTY, "2");
+        try {
+            GraphDBState.reset();
+            Assert.assertEquals(2, Graph.getInstance().getHubDegreeThreshold());
+        } finally {
+            System.clearProperty(Graph.HUB_DEGREE_THRESHOLD_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertEquals(Graph.DEFAULT_HUB_DEGREE_THRESHOLD, Graph.getInstance().
+            getHubDegreeThreshold());
+    }
+
+    @Test
+    public void testNeighbourVertexTypeIndexEnabledBySystemProperty() {
+        System.setProperty(Graph.NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Graph graph = getGraphWithTemporaryChanges();
+            graph.finalizeChanges();
+            Assert.assertTrue(graph.isNeighbourVertexTypeIndexEnabled());
+            Assert.assertNotNull(graph.getSnapshot().getNeighbourVertexTypes(Direction.FORWARD));
+        } finally {
+            System.clearProperty(Graph.NEIGHBOUR_VERTEX_TYPE_INDEX_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(Graph.getInstance().isNeighbourVertexTypeIndexEnabled());
+    }
+
+    @Test
+    public void testHubEdgeIndexEnabledBySystemProperty() {
+        System.setProperty(Graph.HUB_EDGE_INDEX_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Graph graph = getGraphWithTemporaryChanges();
+            graph.finalizeChanges();
+            Assert.assertTrue(graph.isHubEdgeIndexEnabled());
+            Assert.assertNotNull(graph.getSnapshot().getHubEdgeIndex(Direction.FORWARD));
+        } finally {
+            System.clearProperty(Graph.HUB_EDGE_INDEX_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(Graph.getInstance().isHubEdgeIndexEnabled());
+    }
+
+    @Test
+    public void testGetEdgesIteratorForMappedGraph() throws Exception {
+        File storageDirectory = temporaryFolder.newFolder();
+        Graph.getInstance().setAdjacencyListStorageDirectory(storageDirectory.getAbsolutePath());
+        Graph graph = getGraphWithTemporaryChanges();
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.MERGED, Direction.FORWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{0, 6}, {2, 5}, {4, 6}, {5, 6}, {11, 9}});
+        graph.finalizeChanges();
+        Assert.assertTrue(graph.getPermanentAdjLists(Direction.FORWARD).isMapped());
+        Assert.assertTrue(graph.getPermanentAdjLists(Direction.BACKWARD).isMapped());
+        // The files of the replaced adjacency lists are deleted.
+        Assert.assertEquals(2, storageDirectory.listFiles().length);
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.PERMANENT, Direction.BACKWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, (short) 1), new int[][]{{6,
+            0}, {6, 4}, {6, 5}});
+        Assert.assertTrue(graph.isEdgePresent(11, 9, Direction.FORWARD, GraphVersion.PERMANENT,
+            (short) 2));
+
+        graph.setAdjacencyListStorageDirectory(null);
+        Assert.assertFalse(graph.getPermanentAdjLists(Direction.FORWARD).isMapped());
+        Assert.assertEquals(0, storageDirectory.listFiles().length);
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.PERMANENT, Direction.FORWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{0, 6}, {2, 5}, {4, 6}, {5, 6}, {11, 9}});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMappedGraphCannotBeCompressed() throws Exception {
+        Graph.getInstance().setAdjacencyListStorageDirectory(temporaryFolder.newFolder().
+            getAbsolutePath());
+        Graph.getInstance().setAdjacencyListCompression(true);
+    }
+
     /**
      * Tests that the iterator returned by {@code getEdgesIterator()} correctly returns the
      * list of edges for the {@link GraphVersion#DIFF_PLUS} graph.
@@ -300,10 +466,15 @@ public class GraphTest {
     public void testGetEdgesIteratorForDiffPlusGraph() throws Exception {
         Graph graph = getGraphWithTemporaryChanges();
 
-        // Test the list of edges of the diff plus graph before finalizing the changes.
+        // Test the list of edges of the diff plus graph before finalizing the changes. The edges
+        // are sorted by their from vertex IDs and then by their to vertex IDs.
         assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_PLUS, Direction.FORWARD,
             TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
-            new int[][]{{0, 6}, {2, 6}, {5, 6}, {4, 6}, {2, 5}});
+            new int[][]{{0, 6}, {2, 5}, {2, 6}, {4, 6}, {5, 6}});
+        // In the backward direction, the edges are sorted by their to vertex IDs first.
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_PLUS, Direction.BACKWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{5, 2}, {6, 0}, {6, 2}, {6, 4}, {6, 5}});
 
         // Make the temporary changes permanent.
         graph.finalizeChanges();
@@ -321,7 +492,11 @@ public class GraphTest {
         // Test the list of edges of the diff plus graph before finalizing the changes.
         assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_PLUS, Direction.FORWARD,
             TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, edgeType), new int[][]{{0, 6},
-            {2, 6}, {5, 6}, {4, 6}});
+            {2, 6}, {4, 6}, {5, 6}});
+        // The vertex type filters apply to the first and the second vertices of the returned
+        // edges.
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_PLUS, Direction.BACKWARD,
+            (short) 6, (short) 4, edgeType), new int[][]{{6, 4}});
 
         // Make the temporary changes permanent.
         graph.finalizeChanges();
@@ -342,7 +517,10 @@ public class GraphTest {
         // Test the list of edges of the diff minus graph before finalizing the changes.
         assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_MINUS, Direction.FORWARD,
             TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
-            new int[][]{{2, 6}, {0, 1}});
+            new int[][]{{0, 1}, {2, 6}});
+        assertEdgesIterator(graph.getEdgesIterator(GraphVersion.DIFF_MINUS, Direction.BACKWARD,
+            TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY, TypeAndPropertyKeyStore.ANY),
+            new int[][]{{1, 0}, {6, 2}});
         // Make the temporary changes permanent.
         graph.finalizeChanges();
 
@@ -352,6 +530,41 @@ public class GraphTest {
             new int[][]{});
     }
 
+    @Test
+    public void testIsEdgePresentInDiffGraphs() {
+        Graph graph = getGraphWithTemporaryChanges();
+        Assert.assertTrue(graph.isEdgePresent(2, 5, Direction.FORWARD, GraphVersion.DIFF_PLUS,
+            TypeAndPropertyKeyStore.ANY));
+        Assert.assertTrue(graph.isEdgePresent(6, 4, Direction.BACKWARD, GraphVersion.DIFF_PLUS,
+            (short) 1));
+        Assert.assertFalse(graph.isEdgePresent(4, 6, Direction.BACKWARD, GraphVersion.DIFF_PLUS,
+            (short) 1));
+        Assert.assertFalse(graph.isEdgePresent(2, 5, Direction.FORWARD, GraphVersion.DIFF_PLUS,
+            (short) 1));
+        Assert.assertTrue(graph.isEdgePresent(0, 1, Direction.FORWARD, GraphVersion.DIFF_MINUS,
+            (short) 1));
+        Assert.assertFalse(graph.isEdgePresent(0, 6, Direction.FORWARD, GraphVersion.DIFF_MINUS,
+            TypeAndPropertyKeyStore.ANY));
+        graph.finalizeChanges();
+        Assert.assertFalse(graph.isEdgePresent(2, 5, Direction.FORWARD, GraphVersion.DIFF_PLUS,
+            TypeAndPropertyKeyStore.ANY));
+    }
+
+    @Test
+    public void testDeletedEdgeIdsAreRecycledOnce() {
+        Graph graph = getGraphWithTemporaryChanges();
+        graph.finalizeChanges();
+        // The IDs of the edges deleted before the previous call are not recycled again.
+        graph.finalizeChanges();
+        Set<Long> edgeIds = new HashSet<>();
+        for (int toVertex = 7; toVertex < 11; toVertex++) {
+            graph.addEdgeTemporarily(0, toVertex, (short) 2, (short) 1,
+                null /* no fromVertex properties */, null /* no toVertex properties */, (short) 1,
+                null /* no edge properties */);
+            Assert.assertTrue(edgeIds.add(graph.getEdgeIdFromGraph(0, toVertex, (short) 1)));
+        }
+    }
+
     private void assertEdgesIterator(Iterator<int[]> iterator, int[][] expectedEdges) {
         List<int[]> edgesList = new ArrayList<>();
         while (iterator.hasNext()) {
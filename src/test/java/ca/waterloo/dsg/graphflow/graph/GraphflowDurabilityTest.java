@@ -54,6 +54,7 @@ public class GraphflowDurabilityTest {
         EdgeStore oldEdgeStore = EdgeStore.getInstance();
         VertexPropertyStore oldVertexPropertyStore = VertexPropertyStore.getInstance();
         TypeAndPropertyKeyStore oldTypeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        ZoneMapStore oldZoneMapStore = ZoneMapStore.getInstance();
 
         GraphDBState.deserialize(saveDirectory.getAbsolutePath());
 
@@ -63,5 +64,58 @@ public class GraphflowDurabilityTest {
             VertexPropertyStore.getInstance()));
         Assert.assertTrue(TypeAndPropertyKeyStore.isSameAs(oldTypeAndPropertyKeyStore,
             TypeAndPropertyKeyStore.getInstance()));
+        Assert.assertTrue(ZoneMapStore.isSameAs(oldZoneMapStore, ZoneMapStore.getInstance()));
+    }
+
+    /**
+     * Tests that the properties stored in the columnar layout are loaded back in the same layout.
+     */
+    @Test
+    public void testSavingAndLoadingColumnarProperties() throws Exception {
+        VertexPropertyStore.getInstance().setColumnarLayout(true);
+        EdgeStore.getInstance().setColumnarLayout(true);
+        String query = "CREATE (1:Person{ name: 'Olivier', age: 31 })-[:FOLLOWS{ date: 3, " +
+            "isActive: true }]->(2:Person{ name: 'Mohannad' }),(2:Person)-[:LIKES]->(1:Person);";
+        StructuredQuery structuredQuery = new StructuredQueryParser().parse(query);
+        ((CreateQueryPlan) new CreateQueryPlanner(structuredQuery).plan()).execute(
+            new InMemoryOutputSink());
+
+        GraphDBState.serialize(saveDirectory.getAbsolutePath());
+        EdgeStore oldEdgeStore = EdgeStore.getInstance();
+        VertexPropertyStore oldVertexPropertyStore = VertexPropertyStore.getInstance();
+        GraphDBState.deserialize(saveDirectory.getAbsolutePath());
+
+        Assert.assertTrue(EdgeStore.getInstance().isColumnarLayoutEnabled());
+        Assert.assertTrue(VertexPropertyStore.getInstance().isColumnarLayoutEnabled());
+        Assert.assertTrue(EdgeStore.isSameAs(oldEdgeStore, EdgeStore.getInstance()));
+        Assert.assertTrue(VertexPropertyStore.isSameAs(oldVertexPropertyStore,
+            VertexPropertyStore.getInstance()));
+        Assert.assertEquals("Olivier", VertexPropertyStore.getInstance().getPropertiesAsStrings(1).
+            get("name"));
+    }
+
+    /**
+     * Tests that a graph whose adjacency lists are memory-mapped is loaded with its saved
+     * adjacency lists mapped into memory.
+     */
+    @Test
+    public void testSavingAndLoadingMappedGraph() throws Exception {
+        String storageDirectory = temporaryFolder.newFolder().getAbsolutePath();
+        Graph.getInstance().setAdjacencyListStorageDirectory(storageDirectory);
+        String query = "CREATE (1:Person)-[:FOLLOWS]->(2:Person),(2:Person)-[:LIKES]->" +
+            "(1:Person),(1:Person)-[:LIKES]->(3:Person);";
+        StructuredQuery structuredQuery = new StructuredQueryParser().parse(query);
+        ((CreateQueryPlan) new CreateQueryPlanner(structuredQuery).plan()).execute(
+            new InMemoryOutputSink());
+
+        GraphDBState.serialize(saveDirectory.getAbsolutePath());
+        Graph oldGraph = Graph.getInstance();
+        GraphDBState.deserialize(saveDirectory.getAbsolutePath());
+
+        Assert.assertTrue(Graph.isSamePermanentGraphAs(oldGraph, Graph.getInstance()));
+        Assert.assertEquals(storageDirectory, Graph.getInstance().
+            getAdjacencyListStorageDirectory());
+        Assert.assertTrue(Graph.getInstance().getPermanentAdjLists(Graph.Direction.FORWARD).
+            isMapped());
     }
 }
@@ -0,0 +1,118 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests {@link HubEdgeIndex}.
+ */
+public class HubEdgeIndexTest {
+
+    private static final short ANY = TypeAndPropertyKeyStore.ANY;
+    private static final int NUM_VERTICES = 40;
+    private static final int NUM_EDGE_TYPES = 3;
+    private static final int HUB_DEGREE_THRESHOLD = 8;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+        graph.setHubDegreeThreshold(HUB_DEGREE_THRESHOLD);
+        graph.setHubEdgeIndex(true);
+    }
+
+    @Test
+    public void testLookupsMatchAdjacencyListSearches() {
+        Random random = new Random(0);
+        for (int batch = 0; batch < 4; batch++) {
+            changeEdges(random, 300);
+            // The temporary changes are looked up in the deltas of the merged graph.
+            assertLookupsMatchAdjacencyListSearches(GraphVersion.MERGED);
+            graph.finalizeChanges();
+            assertLookupsMatchAdjacencyListSearches(GraphVersion.PERMANENT);
+            Assert.assertTrue(graph.getSnapshot().getHubEdgeIndex(Direction.FORWARD).
+                getNumIndexedVertices() > 0);
+        }
+    }
+
+    @Test
+    public void testLookupsInCompressedAdjacencyLists() {
+        changeEdges(new Random(1), 500);
+        graph.finalizeChanges();
+        graph.setAdjacencyListCompression(true);
+        assertLookupsMatchAdjacencyListSearches(GraphVersion.PERMANENT);
+        changeEdges(new Random(2), 100);
+        graph.finalizeChanges();
+        assertLookupsMatchAdjacencyListSearches(GraphVersion.PERMANENT);
+    }
+
+    @Test
+    public void testOnlyHubsAreIndexed() {
+        for (int i = 1; i <= HUB_DEGREE_THRESHOLD; i++) {
+            addEdge(0, i, (short) 0);
+        }
+        addEdge(1, 2, (short) 0);
+        graph.finalizeChanges();
+        HubEdgeIndex hubEdgeIndex = graph.getSnapshot().getHubEdgeIndex(Direction.FORWARD);
+        Assert.assertTrue(hubEdgeIndex.isIndexed(0));
+        Assert.assertFalse(hubEdgeIndex.isIndexed(1));
+        Assert.assertEquals(1, hubEdgeIndex.getNumIndexedVertices());
+
+        // Vertex 0 is no longer a hub once one of its edges is deleted.
+        graph.deleteEdgeTemporarily(0, 1, (short) 0);
+        graph.finalizeChanges();
+        Assert.assertEquals(0, graph.getSnapshot().getHubEdgeIndex(Direction.FORWARD).
+            getNumIndexedVertices());
+        graph.setHubEdgeIndex(false);
+        Assert.assertNull(graph.getSnapshot().getHubEdgeIndex(Direction.FORWARD));
+    }
+
+    private void changeEdges(Random random, int numChanges) {
+        for (int i = 0; i < numChanges; i++) {
+            // Low vertex IDs have more edges, so that some of them are hubs.
+            int fromVertex = random.nextInt(1 + random.nextInt(NUM_VERTICES));
+            int toVertex = random.nextInt(NUM_VERTICES);
+            short edgeType = (short) random.nextInt(NUM_EDGE_TYPES);
+            if (graph.isEdgePresent(fromVertex, toVertex, Direction.FORWARD, GraphVersion.MERGED,
+                edgeType)) {
+                if (random.nextInt(4) == 0) {
+                    graph.deleteEdgeTemporarily(fromVertex, toVertex, edgeType);
+                }
+            } else {
+                addEdge(fromVertex, toVertex, edgeType);
+            }
+        }
+    }
+
+    private void assertLookupsMatchAdjacencyListSearches(GraphVersion graphVersion) {
+        for (Direction direction : Direction.values()) {
+            for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+                for (int neighbourId = 0; neighbourId < NUM_VERTICES; neighbourId++) {
+                    for (short edgeType = ANY; edgeType < NUM_EDGE_TYPES; edgeType++) {
+                        long edgeId = graph.getAdjacencyListCursor(vertexId, direction,
+                            graphVersion, edgeType).getEdgeId(neighbourId, edgeType);
+                        Assert.assertEquals(-1 != edgeId, graph.isEdgePresent(vertexId,
+                            neighbourId, direction, graphVersion, edgeType));
+                        if (Direction.FORWARD == direction && GraphVersion.MERGED ==
+                            graphVersion) {
+                            Assert.assertEquals(edgeId, graph.getEdgeIdFromGraph(vertexId,
+                                neighbourId, edgeType));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addEdge(int fromVertex, int toVertex, short edgeType) {
+        graph.addEdgeTemporarily(fromVertex, toVertex, (short) 0 /* fromVertex type */,
+            (short) 0 /* toVertex type */, null /* no fromVertex properties */,
+            null /* no toVertex properties */, edgeType, null /* no edge properties */);
+    }
+}
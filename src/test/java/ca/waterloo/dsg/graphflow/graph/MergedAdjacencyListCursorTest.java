@@ -0,0 +1,192 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import ca.waterloo.dsg.graphflow.util.IntToObjectMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link MergedAdjacencyListCursor} and {@link AdjacencyListDelta}.
+ */
+public class MergedAdjacencyListCursorTest {
+
+    private SortedAdjacencyList permanentAdjList;
+
+    @Before
+    public void setUp() {
+        permanentAdjList = new SortedAdjacencyList();
+        // Neighbours (ID, type, edge ID): (1, 0, 10), (3, 0, 11), (3, 1, 12), (5, 0, 13),
+        // (9, 2, 14).
+        permanentAdjList.add(1, (short) 0, 10);
+        permanentAdjList.add(3, (short) 0, 11);
+        permanentAdjList.add(3, (short) 1, 12);
+        permanentAdjList.add(5, (short) 0, 13);
+        permanentAdjList.add(9, (short) 2, 14);
+    }
+
+    @Test
+    public void testCursorWithoutDelta() {
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(permanentAdjList,
+            null /* no delta */);
+        Assert.assertEquals(5, cursor.getSize());
+        assertNeighbours(cursor, new int[]{1, 3, 3, 5, 9}, new long[]{10, 11, 12, 13, 14});
+        Assert.assertEquals(12, cursor.getEdgeId(3, (short) 1));
+        Assert.assertFalse(cursor.contains(4, TypeAndPropertyKeyStore.ANY));
+    }
+
+    @Test
+    public void testCursorMergesAdditionsAndDeletions() {
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        delta.add(4, (short) 0, 20);
+        delta.add(0, (short) 0, 21);
+        delta.add(3, (short) 2, 22);
+        delta.delete(3, (short) 0, permanentAdjList);
+        delta.delete(9, (short) 2, permanentAdjList);
+        // Deleting a temporarily added edge removes it from the additions.
+        delta.add(7, (short) 0, 23);
+        delta.delete(7, (short) 0, permanentAdjList);
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(permanentAdjList, delta);
+
+        Assert.assertEquals(6, cursor.getSize());
+        assertNeighbours(cursor, new int[]{0, 1, 3, 3, 4, 5}, new long[]{21, 10, 12, 22, 20, 13});
+        Assert.assertEquals(22, cursor.getEdgeId(3, (short) 2));
+        Assert.assertEquals(12, cursor.getEdgeId(3, TypeAndPropertyKeyStore.ANY));
+        Assert.assertEquals(-1, cursor.getEdgeId(3, (short) 0));
+        Assert.assertFalse(cursor.contains(9, TypeAndPropertyKeyStore.ANY));
+        Assert.assertFalse(cursor.contains(7, (short) 0));
+        Assert.assertTrue(cursor.contains(0, (short) 0));
+        // The permanent adjacency list is not modified.
+        Assert.assertEquals(5, permanentAdjList.getSize());
+    }
+
+    @Test
+    public void testDeleteWithAnyTypeSkipsDeletedEdges() {
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        delta.delete(3, TypeAndPropertyKeyStore.ANY, permanentAdjList);
+        delta.delete(3, TypeAndPropertyKeyStore.ANY, permanentAdjList);
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(permanentAdjList, delta);
+        Assert.assertEquals(3, cursor.getSize());
+        assertNeighbours(cursor, new int[]{1, 5, 9}, new long[]{10, 13, 14});
+    }
+
+    @Test
+    public void testGetFilteredNeighbourIdsAndIntersection() {
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        delta.add(6, (short) 0, 20);
+        delta.delete(5, (short) 0, permanentAdjList);
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(permanentAdjList, delta);
+        Assert.assertArrayEquals(new int[]{1, 3, 6}, cursor.getFilteredNeighbourIds(
+            TypeAndPropertyKeyStore.ANY, (short) 0, null /* vertexTypes */).toArray());
+
+        IntArrayList sortedList = new IntArrayList();
+        sortedList.addAll(new int[]{0, 1, 3, 5, 6, 8, 9});
+        Assert.assertArrayEquals(new int[]{1, 3, 6, 9}, cursor.getIntersection(sortedList,
+            TypeAndPropertyKeyStore.ANY).toArray());
+        Assert.assertArrayEquals(new int[]{3}, cursor.getIntersection(sortedList, (short) 1).
+            toArray());
+    }
+
+    @Test
+    public void testCursorRestrictedToEdgeType() {
+        SortedAdjacencyList typeZeroAdjList = new SortedAdjacencyList();
+        typeZeroAdjList.add(1, (short) 0, 10);
+        typeZeroAdjList.add(3, (short) 0, 11);
+        typeZeroAdjList.add(5, (short) 0, 13);
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        delta.add(2, (short) 1, 20);
+        delta.add(4, (short) 0, 21);
+        delta.delete(3, (short) 1, permanentAdjList);
+        delta.delete(5, (short) 0, permanentAdjList);
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(typeZeroAdjList, delta,
+            (short) 0);
+
+        Assert.assertEquals(3, cursor.getSize());
+        assertNeighbours(cursor, new int[]{1, 3, 4}, new long[]{10, 11, 21});
+        Assert.assertArrayEquals(new short[]{0, 1, 2}, delta.getEdgeTypes(new short[]{0, 2}));
+        Assert.assertEquals(0, delta.getSizeDifference((short) 1));
+    }
+
+    @Test
+    public void testIntersectionWithHubBitmap() {
+        // The permanent adjacency list of vertex 0, whose whole list has a bitmap and whose
+        // segments of each edge type do not.
+        IntToObjectMap<AdjacencyListDelta> adjListDeltas = new IntToObjectMap<>();
+        AdjacencyListDelta permanentDelta = new AdjacencyListDelta();
+        for (int i = 0; i < permanentAdjList.getSize(); i++) {
+            permanentDelta.add(permanentAdjList.getNeighbourId(i), permanentAdjList.getEdgeType(
+                i), permanentAdjList.getEdgeId(i));
+        }
+        adjListDeltas.put(0, permanentDelta);
+        HubAdjacencyBitmaps hubBitmaps = HubAdjacencyBitmaps.build(new CSRAdjacencyLists().merge(
+            adjListDeltas, 1 /* numVertices */), 5 /* degreeThreshold */);
+        Assert.assertEquals(1, hubBitmaps.getNumHubVertices());
+        Assert.assertNotNull(hubBitmaps.getBitmap(0, TypeAndPropertyKeyStore.ANY));
+        Assert.assertNull(hubBitmaps.getBitmap(0, (short) 0));
+        IntArrayList sortedList = new IntArrayList();
+        sortedList.addAll(new int[]{0, 1, 3, 5, 6, 8, 9});
+        MergedAdjacencyListCursor cursor = new MergedAdjacencyListCursor(permanentAdjList,
+            null /* no delta */, TypeAndPropertyKeyStore.ANY, hubBitmaps, 0 /* vertexId */,
+            null /* no neighbourVertexTypes */);
+        Assert.assertArrayEquals(new int[]{1, 3, 5, 9}, cursor.getIntersection(sortedList,
+            TypeAndPropertyKeyStore.ANY).toArray());
+        // The bitmap has no edge types, so the permanent adjacency list is searched instead.
+        Assert.assertArrayEquals(new int[]{3}, cursor.getIntersection(sortedList, (short) 1).
+            toArray());
+
+        AdjacencyListDelta delta = new AdjacencyListDelta();
+        delta.add(6, (short) 0, 20);
+        delta.delete(5, (short) 0, permanentAdjList);
+        cursor = new MergedAdjacencyListCursor(permanentAdjList, delta,
+            TypeAndPropertyKeyStore.ANY, hubBitmaps, 0 /* vertexId */,
+            null /* no neighbourVertexTypes */);
+        Assert.assertArrayEquals(new int[]{1, 3, 6, 9}, cursor.getIntersection(sortedList,
+            TypeAndPropertyKeyStore.ANY).toArray());
+    }
+
+    @Test
+    public void testHubBitmapsAreKeptForUnchangedVertices() {
+        GraphDBState.reset();
+        Graph graph = Graph.getInstance();
+        graph.setHubDegreeThreshold(3);
+        // Vertices 0 and 1 are hubs with 3 forward neighbours each.
+        for (int fromVertex = 0; fromVertex < 2; fromVertex++) {
+            for (int toVertex = 2; toVertex < 5; toVertex++) {
+                graph.addEdgeTemporarily(fromVertex, toVertex, (short) 0, (short) 0,
+                    null /* no fromVertex properties */, null /* no toVertex properties */,
+                    (short) 0, null /* no edge properties */);
+            }
+        }
+        graph.finalizeChanges();
+        IntArrayList sortedList = new IntArrayList();
+        sortedList.addAll(new int[]{1, 2, 4});
+        for (int vertexId = 0; vertexId < 2; vertexId++) {
+            Assert.assertArrayEquals(new int[]{2, 4}, graph.getAdjacencyListCursor(vertexId,
+                Graph.Direction.FORWARD, Graph.GraphVersion.PERMANENT, (short) 0).getIntersection(
+                sortedList, (short) 0).toArray());
+        }
+        Assert.assertEquals(2, graph.getSnapshot().getHubBitmaps(Graph.Direction.FORWARD).
+            getNumHubVertices());
+
+        graph.deleteEdgeTemporarily(0, 4, (short) 0);
+        graph.finalizeChanges();
+        // Only the bitmap of vertex 1, whose forward adjacency list did not change, is kept.
+        Assert.assertEquals(1, graph.getSnapshot().getHubBitmaps(Graph.Direction.FORWARD).
+            getNumHubVertices());
+        Assert.assertArrayEquals(new int[]{2}, graph.getAdjacencyListCursor(0,
+            Graph.Direction.FORWARD, Graph.GraphVersion.PERMANENT, (short) 0).getIntersection(
+            sortedList, (short) 0).toArray());
+    }
+
+    private void assertNeighbours(MergedAdjacencyListCursor cursor, int[] expectedNeighbourIds,
+        long[] expectedEdgeIds) {
+        cursor.reset();
+        int i = 0;
+        while (cursor.next()) {
+            Assert.assertEquals(expectedNeighbourIds[i], cursor.getNeighbourId());
+            Assert.assertEquals(expectedEdgeIds[i], cursor.getEdgeId());
+            i++;
+        }
+        Assert.assertEquals(expectedNeighbourIds.length, i);
+    }
+}
@@ -0,0 +1,166 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.util.IntArrayList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link NeighbourVertexTypeIndex}.
+ */
+public class NeighbourVertexTypeIndexTest {
+
+    private static final short ANY = TypeAndPropertyKeyStore.ANY;
+    private static final int NUM_VERTICES = 100;
+    private static final int NUM_VERTEX_TYPES = 3;
+    private static final int NUM_EDGE_TYPES = 2;
+    private Graph graph;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+        graph.setNeighbourVertexTypeIndex(true);
+    }
+
+    @Test
+    public void testTagsAreUpdatedByFinalizeChanges() {
+        Random random = new Random(0);
+        for (int batch = 0; batch < 5; batch++) {
+            for (int i = 0; i < 200; i++) {
+                int fromVertex = random.nextInt(NUM_VERTICES);
+                int toVertex = random.nextInt(NUM_VERTICES);
+                short edgeType = (short) random.nextInt(NUM_EDGE_TYPES);
+                if (graph.isEdgePresent(fromVertex, toVertex, Direction.FORWARD,
+                    GraphVersion.MERGED, edgeType)) {
+                    graph.deleteEdgeTemporarily(fromVertex, toVertex, edgeType);
+                } else {
+                    addEdge(fromVertex, toVertex, edgeType);
+                }
+            }
+            graph.finalizeChanges();
+            assertSameTagsAsRebuiltIndex();
+            assertFilteredNeighbourIds();
+        }
+    }
+
+    @Test
+    public void testRetypedVerticesAreTaggedAgain() {
+        addEdge(0, 1, (short) 0);
+        addEdge(2, 1, (short) 0);
+        addEdge(1, 2, (short) 1);
+        graph.finalizeChanges();
+        graph.addVertex(1, (short) (NUM_VERTEX_TYPES + 1), null /* no properties */);
+        // The tags of vertex 1 are outdated until the change is finalized, and are not used.
+        Assert.assertArrayEquals(new int[]{1}, getNeighbourIds(0, Direction.FORWARD,
+            (short) 0, (short) (NUM_VERTEX_TYPES + 1)));
+        Assert.assertEquals(2, countEdges(Direction.FORWARD, (short) (NUM_VERTEX_TYPES + 1)));
+        graph.finalizeChanges();
+
+        assertSameTagsAsRebuiltIndex();
+        Assert.assertArrayEquals(new int[]{1}, getNeighbourIds(2, Direction.FORWARD,
+            (short) 0, (short) (NUM_VERTEX_TYPES + 1)));
+        Assert.assertArrayEquals(new int[]{1}, getNeighbourIds(2, Direction.BACKWARD, ANY,
+            (short) (NUM_VERTEX_TYPES + 1)));
+        Assert.assertEquals(2, countEdges(Direction.FORWARD, (short) (NUM_VERTEX_TYPES + 1)));
+    }
+
+    @Test
+    public void testDisablingTheIndexDropsTheTags() {
+        addEdge(0, 1, (short) 0);
+        graph.finalizeChanges();
+        Assert.assertNotNull(graph.getSnapshot().getNeighbourVertexTypes(Direction.FORWARD));
+        graph.setNeighbourVertexTypeIndex(false);
+        Assert.assertNull(graph.getSnapshot().getNeighbourVertexTypes(Direction.FORWARD));
+        Assert.assertArrayEquals(new int[]{1}, getNeighbourIds(0, Direction.FORWARD, (short) 0,
+            getVertexType(1)));
+    }
+
+    private void assertSameTagsAsRebuiltIndex() {
+        for (Direction direction : Direction.values()) {
+            CSRAdjacencyLists adjLists = graph.getSnapshot().getAdjLists(direction);
+            NeighbourVertexTypeIndex rebuiltIndex = NeighbourVertexTypeIndex.build(adjLists,
+                graph.getVertexTypes());
+            NeighbourVertexTypeIndex index = graph.getSnapshot().getNeighbourVertexTypes(
+                direction);
+            for (int i = 0; i < adjLists.getNumEdges(); i++) {
+                Assert.assertEquals(rebuiltIndex.get(i), index.get(i));
+            }
+            for (int vertexId = 0; vertexId < adjLists.getNumVertices(); vertexId++) {
+                int startIndex = adjLists.getStartIndex(vertexId);
+                for (int offset = 0; offset < adjLists.getSize(vertexId); offset++) {
+                    Assert.assertEquals(getVertexType(adjLists.getNeighbourId(vertexId, offset)),
+                        index.get(startIndex + offset));
+                }
+            }
+        }
+    }
+
+    private void assertFilteredNeighbourIds() {
+        for (Direction direction : Direction.values()) {
+            for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+                for (short edgeType = ANY; edgeType < NUM_EDGE_TYPES; edgeType++) {
+                    for (short vertexType = 0; vertexType < NUM_VERTEX_TYPES; vertexType++) {
+                        List<Integer> expectedNeighbourIds = new ArrayList<>();
+                        SortedAdjacencyList adjList = graph.getSortedAdjacencyList(vertexId,
+                            direction, GraphVersion.PERMANENT);
+                        for (int i = 0; i < adjList.getSize(); i++) {
+                            if ((ANY == edgeType || adjList.getEdgeType(i) == edgeType) &&
+                                getVertexType(adjList.getNeighbourId(i)) == vertexType) {
+                                expectedNeighbourIds.add(adjList.getNeighbourId(i));
+                            }
+                        }
+                        Assert.assertEquals(expectedNeighbourIds.toString(), Arrays.toString(
+                            getNeighbourIds(vertexId, direction, edgeType, vertexType)));
+                    }
+                }
+            }
+        }
+        for (short vertexType = 0; vertexType < NUM_VERTEX_TYPES; vertexType++) {
+            int numEdges = 0;
+            for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+                numEdges += getNeighbourIds(vertexId, Direction.FORWARD, ANY, vertexType).length;
+            }
+            Assert.assertEquals(numEdges, countEdges(Direction.FORWARD, vertexType));
+        }
+    }
+
+    private int[] getNeighbourIds(int vertexId, Direction direction, short edgeType,
+        short toVertexType) {
+        IntArrayList neighbourIds = graph.getAdjacencyListCursor(vertexId, direction,
+            GraphVersion.MERGED, edgeType).getFilteredNeighbourIds(toVertexType, edgeType,
+            graph.getVertexTypes());
+        return neighbourIds.toArray();
+    }
+
+    private int countEdges(Direction direction, short toVertexType) {
+        int numEdges = 0;
+        Iterator<int[]> iterator = graph.getEdgesIterator(GraphVersion.PERMANENT, direction, ANY,
+            toVertexType, ANY);
+        while (iterator.hasNext()) {
+            iterator.next();
+            numEdges++;
+        }
+        return numEdges;
+    }
+
+    private void addEdge(int fromVertex, int toVertex, short edgeType) {
+        // Each vertex has the type given by its ID, unless it was changed.
+        graph.addEdgeTemporarily(fromVertex, toVertex, getVertexType(fromVertex), getVertexType(
+            toVertex), null /* no fromVertex properties */, null /* no toVertex properties */,
+            edgeType, null /* no edge properties */);
+    }
+
+    private short getVertexType(int vertexId) {
+        return (vertexId < graph.getVertexTypes().getSize()) ? graph.getVertexTypes().get(
+            vertexId) : (short) (vertexId % NUM_VERTEX_TYPES);
+    }
+}
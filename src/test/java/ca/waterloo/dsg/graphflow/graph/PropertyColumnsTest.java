@@ -0,0 +1,127 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.DataType;
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests {@link PropertyColumns}.
+ */
+public class PropertyColumnsTest {
+
+    private static final short NAME_KEY = 0;
+    private static final short AGE_KEY = 1;
+    private static final short IS_ACTIVE_KEY = 2;
+    private static final short SCORE_KEY = 3;
+    private PropertyColumns propertyColumns;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        propertyColumns = new PropertyColumns();
+        propertyColumns.set(0, getProperties("Olivier", "31", "true", "2.5"));
+        propertyColumns.set(2, getProperties("Amine", "28", "false", "-1.0"));
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(AGE_KEY, new Pair<>(DataType.INTEGER, "40"));
+        propertyColumns.set(5, properties);
+    }
+
+    @Test
+    public void testTypedGettersAndNulls() {
+        Assert.assertEquals(6, propertyColumns.getNumRecords());
+        Assert.assertEquals("Olivier", propertyColumns.getString(0, NAME_KEY));
+        Assert.assertEquals(31, propertyColumns.getInt(0, AGE_KEY));
+        Assert.assertTrue(propertyColumns.getBoolean(0, IS_ACTIVE_KEY));
+        Assert.assertEquals(2.5, propertyColumns.getDouble(0, SCORE_KEY), 0.0);
+        Assert.assertEquals("Amine", propertyColumns.get(2, NAME_KEY));
+        Assert.assertEquals(false, propertyColumns.get(2, IS_ACTIVE_KEY));
+        Assert.assertEquals(-1.0, propertyColumns.get(2, SCORE_KEY));
+        Assert.assertEquals(40, propertyColumns.get(5, AGE_KEY));
+
+        Assert.assertTrue(propertyColumns.isNull(5, NAME_KEY));
+        Assert.assertNull(propertyColumns.getString(5, NAME_KEY));
+        Assert.assertEquals(0, propertyColumns.getInt(1, AGE_KEY));
+        Assert.assertTrue(propertyColumns.isNull(1000, AGE_KEY));
+        Assert.assertTrue(propertyColumns.isNull(0, (short) 1000));
+        Assert.assertTrue(propertyColumns.getAll(3).isEmpty());
+        Assert.assertEquals(1, propertyColumns.getAll(5).size());
+    }
+
+    @Test
+    public void testSetOverwritesAllProperties() {
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(SCORE_KEY, new Pair<>(DataType.DOUBLE, "7.0"));
+        propertyColumns.set(0, properties);
+        Map<Short, Object> expectedProperties = new HashMap<>();
+        expectedProperties.put(SCORE_KEY, 7.0);
+        Assert.assertEquals(expectedProperties, propertyColumns.getAll(0));
+        propertyColumns.set(0, null);
+        Assert.assertTrue(propertyColumns.getAll(0).isEmpty());
+        Assert.assertEquals("Amine", propertyColumns.getString(2, NAME_KEY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetWithUnparsableValue() {
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(AGE_KEY, new Pair<>(DataType.INTEGER, "2.5"));
+        propertyColumns.set(1, properties);
+    }
+
+    @Test
+    public void testOverwrittenStringsAreCompacted() {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longName.append("name");
+        }
+        for (int i = 0; i < 100; i++) {
+            propertyColumns.set(1, getProperties(longName.toString() + i, "1", "true", "1.0"));
+        }
+        Assert.assertEquals(longName.toString() + 99, propertyColumns.getString(1, NAME_KEY));
+        Assert.assertEquals("Olivier", propertyColumns.getString(0, NAME_KEY));
+        Assert.assertEquals("Amine", propertyColumns.getString(2, NAME_KEY));
+    }
+
+    @Test
+    public void testRelabel() {
+        propertyColumns.relabel(new int[]{2, 1, 0});
+        Assert.assertEquals("Amine", propertyColumns.getString(0, NAME_KEY));
+        Assert.assertEquals("Olivier", propertyColumns.getString(2, NAME_KEY));
+        Assert.assertFalse(propertyColumns.getBoolean(0, IS_ACTIVE_KEY));
+        Assert.assertTrue(propertyColumns.getBoolean(2, IS_ACTIVE_KEY));
+        Assert.assertTrue(propertyColumns.getAll(1).isEmpty());
+        Assert.assertEquals(40, propertyColumns.getInt(5, AGE_KEY));
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        propertyColumns.serialize(objectOutputStream);
+        objectOutputStream.close();
+        PropertyColumns deserializedColumns = new PropertyColumns();
+        deserializedColumns.deserialize(new ObjectInputStream(new ByteArrayInputStream(
+            outputStream.toByteArray())));
+        Assert.assertTrue(PropertyColumns.isSameAs(propertyColumns, deserializedColumns));
+        deserializedColumns.set(3, getProperties("Sid", "1", "true", "1.0"));
+        Assert.assertFalse(PropertyColumns.isSameAs(propertyColumns, deserializedColumns));
+    }
+
+    private static Map<Short, Pair<DataType, String>> getProperties(String name, String age,
+        String isActive, String score) {
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(NAME_KEY, new Pair<>(DataType.STRING, name));
+        properties.put(AGE_KEY, new Pair<>(DataType.INTEGER, age));
+        properties.put(IS_ACTIVE_KEY, new Pair<>(DataType.BOOLEAN, isActive));
+        properties.put(SCORE_KEY, new Pair<>(DataType.DOUBLE, score));
+        return properties;
+    }
+}
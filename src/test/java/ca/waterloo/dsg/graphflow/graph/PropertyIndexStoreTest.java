@@ -0,0 +1,153 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.TestUtils;
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer.VertexOrdering;
+import ca.waterloo.dsg.graphflow.util.DataType;
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests {@link PropertyIndexStore}.
+ */
+public class PropertyIndexStoreTest {
+
+    private Graph graph;
+    private PropertyIndexStore propertyIndexStore;
+    private short personType;
+    private short followsType;
+    private short nameKey;
+    private short sinceKey;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+        TestUtils.initializeGraphPermanentlyWithProperties("CREATE " +
+            "(0:Person { name: 'Olivier' })-[:FOLLOWS { since: 2010 }]->(1:Person { name: " +
+            "'Amine' }), (1:Person)-[:FOLLOWS { since: 2012 }]->(2:Person { name: 'Olivier' })," +
+            "(2:Person)-[:FOLLOWS { since: 2010 }]->(3:City { name: 'Olivier' }), " +
+            "(3:City)-[:LIKES { since: 2010 }]->(0:Person);");
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        personType = typeAndPropertyKeyStore.mapStringTypeToShort("Person");
+        followsType = typeAndPropertyKeyStore.mapStringTypeToShort("FOLLOWS");
+        nameKey = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("name");
+        sinceKey = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("since");
+        propertyIndexStore = PropertyIndexStore.getInstance();
+        propertyIndexStore.createIndex(true /* vertex index */, personType, nameKey);
+        propertyIndexStore.createIndex(false /* edge index */, followsType, sinceKey);
+    }
+
+    @Test
+    public void testCreateIndex() {
+        assertVertexIds("Olivier", 0, 2);
+        assertVertexIds("Amine", 1);
+        assertVertexIds("Sid");
+        assertEdges(2010, 0, 1, 2, 3);
+        assertEdges(2012, 1, 2);
+        Assert.assertEquals(3, propertyIndexStore.getIndex(true, personType, nameKey).getSize());
+        Assert.assertNull(propertyIndexStore.getIndex(true, followsType, nameKey));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateExistingIndex() {
+        propertyIndexStore.createIndex(true /* vertex index */, personType, nameKey);
+    }
+
+    @Test
+    public void testVertexIndexIsMaintained() {
+        graph.addVertex(4, personType, getNameProperty("Amine"));
+        // Vertex 0 is renamed, and vertex 2 is retyped.
+        graph.addVertex(0, personType, getNameProperty("Sid"));
+        graph.addVertex(2, TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("City"),
+            null /* no property changes */);
+        assertVertexIds("Olivier");
+        assertVertexIds("Amine", 1, 4);
+        assertVertexIds("Sid", 0);
+    }
+
+    @Test
+    public void testEdgeIndexIsMaintainedWhenChangesAreFinalized() {
+        Map<Short, Pair<DataType, String>> edgeProperties = new HashMap<>();
+        edgeProperties.put(sinceKey, new Pair<>(DataType.INTEGER, "2012"));
+        graph.addEdgeTemporarily(3, 1, TypeAndPropertyKeyStore.getInstance().
+            mapStringTypeToShort("City"), personType, null /* no fromVertex properties */,
+            null /* no toVertex properties */, followsType, edgeProperties);
+        TestUtils.deleteEdgesTemporarily(graph, "DELETE (0)-[:FOLLOWS]->(1);");
+        assertEdges(2010, 0, 1, 2, 3);
+        assertEdges(2012, 1, 2);
+        graph.finalizeChanges();
+        assertEdges(2010, 2, 3);
+        assertEdges(2012, 1, 2, 3, 1);
+    }
+
+    @Test
+    public void testIndexesAreRebuiltAfterReordering() {
+        new GraphReorderer().reorder(VertexOrdering.DEGREE);
+        VertexIdDictionary vertexIdDictionary = VertexIdDictionary.getInstance();
+        int[] olivierVertexIds = propertyIndexStore.getIndex(true, personType, nameKey).
+            getVertexIds("Olivier");
+        long[] externalIds = vertexIdDictionary.getExternalIds(olivierVertexIds);
+        Arrays.sort(externalIds);
+        Assert.assertArrayEquals(new long[]{0, 2}, externalIds);
+        int[][] edges = propertyIndexStore.getIndex(false, followsType, sinceKey).getEdges(2012);
+        Assert.assertEquals(1, edges.length);
+        Assert.assertArrayEquals(new long[]{1, 2}, vertexIdDictionary.getExternalIds(edges[0]));
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        propertyIndexStore.serializeMainFile(objectOutputStream);
+        objectOutputStream.close();
+        PropertyIndexStore.reset();
+        PropertyIndexStore.getInstance().deserializeMainFile(new ObjectInputStream(
+            new ByteArrayInputStream(outputStream.toByteArray())));
+        Assert.assertTrue(PropertyIndexStore.isSameAs(propertyIndexStore, PropertyIndexStore.
+            getInstance()));
+        propertyIndexStore = PropertyIndexStore.getInstance();
+        // The entries of the deserialized indexes are rebuilt from the graph.
+        assertVertexIds("Olivier", 0, 2);
+        assertEdges(2012, 1, 2);
+    }
+
+    private void assertVertexIds(String name, int... expectedVertexIds) {
+        int[] vertexIds = propertyIndexStore.getIndex(true, personType, nameKey).getVertexIds(
+            name);
+        Arrays.sort(vertexIds);
+        Assert.assertArrayEquals(expectedVertexIds, vertexIds);
+    }
+
+    /**
+     * Asserts the edges with the given {@code since} property are the ones given as consecutive
+     * from and to vertex IDs in {@code expectedEdges}, in any order.
+     */
+    private void assertEdges(int since, int... expectedEdges) {
+        int[][] edges = propertyIndexStore.getIndex(false, followsType, sinceKey).getEdges(since);
+        Assert.assertEquals(expectedEdges.length / 2, edges.length);
+        for (int i = 0; i < expectedEdges.length; i += 2) {
+            boolean isEdgeFound = false;
+            for (int[] edge : edges) {
+                isEdgeFound |= edge[0] == expectedEdges[i] && edge[1] == expectedEdges[i + 1];
+            }
+            Assert.assertTrue(isEdgeFound);
+        }
+    }
+
+    private static Map<Short, Pair<DataType, String>> getNameProperty(String name) {
+        Map<Short, Pair<DataType, String>> properties = new HashMap<>();
+        properties.put(TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("name"),
+            new Pair<>(DataType.STRING, name));
+        return properties;
+    }
+}
@@ -0,0 +1,70 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests {@link PropertyRecordArena}.
+ */
+public class PropertyRecordArenaTest {
+
+    @Test
+    public void testSizeClasses() {
+        Assert.assertEquals(1, PropertyRecordArena.getSizeClass(1));
+        Assert.assertEquals(PropertyRecordArena.MAX_EXACT_SIZE_CLASS_LENGTH, PropertyRecordArena.
+            getSizeClass(PropertyRecordArena.MAX_EXACT_SIZE_CLASS_LENGTH));
+        Assert.assertEquals(144, PropertyRecordArena.getSizeClass(129));
+        Assert.assertEquals(256, PropertyRecordArena.getSizeClass(256));
+        Assert.assertEquals(288, PropertyRecordArena.getSizeClass(257));
+        for (int length = 1; length < 4 * PropertyRecordArena.PAGE_SIZE; length += 37) {
+            int sizeClass = PropertyRecordArena.getSizeClass(length);
+            Assert.assertTrue(sizeClass >= length && sizeClass < length + length / 8 + 1);
+        }
+    }
+
+    @Test
+    public void testRecordsOfChangingLengthsReuseFreedRecords() {
+        PropertyRecordArena arena = new PropertyRecordArena();
+        Random random = new Random(0);
+        int numRecords = 1000;
+        long[] addresses = new long[numRecords];
+        int[] lengths = new int[numRecords];
+        long numLiveBytes = 0;
+        for (int i = 0; i < numRecords; i++) {
+            lengths[i] = 1 + random.nextInt(2000);
+            addresses[i] = allocate(arena, lengths[i], (byte) i);
+            numLiveBytes += lengths[i];
+        }
+        long maxNumLiveBytes = numLiveBytes;
+        // Each record is freed and allocated again with a new length many times.
+        for (int round = 0; round < 200 * numRecords; round++) {
+            int i = random.nextInt(numRecords);
+            arena.free(addresses[i], lengths[i]);
+            numLiveBytes -= lengths[i];
+            lengths[i] = 1 + random.nextInt(2000);
+            addresses[i] = allocate(arena, lengths[i], (byte) i);
+            numLiveBytes += lengths[i];
+            maxNumLiveBytes = Long.max(maxNumLiveBytes, numLiveBytes);
+        }
+        // The records do not overlap.
+        for (int i = 0; i < numRecords; i++) {
+            int offset = PropertyRecordArena.getOffset(addresses[i]);
+            byte[] expectedBytes = new byte[lengths[i]];
+            Arrays.fill(expectedBytes, (byte) i);
+            Assert.assertArrayEquals(expectedBytes, Arrays.copyOfRange(arena.getPage(addresses[i]),
+                offset, offset + lengths[i]));
+        }
+        Assert.assertTrue(arena.getNumPages() <= 2 * maxNumLiveBytes / PropertyRecordArena.
+            PAGE_SIZE + 2);
+    }
+
+    private static long allocate(PropertyRecordArena arena, int length, byte value) {
+        long address = arena.allocate(length);
+        int offset = PropertyRecordArena.getOffset(address);
+        Arrays.fill(arena.getPage(address), offset, offset + length, value);
+        return address;
+    }
+}
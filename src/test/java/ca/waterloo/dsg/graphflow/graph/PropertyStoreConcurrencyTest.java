@@ -0,0 +1,136 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that the properties of the {@link VertexPropertyStore} and the {@link EdgeStore} can be
+ * read by several threads at once.
+ */
+public class PropertyStoreConcurrencyTest {
+
+    private static final int NUM_VERTICES = 2000;
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_READS_PER_THREAD = 50000;
+
+    private short nameKey;
+    private short ageKey;
+    private short weightKey;
+    private long[] edgeIds = new long[NUM_VERTICES];
+
+    /**
+     * Creates {@link #NUM_VERTICES} vertices, in which vertex v has the name "v<v>" and the age v,
+     * and the edges v->v+1, whose weight is v / 2 and whose name is "e<v>". The names have
+     * different lengths so that a read decoding the record of another vertex or edge fails.
+     */
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        Graph graph = Graph.getInstance();
+        short personType = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert(
+            "Person");
+        short followsType = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert(
+            "FOLLOWS");
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            Map<String, Pair<String, String>> properties = new HashMap<>();
+            properties.put("name", new Pair<>("string", "v" + vertexId));
+            properties.put("age", new Pair<>("integer", "" + vertexId));
+            graph.addVertex(vertexId, personType, TypeAndPropertyKeyStore.getInstance().
+                mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+        }
+        for (int vertexId = 0; vertexId < NUM_VERTICES - 1; vertexId++) {
+            Map<String, Pair<String, String>> properties = new HashMap<>();
+            properties.put("name", new Pair<>("string", "e" + vertexId));
+            properties.put("weight", new Pair<>("double", "" + (vertexId / 2.0)));
+            graph.addEdgeTemporarily(vertexId, vertexId + 1, personType, personType,
+                null /* no fromVertex properties */, null /* no toVertex properties */,
+                followsType, TypeAndPropertyKeyStore.getInstance().
+                    mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+        }
+        graph.finalizeChanges();
+        nameKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("name");
+        ageKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("age");
+        weightKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("weight");
+        for (int vertexId = 0; vertexId < NUM_VERTICES - 1; vertexId++) {
+            edgeIds[vertexId] = graph.getEdgeIdFromGraph(vertexId, vertexId + 1, followsType);
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        assertConcurrentReadsAreCorrect();
+    }
+
+    @Test
+    public void testConcurrentReadsOfTheColumnarLayout() throws Exception {
+        VertexPropertyStore.getInstance().setColumnarLayout(true);
+        EdgeStore.getInstance().setColumnarLayout(true);
+        assertConcurrentReadsAreCorrect();
+    }
+
+    private void assertConcurrentReadsAreCorrect() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < NUM_THREADS; thread++) {
+            long seed = thread;
+            futures.add(executorService.submit((Callable<Void>) () -> {
+                readRandomProperties(new Random(seed));
+                return null;
+            }));
+        }
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(5, TimeUnit.MINUTES));
+        for (Future<Void> future : futures) {
+            // Rethrows the assertion errors of the threads.
+            future.get();
+        }
+    }
+
+    private void readRandomProperties(Random random) {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        EdgeStore edgeStore = EdgeStore.getInstance();
+        StringBytes stringBytes = new StringBytes();
+        for (int i = 0; i < NUM_READS_PER_THREAD; i++) {
+            int vertexId = random.nextInt(NUM_VERTICES - 1);
+            long edgeId = edgeIds[vertexId];
+            switch (i % 4) {
+                case 0:
+                    Map<Short, Object> vertexProperties = vertexPropertyStore.getProperties(
+                        vertexId);
+                    Assert.assertEquals("v" + vertexId, vertexProperties.get(nameKey));
+                    Assert.assertEquals(vertexId, vertexProperties.get(ageKey));
+                    break;
+                case 1:
+                    Map<String, String> edgeProperties = edgeStore.getPropertiesAsStrings(edgeId);
+                    Assert.assertEquals("e" + vertexId, edgeProperties.get("name"));
+                    Assert.assertEquals("" + (vertexId / 2.0), edgeProperties.get("weight"));
+                    break;
+                case 2:
+                    Assert.assertEquals(vertexId, vertexPropertyStore.getInt(vertexId, ageKey));
+                    Assert.assertTrue(vertexPropertyStore.getStringBytes(vertexId, nameKey,
+                        stringBytes));
+                    Assert.assertEquals("v" + vertexId, stringBytes.toString());
+                    break;
+                default:
+                    Assert.assertEquals(vertexId / 2.0, edgeStore.getDouble(edgeId, weightKey),
+                        0);
+                    Assert.assertEquals("e" + vertexId, edgeStore.getProperty(edgeId, nameKey));
+                    Assert.assertEquals(vertexId / 2.0, edgeStore.getProperties(edgeId).get(
+                        weightKey));
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Tests {@link SortedAdjacencyList}.
@@ -78,6 +79,28 @@ public class SortedAdjacencyListTest {
             sortedNeighbourTypes, sortedNeighbourEdgeIds);
     }
 
+    @Test
+    public void testSortAppended() {
+        Random random = new Random(0 /* seed */);
+        SortedAdjacencyList expectedList = new SortedAdjacencyList();
+        SortedAdjacencyList appendedList = new SortedAdjacencyList();
+        // Batches of different sizes are appended after the sorted neighbours, including ones
+        // small enough to be sorted with an insertion sort.
+        int numSortedNeighbours = 0;
+        for (int batchSize : new int[]{1000, 3, 1, 257}) {
+            for (int i = 0; i < batchSize; i++) {
+                int neighbourId = random.nextInt(300);
+                short edgeType = (short) random.nextInt(3);
+                expectedList.add(neighbourId, edgeType, numSortedNeighbours + i);
+                appendedList.append(neighbourId, edgeType, numSortedNeighbours + i);
+            }
+            appendedList.sortAppended(numSortedNeighbours);
+            numSortedNeighbours = appendedList.getSize();
+            // Both sorts are stable, so the edge IDs of duplicate neighbours are in the same order.
+            Assert.assertTrue(SortedAdjacencyList.isSameAs(expectedList, appendedList));
+        }
+    }
+
     @Test
     public void testSearchWithMultipleTypesForSingleEdge() {
         int[] neighbourIds = {1, 32, 54, 34, 34, 34, 12, 89, 0, 14, 7};
@@ -293,6 +316,36 @@ public class SortedAdjacencyListTest {
         Assert.assertArrayEquals(expectedNeighbours, intersections.toArray());
     }
 
+    @Test
+    public void testIntersectionByMergeMatchesGallopingSearch() {
+        Random random = new Random(0);
+        SortedAdjacencyList adjacencyList = new SortedAdjacencyList();
+        for (int i = 0; i < 1000; i++) {
+            adjacencyList.add(random.nextInt(500), (short) random.nextInt(3), i);
+        }
+        for (int listSize : new int[]{1, 10, 100, 1000}) {
+            int[] sortedList = new int[listSize];
+            for (int i = 0; i < listSize; i++) {
+                sortedList[i] = random.nextInt(600);
+            }
+            Arrays.sort(sortedList);
+            IntArrayList listToIntersect = new IntArrayList();
+            listToIntersect.addAll(sortedList);
+            for (short edgeType = -1; edgeType < 3; edgeType++) {
+                IntArrayList expectedIntersection = new IntArrayList();
+                for (int neighbourId : sortedList) {
+                    if (adjacencyList.search(neighbourId, edgeType) > -1) {
+                        expectedIntersection.add(neighbourId);
+                    }
+                }
+                Assert.assertArrayEquals(expectedIntersection.toArray(), adjacencyList.
+                    getIntersectionByMerge(listToIntersect, edgeType).toArray());
+                Assert.assertArrayEquals(expectedIntersection.toArray(), adjacencyList.
+                    getIntersection(listToIntersect, edgeType).toArray());
+            }
+        }
+    }
+
     @Test
     public void testGetFilteredNeighbourIds() {
         int[] neighbourIds = {1, 9, 14, 23, 34, 54, 89};
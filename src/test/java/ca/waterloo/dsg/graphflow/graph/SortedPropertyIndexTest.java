@@ -0,0 +1,112 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Tests {@link SortedPropertyIndex}.
+ */
+public class SortedPropertyIndexTest {
+
+    private static final int NUM_VERTICES = 2000;
+
+    @Test
+    public void testGetVertexIdsInRanges() {
+        SortedPropertyIndex index = getVertexIndex();
+        assertVertexIds(index, new PropertyRange(10, true /* inclusive */, 13,
+            false /* exclusive */), 10, 11, 12);
+        assertVertexIds(index, new PropertyRange(10.5, false /* exclusive */, 13.0,
+            true /* inclusive */), 11, 12, 13);
+        assertVertexIds(index, new PropertyRange(null, true, 2, false /* exclusive */), 0, 1);
+        assertVertexIds(index, new PropertyRange(NUM_VERTICES - 2, false /* exclusive */, null,
+            true), NUM_VERTICES - 1);
+        assertVertexIds(index, PropertyRange.equalTo(7), 7);
+        assertVertexIds(index, PropertyRange.equalTo(7.5));
+        assertVertexIds(index, new PropertyRange(5, false /* exclusive */, 5,
+            true /* inclusive */));
+        Assert.assertEquals(NUM_VERTICES, index.getSize());
+    }
+
+    @Test
+    public void testUpdatesAreVisibleBeforeAndAfterMerges() {
+        SortedPropertyIndex index = getVertexIndex();
+        index.removeVertex(11, 11);
+        index.addVertex(11.5, 11);
+        index.addVertex(12, NUM_VERTICES);
+        assertVertexIds(index, new PropertyRange(11, true /* inclusive */, 12,
+            true /* inclusive */), 11, 12, NUM_VERTICES);
+        // Moves every vertex, which merges the buffer and the removed entries several times.
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            double value = (11 == vertexId) ? 11.5 : vertexId;
+            index.removeVertex(value, vertexId);
+            index.addVertex(value + NUM_VERTICES, vertexId);
+        }
+        assertVertexIds(index, new PropertyRange(null, true, NUM_VERTICES,
+            false /* exclusive */), NUM_VERTICES);
+        assertVertexIds(index, new PropertyRange(NUM_VERTICES + 11, true /* inclusive */,
+            NUM_VERTICES + 12, true /* inclusive */), 11, 12);
+        Assert.assertEquals(NUM_VERTICES + 1, index.getSize());
+    }
+
+    @Test
+    public void testRemoveFromRunsOfEqualValues() {
+        SortedPropertyIndex index = new SortedPropertyIndex(true /* vertex index */,
+            (short) 0 /* type */, (short) 0 /* key */);
+        // The vertices have only 2 values, and are added in a shuffled order.
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            int vertexId = (i * 7) % NUM_VERTICES;
+            index.addVertex(vertexId % 2, vertexId);
+        }
+        index.finishBuild();
+        // Removing an entry with the wrong value or twice has no effect.
+        index.removeVertex(1, 0);
+        int[] expectedVertexIds = new int[NUM_VERTICES / 4];
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId += 2) {
+            if (0 == vertexId % 4) {
+                expectedVertexIds[vertexId / 4] = vertexId;
+            } else {
+                index.removeVertex(0, vertexId);
+                index.removeVertex(0, vertexId);
+            }
+        }
+        assertVertexIds(index, PropertyRange.equalTo(0), expectedVertexIds);
+        Assert.assertEquals(NUM_VERTICES - NUM_VERTICES / 4, index.getSize());
+    }
+
+    @Test
+    public void testGetEdgesInRanges() {
+        SortedPropertyIndex index = new SortedPropertyIndex(false /* edge index */,
+            (short) 0 /* type */, (short) 0 /* key */);
+        index.addEdge(2010, 0, 1, 0L /* edge ID */);
+        index.addEdge(2012, 1, 2, 1L /* edge ID */);
+        index.addEdge(2014, 2, 3, 2L /* edge ID */);
+        index.finishBuild();
+        index.removeEdge(2012, 1L /* edge ID */);
+        index.addEdge(2011, 3, 0, 3L /* edge ID */);
+        int[][] edges = index.getEdges(new PropertyRange(2010, false /* exclusive */, 2014,
+            true /* inclusive */));
+        Arrays.sort(edges, (edge1, edge2) -> Integer.compare(edge1[0], edge2[0]));
+        Assert.assertArrayEquals(new int[][]{{2, 3}, {3, 0}}, edges);
+    }
+
+    private static SortedPropertyIndex getVertexIndex() {
+        SortedPropertyIndex index = new SortedPropertyIndex(true /* vertex index */,
+            (short) 0 /* type */, (short) 0 /* key */);
+        // Vertex i has the value i, and the vertices are added in a shuffled order.
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            int vertexId = (i * 7) % NUM_VERTICES;
+            index.addVertex(vertexId, vertexId);
+        }
+        index.finishBuild();
+        return index;
+    }
+
+    private static void assertVertexIds(SortedPropertyIndex index, PropertyRange range,
+        int... expectedVertexIds) {
+        int[] vertexIds = index.getVertexIds(range);
+        Arrays.sort(vertexIds);
+        Assert.assertArrayEquals(expectedVertexIds, vertexIds);
+    }
+}
@@ -0,0 +1,153 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.exceptions.NoSuchVertexIDException;
+import ca.waterloo.dsg.graphflow.graph.Graph.Direction;
+import ca.waterloo.dsg.graphflow.graph.Graph.GraphVersion;
+import ca.waterloo.dsg.graphflow.query.operator.InMemoryOutputSink;
+import ca.waterloo.dsg.graphflow.query.parser.StructuredQueryParser;
+import ca.waterloo.dsg.graphflow.query.planner.CreateQueryPlanner;
+import ca.waterloo.dsg.graphflow.query.planner.OneTimeMatchQueryPlanner;
+import ca.waterloo.dsg.graphflow.query.plans.CreateQueryPlan;
+import ca.waterloo.dsg.graphflow.query.plans.OneTimeMatchQueryPlan;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Tests {@link VertexIdDictionary}.
+ */
+public class VertexIdDictionaryTest {
+
+    // Special JUnit defined temporary folder used to test I/O operations on files. Requires
+    // {@code public} visibility.
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private VertexIdDictionary vertexIdDictionary;
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        vertexIdDictionary = VertexIdDictionary.getInstance();
+    }
+
+    @Test
+    public void testDisabledDictionaryIsIdentity() {
+        Assert.assertEquals(5, vertexIdDictionary.getInternalIdOrInsert(5));
+        Assert.assertEquals(7, vertexIdDictionary.getInternalId(7));
+        Assert.assertEquals(9, vertexIdDictionary.getExternalId(9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDisabledDictionaryRejectsLargeVertexIds() {
+        vertexIdDictionary.getInternalIdOrInsert(4_000_000_000L);
+    }
+
+    @Test
+    public void testDictionaryEnabledBySystemProperty() {
+        System.setProperty(VertexIdDictionary.ENABLED_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Assert.assertTrue(VertexIdDictionary.getInstance().isEnabled());
+            Assert.assertEquals(0, VertexIdDictionary.getInstance().getInternalIdOrInsert(
+                4_000_000_000L));
+        } finally {
+            System.clearProperty(VertexIdDictionary.ENABLED_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(VertexIdDictionary.getInstance().isEnabled());
+    }
+
+    @Test(expected = NoSuchVertexIDException.class)
+    public void testEnabledDictionaryThrowsForUnknownVertexId() {
+        vertexIdDictionary.setEnabled(true);
+        vertexIdDictionary.getInternalIdOrInsert(4_000_000_000L);
+        vertexIdDictionary.getInternalId(3);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEnablingDictionaryOnNonEmptyGraphThrows() {
+        Graph.getInstance().addVertex(0, TypeAndPropertyKeyStore.ANY, null /* no properties */);
+        vertexIdDictionary.setEnabled(true);
+    }
+
+    @Test
+    public void testCreateAndMatchWithLargeVertexIds() {
+        vertexIdDictionary.setEnabled(true);
+        executeCreateQuery("CREATE (4000000000:Person)-[:FOLLOWS]->(3:Person)," +
+            "(3:Person)-[:FOLLOWS]->(9000000000000:Person);");
+
+        // The vertices get dense internal vertex IDs in the order they are first seen.
+        Assert.assertEquals(3, Graph.getInstance().getVertexCount());
+        Assert.assertEquals(0, vertexIdDictionary.getInternalId(4_000_000_000L));
+        Assert.assertEquals(1, vertexIdDictionary.getInternalId(3));
+        Assert.assertEquals(9_000_000_000_000L, vertexIdDictionary.getExternalId(2));
+        Assert.assertTrue(Graph.getInstance().isEdgePresent(1, 2, Direction.FORWARD,
+            GraphVersion.PERMANENT, TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort(
+                "FOLLOWS")));
+
+        // MATCH outputs the external vertex IDs.
+        InMemoryOutputSink outputSink = new InMemoryOutputSink();
+        ((OneTimeMatchQueryPlan) new OneTimeMatchQueryPlanner(new StructuredQueryParser().parse(
+            "MATCH (a)-[:FOLLOWS]->(b),(b)-[:FOLLOWS]->(c) RETURN a, b, c;"), outputSink).plan()).
+            execute();
+        String output = outputSink.toString();
+        Assert.assertTrue(output, output.contains("4000000000 3 9000000000000"));
+    }
+
+    @Test
+    public void testBulkLoadWithLargeVertexIds() throws IOException {
+        vertexIdDictionary.setEnabled(true);
+        File vertexFile = temporaryFolder.newFile();
+        Files.write(vertexFile.toPath(), Arrays.asList("id,type", "100000000000,Person"),
+            StandardCharsets.UTF_8);
+        File edgeFile = temporaryFolder.newFile();
+        Files.write(edgeFile.toPath(), Arrays.asList("from,to,type", "100000000000,5,E",
+            "5,200000000000,E", "", "200000000000,100000000000,E"), StandardCharsets.UTF_8);
+        new CSVBulkLoader().load(vertexFile.getAbsolutePath(), edgeFile.getAbsolutePath());
+
+        Graph graph = Graph.getInstance();
+        Assert.assertEquals(3, graph.getVertexCount());
+        int u = vertexIdDictionary.getInternalId(100_000_000_000L);
+        int v = vertexIdDictionary.getInternalId(5);
+        int w = vertexIdDictionary.getInternalId(200_000_000_000L);
+        Assert.assertEquals(0, u);
+        Assert.assertEquals(1, v);
+        Assert.assertEquals(2, w);
+        short e = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("E");
+        Assert.assertTrue(graph.isEdgePresent(u, v, Direction.FORWARD, GraphVersion.PERMANENT,
+            e));
+        Assert.assertTrue(graph.isEdgePresent(v, w, Direction.FORWARD, GraphVersion.PERMANENT,
+            e));
+        Assert.assertTrue(graph.isEdgePresent(u, w, Direction.BACKWARD, GraphVersion.PERMANENT,
+            e));
+        Assert.assertEquals(TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("Person"),
+            Short.valueOf(graph.getVertexTypes().get(u)));
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws IOException {
+        vertexIdDictionary.setEnabled(true);
+        executeCreateQuery("CREATE (4000000000:Person)-[:FOLLOWS]->(12:Person);");
+        String saveDirectory = temporaryFolder.newFolder().getAbsolutePath();
+        GraphDBState.serialize(saveDirectory);
+        GraphDBState.deserialize(saveDirectory);
+
+        Assert.assertTrue(VertexIdDictionary.isSameAs(vertexIdDictionary, VertexIdDictionary.
+            getInstance()));
+        Assert.assertTrue(VertexIdDictionary.getInstance().isEnabled());
+        Assert.assertEquals(1, VertexIdDictionary.getInstance().getInternalId(12));
+    }
+
+    private void executeCreateQuery(String query) {
+        ((CreateQueryPlan) new CreateQueryPlanner(new StructuredQueryParser().parse(query)).
+            plan()).execute(new InMemoryOutputSink());
+    }
+}
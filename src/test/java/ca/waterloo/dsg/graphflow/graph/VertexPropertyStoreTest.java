@@ -1,11 +1,13 @@
 package ca.waterloo.dsg.graphflow.graph;
 
 import ca.waterloo.dsg.graphflow.util.DataType;
+import ca.waterloo.dsg.graphflow.util.StringDictionary;
 import org.antlr.v4.runtime.misc.Pair;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -37,9 +39,9 @@ public class VertexPropertyStoreTest {
 
         Assert.assertEquals(null, vertexPropertyStore.vertexProperties[0]);
         Assert.assertEquals(null, vertexPropertyStore.vertexProperties[1]);
-        Assert.assertEquals(2 /* short keys */ * 4 /* properties */ + 4 /* string length */ +
-                4 /* 4 bytes for int */ + 8 /* bytes for double */ + 1 /* byte for boolean */ +
-                "Real Madrid C.F.".length() /* UTF-8 conversion so each char maps to 1 byte */,
+        Assert.assertEquals(4 /* key directory header */ + 2 /* slots */ * 4 /* properties */ +
+                2 /* short keys */ * 4 /* properties */ + 4 /* string dictionary code */ +
+                4 /* 4 bytes for int */ + 8 /* bytes for double */ + 1 /* byte for boolean */,
             vertexPropertyStore.vertexProperties[2].length);
 
         Map<Short, Object> vertexProperties = vertexPropertyStore.getProperties(2);
@@ -49,4 +51,142 @@ public class VertexPropertyStoreTest {
         Assert.assertEquals(true, vertexProperties.get((short) 2));
         Assert.assertEquals(244.6, vertexProperties.get((short) 3));
     }
+
+    @Test
+    public void testColumnarLayout() {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        Map<String, Pair<String, String>> properties = new LinkedHashMap<>();
+        properties.put("name", new Pair<>("string", "Olivier"));
+        properties.put("age", new Pair<>("integer", "31"));
+        Map<Short, Pair<DataType, String>> shortProperties = TypeAndPropertyKeyStore.
+            getInstance().mapStringPropertiesToShortAndDataTypeOrInsert(properties);
+        Graph.getInstance().setHighestMergedVertexId(3);
+        vertexPropertyStore.set(1, shortProperties);
+
+        vertexPropertyStore.setColumnarLayout(true);
+        Assert.assertTrue(vertexPropertyStore.isColumnarLayoutEnabled());
+        Assert.assertEquals("Olivier", vertexPropertyStore.getProperty(1, (short) 0));
+        Assert.assertEquals(31, vertexPropertyStore.getProperty(1, (short) 1));
+        Assert.assertNull(vertexPropertyStore.getProperty(0, (short) 0));
+        properties.put("age", new Pair<>("integer", "40"));
+        vertexPropertyStore.set(3, TypeAndPropertyKeyStore.getInstance().
+            mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+        Assert.assertEquals("40", vertexPropertyStore.getPropertiesAsStrings(3).get("age"));
+
+        vertexPropertyStore.setColumnarLayout(false);
+        Assert.assertFalse(vertexPropertyStore.isColumnarLayoutEnabled());
+        Assert.assertNull(vertexPropertyStore.vertexProperties[0]);
+        Assert.assertEquals(2, vertexPropertyStore.getProperties(1).size());
+        Assert.assertEquals("Olivier", vertexPropertyStore.getProperty(1, (short) 0));
+        Assert.assertEquals(40, vertexPropertyStore.getProperty(3, (short) 1));
+    }
+
+    @Test
+    public void testColumnarLayoutEnabledBySystemProperty() {
+        System.setProperty(PropertyStore.COLUMNAR_LAYOUT_PROPERTY, "true");
+        try {
+            GraphDBState.reset();
+            Assert.assertTrue(VertexPropertyStore.getInstance().isColumnarLayoutEnabled());
+        } finally {
+            System.clearProperty(PropertyStore.COLUMNAR_LAYOUT_PROPERTY);
+            GraphDBState.reset();
+        }
+        Assert.assertFalse(VertexPropertyStore.getInstance().isColumnarLayoutEnabled());
+    }
+
+    @Test
+    public void testTypedGetters() {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        Map<String, Pair<String, String>> properties = new LinkedHashMap<>();
+        properties.put("name", new Pair<>("string", "Olivier"));
+        properties.put("age", new Pair<>("integer", "31"));
+        properties.put("isActive", new Pair<>("boolean", "true"));
+        properties.put("score", new Pair<>("double", "2.5"));
+        Graph.getInstance().setHighestMergedVertexId(1);
+        vertexPropertyStore.set(1, TypeAndPropertyKeyStore.getInstance().
+            mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+
+        StringBytes stringBytes = new StringBytes();
+        for (boolean isColumnarLayoutEnabled : new boolean[]{false, true}) {
+            vertexPropertyStore.setColumnarLayout(isColumnarLayoutEnabled);
+            Assert.assertTrue(vertexPropertyStore.getStringBytes(1, (short) 0, stringBytes));
+            Assert.assertEquals("Olivier", stringBytes.toString());
+            Assert.assertTrue(stringBytes.isEqualTo("Olivier".getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(31, vertexPropertyStore.getInt(1, (short) 1));
+            Assert.assertTrue(vertexPropertyStore.getBoolean(1, (short) 2));
+            Assert.assertEquals(2.5, vertexPropertyStore.getDouble(1, (short) 3), 0.0);
+            Assert.assertFalse(vertexPropertyStore.isNull(1, (short) 1));
+            Assert.assertTrue(vertexPropertyStore.isNull(0, (short) 1));
+            Assert.assertTrue(vertexPropertyStore.isNull(1, (short) 4));
+            Assert.assertFalse(vertexPropertyStore.getStringBytes(0, (short) 0, stringBytes));
+            Assert.assertEquals(0, vertexPropertyStore.getInt(0, (short) 1));
+        }
+    }
+
+    @Test
+    public void testTypedGettersWithoutKeyDirectory() {
+        // The keys of the vertex are too far apart for the key directory, so its properties are
+        // scanned. The last keys do not fit in a byte.
+        Map<String, Pair<String, String>> properties = new LinkedHashMap<>();
+        for (int i = 0; i < 130; i++) {
+            properties.put("key" + i, new Pair<>("integer", Integer.toString(i)));
+        }
+        properties.put("name", new Pair<>("string", "Olivier"));
+        TypeAndPropertyKeyStore.getInstance().mapStringPropertiesToShortAndDataTypeOrInsert(
+            properties);
+        properties.keySet().removeIf(key -> !key.equals("key0") && !key.equals("key129") &&
+            !key.equals("name"));
+        Graph.getInstance().setHighestMergedVertexId(0);
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        vertexPropertyStore.set(0, TypeAndPropertyKeyStore.getInstance().
+            mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+
+        Assert.assertEquals(0, vertexPropertyStore.getInt(0, (short) 0));
+        Assert.assertEquals(129, vertexPropertyStore.getInt(0, (short) 129));
+        Assert.assertTrue(vertexPropertyStore.isNull(0, (short) 64));
+        StringBytes stringBytes = new StringBytes();
+        Assert.assertTrue(vertexPropertyStore.getStringBytes(0, (short) 130, stringBytes));
+        Assert.assertEquals("Olivier", stringBytes.toString());
+        Assert.assertEquals(3, vertexPropertyStore.getProperties(0).size());
+        Assert.assertEquals(129, vertexPropertyStore.getProperties(0).get((short) 129));
+    }
+
+    @Test
+    public void testDictionaryEncodedAndUnencodedStrings() {
+        VertexPropertyStore vertexPropertyStore = VertexPropertyStore.getInstance();
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        // The first vertices fill the dictionary of the key, so the value of the last vertex is
+        // not encoded.
+        int numVertices = StringDictionary.MAX_SIZE + 1;
+        Graph.getInstance().setHighestMergedVertexId(numVertices - 1);
+        for (int vertexId = 0; vertexId < numVertices; vertexId++) {
+            Map<String, Pair<String, String>> properties = new LinkedHashMap<>();
+            properties.put("status", new Pair<>("string", "s" + vertexId));
+            properties.put("age", new Pair<>("integer", Integer.toString(vertexId)));
+            vertexPropertyStore.set(vertexId, typeAndPropertyKeyStore.
+                mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+        }
+        short statusKey = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("status");
+        short ageKey = typeAndPropertyKeyStore.mapStringPropertyKeyToShort("age");
+
+        StringBytes stringBytes = new StringBytes();
+        Assert.assertTrue(vertexPropertyStore.getStringBytes(7, statusKey, stringBytes));
+        Assert.assertEquals(7, stringBytes.getCode());
+        Assert.assertEquals("s7", stringBytes.toString());
+        // The value of an encoded string is the one of the dictionary.
+        Assert.assertSame(typeAndPropertyKeyStore.getString(statusKey, 7), vertexPropertyStore.
+            getProperty(7, statusKey));
+        Assert.assertEquals(7, vertexPropertyStore.getInt(7, ageKey));
+        Assert.assertEquals(7, vertexPropertyStore.getProperties(7).get(ageKey));
+
+        int lastVertexId = numVertices - 1;
+        Assert.assertTrue(vertexPropertyStore.getStringBytes(lastVertexId, statusKey,
+            stringBytes));
+        Assert.assertEquals(-1, stringBytes.getCode());
+        Assert.assertEquals("s" + lastVertexId, stringBytes.toString());
+        Assert.assertEquals("s" + lastVertexId, vertexPropertyStore.getProperty(lastVertexId,
+            statusKey));
+        Assert.assertEquals(lastVertexId, vertexPropertyStore.getProperties(lastVertexId).get(
+            ageKey));
+    }
 }
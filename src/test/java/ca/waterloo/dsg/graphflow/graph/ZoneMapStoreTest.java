@@ -0,0 +1,165 @@
+package ca.waterloo.dsg.graphflow.graph;
+
+import ca.waterloo.dsg.graphflow.util.DataType;
+import org.antlr.v4.runtime.misc.Pair;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests {@link ZoneMapStore}.
+ */
+public class ZoneMapStoreTest {
+
+    private static final int NUM_VERTICES = 2 * ZoneMaps.BLOCK_SIZE + 10;
+
+    private Graph graph;
+    private ZoneMapStore zoneMapStore;
+    private short personType;
+    private short followsType;
+    private short ageKey;
+    private short sinceKey;
+
+    /**
+     * Creates {@link #NUM_VERTICES} vertices, in which the age of vertex v is v, except that the
+     * vertices of the second block have no age, and the edges v->v+1 of the first 100 vertices,
+     * whose {@code since} property is 2000 + v.
+     */
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        graph = Graph.getInstance();
+        personType = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert("Person");
+        followsType = TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert(
+            "FOLLOWS");
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            graph.addVertex(vertexId, personType, 1 == ZoneMaps.getBlockId(vertexId) ?
+                getProperties("name", "string", "v" + vertexId) : getProperties("age",
+                "integer", "" + vertexId));
+        }
+        for (int vertexId = 0; vertexId < 100; vertexId++) {
+            graph.addEdgeTemporarily(vertexId, vertexId + 1, personType, personType,
+                null /* no fromVertex properties */, null /* no toVertex properties */,
+                followsType, getProperties("since", "integer", "" + (2000 + vertexId)));
+        }
+        graph.finalizeChanges();
+        ageKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("age");
+        sinceKey = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort("since");
+        zoneMapStore = ZoneMapStore.getInstance();
+    }
+
+    @Test
+    public void testSummaries() {
+        ZoneMaps vertexZoneMaps = zoneMapStore.getVertexZoneMaps();
+        Assert.assertEquals(NUM_VERTICES, vertexZoneMaps.getNumIds());
+        assertSummary(vertexZoneMaps, 0, ageKey, 0, ZoneMaps.BLOCK_SIZE - 1, 0);
+        assertSummary(vertexZoneMaps, 1, ageKey, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, ZoneMaps.BLOCK_SIZE);
+        assertSummary(vertexZoneMaps, 2, ageKey, 2 * ZoneMaps.BLOCK_SIZE, NUM_VERTICES - 1, 0);
+        assertSummary(zoneMapStore.getEdgeZoneMaps(), 0, sinceKey, 2000, 2099, 0);
+    }
+
+    @Test
+    public void testFilters() {
+        ZoneMapFilter vertexFilter = new ZoneMapFilter(true /* vertex filter */);
+        vertexFilter.addRange(ageKey, new PropertyRange(ZoneMaps.BLOCK_SIZE - 1,
+            false /* exclusive */, 2 * ZoneMaps.BLOCK_SIZE, true /* inclusive */));
+        Assert.assertFalse(vertexFilter.mayMatch(0));
+        Assert.assertFalse(vertexFilter.mayMatch(ZoneMaps.BLOCK_SIZE));
+        Assert.assertTrue(vertexFilter.mayMatch(2 * ZoneMaps.BLOCK_SIZE));
+        Assert.assertTrue(vertexFilter.mayMatchAnyBlock());
+        ZoneMapFilter edgeFilter = new ZoneMapFilter(false /* edge filter */);
+        edgeFilter.addRange(sinceKey, new PropertyRange(2099, false /* exclusive */, null, true));
+        Assert.assertFalse(edgeFilter.mayMatchAnyBlock());
+    }
+
+    @Test
+    public void testSummariesAreWidenedAndRecomputedWhenChangesAreFinalized() {
+        ZoneMaps vertexZoneMaps = zoneMapStore.getVertexZoneMaps();
+        graph.addVertex(5, personType, getProperties("age", "integer", "-5"));
+        graph.addVertex(6, personType, getProperties("name", "string", "v6"));
+        // The old values of the overwritten vertices are still summarized until the changes are
+        // finalized.
+        Assert.assertTrue(vertexZoneMaps.isDirty(0));
+        assertSummary(vertexZoneMaps, 0, ageKey, -5, ZoneMaps.BLOCK_SIZE - 1, -1);
+        graph.finalizeChanges();
+        Assert.assertFalse(vertexZoneMaps.isDirty(0));
+        assertSummary(vertexZoneMaps, 0, ageKey, -5, ZoneMaps.BLOCK_SIZE - 1, 1);
+        // The properties of a deleted edge are summarized until its ID is recycled by a new edge.
+        graph.deleteEdgeTemporarily(99, 100, followsType);
+        graph.finalizeChanges();
+        assertSummary(zoneMapStore.getEdgeZoneMaps(), 0, sinceKey, 2000, 2099, 0);
+        graph.addEdgeTemporarily(0, 2, personType, personType,
+            null /* no fromVertex properties */, null /* no toVertex properties */, followsType,
+            getProperties("since", "integer", "1990"));
+        graph.finalizeChanges();
+        assertSummary(zoneMapStore.getEdgeZoneMaps(), 0, sinceKey, 1990, 2098, 0);
+    }
+
+    @Test
+    public void testSummariesOfManyKeys() {
+        Map<String, Pair<String, String>> properties = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            properties.put("key" + i, new Pair<>("integer", "" + i));
+        }
+        graph.addVertex(NUM_VERTICES, personType, TypeAndPropertyKeyStore.getInstance().
+            mapStringPropertiesToShortAndDataTypeOrInsert(properties));
+        for (int i = 0; i < 10; i++) {
+            short key = TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort(
+                "key" + i);
+            assertSummary(zoneMapStore.getVertexZoneMaps(), 2, key, i, i, NUM_VERTICES - 2 *
+                ZoneMaps.BLOCK_SIZE);
+        }
+    }
+
+    @Test
+    public void testSummariesAreRebuiltAfterReordering() {
+        new GraphReorderer().reorder(GraphReorderer.VertexOrdering.DEGREE);
+        ZoneMaps vertexZoneMaps = zoneMapStore.getVertexZoneMaps();
+        int numVerticesWithAge = 0;
+        for (int blockId = 0; blockId <= ZoneMaps.getBlockId(NUM_VERTICES - 1); blockId++) {
+            numVerticesWithAge += Integer.min(ZoneMaps.BLOCK_SIZE, NUM_VERTICES - blockId *
+                ZoneMaps.BLOCK_SIZE) - vertexZoneMaps.getNullCount(blockId, ageKey);
+        }
+        Assert.assertEquals(NUM_VERTICES - ZoneMaps.BLOCK_SIZE, numVerticesWithAge);
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        zoneMapStore.serializeMainFile(objectOutputStream);
+        objectOutputStream.close();
+        ZoneMapStore.reset();
+        ZoneMapStore.getInstance().deserializeMainFile(new ObjectInputStream(
+            new ByteArrayInputStream(outputStream.toByteArray())));
+        Assert.assertTrue(ZoneMapStore.isSameAs(zoneMapStore, ZoneMapStore.getInstance()));
+        // The summaries maintained incrementally are the same as the ones rebuilt from scratch.
+        ZoneMapStore.getInstance().rebuild();
+        Assert.assertTrue(ZoneMapStore.isSameAs(zoneMapStore, ZoneMapStore.getInstance()));
+    }
+
+    private static void assertSummary(ZoneMaps zoneMaps, int blockId, short key,
+        double expectedMinValue, double expectedMaxValue, int expectedNullCount) {
+        Assert.assertEquals(expectedMinValue, zoneMaps.getMinValue(blockId, key), 0);
+        Assert.assertEquals(expectedMaxValue, zoneMaps.getMaxValue(blockId, key), 0);
+        if (expectedNullCount >= 0) {
+            Assert.assertEquals(expectedNullCount, zoneMaps.getNullCount(blockId, key));
+        }
+    }
+
+    private static Map<Short, Pair<DataType, String>> getProperties(String key, String dataType,
+        String value) {
+        Map<String, Pair<String, String>> properties = new HashMap<>();
+        properties.put(key, new Pair<>(dataType, value));
+        return TypeAndPropertyKeyStore.getInstance().mapStringPropertiesToShortAndDataTypeOrInsert(
+            properties);
+    }
+}
@@ -0,0 +1,159 @@
+package ca.waterloo.dsg.graphflow.query;
+
+import ca.waterloo.dsg.graphflow.graph.GraphDBState;
+import ca.waterloo.dsg.graphflow.server.ServerQueryString;
+import ca.waterloo.dsg.graphflow.server.ServerQueryString.ReturnType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Tests {@link QueryProcessor}.
+ */
+public class QueryProcessorTest {
+
+    private static final int NUM_VERTICES = 200;
+    private static final int NUM_CREATE_QUERIES = 100;
+    private static final int NUM_READER_THREADS = 4;
+
+    /**
+     * Creates the path 0->1->...->{@link #NUM_VERTICES} - 1, in which every vertex has the name
+     * n0 and the age 0.
+     */
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+        StringJoiner stringJoiner = new StringJoiner(", ", "CREATE ", ";");
+        for (int vertexId = 0; vertexId < NUM_VERTICES - 1; vertexId++) {
+            stringJoiner.add(String.format("(%d:Person { name: 'n0', age: 0 })-[:FOLLOWS]->" +
+                "(%d:Person { name: 'n0', age: 0 })", vertexId, vertexId + 1));
+        }
+        process(new QueryProcessor(), stringJoiner.toString());
+    }
+
+    @Test
+    public void testMatchQueriesRunningConcurrentlyWithCreateQueries() throws Exception {
+        runConcurrently(QueryProcessorTest::getCreateVerticesQuery, queryProcessor -> {
+            // Each CREATE query sets the age of all of the vertices, so a MATCH query sees
+            // either all or none of the new ages.
+            Assert.assertEquals(0, getCount(process(queryProcessor, "MATCH (a:Person)" +
+                "-[:FOLLOWS]->(b:Person) WHERE a.age <> b.age RETURN count(*);")));
+            Assert.assertEquals(NUM_VERTICES - 1, getCount(process(queryProcessor,
+                "MATCH (a:Person)-[:FOLLOWS]->(b:Person) RETURN count(*);")));
+        });
+    }
+
+    @Test
+    public void testPropertyReadsRunningConcurrentlyWithPropertyWrites() throws Exception {
+        runConcurrently(age -> {
+            StringJoiner stringJoiner = new StringJoiner(", ", "CREATE ", ";");
+            for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+                stringJoiner.add(String.format("(%d:Person { name: '%s', age: %d })", vertexId,
+                    getName(age), age));
+            }
+            return stringJoiner.toString();
+        }, queryProcessor -> {
+            String[] rows = process(queryProcessor, "MATCH (a:Person)-[:FOLLOWS]->(b:Person) " +
+                "RETURN a.name, a.age, b.name, b.age;").split("\n");
+            // The rows are followed by the execution time.
+            Assert.assertEquals(NUM_VERTICES, rows.length);
+            String expectedRow = rows[0];
+            for (int i = 0; i < NUM_VERTICES - 1; i++) {
+                // The records of the vertices are rewritten in place with names of different
+                // lengths, so a read during a write would see the old or a torn record.
+                Assert.assertEquals(expectedRow, rows[i]);
+            }
+            String[] values = expectedRow.split(" ");
+            int age = Integer.parseInt(values[1]);
+            Assert.assertEquals(String.join(" ", getName(age), "" + age, getName(age), "" + age),
+                expectedRow);
+        });
+    }
+
+    /**
+     * Runs {@link #NUM_CREATE_QUERIES} CREATE queries, the {@code i}th of which is returned by
+     * {@code getCreateQuery} for {@code i}, in one thread, and the given {@code readQueries}
+     * repeatedly in {@link #NUM_READER_THREADS} other threads until all of the CREATE queries
+     * are executed.
+     */
+    private static void runConcurrently(IntFunction<String> getCreateQuery,
+        Consumer<QueryProcessor> readQueries) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(NUM_READER_THREADS + 1);
+        List<Future<Void>> futures = new ArrayList<>();
+        AtomicBoolean isWriterDone = new AtomicBoolean(false);
+        futures.add(executorService.submit((Callable<Void>) () -> {
+            QueryProcessor queryProcessor = new QueryProcessor();
+            for (int i = 1; i <= NUM_CREATE_QUERIES; i++) {
+                String output = process(queryProcessor, getCreateQuery.apply(i));
+                Assert.assertFalse(output, output.startsWith("ERROR"));
+            }
+            isWriterDone.set(true);
+            return null;
+        }));
+        for (int thread = 0; thread < NUM_READER_THREADS; thread++) {
+            futures.add(executorService.submit((Callable<Void>) () -> {
+                QueryProcessor queryProcessor = new QueryProcessor();
+                while (!isWriterDone.get()) {
+                    readQueries.accept(queryProcessor);
+                }
+                return null;
+            }));
+        }
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(5, TimeUnit.MINUTES));
+        for (Future<Void> future : futures) {
+            // Rethrows the assertion errors and the exceptions of the threads.
+            future.get();
+        }
+    }
+
+    /**
+     * @return The name of the vertices whose age is {@code age}, which is n followed by
+     * {@code age} padded with 0 to between 1 and 8 digits.
+     */
+    private static String getName(int age) {
+        return String.format("n%0" + (1 + age % 8) + "d", age);
+    }
+
+    /**
+     * @return A CREATE query setting the age of all of the vertices to the given {@code age}.
+     */
+    private static String getCreateVerticesQuery(int age) {
+        StringJoiner stringJoiner = new StringJoiner(", ", "CREATE ", ";");
+        for (int vertexId = 0; vertexId < NUM_VERTICES; vertexId++) {
+            stringJoiner.add(String.format("(%d:Person { age: %d })", vertexId, age));
+        }
+        return stringJoiner.toString();
+    }
+
+    private static String process(QueryProcessor queryProcessor, String query) {
+        return queryProcessor.process(ServerQueryString.newBuilder().setMessage(query).
+            setReturnType(ReturnType.TEXT).build());
+    }
+
+    /**
+     * @return The count in the output of a {@code RETURN count(*)} MATCH query, which is 0 if the
+     * query has no matches.
+     */
+    private static long getCount(String output) {
+        for (String line : output.split("\n")) {
+            if (line.trim().matches("[0-9]+")) {
+                return Long.parseLong(line.trim());
+            }
+        }
+        Assert.assertTrue(output, output.startsWith("{}"));
+        return 0;
+    }
+}
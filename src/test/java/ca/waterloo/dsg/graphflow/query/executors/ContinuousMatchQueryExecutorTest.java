@@ -37,6 +37,7 @@ public class ContinuousMatchQueryExecutorTest {
     @Before
     public void setUp() {
         GraphDBState.reset();
+        ContinuousMatchQueryExecutor.getInstance().reset();
     }
 
     /**
@@ -73,7 +74,8 @@ public class ContinuousMatchQueryExecutorTest {
         // Execute the registered CONTINUOUS MATCH query.
         ContinuousMatchQueryExecutor.getInstance().execute();
 
-        int[][] expectedMotifs = {{2, 0, 1}, {3, 4, 1}, {3, 4, 1}, {3, 4, 1}, {1, 2, 0}};
+        // The deleted edges of each delta query are scanned sorted by their from vertex IDs.
+        int[][] expectedMotifs = {{2, 0, 1}, {3, 4, 1}, {3, 4, 1}, {1, 2, 0}, {3, 4, 1}};
         MatchQueryResultType[] expectedMatchQueryResultTypes = {MatchQueryResultType.EMERGED,
             MatchQueryResultType.DELETED, MatchQueryResultType.DELETED,
             MatchQueryResultType.DELETED, MatchQueryResultType.DELETED};
@@ -89,6 +91,43 @@ public class ContinuousMatchQueryExecutorTest {
             expectedMatchQueryResultTypes), actualOutput.toString());
     }
 
+    /**
+     * Tests a CONTINUOUS MATCH query whose delta query for the relation {@code (a)->(b)} scans the
+     * diff edges backward from {@code b}, which has more relations than {@code a}.
+     */
+    @Test
+    public void testProcessDiffEdgesScannedBackward() throws IOException {
+        String continuousQuery = "CONTINUOUSLY MATCH (a:Person)-[:LIVES]->(b:City)," +
+            "(b:City)-[:HAS]->(c:Person),(b:City)-[:HAS]->(d:Person) FILE 'results';";
+        Graph graph = Graph.getInstance();
+        TestUtils.createEdgesPermanently(graph, "CREATE (1:City)-[:HAS]->(2:Person)," +
+            "(1:City)-[:HAS]->(3:Person);");
+        TestUtils.createEdgesTemporarily(graph, "CREATE (0:Person)-[:LIVES]->(1:City)");
+
+        // The query is planned once its types are in the store.
+        StructuredQuery structuredQuery = new StructuredQueryParser().parse(continuousQuery);
+        File location = temporaryFolder.newFile("continuous_match_query_" + structuredQuery.
+            getFilePath());
+        ContinuousMatchQueryExecutor.getInstance().addContinuousMatchQueryPlan(
+            (ContinuousMatchQueryPlan) new ContinuousMatchQueryPlanner(structuredQuery, location).
+                plan());
+        ContinuousMatchQueryExecutor.getInstance().execute();
+
+        BufferedReader br = new BufferedReader(new FileReader(location));
+        StringJoiner actualOutput = new StringJoiner(System.lineSeparator());
+        String line;
+        while ((line = br.readLine()) != null) {
+            actualOutput.add(line);
+        }
+        // The vertices are output in the order of the variables of the delta query, (b, a, c, d).
+        int[][] expectedMotifs = {{1, 0, 2, 2}, {1, 0, 2, 3}, {1, 0, 3, 2}, {1, 0, 3, 3}};
+        MatchQueryResultType[] expectedMatchQueryResultTypes = {MatchQueryResultType.EMERGED,
+            MatchQueryResultType.EMERGED, MatchQueryResultType.EMERGED,
+            MatchQueryResultType.EMERGED};
+        Assert.assertEquals(TestUtils.getExpectedContentOfOutputFileSink(expectedMotifs,
+            expectedMatchQueryResultTypes), actualOutput.toString());
+    }
+
     /**
      * Removes all registered Continuous Match queries after the
      */
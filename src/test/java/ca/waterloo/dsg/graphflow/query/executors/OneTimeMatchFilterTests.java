@@ -2,6 +2,8 @@ package ca.waterloo.dsg.graphflow.query.executors;
 
 import ca.waterloo.dsg.graphflow.TestUtils;
 import ca.waterloo.dsg.graphflow.graph.GraphDBState;
+import ca.waterloo.dsg.graphflow.graph.PropertyIndexStore;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
 import ca.waterloo.dsg.graphflow.query.operator.InMemoryOutputSink;
 import ca.waterloo.dsg.graphflow.query.parser.StructuredQueryParser;
 import ca.waterloo.dsg.graphflow.query.planner.OneTimeMatchQueryPlanner;
@@ -10,6 +12,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * End-to-end tests of the different types of filter queries. Each query matches a triangle
  * pattern against the following graph.
@@ -82,6 +88,68 @@ public class OneTimeMatchFilterTests {
         runTest(matchQuery, expectedResults);
     }
 
+    @Test
+    public void testIndexSeededFilterQueries() {
+        String[] matchQueries = {"MATCH (v1:Person)-[e1:FOLLOWS]->(v2:Person),(v2:Person)-" +
+            "[e2:FOLLOWS]->(v3:Person),(v3:Person)-[:FOLLOWS]->(v1:Person) WHERE v1.name = " +
+            "'name1' RETURN v1, v2, v3;", "MATCH (v1:Person)-[e1:FOLLOWS]->(v2:Person)," +
+            "(v2:Person)-[e2:FOLLOWS]->(v3:Person) WHERE v3.age = 22 AND v1.views > 50 " +
+            "RETURN v1, v2, v3;", "MATCH (v1)-[e1:FOLLOWS]->(v2),(v2)-[e2:FOLLOWS]->(v3),(v3)" +
+            "-[:FOLLOWS]->(v1) WHERE e2.views = 250 RETURN v1, v2, v3;", "MATCH (v1:Person)-" +
+            "[e1:FOLLOWS]->(v2:Person),(v2:Person)-[e2:FOLLOWS]->(v3:Person) WHERE v2.age >= 22 " +
+            "AND v2.age < 30 AND v1.views > 50 RETURN v1, v2, v3;", "MATCH (v1)-[e1:FOLLOWS]->" +
+            "(v2),(v2)-[e2:FOLLOWS]->(v3) WHERE e1.views > 40 AND e1.views <= 250 RETURN v1, " +
+            "v2, v3;"};
+        List<List<String>> expectedResults = new ArrayList<>();
+        for (String matchQuery : matchQueries) {
+            expectedResults.add(getSortedResults(matchQuery));
+        }
+        TypeAndPropertyKeyStore typeAndPropertyKeyStore = TypeAndPropertyKeyStore.getInstance();
+        short personType = typeAndPropertyKeyStore.mapStringTypeToShort("Person");
+        short followsType = typeAndPropertyKeyStore.mapStringTypeToShort("FOLLOWS");
+        PropertyIndexStore propertyIndexStore = PropertyIndexStore.getInstance();
+        propertyIndexStore.createIndex(true /* vertex index */, personType,
+            typeAndPropertyKeyStore.mapStringPropertyKeyToShort("name"));
+        propertyIndexStore.createIndex(true /* vertex index */, personType,
+            typeAndPropertyKeyStore.mapStringPropertyKeyToShort("age"));
+        propertyIndexStore.createIndex(false /* edge index */, followsType,
+            typeAndPropertyKeyStore.mapStringPropertyKeyToShort("views"));
+        for (int i = 0; i < matchQueries.length; i++) {
+            OneTimeMatchQueryPlan plan = (OneTimeMatchQueryPlan) new OneTimeMatchQueryPlanner(
+                new StructuredQueryParser().parse(matchQueries[i]), new InMemoryOutputSink()).
+                plan();
+            Assert.assertTrue(plan.getHumanReadablePlan().contains("Seeded by the index on"));
+            Assert.assertFalse(expectedResults.get(i).isEmpty());
+            Assert.assertEquals(expectedResults.get(i), getSortedResults(matchQueries[i]));
+        }
+    }
+
+    @Test
+    public void testZoneMapPrunedFilterQueries() {
+        String matchQuery = "MATCH (v1:Person)-[e1:FOLLOWS]->(v2:Person) WHERE v2.age >= 22 AND " +
+            "v2.age < 30 AND v1.views > 50 RETURN v1, v2;";
+        String plan = ((OneTimeMatchQueryPlan) new OneTimeMatchQueryPlanner(
+            new StructuredQueryParser().parse(matchQuery), new InMemoryOutputSink()).plan()).
+            getHumanReadablePlan();
+        Assert.assertTrue(plan.contains("Pruned by the zone maps of the from vertices"));
+        Assert.assertTrue(plan.contains("Pruned by the zone maps of the to vertices"));
+        Assert.assertFalse(getSortedResults(matchQuery).isEmpty());
+        // No edge has views above 250, so nothing is scanned.
+        Assert.assertTrue(getSortedResults("MATCH (v1:Person)-[e1:FOLLOWS]->(v2:Person) WHERE " +
+            "e1.views > 250 RETURN v1, v2;").isEmpty());
+        Assert.assertFalse(getSortedResults("MATCH (v1:Person)-[e1:FOLLOWS]->(v2:Person) WHERE " +
+            "e1.views >= 250 RETURN v1, v2;").isEmpty());
+    }
+
+    private List<String> getSortedResults(String query) {
+        InMemoryOutputSink inMemoryOutputSink = new InMemoryOutputSink();
+        ((OneTimeMatchQueryPlan) new OneTimeMatchQueryPlanner(new StructuredQueryParser().parse(
+            query), inMemoryOutputSink).plan()).execute();
+        List<String> results = new ArrayList<>(inMemoryOutputSink.getResults());
+        Collections.sort(results);
+        return results;
+    }
+
     private void runTest(String query, Object[][] expectedResults) {
         InMemoryOutputSink inMemoryOutputSink = new InMemoryOutputSink();
         ((OneTimeMatchQueryPlan) new OneTimeMatchQueryPlanner(new StructuredQueryParser().parse(
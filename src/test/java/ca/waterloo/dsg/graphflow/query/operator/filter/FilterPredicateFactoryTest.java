@@ -1,7 +1,12 @@
 package ca.waterloo.dsg.graphflow.query.operator.filter;
 
 import ca.waterloo.dsg.graphflow.TestUtils;
+import ca.waterloo.dsg.graphflow.graph.Graph;
 import ca.waterloo.dsg.graphflow.graph.GraphDBState;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.query.operator.EdgeOrVertexPropertyDescriptor;
+import ca.waterloo.dsg.graphflow.query.operator.EdgeOrVertexPropertyDescriptor.DescriptorType;
+import ca.waterloo.dsg.graphflow.query.output.MatchQueryOutput;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryPropertyPredicate;
 import ca.waterloo.dsg.graphflow.util.RuntimeTypeBasedComparator.ComparisonOperator;
 import org.antlr.v4.runtime.misc.Pair;
@@ -34,12 +39,11 @@ public class FilterPredicateFactoryTest {
         QueryPropertyPredicate queryPropertyPredicate = TestUtils.createQueryPropertyPredicate(
             new Pair<>("a", propertyKey), new Pair<>("b", propertyKey), null, ComparisonOperator.
                 GREATER_THAN);
-        int vertex1PropertyResultIndex = 0;
-        int vertex2PropertyResultIndex = 2;
-        Predicate<String[]> predicate = FilterPredicateFactory.getFilterPredicate(
-            queryPropertyPredicate, vertex1PropertyResultIndex, vertex2PropertyResultIndex);
-        String[] resolvedProperties = {"15", "20", "10"};
-        Assert.assertTrue(predicate.test(resolvedProperties));
+        Predicate<MatchQueryOutput> predicate = FilterPredicateFactory.getFilterPredicate(
+            queryPropertyPredicate, getVertexPropertyDescriptor(0, propertyKey),
+            getVertexPropertyDescriptor(1, propertyKey));
+        Assert.assertTrue(predicate.test(getMatchQueryOutput(new int[]{0, 1})));
+        Assert.assertFalse(predicate.test(getMatchQueryOutput(new int[]{1, 0})));
     }
 
     @Test
@@ -47,11 +51,55 @@ public class FilterPredicateFactoryTest {
         String propertyKey = "views";
         QueryPropertyPredicate queryPropertyPredicate = TestUtils.createQueryPropertyPredicate(
             new Pair<>("a", propertyKey), null, "74", ComparisonOperator.GREATER_THAN_OR_EQUAL);
-        int edgePropertyResultIndex = 0;
-        Predicate<String[]> predicate = FilterPredicateFactory.getFilterPredicate(
-            queryPropertyPredicate, edgePropertyResultIndex, -1/* The index for variable2 goes
-            unused.*/);
-        String[] resolvedProperties = {"75", "20", "10"};
-        Assert.assertTrue(predicate.test(resolvedProperties));
+        Predicate<MatchQueryOutput> predicate = FilterPredicateFactory.getFilterPredicate(
+            queryPropertyPredicate, new EdgeOrVertexPropertyDescriptor(DescriptorType.
+                EDGE_PROPERTY, 0, TypeAndPropertyKeyStore.getInstance().
+                mapStringPropertyKeyToShort(propertyKey)), null);
+        MatchQueryOutput matchQueryOutput = getMatchQueryOutput(new int[0]);
+        matchQueryOutput.edgeIds = new long[]{Graph.getInstance().getEdgeIdFromGraph(0, 1,
+            TypeAndPropertyKeyStore.getInstance().mapStringTypeToShort("FOLLOWS"))};
+        Assert.assertTrue(predicate.test(matchQueryOutput));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPredicatesCastingOperands() {
+        // The integer ages are compared as doubles with a floating-point literal.
+        Predicate<MatchQueryOutput> predicate = FilterPredicateFactory.getFilterPredicate(
+            TestUtils.createQueryPropertyPredicate(new Pair<>("a", "age"), null, "15.5",
+                ComparisonOperator.LESS_THAN), getVertexPropertyDescriptor(0, "age"), null);
+        Assert.assertFalse(predicate.test(getMatchQueryOutput(new int[]{0})));
+        Assert.assertTrue(predicate.test(getMatchQueryOutput(new int[]{1})));
+        // The integer ages are compared as strings with the string names.
+        predicate = FilterPredicateFactory.getFilterPredicate(TestUtils.
+            createQueryPropertyPredicate(new Pair<>("a", "age"), new Pair<>("b", "name"), null,
+                ComparisonOperator.LESS_THAN), getVertexPropertyDescriptor(0, "age"),
+            getVertexPropertyDescriptor(1, "name"));
+        Assert.assertTrue(predicate.test(getMatchQueryOutput(new int[]{0, 1})));
+    }
+
+    @Test
+    public void testStringEqualityPredicate() {
+        Predicate<MatchQueryOutput> predicate = FilterPredicateFactory.getFilterPredicate(
+            TestUtils.createQueryPropertyPredicate(new Pair<>("a", "name"), null, "name1",
+                ComparisonOperator.EQUALS), getVertexPropertyDescriptor(0, "name"), null);
+        Assert.assertFalse(predicate.test(getMatchQueryOutput(new int[]{0})));
+        Assert.assertTrue(predicate.test(getMatchQueryOutput(new int[]{1})));
+        predicate = FilterPredicateFactory.getFilterPredicate(TestUtils.
+            createQueryPropertyPredicate(new Pair<>("a", "name"), null, "name1",
+                ComparisonOperator.NOT_EQUALS), getVertexPropertyDescriptor(0, "name"), null);
+        Assert.assertTrue(predicate.test(getMatchQueryOutput(new int[]{0})));
+        Assert.assertFalse(predicate.test(getMatchQueryOutput(new int[]{1})));
+    }
+
+    private static EdgeOrVertexPropertyDescriptor getVertexPropertyDescriptor(int index,
+        String propertyKey) {
+        return new EdgeOrVertexPropertyDescriptor(DescriptorType.VERTEX_PROPERTY, index,
+            TypeAndPropertyKeyStore.getInstance().mapStringPropertyKeyToShort(propertyKey));
+    }
+
+    private static MatchQueryOutput getMatchQueryOutput(int[] vertexIds) {
+        MatchQueryOutput matchQueryOutput = new MatchQueryOutput();
+        matchQueryOutput.vertexIds = vertexIds;
+        return matchQueryOutput;
+    }
+}
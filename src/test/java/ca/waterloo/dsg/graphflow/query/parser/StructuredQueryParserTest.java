@@ -1,5 +1,6 @@
 package ca.waterloo.dsg.graphflow.query.parser;
 
+import ca.waterloo.dsg.graphflow.graph.GraphReorderer.VertexOrdering;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryRelation;
 import ca.waterloo.dsg.graphflow.query.structuredquery.QueryVariable;
 import ca.waterloo.dsg.graphflow.query.structuredquery.StructuredQuery;
@@ -174,4 +175,57 @@ public class StructuredQueryParserTest {
 
         Assert.assertTrue(StructuredQuery.isSameAs(actualStructuredQuery, expectedStructuredQuery));
     }
+
+    /**
+     * Tests the parsing of a LOAD CSV query with a vertex and an edge file.
+     */
+    @Test
+    public void testParseBulkLoadQuery() throws Exception {
+        StructuredQuery actualStructuredQuery;
+        String query = "LOAD CSV VERTICES FROM '/tmp/vertices.csv' EDGES FROM '/tmp/edges.csv';";
+        try {
+            actualStructuredQuery = new StructuredQueryParser().parse(query);
+        } catch (ParseCancellationException e) {
+            throw new Exception("ERROR parsing: " + e.getMessage());
+        }
+
+        StructuredQuery expectedStructuredQuery = new StructuredQuery();
+        expectedStructuredQuery.setQueryOperation(StructuredQuery.QueryOperation.BULK_LOAD);
+        expectedStructuredQuery.setVertexFilePath("/tmp/vertices.csv");
+        expectedStructuredQuery.setFilePath("/tmp/edges.csv");
+
+        Assert.assertTrue(StructuredQuery.isSameAs(actualStructuredQuery, expectedStructuredQuery));
+    }
+
+    @Test
+    public void testParseReorderGraphQuery() throws Exception {
+        StructuredQuery expectedStructuredQuery = new StructuredQuery();
+        expectedStructuredQuery.setQueryOperation(StructuredQuery.QueryOperation.REORDER_GRAPH);
+        expectedStructuredQuery.setVertexOrdering(VertexOrdering.LOCALITY);
+        Assert.assertTrue(StructuredQuery.isSameAs(new StructuredQueryParser().parse(
+            "REORDER GRAPH BY LOCALITY;"), expectedStructuredQuery));
+
+        // Vertices are reordered by degree by default.
+        expectedStructuredQuery.setVertexOrdering(VertexOrdering.DEGREE);
+        Assert.assertTrue(StructuredQuery.isSameAs(new StructuredQueryParser().parse(
+            "reorder graph;"), expectedStructuredQuery));
+    }
+
+    @Test
+    public void testParseCreateIndexQuery() throws Exception {
+        StructuredQuery expectedStructuredQuery = new StructuredQuery();
+        expectedStructuredQuery.setQueryOperation(StructuredQuery.QueryOperation.CREATE_INDEX);
+        expectedStructuredQuery.setVertexIndex(true);
+        expectedStructuredQuery.setIndexedType("Person");
+        expectedStructuredQuery.setIndexedPropertyKey("name");
+        Assert.assertTrue(StructuredQuery.isSameAs(new StructuredQueryParser().parse(
+            "CREATE INDEX ON :Person(name);"), expectedStructuredQuery));
+
+        // Edge indexes are created on edge types.
+        expectedStructuredQuery.setVertexIndex(false);
+        expectedStructuredQuery.setIndexedType("FOLLOWS");
+        expectedStructuredQuery.setIndexedPropertyKey("since");
+        Assert.assertTrue(StructuredQuery.isSameAs(new StructuredQueryParser().parse(
+            "create index on [:FOLLOWS] ( since );"), expectedStructuredQuery));
+    }
 }
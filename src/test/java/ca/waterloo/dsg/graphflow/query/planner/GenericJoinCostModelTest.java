@@ -0,0 +1,165 @@
+package ca.waterloo.dsg.graphflow.query.planner;
+
+import ca.waterloo.dsg.graphflow.TestUtils;
+import ca.waterloo.dsg.graphflow.graph.Graph;
+import ca.waterloo.dsg.graphflow.graph.GraphDBState;
+import ca.waterloo.dsg.graphflow.graph.TypeAndPropertyKeyStore;
+import ca.waterloo.dsg.graphflow.query.operator.InMemoryOutputSink;
+import ca.waterloo.dsg.graphflow.query.parser.StructuredQueryParser;
+import ca.waterloo.dsg.graphflow.query.plans.OneTimeMatchQueryPlan;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Tests {@link GenericJoinCostModel}.
+ */
+public class GenericJoinCostModelTest {
+
+    private static final int NUM_PERSONS = 30;
+    private static final int NUM_KNOWS_PER_PERSON = 10;
+    // Only a few persons own an account, so the OWNS relation is much more selective than KNOWS.
+    private static final String FRAUD_RING_QUERY = "MATCH (a:Person)-[:KNOWS]->(b:Person)," +
+        "(b:Person)-[:KNOWS]->(c:Person),(c:Person)-[:OWNS]->(d:Account)";
+
+    @Before
+    public void setUp() {
+        GraphDBState.reset();
+    }
+
+    @Test
+    public void testDefaultOrderingIsKeptForEmptyGraph() {
+        for (String type : Arrays.asList("Person", "Account", "KNOWS", "OWNS")) {
+            TypeAndPropertyKeyStore.getInstance().mapStringTypeToShortOrInsert(type);
+        }
+        OneTimeMatchQueryPlanner planner = getPlanner(FRAUD_RING_QUERY +
+            " RETURN a, b, c, d;", new InMemoryOutputSink());
+        GenericJoinCostModel costModel = new GenericJoinCostModel(planner.queryGraph, Graph.
+            getInstance().getStatistics());
+        List<String> defaultOrderedVariables = Arrays.asList("b", "c", "a", "d");
+
+        Assert.assertEquals(0, costModel.getCost(defaultOrderedVariables), 0.0);
+        Assert.assertEquals(defaultOrderedVariables, costModel.getCheapestOrdering(
+            defaultOrderedVariables));
+    }
+
+    @Test
+    public void testCheapestOrderingStartsFromSelectiveRelation() {
+        createFraudRingGraph();
+        OneTimeMatchQueryPlanner planner = getPlanner(FRAUD_RING_QUERY +
+            " RETURN a, b, c, d;", new InMemoryOutputSink());
+        GenericJoinCostModel costModel = new GenericJoinCostModel(planner.queryGraph, Graph.
+            getInstance().getStatistics());
+        List<String> defaultOrderedVariables = Arrays.asList("b", "c", "a", "d");
+        List<String> cheapestOrderedVariables = costModel.getCheapestOrdering(
+            defaultOrderedVariables);
+
+        Assert.assertEquals(Arrays.asList("c", "d", "b", "a"), cheapestOrderedVariables);
+        Assert.assertTrue(costModel.getCost(cheapestOrderedVariables) < costModel.getCost(
+            defaultOrderedVariables));
+        // Extending the 2 owned accounts to their owners outputs 2 prefixes, each of which has
+        // 10 KNOWS edges to it.
+        double[] stageNumPrefixes = costModel.getStageNumPrefixes(cheapestOrderedVariables);
+        Assert.assertEquals(2, stageNumPrefixes[0], 1e-9);
+        Assert.assertEquals(20, stageNumPrefixes[1], 1e-9);
+    }
+
+    @Test
+    public void testCheapestPlanReturnsAllMatches() {
+        createFraudRingGraph();
+        InMemoryOutputSink outputSink = new InMemoryOutputSink();
+        ((OneTimeMatchQueryPlan) getPlanner(FRAUD_RING_QUERY + " RETURN a, b, c, d;",
+            outputSink).plan()).execute();
+
+        Set<String> expectedResults = new HashSet<>();
+        for (int c = 0; c < 2; c++) {
+            for (int b : getInNeighbours(c)) {
+                for (int a : getInNeighbours(b)) {
+                    expectedResults.add(new StringJoiner(" ").add("" + a).add("" + b).add("" +
+                        c).add("" + (NUM_PERSONS + c)).toString());
+                }
+            }
+        }
+        Assert.assertEquals(expectedResults, new HashSet<>(outputSink.getResults()));
+        Assert.assertEquals(expectedResults.size(), outputSink.getResults().size());
+    }
+
+    @Test
+    public void testQueriesWithoutReturnClauseKeepTheDefaultOutputOrder() {
+        createFraudRingGraph();
+        InMemoryOutputSink outputSink = new InMemoryOutputSink();
+        ((OneTimeMatchQueryPlan) getPlanner(FRAUD_RING_QUERY + ";", outputSink).plan()).
+            execute();
+
+        Assert.assertTrue(outputSink.toString().startsWith("[b, c, a, d]"));
+        Assert.assertTrue(outputSink.getResults().contains((NUM_PERSONS - 1) + " 0 " +
+            (NUM_PERSONS - 2) + " " + NUM_PERSONS));
+    }
+
+    @Test
+    public void testGreedySearchForLargeQueries() {
+        createFraudRingGraph();
+        // A path of KNOWS relations with more variables than are searched exhaustively.
+        StringJoiner query = new StringJoiner(",", "MATCH ", " RETURN v0;");
+        int numVariables = GenericJoinCostModel.MAX_NUM_VARIABLES_FOR_EXHAUSTIVE_SEARCH + 1;
+        for (int i = 0; i < numVariables - 2; i++) {
+            query.add("(v" + i + ":Person)-[:KNOWS]->(v" + (i + 1) + ":Person)");
+        }
+        query.add("(v" + (numVariables - 2) + ":Person)-[:OWNS]->(v" + (numVariables - 1) +
+            ":Account)");
+        OneTimeMatchQueryPlanner planner = getPlanner(query.toString(),
+            new InMemoryOutputSink());
+        GenericJoinCostModel costModel = new GenericJoinCostModel(planner.queryGraph, Graph.
+            getInstance().getStatistics());
+        List<String> defaultOrderedVariables = new ArrayList<>();
+        for (int i = 0; i < numVariables; i++) {
+            defaultOrderedVariables.add("v" + i);
+        }
+        List<String> cheapestOrderedVariables = costModel.getCheapestOrdering(
+            defaultOrderedVariables);
+
+        Assert.assertEquals(new HashSet<>(defaultOrderedVariables), new HashSet<>(
+            cheapestOrderedVariables));
+        // The plan starts from the selective OWNS relation at the end of the path.
+        Assert.assertEquals(new HashSet<>(Arrays.asList("v" + (numVariables - 2), "v" +
+            (numVariables - 1))), new HashSet<>(cheapestOrderedVariables.subList(0, 2)));
+        Assert.assertTrue(costModel.getCost(cheapestOrderedVariables) < costModel.getCost(
+            defaultOrderedVariables));
+    }
+
+    /**
+     * Creates {@link #NUM_PERSONS} persons, each of which knows the next {@link
+     * #NUM_KNOWS_PER_PERSON} persons, and 2 accounts owned by persons 0 and 1.
+     */
+    private void createFraudRingGraph() {
+        StringJoiner createQuery = new StringJoiner(",", "CREATE ", ";");
+        for (int person = 0; person < NUM_PERSONS; person++) {
+            for (int i = 1; i <= NUM_KNOWS_PER_PERSON; i++) {
+                createQuery.add("(" + person + ":Person)-[:KNOWS]->(" + ((person + i) %
+                    NUM_PERSONS) + ":Person)");
+            }
+        }
+        createQuery.add("(0:Person)-[:OWNS]->(" + NUM_PERSONS + ":Account)");
+        createQuery.add("(1:Person)-[:OWNS]->(" + (NUM_PERSONS + 1) + ":Account)");
+        TestUtils.createEdgesPermanently(Graph.getInstance(), createQuery.toString());
+    }
+
+    private List<Integer> getInNeighbours(int person) {
+        List<Integer> inNeighbours = new ArrayList<>();
+        for (int i = 1; i <= NUM_KNOWS_PER_PERSON; i++) {
+            inNeighbours.add((person - i + NUM_PERSONS) % NUM_PERSONS);
+        }
+        return inNeighbours;
+    }
+
+    private OneTimeMatchQueryPlanner getPlanner(String query, InMemoryOutputSink outputSink) {
+        return new OneTimeMatchQueryPlanner(new StructuredQueryParser().parse(query), outputSink);
+    }
+}
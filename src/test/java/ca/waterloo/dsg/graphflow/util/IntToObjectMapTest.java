@@ -0,0 +1,61 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntToObjectMap}.
+ */
+public class IntToObjectMapTest {
+
+    private IntToObjectMap<String> map = new IntToObjectMap<>();
+
+    @Test
+    public void testPutAndGet() {
+        map.put(3, "three");
+        map.put(-1, "minus one");
+        map.put(3, "THREE");
+
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("THREE", map.get(3));
+        Assert.assertEquals("minus one", map.get(-1));
+        Assert.assertNull(map.get(0));
+        Assert.assertTrue(map.containsKey(-1));
+        Assert.assertFalse(map.containsKey(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutNullValue() {
+        map.put(1, null);
+    }
+
+    @Test
+    public void testManyKeysAcrossResizes() {
+        int numKeys = 100_000;
+        for (int i = 0; i < numKeys; i++) {
+            // Keys that are multiples of a large power of 2.
+            map.put(i << 12, Integer.toString(i));
+        }
+        Assert.assertEquals(numKeys, map.size());
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(Integer.toString(i), map.get(i << 12));
+        }
+        Assert.assertNull(map.get(1));
+    }
+
+    @Test
+    public void testGetSortedKeysAndClear() {
+        map.put(42, "a");
+        map.put(7, "b");
+        map.put(1000, "c");
+        Assert.assertArrayEquals(new int[]{7, 42, 1000}, map.getSortedKeys());
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(42));
+        Assert.assertArrayEquals(new int[]{}, map.getSortedKeys());
+        map.put(7, "d");
+        Assert.assertEquals("d", map.get(7));
+        Assert.assertEquals(1, map.size());
+    }
+}
@@ -0,0 +1,80 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.NoSuchElementException;
+
+/**
+ * Tests {@link LongToIntKeyStore}.
+ */
+public class LongToIntKeyStoreTest {
+
+    // Special JUnit defined temporary folder used to test I/O operations on files. Requires
+    // {@code public} visibility.
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private LongToIntKeyStore keyStore = new LongToIntKeyStore();
+
+    @Test
+    public void testGetKeyAsIntOrInsert() {
+        Assert.assertEquals(0, keyStore.getKeyAsIntOrInsert(4_000_000_000L));
+        Assert.assertEquals(1, keyStore.getKeyAsIntOrInsert(-7));
+        Assert.assertEquals(2, keyStore.getKeyAsIntOrInsert(Long.MAX_VALUE));
+        Assert.assertEquals(0, keyStore.getKeyAsIntOrInsert(4_000_000_000L));
+        Assert.assertEquals(3, keyStore.getSize());
+
+        Assert.assertEquals(1, keyStore.mapLongKeyToInt(-7));
+        Assert.assertEquals(-1, keyStore.mapLongKeyToInt(7));
+        Assert.assertEquals(4_000_000_000L, keyStore.mapIntKeyToLong(0));
+        Assert.assertEquals(Long.MAX_VALUE, keyStore.mapIntKeyToLong(2));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testMapIntKeyToLongThrowsForMissingKey() {
+        keyStore.getKeyAsIntOrInsert(10);
+        keyStore.mapIntKeyToLong(1);
+    }
+
+    @Test
+    public void testManyKeysAcrossResizes() {
+        int numKeys = 100_000;
+        for (int i = 0; i < numKeys; i++) {
+            // Keys with the same low bits, which collide in a naive hash table.
+            Assert.assertEquals(i, keyStore.getKeyAsIntOrInsert((long) i << 32));
+        }
+        for (int i = 0; i < numKeys; i++) {
+            Assert.assertEquals(i, keyStore.mapLongKeyToInt((long) i << 32));
+            Assert.assertEquals((long) i << 32, keyStore.mapIntKeyToLong(i));
+        }
+        Assert.assertEquals(-1, keyStore.mapLongKeyToInt(1));
+        Assert.assertEquals(numKeys, keyStore.getSize());
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            keyStore.getKeyAsIntOrInsert(i * 7919L - 500);
+        }
+        File file = temporaryFolder.newFile();
+        ObjectOutputStream objectOutputStream = IOUtils.constructObjectOutputStream(
+            file.getAbsolutePath());
+        keyStore.serialize(objectOutputStream);
+        objectOutputStream.close();
+        LongToIntKeyStore deserializedKeyStore = new LongToIntKeyStore();
+        ObjectInputStream objectInputStream = IOUtils.constructObjectInputStream(
+            file.getAbsolutePath());
+        deserializedKeyStore.deserialize(objectInputStream);
+        objectInputStream.close();
+
+        Assert.assertTrue(LongToIntKeyStore.isSameAs(keyStore, deserializedKeyStore));
+        Assert.assertEquals(999, deserializedKeyStore.mapLongKeyToInt(999 * 7919L - 500));
+        Assert.assertEquals(1000, deserializedKeyStore.getKeyAsIntOrInsert(-501));
+    }
+}
@@ -0,0 +1,69 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Tests {@link RoaringBitmap}.
+ */
+public class RoaringBitmapTest {
+
+    @Test
+    public void testSparseAndDenseChunks() {
+        RoaringBitmap.Builder builder = new RoaringBitmap.Builder();
+        // A sparse chunk with the values 0, 3, ..., 297, a dense chunk with all the values from
+        // 2^16 to 2^16 + 9999, and a sparse chunk with the value 2^20 added twice.
+        for (int i = 0; i < 100; i++) {
+            builder.add(3 * i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            builder.add((1 << 16) + i);
+        }
+        builder.add(1 << 20);
+        builder.add(1 << 20);
+        RoaringBitmap bitmap = builder.build();
+
+        Assert.assertEquals(10101, bitmap.getCardinality());
+        Assert.assertEquals(1, bitmap.getNumBitmapContainers());
+        Assert.assertTrue(bitmap.contains(0));
+        Assert.assertTrue(bitmap.contains(297));
+        Assert.assertFalse(bitmap.contains(298));
+        Assert.assertTrue(bitmap.contains((1 << 16) + 9999));
+        Assert.assertFalse(bitmap.contains((1 << 16) + 10000));
+        Assert.assertTrue(bitmap.contains(1 << 20));
+        Assert.assertFalse(bitmap.contains((1 << 20) + 1));
+        Assert.assertFalse(bitmap.contains(1 << 17));
+        Assert.assertFalse(bitmap.contains(-1));
+    }
+
+    @Test
+    public void testContainsMatchesTreeSet() {
+        Random random = new Random(0);
+        TreeSet<Integer> values = new TreeSet<>();
+        for (int i = 0; i < 50000; i++) {
+            // Values are denser in the first chunks than in the last ones.
+            values.add(random.nextInt(1 << (16 + random.nextInt(4))));
+        }
+        RoaringBitmap.Builder builder = new RoaringBitmap.Builder();
+        for (int value : values) {
+            builder.add(value);
+        }
+        RoaringBitmap bitmap = builder.build();
+
+        Assert.assertEquals(values.size(), bitmap.getCardinality());
+        Assert.assertTrue(bitmap.getNumBitmapContainers() > 0);
+        for (int value = 0; value < (1 << 19); value++) {
+            Assert.assertEquals(values.contains(value), bitmap.contains(value));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddingDecreasingValuesThrowsException() {
+        RoaringBitmap.Builder builder = new RoaringBitmap.Builder();
+        builder.add(5);
+        builder.add(4);
+    }
+}
@@ -0,0 +1,67 @@
+package ca.waterloo.dsg.graphflow.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests {@link StringDictionary}.
+ */
+public class StringDictionaryTest {
+
+    private StringDictionary dictionary = new StringDictionary();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalArgumentExceptionForGetCodeOrInsert() {
+        dictionary.getCodeOrInsert(null);
+    }
+
+    @Test
+    public void testGetCodeOrInsert() {
+        Assert.assertEquals(0, dictionary.getCodeOrInsert("Canada"));
+        Assert.assertEquals(1, dictionary.getCodeOrInsert("Peru"));
+        Assert.assertEquals(0, dictionary.getCodeOrInsert("Canada"));
+        Assert.assertEquals(1, dictionary.getCode("Peru"));
+        Assert.assertEquals(-1, dictionary.getCode("Chile"));
+        Assert.assertEquals("Peru", dictionary.getString(1));
+        Assert.assertArrayEquals("Peru".getBytes(StandardCharsets.UTF_8), dictionary.getBytes(1));
+        Assert.assertEquals(2, dictionary.getSize());
+    }
+
+    @Test
+    public void testFullDictionaryAndLongValuesAreNotInserted() {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i <= StringDictionary.MAX_VALUE_LENGTH; i++) {
+            longValue.append('a');
+        }
+        Assert.assertEquals(-1, dictionary.getCodeOrInsert(longValue.toString()));
+        for (int i = 0; i < StringDictionary.MAX_SIZE; i++) {
+            Assert.assertEquals(i, dictionary.getCodeOrInsert("v" + i));
+        }
+        Assert.assertEquals(-1, dictionary.getCodeOrInsert("overflow"));
+        Assert.assertEquals(7, dictionary.getCodeOrInsert("v7"));
+        Assert.assertEquals(StringDictionary.MAX_SIZE, dictionary.getSize());
+    }
+
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        dictionary.getCodeOrInsert("Canada");
+        dictionary.getCodeOrInsert("Perú");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        dictionary.serialize(objectOutputStream);
+        objectOutputStream.close();
+        StringDictionary deserializedDictionary = new StringDictionary();
+        deserializedDictionary.deserialize(new ObjectInputStream(new ByteArrayInputStream(
+            outputStream.toByteArray())));
+        Assert.assertTrue(StringDictionary.isSameAs(dictionary, deserializedDictionary));
+        Assert.assertArrayEquals("Perú".getBytes(StandardCharsets.UTF_8),
+            deserializedDictionary.getBytes(1));
+        Assert.assertEquals(2, deserializedDictionary.getCodeOrInsert("Chile"));
+    }
+}